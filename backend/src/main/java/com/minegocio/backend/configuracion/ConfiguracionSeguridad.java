@@ -2,6 +2,7 @@ package com.minegocio.backend.configuracion;
 
 import com.minegocio.backend.seguridad.AuthTokenFilter;
 import com.minegocio.backend.seguridad.UsuarioDetallesService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -61,9 +62,13 @@ public class ConfiguracionSeguridad {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> {
+                // Despachos async de respuestas ya autorizadas (eventos SSE del inventario)
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll();
                 // Endpoints completamente públicos
                 auth.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
-                auth.requestMatchers("/actuator/**").permitAll();
+                auth.requestMatchers("/actuator/health/**", "/actuator/info").permitAll();
+                // Métricas (caché de tienda, etc.) y /actuator/prometheus solo para super admin
+                auth.requestMatchers("/actuator/**").hasRole("SUPER_ADMIN");
                 auth.requestMatchers("/h2-console/**").permitAll();
                 
                 // Endpoints de autenticación
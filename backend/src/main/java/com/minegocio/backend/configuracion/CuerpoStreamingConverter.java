@@ -0,0 +1,43 @@
+package com.minegocio.backend.configuracion;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+/**
+ * Permite devolver un StreamingResponseBody dentro de ResponseEntity<?>, que es la firma
+ * que usan los controladores para poder responder también errores como JSON.
+ * Spring solo reconoce el cuerpo en streaming cuando el tipo declarado es ResponseEntity<StreamingResponseBody>;
+ * con este converter el cuerpo se escribe directo en la salida de la respuesta, sin pasar por memoria.
+ */
+public class CuerpoStreamingConverter extends AbstractHttpMessageConverter<StreamingResponseBody> {
+
+    public CuerpoStreamingConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StreamingResponseBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StreamingResponseBody readInternal(Class<? extends StreamingResponseBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StreamingResponseBody solo se usa para respuestas", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StreamingResponseBody cuerpo, HttpOutputMessage outputMessage) throws IOException {
+        cuerpo.writeTo(outputMessage.getBody());
+    }
+}
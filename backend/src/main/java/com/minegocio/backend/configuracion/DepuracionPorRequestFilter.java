@@ -0,0 +1,71 @@
+package com.minegocio.backend.configuracion;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Prepara el contexto de logs de cada request: un identificador (requestId en el MDC, visible
+ * en cada línea) y, si el request trae el header de depuración con el token configurado,
+ * la marca depuracion=true que logback-spring.xml usa para registrar DEBUG solo en ese request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DepuracionPorRequestFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_DEPURACION = "X-Depuracion";
+    public static final String HEADER_REQUEST_ID = "X-Request-Id";
+    public static final String MDC_DEPURACION = "depuracion";
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    // Vacío deshabilita el header de depuración
+    @Value("${minegocio.logging.depuracion.token:}")
+    private String tokenDepuracion;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = requestIdValido(request.getHeader(HEADER_REQUEST_ID));
+        MDC.put(MDC_REQUEST_ID, requestId);
+        response.setHeader(HEADER_REQUEST_ID, requestId);
+        if (depuracionSolicitada(request.getHeader(HEADER_DEPURACION))) {
+            MDC.put(MDC_DEPURACION, "true");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_DEPURACION);
+            MDC.remove(MDC_REQUEST_ID);
+        }
+    }
+
+    private boolean depuracionSolicitada(String valor) {
+        if (!StringUtils.hasText(tokenDepuracion) || valor == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(tokenDepuracion.getBytes(StandardCharsets.UTF_8), valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reutiliza el id que manda el cliente si es corto y seguro para los logs; si no, genera uno
+     */
+    private static String requestIdValido(String recibido) {
+        if (recibido != null && recibido.length() <= 64 && recibido.matches("[A-Za-z0-9._-]+")) {
+            return recibido;
+        }
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() & 0xFFFFFFFFFFFFL);
+    }
+}
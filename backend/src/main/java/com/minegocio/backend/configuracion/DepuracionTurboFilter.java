@@ -0,0 +1,35 @@
+package com.minegocio.backend.configuracion;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Filtro de logback que habilita DEBUG en los loggers de la aplicación solo para el request
+ * marcado por DepuracionPorRequestFilter (depuracion=true en el MDC). Las librerías mantienen
+ * su nivel. Solo adelanta DEBUG e INFO y nunca en un logger apagado (OFF): para WARN/ERROR y
+ * fuera de esos requests responde NEUTRAL y decide el nivel configurado del logger.
+ */
+public class DepuracionTurboFilter extends TurboFilter {
+
+    private String prefijo = "com.minegocio";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level.isGreaterOrEqual(Level.DEBUG)
+                && !level.isGreaterOrEqual(Level.WARN)
+                && logger.getEffectiveLevel() != Level.OFF
+                && logger.getName().startsWith(prefijo)
+                && "true".equals(MDC.get(DepuracionPorRequestFilter.MDC_DEPURACION))) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setPrefijo(String prefijo) {
+        this.prefijo = prefijo;
+    }
+}
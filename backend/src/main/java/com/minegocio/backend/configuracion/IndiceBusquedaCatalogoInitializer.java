@@ -0,0 +1,82 @@
+package com.minegocio.backend.configuracion;
+
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Prepara el índice de búsqueda del catálogo público al arrancar:
+ * - completa productos.texto_busqueda en productos creados antes de existir la columna
+ * - en PostgreSQL crea un índice trigram (pg_trgm) para que LIKE '%termino%' use índice
+ */
+@Component
+public class IndiceBusquedaCatalogoInitializer {
+
+    private static final int TAMANO_LOTE = 500;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarIndiceBusqueda() {
+        try {
+            completarTextoBusqueda();
+            crearIndiceTrigramSiEsPostgres();
+        } catch (Exception e) {
+            // No impedir el arranque: la búsqueda sigue funcionando, solo sin el índice
+            System.err.println("⚠️ [CATALOGO] No se pudo preparar el índice de búsqueda: " + e.getMessage());
+        }
+    }
+
+    private void completarTextoBusqueda() {
+        TransactionTemplate lote = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            Integer procesados = lote.execute(estado -> {
+                List<Producto> pendientes = productoRepository.findSinTextoBusqueda(PageRequest.of(0, TAMANO_LOTE));
+                pendientes.forEach(Producto::actualizarTextoBusqueda);
+                productoRepository.saveAll(pendientes);
+                return pendientes.size();
+            });
+            if (procesados == null || procesados == 0) {
+                break;
+            }
+            total += procesados;
+        }
+        if (total > 0) {
+            System.out.println("✅ [CATALOGO] Texto de búsqueda completado para " + total + " productos");
+        }
+    }
+
+    private void crearIndiceTrigramSiEsPostgres() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            String motor = connection.getMetaData().getDatabaseProductName();
+            if (motor == null || !motor.toLowerCase().contains("postgres")) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_productos_texto_busqueda_trgm " +
+                                  "ON productos USING gin (texto_busqueda gin_trgm_ops)");
+            }
+            System.out.println("✅ [CATALOGO] Índice trigram de búsqueda verificado");
+        }
+    }
+}
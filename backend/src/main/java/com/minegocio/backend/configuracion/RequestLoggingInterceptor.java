@@ -2,33 +2,31 @@ package com.minegocio.backend.configuracion;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 
 @Component
 public class RequestLoggingInterceptor implements HandlerInterceptor {
 
+    private static final Logger logger = LoggerFactory.getLogger(RequestLoggingInterceptor.class);
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        if ("POST".equals(request.getMethod()) && request.getRequestURI().contains("/api/remitos-ingreso")) {
-            System.out.println("=== DEBUG REQUEST INTERCEPTOR ===");
-            System.out.println("URL: " + request.getRequestURI());
-            System.out.println("Method: " + request.getMethod());
-            System.out.println("Content-Type: " + request.getContentType());
-            System.out.println("Content-Length: " + request.getContentLength());
+        if (logger.isDebugEnabled() && "POST".equals(request.getMethod()) && request.getRequestURI().contains("/api/remitos-ingreso")) {
+            logger.debug("Request {} {} - Content-Type: {}, Content-Length: {}",
+                    request.getMethod(), request.getRequestURI(), request.getContentType(), request.getContentLength());
             
             // NO leer el body aquí para evitar consumir el stream
-            // Solo loggear los headers y metadata
-            System.out.println("Request headers:");
+            // Solo loggear los headers (sin credenciales) y metadata
             java.util.Enumeration<String> headerNames = request.getHeaderNames();
             while (headerNames.hasMoreElements()) {
                 String headerName = headerNames.nextElement();
-                String headerValue = request.getHeader(headerName);
-                System.out.println("  " + headerName + ": " + headerValue);
+                if (!"authorization".equalsIgnoreCase(headerName) && !"cookie".equalsIgnoreCase(headerName)) {
+                    logger.debug("  {}: {}", headerName, request.getHeader(headerName));
+                }
             }
-            
-            System.out.println("=== FIN DEBUG REQUEST INTERCEPTOR ===");
         }
         return true;
     }
@@ -2,12 +2,15 @@ package com.minegocio.backend.controladores;
 
 import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Usuario;
+import com.minegocio.backend.entidades.VentaProductoAcumulada;
 import com.minegocio.backend.servicios.EmpresaService;
 import com.minegocio.backend.servicios.AutenticacionService;
 import com.minegocio.backend.servicios.PedidoService;
 import com.minegocio.backend.servicios.VentaRapidaService;
 import com.minegocio.backend.servicios.CloudinaryService;
 import com.minegocio.backend.servicios.AdminService;
+import com.minegocio.backend.servicios.RankingVentasService;
+import com.minegocio.backend.servicios.LibroStockDiarioService;
 import com.minegocio.backend.seguridad.JwtUtils;
 import com.minegocio.backend.dto.EmpresaDTO;
 import com.minegocio.backend.servicios.VentaRapidaService.VentaRapidaEstadisticas;
@@ -23,6 +26,7 @@ import java.util.Optional;
 import java.util.List;
 import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.HashMap;
 
 @RestController
@@ -50,6 +54,12 @@ public class AdminController {
     
     @Autowired
     private AdminService adminService;
+    
+    @Autowired
+    private RankingVentasService rankingVentasService;
+    
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
 
     /**
      * Endpoint de salud para verificar conectividad y funcionalidad básica
@@ -355,10 +365,27 @@ public class AdminController {
      */
     @GetMapping("/estadisticas-productos")
     @Transactional(readOnly = true)
-    public ResponseEntity<?> obtenerEstadisticasProductos(HttpServletRequest request) {
+    public ResponseEntity<?> obtenerEstadisticasProductos(
+            @RequestParam(value = "periodo", required = false) String periodo,
+            @RequestParam(value = "fecha", required = false) String fecha,
+            HttpServletRequest request) {
         try {
             System.out.println("=== DEBUG ESTADISTICAS PRODUCTOS ===");
             
+            // Período opcional del ranking (TOTAL, DIA, MES, ANIO) relativo a la fecha indicada (por defecto hoy)
+            VentaProductoAcumulada.Periodo periodoRanking = VentaProductoAcumulada.Periodo.TOTAL;
+            LocalDate fechaRanking = null;
+            try {
+                if (periodo != null && !periodo.isBlank()) {
+                    periodoRanking = VentaProductoAcumulada.Periodo.valueOf(periodo.trim().toUpperCase());
+                }
+                if (fecha != null && !fecha.isBlank()) {
+                    fechaRanking = LocalDate.parse(fecha.trim());
+                }
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Período o fecha inválidos: " + e.getMessage()));
+            }
+            
             String token = request.getHeader("Authorization");
             if (token == null || !token.startsWith("Bearer ")) {
                 System.out.println("❌ Token no válido o ausente");
@@ -384,11 +411,11 @@ public class AdminController {
             System.out.println("🏢 Empresa encontrada: " + empresa.getNombre() + " (ID: " + empresa.getId() + ")");
             
             // Obtener top 3 productos más vendidos
-            List<Map<String, Object>> topMasVendidos = pedidoService.obtenerTopProductosMasVendidos(empresa.getId(), 3);
+            List<Map<String, Object>> topMasVendidos = pedidoService.obtenerTopProductosMasVendidos(empresa.getId(), 3, periodoRanking, fechaRanking);
             System.out.println("🏆 Top 3 más vendidos obtenidos: " + topMasVendidos.size());
             
             // Obtener top 3 productos menos vendidos
-            List<Map<String, Object>> topMenosVendidos = pedidoService.obtenerTopProductosMenosVendidos(empresa.getId(), 3);
+            List<Map<String, Object>> topMenosVendidos = pedidoService.obtenerTopProductosMenosVendidos(empresa.getId(), 3, periodoRanking, fechaRanking);
             System.out.println("⚠️ Top 3 menos vendidos obtenidos: " + topMenosVendidos.size());
             
             Map<String, Object> estadisticas = Map.of(
@@ -410,6 +437,58 @@ public class AdminController {
         }
     }
 
+    /**
+     * Reconstruir los contadores del ranking de productos desde el historial de ventas
+     */
+    @PostMapping("/estadisticas-productos/reconstruir")
+    public ResponseEntity<?> reconstruirRankingProductos(HttpServletRequest request) {
+        try {
+            String token = request.getHeader("Authorization");
+            if (token == null || !token.startsWith("Bearer ")) {
+                return ResponseEntity.status(401).body(Map.of("error", "Token no válido"));
+            }
+            
+            String email = jwtUtils.extractUsername(token.substring(7));
+            Optional<Usuario> usuario = autenticacionService.obtenerPorEmail(email);
+            if (usuario.isEmpty() || usuario.get().getEmpresa() == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Empresa no encontrada"));
+            }
+            
+            int contadores = rankingVentasService.reconstruirRanking(usuario.get().getEmpresa().getId());
+            return ResponseEntity.ok(new ApiResponse<>(true, "Ranking de productos reconstruido correctamente", Map.of("contadores", contadores)));
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error reconstruyendo ranking de productos: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error interno del servidor: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Reconstruir el libro diario de stock (movimientos del día y por rango) desde el historial de documentos
+     */
+    @PostMapping("/movimientos-dia/libro-stock/reconstruir")
+    public ResponseEntity<?> reconstruirLibroStock(HttpServletRequest request) {
+        try {
+            String token = request.getHeader("Authorization");
+            if (token == null || !token.startsWith("Bearer ")) {
+                return ResponseEntity.status(401).body(Map.of("error", "Token no válido"));
+            }
+            
+            String email = jwtUtils.extractUsername(token.substring(7));
+            Optional<Usuario> usuario = autenticacionService.obtenerPorEmail(email);
+            if (usuario.isEmpty() || usuario.get().getEmpresa() == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Empresa no encontrada"));
+            }
+            
+            int filas = libroStockDiarioService.reconstruirLibro(usuario.get().getEmpresa().getId());
+            return ResponseEntity.ok(new ApiResponse<>(true, "Libro diario de stock reconstruido correctamente", Map.of("filas", filas)));
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error reconstruyendo libro diario de stock: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error interno del servidor: " + e.getMessage()));
+        }
+    }
+
     /**
      * Endpoint de debug para probar multipart
      */
@@ -5,6 +5,7 @@ import com.minegocio.backend.dto.LoginDTO;
 import com.minegocio.backend.dto.LoginDocumentoDTO;
 import com.minegocio.backend.servicios.AutenticacionService;
 import com.minegocio.backend.servicios.EmailService;
+import com.minegocio.backend.seguridad.CachePrincipalService;
 import com.minegocio.backend.seguridad.JwtUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -62,6 +63,9 @@ public class AutenticacionController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private CachePrincipalService cachePrincipalService;
+
     /**
      * Autentica un usuario y devuelve un token JWT
      */
@@ -282,6 +286,7 @@ public class AutenticacionController {
             usuario.setEmailVerificado(true);
             usuario.setTokenVerificacion(null); // Limpiar token usado
             usuarioRepository.save(usuario);
+            cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
             
             System.out.println("✅ Email verificado para: " + usuario.getEmail());
             
@@ -387,6 +392,7 @@ public class AutenticacionController {
             usuario.setEmailVerificado(true);
             usuario.setTokenVerificacion(null); // Limpiar token usado
             usuarioRepository.save(usuario);
+            cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
             
             System.out.println("✅ Email verificado para: " + usuario.getEmail());
             
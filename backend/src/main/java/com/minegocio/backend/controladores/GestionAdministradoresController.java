@@ -6,6 +6,7 @@ import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.UsuarioRepository;
+import com.minegocio.backend.seguridad.CachePrincipalService;
 import com.minegocio.backend.seguridad.JwtUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -43,6 +44,9 @@ public class GestionAdministradoresController {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CachePrincipalService cachePrincipalService;
     
     @Autowired
     private DataSource dataSource;
@@ -269,6 +273,7 @@ public class GestionAdministradoresController {
             // Desactivar administrador
             admin.setActivo(false);
             usuarioRepository.save(admin);
+            cachePrincipalService.invalidarUsuario(admin.getId(), admin.getEmail());
 
             System.out.println("✅ Administrador desactivado exitosamente");
 
@@ -341,6 +346,7 @@ public class GestionAdministradoresController {
 
             // Intentar eliminación física
             usuarioRepository.delete(admin);
+            cachePrincipalService.invalidarUsuario(admin.getId(), admin.getEmail());
 
             System.out.println("✅ Administrador eliminado exitosamente");
 
@@ -408,6 +414,7 @@ public class GestionAdministradoresController {
             // Reactivar administrador
             admin.setActivo(true);
             usuarioRepository.save(admin);
+            cachePrincipalService.invalidarUsuario(admin.getId(), admin.getEmail());
 
             System.out.println("✅ Administrador reactivado exitosamente");
 
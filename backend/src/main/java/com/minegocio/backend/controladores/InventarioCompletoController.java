@@ -5,6 +5,8 @@ import com.minegocio.backend.dto.InventarioCompletoDTO;
 import com.minegocio.backend.dto.ConteoSectorDTO;
 import com.minegocio.backend.servicios.InventarioCompletoService;
 import com.minegocio.backend.servicios.CalculadoraService;
+import com.minegocio.backend.servicios.EventosInventarioService;
+import com.minegocio.backend.servicios.FinalizacionInventarioService;
 import com.minegocio.backend.seguridad.UsuarioPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +14,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.apache.poi.ss.usermodel.*;
@@ -38,6 +41,12 @@ public class InventarioCompletoController {
     @Autowired
     private CalculadoraService calculadoraService;
 
+    @Autowired
+    private EventosInventarioService eventosInventarioService;
+
+    @Autowired
+    private FinalizacionInventarioService finalizacionInventarioService;
+
     @Autowired
     private com.minegocio.backend.repositorios.UsuarioRepository usuarioRepository;
 
@@ -206,6 +215,36 @@ public class InventarioCompletoController {
         }
     }
 
+    /**
+     * Eventos en vivo del inventario (SSE): productos contados, cambios de cantidad y cambios de
+     * estado de los sectores. Con conteoSectorId solo llegan los eventos de ese sector.
+     * El token va en el header Authorization, así que el cliente usa un EventSource basado en fetch;
+     * al reconectar manda Last-Event-ID y recibe los eventos perdidos (o "resincronizar").
+     */
+    @GetMapping(value = "/{inventarioId}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventos(
+            @PathVariable Long empresaId,
+            @PathVariable Long inventarioId,
+            @RequestParam(required = false) Long conteoSectorId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId,
+            Authentication authentication) {
+        UsuarioPrincipal usuarioPrincipal = (UsuarioPrincipal) authentication.getPrincipal();
+        if (!usuarioPrincipal.getEmpresaId().equals(empresaId)) {
+            return ResponseEntity.status(403).build();
+        }
+
+        Optional<InventarioCompleto> inventario = inventarioCompletoService.obtenerInventarioCompleto(inventarioId);
+        if (inventario.isEmpty() || !inventario.get().getEmpresa().getId().equals(empresaId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            // Evita que nginx acumule los eventos en su buffer
+            .header("X-Accel-Buffering", "no")
+            .body(eventosInventarioService.suscribir(inventarioId, conteoSectorId, ultimoEventoId));
+    }
+
 
     /**
      * Obtener conteo de sector por ID
@@ -1057,7 +1096,8 @@ public class InventarioCompletoController {
     }
 
     /**
-     * Actualizar stock del sistema con los resultados del inventario y generar registro
+     * Actualizar stock del sistema con los resultados del inventario y generar registro.
+     * Se procesa por lotes; si una finalización anterior se cortó, repetir el pedido la reanuda.
      */
     @PostMapping("/{inventarioId}/actualizar-stock-y-generar-registro")
     public ResponseEntity<?> actualizarStockYGenerarRegistro(
@@ -1078,7 +1118,7 @@ public class InventarioCompletoController {
             System.out.println("🔍 Productos editados recibidos: " + productosEditados.size());
             
             // Procesar la actualización del stock y generación del registro
-            Map<String, Object> resultado = inventarioCompletoService.actualizarStockYGenerarRegistro(
+            Map<String, Object> resultado = finalizacionInventarioService.finalizar(
                 inventarioId, productosEditados, observaciones, usuarioId);
             
             return ResponseEntity.ok(resultado);
@@ -1090,6 +1130,25 @@ public class InventarioCompletoController {
         }
     }
 
+    /**
+     * Avance de la actualización de stock del inventario (productos procesados, estado, error)
+     */
+    @GetMapping("/{inventarioId}/finalizacion")
+    public ResponseEntity<?> obtenerProgresoFinalizacion(
+            @PathVariable Long empresaId,
+            @PathVariable Long inventarioId) {
+        try {
+            Optional<Map<String, Object>> progreso = finalizacionInventarioService.obtenerProgreso(inventarioId);
+            if (progreso.isEmpty() || !empresaId.equals(progreso.get().get("empresaId"))) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(progreso.get());
+        } catch (Exception e) {
+            System.err.println("❌ Error obteniendo progreso de la finalización: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Obtener datos de referencia para reconteo
      */
@@ -7,9 +7,11 @@ import com.minegocio.backend.repositorios.DetalleRemitoIngresoRepository;
 import com.minegocio.backend.repositorios.RoturaPerdidaRepository;
 import com.minegocio.backend.repositorios.PlanillaDevolucionRepository;
 import com.minegocio.backend.repositorios.PlanillaPedidoRepository;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -89,23 +91,16 @@ public class MovimientoDiaController {
      * Exportar movimientos del día a Excel
      */
     @GetMapping("/{fecha}/exportar-excel")
-    public ResponseEntity<byte[]> exportarMovimientosDiaExcel(@PathVariable String fecha) {
+    public ResponseEntity<StreamingResponseBody> exportarMovimientosDiaExcel(@PathVariable String fecha) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando movimientos a Excel para fecha: " + fecha);
-            byte[] excelBytes = movimientoDiaService.exportarMovimientosDiaExcel(fecha);
+            LibroExcelStreaming libro = movimientoDiaService.exportarMovimientosDiaExcel(fecha);
             
             String nombreArchivo = "movimientos_dia_" + fecha + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
+            System.out.println("✅ [CONTROLLER] Excel generado, enviando al cliente");
             
-            System.out.println("✅ [CONTROLLER] Excel exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar movimientos a Excel: " + e.getMessage());
@@ -118,25 +113,18 @@ public class MovimientoDiaController {
      * Exportar movimientos por rango de fechas a Excel
      */
     @GetMapping("/rango/exportar-excel")
-    public ResponseEntity<byte[]> exportarMovimientosRangoExcel(
+    public ResponseEntity<StreamingResponseBody> exportarMovimientosRangoExcel(
             @RequestParam String fechaInicio,
             @RequestParam String fechaFin) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando movimientos a Excel para rango: " + fechaInicio + " a " + fechaFin);
-            byte[] excelBytes = movimientoDiaService.exportarMovimientosRangoExcel(fechaInicio, fechaFin);
+            LibroExcelStreaming libro = movimientoDiaService.exportarMovimientosRangoExcel(fechaInicio, fechaFin);
             
             String nombreArchivo = "movimientos_rango_" + fechaInicio + "_a_" + fechaFin + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
-            
-            System.out.println("✅ [CONTROLLER] Excel de rango exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [CONTROLLER] Excel de rango generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar movimientos de rango a Excel: " + e.getMessage());
@@ -150,23 +138,16 @@ public class MovimientoDiaController {
      * Incluye: código personalizado, productos iniciales, cantidades, remitos por día
      */
     @GetMapping("/{fecha}/exportar-ingresos-excel")
-    public ResponseEntity<byte[]> exportarIngresosDiaExcel(@PathVariable String fecha) {
+    public ResponseEntity<StreamingResponseBody> exportarIngresosDiaExcel(@PathVariable String fecha) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando ingresos a Excel para fecha: " + fecha);
-            byte[] excelBytes = movimientoDiaService.exportarIngresosDiaExcel(fecha);
+            LibroExcelStreaming libro = movimientoDiaService.exportarIngresosDiaExcel(fecha);
             
             String nombreArchivo = "ingresos_dia_" + fecha + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
-            
-            System.out.println("✅ [CONTROLLER] Excel de ingresos exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [CONTROLLER] Excel de ingresos generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar ingresos a Excel: " + e.getMessage());
@@ -180,23 +161,16 @@ public class MovimientoDiaController {
      * Incluye: código personalizado, productos, cantidades, planillas por día
      */
     @GetMapping("/{fecha}/exportar-planillas-excel")
-    public ResponseEntity<byte[]> exportarPlanillasDiaExcel(@PathVariable String fecha) {
+    public ResponseEntity<StreamingResponseBody> exportarPlanillasDiaExcel(@PathVariable String fecha) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando planillas a Excel para fecha: " + fecha);
-            byte[] excelBytes = movimientoDiaService.exportarPlanillasDiaExcel(fecha);
+            LibroExcelStreaming libro = movimientoDiaService.exportarPlanillasDiaExcel(fecha);
             
             String nombreArchivo = "planillas_dia_" + fecha + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
+            System.out.println("✅ [CONTROLLER] Excel de planillas generado, enviando al cliente");
             
-            System.out.println("✅ [CONTROLLER] Excel de planillas exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar planillas a Excel: " + e.getMessage());
@@ -210,23 +184,16 @@ public class MovimientoDiaController {
      * Incluye: código personalizado, productos, cantidades, planillas de devolución por día
      */
     @GetMapping("/{fecha}/exportar-devoluciones-excel")
-    public ResponseEntity<byte[]> exportarDevolucionesDiaExcel(@PathVariable String fecha) {
+    public ResponseEntity<StreamingResponseBody> exportarDevolucionesDiaExcel(@PathVariable String fecha) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando devoluciones a Excel para fecha: " + fecha);
-            byte[] excelBytes = movimientoDiaService.exportarDevolucionesDiaExcel(fecha);
+            LibroExcelStreaming libro = movimientoDiaService.exportarDevolucionesDiaExcel(fecha);
             
             String nombreArchivo = "devoluciones_dia_" + fecha + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
-            
-            System.out.println("✅ [CONTROLLER] Excel de devoluciones exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [CONTROLLER] Excel de devoluciones generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar devoluciones a Excel: " + e.getMessage());
@@ -240,7 +207,7 @@ public class MovimientoDiaController {
      * Incluye: código personalizado, descripción, cantidad inicial, total
      */
     @GetMapping("/{fecha}/exportar-stock-inicial-excel")
-    public ResponseEntity<byte[]> exportarStockInicialExcel(@PathVariable String fecha) {
+    public ResponseEntity<?> exportarStockInicialExcel(@PathVariable String fecha) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando stock inicial a Excel para fecha: " + fecha);
             
@@ -250,25 +217,29 @@ public class MovimientoDiaController {
                 return ResponseEntity.badRequest().build();
             }
             
-            byte[] excelBytes = movimientoDiaService.exportarStockInicialExcel(fecha);
-            
-            if (excelBytes == null || excelBytes.length == 0) {
-                System.err.println("❌ [CONTROLLER] Excel generado está vacío");
-                return ResponseEntity.badRequest().build();
-            }
-            
             String nombreArchivo = "stock_inicial_" + fecha + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
+            LibroExcelStreaming libro;
+            try {
+                libro = movimientoDiaService.exportarStockInicialExcel(fecha);
+            } catch (Exception e) {
+                // Respaldo: si POI no pudo generar el libro se envía la versión CSV
+                System.err.println("❌ [CONTROLLER] Error en stock inicial Excel, usando versión CSV: " + e.getMessage());
+                byte[] csvBytes = movimientoDiaService.exportarStockInicialCSV(fecha);
+                
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                headers.setContentDispositionFormData("attachment", nombreArchivo);
+                headers.setContentLength(csvBytes.length);
+                
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .body(csvBytes);
+            }
             
-            System.out.println("✅ [CONTROLLER] Excel de stock inicial exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [CONTROLLER] Excel de stock inicial generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar stock inicial a Excel: " + e.getMessage());
@@ -513,7 +484,7 @@ public class MovimientoDiaController {
      * Pestañas: Ingresos, Planillas, Retornos, Pérdidas, Stock
      */
     @GetMapping("/{fecha}/exportar-reporte-completo-excel")
-    public ResponseEntity<byte[]> exportarReporteCompletoExcel(@PathVariable String fecha) {
+    public ResponseEntity<?> exportarReporteCompletoExcel(@PathVariable String fecha) {
         try {
             System.out.println("🔍 [CONTROLLER] Exportando reporte completo a Excel para fecha: " + fecha);
             
@@ -523,25 +494,29 @@ public class MovimientoDiaController {
                 return ResponseEntity.badRequest().build();
             }
             
-            byte[] excelBytes = movimientoDiaService.exportarReporteCompletoExcel(fecha);
-            
-            if (excelBytes == null || excelBytes.length == 0) {
-                System.err.println("❌ [CONTROLLER] Excel generado está vacío");
-                return ResponseEntity.badRequest().build();
-            }
-            
             String nombreArchivo = "reporte_completo_" + fecha + ".xlsx";
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", nombreArchivo);
-            headers.setContentLength(excelBytes.length);
+            LibroExcelStreaming libro;
+            try {
+                libro = movimientoDiaService.exportarReporteCompletoExcel(fecha);
+            } catch (Exception e) {
+                // Respaldo: si POI no pudo generar el libro se envía la versión CSV
+                System.err.println("❌ [CONTROLLER] Error en reporte completo Excel, usando versión CSV: " + e.getMessage());
+                byte[] csvBytes = movimientoDiaService.exportarReporteCompletoCSV(fecha);
+                
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                headers.setContentDispositionFormData("attachment", nombreArchivo);
+                headers.setContentLength(csvBytes.length);
+                
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .body(csvBytes);
+            }
             
-            System.out.println("✅ [CONTROLLER] Reporte completo exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [CONTROLLER] Reporte completo generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            return libro.comoDescarga(nombreArchivo);
                     
         } catch (Exception e) {
             System.err.println("❌ [CONTROLLER] Error al exportar reporte completo a Excel: " + e.getMessage());
@@ -9,6 +9,7 @@ import com.minegocio.backend.entidades.DetallePlanillaPedido;
 import com.minegocio.backend.entidades.PlanillaPedido;
 import com.minegocio.backend.seguridad.UsuarioPrincipal;
 import com.minegocio.backend.servicios.PlanillaPedidoService;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import com.minegocio.backend.utils.ApiResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -301,7 +303,7 @@ public class PlanillaPedidoController {
      * Exportar planilla de pedido a Excel
      */
     @GetMapping("/{id}/exportar")
-    public ResponseEntity<byte[]> exportarPlanilla(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<StreamingResponseBody> exportarPlanilla(@PathVariable Long id, Authentication authentication) {
         try {
             System.out.println("🔍 [EXPORTAR] Iniciando exportación de planilla ID: " + id);
             System.out.println("🔍 [EXPORTAR] Authentication: " + (authentication != null ? "Presente" : "Nulo"));
@@ -318,14 +320,11 @@ public class PlanillaPedidoController {
             
             Long empresaId = usuarioPrincipal.getEmpresaId();
             
-            byte[] excelBytes = planillaPedidoService.exportarPlanillaAExcel(id, empresaId);
+            LibroExcelStreaming libro = planillaPedidoService.exportarPlanillaAExcel(id, empresaId);
             
-            System.out.println("✅ [EXPORTAR] Planilla exportada exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [EXPORTAR] Planilla generada, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                    .header("Content-Disposition", "attachment; filename=\"Planilla_" + id + ".xlsx\"")
-                    .body(excelBytes);
+            return libro.comoDescarga("Planilla_" + id + ".xlsx");
         } catch (Exception e) {
             System.out.println("❌ [EXPORTAR] Error al exportar planilla: " + e.getMessage());
             e.printStackTrace();
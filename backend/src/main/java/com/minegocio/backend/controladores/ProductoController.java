@@ -22,6 +22,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
+import org.springframework.http.MediaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.List;
 import java.util.Map;
@@ -77,6 +81,9 @@ public class ProductoController {
     @Autowired
     private StockPorSectorRepository stockPorSectorRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Obtiene todos los productos de una empresa
      */
@@ -1315,6 +1322,78 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Valida un archivo Excel informando el avance a medida que se leen las filas.
+     * Respuesta NDJSON (una línea JSON por evento):
+     * {"tipo":"progreso",...}, {"tipo":"error",...} y al final {"tipo":"resultado","resultado":{...}}
+     */
+    @PostMapping(value = "/validar-importacion/progreso", produces = "application/x-ndjson")
+    public ResponseEntity<?> validarArchivoImportacionConProgreso(
+            @PathVariable Long empresaId,
+            @RequestParam("archivo") MultipartFile archivo) {
+        if (archivo.getOriginalFilename() == null || !archivo.getOriginalFilename().toLowerCase().endsWith(".xlsx")) {
+            return errorNdjson(HttpStatus.BAD_REQUEST, "Solo se permiten archivos Excel (.xlsx)");
+        }
+        if (archivo.getSize() > 10 * 1024 * 1024) {
+            return errorNdjson(HttpStatus.BAD_REQUEST, "El archivo no puede ser mayor a 10MB");
+        }
+
+        java.nio.file.Path temporal;
+        try {
+            // El upload se copia antes de responder: el cuerpo se escribe después de que termina este método
+            temporal = importacionProductoService.guardarArchivoTemporal(archivo);
+        } catch (IOException e) {
+            return errorNdjson(HttpStatus.INTERNAL_SERVER_ERROR, "Error al leer el archivo: " + e.getMessage());
+        }
+
+        StreamingResponseBody cuerpo = salida -> {
+            java.io.Writer escritor = new java.io.OutputStreamWriter(salida, java.nio.charset.StandardCharsets.UTF_8);
+            try {
+                ResultadoImportacionDTO resultado = importacionProductoService.validarArchivoExcel(temporal, empresaId,
+                    new ImportacionProductoService.ObservadorValidacion() {
+                        public void progreso(int filasProcesadas, int filasConErrores) {
+                            escribirEvento(escritor, Map.of("tipo", "progreso",
+                                "filasProcesadas", filasProcesadas, "filasConErrores", filasConErrores));
+                        }
+
+                        public void error(Map<String, Object> error) {
+                            escribirEvento(escritor, Map.of("tipo", "error", "fila", error.get("fila"), "error", error.get("error")));
+                        }
+                    });
+                escribirEvento(escritor, Map.of("tipo", "resultado", "resultado", resultado));
+            } finally {
+                importacionProductoService.eliminarArchivoTemporal(temporal);
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(cuerpo);
+    }
+
+    /**
+     * Respuesta de error del endpoint con progreso: una sola línea NDJSON {"tipo":"error","error":...}
+     * con el mismo content type que el flujo normal, así el cliente la lee igual que los eventos
+     */
+    private ResponseEntity<StreamingResponseBody> errorNdjson(HttpStatus estado, String mensaje) {
+        StreamingResponseBody cuerpo = salida -> escribirEvento(
+            new java.io.OutputStreamWriter(salida, java.nio.charset.StandardCharsets.UTF_8),
+            Map.of("tipo", "error", "error", mensaje));
+        return ResponseEntity.status(estado)
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(cuerpo);
+    }
+
+    private void escribirEvento(java.io.Writer escritor, Map<String, Object> evento) {
+        try {
+            escritor.write(objectMapper.writeValueAsString(evento));
+            escritor.write("\n");
+            escritor.flush();
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
     /**
      * Importa productos desde un archivo Excel validado
      */
@@ -1403,15 +1482,12 @@ public class ProductoController {
     @GetMapping("/reporte-stock")
     public ResponseEntity<?> descargarReporteStock(@PathVariable Long empresaId) {
         try {
-            byte[] reporte = reporteStockService.generarReporteStock(empresaId);
+            LibroExcelStreaming reporte = reporteStockService.generarReporteStock(empresaId);
 
             String nombreArchivo = "reporte_stock_" + empresaId + "_" +
                 LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd")) + ".xlsx";
 
-            return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + nombreArchivo + "\"")
-                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                .body(reporte);
+            return reporte.comoDescarga(nombreArchivo);
 
         } catch (Exception e) {
             System.err.println("Error al generar reporte de stock: " + e.getMessage());
@@ -1516,6 +1592,9 @@ public class ProductoController {
         try {
             System.out.println("📊 Descargando reporte de stock directo para empresa: " + empresaId);
             
+            // Generar reporte antes de tocar la respuesta, para poder devolver el error como JSON
+            LibroExcelStreaming reporte = reporteStockService.generarReporteStock(empresaId);
+            
             // Configurar respuesta
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", "attachment; filename=\"reporte_stock_" + empresaId + "_" + 
@@ -1524,12 +1603,8 @@ public class ProductoController {
             response.setHeader("Access-Control-Allow-Methods", "GET");
             response.setHeader("Access-Control-Allow-Headers", "*");
             
-            // Generar reporte directamente
-            byte[] reporte = reporteStockService.generarReporteStock(empresaId);
-            
             // Escribir directamente a la respuesta
-            response.getOutputStream().write(reporte);
-            response.getOutputStream().flush();
+            reporte.escribir(response.getOutputStream());
             
             System.out.println("✅ Reporte de stock directo generado exitosamente");
         } catch (Exception e) {
@@ -3,12 +3,14 @@ package com.minegocio.backend.controladores;
 import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.dto.EmpresaDTO;
 import com.minegocio.backend.dto.ProductoDTO;
+import com.minegocio.backend.dto.CatalogoPublicoPaginaDTO;
 import com.minegocio.backend.servicios.EmpresaService;
 import com.minegocio.backend.servicios.ProductoService;
 import com.minegocio.backend.servicios.ClienteService;
 import com.minegocio.backend.servicios.PedidoService;
 import com.minegocio.backend.servicios.EmailService;
 import com.minegocio.backend.servicios.SectorService;
+import com.minegocio.backend.servicios.CacheTiendaPublicaService;
 import com.minegocio.backend.dto.ClienteDTO;
 import com.minegocio.backend.entidades.StockPorSector;
 import com.minegocio.backend.repositorios.StockPorSectorRepository;
@@ -76,6 +78,12 @@ public class PublicoController {
     @Autowired
     private EmpresaRepository empresaRepository;
 
+    @Autowired
+    private CacheTiendaPublicaService cacheTiendaPublicaService;
+
+    @Autowired
+    private com.minegocio.backend.seguridad.CachePrincipalService cachePrincipalService;
+
     /**
      * Health check endpoint para Railway
      */
@@ -274,8 +282,15 @@ public class PublicoController {
      * Obtener información pública de una empresa por subdominio
      */
     @GetMapping("/{subdominio}/empresa")
-    public ResponseEntity<?> obtenerEmpresaPublica(@PathVariable String subdominio) {
+    public ResponseEntity<?> obtenerEmpresaPublica(
+            @PathVariable String subdominio,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            CacheTiendaPublicaService.EntradaCache cacheada = cacheTiendaPublicaService.obtener(subdominio, "empresa");
+            if (cacheada != null) {
+                return cacheTiendaPublicaService.responder(cacheada, ifNoneMatch);
+            }
+            
             System.out.println("Buscando empresa con subdominio: " + subdominio);
             Optional<Empresa> empresaOpt = empresaService.obtenerPorSubdominio(subdominio);
             
@@ -337,7 +352,8 @@ public class PublicoController {
             Map<String, Object> response = new java.util.HashMap<>();
             response.put("mensaje", "Empresa encontrada");
             response.put("data", empresaData);
-            return ResponseEntity.ok(response);
+            return cacheTiendaPublicaService.responder(cacheTiendaPublicaService.guardar(
+                subdominio, "empresa", empresa.getId(), CacheTiendaPublicaService.TipoRecurso.EMPRESA, null, response), ifNoneMatch);
         } catch (Exception e) {
             System.err.println("Error al buscar empresa: " + e.getMessage());
             e.printStackTrace();
@@ -689,8 +705,15 @@ public class PublicoController {
             @PathVariable String subdominio,
             @RequestParam(required = false) String categoria,
             @RequestParam(required = false) String marca,
-            @RequestParam(required = false) String buscar) {
+            @RequestParam(required = false) String buscar,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            String recurso = "productos?categoria=" + categoria + "&marca=" + marca + "&buscar=" + buscar;
+            CacheTiendaPublicaService.EntradaCache cacheada = cacheTiendaPublicaService.obtener(subdominio, recurso);
+            if (cacheada != null) {
+                return cacheTiendaPublicaService.responder(cacheada, ifNoneMatch);
+            }
+            
             Optional<Empresa> empresa = empresaService.obtenerPorSubdominio(subdominio);
             
             if (empresa.isEmpty()) {
@@ -699,41 +722,66 @@ public class PublicoController {
             
             Long empresaId = empresa.get().getId();
             
-            // Obtener todos los productos activos de la empresa
-            List<ProductoDTO> productos = productoService.obtenerTodosLosProductos(empresaId);
-            
-            // Filtrar solo productos activos
-            List<ProductoDTO> productosActivos = productos.stream()
-                .filter(p -> p.getActivo() != null && p.getActivo())
-                .collect(Collectors.toList());
+            // Filtros (activo, categoría, marca y búsqueda) resueltos en la base de datos
+            List<ProductoDTO> productosActivos = productoService.obtenerCatalogoPublicoCompleto(empresaId, categoria, marca, buscar);
             
-            // Aplicar filtros adicionales si se proporcionan
-            if (categoria != null && !categoria.isEmpty()) {
-                productosActivos = productosActivos.stream()
-                    .filter(p -> categoria.equals(p.getCategoria()))
-                    .collect(Collectors.toList());
+            return cacheTiendaPublicaService.responder(cacheTiendaPublicaService.guardar(
+                subdominio, recurso, empresaId, CacheTiendaPublicaService.TipoRecurso.LISTADO, null, Map.of(
+                    "mensaje", "Productos obtenidos exitosamente",
+                    "data", productosActivos
+                )), ifNoneMatch);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Error al obtener productos públicos",
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Obtener el catálogo público paginado por cursor.
+     * Respuesta: data = { items, siguienteCursor, hayMas, limite, orden }
+     */
+    @GetMapping("/{subdominio}/catalogo")
+    public ResponseEntity<?> obtenerCatalogoPublico(
+            @PathVariable String subdominio,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String buscar,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        try {
+            String recurso = "catalogo?categoria=" + categoria + "&marca=" + marca + "&buscar=" + buscar +
+                             "&orden=" + orden + "&cursor=" + cursor + "&limite=" + limite;
+            CacheTiendaPublicaService.EntradaCache cacheada = cacheTiendaPublicaService.obtener(subdominio, recurso);
+            if (cacheada != null) {
+                return cacheTiendaPublicaService.responder(cacheada, ifNoneMatch);
             }
             
-            if (marca != null && !marca.isEmpty()) {
-                productosActivos = productosActivos.stream()
-                    .filter(p -> marca.equals(p.getMarca()))
-                    .collect(Collectors.toList());
-            }
+            Optional<Empresa> empresa = empresaService.obtenerPorSubdominio(subdominio);
             
-            if (buscar != null && !buscar.isEmpty()) {
-                productosActivos = productosActivos.stream()
-                    .filter(p -> p.getNombre().toLowerCase().contains(buscar.toLowerCase()) ||
-                               (p.getDescripcion() != null && p.getDescripcion().toLowerCase().contains(buscar.toLowerCase())))
-                    .collect(Collectors.toList());
+            if (empresa.isEmpty()) {
+                return ResponseEntity.notFound().build();
             }
             
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Productos obtenidos exitosamente",
-                "data", productosActivos
+            CatalogoPublicoPaginaDTO pagina = productoService.buscarCatalogoPublico(
+                empresa.get().getId(), categoria, marca, buscar, orden, cursor, limite);
+            
+            return cacheTiendaPublicaService.responder(cacheTiendaPublicaService.guardar(
+                subdominio, recurso, empresa.get().getId(), CacheTiendaPublicaService.TipoRecurso.LISTADO, null, Map.of(
+                    "mensaje", "Catálogo obtenido exitosamente",
+                    "data", pagina
+                )), ifNoneMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Parámetros de catálogo inválidos",
+                "mensaje", e.getMessage()
             ));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of(
-                "error", "Error al obtener productos públicos",
+                "error", "Error al obtener catálogo público",
                 "mensaje", e.getMessage()
             ));
         }
@@ -745,8 +793,15 @@ public class PublicoController {
     @GetMapping("/{subdominio}/productos/{id}")
     public ResponseEntity<?> obtenerProductoPublico(
             @PathVariable String subdominio,
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            String recurso = "producto/" + id;
+            CacheTiendaPublicaService.EntradaCache cacheada = cacheTiendaPublicaService.obtener(subdominio, recurso);
+            if (cacheada != null) {
+                return cacheTiendaPublicaService.responder(cacheada, ifNoneMatch);
+            }
+            
             Optional<Empresa> empresa = empresaService.obtenerPorSubdominio(subdominio);
             
             if (empresa.isEmpty()) {
@@ -769,10 +824,11 @@ public class PublicoController {
                 return ResponseEntity.notFound().build();
             }
             
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Producto obtenido exitosamente",
-                "data", prod
-            ));
+            return cacheTiendaPublicaService.responder(cacheTiendaPublicaService.guardar(
+                subdominio, recurso, empresaId, CacheTiendaPublicaService.TipoRecurso.PRODUCTO, id, Map.of(
+                    "mensaje", "Producto obtenido exitosamente",
+                    "data", prod
+                )), ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of(
                 "error", "Error al obtener producto público",
@@ -785,8 +841,15 @@ public class PublicoController {
      * Obtener categorías disponibles para una empresa
      */
     @GetMapping("/{subdominio}/categorias")
-    public ResponseEntity<?> obtenerCategoriasPublicas(@PathVariable String subdominio) {
+    public ResponseEntity<?> obtenerCategoriasPublicas(
+            @PathVariable String subdominio,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            CacheTiendaPublicaService.EntradaCache cacheada = cacheTiendaPublicaService.obtener(subdominio, "categorias");
+            if (cacheada != null) {
+                return cacheTiendaPublicaService.responder(cacheada, ifNoneMatch);
+            }
+            
             Optional<Empresa> empresa = empresaService.obtenerPorSubdominio(subdominio);
             
             if (empresa.isEmpty()) {
@@ -805,10 +868,11 @@ public class PublicoController {
                 .sorted()
                 .collect(Collectors.toList());
             
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Categorías obtenidas exitosamente",
-                "data", categorias
-            ));
+            return cacheTiendaPublicaService.responder(cacheTiendaPublicaService.guardar(
+                subdominio, "categorias", empresaId, CacheTiendaPublicaService.TipoRecurso.FILTROS, null, Map.of(
+                    "mensaje", "Categorías obtenidas exitosamente",
+                    "data", categorias
+                )), ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of(
                 "error", "Error al obtener categorías",
@@ -821,8 +885,15 @@ public class PublicoController {
      * Obtener marcas disponibles para una empresa
      */
     @GetMapping("/{subdominio}/marcas")
-    public ResponseEntity<?> obtenerMarcasPublicas(@PathVariable String subdominio) {
+    public ResponseEntity<?> obtenerMarcasPublicas(
+            @PathVariable String subdominio,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            CacheTiendaPublicaService.EntradaCache cacheada = cacheTiendaPublicaService.obtener(subdominio, "marcas");
+            if (cacheada != null) {
+                return cacheTiendaPublicaService.responder(cacheada, ifNoneMatch);
+            }
+            
             Optional<Empresa> empresa = empresaService.obtenerPorSubdominio(subdominio);
             
             if (empresa.isEmpty()) {
@@ -841,10 +912,11 @@ public class PublicoController {
                 .sorted()
                 .collect(Collectors.toList());
             
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Marcas obtenidas exitosamente",
-                "data", marcas
-            ));
+            return cacheTiendaPublicaService.responder(cacheTiendaPublicaService.guardar(
+                subdominio, "marcas", empresaId, CacheTiendaPublicaService.TipoRecurso.FILTROS, null, Map.of(
+                    "mensaje", "Marcas obtenidas exitosamente",
+                    "data", marcas
+                )), ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of(
                 "error", "Error al obtener marcas",
@@ -1558,7 +1630,10 @@ public class PublicoController {
             com.minegocio.backend.seguridad.UsuarioPrincipal principal = 
                 (com.minegocio.backend.seguridad.UsuarioPrincipal) authentication.getPrincipal();
             
-            com.minegocio.backend.entidades.Usuario usuario = principal.getUsuario();
+            // Se recarga el usuario: el del principal es una copia de la caché de autenticación
+            com.minegocio.backend.entidades.Usuario usuario = usuarioRepository.findById(principal.getId())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            String rolAnterior = usuario.getRol().name();
             
             System.out.println("=== CAMBIANDO ROL DE USUARIO ===");
             System.out.println("Usuario ID: " + usuario.getId());
@@ -1570,6 +1645,7 @@ public class PublicoController {
             
             // Guardar en la base de datos
             usuarioRepository.save(usuario);
+            cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
             
             System.out.println("Rol nuevo: " + usuario.getRol());
             System.out.println("================================");
@@ -1578,7 +1654,7 @@ public class PublicoController {
                 "mensaje", "Rol cambiado exitosamente a ADMINISTRADOR",
                 "usuario_id", usuario.getId(),
                 "email", usuario.getEmail(),
-                "rol_anterior", principal.getUsuario().getRol().name(),
+                "rol_anterior", rolAnterior,
                 "rol_nuevo", "ADMINISTRADOR"
             ));
             
@@ -3,14 +3,14 @@ package com.minegocio.backend.controladores;
 import com.minegocio.backend.dto.RemitoIngresoDTO;
 import com.minegocio.backend.servicios.RemitoIngresoService;
 import com.minegocio.backend.seguridad.UsuarioPrincipal;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -179,19 +179,12 @@ public class RemitoIngresoController {
     
     // Exportar remito a Excel
     @GetMapping("/{id}/exportar")
-    public ResponseEntity<byte[]> exportarRemito(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<StreamingResponseBody> exportarRemito(@PathVariable Long id, Authentication authentication) {
         try {
             UsuarioPrincipal usuarioPrincipal = (UsuarioPrincipal) authentication.getPrincipal();
             Long empresaId = usuarioPrincipal.getEmpresaId();
-            byte[] excelContent = remitoIngresoService.exportarRemitoAExcel(id, empresaId);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentDispositionFormData("attachment", "remito_ingreso.xlsx");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelContent);
+            LibroExcelStreaming libro = remitoIngresoService.exportarRemitoAExcel(id, empresaId);
+            return libro.comoDescarga("remito_ingreso.xlsx");
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -2,6 +2,7 @@ package com.minegocio.backend.controladores;
 
 import com.minegocio.backend.servicios.PlantillaCargaMasivaService;
 import com.minegocio.backend.servicios.ReporteStockService;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletResponse;
@@ -31,6 +32,9 @@ public class ReporteController {
         try {
             System.out.println("📊 Descargando reporte de stock público para empresa: " + empresaId);
             
+            // Generar reporte antes de tocar la respuesta, para poder devolver el error como JSON
+            LibroExcelStreaming reporte = reporteStockService.generarReporteStock(empresaId);
+            
             // Configurar respuesta
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", "attachment; filename=\"reporte_stock_" + empresaId + "_" + 
@@ -39,12 +43,8 @@ public class ReporteController {
             response.setHeader("Access-Control-Allow-Methods", "GET");
             response.setHeader("Access-Control-Allow-Headers", "*");
             
-            // Generar reporte directamente
-            byte[] reporte = reporteStockService.generarReporteStock(empresaId);
-            
             // Escribir directamente a la respuesta
-            response.getOutputStream().write(reporte);
-            response.getOutputStream().flush();
+            reporte.escribir(response.getOutputStream());
             
             System.out.println("✅ Reporte de stock público generado exitosamente");
         } catch (Exception e) {
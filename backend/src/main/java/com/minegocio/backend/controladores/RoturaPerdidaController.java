@@ -5,6 +5,7 @@ import com.minegocio.backend.dto.RoturaPerdidaResponseDTO;
 import com.minegocio.backend.entidades.RoturaPerdida;
 import com.minegocio.backend.seguridad.UsuarioPrincipal;
 import com.minegocio.backend.servicios.RoturaPerdidaService;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import com.minegocio.backend.utils.ApiResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -207,7 +209,7 @@ public class RoturaPerdidaController {
      * Exportar roturas y pérdidas a Excel
      */
     @GetMapping("/exportar")
-    public ResponseEntity<byte[]> exportarRoturasPerdidas(
+    public ResponseEntity<StreamingResponseBody> exportarRoturasPerdidas(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             Authentication authentication) {
@@ -218,14 +220,11 @@ public class RoturaPerdidaController {
             System.out.println("📊 [EXPORTAR] Exportando roturas y pérdidas para empresa ID: " + empresaId);
             System.out.println("📊 [EXPORTAR] Rango de fechas: " + fechaInicio + " a " + fechaFin);
             
-            byte[] excelBytes = roturaPerdidaService.exportarRoturasPerdidasAExcel(empresaId, fechaInicio, fechaFin);
+            LibroExcelStreaming libro = roturaPerdidaService.exportarRoturasPerdidasAExcel(empresaId, fechaInicio, fechaFin);
             
-            System.out.println("✅ [EXPORTAR] Reporte exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [EXPORTAR] Reporte generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                    .header("Content-Disposition", "attachment; filename=\"Roturas_Perdidas_" + fechaInicio + "_" + fechaFin + ".xlsx\"")
-                    .body(excelBytes);
+            return libro.comoDescarga("Roturas_Perdidas_" + fechaInicio + "_" + fechaFin + ".xlsx");
         } catch (Exception e) {
             System.out.println("❌ [EXPORTAR] Error al exportar roturas y pérdidas: " + e.getMessage());
             e.printStackTrace();
@@ -237,7 +236,7 @@ public class RoturaPerdidaController {
      * Exportar roturas y pérdidas del día actual a Excel
      */
     @GetMapping("/exportar/dia")
-    public ResponseEntity<byte[]> exportarRoturasPerdidasDelDia(Authentication authentication) {
+    public ResponseEntity<StreamingResponseBody> exportarRoturasPerdidasDelDia(Authentication authentication) {
         try {
             UsuarioPrincipal usuarioPrincipal = (UsuarioPrincipal) authentication.getPrincipal();
             Long empresaId = usuarioPrincipal.getEmpresaId();
@@ -246,14 +245,11 @@ public class RoturaPerdidaController {
             System.out.println("📊 [EXPORTAR DIA] Exportando roturas y pérdidas del día para empresa ID: " + empresaId);
             System.out.println("📊 [EXPORTAR DIA] Fecha: " + fechaActual);
             
-            byte[] excelBytes = roturaPerdidaService.exportarRoturasPerdidasDelDiaAExcel(empresaId, fechaActual);
+            LibroExcelStreaming libro = roturaPerdidaService.exportarRoturasPerdidasDelDiaAExcel(empresaId, fechaActual);
             
-            System.out.println("✅ [EXPORTAR DIA] Reporte del día exportado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            System.out.println("✅ [EXPORTAR DIA] Reporte del día generado, enviando al cliente");
             
-            return ResponseEntity.ok()
-                    .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                    .header("Content-Disposition", "attachment; filename=\"Roturas_Perdidas_Dia_" + fechaActual + ".xlsx\"")
-                    .body(excelBytes);
+            return libro.comoDescarga("Roturas_Perdidas_Dia_" + fechaActual + ".xlsx");
         } catch (Exception e) {
             System.out.println("❌ [EXPORTAR DIA] Error al exportar roturas y pérdidas del día: " + e.getMessage());
             e.printStackTrace();
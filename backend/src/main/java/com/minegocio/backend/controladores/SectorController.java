@@ -559,6 +559,38 @@ public class SectorController {
         }
     }
     
+    /**
+     * Obtener stock general paginado
+     * Filtros opcionales: busqueda (nombre o código), sectorId y conSector (true: solo en sectores, false: solo sin sectorizar)
+     */
+    @GetMapping("/stock-general/paginado")
+    public ResponseEntity<?> obtenerStockGeneralPaginado(
+            @PathVariable Long empresaId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String busqueda,
+            @RequestParam(required = false) Long sectorId,
+            @RequestParam(required = false) Boolean conSector) {
+        try {
+            if (!empresaRepository.existsById(empresaId)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Empresa no encontrada con ID: " + empresaId
+                ));
+            }
+            Map<String, Object> pagina = sectorService.obtenerStockGeneralPaginado(
+                empresaId, Math.max(0, page), Math.min(Math.max(1, size), 500), busqueda, sectorId, conSector);
+            return ResponseEntity.ok(Map.of(
+                "mensaje", "Stock general obtenido exitosamente",
+                "data", pagina
+            ));
+        } catch (Exception e) {
+            System.err.println("🔍 STOCK GENERAL - Error: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Error al obtener stock general: " + e.getMessage()
+            ));
+        }
+    }
+    
     /**
      * Obtener stock detallado de la empresa
      * Incluye productos con sus ubicaciones y cantidades
@@ -1,9 +1,8 @@
 package com.minegocio.backend.controladores;
 
-import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.dto.DashboardSuperAdminDTO;
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.UsuarioRepository;
-import com.minegocio.backend.servicios.EmpresaService;
 import com.minegocio.backend.servicios.SuperAdminService;
 import com.minegocio.backend.servicios.AutenticacionService;
 import com.minegocio.backend.seguridad.JwtUtils;
@@ -17,7 +16,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Map;
 import java.util.Optional;
-import java.util.List;
 import java.util.HashMap;
 
 
@@ -26,9 +24,6 @@ import java.util.HashMap;
 @CrossOrigin(origins = {"http://localhost:5173", "https://negocio360-frontend.onrender.com", "https://www.negocio360.org", "https://negocio360-backend.onrender.com", "https://minegocio-backend-production.up.railway.app"}, allowedHeaders = "*")
 public class SuperAdminController {
 
-    @Autowired
-    private EmpresaService empresaService;
-    
     @Autowired
     private SuperAdminService superAdminService;
     
@@ -211,35 +206,8 @@ public class SuperAdminController {
                 return ResponseEntity.status(403).body(Map.of("error", "Acceso denegado. Se requiere rol SUPER_ADMIN"));
             }
             
-            // Obtener estadísticas generales
-            List<Empresa> todasLasEmpresas = empresaService.obtenerTodasLasEmpresas();
-            long empresasActivas = todasLasEmpresas.stream().filter(Empresa::getActiva).count();
-            long empresasInactivas = todasLasEmpresas.stream().filter(e -> !e.getActiva()).count();
-            
-            Map<String, Object> dashboard = new HashMap<>();
-            dashboard.put("totalEmpresas", todasLasEmpresas.size());
-            dashboard.put("totalUsuarios", 0);
-            dashboard.put("totalClientes", 0);
-            dashboard.put("totalProductos", 0);
-            dashboard.put("totalPedidos", 0);
-            dashboard.put("totalVentasRapidas", 0);
-            dashboard.put("empresasActivas", empresasActivas);
-            dashboard.put("empresasEnPrueba", 0);
-            dashboard.put("empresasSuspendidas", 0);
-            dashboard.put("empresasCanceladas", 0);
-            dashboard.put("empresasPorExpirar", 0);
-            dashboard.put("ingresosMensuales", 0.0);
-            dashboard.put("ingresosAnuales", 0.0);
-            dashboard.put("ingresosTotales", 0.0);
-            dashboard.put("promedioIngresosPorEmpresa", 0.0);
-            dashboard.put("tasaConversionPrueba", 0.0);
-            dashboard.put("nuevasEmpresasEsteMes", 0);
-            dashboard.put("nuevasEmpresasEsteAno", 0);
-            dashboard.put("empresasCanceladasEsteMes", 0);
-            dashboard.put("tasaRetencion", 0.0);
-            dashboard.put("empresasActivasHoy", empresasActivas);
-            dashboard.put("empresasInactivasMasDe30Dias", empresasInactivas);
-            dashboard.put("empresasNuevasEstaSemana", 0);
+            // Última versión precalculada (trae versionSnapshot, fechaCalculo y desactualizado)
+            DashboardSuperAdminDTO dashboard = superAdminService.obtenerDashboard();
             
             return ResponseEntity.ok(Map.of(
                 "mensaje", "Dashboard del Super Admin",
@@ -253,6 +221,44 @@ public class SuperAdminController {
         }
     }
 
+    /**
+     * Recalcula el dashboard del super admin en el momento
+     */
+    @PostMapping("/dashboard/refrescar")
+    public ResponseEntity<?> refrescarDashboard(HttpServletRequest request) {
+        try {
+            String token = request.getHeader("Authorization");
+            if (token == null || !token.startsWith("Bearer ")) {
+                return ResponseEntity.status(401).body(Map.of("error", "Token no válido"));
+            }
+            
+            token = token.substring(7);
+            String email = jwtUtils.extractUsername(token);
+            
+            Optional<Usuario> usuario = autenticacionService.obtenerPorEmail(email);
+            if (usuario.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("error", "Usuario no encontrado"));
+            }
+            
+            // Verificar que sea super admin
+            if (!usuario.get().getRol().name().equals("SUPER_ADMIN")) {
+                return ResponseEntity.status(403).body(Map.of("error", "Acceso denegado. Se requiere rol SUPER_ADMIN"));
+            }
+            
+            DashboardSuperAdminDTO dashboard = superAdminService.refrescarDashboard();
+            
+            return ResponseEntity.ok(Map.of(
+                "mensaje", "Dashboard del Super Admin recalculado",
+                "data", dashboard
+            ));
+            
+        } catch (Exception e) {
+            System.err.println("Error al refrescar dashboard super admin: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error interno del servidor"));
+        }
+    }
+
     /**
      * Obtener todas las empresas (para el super admin)
      */
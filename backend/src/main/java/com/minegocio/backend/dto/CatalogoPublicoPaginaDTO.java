@@ -0,0 +1,45 @@
+package com.minegocio.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de una página del catálogo público (paginación por cursor).
+ * El frontend de la tienda pide la siguiente página enviando siguienteCursor
+ * hasta que hayMas sea false.
+ */
+public class CatalogoPublicoPaginaDTO {
+
+    private List<ProductoDTO> items = new ArrayList<>();
+    private String siguienteCursor;
+    private boolean hayMas;
+    private int limite;
+    private String orden;
+
+    // Constructores
+    public CatalogoPublicoPaginaDTO() {}
+
+    public CatalogoPublicoPaginaDTO(List<ProductoDTO> items, String siguienteCursor, boolean hayMas, int limite, String orden) {
+        this.items = items;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+        this.limite = limite;
+        this.orden = orden;
+    }
+
+    // Getters y Setters
+    public List<ProductoDTO> getItems() { return items; }
+    public void setItems(List<ProductoDTO> items) { this.items = items; }
+
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public void setSiguienteCursor(String siguienteCursor) { this.siguienteCursor = siguienteCursor; }
+
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+
+    public int getLimite() { return limite; }
+    public void setLimite(int limite) { this.limite = limite; }
+
+    public String getOrden() { return orden; }
+    public void setOrden(String orden) { this.orden = orden; }
+}
@@ -61,6 +61,13 @@ public class DashboardSuperAdminDTO {
     private Long empresasInactivasMasDe30Dias;
     private Long empresasNuevasEstaSemana;
 
+    // Versión precalculada que se está sirviendo y qué tan vieja es
+    private Long versionSnapshot;
+    private LocalDateTime fechaCalculo;
+    private Long duracionCalculoMs;
+    private Long segundosDesdeCalculo;
+    private Boolean desactualizado;
+
     // Getters y Setters
     public Long getTotalEmpresas() { return totalEmpresas; }
     public void setTotalEmpresas(Long totalEmpresas) { this.totalEmpresas = totalEmpresas; }
@@ -160,4 +167,19 @@ public class DashboardSuperAdminDTO {
 
     public Long getEmpresasNuevasEstaSemana() { return empresasNuevasEstaSemana; }
     public void setEmpresasNuevasEstaSemana(Long empresasNuevasEstaSemana) { this.empresasNuevasEstaSemana = empresasNuevasEstaSemana; }
+
+    public Long getVersionSnapshot() { return versionSnapshot; }
+    public void setVersionSnapshot(Long versionSnapshot) { this.versionSnapshot = versionSnapshot; }
+
+    public LocalDateTime getFechaCalculo() { return fechaCalculo; }
+    public void setFechaCalculo(LocalDateTime fechaCalculo) { this.fechaCalculo = fechaCalculo; }
+
+    public Long getDuracionCalculoMs() { return duracionCalculoMs; }
+    public void setDuracionCalculoMs(Long duracionCalculoMs) { this.duracionCalculoMs = duracionCalculoMs; }
+
+    public Long getSegundosDesdeCalculo() { return segundosDesdeCalculo; }
+    public void setSegundosDesdeCalculo(Long segundosDesdeCalculo) { this.segundosDesdeCalculo = segundosDesdeCalculo; }
+
+    public Boolean getDesactualizado() { return desactualizado; }
+    public void setDesactualizado(Boolean desactualizado) { this.desactualizado = desactualizado; }
 } 
\ No newline at end of file
@@ -13,7 +13,7 @@ import java.util.List;
  */
 public class PlanillaDevolucionDTO {
 
-    @Size(max = 8, message = "El número de planilla no puede exceder 8 caracteres")
+    @Size(max = 30, message = "El número de planilla no puede exceder 30 caracteres")
     private String numeroPlanilla;
 
     @Size(max = 1000, message = "Las observaciones no pueden exceder 1000 caracteres")
@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
  * Entidad para trackear archivos de almacenamiento de cada empresa
  */
 @Entity
+@EntityListeners(UsoEmpresaListener.class)
 @Table(name = "archivos_empresa")
 public class ArchivoEmpresa {
 
@@ -45,6 +46,10 @@ public class ArchivoEmpresa {
     @Column(name = "activo")
     private Boolean activo = true;
 
+    // Valor de activo al cargarse de la base (UsoEmpresaListener)
+    @Transient
+    private Boolean activoAlCargar;
+
     @CreationTimestamp
     @Column(name = "fecha_creacion", updatable = false)
     private LocalDateTime fechaCreacion;
@@ -101,6 +106,9 @@ public class ArchivoEmpresa {
     public Boolean getActivo() { return activo; }
     public void setActivo(Boolean activo) { this.activo = activo; }
 
+    Boolean getActivoAlCargar() { return activoAlCargar; }
+    void setActivoAlCargar(Boolean activoAlCargar) { this.activoAlCargar = activoAlCargar; }
+
     public LocalDateTime getFechaCreacion() { return fechaCreacion; }
     public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
 
@@ -0,0 +1,25 @@
+package com.minegocio.backend.entidades;
+
+import com.minegocio.backend.seguridad.CachePrincipalService;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Invalida en CachePrincipalService (en esta réplica y, al confirmar, en las demás) el usuario
+ * autenticado cada vez que JPA actualiza o elimina un Usuario: rol, estado activo, verificación
+ * de email o contraseña. Hibernate lo instancia como bean de Spring.
+ */
+public class CachePrincipalListener {
+
+    @Autowired
+    @Lazy
+    private CachePrincipalService cachePrincipalService;
+
+    @PostUpdate
+    @PostRemove
+    public void usuarioCambiado(Usuario usuario) {
+        cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
+    }
+}
@@ -15,6 +15,7 @@ import java.util.List;
  * Entidad que representa los clientes de cada empresa
  */
 @Entity
+@EntityListeners(UsoEmpresaListener.class)
 @Table(name = "clientes")
 public class Cliente {
 
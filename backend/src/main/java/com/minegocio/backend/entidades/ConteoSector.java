@@ -48,6 +48,19 @@ public class ConteoSector {
     @Column(name = "productos_con_diferencias")
     private Integer productosConDiferencias;
 
+    @Column(name = "productos_contados_usuario_1")
+    private Integer productosContadosUsuario1;
+
+    @Column(name = "productos_contados_usuario_2")
+    private Integer productosContadosUsuario2;
+
+    /**
+     * Modo en que ProgresoConteoService armó los contadores de progreso (conteo inicial o
+     * reconteo); null mientras todavía no se armaron para este conteo.
+     */
+    @Column(name = "progreso_en_reconteo")
+    private Boolean progresoEnReconteo;
+
     @Column(name = "intentos_reconteo")
     private Integer intentosReconteo;
 
@@ -110,6 +123,8 @@ public class ConteoSector {
         this.productosContados = 0;
         this.totalProductos = 0;
         this.productosConDiferencias = 0;
+        this.productosContadosUsuario1 = 0;
+        this.productosContadosUsuario2 = 0;
         this.intentosReconteo = 0;
         this.porcentajeCompletado = 0.0;
     }
@@ -325,21 +340,27 @@ public class ConteoSector {
     }
 
     public Integer getProductosContadosUsuario1() {
-        // Por ahora retornamos el total de productos contados dividido por 2
-        return this.productosContados != null ? this.productosContados / 2 : 0;
+        return this.productosContadosUsuario1 != null ? this.productosContadosUsuario1 : 0;
     }
 
     public void setProductosContadosUsuario1(Integer productosContadosUsuario1) {
-        // Por ahora no implementamos lógica específica
+        this.productosContadosUsuario1 = productosContadosUsuario1;
     }
 
     public Integer getProductosContadosUsuario2() {
-        // Por ahora retornamos el total de productos contados dividido por 2
-        return this.productosContados != null ? this.productosContados / 2 : 0;
+        return this.productosContadosUsuario2 != null ? this.productosContadosUsuario2 : 0;
     }
 
     public void setProductosContadosUsuario2(Integer productosContadosUsuario2) {
-        // Por ahora no implementamos lógica específica
+        this.productosContadosUsuario2 = productosContadosUsuario2;
+    }
+
+    public Boolean getProgresoEnReconteo() {
+        return progresoEnReconteo;
+    }
+
+    public void setProgresoEnReconteo(Boolean progresoEnReconteo) {
+        this.progresoEnReconteo = progresoEnReconteo;
     }
 
 
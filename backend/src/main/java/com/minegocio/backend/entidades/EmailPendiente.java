@@ -0,0 +1,115 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Email en la cola de salida (outbox). Se guarda en la misma transacción que el cambio
+ * de negocio que lo origina y lo envía después ColaEmailService.
+ */
+@Entity
+@Table(name = "emails_pendientes", indexes = {
+    @Index(name = "idx_emails_pendientes_estado_proximo", columnList = "estado, proximo_intento"),
+    @Index(name = "idx_emails_pendientes_clave", columnList = "clave_deduplicacion")
+})
+public class EmailPendiente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "destinatario", nullable = false, length = 255)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false, length = 300)
+    private String asunto;
+
+    @Column(name = "contenido", nullable = false, columnDefinition = "TEXT")
+    private String contenido;
+
+    // Identifica el mismo aviso (ej. pedido + tipo de email) para no enviarlo dos veces
+    @Column(name = "clave_deduplicacion", length = 255)
+    private String claveDeduplicacion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoEmail estado = EstadoEmail.PENDIENTE;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    // Momento en que un nodo tomó el email para enviarlo (para liberar envíos colgados)
+    @Column(name = "fecha_reclamo")
+    private LocalDateTime fechaReclamo;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    // Constructores
+    public EmailPendiente() {
+        this.fechaCreacion = LocalDateTime.now();
+        this.proximoIntento = this.fechaCreacion;
+    }
+
+    public EmailPendiente(String destinatario, String asunto, String contenido, String claveDeduplicacion) {
+        this();
+        this.destinatario = destinatario;
+        this.asunto = asunto;
+        this.contenido = contenido;
+        this.claveDeduplicacion = claveDeduplicacion;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getDestinatario() { return destinatario; }
+    public void setDestinatario(String destinatario) { this.destinatario = destinatario; }
+
+    public String getAsunto() { return asunto; }
+    public void setAsunto(String asunto) { this.asunto = asunto; }
+
+    public String getContenido() { return contenido; }
+    public void setContenido(String contenido) { this.contenido = contenido; }
+
+    public String getClaveDeduplicacion() { return claveDeduplicacion; }
+    public void setClaveDeduplicacion(String claveDeduplicacion) { this.claveDeduplicacion = claveDeduplicacion; }
+
+    public EstadoEmail getEstado() { return estado; }
+    public void setEstado(EstadoEmail estado) { this.estado = estado; }
+
+    public Integer getIntentos() { return intentos; }
+    public void setIntentos(Integer intentos) { this.intentos = intentos; }
+
+    public LocalDateTime getProximoIntento() { return proximoIntento; }
+    public void setProximoIntento(LocalDateTime proximoIntento) { this.proximoIntento = proximoIntento; }
+
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+
+    public LocalDateTime getFechaReclamo() { return fechaReclamo; }
+    public void setFechaReclamo(LocalDateTime fechaReclamo) { this.fechaReclamo = fechaReclamo; }
+
+    public LocalDateTime getFechaEnvio() { return fechaEnvio; }
+    public void setFechaEnvio(LocalDateTime fechaEnvio) { this.fechaEnvio = fechaEnvio; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+
+    public enum EstadoEmail {
+        PENDIENTE,   // Esperando su (próximo) intento
+        ENVIANDO,    // Tomado por un nodo
+        ENVIADO,
+        FALLIDO,     // Agotó los reintentos
+        DESCARTADO   // Duplicado de otro ya enviado
+    }
+}
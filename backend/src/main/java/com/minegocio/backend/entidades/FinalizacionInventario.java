@@ -0,0 +1,141 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Finalización de un inventario completo (actualización de stock y registro), procesada por lotes.
+ * Guarda los productos editados que mandó el usuario y cuántos ya se aplicaron: cada lote se
+ * confirma junto con el avance, así que si el proceso se corta se reanuda desde productosProcesados.
+ */
+@Entity
+@Table(name = "finalizacion_inventario", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"inventario_completo_id"})
+})
+public class FinalizacionInventario {
+
+    public enum EstadoFinalizacion {
+        EN_PROCESO,
+        ERROR,
+        COMPLETADA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "inventario_completo_id", nullable = false)
+    private Long inventarioCompletoId;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoFinalizacion estado;
+
+    @Column(name = "observaciones", columnDefinition = "TEXT")
+    private String observaciones;
+
+    // Lista de productos editados tal como llegó en el request (JSON)
+    @Column(name = "productos_editados", nullable = false, columnDefinition = "TEXT")
+    private String productosEditados;
+
+    @Column(name = "total_productos", nullable = false)
+    private Integer totalProductos = 0;
+
+    @Column(name = "productos_procesados", nullable = false)
+    private Integer productosProcesados = 0;
+
+    @Column(name = "productos_con_diferencias", nullable = false)
+    private Integer productosConDiferencias = 0;
+
+    @Column(name = "productos_sin_diferencias", nullable = false)
+    private Integer productosSinDiferencias = 0;
+
+    @Column(name = "registro_inventario_id")
+    private Long registroInventarioId;
+
+    @Column(name = "mensaje_error", columnDefinition = "TEXT")
+    private String mensajeError;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDateTime fechaInicio;
+
+    // También sirve de latido: una finalización EN_PROCESO sin cambios hace rato quedó cortada
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @Column(name = "fecha_finalizacion")
+    private LocalDateTime fechaFinalizacion;
+
+    // Constructores
+    public FinalizacionInventario() {
+        this.fechaInicio = LocalDateTime.now();
+        this.fechaActualizacion = this.fechaInicio;
+    }
+
+    public FinalizacionInventario(Long inventarioCompletoId, Long empresaId, Long usuarioId) {
+        this();
+        this.inventarioCompletoId = inventarioCompletoId;
+        this.empresaId = empresaId;
+        this.usuarioId = usuarioId;
+        this.estado = EstadoFinalizacion.EN_PROCESO;
+    }
+
+    public double getPorcentaje() {
+        return totalProductos > 0 ? productosProcesados * 100.0 / totalProductos : 0.0;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getInventarioCompletoId() { return inventarioCompletoId; }
+    public void setInventarioCompletoId(Long inventarioCompletoId) { this.inventarioCompletoId = inventarioCompletoId; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+
+    public EstadoFinalizacion getEstado() { return estado; }
+    public void setEstado(EstadoFinalizacion estado) { this.estado = estado; }
+
+    public String getObservaciones() { return observaciones; }
+    public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+
+    public String getProductosEditados() { return productosEditados; }
+    public void setProductosEditados(String productosEditados) { this.productosEditados = productosEditados; }
+
+    public Integer getTotalProductos() { return totalProductos; }
+    public void setTotalProductos(Integer totalProductos) { this.totalProductos = totalProductos; }
+
+    public Integer getProductosProcesados() { return productosProcesados; }
+    public void setProductosProcesados(Integer productosProcesados) { this.productosProcesados = productosProcesados; }
+
+    public Integer getProductosConDiferencias() { return productosConDiferencias; }
+    public void setProductosConDiferencias(Integer productosConDiferencias) { this.productosConDiferencias = productosConDiferencias; }
+
+    public Integer getProductosSinDiferencias() { return productosSinDiferencias; }
+    public void setProductosSinDiferencias(Integer productosSinDiferencias) { this.productosSinDiferencias = productosSinDiferencias; }
+
+    public Long getRegistroInventarioId() { return registroInventarioId; }
+    public void setRegistroInventarioId(Long registroInventarioId) { this.registroInventarioId = registroInventarioId; }
+
+    public String getMensajeError() { return mensajeError; }
+    public void setMensajeError(String mensajeError) { this.mensajeError = mensajeError; }
+
+    public LocalDateTime getFechaInicio() { return fechaInicio; }
+    public void setFechaInicio(LocalDateTime fechaInicio) { this.fechaInicio = fechaInicio; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+
+    public LocalDateTime getFechaFinalizacion() { return fechaFinalizacion; }
+    public void setFechaFinalizacion(LocalDateTime fechaFinalizacion) { this.fechaFinalizacion = fechaFinalizacion; }
+}
@@ -0,0 +1,86 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+
+/**
+ * Resultado de un producto ya aplicado en una finalización de inventario. Al terminar el último
+ * lote se copian a DetalleRegistroInventario; así el registro solo aparece cuando está completo.
+ */
+@Entity
+@Table(name = "finalizacion_inventario_producto", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"finalizacion_id", "orden"})
+})
+public class FinalizacionInventarioProducto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "finalizacion_id", nullable = false)
+    private Long finalizacionId;
+
+    // Posición del producto en la lista editada
+    @Column(name = "orden", nullable = false)
+    private Integer orden;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "nombre_producto")
+    private String nombreProducto;
+
+    @Column(name = "codigo_producto")
+    private String codigoProducto;
+
+    @Column(name = "stock_anterior", nullable = false)
+    private Integer stockAnterior;
+
+    @Column(name = "stock_nuevo", nullable = false)
+    private Integer stockNuevo;
+
+    @Column(name = "diferencia_stock", nullable = false)
+    private Integer diferenciaStock;
+
+    @Column(name = "observaciones", columnDefinition = "TEXT")
+    private String observaciones;
+
+    // Constructores
+    public FinalizacionInventarioProducto() {
+    }
+
+    public FinalizacionInventarioProducto(Long finalizacionId, Integer orden) {
+        this.finalizacionId = finalizacionId;
+        this.orden = orden;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getFinalizacionId() { return finalizacionId; }
+    public void setFinalizacionId(Long finalizacionId) { this.finalizacionId = finalizacionId; }
+
+    public Integer getOrden() { return orden; }
+    public void setOrden(Integer orden) { this.orden = orden; }
+
+    public Long getProductoId() { return productoId; }
+    public void setProductoId(Long productoId) { this.productoId = productoId; }
+
+    public String getNombreProducto() { return nombreProducto; }
+    public void setNombreProducto(String nombreProducto) { this.nombreProducto = nombreProducto; }
+
+    public String getCodigoProducto() { return codigoProducto; }
+    public void setCodigoProducto(String codigoProducto) { this.codigoProducto = codigoProducto; }
+
+    public Integer getStockAnterior() { return stockAnterior; }
+    public void setStockAnterior(Integer stockAnterior) { this.stockAnterior = stockAnterior; }
+
+    public Integer getStockNuevo() { return stockNuevo; }
+    public void setStockNuevo(Integer stockNuevo) { this.stockNuevo = stockNuevo; }
+
+    public Integer getDiferenciaStock() { return diferenciaStock; }
+    public void setDiferenciaStock(Integer diferenciaStock) { this.diferenciaStock = diferenciaStock; }
+
+    public String getObservaciones() { return observaciones; }
+    public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+}
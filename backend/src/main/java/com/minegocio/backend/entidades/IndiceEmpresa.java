@@ -0,0 +1,58 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marca que un índice derivado (contadores pre-agregados) ya se construyó desde el historial
+ * para una empresa. A partir de ahí el índice se mantiene solo con incrementos; sin la marca,
+ * la primera consulta reconstruye todo (incluido lo vendido antes de existir el índice).
+ */
+@Entity
+@Table(name = "indices_empresa", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_indices_empresa_empresa_tipo", columnNames = {"empresa_id", "tipo"})
+})
+public class IndiceEmpresa {
+
+    public enum TipoIndice {
+        RANKING_VENTAS, LIBRO_STOCK_DIARIO, RESUMEN_VENTAS_DIARIO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoIndice tipo;
+
+    @Column(name = "fecha_construccion", nullable = false)
+    private LocalDateTime fechaConstruccion;
+
+    // Constructores
+    public IndiceEmpresa() {
+        this.fechaConstruccion = LocalDateTime.now();
+    }
+
+    public IndiceEmpresa(Long empresaId, TipoIndice tipo) {
+        this();
+        this.empresaId = empresaId;
+        this.tipo = tipo;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public TipoIndice getTipo() { return tipo; }
+    public void setTipo(TipoIndice tipo) { this.tipo = tipo; }
+
+    public LocalDateTime getFechaConstruccion() { return fechaConstruccion; }
+    public void setFechaConstruccion(LocalDateTime fechaConstruccion) { this.fechaConstruccion = fechaConstruccion; }
+}
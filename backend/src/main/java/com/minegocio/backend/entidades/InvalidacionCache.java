@@ -0,0 +1,69 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de invalidación de una caché en memoria, publicado por un nodo para que
+ * el resto de las réplicas descarte las mismas entradas (ver BusInvalidacionCacheBaseDatos).
+ * Sin empresa se invalida toda la región; sin fecha, todas las fechas de la empresa.
+ */
+@Entity
+@Table(name = "invalidaciones_cache", indexes = {
+    @Index(name = "idx_invalidaciones_cache_fecha_creacion", columnList = "fecha_creacion")
+})
+public class InvalidacionCache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "region", nullable = false, length = 50)
+    private String region;
+
+    @Column(name = "empresa_id")
+    private Long empresaId;
+
+    @Column(name = "fecha")
+    private LocalDate fecha;
+
+    // Nodo que publicó el evento (no se lo aplica a sí mismo)
+    @Column(name = "nodo_origen", nullable = false, length = 36)
+    private String nodoOrigen;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    // Constructores
+    public InvalidacionCache() {
+        this.fechaCreacion = LocalDateTime.now();
+    }
+
+    public InvalidacionCache(String region, Long empresaId, LocalDate fecha, String nodoOrigen) {
+        this();
+        this.region = region;
+        this.empresaId = empresaId;
+        this.fecha = fecha;
+        this.nodoOrigen = nodoOrigen;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getRegion() { return region; }
+    public void setRegion(String region) { this.region = region; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+
+    public String getNodoOrigen() { return nodoOrigen; }
+    public void setNodoOrigen(String nodoOrigen) { this.nodoOrigen = nodoOrigen; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+}
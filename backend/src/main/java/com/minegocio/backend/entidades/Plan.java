@@ -17,6 +17,7 @@ import jakarta.validation.constraints.Size;
  * Entidad que representa un plan de suscripción
  */
 @Entity
+@EntityListeners(UsoEmpresaListener.class)
 @Table(name = "planes")
 public class Plan {
 
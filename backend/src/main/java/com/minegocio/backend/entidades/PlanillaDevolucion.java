@@ -22,7 +22,7 @@ public class PlanillaDevolucion {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "numero_planilla", unique = true, nullable = true, length = 8)
+    @Column(name = "numero_planilla", unique = true, nullable = true, length = 30)
     private String numeroPlanilla;
 
     @Column(length = 1000)
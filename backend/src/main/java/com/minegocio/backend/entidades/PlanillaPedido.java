@@ -22,7 +22,7 @@ public class PlanillaPedido {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "numero_planilla", unique = true, nullable = false, length = 8)
+    @Column(name = "numero_planilla", unique = true, nullable = false, length = 30)
     private String numeroPlanilla;
 
     @Column(length = 1000)
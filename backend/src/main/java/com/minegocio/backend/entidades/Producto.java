@@ -5,11 +5,13 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.math.BigDecimal;
+import java.text.Normalizer;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,7 +20,13 @@ import java.util.List;
  * Entidad que representa los productos de cada empresa
  */
 @Entity
-@Table(name = "productos")
+@EntityListeners({VistaStockListener.class, UsoEmpresaListener.class})
+@Table(name = "productos", indexes = {
+    @Index(name = "idx_productos_catalogo_nombre", columnList = "empresa_id, activo, nombre, id"),
+    @Index(name = "idx_productos_catalogo_precio", columnList = "empresa_id, activo, precio, id"),
+    @Index(name = "idx_productos_catalogo_categoria", columnList = "empresa_id, categoria"),
+    @Index(name = "idx_productos_catalogo_marca", columnList = "empresa_id, marca")
+})
 public class Producto {
 
     @Id
@@ -73,11 +81,21 @@ public class Producto {
     @Column(name = "activo")
     private Boolean activo = true;
 
+    // Valor de activo al cargarse de la base (UsoEmpresaListener)
+    @Transient
+    private Boolean activoAlCargar;
+
     @Column(name = "destacado")
     private Boolean destacado = false;
 
+    // Nombre + descripción normalizados (minúsculas, sin acentos) para la búsqueda del catálogo público
+    @Column(name = "texto_busqueda", length = 1201)
+    @JsonIgnore
+    private String textoBusqueda;
+
     // Imágenes del producto
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "producto_imagenes", joinColumns = @JoinColumn(name = "producto_id"))
     @Column(name = "url_imagen")
     private List<String> imagenes = new ArrayList<>();
@@ -134,6 +152,27 @@ public class Producto {
         this.stock += cantidad;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void actualizarTextoBusqueda() {
+        String texto = nombre != null ? nombre : "";
+        if (descripcion != null && !descripcion.isBlank()) {
+            texto = texto + " " + descripcion;
+        }
+        this.textoBusqueda = normalizarTextoBusqueda(texto);
+    }
+
+    /**
+     * Normaliza un texto para búsqueda: minúsculas, sin acentos y con espacios simples
+     */
+    public static String normalizarTextoBusqueda(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String sinAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return sinAcentos.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+
     public String getImagenPrincipal() {
         return imagenes.isEmpty() ? null : imagenes.get(0);
     }
@@ -178,9 +217,15 @@ public class Producto {
     public Boolean getActivo() { return activo; }
     public void setActivo(Boolean activo) { this.activo = activo; }
 
+    Boolean getActivoAlCargar() { return activoAlCargar; }
+    void setActivoAlCargar(Boolean activoAlCargar) { this.activoAlCargar = activoAlCargar; }
+
     public Boolean getDestacado() { return destacado; }
     public void setDestacado(Boolean destacado) { this.destacado = destacado; }
 
+    public String getTextoBusqueda() { return textoBusqueda; }
+    public void setTextoBusqueda(String textoBusqueda) { this.textoBusqueda = textoBusqueda; }
+
     public List<String> getImagenes() { return imagenes; }
     public void setImagenes(List<String> imagenes) { this.imagenes = imagenes; }
 
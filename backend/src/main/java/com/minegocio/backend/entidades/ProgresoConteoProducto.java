@@ -0,0 +1,147 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Progreso de un producto dentro de un conteo de sector: lo que contó cada usuario en el
+ * conteo inicial (sumando todas sus filas) y el último reconteo de ambos usuarios.
+ * Lo mantiene ProgresoConteoService cada vez que cambian los DetalleConteo del producto,
+ * y con él ajusta los contadores del ConteoSector sin recorrer el sector completo.
+ */
+@Entity
+@Table(name = "progreso_conteo_producto", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"conteo_sector_id", "producto_id"})
+})
+public class ProgresoConteoProducto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conteo_sector_id", nullable = false)
+    private Long conteoSectorId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    // Filas de DetalleConteo no eliminadas del producto
+    @Column(name = "filas", nullable = false)
+    private Integer filas = 0;
+
+    @Column(name = "total_usuario_1", nullable = false)
+    private Integer totalUsuario1 = 0;
+
+    @Column(name = "total_usuario_2", nullable = false)
+    private Integer totalUsuario2 = 0;
+
+    @Column(name = "contado_usuario_1", nullable = false)
+    private Boolean contadoUsuario1 = false;
+
+    @Column(name = "contado_usuario_2", nullable = false)
+    private Boolean contadoUsuario2 = false;
+
+    // Valores de la fila de reconteo más reciente (ambos usuarios con cantidad); null si no hay
+    @Column(name = "reconteo_usuario_1")
+    private Integer reconteoUsuario1;
+
+    @Column(name = "reconteo_usuario_2")
+    private Integer reconteoUsuario2;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public ProgresoConteoProducto() {
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+
+    public ProgresoConteoProducto(Long conteoSectorId, Long productoId) {
+        this();
+        this.conteoSectorId = conteoSectorId;
+        this.productoId = productoId;
+    }
+
+    // Estado del producto según el modo del conteo (inicial o reconteo)
+    public boolean contadoPorUsuario1(boolean reconteo) {
+        return reconteo ? reconteoUsuario1 != null : Boolean.TRUE.equals(contadoUsuario1);
+    }
+
+    public boolean contadoPorUsuario2(boolean reconteo) {
+        return reconteo ? reconteoUsuario2 != null : Boolean.TRUE.equals(contadoUsuario2);
+    }
+
+    public boolean contado(boolean reconteo) {
+        return contadoPorUsuario1(reconteo) || contadoPorUsuario2(reconteo);
+    }
+
+    public boolean conDiferencias(boolean reconteo) {
+        if (reconteo) {
+            return reconteoUsuario1 != null && !reconteoUsuario1.equals(reconteoUsuario2);
+        }
+        return contadoPorUsuario1(false) && contadoPorUsuario2(false) && !totalUsuario1.equals(totalUsuario2);
+    }
+
+    /**
+     * Mismo contenido que otro progreso del producto (sin contar id ni fecha)
+     */
+    public boolean coincideCon(ProgresoConteoProducto otro) {
+        return otro != null
+            && filas.equals(otro.filas)
+            && totalUsuario1.equals(otro.totalUsuario1)
+            && totalUsuario2.equals(otro.totalUsuario2)
+            && contadoUsuario1.equals(otro.contadoUsuario1)
+            && contadoUsuario2.equals(otro.contadoUsuario2)
+            && Objects.equals(reconteoUsuario1, otro.reconteoUsuario1)
+            && Objects.equals(reconteoUsuario2, otro.reconteoUsuario2);
+    }
+
+    /**
+     * Copia el contenido de otro progreso del mismo producto
+     */
+    public void copiarDe(ProgresoConteoProducto otro) {
+        this.filas = otro.filas;
+        this.totalUsuario1 = otro.totalUsuario1;
+        this.totalUsuario2 = otro.totalUsuario2;
+        this.contadoUsuario1 = otro.contadoUsuario1;
+        this.contadoUsuario2 = otro.contadoUsuario2;
+        this.reconteoUsuario1 = otro.reconteoUsuario1;
+        this.reconteoUsuario2 = otro.reconteoUsuario2;
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getConteoSectorId() { return conteoSectorId; }
+    public void setConteoSectorId(Long conteoSectorId) { this.conteoSectorId = conteoSectorId; }
+
+    public Long getProductoId() { return productoId; }
+    public void setProductoId(Long productoId) { this.productoId = productoId; }
+
+    public Integer getFilas() { return filas; }
+    public void setFilas(Integer filas) { this.filas = filas; }
+
+    public Integer getTotalUsuario1() { return totalUsuario1; }
+    public void setTotalUsuario1(Integer totalUsuario1) { this.totalUsuario1 = totalUsuario1; }
+
+    public Integer getTotalUsuario2() { return totalUsuario2; }
+    public void setTotalUsuario2(Integer totalUsuario2) { this.totalUsuario2 = totalUsuario2; }
+
+    public Boolean getContadoUsuario1() { return contadoUsuario1; }
+    public void setContadoUsuario1(Boolean contadoUsuario1) { this.contadoUsuario1 = contadoUsuario1; }
+
+    public Boolean getContadoUsuario2() { return contadoUsuario2; }
+    public void setContadoUsuario2(Boolean contadoUsuario2) { this.contadoUsuario2 = contadoUsuario2; }
+
+    public Integer getReconteoUsuario1() { return reconteoUsuario1; }
+    public void setReconteoUsuario1(Integer reconteoUsuario1) { this.reconteoUsuario1 = reconteoUsuario1; }
+
+    public Integer getReconteoUsuario2() { return reconteoUsuario2; }
+    public void setReconteoUsuario2(Integer reconteoUsuario2) { this.reconteoUsuario2 = reconteoUsuario2; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,65 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Contador de numeración por empresa y tipo de documento. Cada réplica reserva bloques
+ * [proximoValor, proximoValor + tamaño) y los reparte en memoria (ver NumeradorDocumentosService).
+ */
+@Entity
+@Table(name = "secuencias_documentos", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_secuencias_documentos_empresa_tipo", columnNames = {"empresa_id", "tipo"})
+})
+public class SecuenciaDocumento {
+
+    public enum TipoDocumento {
+        PLANILLA_PEDIDO, PLANILLA_DEVOLUCION, PEDIDO, VENTA_RAPIDA, CODIGO_BARRAS
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoDocumento tipo;
+
+    // Primer valor todavía no reservado por ninguna réplica
+    @Column(name = "proximo_valor", nullable = false)
+    private Long proximoValor;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public SecuenciaDocumento() {
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+
+    public SecuenciaDocumento(Long empresaId, TipoDocumento tipo, Long proximoValor) {
+        this();
+        this.empresaId = empresaId;
+        this.tipo = tipo;
+        this.proximoValor = proximoValor;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public TipoDocumento getTipo() { return tipo; }
+    public void setTipo(TipoDocumento tipo) { this.tipo = tipo; }
+
+    public Long getProximoValor() { return proximoValor; }
+    public void setProximoValor(Long proximoValor) { this.proximoValor = proximoValor; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,58 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Versión precalculada del dashboard del super admin (la mantiene DashboardSuperAdminSnapshotService).
+ * datos guarda el DashboardSuperAdminDTO en JSON tal como quedó al calcularlo.
+ */
+@Entity
+@Table(name = "snapshot_dashboard_superadmin", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"version"})
+})
+public class SnapshotDashboardSuperAdmin {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "datos", nullable = false, columnDefinition = "TEXT")
+    private String datos;
+
+    @Column(name = "fecha_calculo", nullable = false)
+    private LocalDateTime fechaCalculo;
+
+    @Column(name = "duracion_ms", nullable = false)
+    private Long duracionMs;
+
+    // Constructores
+    public SnapshotDashboardSuperAdmin() {
+    }
+
+    public SnapshotDashboardSuperAdmin(Long version, String datos, LocalDateTime fechaCalculo, Long duracionMs) {
+        this.version = version;
+        this.datos = datos;
+        this.fechaCalculo = fechaCalculo;
+        this.duracionMs = duracionMs;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public String getDatos() { return datos; }
+    public void setDatos(String datos) { this.datos = datos; }
+
+    public LocalDateTime getFechaCalculo() { return fechaCalculo; }
+    public void setFechaCalculo(LocalDateTime fechaCalculo) { this.fechaCalculo = fechaCalculo; }
+
+    public Long getDuracionMs() { return duracionMs; }
+    public void setDuracionMs(Long duracionMs) { this.duracionMs = duracionMs; }
+}
@@ -0,0 +1,149 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Libro diario de stock: una fila por empresa, producto y día con el stock de apertura,
+ * los movimientos del día (ingresos, devoluciones, salidas, roturas) y el stock de cierre.
+ * Se mantiene de forma incremental desde remitos, planillas de pedido/devolución y roturas
+ * para que los movimientos del día y por rango no recorran todos los documentos.
+ */
+@Entity
+@Table(name = "stock_diario_productos", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"empresa_id", "producto_id", "fecha"})
+}, indexes = {
+    @Index(name = "idx_stock_diario_empresa_fecha", columnList = "empresa_id, fecha")
+})
+public class StockDiarioProducto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "stock_apertura", nullable = false)
+    private Integer stockApertura = 0;
+
+    @Column(name = "ingresos", nullable = false)
+    private Integer ingresos = 0;
+
+    @Column(name = "devoluciones", nullable = false)
+    private Integer devoluciones = 0;
+
+    @Column(name = "salidas", nullable = false)
+    private Integer salidas = 0;
+
+    @Column(name = "roturas", nullable = false)
+    private Integer roturas = 0;
+
+    @Column(name = "stock_cierre", nullable = false)
+    private Integer stockCierre = 0;
+
+    // Fecha/hora del último documento registrado en el día
+    @Column(name = "ultimo_movimiento")
+    private LocalDateTime ultimoMovimiento;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    /**
+     * Columna del libro que afecta cada tipo de documento
+     */
+    public enum Concepto {
+        INGRESO(1), DEVOLUCION(1), SALIDA(-1), ROTURA(-1);
+
+        private final int signo;
+
+        Concepto(int signo) {
+            this.signo = signo;
+        }
+
+        /**
+         * Efecto de la cantidad sobre el stock de cierre
+         */
+        public int efecto(int cantidad) {
+            return signo * cantidad;
+        }
+    }
+
+    // Constructores
+    public StockDiarioProducto() {
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+
+    public StockDiarioProducto(Long empresaId, Long productoId, LocalDate fecha, Integer stockApertura) {
+        this();
+        this.empresaId = empresaId;
+        this.productoId = productoId;
+        this.fecha = fecha;
+        this.stockApertura = stockApertura;
+        this.stockCierre = stockApertura;
+    }
+
+    /**
+     * Suma la cantidad a la columna del concepto y ajusta el stock de cierre
+     */
+    public void acumular(Concepto concepto, int cantidad) {
+        switch (concepto) {
+            case INGRESO:
+                ingresos += cantidad;
+                break;
+            case DEVOLUCION:
+                devoluciones += cantidad;
+                break;
+            case SALIDA:
+                salidas += cantidad;
+                break;
+            default:
+                roturas += cantidad;
+        }
+        stockCierre += concepto.efecto(cantidad);
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public Long getProductoId() { return productoId; }
+    public void setProductoId(Long productoId) { this.productoId = productoId; }
+
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+
+    public Integer getStockApertura() { return stockApertura; }
+    public void setStockApertura(Integer stockApertura) { this.stockApertura = stockApertura; }
+
+    public Integer getIngresos() { return ingresos; }
+    public void setIngresos(Integer ingresos) { this.ingresos = ingresos; }
+
+    public Integer getDevoluciones() { return devoluciones; }
+    public void setDevoluciones(Integer devoluciones) { this.devoluciones = devoluciones; }
+
+    public Integer getSalidas() { return salidas; }
+    public void setSalidas(Integer salidas) { this.salidas = salidas; }
+
+    public Integer getRoturas() { return roturas; }
+    public void setRoturas(Integer roturas) { this.roturas = roturas; }
+
+    public Integer getStockCierre() { return stockCierre; }
+    public void setStockCierre(Integer stockCierre) { this.stockCierre = stockCierre; }
+
+    public LocalDateTime getUltimoMovimiento() { return ultimoMovimiento; }
+    public void setUltimoMovimiento(LocalDateTime ultimoMovimiento) { this.ultimoMovimiento = ultimoMovimiento; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
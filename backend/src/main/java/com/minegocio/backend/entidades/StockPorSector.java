@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(VistaStockListener.class)
 @Table(name = "stock_por_sector", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"producto_id", "sector_id"})
 })
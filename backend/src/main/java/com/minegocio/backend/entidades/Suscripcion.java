@@ -11,6 +11,7 @@ import java.time.LocalDateTime;
  * Entidad que representa una suscripción de una empresa a un plan
  */
 @Entity
+@EntityListeners(UsoEmpresaListener.class)
 @Table(name = "suscripciones")
 public class Suscripcion {
 
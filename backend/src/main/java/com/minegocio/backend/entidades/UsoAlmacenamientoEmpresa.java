@@ -0,0 +1,111 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Foto del almacenamiento usado por una empresa (la mantiene UsoAlmacenamientoService).
+ * Los contadores de archivos se ajustan en la misma transacción que sube o da de baja el archivo;
+ * la parte de base de datos se mide en segundo plano y fechaBaseDatos indica cuándo.
+ */
+@Entity
+@Table(name = "uso_almacenamiento_empresa", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"empresa_id"})
+})
+public class UsoAlmacenamientoEmpresa {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Column(name = "archivos_cantidad", nullable = false)
+    private Long archivosCantidad = 0L;
+
+    @Column(name = "archivos_bytes", nullable = false)
+    private Long archivosBytes = 0L;
+
+    @Column(name = "archivos_producto_cantidad", nullable = false)
+    private Long archivosProductoCantidad = 0L;
+
+    @Column(name = "archivos_producto_bytes", nullable = false)
+    private Long archivosProductoBytes = 0L;
+
+    @Column(name = "archivos_logo_cantidad", nullable = false)
+    private Long archivosLogoCantidad = 0L;
+
+    @Column(name = "archivos_logo_bytes", nullable = false)
+    private Long archivosLogoBytes = 0L;
+
+    @Column(name = "archivos_fondo_cantidad", nullable = false)
+    private Long archivosFondoCantidad = 0L;
+
+    @Column(name = "archivos_fondo_bytes", nullable = false)
+    private Long archivosFondoBytes = 0L;
+
+    @Column(name = "base_datos_filas", nullable = false)
+    private Long baseDatosFilas = 0L;
+
+    @Column(name = "base_datos_bytes", nullable = false)
+    private Long baseDatosBytes = 0L;
+
+    // null: la base de datos todavía no se midió o hay que volver a medirla
+    @Column(name = "fecha_base_datos")
+    private LocalDateTime fechaBaseDatos;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public UsoAlmacenamientoEmpresa() {
+    }
+
+    public long getTotalBytes() {
+        return archivosBytes + baseDatosBytes;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public Long getArchivosCantidad() { return archivosCantidad; }
+    public void setArchivosCantidad(Long archivosCantidad) { this.archivosCantidad = archivosCantidad; }
+
+    public Long getArchivosBytes() { return archivosBytes; }
+    public void setArchivosBytes(Long archivosBytes) { this.archivosBytes = archivosBytes; }
+
+    public Long getArchivosProductoCantidad() { return archivosProductoCantidad; }
+    public void setArchivosProductoCantidad(Long archivosProductoCantidad) { this.archivosProductoCantidad = archivosProductoCantidad; }
+
+    public Long getArchivosProductoBytes() { return archivosProductoBytes; }
+    public void setArchivosProductoBytes(Long archivosProductoBytes) { this.archivosProductoBytes = archivosProductoBytes; }
+
+    public Long getArchivosLogoCantidad() { return archivosLogoCantidad; }
+    public void setArchivosLogoCantidad(Long archivosLogoCantidad) { this.archivosLogoCantidad = archivosLogoCantidad; }
+
+    public Long getArchivosLogoBytes() { return archivosLogoBytes; }
+    public void setArchivosLogoBytes(Long archivosLogoBytes) { this.archivosLogoBytes = archivosLogoBytes; }
+
+    public Long getArchivosFondoCantidad() { return archivosFondoCantidad; }
+    public void setArchivosFondoCantidad(Long archivosFondoCantidad) { this.archivosFondoCantidad = archivosFondoCantidad; }
+
+    public Long getArchivosFondoBytes() { return archivosFondoBytes; }
+    public void setArchivosFondoBytes(Long archivosFondoBytes) { this.archivosFondoBytes = archivosFondoBytes; }
+
+    public Long getBaseDatosFilas() { return baseDatosFilas; }
+    public void setBaseDatosFilas(Long baseDatosFilas) { this.baseDatosFilas = baseDatosFilas; }
+
+    public Long getBaseDatosBytes() { return baseDatosBytes; }
+    public void setBaseDatosBytes(Long baseDatosBytes) { this.baseDatosBytes = baseDatosBytes; }
+
+    public LocalDateTime getFechaBaseDatos() { return fechaBaseDatos; }
+    public void setFechaBaseDatos(LocalDateTime fechaBaseDatos) { this.fechaBaseDatos = fechaBaseDatos; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
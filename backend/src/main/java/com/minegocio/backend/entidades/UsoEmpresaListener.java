@@ -0,0 +1,95 @@
+package com.minegocio.backend.entidades;
+
+import com.minegocio.backend.servicios.UsoEmpresaService;
+import com.minegocio.backend.servicios.UsoEmpresaService.Recurso;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Ajusta en UsoEmpresaService los contadores de uso de la empresa con cada alta, baja o cambio
+ * de activo de Producto, Cliente, Usuario y ArchivoEmpresa hecho por JPA, y descarta los límites
+ * cacheados cuando cambia una Suscripcion o un Plan. Hibernate lo instancia como bean de Spring.
+ */
+public class UsoEmpresaListener {
+
+    @Autowired
+    @Lazy
+    private UsoEmpresaService usoEmpresaService;
+
+    @PostLoad
+    public void cargado(Object entidad) {
+        if (entidad instanceof Producto producto) {
+            producto.setActivoAlCargar(producto.getActivo());
+        } else if (entidad instanceof Usuario usuario) {
+            usuario.setActivoAlCargar(usuario.getActivo());
+        } else if (entidad instanceof ArchivoEmpresa archivo) {
+            archivo.setActivoAlCargar(archivo.getActivo());
+        }
+    }
+
+    @PostPersist
+    public void creado(Object entidad) {
+        if (entidad instanceof Cliente cliente) {
+            ajustar(cliente.getEmpresa(), Recurso.CLIENTES, 1);
+        } else {
+            actualizado(entidad);
+        }
+    }
+
+    @PostUpdate
+    public void actualizado(Object entidad) {
+        if (entidad instanceof Producto producto) {
+            ajustar(producto.getEmpresa(), Recurso.PRODUCTOS, aporte(producto.getActivo()) - aporte(producto.getActivoAlCargar()));
+            producto.setActivoAlCargar(producto.getActivo());
+        } else if (entidad instanceof Usuario usuario) {
+            ajustar(usuario.getEmpresa(), Recurso.USUARIOS, aporte(usuario.getActivo()) - aporte(usuario.getActivoAlCargar()));
+            usuario.setActivoAlCargar(usuario.getActivo());
+        } else if (entidad instanceof ArchivoEmpresa archivo) {
+            long bytes = archivo.getTamañoBytes() != null ? archivo.getTamañoBytes() : 0;
+            ajustar(archivo.getEmpresa(), Recurso.ALMACENAMIENTO,
+                (aporte(archivo.getActivo()) - aporte(archivo.getActivoAlCargar())) * bytes);
+            archivo.setActivoAlCargar(archivo.getActivo());
+        } else {
+            planCambiado(entidad);
+        }
+    }
+
+    @PostRemove
+    public void eliminado(Object entidad) {
+        if (entidad instanceof Producto producto) {
+            ajustar(producto.getEmpresa(), Recurso.PRODUCTOS, -aporte(producto.getActivoAlCargar()));
+        } else if (entidad instanceof Cliente cliente) {
+            ajustar(cliente.getEmpresa(), Recurso.CLIENTES, -1);
+        } else if (entidad instanceof Usuario usuario) {
+            ajustar(usuario.getEmpresa(), Recurso.USUARIOS, -aporte(usuario.getActivoAlCargar()));
+        } else if (entidad instanceof ArchivoEmpresa archivo) {
+            long bytes = archivo.getTamañoBytes() != null ? archivo.getTamañoBytes() : 0;
+            ajustar(archivo.getEmpresa(), Recurso.ALMACENAMIENTO, -aporte(archivo.getActivoAlCargar()) * bytes);
+        } else {
+            planCambiado(entidad);
+        }
+    }
+
+    private void planCambiado(Object entidad) {
+        if (entidad instanceof Suscripcion suscripcion && suscripcion.getEmpresa() != null) {
+            usoEmpresaService.invalidarPlan(suscripcion.getEmpresa().getId());
+        } else if (entidad instanceof Plan) {
+            // Cambiaron los límites de un plan: se descartan los de todas las empresas
+            usoEmpresaService.invalidarPlan(null);
+        }
+    }
+
+    private void ajustar(Empresa empresa, Recurso recurso, long delta) {
+        if (empresa != null && delta != 0) {
+            usoEmpresaService.ajustar(empresa.getId(), recurso, delta);
+        }
+    }
+
+    private static long aporte(Boolean activo) {
+        return Boolean.TRUE.equals(activo) ? 1 : 0;
+    }
+}
@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
  * Entidad que representa los usuarios administradores de las empresas
  */
 @Entity
+@EntityListeners({UsoEmpresaListener.class, CachePrincipalListener.class})
 @Table(name = "usuarios")
 public class Usuario {
 
@@ -55,6 +56,10 @@ public class Usuario {
     @Column(name = "activo")
     private Boolean activo = true;
 
+    // Valor de activo al cargarse de la base (UsoEmpresaListener)
+    @Transient
+    private Boolean activoAlCargar;
+
     @Column(name = "email_verificado")
     private Boolean emailVerificado = false;
 
@@ -136,6 +141,9 @@ public class Usuario {
     public Boolean getActivo() { return activo; }
     public void setActivo(Boolean activo) { this.activo = activo; }
 
+    Boolean getActivoAlCargar() { return activoAlCargar; }
+    void setActivoAlCargar(Boolean activoAlCargar) { this.activoAlCargar = activoAlCargar; }
+
     public Boolean getEmailVerificado() { return emailVerificado; }
     public void setEmailVerificado(Boolean emailVerificado) { this.emailVerificado = emailVerificado; }
 
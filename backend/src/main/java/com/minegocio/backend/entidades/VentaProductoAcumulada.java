@@ -0,0 +1,111 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Contador pre-agregado de unidades vendidas por empresa, producto y período.
+ * Se mantiene de forma incremental al crear/cancelar pedidos y ventas rápidas
+ * para que los rankings de más/menos vendidos no recorran todo el historial.
+ */
+@Entity
+@Table(name = "ventas_producto_acumuladas", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"empresa_id", "producto_id", "periodo", "clave_periodo"})
+}, indexes = {
+    @Index(name = "idx_ventas_acum_empresa_periodo", columnList = "empresa_id, periodo, clave_periodo")
+})
+public class VentaProductoAcumulada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "periodo", nullable = false, length = 10)
+    private Periodo periodo;
+
+    @Column(name = "clave_periodo", nullable = false, length = 10)
+    private String clavePeriodo;
+
+    @Column(name = "unidades_pedidos", nullable = false)
+    private Long unidadesPedidos = 0L;
+
+    @Column(name = "unidades_ventas_rapidas", nullable = false)
+    private Long unidadesVentasRapidas = 0L;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    /**
+     * Granularidad del contador. TOTAL acumula todo el historial.
+     */
+    public enum Periodo {
+        TOTAL, DIA, MES, ANIO;
+
+        /**
+         * Clave del bucket al que pertenece una fecha para esta granularidad
+         */
+        public String clavePara(LocalDate fecha) {
+            switch (this) {
+                case DIA:
+                    return fecha.toString();
+                case MES:
+                    return YearMonth.from(fecha).toString();
+                case ANIO:
+                    return String.valueOf(fecha.getYear());
+                default:
+                    return "TOTAL";
+            }
+        }
+    }
+
+    // Constructores
+    public VentaProductoAcumulada() {
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+
+    public VentaProductoAcumulada(Long empresaId, Long productoId, Periodo periodo, String clavePeriodo) {
+        this();
+        this.empresaId = empresaId;
+        this.productoId = productoId;
+        this.periodo = periodo;
+        this.clavePeriodo = clavePeriodo;
+    }
+
+    public long getTotalUnidades() {
+        return (unidadesPedidos != null ? unidadesPedidos : 0L) + (unidadesVentasRapidas != null ? unidadesVentasRapidas : 0L);
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public Long getProductoId() { return productoId; }
+    public void setProductoId(Long productoId) { this.productoId = productoId; }
+
+    public Periodo getPeriodo() { return periodo; }
+    public void setPeriodo(Periodo periodo) { this.periodo = periodo; }
+
+    public String getClavePeriodo() { return clavePeriodo; }
+    public void setClavePeriodo(String clavePeriodo) { this.clavePeriodo = clavePeriodo; }
+
+    public Long getUnidadesPedidos() { return unidadesPedidos; }
+    public void setUnidadesPedidos(Long unidadesPedidos) { this.unidadesPedidos = unidadesPedidos; }
+
+    public Long getUnidadesVentasRapidas() { return unidadesVentasRapidas; }
+    public void setUnidadesVentasRapidas(Long unidadesVentasRapidas) { this.unidadesVentasRapidas = unidadesVentasRapidas; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
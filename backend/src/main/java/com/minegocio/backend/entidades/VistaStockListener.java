@@ -0,0 +1,30 @@
+package com.minegocio.backend.entidades;
+
+import com.minegocio.backend.servicios.VistaStockService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Marca en VistaStockService el producto afectado por cada alta, cambio o baja de Producto
+ * y StockPorSector hecha por JPA. Hibernate lo instancia como bean de Spring.
+ */
+public class VistaStockListener {
+
+    @Autowired
+    @Lazy
+    private VistaStockService vistaStockService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void marcar(Object entidad) {
+        if (entidad instanceof Producto producto) {
+            vistaStockService.marcar(producto.getId());
+        } else if (entidad instanceof StockPorSector stock && stock.getProducto() != null) {
+            vistaStockService.marcar(stock.getProducto().getId());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.minegocio.backend.entidades;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección desnormalizada del stock por ubicación para las pantallas de stock general:
+ * una fila por StockPorSector con cantidad > 0 y una fila sin sector con el stock sin
+ * sectorizar del producto. La mantiene VistaStockService al confirmar cada transacción
+ * que toca productos o stock por sector; no se edita directamente.
+ */
+@Entity
+@Table(name = "vista_stock_sector", indexes = {
+    @Index(name = "idx_vista_stock_empresa_nombre", columnList = "empresa_id, producto_nombre"),
+    @Index(name = "idx_vista_stock_empresa_sector", columnList = "empresa_id, sector_id"),
+    @Index(name = "idx_vista_stock_producto", columnList = "producto_id")
+})
+public class VistaStockSector {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    // Null en la fila de stock sin sectorizar
+    @Column(name = "sector_id")
+    private Long sectorId;
+
+    @Column(name = "sector_nombre", length = 100)
+    private String sectorNombre;
+
+    @Column(name = "stock_por_sector_id")
+    private Long stockPorSectorId;
+
+    @Column(name = "producto_nombre", nullable = false, length = 200)
+    private String productoNombre;
+
+    @Column(name = "codigo_personalizado", length = 50)
+    private String codigoPersonalizado;
+
+    @Column(name = "unidad_medida", length = 50)
+    private String unidadMedida;
+
+    @Column(name = "imagen_url", length = 500)
+    private String imagenUrl;
+
+    @Column(name = "producto_activo", nullable = false)
+    private Boolean productoActivo;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    // Constructores
+    public VistaStockSector() {}
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEmpresaId() { return empresaId; }
+    public void setEmpresaId(Long empresaId) { this.empresaId = empresaId; }
+
+    public Long getProductoId() { return productoId; }
+    public void setProductoId(Long productoId) { this.productoId = productoId; }
+
+    public Long getSectorId() { return sectorId; }
+    public void setSectorId(Long sectorId) { this.sectorId = sectorId; }
+
+    public String getSectorNombre() { return sectorNombre; }
+    public void setSectorNombre(String sectorNombre) { this.sectorNombre = sectorNombre; }
+
+    public Long getStockPorSectorId() { return stockPorSectorId; }
+    public void setStockPorSectorId(Long stockPorSectorId) { this.stockPorSectorId = stockPorSectorId; }
+
+    public String getProductoNombre() { return productoNombre; }
+    public void setProductoNombre(String productoNombre) { this.productoNombre = productoNombre; }
+
+    public String getCodigoPersonalizado() { return codigoPersonalizado; }
+    public void setCodigoPersonalizado(String codigoPersonalizado) { this.codigoPersonalizado = codigoPersonalizado; }
+
+    public String getUnidadMedida() { return unidadMedida; }
+    public void setUnidadMedida(String unidadMedida) { this.unidadMedida = unidadMedida; }
+
+    public String getImagenUrl() { return imagenUrl; }
+    public void setImagenUrl(String imagenUrl) { this.imagenUrl = imagenUrl; }
+
+    public Boolean getProductoActivo() { return productoActivo; }
+    public void setProductoActivo(Boolean productoActivo) { this.productoActivo = productoActivo; }
+
+    public Integer getCantidad() { return cantidad; }
+    public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -52,6 +52,12 @@ public interface ArchivoEmpresaRepository extends JpaRepository<ArchivoEmpresa,
     @Query("SELECT COALESCE(SUM(a.tamañoBytes), 0) FROM ArchivoEmpresa a WHERE a.empresa = :empresa AND a.activo = true")
     Long sumTamañoBytesByEmpresaAndActivoTrue(@Param("empresa") Empresa empresa);
 
+    /**
+     * Suma el tamaño de los archivos activos de varias empresas: filas [empresaId, bytes]
+     */
+    @Query("SELECT a.empresa.id, COALESCE(SUM(a.tamañoBytes), 0) FROM ArchivoEmpresa a WHERE a.empresa.id IN :empresaIds AND a.activo = true GROUP BY a.empresa.id")
+    List<Object[]> sumarTamañoActivosPorEmpresas(@Param("empresaIds") java.util.Collection<Long> empresaIds);
+
     /**
      * Suma el tamaño total de archivos activos por empresa y tipo
      */
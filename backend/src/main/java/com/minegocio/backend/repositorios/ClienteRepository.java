@@ -124,6 +124,18 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
      */
     long countByEmpresaId(Long empresaId);
 
+    /**
+     * Cuenta clientes de varias empresas: filas [empresaId, cantidad]
+     */
+    @Query("SELECT c.empresa.id, COUNT(c) FROM Cliente c WHERE c.empresa.id IN :empresaIds GROUP BY c.empresa.id")
+    List<Object[]> contarPorEmpresas(@Param("empresaIds") java.util.Collection<Long> empresaIds);
+
+    /**
+     * Cuenta clientes activos de varias empresas: filas [empresaId, cantidad]
+     */
+    @Query("SELECT c.empresa.id, COUNT(c) FROM Cliente c WHERE c.empresa.id IN :empresaIds AND c.activo = true GROUP BY c.empresa.id")
+    List<Object[]> contarActivosPorEmpresas(@Param("empresaIds") java.util.Collection<Long> empresaIds);
+
     /**
      * Cuenta clientes por empresa
      */
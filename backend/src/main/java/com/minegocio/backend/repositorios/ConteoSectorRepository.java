@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,4 +59,9 @@ public interface ConteoSectorRepository extends JpaRepository<ConteoSector, Long
     @Query("SELECT c FROM ConteoSector c WHERE c.inventarioCompleto = :inventario AND c.estado = 'ESPERANDO_VERIFICACION'")
     List<ConteoSector> findConteosPendientesVerificacion(@Param("inventario") InventarioCompleto inventario);
 
+    /**
+     * Ids de los conteos con progreso incremental armado, en los estados indicados
+     */
+    @Query("SELECT c.id FROM ConteoSector c WHERE c.progresoEnReconteo IS NOT NULL AND c.estado IN :estados")
+    List<Long> findIdsConProgresoPorEstado(@Param("estados") Collection<ConteoSector.EstadoConteo> estados);
 }
@@ -4,45 +4,57 @@ import com.minegocio.backend.entidades.DetalleConteo;
 import com.minegocio.backend.entidades.ConteoSector;
 import com.minegocio.backend.entidades.InventarioPorSector;
 import com.minegocio.backend.entidades.Producto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Los listados traen el producto en la misma consulta (@EntityGraph): la relación es LAZY
+ * y las pantallas de conteo leen nombre y código de cada fila
+ */
 @Repository
 public interface DetalleConteoRepository extends JpaRepository<DetalleConteo, Long> {
     
     /**
      * Buscar detalles de conteo por conteo de sector
      */
+    @EntityGraph(attributePaths = "producto")
     List<DetalleConteo> findByConteoSectorOrderByProductoNombre(ConteoSector conteoSector);
     
     /**
      * Buscar detalles de conteo por conteo de sector excluyendo eliminados
      */
+    @EntityGraph(attributePaths = "producto")
     List<DetalleConteo> findByConteoSectorAndEliminadoFalseOrderByProductoNombre(ConteoSector conteoSector);
     
     /**
      * Buscar detalles de conteo por inventario por sector
      */
+    @EntityGraph(attributePaths = "producto")
     List<DetalleConteo> findByInventarioPorSectorOrderByProductoNombre(InventarioPorSector inventarioPorSector);
     
     /**
      * Buscar detalles de conteo por inventario por sector excluyendo eliminados
      */
+    @EntityGraph(attributePaths = "producto")
     List<DetalleConteo> findByInventarioPorSectorAndEliminadoFalseOrderByProductoNombre(InventarioPorSector inventarioPorSector);
     
     /**
      * Buscar detalles de conteo por conteo de sector y estado
      */
+    @EntityGraph(attributePaths = "producto")
     List<DetalleConteo> findByConteoSectorAndEstadoOrderByProductoNombre(ConteoSector conteoSector, DetalleConteo.EstadoDetalle estado);
     
     /**
      * Buscar detalles de conteo por inventario por sector y estado
      */
+    @EntityGraph(attributePaths = "producto")
     List<DetalleConteo> findByInventarioPorSectorAndEstadoOrderByProductoNombre(InventarioPorSector inventarioPorSector, DetalleConteo.EstadoDetalle estado);
     
     /**
@@ -58,12 +70,14 @@ public interface DetalleConteoRepository extends JpaRepository<DetalleConteo, Lo
     /**
      * Buscar detalles de conteo con diferencias por conteo de sector (excluyendo eliminados)
      */
+    @EntityGraph(attributePaths = "producto")
     @Query("SELECT d FROM DetalleConteo d WHERE d.conteoSector = :conteoSector AND d.diferenciaEntreConteos != 0 AND d.eliminado = false")
     List<DetalleConteo> findDetallesConDiferencias(@Param("conteoSector") ConteoSector conteoSector);
     
     /**
      * Buscar detalles de conteo con diferencias por inventario por sector (excluyendo eliminados)
      */
+    @EntityGraph(attributePaths = "producto")
     @Query("SELECT d FROM DetalleConteo d WHERE d.inventarioPorSector = :inventarioPorSector AND d.diferenciaEntreConteos != 0 AND d.eliminado = false")
     List<DetalleConteo> findDetallesConDiferenciasPorInventario(@Param("inventarioPorSector") InventarioPorSector inventarioPorSector);
     
@@ -92,5 +106,15 @@ public interface DetalleConteoRepository extends JpaRepository<DetalleConteo, Lo
      * Buscar detalles de conteo por conteo de sector, producto y que no estén eliminados
      */
     List<DetalleConteo> findByConteoSectorAndProductoAndEliminadoFalse(ConteoSector conteoSector, Producto producto);
+    
+    /**
+     * Totales por conteo de sector y producto de un inventario completo (filas no eliminadas):
+     * [conteoSectorId, productoId, suma cantidadConteo1, suma cantidadConteo2, cantidad de filas]
+     */
+    @Query("SELECT d.conteoSector.id, d.producto.id, SUM(d.cantidadConteo1), SUM(d.cantidadConteo2), COUNT(d) " +
+           "FROM DetalleConteo d WHERE d.conteoSector.inventarioCompleto.id = :inventarioId " +
+           "AND d.producto.id IN :productoIds AND d.eliminado = false " +
+           "GROUP BY d.conteoSector.id, d.producto.id")
+    List<Object[]> sumarPorSectorYProducto(@Param("inventarioId") Long inventarioId, @Param("productoIds") Collection<Long> productoIds);
 }
 
@@ -0,0 +1,67 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.EmailPendiente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la cola de salida de emails
+ */
+@Repository
+public interface EmailPendienteRepository extends JpaRepository<EmailPendiente, Long> {
+
+    /**
+     * Emails cuyo próximo intento ya venció, los más atrasados primero
+     */
+    @Query("SELECT e.id FROM EmailPendiente e WHERE e.estado = 'PENDIENTE' AND e.proximoIntento <= :ahora ORDER BY e.proximoIntento ASC")
+    List<Long> findIdsListosParaEnviar(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    /**
+     * Toma un email para enviarlo. Devuelve 0 si otro nodo lo tomó antes.
+     */
+    @Modifying
+    @Query("UPDATE EmailPendiente e SET e.estado = 'ENVIANDO', e.fechaReclamo = :ahora WHERE e.id = :id AND e.estado = 'PENDIENTE'")
+    int reclamar(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Devuelve a la cola los emails tomados por un nodo que no terminó de enviarlos (reinicio, caída)
+     */
+    @Modifying
+    @Query("UPDATE EmailPendiente e SET e.estado = 'PENDIENTE', e.fechaReclamo = NULL WHERE e.estado = 'ENVIANDO' AND e.fechaReclamo < :limite")
+    int liberarReclamados(@Param("limite") LocalDateTime limite);
+
+    /**
+     * Indica si ya hay un email con la misma clave en curso o enviado desde una fecha
+     */
+    @Query("SELECT COUNT(e) > 0 FROM EmailPendiente e WHERE e.claveDeduplicacion = :clave AND e.fechaCreacion >= :desde " +
+           "AND e.estado IN ('PENDIENTE', 'ENVIANDO', 'ENVIADO')")
+    boolean existeConClave(@Param("clave") String clave, @Param("desde") LocalDateTime desde);
+
+    /**
+     * Indica si otro email con la misma clave ya fue enviado o se está enviando. Entre dos copias
+     * tomadas a la vez sigue la de menor id, así siempre sale una.
+     */
+    @Query("SELECT COUNT(e) > 0 FROM EmailPendiente e WHERE e.claveDeduplicacion = :clave AND e.id <> :id " +
+           "AND (e.estado = 'ENVIADO' OR (e.estado = 'ENVIANDO' AND e.id < :id))")
+    boolean existeOtroEnviadoOEnCurso(@Param("clave") String clave, @Param("id") Long id);
+
+    /**
+     * Cantidad de emails por estado
+     */
+    @Query("SELECT e.estado, COUNT(e) FROM EmailPendiente e GROUP BY e.estado")
+    List<Object[]> contarPorEstado();
+
+    /**
+     * Elimina los emails terminados (enviados, fallidos o descartados) anteriores a una fecha
+     */
+    @Modifying
+    @Query("DELETE FROM EmailPendiente e WHERE e.estado IN ('ENVIADO', 'FALLIDO', 'DESCARTADO') AND e.fechaCreacion < :limite")
+    int eliminarTerminadosAnteriores(@Param("limite") LocalDateTime limite);
+}
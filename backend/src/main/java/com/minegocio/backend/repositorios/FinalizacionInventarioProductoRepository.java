@@ -0,0 +1,23 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.FinalizacionInventarioProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio del resultado por producto de las finalizaciones de inventario
+ */
+@Repository
+public interface FinalizacionInventarioProductoRepository extends JpaRepository<FinalizacionInventarioProducto, Long> {
+
+    List<FinalizacionInventarioProducto> findByFinalizacionIdOrderByOrden(Long finalizacionId);
+
+    @Modifying
+    @Query("DELETE FROM FinalizacionInventarioProducto p WHERE p.finalizacionId = :finalizacionId")
+    int eliminarPorFinalizacion(@Param("finalizacionId") Long finalizacionId);
+}
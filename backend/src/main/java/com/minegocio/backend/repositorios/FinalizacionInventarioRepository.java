@@ -0,0 +1,42 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.FinalizacionInventario;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio de las finalizaciones de inventario por lotes (las ejecuta FinalizacionInventarioService)
+ */
+@Repository
+public interface FinalizacionInventarioRepository extends JpaRepository<FinalizacionInventario, Long> {
+
+    Optional<FinalizacionInventario> findByInventarioCompletoId(Long inventarioCompletoId);
+
+    /**
+     * Bloquea la fila mientras se confirma un lote (dos ejecuciones no aplican el mismo lote)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FinalizacionInventario f WHERE f.id = :id")
+    Optional<FinalizacionInventario> bloquear(@Param("id") Long id);
+
+    /**
+     * Toma una finalización para reanudarla: si terminó con error o quedó EN_PROCESO sin avanzar
+     * desde antes de limite (proceso cortado). Devuelve 0 si otro proceso la está ejecutando.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE FinalizacionInventario f SET f.estado = :enProceso, f.mensajeError = NULL, f.fechaActualizacion = :ahora " +
+           "WHERE f.id = :id AND (f.estado = :error OR (f.estado = :enProceso AND f.fechaActualizacion < :limite))")
+    int tomarParaReanudar(@Param("id") Long id,
+                          @Param("enProceso") FinalizacionInventario.EstadoFinalizacion enProceso,
+                          @Param("error") FinalizacionInventario.EstadoFinalizacion error,
+                          @Param("ahora") LocalDateTime ahora,
+                          @Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,14 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.IndiceEmpresa;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para las marcas de índices derivados ya construidos por empresa
+ */
+@Repository
+public interface IndiceEmpresaRepository extends JpaRepository<IndiceEmpresa, Long> {
+
+    boolean existsByEmpresaIdAndTipo(Long empresaId, IndiceEmpresa.TipoIndice tipo);
+}
@@ -164,16 +164,24 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
      * Cuenta pedidos por empresa ID
      */
     long countByEmpresaId(Long empresaId);
+
+    /**
+     * Cuenta pedidos de varias empresas: filas [empresaId, cantidad]
+     */
+    @Query("SELECT p.empresa.id, COUNT(p) FROM Pedido p WHERE p.empresa.id IN :empresaIds GROUP BY p.empresa.id")
+    List<Object[]> contarPorEmpresas(@Param("empresaIds") java.util.Collection<Long> empresaIds);
     
     /**
-     * Busca pedidos por empresa con detalles cargados (para estadísticas)
+     * Cantidad de pedidos y total facturado por estado en un rango de fechas: [estado, cantidad, total]
      */
-    @Query("SELECT DISTINCT p FROM Pedido p LEFT JOIN FETCH p.detalles WHERE p.empresa = :empresa ORDER BY p.fechaCreacion DESC")
-    List<Pedido> findByEmpresaWithDetallesOrderByFechaCreacionDesc(@Param("empresa") Empresa empresa);
+    @Query("SELECT p.estado, COUNT(p), COALESCE(SUM(p.total), 0) FROM Pedido p WHERE p.empresa = :empresa " +
+           "AND p.fechaCreacion BETWEEN :fechaInicio AND :fechaFin GROUP BY p.estado")
+    List<Object[]> resumirPorEstadoEnRango(@Param("empresa") Empresa empresa, @Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
     
     /**
-     * Busca pedidos por empresa y rango de fechas con detalles cargados (para estadísticas)
+     * Unidades pedidas y renglones de detalle por estado del pedido en un rango de fechas: [estado, unidades, lineas]
      */
-    @Query("SELECT DISTINCT p FROM Pedido p LEFT JOIN FETCH p.detalles WHERE p.empresa = :empresa AND p.fechaCreacion BETWEEN :fechaInicio AND :fechaFin ORDER BY p.fechaCreacion DESC")
-    List<Pedido> findByEmpresaAndFechaCreacionBetweenWithDetalles(@Param("empresa") Empresa empresa, @Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
+    @Query("SELECT p.estado, COALESCE(SUM(d.cantidad), 0), COUNT(d) FROM DetallePedido d JOIN d.pedido p WHERE p.empresa = :empresa " +
+           "AND p.fechaCreacion BETWEEN :fechaInicio AND :fechaFin GROUP BY p.estado")
+    List<Object[]> sumarUnidadesPorEstadoEnRango(@Param("empresa") Empresa empresa, @Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
 }
@@ -127,6 +127,77 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
                                    @Param("precioMax") BigDecimal precioMax,
                                    Pageable pageable);
 
+    /**
+     * Filtros comunes del catálogo público (productos activos de la empresa)
+     */
+    String FILTRO_CATALOGO_PUBLICO = "WHERE p.empresa.id = :empresaId AND p.activo = true " +
+           "AND (:categoria IS NULL OR p.categoria = :categoria) " +
+           "AND (:marca IS NULL OR p.marca = :marca) " +
+           "AND (:patron IS NULL OR p.textoBusqueda LIKE :patron) ";
+
+    /**
+     * Catálogo público ordenado por nombre (paginación por cursor sobre nombre, id)
+     */
+    @Query("SELECT p FROM Producto p " + FILTRO_CATALOGO_PUBLICO +
+           "AND (:cursorId IS NULL OR p.nombre > :cursorNombre OR (p.nombre = :cursorNombre AND p.id > :cursorId)) " +
+           "ORDER BY p.nombre ASC, p.id ASC")
+    List<Producto> buscarCatalogoPublicoPorNombre(@Param("empresaId") Long empresaId,
+                                                   @Param("categoria") String categoria,
+                                                   @Param("marca") String marca,
+                                                   @Param("patron") String patron,
+                                                   @Param("cursorNombre") String cursorNombre,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    /**
+     * Catálogo público ordenado por precio ascendente (cursor sobre precio, id)
+     */
+    @Query("SELECT p FROM Producto p " + FILTRO_CATALOGO_PUBLICO +
+           "AND (:cursorId IS NULL OR COALESCE(p.precio, 0) > :cursorPrecio " +
+           "OR (COALESCE(p.precio, 0) = :cursorPrecio AND p.id > :cursorId)) " +
+           "ORDER BY COALESCE(p.precio, 0) ASC, p.id ASC")
+    List<Producto> buscarCatalogoPublicoPorPrecioAsc(@Param("empresaId") Long empresaId,
+                                                      @Param("categoria") String categoria,
+                                                      @Param("marca") String marca,
+                                                      @Param("patron") String patron,
+                                                      @Param("cursorPrecio") BigDecimal cursorPrecio,
+                                                      @Param("cursorId") Long cursorId,
+                                                      Pageable pageable);
+
+    /**
+     * Catálogo público ordenado por precio descendente (cursor sobre precio, id)
+     */
+    @Query("SELECT p FROM Producto p " + FILTRO_CATALOGO_PUBLICO +
+           "AND (:cursorId IS NULL OR COALESCE(p.precio, 0) < :cursorPrecio " +
+           "OR (COALESCE(p.precio, 0) = :cursorPrecio AND p.id < :cursorId)) " +
+           "ORDER BY COALESCE(p.precio, 0) DESC, p.id DESC")
+    List<Producto> buscarCatalogoPublicoPorPrecioDesc(@Param("empresaId") Long empresaId,
+                                                       @Param("categoria") String categoria,
+                                                       @Param("marca") String marca,
+                                                       @Param("patron") String patron,
+                                                       @Param("cursorPrecio") BigDecimal cursorPrecio,
+                                                       @Param("cursorId") Long cursorId,
+                                                       Pageable pageable);
+
+    /**
+     * Catálogo público ordenado por más recientes (cursor sobre id)
+     */
+    @Query("SELECT p FROM Producto p " + FILTRO_CATALOGO_PUBLICO +
+           "AND (:cursorId IS NULL OR p.id < :cursorId) " +
+           "ORDER BY p.id DESC")
+    List<Producto> buscarCatalogoPublicoRecientes(@Param("empresaId") Long empresaId,
+                                                   @Param("categoria") String categoria,
+                                                   @Param("marca") String marca,
+                                                   @Param("patron") String patron,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    /**
+     * Productos sin texto de búsqueda calculado (creados antes de existir la columna)
+     */
+    @Query("SELECT p FROM Producto p WHERE p.textoBusqueda IS NULL")
+    List<Producto> findSinTextoBusqueda(Pageable pageable);
+
     /**
      * Busca productos activos por empresa usando ID
      */
@@ -179,6 +250,12 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      */
     @Query("SELECT DISTINCT p.codigoPersonalizado FROM Producto p WHERE p.empresa = :empresa AND p.codigoPersonalizado IS NOT NULL ORDER BY p.codigoPersonalizado")
     List<String> findCodigosPersonalizadosPorEmpresa(@Param("empresa") Empresa empresa);
+
+    /**
+     * Códigos personalizados usados por una empresa (para validar importaciones sin consultar por fila)
+     */
+    @Query("SELECT DISTINCT p.codigoPersonalizado FROM Producto p WHERE p.empresa.id = :empresaId AND p.codigoPersonalizado IS NOT NULL")
+    List<String> findCodigosPersonalizadosByEmpresaId(@Param("empresaId") Long empresaId);
     
     /**
      * Busca productos por empresa ID y código personalizado
@@ -211,6 +288,18 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      */
     List<Producto> findByEmpresaId(Long empresaId);
     
+    /**
+     * Obtiene solo los IDs de TODOS los productos de una empresa (sin materializar entidades)
+     */
+    @Query("SELECT p.id FROM Producto p WHERE p.empresa.id = :empresaId")
+    List<Long> findIdsByEmpresaId(@Param("empresaId") Long empresaId);
+    
+    /**
+     * Obtiene [id, stock] de TODOS los productos de una empresa (sin materializar entidades)
+     */
+    @Query("SELECT p.id, p.stock FROM Producto p WHERE p.empresa.id = :empresaId")
+    List<Object[]> findStockPorEmpresaId(@Param("empresaId") Long empresaId);
+    
     /**
      * Busca TODOS los productos por empresa ID con paginación (activos e inactivos)
      */
@@ -236,6 +325,17 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      */
     Long countByEmpresaAndActivoTrue(Empresa empresa);
 
+    /**
+     * Cuenta productos activos por empresa ID
+     */
+    long countByEmpresaIdAndActivoTrue(Long empresaId);
+
+    /**
+     * Cuenta productos activos de varias empresas: filas [empresaId, cantidad]
+     */
+    @Query("SELECT p.empresa.id, COUNT(p) FROM Producto p WHERE p.empresa.id IN :empresaIds AND p.activo = true GROUP BY p.empresa.id")
+    List<Object[]> contarActivosPorEmpresas(@Param("empresaIds") java.util.Collection<Long> empresaIds);
+
     /**
      * Verifica si existe un producto con el mismo nombre en la empresa
      */
@@ -0,0 +1,26 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.ProgresoConteoProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio del progreso por producto de los conteos de sector (lo escribe ProgresoConteoService)
+ */
+@Repository
+public interface ProgresoConteoProductoRepository extends JpaRepository<ProgresoConteoProducto, Long> {
+
+    Optional<ProgresoConteoProducto> findByConteoSectorIdAndProductoId(Long conteoSectorId, Long productoId);
+
+    List<ProgresoConteoProducto> findByConteoSectorId(Long conteoSectorId);
+
+    @Modifying
+    @Query("DELETE FROM ProgresoConteoProducto p WHERE p.conteoSectorId = :conteoSectorId")
+    int eliminarPorConteoSector(@Param("conteoSectorId") Long conteoSectorId);
+}
@@ -0,0 +1,108 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.ResumenVentasDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio del resumen diario de ventas por canal y estado
+ */
+@Repository
+public interface ResumenVentasDiarioRepository extends JpaRepository<ResumenVentasDiario, Long> {
+
+    /**
+     * Suma los deltas a un resumen existente. Devuelve 0 si el resumen todavía no existe.
+     */
+    @Modifying
+    @Query("UPDATE ResumenVentasDiario r SET " +
+           "r.cantidad = r.cantidad + :deltaCantidad, " +
+           "r.total = r.total + :deltaTotal, " +
+           "r.unidades = r.unidades + :deltaUnidades, " +
+           "r.lineas = r.lineas + :deltaLineas, " +
+           "r.fechaActualizacion = :ahora " +
+           "WHERE r.empresaId = :empresaId AND r.fecha = :fecha AND r.canal = :canal AND r.estado = :estado")
+    int incrementar(@Param("empresaId") Long empresaId,
+                    @Param("fecha") LocalDate fecha,
+                    @Param("canal") ResumenVentasDiario.Canal canal,
+                    @Param("estado") String estado,
+                    @Param("deltaCantidad") long deltaCantidad,
+                    @Param("deltaTotal") BigDecimal deltaTotal,
+                    @Param("deltaUnidades") long deltaUnidades,
+                    @Param("deltaLineas") long deltaLineas,
+                    @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Totales por estado de un canal entre dos días (inclusive): [estado, cantidad, total, unidades, lineas]
+     */
+    @Query("SELECT r.estado, SUM(r.cantidad), SUM(r.total), SUM(r.unidades), SUM(r.lineas) FROM ResumenVentasDiario r " +
+           "WHERE r.empresaId = :empresaId AND r.canal = :canal AND r.fecha BETWEEN :desde AND :hasta GROUP BY r.estado")
+    List<Object[]> resumirPorEstado(@Param("empresaId") Long empresaId,
+                                    @Param("canal") ResumenVentasDiario.Canal canal,
+                                    @Param("desde") LocalDate desde,
+                                    @Param("hasta") LocalDate hasta);
+
+    /**
+     * Totales por estado de un canal en todo el historial: [estado, cantidad, total, unidades, lineas]
+     */
+    @Query("SELECT r.estado, SUM(r.cantidad), SUM(r.total), SUM(r.unidades), SUM(r.lineas) FROM ResumenVentasDiario r " +
+           "WHERE r.empresaId = :empresaId AND r.canal = :canal GROUP BY r.estado")
+    List<Object[]> resumirHistoricoPorEstado(@Param("empresaId") Long empresaId,
+                                             @Param("canal") ResumenVentasDiario.Canal canal);
+
+    /**
+     * Elimina el resumen de una empresa antes de reconstruirlo
+     */
+    @Modifying
+    @Query("DELETE FROM ResumenVentasDiario r WHERE r.empresaId = :empresaId")
+    void eliminarPorEmpresa(@Param("empresaId") Long empresaId);
+
+    /**
+     * Agregación del historial de pedidos por día y estado:
+     * [dia, estado, cantidad, total, unidades, lineas]
+     */
+    @Query(value = "SELECT CAST(p.fecha_creacion AS DATE), p.estado, COUNT(*), COALESCE(SUM(p.total), 0), " +
+                   "COALESCE(SUM(d.unidades), 0), COALESCE(SUM(d.lineas), 0) " +
+                   "FROM pedidos p LEFT JOIN (" +
+                   "SELECT dp.pedido_id AS pedido_id, SUM(dp.cantidad) AS unidades, COUNT(*) AS lineas " +
+                   "FROM detalle_pedidos dp JOIN pedidos px ON px.id = dp.pedido_id " +
+                   "WHERE px.empresa_id = :empresaId GROUP BY dp.pedido_id" +
+                   ") d ON d.pedido_id = p.id " +
+                   "WHERE p.empresa_id = :empresaId " +
+                   "GROUP BY CAST(p.fecha_creacion AS DATE), p.estado", nativeQuery = true)
+    List<Object[]> agregarPedidosPorDia(@Param("empresaId") Long empresaId);
+
+    /**
+     * Agregación del historial de ventas rápidas por día: [dia, cantidad, total, unidades, lineas]
+     */
+    @Query(value = "SELECT CAST(v.fecha_venta AS DATE), COUNT(*), COALESCE(SUM(v.total), 0), " +
+                   "COALESCE(SUM(d.unidades), 0), COALESCE(SUM(d.lineas), 0) " +
+                   "FROM ventas_rapidas v LEFT JOIN (" +
+                   "SELECT dv.venta_rapida_id AS venta_rapida_id, SUM(dv.cantidad) AS unidades, COUNT(*) AS lineas " +
+                   "FROM detalles_venta_rapida dv JOIN ventas_rapidas vx ON vx.id = dv.venta_rapida_id " +
+                   "WHERE vx.empresa_id = :empresaId GROUP BY dv.venta_rapida_id" +
+                   ") d ON d.venta_rapida_id = v.id " +
+                   "WHERE v.empresa_id = :empresaId " +
+                   "GROUP BY CAST(v.fecha_venta AS DATE)", nativeQuery = true)
+    List<Object[]> agregarVentasRapidasPorDia(@Param("empresaId") Long empresaId);
+
+    /**
+     * Empresas con pedidos o ventas rápidas sin la marca RESUMEN_VENTAS_DIARIO en indices_empresa
+     * (el resumen nunca se construyó desde el historial, aunque ya tenga filas de incrementos)
+     */
+    @Query(value = "SELECT p.empresa_id FROM pedidos p " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM indices_empresa i WHERE i.empresa_id = p.empresa_id " +
+                   "AND i.tipo = 'RESUMEN_VENTAS_DIARIO') " +
+                   "UNION " +
+                   "SELECT v.empresa_id FROM ventas_rapidas v " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM indices_empresa i WHERE i.empresa_id = v.empresa_id " +
+                   "AND i.tipo = 'RESUMEN_VENTAS_DIARIO')", nativeQuery = true)
+    List<Number> findEmpresasSinResumen();
+}
@@ -0,0 +1,16 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.SecuenciaDocumento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repositorio para los contadores de numeración de documentos
+ */
+@Repository
+public interface SecuenciaDocumentoRepository extends JpaRepository<SecuenciaDocumento, Long> {
+
+    Optional<SecuenciaDocumento> findByEmpresaIdAndTipo(Long empresaId, SecuenciaDocumento.TipoDocumento tipo);
+}
@@ -0,0 +1,34 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.SnapshotDashboardSuperAdmin;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio de las versiones del dashboard del super admin (lo mantiene DashboardSuperAdminSnapshotService)
+ */
+@Repository
+public interface SnapshotDashboardSuperAdminRepository extends JpaRepository<SnapshotDashboardSuperAdmin, Long> {
+
+    Optional<SnapshotDashboardSuperAdmin> findFirstByOrderByVersionDesc();
+
+    /**
+     * Versión y fecha de cálculo de la última foto, sin traer los datos: filas [version, fechaCalculo]
+     */
+    @Query("SELECT s.version, s.fechaCalculo FROM SnapshotDashboardSuperAdmin s " +
+           "WHERE s.version = (SELECT MAX(s2.version) FROM SnapshotDashboardSuperAdmin s2)")
+    List<Object[]> findUltimaVersion();
+
+    /**
+     * Borra las versiones anteriores a la indicada
+     */
+    @Modifying
+    @Query("DELETE FROM SnapshotDashboardSuperAdmin s WHERE s.version < :version")
+    int eliminarAnterioresA(@Param("version") Long version);
+}
@@ -0,0 +1,115 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.StockDiarioProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para el libro diario de stock por producto
+ */
+@Repository
+public interface StockDiarioProductoRepository extends JpaRepository<StockDiarioProducto, Long> {
+
+    /**
+     * Suma los deltas a la fila del día. Devuelve 0 si el producto todavía no tiene fila ese día.
+     */
+    @Modifying
+    @Query("UPDATE StockDiarioProducto s SET " +
+           "s.ingresos = s.ingresos + :ingresos, " +
+           "s.devoluciones = s.devoluciones + :devoluciones, " +
+           "s.salidas = s.salidas + :salidas, " +
+           "s.roturas = s.roturas + :roturas, " +
+           "s.stockCierre = s.stockCierre + :efecto, " +
+           "s.ultimoMovimiento = CASE WHEN s.ultimoMovimiento IS NULL OR s.ultimoMovimiento < :momento " +
+           "THEN :momento ELSE s.ultimoMovimiento END, " +
+           "s.fechaActualizacion = :ahora " +
+           "WHERE s.empresaId = :empresaId AND s.productoId = :productoId AND s.fecha = :fecha")
+    int acumular(@Param("empresaId") Long empresaId,
+                 @Param("productoId") Long productoId,
+                 @Param("fecha") LocalDate fecha,
+                 @Param("ingresos") int ingresos,
+                 @Param("devoluciones") int devoluciones,
+                 @Param("salidas") int salidas,
+                 @Param("roturas") int roturas,
+                 @Param("efecto") int efecto,
+                 @Param("momento") LocalDateTime momento,
+                 @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Un movimiento con fecha pasada desplaza la apertura y el cierre de los días posteriores del producto
+     */
+    @Modifying
+    @Query("UPDATE StockDiarioProducto s SET s.stockApertura = s.stockApertura + :efecto, " +
+           "s.stockCierre = s.stockCierre + :efecto " +
+           "WHERE s.empresaId = :empresaId AND s.productoId = :productoId AND s.fecha > :fecha")
+    int desplazarPosteriores(@Param("empresaId") Long empresaId,
+                             @Param("productoId") Long productoId,
+                             @Param("fecha") LocalDate fecha,
+                             @Param("efecto") int efecto);
+
+    /**
+     * Último día del producto anterior a la fecha (su cierre es la apertura del día nuevo)
+     */
+    Optional<StockDiarioProducto> findFirstByEmpresaIdAndProductoIdAndFechaLessThanOrderByFechaDesc(
+            Long empresaId, Long productoId, LocalDate fecha);
+
+    /**
+     * Primer día del producto posterior a la fecha
+     */
+    Optional<StockDiarioProducto> findFirstByEmpresaIdAndProductoIdAndFechaGreaterThanOrderByFechaAsc(
+            Long empresaId, Long productoId, LocalDate fecha);
+
+    /**
+     * Movimientos por producto entre dos días (inclusive), solo de los productos con movimientos.
+     * Devuelve [productoId, nombre, codigoPersonalizado, ingresos, devoluciones, salidas, roturas, ultimoMovimiento].
+     */
+    @Query("SELECT s.productoId, p.nombre, p.codigoPersonalizado, SUM(s.ingresos), SUM(s.devoluciones), " +
+           "SUM(s.salidas), SUM(s.roturas), MAX(s.ultimoMovimiento) " +
+           "FROM StockDiarioProducto s, Producto p " +
+           "WHERE p.id = s.productoId AND s.empresaId = :empresaId AND s.fecha BETWEEN :fechaInicio AND :fechaFin " +
+           "GROUP BY s.productoId, p.nombre, p.codigoPersonalizado ORDER BY p.nombre")
+    List<Object[]> sumarMovimientosPorProducto(@Param("empresaId") Long empresaId,
+                                               @Param("fechaInicio") LocalDate fechaInicio,
+                                               @Param("fechaFin") LocalDate fechaFin);
+
+    /**
+     * Elimina el libro de una empresa antes de reconstruirlo
+     */
+    @Modifying
+    @Query("DELETE FROM StockDiarioProducto s WHERE s.empresaId = :empresaId")
+    void eliminarPorEmpresa(@Param("empresaId") Long empresaId);
+
+    /**
+     * Agregación única del historial de remitos, devoluciones en buen estado, planillas de pedido y roturas,
+     * agrupada por producto y día. Devuelve [productoId, dia, ingresos, devoluciones, salidas, roturas, ultimoMovimiento].
+     */
+    @Query(value = "SELECT t.producto_id, t.dia, SUM(t.ingresos), SUM(t.devoluciones), SUM(t.salidas), SUM(t.roturas), " +
+                   "MAX(t.momento) FROM (" +
+                   "SELECT d.producto_id AS producto_id, CAST(r.fecha_remito AS DATE) AS dia, d.cantidad AS ingresos, " +
+                   "0 AS devoluciones, 0 AS salidas, 0 AS roturas, r.fecha_remito AS momento " +
+                   "FROM detalles_remito_ingreso d JOIN remitos_ingreso r ON r.id = d.remito_ingreso_id " +
+                   "WHERE r.empresa_id = :empresaId AND d.producto_id IS NOT NULL " +
+                   "UNION ALL " +
+                   "SELECT d.producto_id, CAST(p.fecha_planilla AS DATE), 0, d.cantidad, 0, 0, p.fecha_planilla " +
+                   "FROM detalle_planillas_devoluciones d JOIN planillas_devoluciones p ON p.id = d.planilla_devolucion_id " +
+                   "WHERE p.empresa_id = :empresaId AND d.producto_id IS NOT NULL " +
+                   "AND (d.estado_producto IS NULL OR d.estado_producto = 'BUEN_ESTADO') " +
+                   "UNION ALL " +
+                   "SELECT d.producto_id, CAST(p.fecha_planilla AS DATE), 0, 0, d.cantidad, 0, p.fecha_planilla " +
+                   "FROM detalle_planillas_pedidos d JOIN planillas_pedidos p ON p.id = d.planilla_pedido_id " +
+                   "WHERE p.empresa_id = :empresaId AND d.producto_id IS NOT NULL " +
+                   "UNION ALL " +
+                   "SELECT r.producto_id, CAST(r.fecha AS DATE), 0, 0, 0, r.cantidad, r.fecha " +
+                   "FROM roturas_perdidas r " +
+                   "WHERE r.empresa_id = :empresaId AND r.producto_id IS NOT NULL" +
+                   ") t GROUP BY t.producto_id, t.dia ORDER BY t.producto_id, t.dia", nativeQuery = true)
+    List<Object[]> agregarHistorialPorDia(@Param("empresaId") Long empresaId);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,12 @@ public interface StockPorSectorRepository extends JpaRepository<StockPorSector,
      */
     List<StockPorSector> findByProductoId(Long productoId);
     
+    /**
+     * Obtiene los stocks de varios productos en una consulta (con su sector)
+     */
+    @Query("SELECT sps FROM StockPorSector sps JOIN FETCH sps.sector WHERE sps.producto.id IN :productoIds")
+    List<StockPorSector> findByProductoIdIn(@Param("productoIds") Collection<Long> productoIds);
+    
     /**
      * Obtiene todos los stocks de un sector
      */
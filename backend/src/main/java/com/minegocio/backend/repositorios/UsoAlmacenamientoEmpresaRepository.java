@@ -0,0 +1,37 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.UsoAlmacenamientoEmpresa;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio del uso de almacenamiento por empresa (lo mantiene UsoAlmacenamientoService)
+ */
+@Repository
+public interface UsoAlmacenamientoEmpresaRepository extends JpaRepository<UsoAlmacenamientoEmpresa, Long> {
+
+    Optional<UsoAlmacenamientoEmpresa> findByEmpresaId(Long empresaId);
+
+    /**
+     * Empresas cuya base de datos hay que medir: primero las nunca medidas, después las más viejas
+     */
+    @Query("SELECT u.empresaId FROM UsoAlmacenamientoEmpresa u " +
+           "WHERE u.fechaBaseDatos IS NULL OR u.fechaBaseDatos < :medidasAntesDe " +
+           "ORDER BY CASE WHEN u.fechaBaseDatos IS NULL THEN 0 ELSE 1 END, u.fechaBaseDatos")
+    List<Long> findEmpresasParaMedir(@Param("medidasAntesDe") LocalDateTime medidasAntesDe, Pageable pageable);
+
+    /**
+     * Pide volver a medir la base de datos de todas las empresas
+     */
+    @Modifying
+    @Query("UPDATE UsoAlmacenamientoEmpresa u SET u.fechaBaseDatos = NULL")
+    int marcarTodasParaMedir();
+}
@@ -57,6 +57,12 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     @Query("SELECT COUNT(u) FROM Usuario u WHERE u.empresa = :empresa AND u.activo = true")
     Long contarUsuariosActivosPorEmpresa(@Param("empresa") Empresa empresa);
 
+    /**
+     * Cuenta usuarios activos de varias empresas: filas [empresaId, cantidad]
+     */
+    @Query("SELECT u.empresa.id, COUNT(u) FROM Usuario u WHERE u.empresa.id IN :empresaIds AND u.activo = true GROUP BY u.empresa.id")
+    List<Object[]> contarActivosPorEmpresas(@Param("empresaIds") java.util.Collection<Long> empresaIds);
+
     /**
      * Busca administradores de una empresa
      */
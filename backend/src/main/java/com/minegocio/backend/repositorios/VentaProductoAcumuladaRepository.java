@@ -0,0 +1,68 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.VentaProductoAcumulada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para los contadores de ventas por producto
+ */
+@Repository
+public interface VentaProductoAcumuladaRepository extends JpaRepository<VentaProductoAcumulada, Long> {
+
+    /**
+     * Suma unidades a un contador existente. Devuelve 0 si el contador todavía no existe.
+     */
+    @Modifying
+    @Query("UPDATE VentaProductoAcumulada v SET " +
+           "v.unidadesPedidos = v.unidadesPedidos + :deltaPedidos, " +
+           "v.unidadesVentasRapidas = v.unidadesVentasRapidas + :deltaVentasRapidas, " +
+           "v.fechaActualizacion = :ahora " +
+           "WHERE v.empresaId = :empresaId AND v.productoId = :productoId " +
+           "AND v.periodo = :periodo AND v.clavePeriodo = :clavePeriodo")
+    int incrementar(@Param("empresaId") Long empresaId,
+                    @Param("productoId") Long productoId,
+                    @Param("periodo") VentaProductoAcumulada.Periodo periodo,
+                    @Param("clavePeriodo") String clavePeriodo,
+                    @Param("deltaPedidos") long deltaPedidos,
+                    @Param("deltaVentasRapidas") long deltaVentasRapidas,
+                    @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Obtiene [productoId, unidadesPedidos, unidadesVentasRapidas] de un bucket sin materializar entidades
+     */
+    @Query("SELECT v.productoId, v.unidadesPedidos, v.unidadesVentasRapidas FROM VentaProductoAcumulada v " +
+           "WHERE v.empresaId = :empresaId AND v.periodo = :periodo AND v.clavePeriodo = :clavePeriodo")
+    List<Object[]> findContadoresPorPeriodo(@Param("empresaId") Long empresaId,
+                                            @Param("periodo") VentaProductoAcumulada.Periodo periodo,
+                                            @Param("clavePeriodo") String clavePeriodo);
+
+    /**
+     * Elimina todos los contadores de una empresa antes de reconstruirlos
+     */
+    @Modifying
+    @Query("DELETE FROM VentaProductoAcumulada v WHERE v.empresaId = :empresaId")
+    void eliminarPorEmpresa(@Param("empresaId") Long empresaId);
+
+    /**
+     * Agregación única del historial de pedidos (no cancelados) y ventas rápidas,
+     * agrupada por producto y día. Devuelve [productoId, dia, unidadesPedidos, unidadesVentasRapidas].
+     */
+    @Query(value = "SELECT t.producto_id, t.dia, SUM(t.unidades_pedidos), SUM(t.unidades_ventas_rapidas) FROM (" +
+                   "SELECT dp.producto_id AS producto_id, CAST(p.fecha_creacion AS DATE) AS dia, " +
+                   "dp.cantidad AS unidades_pedidos, 0 AS unidades_ventas_rapidas " +
+                   "FROM detalle_pedidos dp JOIN pedidos p ON p.id = dp.pedido_id " +
+                   "WHERE p.empresa_id = :empresaId AND p.estado <> 'CANCELADO' " +
+                   "UNION ALL " +
+                   "SELECT dv.producto_id, CAST(v.fecha_venta AS DATE), 0, dv.cantidad " +
+                   "FROM detalles_venta_rapida dv JOIN ventas_rapidas v ON v.id = dv.venta_rapida_id " +
+                   "WHERE v.empresa_id = :empresaId" +
+                   ") t GROUP BY t.producto_id, t.dia", nativeQuery = true)
+    List<Object[]> agregarHistorialVentasPorDia(@Param("empresaId") Long empresaId);
+}
@@ -51,6 +51,26 @@ public interface VentaRapidaRepository extends JpaRepository<VentaRapida, Long>
         @Param("fechaInicio") LocalDateTime fechaInicio, 
         @Param("fechaFin") LocalDateTime fechaFin);
 
+    /**
+     * Cantidad y total de ventas rápidas en un rango de fechas: [cantidad, total]
+     */
+    @Query("SELECT COUNT(v), COALESCE(SUM(v.total), 0) FROM VentaRapida v " +
+           "WHERE v.empresa.id = :empresaId AND v.fechaVenta BETWEEN :fechaInicio AND :fechaFin")
+    List<Object[]> resumirEnRango(
+        @Param("empresaId") Long empresaId,
+        @Param("fechaInicio") LocalDateTime fechaInicio,
+        @Param("fechaFin") LocalDateTime fechaFin);
+
+    /**
+     * Unidades y renglones de detalle de ventas rápidas en un rango de fechas: [unidades, lineas]
+     */
+    @Query("SELECT COALESCE(SUM(d.cantidad), 0), COUNT(d) FROM DetalleVentaRapida d " +
+           "WHERE d.ventaRapida.empresa.id = :empresaId AND d.ventaRapida.fechaVenta BETWEEN :fechaInicio AND :fechaFin")
+    List<Object[]> sumarUnidadesEnRango(
+        @Param("empresaId") Long empresaId,
+        @Param("fechaInicio") LocalDateTime fechaInicio,
+        @Param("fechaFin") LocalDateTime fechaFin);
+
     /**
      * Busca ventas rápidas por número de comprobante
      */
@@ -0,0 +1,52 @@
+package com.minegocio.backend.repositorios;
+
+import com.minegocio.backend.entidades.VistaStockSector;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio de lectura de la proyección de stock por ubicación (la escribe VistaStockService)
+ */
+@Repository
+public interface VistaStockSectorRepository extends JpaRepository<VistaStockSector, Long> {
+
+    /**
+     * Filas del stock general: todas las de sector y las sin sectorizar de productos activos
+     */
+    @Query("SELECT v FROM VistaStockSector v WHERE v.empresaId = :empresaId " +
+           "AND (v.sectorId IS NOT NULL OR v.productoActivo = true) " +
+           "ORDER BY v.productoNombre, v.id")
+    List<VistaStockSector> findStockGeneral(@Param("empresaId") Long empresaId);
+
+    /**
+     * Stock general paginado y filtrado por texto (nombre o código), sector y tipo de fila
+     */
+    @Query(value = "SELECT v FROM VistaStockSector v WHERE v.empresaId = :empresaId " +
+           "AND (v.sectorId IS NOT NULL OR v.productoActivo = true) " +
+           "AND (:busqueda IS NULL OR LOWER(v.productoNombre) LIKE :busqueda OR LOWER(v.codigoPersonalizado) LIKE :busqueda) " +
+           "AND (:sectorId IS NULL OR v.sectorId = :sectorId) " +
+           "AND (:conSector IS NULL OR (:conSector = true AND v.sectorId IS NOT NULL) OR (:conSector = false AND v.sectorId IS NULL))",
+           countQuery = "SELECT COUNT(v) FROM VistaStockSector v WHERE v.empresaId = :empresaId " +
+           "AND (v.sectorId IS NOT NULL OR v.productoActivo = true) " +
+           "AND (:busqueda IS NULL OR LOWER(v.productoNombre) LIKE :busqueda OR LOWER(v.codigoPersonalizado) LIKE :busqueda) " +
+           "AND (:sectorId IS NULL OR v.sectorId = :sectorId) " +
+           "AND (:conSector IS NULL OR (:conSector = true AND v.sectorId IS NOT NULL) OR (:conSector = false AND v.sectorId IS NULL))")
+    Page<VistaStockSector> buscarStockGeneral(@Param("empresaId") Long empresaId,
+                                              @Param("busqueda") String busqueda,
+                                              @Param("sectorId") Long sectorId,
+                                              @Param("conSector") Boolean conSector,
+                                              Pageable pageable);
+
+    /**
+     * Filas de productos activos, para el stock detallado agrupado por producto
+     */
+    @Query("SELECT v FROM VistaStockSector v WHERE v.empresaId = :empresaId AND v.productoActivo = true " +
+           "ORDER BY v.productoId, v.sectorId NULLS FIRST, v.id")
+    List<VistaStockSector> findStockDetallado(@Param("empresaId") Long empresaId);
+}
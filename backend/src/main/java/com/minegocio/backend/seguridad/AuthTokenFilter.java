@@ -27,7 +27,7 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UsuarioDetallesService userDetailsService;
+    private CachePrincipalService cachePrincipalService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -36,18 +36,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             String requestPath = request.getRequestURI();
             String method = request.getMethod();
             
-            // Solo log para endpoints importantes, no para todos
-            if (requestPath.contains("/plantilla-importacion") || requestPath.contains("/auth/") || 
-                requestPath.contains("/reporte-stock") || requestPath.contains("/reportes/") ||
-                requestPath.contains("/direct/") || requestPath.contains("/public/") ||
-                requestPath.contains("/files/") || requestPath.contains("/ultra/") ||
-                requestPath.contains("/stock-general") || requestPath.contains("/remitos-ingreso")) {
-                System.out.println("🌐 REQUEST RECIBIDA: " + method + " " + requestPath);
-            }
+            logger.debug("🌐 Request recibida: {} {}", method, requestPath);
             
             // Skip authentication for public endpoints
             if (isPublicEndpoint(requestPath)) {
-                System.out.println("✅ SKIPPING AUTH for public endpoint: " + requestPath);
+                logger.debug("Endpoint público, sin autenticación: {}", requestPath);
                 filterChain.doFilter(request, response);
                 return;
             }
@@ -59,50 +52,27 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             }
             
             String jwt = parseJwt(request);
-            
-            // Log específico para remitos-ingreso
-            if (requestPath.contains("/remitos-ingreso")) {
-                System.out.println("🔍 === DEBUG REMITOS-INGRESO ===");
-                System.out.println("🔍 JWT presente: " + (jwt != null ? "SÍ" : "NO"));
-                System.out.println("🔍 JWT válido: " + (jwt != null && jwtUtils != null && jwtUtils.validateJwtToken(jwt) ? "SÍ" : "NO"));
-                if (jwt != null) {
-                    System.out.println("🔍 JWT (primeros 50 chars): " + jwt.substring(0, Math.min(50, jwt.length())) + "...");
-                }
-            }
+            logger.debug("JWT presente: {}", jwt != null);
             
             if (jwt != null && jwtUtils != null && jwtUtils.validateJwtToken(jwt)) {
                 String email = jwtUtils.extractUsername(jwt);
                 
                 try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                    
-                    // Verificar si es UsuarioPrincipal para obtener más info
-                    if (userDetails instanceof UsuarioPrincipal) {
-                        UsuarioPrincipal principal = (UsuarioPrincipal) userDetails;
-                        System.out.println("EmpresaId del usuario: " + principal.getEmpresaId());
-                        System.out.println("Rol del usuario: " + principal.getUsuario().getRol());
-                        System.out.println("Authorities del usuario: " + principal.getAuthorities());
-                    }
+                    UserDetails userDetails = cachePrincipalService.obtener(email);
                     
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    System.out.println("✅ Autenticación establecida exitosamente para: " + email);
-                    System.out.println("✅ Authorities establecidos: " + userDetails.getAuthorities());
                 } catch (Exception e) {
-                    System.err.println("❌ Error al cargar usuario: " + e.getMessage());
-                    logger.error("No se puede establecer la autenticación del usuario: {}", e.getMessage());
+                    logger.error("❌ No se puede establecer la autenticación del usuario: {}", e.getMessage());
                     // Limpiar el contexto de seguridad si hay error
                     SecurityContextHolder.clearContext();
                 }
             }
         } catch (Exception e) {
-            System.err.println("❌ Error general en AuthTokenFilter: " + e.getMessage());
-            System.err.println("❌ Stack trace: " + e.toString());
-            logger.error("Error general en AuthTokenFilter: {}", e.getMessage());
-            logger.error("Stack trace completo: ", e);
+            logger.error("❌ Error general en AuthTokenFilter: {}", e.getMessage(), e);
             // Continuar con el filtro incluso si hay error
         }
 
@@ -161,13 +131,6 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                           // Endpoints de autenticación de clientes (Google login, recuperación de contraseña, etc.)
                           (requestPath.contains("/publico/") && requestPath.contains("/auth/"));
         
-        // Log para debug de reportes
-        if (requestPath.contains("/reportes/")) {
-            System.out.println("🔍 DEBUG REPORTES - Path: " + requestPath);
-            System.out.println("🔍 DEBUG REPORTES - startsWith /api/reportes/: " + requestPath.startsWith("/api/reportes/"));
-            System.out.println("🔍 DEBUG REPORTES - isPublic: " + isPublic);
-        }
-        
         return isPublic;
     }
 }
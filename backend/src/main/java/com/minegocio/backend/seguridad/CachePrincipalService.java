@@ -0,0 +1,270 @@
+package com.minegocio.backend.seguridad;
+
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.Usuario;
+import com.minegocio.backend.servicios.BusInvalidacionCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en memoria del usuario autenticado, para que AuthTokenFilter no consulte
+ * la base de datos en cada request.
+ * - Indexada por el email del token (subject) junto con una versión por usuario
+ * - Acotada en tamaño con expulsión LRU; el TTL es corto (nunca mayor que la duración del JWT)
+ * - Guarda una copia desconectada del usuario y entrega una copia nueva en cada request,
+ *   así nadie modifica ni guarda la instancia compartida
+ * - Se invalida al cambiar rol, permisos, estado activo, verificación o contraseña, y la
+ *   invalidación se publica a las demás réplicas por BusInvalidacionCache
+ */
+@Service
+public class CachePrincipalService {
+
+    // En el bus la clave es el ID del usuario (sin ID se descarta toda la caché)
+    private static final String REGION = "principal";
+
+    @Value("${minegocio.cache.principal.max-entradas:5000}")
+    private int maxEntradas;
+
+    @Value("${minegocio.cache.principal.ttl-segundos:60}")
+    private long ttlSegundos;
+
+    @Autowired
+    private UsuarioDetallesService usuarioDetallesService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private BusInvalidacionCache busInvalidacionCache;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong expulsiones = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    // Versión por email: se incrementa en cada invalidación y descarta las cargas que quedaron en vuelo
+    private final ConcurrentHashMap<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    // LinkedHashMap en orden de acceso: el primero es siempre el menos usado recientemente
+    private final LinkedHashMap<String, EntradaPrincipal> entradas = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EntradaPrincipal> eldest) {
+            if (size() > maxEntradas) {
+                expulsiones.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    @PostConstruct
+    public void registrarMetricas() {
+        busInvalidacionCache.suscribir(REGION, (usuarioId, fecha) -> invalidar(usuarioId, null));
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("seguridad.principal.cache.aciertos", aciertos, AtomicLong::get)
+            .description("Requests autenticados resueltos desde la caché")
+            .register(meterRegistry);
+        FunctionCounter.builder("seguridad.principal.cache.fallos", fallos, AtomicLong::get)
+            .description("Requests autenticados que tuvieron que cargar el usuario de la base de datos")
+            .register(meterRegistry);
+        FunctionCounter.builder("seguridad.principal.cache.expulsiones", expulsiones, AtomicLong::get)
+            .description("Entradas expulsadas por tamaño (LRU) o expiradas por TTL")
+            .register(meterRegistry);
+        FunctionCounter.builder("seguridad.principal.cache.invalidaciones", invalidaciones, AtomicLong::get)
+            .description("Invalidaciones por cambios de rol, permisos, estado o contraseña")
+            .register(meterRegistry);
+        Gauge.builder("seguridad.principal.cache.entradas", this, CachePrincipalService::getTamano)
+            .description("Usuarios autenticados actualmente en la caché")
+            .register(meterRegistry);
+        Gauge.builder("seguridad.principal.cache.ratio.aciertos", this, CachePrincipalService::getRatioAciertos)
+            .description("Proporción de requests autenticados resueltos sin consultar la base de datos")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el usuario del token, desde la caché o cargándolo con UsuarioDetallesService
+     */
+    public UserDetails obtener(String email) throws UsernameNotFoundException {
+        long version = versionActual(email);
+        synchronized (entradas) {
+            EntradaPrincipal entrada = entradas.get(email);
+            if (entrada != null && (entrada.version != version || entrada.expiraEn < System.currentTimeMillis())) {
+                entradas.remove(email);
+                expulsiones.incrementAndGet();
+                entrada = null;
+            }
+            if (entrada != null) {
+                aciertos.incrementAndGet();
+                return new UsuarioPrincipal(copiar(entrada.usuario));
+            }
+        }
+
+        fallos.incrementAndGet();
+        UserDetails principal = usuarioDetallesService.loadUserByUsername(email);
+
+        // Si hubo una invalidación mientras se cargaba, el dato puede ser previo al cambio: no se guarda
+        if (principal instanceof UsuarioPrincipal usuarioPrincipal && versionActual(email) == version) {
+            EntradaPrincipal entrada = new EntradaPrincipal(copiar(usuarioPrincipal.getUsuario()), version,
+                System.currentTimeMillis() + getTtlMs());
+            synchronized (entradas) {
+                entradas.put(email, entrada);
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Invalida el usuario ahora y otra vez al confirmar la transacción actual, y avisa a las
+     * demás réplicas una vez confirmado el cambio (sin transacción, en el momento).
+     * Se busca también por ID para cubrir el caso en que el email ya haya cambiado.
+     */
+    public void invalidarUsuario(Long usuarioId, String email) {
+        invalidar(usuarioId, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar(usuarioId, email);
+                }
+
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado == STATUS_COMMITTED) {
+                        busInvalidacionCache.publicar(REGION, usuarioId, null);
+                    }
+                }
+            });
+        } else {
+            busInvalidacionCache.publicar(REGION, usuarioId, null);
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public double getRatioAciertos() {
+        long total = aciertos.get() + fallos.get();
+        return total == 0 ? 0.0 : (double) aciertos.get() / total;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        return Map.of(
+            "entradas", getTamano(),
+            "maxEntradas", maxEntradas,
+            "ttlMs", getTtlMs(),
+            "aciertos", aciertos.get(),
+            "fallos", fallos.get(),
+            "ratioAciertos", getRatioAciertos(),
+            "expulsiones", expulsiones.get(),
+            "invalidaciones", invalidaciones.get()
+        );
+    }
+
+    private long getTtlMs() {
+        return Math.min(ttlSegundos * 1000, jwtUtils.getJwtExpirationMs());
+    }
+
+    private void invalidar(Long usuarioId, String email) {
+        if (usuarioId == null && email == null) {
+            invalidarTodo();
+            return;
+        }
+        if (email != null) {
+            versiones.computeIfAbsent(email, e -> new AtomicLong()).incrementAndGet();
+        }
+        int eliminadas = 0;
+        synchronized (entradas) {
+            Iterator<Map.Entry<String, EntradaPrincipal>> it = entradas.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, EntradaPrincipal> entrada = it.next();
+                if (entrada.getKey().equals(email) || (usuarioId != null && usuarioId.equals(entrada.getValue().usuario.getId()))) {
+                    versiones.computeIfAbsent(entrada.getKey(), e -> new AtomicLong()).incrementAndGet();
+                    it.remove();
+                    eliminadas++;
+                }
+            }
+        }
+        invalidaciones.addAndGet(eliminadas);
+    }
+
+    private void invalidarTodo() {
+        int eliminadas;
+        synchronized (entradas) {
+            for (String email : entradas.keySet()) {
+                versiones.computeIfAbsent(email, e -> new AtomicLong()).incrementAndGet();
+            }
+            eliminadas = entradas.size();
+            entradas.clear();
+        }
+        invalidaciones.addAndGet(eliminadas);
+    }
+
+    /**
+     * Copia desconectada con los datos que usa la autenticación; la empresa queda como referencia por ID
+     */
+    private static Usuario copiar(Usuario origen) {
+        Usuario copia = new Usuario();
+        copia.setId(origen.getId());
+        copia.setNombre(origen.getNombre());
+        copia.setApellidos(origen.getApellidos());
+        copia.setEmail(origen.getEmail());
+        copia.setPassword(origen.getPassword());
+        copia.setTelefono(origen.getTelefono());
+        copia.setNumeroDocumento(origen.getNumeroDocumento());
+        copia.setRol(origen.getRol());
+        copia.setActivo(origen.getActivo());
+        copia.setEmailVerificado(origen.getEmailVerificado());
+        copia.setFechaCreacion(origen.getFechaCreacion());
+        copia.setFechaActualizacion(origen.getFechaActualizacion());
+        copia.setUltimoAcceso(origen.getUltimoAcceso());
+        if (origen.getEmpresa() != null) {
+            Empresa empresa = new Empresa();
+            empresa.setId(origen.getEmpresa().getId());
+            copia.setEmpresa(empresa);
+        }
+        return copia;
+    }
+
+    private long versionActual(String email) {
+        AtomicLong version = versiones.get(email);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * Copia del usuario cacheado con la versión con la que se cargó
+     */
+    private static class EntradaPrincipal {
+        private final Usuario usuario;
+        private final long version;
+        private final long expiraEn;
+
+        EntradaPrincipal(Usuario usuario, long version, long expiraEn) {
+            this.usuario = usuario;
+            this.version = version;
+            this.expiraEn = expiraEn;
+        }
+    }
+}
@@ -29,9 +29,6 @@ public class JwtUtils {
     private int jwtExpirationMs;
 
     private SecretKey getSigningKey() {
-        System.out.println("🔑 JWT Secret actual: " + jwtSecret);
-        System.out.println("🔑 JWT Secret longitud: " + jwtSecret.length());
-        System.out.println("🔑 JWT Secret bytes: " + jwtSecret.getBytes().length);
         return Keys.hmacShaKeyFor(jwtSecret.getBytes());
     }
 
@@ -40,15 +37,12 @@ public class JwtUtils {
      */
     public String generarJwtToken(Authentication authentication) {
         try {
-            System.out.println("🎯 JWT - Authentication principal type: " + authentication.getPrincipal().getClass().getName());
-            System.out.println("🎯 JWT - Authentication principal: " + authentication.getPrincipal());
+            logger.debug("🎯 JWT - Tipo de principal: {}", authentication.getPrincipal().getClass().getName());
             
             // Intentar obtener UsuarioPrincipal primero
             if (authentication.getPrincipal() instanceof UsuarioPrincipal) {
                 UsuarioPrincipal userPrincipal = (UsuarioPrincipal) authentication.getPrincipal();
-                System.out.println("🎯 JWT - UsuarioPrincipal obtenido: " + userPrincipal.getUsername());
-                System.out.println("🎯 JWT - UsuarioPrincipal ID: " + userPrincipal.getId());
-                System.out.println("🎯 JWT - Roles: " + userPrincipal.getAuthorities());
+                logger.debug("🎯 JWT - Usuario {} (ID {}), roles {}", userPrincipal.getUsername(), userPrincipal.getId(), userPrincipal.getAuthorities());
                 
                 return Jwts.builder()
                         .subject(userPrincipal.getUsername())
@@ -64,7 +58,7 @@ public class JwtUtils {
                         .compact();
             } else {
                 // Fallback para User por defecto de Spring Security
-                System.out.println("🎯 JWT - Usando User por defecto de Spring Security");
+                logger.debug("🎯 JWT - Usando User por defecto de Spring Security");
                 String username = authentication.getName();
                 
                 return Jwts.builder()
@@ -78,8 +72,7 @@ public class JwtUtils {
                         .compact();
             }
         } catch (Exception e) {
-            System.out.println("❌ ERROR en generarJwtToken: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error en generarJwtToken: {}", e.getMessage(), e);
             throw e;
         }
     }
@@ -88,12 +81,7 @@ public class JwtUtils {
      * Genera un token JWT para un usuario específico
      */
     public String generarJwtToken(String email, Long userId, Long empresaId, String nombreCompleto, List<String> roles) {
-        System.out.println("🔑 === JwtUtils.generarJwtToken (Cliente) ===");
-        System.out.println("🔑 Email: " + email);
-        System.out.println("🔑 UserId: " + userId);
-        System.out.println("🔑 EmpresaId: " + empresaId);
-        System.out.println("🔑 Nombre: " + nombreCompleto);
-        System.out.println("🔑 Roles: " + roles);
+        logger.debug("🔑 Generando JWT de cliente - email {}, userId {}, empresaId {}, roles {}", email, userId, empresaId, roles);
         
         String token = Jwts.builder()
                 .subject(email)
@@ -106,9 +94,6 @@ public class JwtUtils {
                 .signWith(getSigningKey(), Jwts.SIG.HS256)
                 .compact();
         
-        System.out.println("🔑 TOKEN JWT COMPLETO: " + token);
-        System.out.println("🔑 ==========================================");
-        
         return token;
     }
 
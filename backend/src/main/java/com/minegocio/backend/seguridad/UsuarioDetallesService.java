@@ -2,6 +2,8 @@ package com.minegocio.backend.seguridad;
 
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,28 +17,21 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class UsuarioDetallesService implements UserDetailsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioDetallesService.class);
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        System.out.println("=== DEBUG loadUserByUsername ===");
-        System.out.println("DEBUG - Buscando usuario con email: " + email);
-        
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + email));
 
-        System.out.println("DEBUG - Usuario encontrado: " + usuario.getId());
-        System.out.println("DEBUG - Usuario activo: " + usuario.getActivo());
-        System.out.println("DEBUG - Email verificado: " + usuario.getEmailVerificado());
-        System.out.println("DEBUG - Rol: " + usuario.getRol());
+        logger.debug("Usuario {} cargado - activo: {}, email verificado: {}, rol: {}",
+                usuario.getId(), usuario.getActivo(), usuario.getEmailVerificado(), usuario.getRol());
         
-        UsuarioPrincipal principal = new UsuarioPrincipal(usuario);
-        System.out.println("DEBUG - UsuarioPrincipal creado");
-        System.out.println("===============================");
-        
-        return principal;
+        return new UsuarioPrincipal(usuario);
     }
 
     /**
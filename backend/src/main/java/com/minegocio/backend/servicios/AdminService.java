@@ -1,6 +1,8 @@
 package com.minegocio.backend.servicios;
 
 import com.minegocio.backend.repositorios.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +13,8 @@ import java.util.Map;
 
 @Service
 public class AdminService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminService.class);
     
     @Autowired
     private ProductoRepository productoRepository;
@@ -87,124 +91,164 @@ public class AdminService {
     @Autowired
     private DetalleVentaRapidaRepository detalleVentaRapidaRepository;
     
+    @Autowired
+    private VentaProductoAcumuladaRepository ventaProductoAcumuladaRepository;
+    
+    @Autowired
+    private ResumenVentasDiarioRepository resumenVentasDiarioRepository;
+    
+    @Autowired
+    private StockDiarioProductoRepository stockDiarioProductoRepository;
+    
+    @Autowired
+    private ProgresoConteoProductoRepository progresoConteoProductoRepository;
+    
+    @Autowired
+    private FinalizacionInventarioRepository finalizacionInventarioRepository;
+    
+    @Autowired
+    private FinalizacionInventarioProductoRepository finalizacionInventarioProductoRepository;
+
+    @Autowired
+    private UsoAlmacenamientoService usoAlmacenamientoService;
+    
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
+    
     /**
      * Ejecutar Hard Reset - Limpiar todos los datos excepto usuarios y empresa
      */
     @Transactional
     public void ejecutarHardReset() {
-        System.out.println("🔴 [HARD RESET] Iniciando limpieza completa del sistema...");
+        logger.debug("🔴 [HARD RESET] Iniciando limpieza completa del sistema...");
         
         try {
             // 1. Limpiar datos de conteos de sectores primero (para evitar restricciones FK)
-            System.out.println("🧹 Limpiando conteos de sectores...");
+            logger.debug("🧹 Limpiando conteos de sectores...");
             long conteosAntes = conteoSectorRepository.count();
-            System.out.println("📊 Conteos antes: " + conteosAntes);
+            logger.debug("📊 Conteos antes: {}", conteosAntes);
             conteoSectorRepository.deleteAll();
             long conteosDespues = conteoSectorRepository.count();
-            System.out.println("📊 Conteos después: " + conteosDespues);
+            logger.debug("📊 Conteos después: {}", conteosDespues);
             
             // 2. Limpiar datos de stock y sectores
-            System.out.println("🧹 Limpiando stock por sectores...");
+            logger.debug("🧹 Limpiando stock por sectores...");
             long stockAntes = stockPorSectorRepository.count();
-            System.out.println("📊 Stock antes: " + stockAntes);
+            logger.debug("📊 Stock antes: {}", stockAntes);
             stockPorSectorRepository.deleteAll();
             long stockDespues = stockPorSectorRepository.count();
-            System.out.println("📊 Stock después: " + stockDespues);
+            logger.debug("📊 Stock después: {}", stockDespues);
             
-            System.out.println("🧹 Limpiando sectores...");
+            logger.debug("🧹 Limpiando sectores...");
             long sectoresAntes = sectorRepository.count();
-            System.out.println("📊 Sectores antes: " + sectoresAntes);
+            logger.debug("📊 Sectores antes: {}", sectoresAntes);
             sectorRepository.deleteAll();
             long sectoresDespues = sectorRepository.count();
-            System.out.println("📊 Sectores después: " + sectoresDespues);
+            logger.debug("📊 Sectores después: {}", sectoresDespues);
             
             // 2. Limpiar datos de planillas
-            System.out.println("🧹 Limpiando detalles de planillas de pedido...");
+            logger.debug("🧹 Limpiando detalles de planillas de pedido...");
             detallePlanillaPedidoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando planillas de pedido...");
+            logger.debug("🧹 Limpiando planillas de pedido...");
             planillaPedidoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando detalles de planillas de devolución...");
+            logger.debug("🧹 Limpiando detalles de planillas de devolución...");
             detallePlanillaDevolucionRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando planillas de devolución...");
+            logger.debug("🧹 Limpiando planillas de devolución...");
             planillaDevolucionRepository.deleteAll();
             
             // 3. Limpiar datos de remitos
-            System.out.println("🧹 Limpiando detalles de remitos de ingreso...");
+            logger.debug("🧹 Limpiando detalles de remitos de ingreso...");
             detalleRemitoIngresoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando remitos de ingreso...");
+            logger.debug("🧹 Limpiando remitos de ingreso...");
             remitoIngresoRepository.deleteAll();
             
             // 4. Limpiar roturas y pérdidas
-            System.out.println("🧹 Limpiando roturas y pérdidas...");
+            logger.debug("🧹 Limpiando roturas y pérdidas...");
             roturaPerdidaRepository.deleteAll();
             
             // 5. Limpiar transportistas y vehículos
-            System.out.println("🧹 Limpiando vehículos...");
+            logger.debug("🧹 Limpiando vehículos...");
             vehiculoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando transportistas...");
+            logger.debug("🧹 Limpiando transportistas...");
             transportistaRepository.deleteAll();
             
             // 6. Limpiar tablas que dependen de productos y sectores
-            System.out.println("🧹 Limpiando detalles de conteo...");
+            logger.debug("🧹 Limpiando detalles de conteo...");
             detalleConteoRepository.deleteAll();
+            progresoConteoProductoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando inventarios por sector...");
+            logger.debug("🧹 Limpiando inventarios por sector...");
             inventarioPorSectorRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando inventarios físicos...");
+            logger.debug("🧹 Limpiando inventarios físicos...");
             inventarioFisicoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando inventarios completos...");
+            logger.debug("🧹 Limpiando inventarios completos...");
+            finalizacionInventarioProductoRepository.deleteAll();
+            finalizacionInventarioRepository.deleteAll();
             inventarioCompletoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando historial de inventario...");
+            logger.debug("🧹 Limpiando historial de inventario...");
             historialInventarioRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando historial de carga de productos...");
+            logger.debug("🧹 Limpiando historial de carga de productos...");
             historialCargaProductosRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando productos favoritos...");
+            logger.debug("🧹 Limpiando productos favoritos...");
             productoFavoritoRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando detalles de venta rápida...");
+            logger.debug("🧹 Limpiando detalles de venta rápida...");
             long detallesVentaAntes = detalleVentaRapidaRepository.count();
-            System.out.println("📊 Detalles venta rápida antes: " + detallesVentaAntes);
+            logger.debug("📊 Detalles venta rápida antes: {}", detallesVentaAntes);
             detalleVentaRapidaRepository.deleteAll();
             long detallesVentaDespues = detalleVentaRapidaRepository.count();
-            System.out.println("📊 Detalles venta rápida después: " + detallesVentaDespues);
+            logger.debug("📊 Detalles venta rápida después: {}", detallesVentaDespues);
             
-            System.out.println("🧹 Limpiando ventas rápidas...");
+            logger.debug("🧹 Limpiando ventas rápidas...");
             long ventasAntes = ventaRapidaRepository.count();
-            System.out.println("📊 Ventas rápidas antes: " + ventasAntes);
+            logger.debug("📊 Ventas rápidas antes: {}", ventasAntes);
             ventaRapidaRepository.deleteAll();
             long ventasDespues = ventaRapidaRepository.count();
-            System.out.println("📊 Ventas rápidas después: " + ventasDespues);
+            logger.debug("📊 Ventas rápidas después: {}", ventasDespues);
+            
+            logger.debug("🧹 Limpiando ranking de ventas por producto...");
+            ventaProductoAcumuladaRepository.deleteAll();
+            
+            logger.debug("🧹 Limpiando resumen diario de ventas...");
+            resumenVentasDiarioRepository.deleteAll();
             
-            System.out.println("🧹 Limpiando mensajes...");
+            logger.debug("🧹 Limpiando libro diario de stock...");
+            stockDiarioProductoRepository.deleteAll();
+            libroStockDiarioService.limpiarEstado();
+            
+            logger.debug("🧹 Limpiando mensajes...");
             long mensajesAntes = mensajeRepository.count();
-            System.out.println("📊 Mensajes antes: " + mensajesAntes);
+            logger.debug("📊 Mensajes antes: {}", mensajesAntes);
             mensajeRepository.deleteAll();
             long mensajesDespues = mensajeRepository.count();
-            System.out.println("📊 Mensajes después: " + mensajesDespues);
+            logger.debug("📊 Mensajes después: {}", mensajesDespues);
             
             // 7. Limpiar productos (ahora sin dependencias)
-            System.out.println("🧹 Limpiando productos...");
+            logger.debug("🧹 Limpiando productos...");
             long productosAntes = productoRepository.count();
-            System.out.println("📊 Productos antes: " + productosAntes);
+            logger.debug("📊 Productos antes: {}", productosAntes);
             productoRepository.deleteAll();
             long productosDespues = productoRepository.count();
-            System.out.println("📊 Productos después: " + productosDespues);
+            logger.debug("📊 Productos después: {}", productosDespues);
+
+            // El uso de almacenamiento de cada empresa se vuelve a medir en segundo plano
+            usoAlmacenamientoService.pedirMedicionCompleta();
             
-            System.out.println("✅ [HARD RESET] Limpieza completada exitosamente");
-            System.out.println("📊 [HARD RESET] Sistema listo para producción");
+            logger.debug("✅ [HARD RESET] Limpieza completada exitosamente");
+            logger.debug("📊 [HARD RESET] Sistema listo para producción");
             
         } catch (Exception e) {
-            System.err.println("❌ [HARD RESET] Error durante la limpieza: " + e.getMessage());
+            logger.error("❌ [HARD RESET] Error durante la limpieza: {}", e.getMessage(), e);
             throw new RuntimeException("Error durante el hard reset: " + e.getMessage(), e);
         }
     }
@@ -0,0 +1,308 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reparte entre ubicaciones un descuento de stock cuyo total ya se aplicó al producto
+ * (DescuentoStockService). Para todos los productos del documento:
+ * - Lee productos y filas de stock_por_sector en una sola consulta
+ * - Arma el plan en memoria: primero stock sin sectorizar, luego sectores de menor a mayor cantidad
+ * - Aplica el plan en lotes JDBC (actualizaciones, borrado de filas en cero y limpieza de
+ *   sectorAlmacenamiento de productos sin stock), sin cargar entidades
+ */
+@Service
+public class AsignacionSectoresService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsignacionSectoresService.class);
+
+    private static final String SQL_LEER =
+        "SELECT p.id, p.nombre, p.stock, p.sector_almacenamiento, sps.id AS stock_sector_id, sps.cantidad, " +
+        "s.id AS sector_id, s.nombre AS sector_nombre, s.empresa_id AS sector_empresa_id " +
+        "FROM productos p " +
+        "LEFT JOIN stock_por_sector sps ON sps.producto_id = p.id " +
+        "LEFT JOIN sectores s ON s.id = sps.sector_id " +
+        "WHERE p.empresa_id = ? AND p.id IN (%s)";
+
+    private static final String SQL_ACTUALIZAR_SECTOR =
+        "UPDATE stock_por_sector SET cantidad = ?, fecha_actualizacion = ? WHERE id = ?";
+
+    private static final String SQL_ELIMINAR_SECTOR =
+        "DELETE FROM stock_por_sector WHERE id = ?";
+
+    private static final String SQL_LIMPIAR_SECTOR_ALMACENAMIENTO =
+        "UPDATE productos SET sector_almacenamiento = NULL WHERE id = ? AND empresa_id = ? AND stock <= 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private VistaStockService vistaStockService;
+
+    /**
+     * Planifica y aplica el reparto de las cantidades ya descontadas del stock total de cada producto.
+     * Devuelve un resultado por producto, ordenado por id.
+     */
+    @Transactional
+    public List<Map<String, Object>> asignarDescuento(Long empresaId, Map<Long, Integer> cantidadesPorProducto, String motivo) {
+        SortedMap<Long, Integer> lineas = new TreeMap<>();
+        cantidadesPorProducto.forEach((productoId, cantidad) -> {
+            if (productoId != null && cantidad != null && cantidad > 0) {
+                lineas.merge(productoId, cantidad, Integer::sum);
+            }
+        });
+        if (lineas.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Cambios pendientes de JPA (p. ej. sectores editados en la misma transacción) antes de leer
+        entityManager.flush();
+
+        Map<Long, ProductoUbicaciones> productos = leer(empresaId, lineas.keySet());
+        List<PlanProducto> planes = new ArrayList<>();
+        for (Map.Entry<Long, Integer> linea : lineas.entrySet()) {
+            ProductoUbicaciones producto = productos.get(linea.getKey());
+            if (producto == null) {
+                throw new RuntimeException("Producto no encontrado o no pertenece a la empresa");
+            }
+            planes.add(planificar(producto, linea.getValue()));
+        }
+
+        aplicar(empresaId, planes);
+        vistaStockService.marcar(lineas.keySet());
+
+        List<Map<String, Object>> resultados = new ArrayList<>();
+        for (PlanProducto plan : planes) {
+            resultados.add(plan.aResultado(motivo));
+        }
+        return resultados;
+    }
+
+    private Map<Long, ProductoUbicaciones> leer(Long empresaId, Set<Long> productoIds) {
+        String sql = String.format(SQL_LEER, String.join(",", Collections.nCopies(productoIds.size(), "?")));
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(empresaId);
+        parametros.addAll(productoIds);
+
+        Map<Long, ProductoUbicaciones> productos = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long productoId = rs.getLong("id");
+            ProductoUbicaciones producto = productos.get(productoId);
+            if (producto == null) {
+                producto = new ProductoUbicaciones(productoId, rs.getString("nombre"), rs.getInt("stock"),
+                    rs.getString("sector_almacenamiento"));
+                productos.put(productoId, producto);
+            }
+            long stockSectorId = rs.getLong("stock_sector_id");
+            if (!rs.wasNull() && rs.getLong("sector_empresa_id") == empresaId) {
+                producto.sectores.add(new StockSector(stockSectorId, rs.getLong("sector_id"),
+                    rs.getString("sector_nombre"), rs.getInt("cantidad")));
+            }
+        }, parametros.toArray());
+        return productos;
+    }
+
+    /**
+     * Plan de un producto: sin sectorizar primero, después sectores de menor a mayor cantidad.
+     * stockActual ya tiene aplicado el descuento, el stock previo es stockActual + cantidad.
+     */
+    static PlanProducto planificar(ProductoUbicaciones producto, int cantidad) {
+        int stockAnterior = producto.stockActual + cantidad;
+        int stockEnSectores = producto.sectores.stream().mapToInt(s -> s.cantidad).sum();
+        int sinSectorizar = Math.max(0, stockAnterior - stockEnSectores);
+
+        PlanProducto plan = new PlanProducto(producto, cantidad, stockAnterior, stockEnSectores, sinSectorizar);
+
+        int restante = cantidad;
+        if (sinSectorizar > 0) {
+            plan.deSinSectorizar = Math.min(restante, sinSectorizar);
+            restante -= plan.deSinSectorizar;
+        }
+
+        List<StockSector> ordenados = new ArrayList<>(producto.sectores);
+        ordenados.sort(Comparator.comparingInt((StockSector s) -> s.cantidad).thenComparingLong(s -> s.id));
+        for (StockSector sector : ordenados) {
+            if (sector.cantidad <= 0) {
+                // Fila vacía: se elimina en la limpieza del mismo lote
+                plan.sectoresAEliminar.add(sector.id);
+                continue;
+            }
+            if (restante <= 0) {
+                continue;
+            }
+            int aDescontar = Math.min(restante, sector.cantidad);
+            int nuevaCantidad = sector.cantidad - aDescontar;
+            plan.movimientos.add(new MovimientoSector(sector, aDescontar, nuevaCantidad));
+            if (nuevaCantidad <= 0) {
+                plan.sectoresAEliminar.add(sector.id);
+            } else {
+                plan.sectoresAActualizar.put(sector.id, nuevaCantidad);
+            }
+            restante -= aDescontar;
+        }
+        plan.restante = restante;
+        plan.limpiarSectorAlmacenamiento = producto.stockActual <= 0
+            && producto.sectorAlmacenamiento != null && !producto.sectorAlmacenamiento.trim().isEmpty();
+        return plan;
+    }
+
+    private void aplicar(Long empresaId, List<PlanProducto> planes) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> actualizaciones = new ArrayList<>();
+        List<Object[]> eliminaciones = new ArrayList<>();
+        List<Object[]> limpiezas = new ArrayList<>();
+        for (PlanProducto plan : planes) {
+            plan.sectoresAActualizar.forEach((id, cantidad) -> actualizaciones.add(new Object[]{cantidad, ahora, id}));
+            plan.sectoresAEliminar.forEach(id -> eliminaciones.add(new Object[]{id}));
+            if (plan.limpiarSectorAlmacenamiento) {
+                limpiezas.add(new Object[]{plan.producto.id, empresaId});
+            }
+        }
+
+        if (!actualizaciones.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_SECTOR, actualizaciones);
+        }
+        if (!eliminaciones.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ELIMINAR_SECTOR, eliminaciones);
+        }
+        if (!limpiezas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_LIMPIAR_SECTOR_ALMACENAMIENTO, limpiezas);
+            // Un Producto ya cargado volvería a escribir el sector viejo en su próximo guardado
+            for (Object[] limpieza : limpiezas) {
+                Producto producto = entityManager.getReference(Producto.class, limpieza[0]);
+                if (Hibernate.isInitialized(producto)) {
+                    entityManager.refresh(producto);
+                }
+            }
+        }
+
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Plan aplicado: {} sectores actualizados, {} eliminados, {} productos sin sector de almacenamiento", actualizaciones.size(), eliminaciones.size(), limpiezas.size());
+    }
+
+    static class ProductoUbicaciones {
+        final long id;
+        final String nombre;
+        final int stockActual;
+        final String sectorAlmacenamiento;
+        final List<StockSector> sectores = new ArrayList<>();
+
+        ProductoUbicaciones(long id, String nombre, int stockActual, String sectorAlmacenamiento) {
+            this.id = id;
+            this.nombre = nombre;
+            this.stockActual = stockActual;
+            this.sectorAlmacenamiento = sectorAlmacenamiento;
+        }
+    }
+
+    static class StockSector {
+        final long id;
+        final long sectorId;
+        final String sectorNombre;
+        final int cantidad;
+
+        StockSector(long id, long sectorId, String sectorNombre, int cantidad) {
+            this.id = id;
+            this.sectorId = sectorId;
+            this.sectorNombre = sectorNombre;
+            this.cantidad = cantidad;
+        }
+    }
+
+    static class MovimientoSector {
+        final StockSector sector;
+        final int cantidad;
+        final int nuevaCantidad;
+
+        MovimientoSector(StockSector sector, int cantidad, int nuevaCantidad) {
+            this.sector = sector;
+            this.cantidad = cantidad;
+            this.nuevaCantidad = nuevaCantidad;
+        }
+    }
+
+    static class PlanProducto {
+        final ProductoUbicaciones producto;
+        final int cantidad;
+        final int stockAnterior;
+        final int stockEnSectores;
+        final int sinSectorizar;
+        int deSinSectorizar;
+        int restante;
+        boolean limpiarSectorAlmacenamiento;
+        final List<MovimientoSector> movimientos = new ArrayList<>();
+        final Map<Long, Integer> sectoresAActualizar = new LinkedHashMap<>();
+        final List<Long> sectoresAEliminar = new ArrayList<>();
+
+        PlanProducto(ProductoUbicaciones producto, int cantidad, int stockAnterior, int stockEnSectores, int sinSectorizar) {
+            this.producto = producto;
+            this.cantidad = cantidad;
+            this.stockAnterior = stockAnterior;
+            this.stockEnSectores = stockEnSectores;
+            this.sinSectorizar = sinSectorizar;
+        }
+
+        /**
+         * Resultado con el mismo formato que devolvía el descuento entidad por entidad
+         */
+        Map<String, Object> aResultado(String motivo) {
+            List<Map<String, Object>> descuentos = new ArrayList<>();
+            if (deSinSectorizar > 0) {
+                Map<String, Object> descuento = new HashMap<>();
+                descuento.put("tipo", "SIN_SECTORIZAR");
+                descuento.put("cantidad", deSinSectorizar);
+                descuento.put("stockAnterior", stockAnterior);
+                descuento.put("stockNuevo", stockAnterior - deSinSectorizar);
+                descuento.put("stockSinSectorizarAnterior", sinSectorizar);
+                descuento.put("stockSinSectorizarNuevo", sinSectorizar - deSinSectorizar);
+                descuentos.add(descuento);
+            }
+            for (MovimientoSector movimiento : movimientos) {
+                Map<String, Object> descuento = new HashMap<>();
+                descuento.put("tipo", "SECTOR");
+                descuento.put("sectorId", movimiento.sector.sectorId);
+                descuento.put("sectorNombre", movimiento.sector.sectorNombre);
+                descuento.put("cantidad", movimiento.cantidad);
+                descuento.put("stockAnterior", movimiento.sector.cantidad);
+                descuento.put("stockNuevo", Math.max(0, movimiento.nuevaCantidad));
+                descuento.put("registroEliminado", movimiento.nuevaCantidad <= 0);
+                descuentos.add(descuento);
+            }
+
+            Map<String, Object> resultado = new HashMap<>();
+            resultado.put("productoId", producto.id);
+            resultado.put("productoNombre", producto.nombre);
+            resultado.put("cantidadSolicitada", cantidad);
+            resultado.put("motivo", motivo);
+            resultado.put("fechaDescuento", LocalDateTime.now());
+            resultado.put("descuentos", descuentos);
+            resultado.put("cantidadDescontada", cantidad);
+            resultado.put("cantidadRestante", restante);
+            resultado.put("stockRestante", producto.stockActual);
+            return resultado;
+        }
+    }
+}
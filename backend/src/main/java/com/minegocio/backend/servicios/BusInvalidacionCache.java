@@ -0,0 +1,26 @@
+package com.minegocio.backend.servicios;
+
+import java.time.LocalDate;
+
+/**
+ * Canal por el que una réplica avisa al resto que descarte entradas de una caché en memoria.
+ * La implementación se elige con minegocio.cache.bus.tipo: "base-datos" (por defecto, tabla
+ * consultada periódicamente por cada réplica) o "local" (una sola instancia).
+ */
+public interface BusInvalidacionCache {
+
+    /**
+     * Publica una invalidación para las demás réplicas. Sin empresa se invalida toda la región;
+     * sin fecha, todas las fechas de la empresa.
+     */
+    void publicar(String region, Long empresaId, LocalDate fecha);
+
+    /**
+     * Registra quién aplica las invalidaciones recibidas de otras réplicas para una región
+     */
+    void suscribir(String region, OyenteInvalidacion oyente);
+
+    interface OyenteInvalidacion {
+        void invalidar(Long empresaId, LocalDate fecha);
+    }
+}
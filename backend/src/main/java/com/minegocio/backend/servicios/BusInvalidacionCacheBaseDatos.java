@@ -0,0 +1,253 @@
+package com.minegocio.backend.servicios;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bus de invalidación entre réplicas sobre la tabla invalidaciones_cache.
+ * - publicar() no toca la base en el hilo que llama: encola el evento al terminar la transacción
+ *   actual (ya liberada su conexión) y un hilo propio lo inserta con JdbcTemplate en autocommit,
+ *   agrupando lo pendiente en un solo lote
+ * - Cada réplica lee los eventos con id mayor a su cursor y aplica los que no publicó ella misma.
+ *   El cursor solo avanza sobre ids consecutivos: un hueco (id reservado por un INSERT que todavía
+ *   no confirmó) se espera hasta minegocio.cache.bus.espera-huecos-segundos, medido con el reloj
+ *   local, así las diferencias de hora entre réplicas no hacen perder eventos
+ * - Las filas más viejas que la retención se eliminan
+ * - Los errores se registran por SLF4J y se cuentan en cache.bus.errores
+ */
+@Service
+@ConditionalOnProperty(name = "minegocio.cache.bus.tipo", havingValue = "base-datos", matchIfMissing = true)
+public class BusInvalidacionCacheBaseDatos implements BusInvalidacionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusInvalidacionCacheBaseDatos.class);
+
+    private static final String SQL_INSERTAR =
+        "INSERT INTO invalidaciones_cache (region, empresa_id, fecha, nodo_origen, fecha_creacion) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_LEER =
+        "SELECT id, region, empresa_id, fecha, nodo_origen FROM invalidaciones_cache WHERE id > ? ORDER BY id";
+
+    @Value("${minegocio.cache.bus.espera-huecos-segundos:60}")
+    private long esperaHuecosSegundos;
+
+    @Value("${minegocio.cache.bus.retencion-minutos:60}")
+    private long retencionMinutos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final String nodo = UUID.randomUUID().toString();
+
+    private final Map<String, List<OyenteInvalidacion>> oyentes = new ConcurrentHashMap<>();
+
+    // Eventos a insertar: [region, empresaId, fecha, nodo, fechaCreacion]
+    private final ConcurrentLinkedQueue<Object[]> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean envioProgramado = new AtomicBoolean();
+    private ThreadPoolExecutor envios;
+
+    // Todos los eventos con id <= cursor ya se aplicaron (-1: todavía no se leyó el punto de partida)
+    private long cursor = -1;
+    // Eventos ya aplicados con id mayor al cursor (hay un hueco antes de ellos)
+    private final TreeSet<Long> aplicadosAdelante = new TreeSet<>();
+    // Desde cuándo se espera el hueco que frena al cursor (System.nanoTime, 0 si no hay)
+    private long huecoDesde;
+
+    private long ultimaLimpieza = System.nanoTime();
+
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong recibidos = new AtomicLong();
+    private final AtomicLong erroresPublicacion = new AtomicLong();
+    private final AtomicLong erroresLectura = new AtomicLong();
+    private final AtomicLong huecosDescartados = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        envios = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), tarea -> {
+            Thread hilo = new Thread(tarea, "bus-invalidacion-cache");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("cache.bus.publicados", publicados, AtomicLong::get)
+            .description("Invalidaciones de caché publicadas para las demás réplicas")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.bus.recibidos", recibidos, AtomicLong::get)
+            .description("Invalidaciones de caché recibidas de otras réplicas")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.bus.errores", erroresPublicacion, AtomicLong::get)
+            .tag("operacion", "publicar")
+            .description("Invalidaciones de caché que no se pudieron publicar")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.bus.errores", erroresLectura, AtomicLong::get)
+            .tag("operacion", "leer")
+            .description("Lecturas fallidas de la tabla de invalidaciones")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.bus.huecos_descartados", huecosDescartados, AtomicLong::get)
+            .description("Ids de invalidaciones que nunca aparecieron dentro de la espera")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        envios.shutdown();
+    }
+
+    @Override
+    public void publicar(String region, Long empresaId, LocalDate fecha) {
+        Object[] evento = {region, empresaId, fecha != null ? Date.valueOf(fecha) : null, nodo, LocalDateTime.now()};
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Llamado desde la transacción o su afterCommit: se publica cuando suelta la conexión
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado == STATUS_COMMITTED) {
+                        encolar(evento);
+                    }
+                }
+            });
+        } else {
+            encolar(evento);
+        }
+    }
+
+    @Override
+    public void suscribir(String region, OyenteInvalidacion oyente) {
+        oyentes.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>()).add(oyente);
+    }
+
+    private void encolar(Object[] evento) {
+        pendientes.add(evento);
+        if (envioProgramado.compareAndSet(false, true)) {
+            try {
+                envios.execute(this::enviarPendientes);
+            } catch (Exception e) {
+                envioProgramado.set(false);
+                logger.warn("No se pudo programar la publicación de invalidaciones de caché: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void enviarPendientes() {
+        envioProgramado.set(false);
+        List<Object[]> lote = new ArrayList<>();
+        for (Object[] evento = pendientes.poll(); evento != null; evento = pendientes.poll()) {
+            lote.add(evento);
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, lote);
+            publicados.addAndGet(lote.size());
+        } catch (Exception e) {
+            // Las otras réplicas igual descartan las entradas al vencer su TTL
+            erroresPublicacion.addAndGet(lote.size());
+            logger.warn("No se pudieron publicar {} invalidaciones de caché: {}", lote.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica las invalidaciones publicadas por otras réplicas
+     */
+    @Scheduled(fixedDelayString = "${minegocio.cache.bus.intervalo-ms:2000}")
+    public synchronized void sondear() {
+        try {
+            if (cursor < 0) {
+                // Al arrancar las cachés están vacías: solo interesan los eventos posteriores
+                Long maximo = jdbcTemplate.queryForObject("SELECT MAX(id) FROM invalidaciones_cache", Long.class);
+                cursor = maximo != null ? maximo : 0L;
+                return;
+            }
+
+            jdbcTemplate.query(SQL_LEER, rs -> {
+                long id = rs.getLong("id");
+                if (!aplicadosAdelante.add(id)) {
+                    return;
+                }
+                if (nodo.equals(rs.getString("nodo_origen"))) {
+                    return;
+                }
+                long empresa = rs.getLong("empresa_id");
+                Long empresaId = rs.wasNull() ? null : empresa;
+                Date fecha = rs.getDate("fecha");
+                recibidos.incrementAndGet();
+                for (OyenteInvalidacion oyente : oyentes.getOrDefault(rs.getString("region"), List.of())) {
+                    oyente.invalidar(empresaId, fecha != null ? fecha.toLocalDate() : null);
+                }
+            }, cursor);
+            avanzarCursor();
+
+            if (System.nanoTime() - ultimaLimpieza > TimeUnit.MINUTES.toNanos(10)) {
+                ultimaLimpieza = System.nanoTime();
+                jdbcTemplate.update("DELETE FROM invalidaciones_cache WHERE fecha_creacion < ?",
+                    LocalDateTime.now().minusMinutes(retencionMinutos));
+            }
+        } catch (Exception e) {
+            erroresLectura.incrementAndGet();
+            logger.error("Error leyendo invalidaciones de caché: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Avanza el cursor sobre los ids consecutivos ya aplicados; un hueco se espera hasta
+     * esperaHuecosSegundos y después se da por perdido (INSERT fallido o revertido)
+     */
+    private void avanzarCursor() {
+        while (!aplicadosAdelante.isEmpty()) {
+            if (aplicadosAdelante.first() <= cursor + 1) {
+                cursor = Math.max(cursor, aplicadosAdelante.pollFirst());
+                huecoDesde = 0;
+                continue;
+            }
+            if (huecoDesde == 0) {
+                huecoDesde = System.nanoTime();
+            }
+            if (System.nanoTime() - huecoDesde < TimeUnit.SECONDS.toNanos(esperaHuecosSegundos)) {
+                return;
+            }
+            long siguiente = aplicadosAdelante.first();
+            huecosDescartados.addAndGet(siguiente - cursor - 1);
+            logger.warn("Invalidaciones de caché {} a {} no aparecieron; se continúa sin ellas", cursor + 1, siguiente - 1);
+            cursor = siguiente - 1;
+        }
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+}
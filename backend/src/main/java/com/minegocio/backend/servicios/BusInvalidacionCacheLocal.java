@@ -0,0 +1,24 @@
+package com.minegocio.backend.servicios;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Bus de invalidación para una sola instancia: no hay otras réplicas a las que avisar
+ */
+@Service
+@ConditionalOnProperty(name = "minegocio.cache.bus.tipo", havingValue = "local")
+public class BusInvalidacionCacheLocal implements BusInvalidacionCache {
+
+    @Override
+    public void publicar(String region, Long empresaId, LocalDate fecha) {
+        // La réplica que publica ya invalidó su propia caché
+    }
+
+    @Override
+    public void suscribir(String region, OyenteInvalidacion oyente) {
+        // Nunca llegan invalidaciones de otras réplicas
+    }
+}
@@ -0,0 +1,202 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.dto.MovimientoDiaDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria del stock inicial de cada día por empresa (MovimientoDiaService).
+ * - Clave primitiva: empresa y día empaquetados en un long
+ * - Acotada en tamaño con expulsión LRU y expiración por TTL
+ * - Se invalida por empresa y fecha (o toda la empresa) en esta réplica y, al confirmar
+ *   la transacción, en las demás a través del BusInvalidacionCache
+ */
+@Service
+public class CacheStockInicialService {
+
+    public static final String REGION = "stock-inicial";
+
+    // Bits reservados para el día (epoch day) dentro de la clave
+    private static final int BITS_DIA = 24;
+    private static final long MASCARA_DIA = (1L << BITS_DIA) - 1;
+
+    @Value("${minegocio.cache.stock-inicial.max-entradas:1000}")
+    private int maxEntradas;
+
+    @Value("${minegocio.cache.stock-inicial.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Autowired
+    private BusInvalidacionCache busInvalidacionCache;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong expulsiones = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    // Se incrementa en cada invalidación: un cálculo que empezó antes no se guarda
+    private final AtomicLong generacion = new AtomicLong();
+
+    // LinkedHashMap en orden de acceso: el primero es siempre el menos usado recientemente
+    private final LinkedHashMap<Long, EntradaStock> entradas = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, EntradaStock> eldest) {
+            if (size() > maxEntradas) {
+                expulsiones.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    @PostConstruct
+    public void iniciar() {
+        busInvalidacionCache.suscribir(REGION, this::invalidarLocal);
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("movimientos.stock_inicial.cache.aciertos", aciertos, AtomicLong::get)
+            .description("Stock inicial resuelto desde la caché")
+            .register(meterRegistry);
+        FunctionCounter.builder("movimientos.stock_inicial.cache.fallos", fallos, AtomicLong::get)
+            .description("Stock inicial calculado por no estar en la caché")
+            .register(meterRegistry);
+        FunctionCounter.builder("movimientos.stock_inicial.cache.expulsiones", expulsiones, AtomicLong::get)
+            .description("Entradas expulsadas por tamaño (LRU) o expiradas por TTL")
+            .register(meterRegistry);
+        FunctionCounter.builder("movimientos.stock_inicial.cache.invalidaciones", invalidaciones, AtomicLong::get)
+            .description("Entradas descartadas por cierres de día, locales o de otras réplicas")
+            .register(meterRegistry);
+        Gauge.builder("movimientos.stock_inicial.cache.entradas", this, CacheStockInicialService::getTamano)
+            .description("Días con stock inicial en la caché")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el stock inicial del día desde la caché o lo calcula y lo guarda
+     */
+    public MovimientoDiaDTO.StockInicialDTO obtener(Long empresaId, LocalDate fecha,
+                                                    Supplier<MovimientoDiaDTO.StockInicialDTO> calculo) {
+        long clave = clave(empresaId, fecha);
+        synchronized (entradas) {
+            EntradaStock entrada = entradas.get(clave);
+            if (entrada != null && entrada.expiraEn < System.currentTimeMillis()) {
+                entradas.remove(clave);
+                expulsiones.incrementAndGet();
+                entrada = null;
+            }
+            if (entrada != null) {
+                aciertos.incrementAndGet();
+                return entrada.stockInicial;
+            }
+        }
+
+        fallos.incrementAndGet();
+        long generacionInicial = generacion.get();
+        MovimientoDiaDTO.StockInicialDTO stockInicial = calculo.get();
+
+        // Si hubo una invalidación mientras se calculaba, el resultado puede ser previo al cierre
+        synchronized (entradas) {
+            if (generacion.get() == generacionInicial) {
+                entradas.put(clave, new EntradaStock(stockInicial, System.currentTimeMillis() + ttlSegundos * 1000));
+            }
+        }
+        return stockInicial;
+    }
+
+    public boolean contiene(Long empresaId, LocalDate fecha) {
+        synchronized (entradas) {
+            EntradaStock entrada = entradas.get(clave(empresaId, fecha));
+            return entrada != null && entrada.expiraEn >= System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Invalida el stock inicial de una empresa para una fecha (o todas las fechas si es null)
+     * ahora y al confirmar la transacción actual, y avisa a las demás réplicas.
+     * Con empresaId null se vacía toda la caché.
+     */
+    public void invalidar(Long empresaId, LocalDate fecha) {
+        invalidarLocal(empresaId, fecha);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarLocal(empresaId, fecha);
+                    busInvalidacionCache.publicar(REGION, empresaId, fecha);
+                }
+            });
+        } else {
+            busInvalidacionCache.publicar(REGION, empresaId, fecha);
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        return Map.of(
+            "entradas", getTamano(),
+            "maxEntradas", maxEntradas,
+            "ttlSegundos", ttlSegundos,
+            "aciertos", aciertos.get(),
+            "fallos", fallos.get(),
+            "expulsiones", expulsiones.get(),
+            "invalidaciones", invalidaciones.get()
+        );
+    }
+
+    private void invalidarLocal(Long empresaId, LocalDate fecha) {
+        int eliminadas = 0;
+        synchronized (entradas) {
+            generacion.incrementAndGet();
+            if (empresaId == null) {
+                eliminadas = entradas.size();
+                entradas.clear();
+            } else if (fecha != null) {
+                eliminadas = entradas.remove(clave(empresaId, fecha)) != null ? 1 : 0;
+            } else {
+                int antes = entradas.size();
+                entradas.keySet().removeIf(clave -> (clave >>> BITS_DIA) == empresaId);
+                eliminadas = antes - entradas.size();
+            }
+        }
+        invalidaciones.addAndGet(eliminadas);
+    }
+
+    private static long clave(Long empresaId, LocalDate fecha) {
+        return (empresaId << BITS_DIA) | (fecha.toEpochDay() & MASCARA_DIA);
+    }
+
+    /**
+     * Stock inicial cacheado con su vencimiento
+     */
+    private static class EntradaStock {
+        private final MovimientoDiaDTO.StockInicialDTO stockInicial;
+        private final long expiraEn;
+
+        EntradaStock(MovimientoDiaDTO.StockInicialDTO stockInicial, long expiraEn) {
+            this.stockInicial = stockInicial;
+            this.expiraEn = expiraEn;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.minegocio.backend.servicios;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Caché en memoria de las respuestas públicas de la tienda (empresa, productos,
+ * catálogo, categorías y marcas), indexada por subdominio.
+ * - Acotada en tamaño con expulsión LRU y expiración por TTL
+ * - Guarda el JSON ya serializado junto con su ETag para responder 304 a If-None-Match
+ * - Se invalida desde ProductoService y EmpresaService al confirmar la transacción, y ante cada
+ *   cambio de stock desde VistaStockService (checkout, venta rápida, planillas, importaciones,
+ *   inventarios: todo cambio de stock pasa por la proyección)
+ * - Las invalidaciones llegan a las demás réplicas por BusInvalidacionCache; allí se descarta
+ *   todo lo de la empresa (o listados y detalles si solo cambió stock)
+ */
+@Service
+public class CacheTiendaPublicaService {
+
+    /**
+     * Tipo de recurso cacheado, usado para invalidar solo lo que cambió
+     */
+    public enum TipoRecurso {
+        EMPRESA, LISTADO, FILTROS, PRODUCTO
+    }
+
+    // En el bus la clave es el ID de empresa; la región indica qué descartar
+    private static final String REGION = "tienda-publica";
+    private static final String REGION_STOCK = "tienda-publica-stock";
+
+    @Value("${minegocio.cache.tienda.max-entradas:2000}")
+    private int maxEntradas;
+
+    @Value("${minegocio.cache.tienda.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BusInvalidacionCache busInvalidacionCache;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong expulsiones = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    // LinkedHashMap en orden de acceso: el primero es siempre el menos usado recientemente
+    private final LinkedHashMap<String, EntradaCache> entradas = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EntradaCache> eldest) {
+            if (size() > maxEntradas) {
+                expulsiones.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    @PostConstruct
+    public void registrarMetricas() {
+        busInvalidacionCache.suscribir(REGION, (empresaId, fecha) ->
+            invalidar(e -> empresaId == null || e.empresaId.equals(empresaId)));
+        busInvalidacionCache.suscribir(REGION_STOCK, (empresaId, fecha) ->
+            invalidar(e -> (empresaId == null || e.empresaId.equals(empresaId))
+                && (e.tipo == TipoRecurso.LISTADO || e.tipo == TipoRecurso.PRODUCTO)));
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("tienda.cache.aciertos", aciertos, AtomicLong::get)
+            .description("Respuestas públicas servidas desde la caché")
+            .register(meterRegistry);
+        FunctionCounter.builder("tienda.cache.fallos", fallos, AtomicLong::get)
+            .description("Respuestas públicas que tuvieron que consultarse a la base de datos")
+            .register(meterRegistry);
+        FunctionCounter.builder("tienda.cache.expulsiones", expulsiones, AtomicLong::get)
+            .description("Entradas expulsadas por tamaño (LRU) o expiradas por TTL")
+            .register(meterRegistry);
+        FunctionCounter.builder("tienda.cache.invalidaciones", invalidaciones, AtomicLong::get)
+            .description("Entradas eliminadas por cambios de productos o empresa")
+            .register(meterRegistry);
+        Gauge.builder("tienda.cache.entradas", this, CacheTiendaPublicaService::getTamano)
+            .description("Entradas actualmente en la caché de la tienda pública")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Busca una respuesta cacheada vigente. Devuelve null si no existe o expiró.
+     */
+    public EntradaCache obtener(String subdominio, String recurso) {
+        String clave = clave(subdominio, recurso);
+        synchronized (entradas) {
+            EntradaCache entrada = entradas.get(clave);
+            if (entrada != null && entrada.expiraEn < System.currentTimeMillis()) {
+                entradas.remove(clave);
+                expulsiones.incrementAndGet();
+                entrada = null;
+            }
+            if (entrada == null) {
+                fallos.incrementAndGet();
+                return null;
+            }
+            aciertos.incrementAndGet();
+            return entrada;
+        }
+    }
+
+    /**
+     * Serializa y guarda una respuesta exitosa. productoId solo aplica a TipoRecurso.PRODUCTO.
+     */
+    public EntradaCache guardar(String subdominio, String recurso, Long empresaId, TipoRecurso tipo,
+                                Long productoId, Object cuerpo) throws JsonProcessingException {
+        String json = objectMapper.writeValueAsString(cuerpo);
+        EntradaCache entrada = new EntradaCache(empresaId, tipo, productoId, json, calcularEtag(json),
+            System.currentTimeMillis() + ttlSegundos * 1000);
+        synchronized (entradas) {
+            entradas.put(clave(subdominio, recurso), entrada);
+        }
+        return entrada;
+    }
+
+    /**
+     * Construye la respuesta HTTP: 304 si el cliente ya tiene la versión (If-None-Match), 200 con el JSON si no
+     */
+    public ResponseEntity<?> responder(EntradaCache entrada, String ifNoneMatch) {
+        if (ifNoneMatch != null && (ifNoneMatch.equals(entrada.etag) || ifNoneMatch.contains(entrada.etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(entrada.etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+        }
+        return ResponseEntity.ok()
+            .eTag(entrada.etag)
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(entrada.json);
+    }
+
+    /**
+     * Un producto cambió sus datos (alta, edición, baja): se invalidan los listados,
+     * los filtros (categorías/marcas) y el detalle de ese producto
+     */
+    public void invalidarProducto(Long empresaId, Long productoId) {
+        invalidarAlConfirmar(REGION, empresaId, e -> e.empresaId.equals(empresaId)
+            && (e.tipo == TipoRecurso.LISTADO || e.tipo == TipoRecurso.FILTROS || esProducto(e, productoId)));
+    }
+
+    /**
+     * Solo cambió el stock de un producto: categorías y marcas siguen siendo válidas
+     */
+    public void invalidarStockProducto(Long empresaId, Long productoId) {
+        invalidarAlConfirmar(REGION_STOCK, empresaId, e -> e.empresaId.equals(empresaId)
+            && (e.tipo == TipoRecurso.LISTADO || esProducto(e, productoId)));
+    }
+
+    /**
+     * Cambió el stock de varios productos de la empresa (lo informa VistaStockService)
+     */
+    public void invalidarStockProductos(Long empresaId, Collection<Long> productoIds) {
+        invalidarAlConfirmar(REGION_STOCK, empresaId, e -> e.empresaId.equals(empresaId)
+            && (e.tipo == TipoRecurso.LISTADO || (e.tipo == TipoRecurso.PRODUCTO && productoIds.contains(e.productoId))));
+    }
+
+    /**
+     * Cambió la configuración de la empresa (colores, datos bancarios, mostrar precios/stock...):
+     * se invalida todo lo de esa empresa
+     */
+    public void invalidarEmpresa(Long empresaId) {
+        invalidarAlConfirmar(REGION, empresaId, e -> e.empresaId.equals(empresaId));
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        return Map.of(
+            "entradas", getTamano(),
+            "maxEntradas", maxEntradas,
+            "ttlSegundos", ttlSegundos,
+            "aciertos", aciertos.get(),
+            "fallos", fallos.get(),
+            "expulsiones", expulsiones.get(),
+            "invalidaciones", invalidaciones.get()
+        );
+    }
+
+    private boolean esProducto(EntradaCache entrada, Long productoId) {
+        return entrada.tipo == TipoRecurso.PRODUCTO && productoId != null && productoId.equals(entrada.productoId);
+    }
+
+    /**
+     * Invalida ahora y otra vez al confirmar la transacción actual, para que una lectura
+     * concurrente no vuelva a cachear datos previos al commit; después avisa a las demás réplicas
+     */
+    private void invalidarAlConfirmar(String region, Long empresaId, Predicate<EntradaCache> criterio) {
+        invalidar(criterio);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar(criterio);
+                    busInvalidacionCache.publicar(region, empresaId, null);
+                }
+            });
+        } else {
+            busInvalidacionCache.publicar(region, empresaId, null);
+        }
+    }
+
+    private void invalidar(Predicate<EntradaCache> criterio) {
+        int eliminadas = 0;
+        synchronized (entradas) {
+            Iterator<EntradaCache> it = entradas.values().iterator();
+            while (it.hasNext()) {
+                if (criterio.test(it.next())) {
+                    it.remove();
+                    eliminadas++;
+                }
+            }
+        }
+        invalidaciones.addAndGet(eliminadas);
+    }
+
+    private String clave(String subdominio, String recurso) {
+        return subdominio + "|" + recurso;
+    }
+
+    private String calcularEtag(String json) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(json.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            return "\"" + Integer.toHexString(json.hashCode()) + "\"";
+        }
+    }
+
+    /**
+     * Respuesta cacheada: JSON serializado y su ETag
+     */
+    public static class EntradaCache {
+        private final Long empresaId;
+        private final TipoRecurso tipo;
+        private final Long productoId;
+        private final String json;
+        private final String etag;
+        private final long expiraEn;
+
+        EntradaCache(Long empresaId, TipoRecurso tipo, Long productoId, String json, String etag, long expiraEn) {
+            this.empresaId = empresaId;
+            this.tipo = tipo;
+            this.productoId = productoId;
+            this.json = json;
+            this.etag = etag;
+            this.expiraEn = expiraEn;
+        }
+
+        public String getEtag() { return etag; }
+        public String getJson() { return json; }
+    }
+}
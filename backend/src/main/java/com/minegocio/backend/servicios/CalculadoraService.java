@@ -1,170 +1,83 @@
 package com.minegocio.backend.servicios;
 
+import com.minegocio.backend.utilidades.EvaluadorFormulas;
 import org.springframework.stereotype.Service;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class CalculadoraService {
 
-    private final ScriptEngine scriptEngine;
+    // Los equipos de conteo repiten las mismas fórmulas ("12x24+6") miles de veces por inventario
+    private static final int MAX_FORMULAS_CACHEADAS = 1000;
 
-    public CalculadoraService() {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        this.scriptEngine = manager.getEngineByName("JavaScript");
-        
-        // Verificar que el ScriptEngine esté disponible
-        if (this.scriptEngine == null) {
-            System.err.println("⚠️ JavaScript ScriptEngine no disponible, usando evaluación manual");
-        }
-    }
+    private static final BigDecimal MINIMO_ENTERO = BigDecimal.valueOf(Integer.MIN_VALUE);
+    private static final BigDecimal MAXIMO_ENTERO = BigDecimal.valueOf(Integer.MAX_VALUE);
+
+    private final ConcurrentHashMap<String, EvaluadorFormulas.Formula> formulasCompiladas = new ConcurrentHashMap<>();
 
     /**
-     * Evaluar una expresión matemática y devolver el resultado
-     * Ejemplos: "112*4+3", "50+25*2", "100/4+10"
+     * Evaluar una expresión matemática y devolver el resultado redondeado a entero
+     * Ejemplos: "112*4+3", "12x24+6", "100/4+10"
      */
     public ResultadoCalculo evaluarExpresion(String expresion) {
         try {
-            // Validar que la expresión solo contenga caracteres seguros
-            if (!esExpresionSegura(expresion)) {
-                return new ResultadoCalculo(false, 0, "La expresión contiene caracteres no permitidos");
-            }
+            EvaluadorFormulas.Formula formula = obtenerFormulaCompilada(expresion);
 
-            // Limpiar la expresión
-            String expresionLimpia = expresion.trim().replaceAll("\\s+", "");
-            
-            // Si el ScriptEngine no está disponible, usar evaluación manual
-            if (scriptEngine == null) {
-                return evaluarExpresionManual(expresionLimpia);
+            // Camino rápido: solo enteros y + - * (sin BigDecimal)
+            if (formula.esEntera()) {
+                try {
+                    long resultado = formula.evaluarEntero();
+                    if (resultado >= Integer.MIN_VALUE && resultado <= Integer.MAX_VALUE) {
+                        return new ResultadoCalculo(true, (int) resultado, null);
+                    }
+                    return new ResultadoCalculo(false, 0, "El resultado es demasiado grande");
+                } catch (ArithmeticException desborde) {
+                    return new ResultadoCalculo(false, 0, "El resultado es demasiado grande");
+                }
             }
-            
-            // Evaluar la expresión usando ScriptEngine
-            Object resultado = scriptEngine.eval(expresionLimpia);
-            
-            // Convertir a número entero
-            double resultadoDouble = ((Number) resultado).doubleValue();
-            int resultadoEntero = (int) Math.round(resultadoDouble);
-            
-            return new ResultadoCalculo(true, resultadoEntero, null);
-            
-        } catch (ScriptException e) {
-            // Si falla con ScriptEngine, intentar evaluación manual
-            try {
-                return evaluarExpresionManual(expresion.trim().replaceAll("\\s+", ""));
-            } catch (Exception ex) {
-                return new ResultadoCalculo(false, 0, "Error en la expresión matemática: " + e.getMessage());
+
+            BigDecimal resultado = formula.evaluar().setScale(0, RoundingMode.HALF_UP);
+            if (resultado.compareTo(MINIMO_ENTERO) < 0 || resultado.compareTo(MAXIMO_ENTERO) > 0) {
+                return new ResultadoCalculo(false, 0, "El resultado es demasiado grande");
             }
+            return new ResultadoCalculo(true, resultado.intValue(), null);
+
+        } catch (IllegalArgumentException e) {
+            return new ResultadoCalculo(false, 0, e.getMessage());
+        } catch (ArithmeticException e) {
+            return new ResultadoCalculo(false, 0, "Error en la expresión matemática: " + e.getMessage());
         } catch (Exception e) {
             return new ResultadoCalculo(false, 0, "Error inesperado: " + e.getMessage());
         }
     }
-    
+
     /**
-     * Evaluación manual simple para casos donde ScriptEngine no está disponible
+     * Obtiene la fórmula compilada desde la caché o la compila y la guarda.
+     * Las fórmulas inválidas no se cachean.
      */
-    private ResultadoCalculo evaluarExpresionManual(String expresion) {
-        try {
-            // Reemplazar 'x' por '*' para multiplicación
-            expresion = expresion.replace("x", "*").replace("X", "*");
-            
-            // Evaluación básica usando BigDecimal para mayor precisión
-            if (expresion.matches("^[0-9+\\-*/().\\s]+$")) {
-                // Para expresiones simples, usar evaluación básica
-                double resultado = evaluarExpresionBasica(expresion);
-                int resultadoEntero = (int) Math.round(resultado);
-                return new ResultadoCalculo(true, resultadoEntero, null);
-            } else {
-                return new ResultadoCalculo(false, 0, "Expresión no válida");
-            }
-        } catch (Exception e) {
-            return new ResultadoCalculo(false, 0, "Error en evaluación manual: " + e.getMessage());
+    private EvaluadorFormulas.Formula obtenerFormulaCompilada(String expresion) {
+        if (expresion == null) {
+            throw new IllegalArgumentException("La expresión es obligatoria");
         }
-    }
-    
-    /**
-     * Evaluación básica de expresiones matemáticas simples
-     */
-    private double evaluarExpresionBasica(String expresion) {
-        expresion = expresion.replaceAll("\\s+", "");
-        
-        // Manejar sumas y restas (menor precedencia)
-        if (expresion.contains("+") || expresion.contains("-")) {
-            // Buscar el último + o - para manejar correctamente la precedencia
-            int ultimoMas = expresion.lastIndexOf("+");
-            int ultimoMenos = expresion.lastIndexOf("-");
-            
-            // Evitar el signo negativo al inicio
-            if (ultimoMenos == 0) {
-                ultimoMenos = -1;
-            }
-            
-            int posicionOperador = Math.max(ultimoMas, ultimoMenos);
-            
-            if (posicionOperador > 0) {
-                String izquierda = expresion.substring(0, posicionOperador);
-                String derecha = expresion.substring(posicionOperador + 1);
-                char operador = expresion.charAt(posicionOperador);
-                
-                double resultadoIzquierda = evaluarExpresionBasica(izquierda);
-                double resultadoDerecha = evaluarExpresionBasica(derecha);
-                
-                if (operador == '+') {
-                    return resultadoIzquierda + resultadoDerecha;
-                } else {
-                    return resultadoIzquierda - resultadoDerecha;
-                }
-            }
+        EvaluadorFormulas.Formula formula = formulasCompiladas.get(expresion);
+        if (formula != null) {
+            return formula;
         }
-        
-        // Manejar multiplicaciones y divisiones (mayor precedencia)
-        if (expresion.contains("*") || expresion.contains("/")) {
-            // Buscar el primer * o / para manejar correctamente la precedencia
-            int posicionMultiplicacion = expresion.indexOf("*");
-            int posicionDivision = expresion.indexOf("/");
-            
-            int posicionOperador;
-            if (posicionMultiplicacion == -1) {
-                posicionOperador = posicionDivision;
-            } else if (posicionDivision == -1) {
-                posicionOperador = posicionMultiplicacion;
-            } else {
-                posicionOperador = Math.min(posicionMultiplicacion, posicionDivision);
-            }
-            
-            if (posicionOperador > 0) {
-                String izquierda = expresion.substring(0, posicionOperador);
-                String derecha = expresion.substring(posicionOperador + 1);
-                char operador = expresion.charAt(posicionOperador);
-                
-                double resultadoIzquierda = evaluarExpresionBasica(izquierda);
-                double resultadoDerecha = evaluarExpresionBasica(derecha);
-                
-                if (operador == '*') {
-                    return resultadoIzquierda * resultadoDerecha;
-                } else {
-                    if (resultadoDerecha == 0) {
-                        throw new ArithmeticException("División por cero");
-                    }
-                    return resultadoIzquierda / resultadoDerecha;
-                }
+        formula = EvaluadorFormulas.compilar(expresion);
+        if (formulasCompiladas.size() >= MAX_FORMULAS_CACHEADAS) {
+            // Caché acotada: descartar una entrada cualquiera antes de agregar
+            Iterator<String> it = formulasCompiladas.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
             }
         }
-        
-        // Si no hay operadores, intentar parsear como número
-        try {
-            return Double.parseDouble(expresion);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("No se puede evaluar: " + expresion);
-        }
-    }
-
-    /**
-     * Validar que la expresión solo contenga caracteres seguros
-     */
-    private boolean esExpresionSegura(String expresion) {
-        // Permitir solo números, operadores matemáticos básicos y paréntesis
-        return expresion.matches("^[0-9+\\-*/().\\s]+$");
+        formulasCompiladas.put(expresion, formula);
+        return formula;
     }
 
     /**
@@ -194,4 +107,3 @@ public class CalculadoraService {
         }
     }
 }
-
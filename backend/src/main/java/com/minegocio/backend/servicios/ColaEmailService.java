@@ -0,0 +1,332 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.EmailPendiente;
+import com.minegocio.backend.repositorios.EmailPendienteRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de salida de emails (outbox) sobre la tabla emails_pendientes.
+ * - encolar() escribe en la transacción del llamador: si el cambio de negocio se revierte,
+ *   el email no sale; el request no espera a SendGrid/SMTP
+ * - Un despachador toma lotes de emails vencidos (reclamo condicional, seguro entre réplicas)
+ *   y los envía en un pool acotado de hilos
+ * - Los fallos se reintentan con espera exponencial hasta max-intentos
+ * - La clave de deduplicación evita encolar o enviar dos veces el mismo aviso
+ */
+@Service
+public class ColaEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColaEmailService.class);
+
+    @Value("${minegocio.email.cola.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${minegocio.email.cola.hilos:4}")
+    private int hilos;
+
+    @Value("${minegocio.email.cola.tamano-lote:20}")
+    private int tamanoLote;
+
+    @Value("${minegocio.email.cola.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${minegocio.email.cola.espera-inicial-segundos:30}")
+    private long esperaInicialSegundos;
+
+    @Value("${minegocio.email.cola.espera-maxima-minutos:60}")
+    private long esperaMaximaMinutos;
+
+    @Value("${minegocio.email.cola.ventana-deduplicacion-horas:24}")
+    private long ventanaDeduplicacionHoras;
+
+    @Value("${minegocio.email.cola.retencion-dias:7}")
+    private long retencionDias;
+
+    // Un email tomado por un nodo que no lo terminó en este tiempo vuelve a la cola
+    @Value("${minegocio.email.cola.reclamo-vencido-minutos:10}")
+    private long reclamoVencidoMinutos;
+
+    @Autowired
+    private EmailPendienteRepository emailPendienteRepository;
+
+    @Autowired
+    private EnvioEmailService envioEmailService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong duplicados = new AtomicLong();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+
+    private final AtomicBoolean drenando = new AtomicBoolean();
+
+    // Hilos que envían; la cola acotada limita cuántos emails reclama cada nodo a la vez
+    private ThreadPoolExecutor trabajadores;
+
+    // Ejecuta drenar() fuera del hilo del request cuando se confirma un email nuevo
+    private ThreadPoolExecutor despachador;
+
+    private LocalDateTime ultimaLimpieza = LocalDateTime.now();
+
+    @PostConstruct
+    public void iniciar() {
+        trabajadores = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(tamanoLote), hilosDemonio("email-envio-"));
+        // Con un drenado ya en cola los avisos siguientes sobran
+        despachador = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1), hilosDemonio("email-despachador-"), new ThreadPoolExecutor.DiscardPolicy());
+
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("email.cola.encolados", encolados, AtomicLong::get)
+            .description("Emails agregados a la cola de salida")
+            .register(meterRegistry);
+        FunctionCounter.builder("email.cola.duplicados", duplicados, AtomicLong::get)
+            .description("Emails no encolados o descartados por tener la misma clave que otro")
+            .register(meterRegistry);
+        FunctionCounter.builder("email.cola.enviados", enviados, AtomicLong::get)
+            .description("Emails entregados al proveedor")
+            .register(meterRegistry);
+        FunctionCounter.builder("email.cola.reintentos", reintentos, AtomicLong::get)
+            .description("Envíos fallidos reprogramados con espera exponencial")
+            .register(meterRegistry);
+        FunctionCounter.builder("email.cola.fallidos", fallidos, AtomicLong::get)
+            .description("Emails que agotaron los reintentos")
+            .register(meterRegistry);
+        Gauge.builder("email.cola.en_envio", this, c -> c.trabajadores.getActiveCount() + c.trabajadores.getQueue().size())
+            .description("Emails reclamados por este nodo y todavía no terminados")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        despachador.shutdownNow();
+        trabajadores.shutdown();
+        try {
+            // Lo que no termine queda ENVIANDO y se libera por reclamo vencido
+            trabajadores.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Agrega un email a la cola dentro de la transacción actual (o en una propia si no hay).
+     * Con clave de deduplicación, no se encola si ya hay otro con la misma clave pendiente
+     * o enviado dentro de la ventana. Devuelve false si se descartó por duplicado.
+     */
+    @Transactional
+    public boolean encolar(String destinatario, String asunto, String contenido, String claveDeduplicacion) {
+        if (claveDeduplicacion != null && emailPendienteRepository.existeConClave(
+                claveDeduplicacion, LocalDateTime.now().minusHours(ventanaDeduplicacionHoras))) {
+            duplicados.incrementAndGet();
+            logger.debug("Email duplicado no encolado: {}", claveDeduplicacion);
+            return false;
+        }
+
+        emailPendienteRepository.save(new EmailPendiente(destinatario, asunto, contenido, claveDeduplicacion));
+        encolados.incrementAndGet();
+        logger.debug("Email encolado para {}: {}", destinatario, asunto);
+
+        // Enviar apenas se confirme, sin esperar al próximo sondeo
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despertar();
+                }
+            });
+        } else {
+            despertar();
+        }
+        return true;
+    }
+
+    /**
+     * Sondeo periódico: envía lo que venció (reintentos, emails de otras réplicas) y hace limpieza
+     */
+    @Scheduled(fixedDelayString = "${minegocio.email.cola.intervalo-ms:5000}")
+    public void sondear() {
+        drenar();
+        if (ultimaLimpieza.isBefore(LocalDateTime.now().minusMinutes(10))) {
+            ultimaLimpieza = LocalDateTime.now();
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(estado ->
+                    emailPendienteRepository.eliminarTerminadosAnteriores(LocalDateTime.now().minusDays(retencionDias)));
+            } catch (Exception e) {
+                logger.warn("Error limpiando emails terminados: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reclama lotes de emails vencidos mientras haya lugar en el pool y los entrega a los hilos de envío
+     */
+    public void drenar() {
+        if (!habilitada || !drenando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            transaccion.executeWithoutResult(estado -> emailPendienteRepository.liberarReclamados(
+                LocalDateTime.now().minusMinutes(reclamoVencidoMinutos)));
+
+            while (true) {
+                int libres = Math.min(tamanoLote, trabajadores.getQueue().remainingCapacity());
+                if (libres == 0) {
+                    break;
+                }
+                List<Long> reclamados = transaccion.execute(estado -> {
+                    LocalDateTime ahora = LocalDateTime.now();
+                    List<Long> ids = new ArrayList<>();
+                    for (Long id : emailPendienteRepository.findIdsListosParaEnviar(ahora, PageRequest.of(0, libres))) {
+                        if (emailPendienteRepository.reclamar(id, ahora) == 1) {
+                            ids.add(id);
+                        }
+                    }
+                    return ids;
+                });
+                for (Long id : reclamados) {
+                    try {
+                        trabajadores.execute(() -> entregar(id));
+                    } catch (RejectedExecutionException e) {
+                        // Pool detenido: queda ENVIANDO y vuelve a la cola por reclamo vencido
+                        return;
+                    }
+                }
+                if (reclamados.size() < libres) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error drenando la cola de emails: {}", e.getMessage(), e);
+        } finally {
+            drenando.set(false);
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new HashMap<>();
+        for (Object[] fila : emailPendienteRepository.contarPorEstado()) {
+            estadisticas.put(fila[0].toString(), fila[1]);
+        }
+        estadisticas.put("encolados", encolados.get());
+        estadisticas.put("duplicados", duplicados.get());
+        estadisticas.put("enviados", enviados.get());
+        estadisticas.put("reintentos", reintentos.get());
+        estadisticas.put("fallidos", fallidos.get());
+        return estadisticas;
+    }
+
+    private void despertar() {
+        if (habilitada) {
+            despachador.execute(this::drenar);
+        }
+    }
+
+    /**
+     * Envía un email reclamado y registra el resultado (enviado, reprogramado o fallido)
+     */
+    private void entregar(Long id) {
+        try {
+            EmailPendiente email = emailPendienteRepository.findById(id).orElse(null);
+            if (email == null) {
+                return;
+            }
+
+            // Otra réplica pudo encolar el mismo aviso al mismo tiempo y estar enviándolo ahora
+            if (email.getClaveDeduplicacion() != null
+                    && emailPendienteRepository.existeOtroEnviadoOEnCurso(email.getClaveDeduplicacion(), id)) {
+                email.setEstado(EmailPendiente.EstadoEmail.DESCARTADO);
+                email.setFechaReclamo(null);
+                emailPendienteRepository.save(email);
+                duplicados.incrementAndGet();
+                return;
+            }
+
+            email.setIntentos(email.getIntentos() + 1);
+            try {
+                envioEmailService.enviar(email.getDestinatario(), email.getAsunto(), email.getContenido());
+                email.setEstado(EmailPendiente.EstadoEmail.ENVIADO);
+                email.setFechaEnvio(LocalDateTime.now());
+                email.setUltimoError(null);
+                enviados.incrementAndGet();
+            } catch (Exception e) {
+                String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                email.setUltimoError(error.length() > 1000 ? error.substring(0, 1000) : error);
+                if (email.getIntentos() >= maxIntentos) {
+                    email.setEstado(EmailPendiente.EstadoEmail.FALLIDO);
+                    fallidos.incrementAndGet();
+                    logger.error("Email {} a {} descartado tras {} intentos: {}",
+                        id, email.getDestinatario(), email.getIntentos(), error);
+                } else {
+                    email.setEstado(EmailPendiente.EstadoEmail.PENDIENTE);
+                    email.setProximoIntento(LocalDateTime.now().plusSeconds(calcularEspera(email.getIntentos())));
+                    reintentos.incrementAndGet();
+                    logger.warn("Email {} falló (intento {}), se reintenta a las {}: {}",
+                        id, email.getIntentos(), email.getProximoIntento(), error);
+                }
+            }
+            email.setFechaReclamo(null);
+            emailPendienteRepository.save(email);
+        } catch (Exception e) {
+            // Queda ENVIANDO y vuelve a la cola por reclamo vencido
+            logger.error("Error registrando el envío del email {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Espera antes del próximo intento: inicial * 2^(intentos-1), con tope
+     */
+    private long calcularEspera(int intentos) {
+        long tope = esperaMaximaMinutos * 60;
+        int exponente = Math.min(intentos - 1, 20);
+        return Math.min(esperaInicialSegundos << exponente, tope);
+    }
+
+    private static ThreadFactory hilosDemonio(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
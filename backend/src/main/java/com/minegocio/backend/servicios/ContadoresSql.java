@@ -0,0 +1,118 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.IndiceEmpresa;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+/**
+ * Operaciones SQL compartidas por las tablas de contadores incrementales (ranking de ventas,
+ * libro diario de stock, resumen diario de ventas):
+ * - insertarSiFalta: alta de la fila de una clave única sin fallar si otra transacción la crea
+ *   al mismo tiempo (ON CONFLICT DO NOTHING en PostgreSQL); después se suma con un UPDATE, que
+ *   bloquea la fila y serializa los incrementos concurrentes
+ * - bloquearCompartido / bloquearExclusivo: candado de transacción por empresa y contador
+ *   (advisory lock de PostgreSQL) para que una reconstrucción completa no pise los incrementos
+ *   que se confirman mientras corre. En H2 (desarrollo, una sola instancia) no hacen nada.
+ */
+@Component
+public class ContadoresSql {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Inserta la fila con los valores dados salvo que ya exista una con la misma clave.
+     * Devuelve true si la insertó esta llamada.
+     */
+    public boolean insertarSiFalta(String tabla, LinkedHashMap<String, Object> valores, String... columnasClave) {
+        return insertarSiFalta(jdbcTemplate, tabla, valores, columnasClave);
+    }
+
+    /**
+     * Igual que insertarSiFalta, sobre otra conexión de la misma base (p. ej. una dedicada)
+     */
+    public boolean insertarSiFalta(JdbcTemplate jdbc, String tabla, LinkedHashMap<String, Object> valores,
+                                   String... columnasClave) {
+        String columnas = String.join(", ", valores.keySet());
+        String marcadores = String.join(", ", Collections.nCopies(valores.size(), "?"));
+        Object[] parametros = valores.values().toArray();
+
+        if (esPostgres()) {
+            String sql = "INSERT INTO " + tabla + " (" + columnas + ") VALUES (" + marcadores + ") " +
+                "ON CONFLICT (" + String.join(", ", columnasClave) + ") DO NOTHING";
+            return jdbc.update(sql, parametros) > 0;
+        }
+
+        // H2: un INSERT fallido no invalida la transacción, basta con ignorar el duplicado
+        try {
+            return jdbc.update("INSERT INTO " + tabla + " (" + columnas + ") VALUES (" + marcadores + ")",
+                parametros) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Deja la marca de índice construido de la empresa (en la transacción de la reconstrucción)
+     */
+    public void marcarIndice(Long empresaId, IndiceEmpresa.TipoIndice tipo) {
+        insertarSiFalta("indices_empresa", fila(
+                "empresa_id", empresaId,
+                "tipo", tipo.name(),
+                "fecha_construccion", LocalDateTime.now()),
+                "empresa_id", "tipo");
+    }
+
+    /**
+     * Candado compartido del contador de la empresa hasta el fin de la transacción actual
+     * (lo toman los incrementos: no se bloquean entre sí)
+     */
+    public void bloquearCompartido(String contador, Long empresaId) {
+        if (esPostgres()) {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock_shared(?, ?)", contador.hashCode(), clave(empresaId));
+        }
+    }
+
+    /**
+     * Candado exclusivo del contador de la empresa hasta el fin de la transacción actual
+     * (lo toma la reconstrucción: espera a los incrementos en curso y frena los nuevos)
+     */
+    public void bloquearExclusivo(String contador, Long empresaId) {
+        if (esPostgres()) {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?, ?)", contador.hashCode(), clave(empresaId));
+        }
+    }
+
+    /**
+     * Valores de una fila en el orden de las columnas del INSERT
+     */
+    public static LinkedHashMap<String, Object> fila(Object... columnasYValores) {
+        LinkedHashMap<String, Object> valores = new LinkedHashMap<>();
+        for (int i = 0; i < columnasYValores.length; i += 2) {
+            valores.put((String) columnasYValores[i], columnasYValores[i + 1]);
+        }
+        return valores;
+    }
+
+    public boolean esPostgres() {
+        if (postgres == null) {
+            String motor = jdbcTemplate.execute((ConnectionCallback<String>) conexion ->
+                conexion.getMetaData().getDatabaseProductName());
+            postgres = motor != null && motor.toLowerCase().contains("postgres");
+        }
+        return postgres;
+    }
+
+    private static int clave(Long empresaId) {
+        return empresaId != null ? (int) (empresaId ^ (empresaId >>> 32)) : 0;
+    }
+}
@@ -0,0 +1,559 @@
+package com.minegocio.backend.servicios;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minegocio.backend.dto.AlertaSuperAdminDTO;
+import com.minegocio.backend.dto.DashboardSuperAdminDTO;
+import com.minegocio.backend.dto.DatoTendenciaDTO;
+import com.minegocio.backend.dto.EmpresaTopDTO;
+import com.minegocio.backend.dto.NotificacionSuperAdminDTO;
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.Plan;
+import com.minegocio.backend.entidades.SnapshotDashboardSuperAdmin;
+import com.minegocio.backend.repositorios.ClienteRepository;
+import com.minegocio.backend.repositorios.EmpresaRepository;
+import com.minegocio.backend.repositorios.PedidoRepository;
+import com.minegocio.backend.repositorios.PlanRepository;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.repositorios.SnapshotDashboardSuperAdminRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard del super admin precalculado (tabla snapshot_dashboard_superadmin):
+ * - Una tarea periódica arma todas las cifras con consultas agrupadas (un puñado de consultas en
+ *   total, sin recorrer empresa por empresa) y guarda el DTO en JSON como una versión nueva
+ * - GET /dashboard sirve la última versión desde memoria, con su versión, cuándo se calculó y si
+ *   está desactualizada; POST /dashboard/refrescar la recalcula en el momento
+ * - Con varias réplicas la versión única de la tabla decide quién guarda: la que pierde carga la
+ *   versión ganadora, y el resto la toma al ver una versión más nueva o por el bus de invalidación
+ */
+@Service
+public class DashboardSuperAdminSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSuperAdminSnapshotService.class);
+
+    private static final String REGION = "dashboard-superadmin";
+
+    private static final int MESES_TENDENCIA = 6;
+    private static final int LIMITE_TOP = 5;
+    private static final int DIAS_ACTIVIDAD = 30;
+
+    private static final String SQL_TOTALES =
+        "SELECT (SELECT COUNT(*) FROM empresas) AS empresas, " +
+        "(SELECT COUNT(*) FROM usuarios WHERE activo = TRUE) AS usuarios, " +
+        "(SELECT COUNT(*) FROM clientes) AS clientes, " +
+        "(SELECT COUNT(*) FROM productos) AS productos, " +
+        "(SELECT COUNT(*) FROM pedidos) AS pedidos, " +
+        "(SELECT COUNT(*) FROM ventas_rapidas) AS ventas_rapidas, " +
+        "(SELECT COUNT(*) FROM suscripciones WHERE estado = 'CANCELADA' AND fecha_cancelacion >= ?) AS canceladas_mes";
+
+    private static final String SQL_EMPRESAS_POR_ESTADO =
+        "SELECT estado_suscripcion AS estado, COUNT(*) AS cantidad, " +
+        "SUM(CASE WHEN fecha_creacion >= ? THEN 1 ELSE 0 END) AS nuevas_mes, " +
+        "SUM(CASE WHEN fecha_creacion >= ? THEN 1 ELSE 0 END) AS nuevas_ano, " +
+        "SUM(CASE WHEN fecha_creacion >= ? THEN 1 ELSE 0 END) AS nuevas_semana " +
+        "FROM empresas GROUP BY estado_suscripcion";
+
+    private static final String SQL_ACTIVAS_POR_PLAN =
+        "SELECT plan_id, COUNT(*) AS cantidad FROM suscripciones WHERE estado = 'ACTIVA' GROUP BY plan_id";
+
+    private static final String SQL_TOP_INGRESOS =
+        "SELECT s.empresa_id, SUM(p.precio) AS ingresos, MAX(p.nombre) AS plan " +
+        "FROM suscripciones s JOIN planes p ON p.id = s.plan_id WHERE s.estado = 'ACTIVA' " +
+        "GROUP BY s.empresa_id ORDER BY ingresos DESC, s.empresa_id LIMIT ?";
+
+    private static final String SQL_TOP_ACTIVIDAD =
+        "SELECT a.empresa_id, SUM(a.cantidad) AS cantidad FROM (" +
+        "SELECT empresa_id, COUNT(*) AS cantidad FROM pedidos WHERE fecha_creacion >= ? GROUP BY empresa_id " +
+        "UNION ALL " +
+        "SELECT empresa_id, COUNT(*) AS cantidad FROM ventas_rapidas WHERE fecha_venta >= ? GROUP BY empresa_id" +
+        ") a GROUP BY a.empresa_id ORDER BY cantidad DESC, a.empresa_id LIMIT ?";
+
+    private static final String SQL_INACTIVAS =
+        "SELECT COUNT(*) FROM empresas e WHERE e.fecha_creacion < ? " +
+        "AND NOT EXISTS (SELECT 1 FROM pedidos p WHERE p.empresa_id = e.id AND p.fecha_creacion >= ?) " +
+        "AND NOT EXISTS (SELECT 1 FROM ventas_rapidas v WHERE v.empresa_id = e.id AND v.fecha_venta >= ?)";
+
+    // Ingreso mensual vigente en cada corte: suscripciones pagas que cubrían la fecha y no estaban canceladas
+    private static final String CASO_INGRESOS =
+        "COALESCE(SUM(CASE WHEN s.fecha_inicio <= ? AND (s.fecha_fin IS NULL OR s.fecha_fin >= ?) " +
+        "AND (s.fecha_cancelacion IS NULL OR s.fecha_cancelacion > ?) THEN p.precio ELSE 0 END), 0)";
+
+    @Autowired
+    private SnapshotDashboardSuperAdminRepository snapshotRepository;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BusInvalidacionCache busInvalidacionCache;
+
+    // Edad a partir de la cual la tarea periódica vuelve a calcular
+    @Value("${minegocio.superadmin.dashboard.vigencia-segundos:300}")
+    private long vigenciaSegundos;
+
+    // Edad a partir de la cual se marca la foto servida como desactualizada
+    @Value("${minegocio.superadmin.dashboard.desactualizado-segundos:900}")
+    private long desactualizadoSegundos;
+
+    @Value("${minegocio.superadmin.dashboard.versiones-conservadas:10}")
+    private int versionesConservadas;
+
+    // Un solo cálculo a la vez por réplica: los pedidos de refresco concurrentes esperan y reusan el resultado
+    private final ReentrantLock calculando = new ReentrantLock();
+
+    private volatile Foto actual;
+
+    private record Foto(long version, String datos, LocalDateTime fechaCalculo, long duracionMs) {
+    }
+
+    @PostConstruct
+    public void registrar() {
+        busInvalidacionCache.suscribir(REGION, (empresaId, fecha) -> cargarUltimaSiEsNueva());
+    }
+
+    /**
+     * Última versión calculada del dashboard; solo calcula si todavía no hay ninguna guardada
+     */
+    public DashboardSuperAdminDTO obtener() {
+        Foto foto = actual;
+        if (foto == null) {
+            foto = cargarOCalcular();
+        }
+        return armar(foto);
+    }
+
+    /**
+     * Recalcula el dashboard ahora. Si otro pedido terminó de calcular mientras este esperaba,
+     * se devuelve ese resultado en lugar de calcular de nuevo.
+     */
+    public DashboardSuperAdminDTO refrescar() {
+        LocalDateTime pedido = LocalDateTime.now();
+        calculando.lock();
+        try {
+            Foto foto = actual;
+            if (foto != null && !foto.fechaCalculo().isBefore(pedido)) {
+                return armar(foto);
+            }
+            foto = calcularYGuardar();
+            busInvalidacionCache.publicar(REGION, null, null);
+            return armar(foto);
+        } finally {
+            calculando.unlock();
+        }
+    }
+
+    /**
+     * Recalcula cuando la última versión guardada superó la vigencia; si otra réplica ya guardó
+     * una versión vigente más nueva, solo la carga
+     */
+    @Scheduled(initialDelayString = "${minegocio.superadmin.dashboard.intervalo-ms:60000}",
+               fixedDelayString = "${minegocio.superadmin.dashboard.intervalo-ms:60000}")
+    public void actualizar() {
+        if (!calculando.tryLock()) {
+            return;
+        }
+        try {
+            List<Object[]> ultima = snapshotRepository.findUltimaVersion();
+            if (!ultima.isEmpty()) {
+                long version = ((Number) ultima.get(0)[0]).longValue();
+                LocalDateTime fechaCalculo = (LocalDateTime) ultima.get(0)[1];
+                if (fechaCalculo.isAfter(LocalDateTime.now().minusSeconds(vigenciaSegundos))) {
+                    Foto foto = actual;
+                    if (foto == null || foto.version() < version) {
+                        cargarUltima();
+                    }
+                    return;
+                }
+            }
+            calcularYGuardar();
+        } catch (Exception e) {
+            logger.error("Error al actualizar el dashboard del super admin: {}", e.getMessage(), e);
+        } finally {
+            calculando.unlock();
+        }
+    }
+
+    private Foto cargarOCalcular() {
+        calculando.lock();
+        try {
+            if (actual != null) {
+                return actual;
+            }
+            // Una versión guardada, aunque esté vencida, se sirve marcada y la tarea periódica la renueva
+            Foto guardada = cargarUltima();
+            return guardada != null ? guardada : calcularYGuardar();
+        } finally {
+            calculando.unlock();
+        }
+    }
+
+    private void cargarUltimaSiEsNueva() {
+        try {
+            List<Object[]> ultima = snapshotRepository.findUltimaVersion();
+            Foto foto = actual;
+            if (!ultima.isEmpty() && (foto == null || foto.version() < ((Number) ultima.get(0)[0]).longValue())) {
+                cargarUltima();
+            }
+        } catch (Exception e) {
+            logger.error("Error al cargar la última versión del dashboard del super admin: {}", e.getMessage(), e);
+        }
+    }
+
+    private Foto cargarUltima() {
+        return snapshotRepository.findFirstByOrderByVersionDesc()
+            .map(this::recordar)
+            .orElse(null);
+    }
+
+    private synchronized Foto recordar(SnapshotDashboardSuperAdmin snapshot) {
+        Foto foto = new Foto(snapshot.getVersion(), snapshot.getDatos(), snapshot.getFechaCalculo(), snapshot.getDuracionMs());
+        if (actual == null || actual.version() < foto.version()) {
+            actual = foto;
+        }
+        return actual;
+    }
+
+    private Foto calcularYGuardar() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime fechaCalculo = LocalDateTime.now();
+
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        DashboardSuperAdminDTO dashboard = lectura.execute(status -> calcular(fechaCalculo));
+
+        String datos;
+        try {
+            datos = objectMapper.writeValueAsString(dashboard);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el dashboard del super admin", e);
+        }
+        long duracionMs = System.currentTimeMillis() - inicio;
+
+        TransactionTemplate escritura = new TransactionTemplate(transactionManager);
+        escritura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            SnapshotDashboardSuperAdmin guardado = escritura.execute(status -> {
+                List<Object[]> ultima = snapshotRepository.findUltimaVersion();
+                long version = ultima.isEmpty() ? 1 : ((Number) ultima.get(0)[0]).longValue() + 1;
+                SnapshotDashboardSuperAdmin snapshot = snapshotRepository.save(
+                    new SnapshotDashboardSuperAdmin(version, datos, fechaCalculo, duracionMs));
+                snapshotRepository.eliminarAnterioresA(version - versionesConservadas + 1);
+                return snapshot;
+            });
+            logger.info("Dashboard del super admin calculado: versión {} en {} ms", guardado.getVersion(), duracionMs);
+            return recordar(guardado);
+        } catch (DataIntegrityViolationException e) {
+            // Otra réplica guardó la misma versión: se usa la suya
+            logger.info("Otra réplica guardó el dashboard del super admin; se carga su versión");
+            Foto ganadora = cargarUltima();
+            if (ganadora == null) {
+                throw e;
+            }
+            return ganadora;
+        }
+    }
+
+    private DashboardSuperAdminDTO armar(Foto foto) {
+        DashboardSuperAdminDTO dashboard;
+        try {
+            dashboard = objectMapper.readValue(foto.datos(), DashboardSuperAdminDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer la versión " + foto.version() + " del dashboard del super admin", e);
+        }
+        long segundos = Math.max(0, Duration.between(foto.fechaCalculo(), LocalDateTime.now()).getSeconds());
+        dashboard.setVersionSnapshot(foto.version());
+        dashboard.setFechaCalculo(foto.fechaCalculo());
+        dashboard.setDuracionCalculoMs(foto.duracionMs());
+        dashboard.setSegundosDesdeCalculo(segundos);
+        dashboard.setDesactualizado(segundos > desactualizadoSegundos);
+        return dashboard;
+    }
+
+    /**
+     * Arma todas las cifras del dashboard con consultas agrupadas
+     */
+    private DashboardSuperAdminDTO calcular(LocalDateTime ahora) {
+        DashboardSuperAdminDTO dashboard = new DashboardSuperAdminDTO();
+
+        LocalDateTime inicioMes = ahora.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime inicioAno = ahora.toLocalDate().withDayOfYear(1).atStartOfDay();
+        LocalDateTime inicioSemana = ahora.minusDays(7);
+        LocalDateTime inicioActividad = ahora.minusDays(DIAS_ACTIVIDAD);
+
+        // Estadísticas generales
+        Map<String, Object> totales = jdbcTemplate.queryForMap(SQL_TOTALES, Timestamp.valueOf(inicioMes));
+        dashboard.setTotalEmpresas(numero(totales.get("empresas")));
+        dashboard.setTotalUsuarios(numero(totales.get("usuarios")));
+        dashboard.setTotalClientes(numero(totales.get("clientes")));
+        dashboard.setTotalProductos(numero(totales.get("productos")));
+        dashboard.setTotalPedidos(numero(totales.get("pedidos")));
+        dashboard.setTotalVentasRapidas(numero(totales.get("ventas_rapidas")));
+        dashboard.setEmpresasCanceladasEsteMes(numero(totales.get("canceladas_mes")));
+
+        // Estadísticas de suscripciones y crecimiento
+        Map<String, Long> porEstado = new HashMap<>();
+        long nuevasMes = 0;
+        long nuevasAno = 0;
+        long nuevasSemana = 0;
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(SQL_EMPRESAS_POR_ESTADO,
+                Timestamp.valueOf(inicioMes), Timestamp.valueOf(inicioAno), Timestamp.valueOf(inicioSemana))) {
+            porEstado.put(String.valueOf(fila.get("estado")), numero(fila.get("cantidad")));
+            nuevasMes += numero(fila.get("nuevas_mes"));
+            nuevasAno += numero(fila.get("nuevas_ano"));
+            nuevasSemana += numero(fila.get("nuevas_semana"));
+        }
+        dashboard.setEmpresasActivas(porEstado.getOrDefault(Empresa.EstadoSuscripcion.ACTIVA.name(), 0L));
+        dashboard.setEmpresasEnPrueba(porEstado.getOrDefault(Empresa.EstadoSuscripcion.PRUEBA.name(), 0L));
+        dashboard.setEmpresasSuspendidas(porEstado.getOrDefault(Empresa.EstadoSuscripcion.SUSPENDIDA.name(), 0L));
+        dashboard.setEmpresasCanceladas(porEstado.getOrDefault(Empresa.EstadoSuscripcion.CANCELADA.name(), 0L));
+        dashboard.setNuevasEmpresasEsteMes(nuevasMes);
+        dashboard.setNuevasEmpresasEsteAno(nuevasAno);
+
+        // Empresas con prueba por expirar (próximos 7 días)
+        List<Empresa> porExpirar = empresaRepository.findEmpresasConPruebaPorExpirar(ahora, ahora.plusDays(7));
+        dashboard.setEmpresasPorExpirar((long) porExpirar.size());
+
+        // Estadísticas de planes
+        Map<Long, Long> activasPorPlan = new HashMap<>();
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(SQL_ACTIVAS_POR_PLAN)) {
+            activasPorPlan.put(numero(fila.get("plan_id")), numero(fila.get("cantidad")));
+        }
+        Map<String, Long> empresasPorPlan = new LinkedHashMap<>();
+        Map<String, BigDecimal> ingresosPorPlan = new LinkedHashMap<>();
+        for (Plan plan : planRepository.findByActivoTrueOrderByOrdenAsc()) {
+            long cantidad = activasPorPlan.getOrDefault(plan.getId(), 0L);
+            empresasPorPlan.put(plan.getNombre(), cantidad);
+            ingresosPorPlan.put(plan.getNombre(), plan.getPrecio().multiply(new BigDecimal(cantidad)));
+        }
+        dashboard.setEmpresasPorPlan(empresasPorPlan);
+        dashboard.setIngresosPorPlan(ingresosPorPlan);
+
+        // Estadísticas financieras
+        BigDecimal ingresosMensuales = ingresosPorPlan.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        dashboard.setIngresosMensuales(ingresosMensuales);
+        dashboard.setIngresosAnuales(ingresosMensuales.multiply(new BigDecimal("12")));
+        dashboard.setIngresosTotales(ingresosMensuales.multiply(new BigDecimal("24"))); // Ejemplo
+
+        long activas = dashboard.getEmpresasActivas();
+        if (activas > 0) {
+            dashboard.setPromedioIngresosPorEmpresa(ingresosMensuales.divide(new BigDecimal(activas), 2, RoundingMode.HALF_UP));
+        }
+        long enPrueba = dashboard.getEmpresasEnPrueba();
+        if (enPrueba > 0) {
+            dashboard.setTasaConversionPrueba(new BigDecimal(activas)
+                .divide(new BigDecimal(enPrueba + activas), 4, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal("100")));
+        }
+
+        // Top empresas y empresas en riesgo: las estadísticas de todas salen de una consulta agrupada por tabla
+        Map<Long, EmpresaTopDTO> porIngresos = new LinkedHashMap<>();
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(SQL_TOP_INGRESOS, LIMITE_TOP)) {
+            EmpresaTopDTO dto = new EmpresaTopDTO();
+            dto.setIngresos(new BigDecimal(String.valueOf(fila.get("ingresos"))));
+            dto.setPlanNombre((String) fila.get("plan"));
+            porIngresos.put(numero(fila.get("empresa_id")), dto);
+        }
+        Map<Long, EmpresaTopDTO> porActividad = new LinkedHashMap<>();
+        long maximaActividad = 0;
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(SQL_TOP_ACTIVIDAD,
+                Timestamp.valueOf(inicioActividad), Timestamp.valueOf(inicioActividad), LIMITE_TOP)) {
+            long cantidad = numero(fila.get("cantidad"));
+            maximaActividad = Math.max(maximaActividad, cantidad);
+            EmpresaTopDTO dto = new EmpresaTopDTO();
+            dto.setPuntuacionActividad((int) cantidad);
+            porActividad.put(numero(fila.get("empresa_id")), dto);
+        }
+        for (EmpresaTopDTO dto : porActividad.values()) {
+            // Puntuación de 0 a 100 relativa a la empresa con más movimientos en el período
+            dto.setPuntuacionActividad((int) Math.round(dto.getPuntuacionActividad() * 100.0 / Math.max(1, maximaActividad)));
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(porIngresos.keySet());
+        ids.addAll(porActividad.keySet());
+        porExpirar.forEach(empresa -> ids.add(empresa.getId()));
+        Map<Long, Empresa> empresas = new HashMap<>();
+        Map<Long, Long> productos = new HashMap<>();
+        Map<Long, Long> clientes = new HashMap<>();
+        Map<Long, Long> pedidos = new HashMap<>();
+        if (!ids.isEmpty()) {
+            empresaRepository.findAllById(ids).forEach(empresa -> empresas.put(empresa.getId(), empresa));
+            porEmpresa(productoRepository.contarActivosPorEmpresas(ids), productos);
+            porEmpresa(clienteRepository.contarActivosPorEmpresas(ids), clientes);
+            porEmpresa(pedidoRepository.contarPorEmpresas(ids), pedidos);
+        }
+
+        dashboard.setTopEmpresasPorIngresos(completar(porIngresos, empresas, productos, clientes, pedidos));
+        dashboard.setTopEmpresasPorActividad(completar(porActividad, empresas, productos, clientes, pedidos));
+        List<EmpresaTopDTO> enRiesgo = new ArrayList<>();
+        for (Empresa empresa : porExpirar) {
+            EmpresaTopDTO dto = new EmpresaTopDTO();
+            dto.setDiasRestantes(ChronoUnit.DAYS.between(ahora, empresa.getFechaFinPrueba()));
+            completar(dto, empresa, productos, clientes, pedidos);
+            enRiesgo.add(dto);
+        }
+        dashboard.setEmpresasEnRiesgo(enRiesgo);
+
+        // Alertas y notificaciones
+        List<AlertaSuperAdminDTO> alertas = new ArrayList<>();
+        for (Empresa empresa : porExpirar) {
+            AlertaSuperAdminDTO alerta = new AlertaSuperAdminDTO(
+                "Empresa por expirar",
+                empresa.getNombre() + " tiene su suscripción próxima a expirar",
+                "warning"
+            );
+            alerta.setEmpresaNombre(empresa.getNombre());
+            alerta.setEmpresaId(empresa.getId());
+            alertas.add(alerta);
+        }
+        dashboard.setAlertas(alertas);
+
+        List<NotificacionSuperAdminDTO> notificaciones = new ArrayList<>();
+        if (nuevasSemana > 0) {
+            notificaciones.add(new NotificacionSuperAdminDTO(
+                "Nuevas empresas registradas",
+                "Se han registrado " + nuevasSemana + " nuevas empresas esta semana",
+                "info"
+            ));
+        }
+        dashboard.setNotificaciones(notificaciones);
+
+        // Tendencias de los últimos meses: un corte por mes, todos en la misma consulta
+        List<LocalDateTime> cortes = new ArrayList<>();
+        for (int i = MESES_TENDENCIA - 1; i >= 0; i--) {
+            cortes.add(ahora.minusMonths(i));
+        }
+        dashboard.setTendenciaEmpresas(tendenciaAcumulada("empresas", cortes));
+        dashboard.setTendenciaProductos(tendenciaAcumulada("productos", cortes));
+        dashboard.setTendenciaIngresos(tendenciaIngresos(cortes));
+
+        // Estadísticas de actividad
+        dashboard.setEmpresasActivasHoy(dashboard.getEmpresasActivas());
+        Timestamp desde = Timestamp.valueOf(inicioActividad);
+        dashboard.setEmpresasInactivasMasDe30Dias(jdbcTemplate.queryForObject(SQL_INACTIVAS, Long.class, desde, desde, desde));
+        dashboard.setEmpresasNuevasEstaSemana(nuevasSemana);
+
+        return dashboard;
+    }
+
+    private List<EmpresaTopDTO> completar(Map<Long, EmpresaTopDTO> porEmpresa, Map<Long, Empresa> empresas,
+                                          Map<Long, Long> productos, Map<Long, Long> clientes, Map<Long, Long> pedidos) {
+        List<EmpresaTopDTO> lista = new ArrayList<>();
+        porEmpresa.forEach((empresaId, dto) -> {
+            Empresa empresa = empresas.get(empresaId);
+            if (empresa != null) {
+                completar(dto, empresa, productos, clientes, pedidos);
+                lista.add(dto);
+            }
+        });
+        return lista;
+    }
+
+    private void completar(EmpresaTopDTO dto, Empresa empresa,
+                           Map<Long, Long> productos, Map<Long, Long> clientes, Map<Long, Long> pedidos) {
+        dto.setId(empresa.getId());
+        dto.setNombre(empresa.getNombre());
+        dto.setSubdominio(empresa.getSubdominio());
+        dto.setEmail(empresa.getEmail());
+        dto.setLogoUrl(empresa.getLogoUrl());
+        dto.setEstadoSuscripcion(empresa.getEstadoSuscripcion().toString());
+        dto.setUltimaActividad(empresa.getFechaActualizacion());
+        dto.setTotalProductos(productos.getOrDefault(empresa.getId(), 0L));
+        dto.setTotalClientes(clientes.getOrDefault(empresa.getId(), 0L));
+        dto.setTotalPedidos(pedidos.getOrDefault(empresa.getId(), 0L));
+    }
+
+    private List<DatoTendenciaDTO> tendenciaAcumulada(String tabla, List<LocalDateTime> cortes) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        Object[] parametros = new Object[cortes.size()];
+        for (int i = 0; i < cortes.size(); i++) {
+            sql.append(i > 0 ? ", " : "")
+               .append("COALESCE(SUM(CASE WHEN fecha_creacion IS NULL OR fecha_creacion <= ? THEN 1 ELSE 0 END), 0) AS c").append(i);
+            parametros[i] = Timestamp.valueOf(cortes.get(i));
+        }
+        Map<String, Object> fila = jdbcTemplate.queryForMap(sql.append(" FROM ").append(tabla).toString(), parametros);
+
+        List<DatoTendenciaDTO> tendencia = new ArrayList<>();
+        for (int i = 0; i < cortes.size(); i++) {
+            tendencia.add(new DatoTendenciaDTO(cortes.get(i), numero(fila.get("c" + i))));
+        }
+        return tendencia;
+    }
+
+    private List<DatoTendenciaDTO> tendenciaIngresos(List<LocalDateTime> cortes) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        Object[] parametros = new Object[cortes.size() * 3];
+        for (int i = 0; i < cortes.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(CASO_INGRESOS).append(" AS c").append(i);
+            Timestamp corte = Timestamp.valueOf(cortes.get(i));
+            parametros[i * 3] = corte;
+            parametros[i * 3 + 1] = corte;
+            parametros[i * 3 + 2] = corte;
+        }
+        sql.append(" FROM suscripciones s JOIN planes p ON p.id = s.plan_id WHERE s.estado <> 'PENDIENTE_PAGO'");
+        Map<String, Object> fila = jdbcTemplate.queryForMap(sql.toString(), parametros);
+
+        List<DatoTendenciaDTO> tendencia = new ArrayList<>();
+        for (int i = 0; i < cortes.size(); i++) {
+            tendencia.add(new DatoTendenciaDTO(cortes.get(i), new BigDecimal(String.valueOf(fila.get("c" + i)))));
+        }
+        return tendencia;
+    }
+
+    private static void porEmpresa(List<Object[]> filas, Map<Long, Long> destino) {
+        for (Object[] fila : filas) {
+            destino.put(((Number) fila[0]).longValue(), ((Number) fila[1]).longValue());
+        }
+    }
+
+    private static long numero(Object valor) {
+        return valor != null ? ((Number) valor).longValue() : 0L;
+    }
+}
@@ -0,0 +1,195 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de mutación de stock de productos sin leer-modificar-guardar:
+ * - Cada producto se descuenta con un UPDATE condicional (stock >= cantidad), así dos ventas
+ *   concurrentes del mismo producto nunca venden de más ni pisan el descuento de la otra
+ * - Las líneas de un mismo documento se agrupan por producto y se envían en un solo lote
+ *   ordenado por id, para que dos documentos con los mismos productos no se bloqueen mutuamente
+ * - El bloqueo de fila dura desde el UPDATE hasta el fin de la transacción, no todo el request
+ * - Las entidades Producto ya cargadas en la transacción se refrescan para no guardar un stock viejo
+ * - Los productos tocados se marcan en VistaStockService (los UPDATE por JDBC no pasan por los listeners)
+ */
+@Service
+public class DescuentoStockService {
+
+    private static final String SQL_DESCONTAR =
+        "UPDATE productos SET stock = stock - ?, fecha_actualizacion = ? WHERE id = ? AND empresa_id = ? AND stock >= ?";
+
+    private static final String SQL_INCREMENTAR =
+        "UPDATE productos SET stock = stock + ?, fecha_actualizacion = ? WHERE id = ? AND empresa_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private VistaStockService vistaStockService;
+
+    /**
+     * Descuenta las cantidades indicadas por producto (todo o nada).
+     * Si alguna línea no tiene stock suficiente lanza StockInsuficienteException con todas las
+     * líneas que fallaron y la transacción se revierte.
+     */
+    @Transactional
+    public void descontar(Long empresaId, Map<Long, Integer> cantidadesPorProducto) {
+        SortedMap<Long, Integer> lineas = normalizar(cantidadesPorProducto);
+        if (lineas.isEmpty()) {
+            return;
+        }
+
+        int[] filas = ejecutarLote(SQL_DESCONTAR, empresaId, lineas, true);
+
+        List<Faltante> faltantes = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<Long, Integer> linea : lineas.entrySet()) {
+            if (filas[i++] != 1) {
+                faltantes.add(obtenerFaltante(empresaId, linea.getKey(), linea.getValue()));
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            throw new StockInsuficienteException(faltantes);
+        }
+
+        refrescarCargados(lineas);
+        vistaStockService.marcar(lineas.keySet());
+    }
+
+    /**
+     * Suma las cantidades indicadas al stock de cada producto (restauraciones, ingresos)
+     */
+    @Transactional
+    public void incrementar(Long empresaId, Map<Long, Integer> cantidadesPorProducto) {
+        SortedMap<Long, Integer> lineas = normalizar(cantidadesPorProducto);
+        if (lineas.isEmpty()) {
+            return;
+        }
+
+        int[] filas = ejecutarLote(SQL_INCREMENTAR, empresaId, lineas, false);
+        int i = 0;
+        for (Long productoId : lineas.keySet()) {
+            if (filas[i++] != 1) {
+                throw new RuntimeException("Producto no encontrado o no pertenece a la empresa: " + productoId);
+            }
+        }
+
+        refrescarCargados(lineas);
+        vistaStockService.marcar(lineas.keySet());
+    }
+
+    /**
+     * Agrupa por producto (ordenado por id) y descarta cantidades nulas o no positivas
+     */
+    private static SortedMap<Long, Integer> normalizar(Map<Long, Integer> cantidadesPorProducto) {
+        SortedMap<Long, Integer> lineas = new TreeMap<>();
+        cantidadesPorProducto.forEach((productoId, cantidad) -> {
+            if (productoId != null && cantidad != null && cantidad > 0) {
+                lineas.merge(productoId, cantidad, Integer::sum);
+            }
+        });
+        return lineas;
+    }
+
+    private int[] ejecutarLote(String sql, Long empresaId, SortedMap<Long, Integer> lineas, boolean condicional) {
+        // Los cambios pendientes de JPA deben llegar a la base antes que el UPDATE
+        entityManager.flush();
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> parametros = new ArrayList<>(lineas.size());
+        for (Map.Entry<Long, Integer> linea : lineas.entrySet()) {
+            parametros.add(condicional
+                ? new Object[]{linea.getValue(), ahora, linea.getKey(), empresaId, linea.getValue()}
+                : new Object[]{linea.getValue(), ahora, linea.getKey(), empresaId});
+        }
+        return jdbcTemplate.batchUpdate(sql, parametros);
+    }
+
+    private Faltante obtenerFaltante(Long empresaId, Long productoId, int solicitado) {
+        List<Faltante> filas = jdbcTemplate.query(
+            "SELECT nombre, stock FROM productos WHERE id = ? AND empresa_id = ?",
+            (rs, n) -> new Faltante(productoId, rs.getString("nombre"), solicitado, rs.getInt("stock")),
+            productoId, empresaId);
+        return filas.isEmpty() ? new Faltante(productoId, null, solicitado, null) : filas.get(0);
+    }
+
+    /**
+     * Vuelve a leer el stock de los productos que ya estaban cargados en la transacción
+     */
+    private void refrescarCargados(SortedMap<Long, Integer> lineas) {
+        for (Long productoId : lineas.keySet()) {
+            // getReference devuelve la instancia administrada si existe, o un proxy sin cargar
+            Producto producto = entityManager.getReference(Producto.class, productoId);
+            if (Hibernate.isInitialized(producto)) {
+                entityManager.refresh(producto);
+            }
+        }
+    }
+
+    /**
+     * Línea de un descuento que no pudo aplicarse. Sin nombre ni disponible si el producto
+     * no existe o es de otra empresa.
+     */
+    public static class Faltante {
+        private final Long productoId;
+        private final String productoNombre;
+        private final int solicitado;
+        private final Integer disponible;
+
+        public Faltante(Long productoId, String productoNombre, int solicitado, Integer disponible) {
+            this.productoId = productoId;
+            this.productoNombre = productoNombre;
+            this.solicitado = solicitado;
+            this.disponible = disponible;
+        }
+
+        public Long getProductoId() { return productoId; }
+        public String getProductoNombre() { return productoNombre; }
+        public int getSolicitado() { return solicitado; }
+        public Integer getDisponible() { return disponible; }
+
+        @Override
+        public String toString() {
+            if (disponible == null) {
+                return "Producto no encontrado o no pertenece a la empresa: " + productoId;
+            }
+            return "Stock insuficiente para el producto: " + productoNombre +
+                ". Disponible: " + disponible + ", Solicitado: " + solicitado;
+        }
+    }
+
+    /**
+     * Alguna línea del descuento no tenía stock suficiente; ninguna se aplica
+     */
+    public static class StockInsuficienteException extends RuntimeException {
+        private final List<Faltante> faltantes;
+
+        public StockInsuficienteException(List<Faltante> faltantes) {
+            super(faltantes.stream().map(Faltante::toString).collect(Collectors.joining("; ")));
+            this.faltantes = List.copyOf(faltantes);
+        }
+
+        public List<Faltante> getFaltantes() {
+            return faltantes;
+        }
+    }
+}
@@ -2,21 +2,16 @@ package com.minegocio.backend.servicios;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import com.minegocio.backend.utilidades.FechaUtil;
 import org.springframework.core.env.Environment;
-import com.sendgrid.*;
-import com.sendgrid.helpers.mail.Mail;
-import com.sendgrid.helpers.mail.objects.Content;
-import com.sendgrid.helpers.mail.objects.Email;
-import java.io.IOException;
 
 /**
- * Servicio para el envío de emails
+ * Servicio para el envío de emails.
+ * Arma cada email y lo agrega a la cola de salida (ColaEmailService), que lo envía en segundo plano.
  */
 @Service
 public class EmailService {
@@ -27,6 +22,9 @@ public class EmailService {
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private ColaEmailService colaEmailService;
+
     @Value("${minegocio.app.email.from}")
     private String fromEmail;
 
@@ -49,62 +47,6 @@ public class EmailService {
         return false;
     }
     
-    /**
-     * Envía email usando la API de SendGrid (no SMTP)
-     */
-    private boolean enviarEmailConSendGridAPI(String destinatario, String asunto, String contenido) {
-        try {
-            // Verificar si tenemos API Key de SendGrid
-            if (sendGridApiKey == null || sendGridApiKey.trim().isEmpty()) {
-                System.err.println("❌ SendGrid API Key no configurada");
-                return false;
-            }
-            
-            System.out.println("📧 Usando SendGrid API para enviar email...");
-            System.out.println("  Destinatario: " + destinatario);
-            System.out.println("  Asunto: " + asunto);
-            
-            Email from = new Email(fromEmail);
-            Email to = new Email(destinatario);
-            Content content = new Content("text/plain", contenido);
-            Mail mail = new Mail(from, asunto, to, content);
-            
-            SendGrid sg = new SendGrid(sendGridApiKey);
-            Request request = new Request();
-            
-            request.setMethod(Method.POST);
-            request.setEndpoint("mail/send");
-            request.setBody(mail.build());
-            
-            Response response = sg.api(request);
-            
-            System.out.println("📤 Respuesta de SendGrid:");
-            System.out.println("  Status Code: " + response.getStatusCode());
-            System.out.println("  Body: " + response.getBody());
-            System.out.println("  Headers: " + response.getHeaders());
-            
-            if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-                System.out.println("✅ Email enviado exitosamente vía SendGrid API");
-                return true;
-            } else {
-                System.err.println("❌ Error al enviar email vía SendGrid API. Status: " + response.getStatusCode());
-                return false;
-            }
-            
-        } catch (IOException e) {
-            System.err.println("❌ Error de IO al enviar email con SendGrid API:");
-            System.err.println("  Mensaje: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        } catch (Exception e) {
-            System.err.println("❌ Error general al enviar email con SendGrid API:");
-            System.err.println("  Tipo: " + e.getClass().getName());
-            System.err.println("  Mensaje: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
-    }
-
     @PostConstruct
     public void init() {
         System.out.println("=== EMAIL SERVICE INIT ===");
@@ -141,12 +83,10 @@ public class EmailService {
      * Envía un email de recuperación de contraseña
      */
     public void enviarEmailRecuperacion(String emailDestino, String token, String nombreUsuario) {
-        // Mostrar información del token en logs para debugging
+        // El token solo se muestra en el modo desarrollo: en producción es una credencial
         System.out.println("=== 📧 ENVIANDO EMAIL DE RECUPERACIÓN ===");
         System.out.println("📧 Email destino: " + emailDestino);
         System.out.println("👤 Usuario: " + nombreUsuario);
-        System.out.println("🔑 Token de recuperación: " + token);
-        System.out.println("🔗 Enlace de recuperación: https://negocio360.org/recuperar-contraseña?token=" + token);
         System.out.println("==================================================");
         
         if (isDevelopmentMode() || mailSender == null) {
@@ -156,12 +96,7 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        
-        message.setFrom(fromEmail);
-        message.setTo(emailDestino);
-        message.setSubject("Recuperación de Contraseña - Negocio360");
-        
+        String asunto = "Recuperación de Contraseña - Negocio360";
         String contenido = String.format(
             "Hola %s,\n\n" +
             "Has solicitado recuperar tu contraseña en Negocio360.\n\n" +
@@ -174,24 +109,7 @@ public class EmailService {
             nombreUsuario, token
         );
         
-        message.setText(contenido);
-        
-        try {
-            System.out.println("=== DEBUG EMAIL ===");
-            System.out.println("From: " + fromEmail);
-            System.out.println("To: " + emailDestino);
-            System.out.println("Subject: " + message.getSubject());
-            System.out.println("Enviando email de recuperación...");
-            
-            mailSender.send(message);
-            System.out.println("✅ Email de recuperación enviado exitosamente a: " + emailDestino);
-        } catch (Exception e) {
-            System.err.println("❌ Error al enviar email de recuperación: " + e.getMessage());
-            System.err.println("⚠️ NOTA: El token se generó correctamente, pero no se pudo enviar el email.");
-            System.err.println("⚠️ Para solucionar esto, configura Gmail correctamente o usa un servicio de email alternativo.");
-            // No lanzamos excepción para que el proceso continúe
-            // throw new RuntimeException("Error al enviar email de recuperación", e);
-        }
+        colaEmailService.encolar(emailDestino, asunto, contenido, "recuperacion:" + token);
     }
 
     /**
@@ -202,7 +120,6 @@ public class EmailService {
         System.out.println("📧 Email destino: " + emailDestino);
         System.out.println("👤 Usuario: " + nombreUsuario);
         System.out.println("🏪 Subdominio: " + subdominio);
-        System.out.println("🔑 Token: " + token);
         
         if (isDevelopmentMode() || mailSender == null) {
             System.out.println("🚀 MODO DESARROLLO O EMAIL DESHABILITADO: Simulando envío de email de recuperación de cliente");
@@ -211,12 +128,6 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        
-        message.setFrom(fromEmail);
-        message.setTo(emailDestino);
-        message.setSubject("Recuperación de Contraseña - Tu Tienda");
-        
         // Construir el enlace dinámicamente basado en el subdominio y la URL del frontend
         String baseUrl = frontendUrl;
         if (baseUrl.contains("localhost")) {
@@ -228,6 +139,7 @@ public class EmailService {
         }
         String enlaceRecuperacion = baseUrl + "/reset-password?token=" + token;
         
+        String asunto = "Recuperación de Contraseña - Tu Tienda";
         String contenido = String.format(
             "Hola %s,\n\n" +
             "Has solicitado recuperar tu contraseña en tu tienda.\n\n" +
@@ -240,39 +152,7 @@ public class EmailService {
             nombreUsuario, enlaceRecuperacion
         );
         
-        message.setText(contenido);
-        
-        try {
-            System.out.println("=== DEBUG EMAIL CLIENTE ===");
-            System.out.println("From: " + fromEmail);
-            System.out.println("To: " + emailDestino);
-            System.out.println("Subject: " + message.getSubject());
-            System.out.println("Subdominio: " + subdominio);
-            System.out.println("Enlace de recuperación: " + enlaceRecuperacion);
-            System.out.println("Contenido del email:");
-            System.out.println("--- INICIO CONTENIDO ---");
-            System.out.println(contenido);
-            System.out.println("--- FIN CONTENIDO ---");
-            System.out.println("Enviando email de recuperación de cliente...");
-            
-            // Verificar configuración del mailSender
-            System.out.println("Configuración del mailSender:");
-            System.out.println("Host configurado: " + mailSender.toString());
-            
-            mailSender.send(message);
-            System.out.println("✅ Email de recuperación de cliente enviado exitosamente a: " + emailDestino);
-            System.out.println("✅ Email enviado exitosamente");
-        } catch (Exception e) {
-            System.err.println("❌ Error al enviar email de recuperación de cliente: " + e.getMessage());
-            System.err.println("❌ Stack trace completo:");
-            e.printStackTrace();
-            System.err.println("⚠️ NOTA: El token se generó correctamente, pero no se pudo enviar el email.");
-            System.err.println("⚠️ Para solucionar esto, configura Gmail correctamente o usa un servicio de email alternativo.");
-            System.err.println("⚠️ Verifica que la contraseña de aplicación de Gmail sea correcta.");
-            System.err.println("⚠️ Verifica que el email no esté en la carpeta de spam.");
-            // No lanzamos excepción para que el proceso continúe
-            // throw new RuntimeException("Error al enviar email de recuperación", e);
-        }
+        colaEmailService.encolar(emailDestino, asunto, contenido, "recuperacion-cliente:" + emailDestino + ":" + token);
     }
 
     /**
@@ -285,12 +165,7 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        
-        message.setFrom(fromEmail);
-        message.setTo(emailDestino);
-        message.setSubject("Contraseña Actualizada - Tu Tienda");
-        
+        String asunto = "Contraseña Actualizada - Tu Tienda";
         String contenido = String.format(
             "Hola %s,\n\n" +
             "Tu contraseña ha sido actualizada exitosamente en tu tienda.\n\n" +
@@ -300,15 +175,8 @@ public class EmailService {
             nombreUsuario
         );
         
-        message.setText(contenido);
-        
-        try {
-            mailSender.send(message);
-            System.out.println("Email de confirmación de cliente enviado a: " + emailDestino);
-        } catch (Exception e) {
-            System.err.println("Error al enviar email de confirmación de cliente: " + e.getMessage());
-            // No lanzamos excepción aquí porque el cambio de contraseña ya se realizó
-        }
+        // Cada cambio de contraseña se avisa: sin clave de deduplicación
+        colaEmailService.encolar(emailDestino, asunto, contenido, null);
     }
 
     /**
@@ -321,12 +189,7 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        
-        message.setFrom(fromEmail);
-        message.setTo(emailDestino);
-        message.setSubject("Contraseña Actualizada - Negocio360");
-        
+        String asunto = "Contraseña Actualizada - Negocio360";
         String contenido = String.format(
             "Hola %s,\n\n" +
             "Tu contraseña ha sido actualizada exitosamente en Negocio360.\n\n" +
@@ -336,15 +199,8 @@ public class EmailService {
             nombreUsuario
         );
         
-        message.setText(contenido);
-        
-        try {
-            mailSender.send(message);
-            System.out.println("Email de confirmación enviado a: " + emailDestino);
-        } catch (Exception e) {
-            System.err.println("Error al enviar email de confirmación: " + e.getMessage());
-            // No lanzamos excepción aquí porque el cambio de contraseña ya se realizó
-        }
+        // Cada cambio de contraseña se avisa: sin clave de deduplicación
+        colaEmailService.encolar(emailDestino, asunto, contenido, null);
     }
 
     /**
@@ -354,7 +210,6 @@ public class EmailService {
         System.out.println("=== 📧 ENVIANDO EMAIL DE VERIFICACIÓN ===");
         System.out.println("📧 Email destino: " + emailDestinatario);
         System.out.println("👤 Usuario: " + nombreUsuario);
-        System.out.println("🔑 Token: " + tokenVerificacion);
         
         // Verificar si estamos en modo desarrollo O si el email no está configurado
         if (isDevelopmentMode() || mailSender == null || fromEmail == null || fromEmail.trim().isEmpty()) {
@@ -396,45 +251,8 @@ public class EmailService {
         
         String asunto = "Verifica tu cuenta - " + appNombre;
         
-        // Intentar primero con SendGrid API si está configurado
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Intentando enviar email con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailDestinatario, asunto, contenido);
-            
-            if (exitoso) {
-                System.out.println("✅ Email enviado exitosamente a: " + emailDestinatario);
-                return;
-            } else {
-                System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-            }
-        }
-        
-        // Si SendGrid API no está disponible o falló, intentar con SMTP
-        try {
-            System.out.println("📧 Preparando email para envío vía SMTP...");
-            System.out.println("From Email: " + fromEmail);
-            System.out.println("To Email: " + emailDestinatario);
-            System.out.println("MailSender configurado: " + (mailSender != null));
-            
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(emailDestinatario);
-            message.setSubject(asunto);
-            message.setText(contenido);
-            
-            System.out.println("📤 Intentando enviar email vía SMTP...");
-            mailSender.send(message);
-            System.out.println("✅ Email enviado exitosamente vía SMTP a: " + emailDestinatario);
-        } catch (Exception e) {
-            System.err.println("❌ ERROR DETALLADO AL ENVIAR EMAIL:");
-            System.err.println("   Tipo de error: " + e.getClass().getName());
-            System.err.println("   Mensaje: " + e.getMessage());
-            System.err.println("   Causa: " + (e.getCause() != null ? e.getCause().getMessage() : "N/A"));
-            e.printStackTrace();
-            System.err.println("🔗 ENLACE DE VERIFICACIÓN MANUAL:");
-            System.err.println("   https://negocio360.org/verificar-email-admin?token=" + tokenVerificacion);
-            // No lanzar la excepción para no fallar el registro
-        }
+        // Los reenvíos reutilizan el token: sin clave de deduplicación
+        colaEmailService.encolar(emailDestinatario, asunto, contenido, null);
     }
 
     /**
@@ -446,7 +264,6 @@ public class EmailService {
         System.out.println("👤 Usuario: " + nombreUsuario);
         System.out.println("🏪 Subdominio: " + subdominio);
         System.out.println("🏢 Empresa: " + nombreEmpresa);
-        System.out.println("🔑 Token: " + tokenVerificacion);
         System.out.println("🔍 Modo desarrollo detectado: " + (isDevelopmentMode() ? "SÍ" : "NO"));
         
         if (isDevelopmentMode() || mailSender == null) {
@@ -500,35 +317,8 @@ public class EmailService {
         
         String asunto = "Verifica tu cuenta - " + nombreEmpresa;
         
-        // Intentar primero con SendGrid API si está configurado
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Intentando enviar email con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailDestinatario, asunto, contenido);
-            
-            if (exitoso) {
-                System.out.println("✅ Email enviado exitosamente a: " + emailDestinatario);
-                return;
-            } else {
-                System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-            }
-        }
-        
-        // Fallback a SMTP si SendGrid API no está disponible o falló
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(emailDestinatario);
-            message.setSubject(asunto);
-            message.setText(contenido);
-            
-            mailSender.send(message);
-            System.out.println("✅ Email de verificación de cliente enviado exitosamente vía SMTP a: " + emailDestinatario);
-        } catch (Exception e) {
-            System.err.println("❌ Error al enviar email de verificación de cliente: " + e.getMessage());
-            System.err.println("🔗 ENLACE DE VERIFICACIÓN MANUAL:");
-            System.err.println("   " + enlaceVerificacion);
-            e.printStackTrace();
-        }
+        // Los reenvíos reutilizan el token: sin clave de deduplicación
+        colaEmailService.encolar(emailDestinatario, asunto, contenido, null);
     }
 
     /**
@@ -541,11 +331,7 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(emailDestinatario);
-        message.setSubject("¡Bienvenido a " + appNombre + "!");
-        
+        String asunto = "¡Bienvenido a " + appNombre + "!";
         String contenido = String.format(
             "Hola %s,\n\n" +
             "¡Tu cuenta ha sido verificada exitosamente!\n\n" +
@@ -570,8 +356,7 @@ public class EmailService {
             appNombre
         );
         
-        message.setText(contenido);
-        mailSender.send(message);
+        colaEmailService.encolar(emailDestinatario, asunto, contenido, "bienvenida:" + emailDestinatario);
     }
 
     /**
@@ -584,11 +369,7 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(emailDestinatario);
-        message.setSubject("Recordatorio: Verifica tu cuenta - " + appNombre);
-        
+        String asunto = "Recordatorio: Verifica tu cuenta - " + appNombre;
         String contenido = String.format(
             "Hola %s,\n\n" +
             "Notamos que aún no has verificado tu cuenta en %s. " +
@@ -606,8 +387,8 @@ public class EmailService {
             appNombre
         );
         
-        message.setText(contenido);
-        mailSender.send(message);
+        // Los reenvíos reutilizan el token: sin clave de deduplicación
+        colaEmailService.encolar(emailDestinatario, asunto, contenido, null);
     }
 
     /**
@@ -621,19 +402,7 @@ public class EmailService {
             return;
         }
         
-        SimpleMailMessage message = new SimpleMailMessage();
-        
-        message.setFrom(fromEmail);
-        message.setTo(emailDestinatario);
-        message.setSubject(asunto);
-        message.setText(contenido);
-        
-        try {
-            mailSender.send(message);
-            System.out.println("✅ Email enviado exitosamente a: " + emailDestinatario);
-        } catch (Exception e) {
-            System.err.println("❌ Error al enviar email: " + e.getMessage());
-        }
+        colaEmailService.encolar(emailDestinatario, asunto, contenido, null);
     }
 
     /**
@@ -672,31 +441,7 @@ public class EmailService {
             frontendUrl
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando notificación de pedido con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailEmpresa, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Notificación de nuevo pedido enviada a: " + emailEmpresa);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailEmpresa);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Notificación de nuevo pedido enviada vía SMTP a: " + emailEmpresa);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar notificación de nuevo pedido: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailEmpresa, asunto, contenido, "pedido-nuevo:" + emailEmpresa + ":" + numeroPedido);
     }
 
     /**
@@ -730,31 +475,7 @@ public class EmailService {
             FechaUtil.ahoraFormateado()
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando notificación de cancelación con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailEmpresa, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Notificación de pedido cancelado enviada a: " + emailEmpresa);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailEmpresa);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Notificación de pedido cancelado enviada vía SMTP a: " + emailEmpresa);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar notificación de pedido cancelado: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailEmpresa, asunto, contenido, "pedido-cancelado:" + emailEmpresa + ":" + numeroPedido);
     }
     
     /**
@@ -793,31 +514,7 @@ public class EmailService {
             nombreEmpresa
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando notificación de cancelación al cliente con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailCliente, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Notificación de cancelación enviada al cliente: " + emailCliente);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailCliente);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Notificación de cancelación enviada vía SMTP al cliente: " + emailCliente);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar notificación de cancelación al cliente: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailCliente, asunto, contenido, "pedido-cancelado-cliente:" + emailCliente + ":" + numeroPedido);
     }
 
     /**
@@ -852,31 +549,7 @@ public class EmailService {
             nombreEmpresa
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando notificación de envío con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailCliente, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Notificación de envío enviada al cliente: " + emailCliente);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailCliente);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Notificación de envío enviada vía SMTP al cliente: " + emailCliente);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar notificación de envío al cliente: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailCliente, asunto, contenido, "pedido-enviado:" + emailCliente + ":" + numeroPedido);
     }
 
     /**
@@ -913,31 +586,7 @@ public class EmailService {
             nombreEmpresa
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando confirmación de compra con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailCliente, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Confirmación de compra enviada al cliente: " + emailCliente);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailCliente);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Confirmación de compra enviada vía SMTP al cliente: " + emailCliente);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar confirmación de compra al cliente: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailCliente, asunto, contenido, "pedido-compra:" + emailCliente + ":" + numeroPedido);
     }
 
     /**
@@ -972,31 +621,7 @@ public class EmailService {
             nombreEmpresa
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando confirmación de admin con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailCliente, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Confirmación de administrador enviada al cliente: " + emailCliente);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailCliente);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Confirmación de administrador enviada vía SMTP al cliente: " + emailCliente);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar confirmación de administrador al cliente: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailCliente, asunto, contenido, "pedido-confirmado:" + emailCliente + ":" + numeroPedido);
     }
 
     /**
@@ -1031,30 +656,6 @@ public class EmailService {
             nombreEmpresa
         );
         
-        // Intentar primero con SendGrid API
-        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
-            System.out.println("📧 Enviando notificación de entrega con SendGrid API...");
-            boolean exitoso = enviarEmailConSendGridAPI(emailCliente, asunto, contenido);
-            if (exitoso) {
-                System.out.println("✅ Notificación de entrega enviada al cliente: " + emailCliente);
-                return;
-            }
-            System.err.println("⚠️ SendGrid API falló, intentando con SMTP...");
-        }
-        
-        // Fallback a SMTP
-        if (mailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(emailCliente);
-                message.setSubject(asunto);
-                message.setText(contenido);
-                mailSender.send(message);
-                System.out.println("✅ Notificación de entrega enviada vía SMTP al cliente: " + emailCliente);
-            } catch (Exception e) {
-                System.err.println("❌ Error al enviar notificación de entrega al cliente: " + e.getMessage());
-            }
-        }
+        colaEmailService.encolar(emailCliente, asunto, contenido, "pedido-entregado:" + emailCliente + ":" + numeroPedido);
     }
 } 
\ No newline at end of file
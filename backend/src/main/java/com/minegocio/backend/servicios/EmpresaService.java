@@ -14,6 +14,7 @@ import com.minegocio.backend.repositorios.PlanRepository;
 import com.minegocio.backend.entidades.Plan;
 import com.minegocio.backend.entidades.Suscripcion;
 import com.minegocio.backend.repositorios.SuscripcionRepository;
+import com.minegocio.backend.seguridad.CachePrincipalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -43,6 +44,9 @@ public class EmpresaService {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CachePrincipalService cachePrincipalService;
     
     @Autowired
     private ClienteRepository clienteRepository;
@@ -68,6 +72,9 @@ public class EmpresaService {
     @Autowired
     private SuscripcionRepository suscripcionRepository;
 
+    @Autowired
+    private CacheTiendaPublicaService cacheTiendaPublicaService;
+
     /**
      * Registra una nueva empresa con su administrador
      */
@@ -325,6 +332,7 @@ public class EmpresaService {
         }
 
         empresa = empresaRepository.save(empresa);
+        cacheTiendaPublicaService.invalidarEmpresa(empresa.getId());
         System.out.println("Empresa guardada. Descripción final: " + empresa.getDescripcion());
         System.out.println("Empresa guardada. Imagen de fondo final: " + empresa.getImagenFondoUrl());
         System.out.println("Después de guardar - Color Título Principal: " + empresa.getColorTituloPrincipal());
@@ -405,7 +413,9 @@ public class EmpresaService {
      * Guarda una empresa
      */
     public Empresa guardar(Empresa empresa) {
-        return empresaRepository.save(empresa);
+        Empresa guardada = empresaRepository.save(empresa);
+        cacheTiendaPublicaService.invalidarEmpresa(guardada.getId());
+        return guardada;
     }
 
     /**
@@ -558,6 +568,7 @@ public class EmpresaService {
         
 
         empresa = empresaRepository.save(empresa);
+        cacheTiendaPublicaService.invalidarEmpresa(empresa.getId());
         System.out.println("💾 Después de guardar en BD:");
         System.out.println("  - Texto de Bienvenida: " + empresa.getTextoBienvenida());
         System.out.println("  - Descripción: " + empresa.getDescripcion());
@@ -602,6 +613,7 @@ public class EmpresaService {
         usuario.setTokenVerificacion(null); // Limpiar token usado
         
         usuarioRepository.save(usuario);
+        cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
         
         // Enviar email de bienvenida
         try {
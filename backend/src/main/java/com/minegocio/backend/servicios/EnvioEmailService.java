@@ -0,0 +1,97 @@
+package com.minegocio.backend.servicios;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+import com.sendgrid.*;
+import com.sendgrid.helpers.mail.Mail;
+import com.sendgrid.helpers.mail.objects.Content;
+import com.sendgrid.helpers.mail.objects.Email;
+import java.io.IOException;
+
+/**
+ * Entrega efectiva de un email al proveedor: SendGrid API si está configurada y SMTP como respaldo.
+ * Lo usa el worker de ColaEmailService; el resto del código encola a través de EmailService.
+ */
+@Service
+public class EnvioEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvioEmailService.class);
+
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Value("${minegocio.app.email.from}")
+    private String fromEmail;
+
+    @Value("${sendgrid.api.key:}")
+    private String sendGridApiKey;
+
+    /**
+     * Envía el email. Lanza excepción si ningún proveedor lo aceptó, para que se reintente.
+     */
+    public void enviar(String destinatario, String asunto, String contenido) {
+        // Intentar primero con SendGrid API si está configurado
+        if (sendGridApiKey != null && !sendGridApiKey.trim().isEmpty()) {
+            if (enviarEmailConSendGridAPI(destinatario, asunto, contenido)) {
+                return;
+            }
+            logger.warn("SendGrid API falló, intentando con SMTP");
+        }
+
+        if (mailSender == null) {
+            throw new RuntimeException("No hay método de envío de email configurado");
+        }
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(destinatario);
+        message.setSubject(asunto);
+        message.setText(contenido);
+        mailSender.send(message);
+        logger.debug("Email enviado vía SMTP a {}", destinatario);
+    }
+
+    /**
+     * Envía email usando la API de SendGrid (no SMTP)
+     */
+    private boolean enviarEmailConSendGridAPI(String destinatario, String asunto, String contenido) {
+        try {
+            logger.debug("Enviando email vía SendGrid API a {}: {}", destinatario, asunto);
+
+            Email from = new Email(fromEmail);
+            Email to = new Email(destinatario);
+            Content content = new Content("text/plain", contenido);
+            Mail mail = new Mail(from, asunto, to, content);
+
+            SendGrid sg = new SendGrid(sendGridApiKey);
+            Request request = new Request();
+
+            request.setMethod(Method.POST);
+            request.setEndpoint("mail/send");
+            request.setBody(mail.build());
+
+            Response response = sg.api(request);
+
+            if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
+                logger.debug("Email enviado vía SendGrid API a {}", destinatario);
+                return true;
+            } else {
+                logger.warn("Error al enviar email vía SendGrid API. Status: {}, body: {}",
+                    response.getStatusCode(), response.getBody());
+                return false;
+            }
+
+        } catch (IOException e) {
+            logger.warn("Error de IO al enviar email con SendGrid API: {}", e.getMessage());
+            return false;
+        } catch (Exception e) {
+            logger.warn("Error general al enviar email con SendGrid API: {} - {}", e.getClass().getName(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.ConteoSector;
+import com.minegocio.backend.entidades.DetalleConteo;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Eventos en vivo de un inventario completo (SSE) para los usuarios que cuentan cada sector,
+ * en lugar de consultar periódicamente info, comparación y detalles del conteo.
+ * - Cada inventario tiene un canal con los últimos eventos en un buffer circular acotado; los
+ *   eventos se publican al confirmar la transacción que hizo el cambio
+ * - Al reconectar, el cliente manda Last-Event-ID y recibe lo que se perdió; si ya no está en
+ *   el buffer (o el servidor se reinició) recibe "resincronizar" y vuelve a leer el estado completo
+ * - Cada cliente tiene una cola acotada que se envía desde un pool de hilos: un cliente lento no
+ *   frena al que publica, y si su cola se llena se cierra la conexión para que reconecte
+ * Los canales viven en memoria de cada réplica. Cada cambio se avisa además por el
+ * BusInvalidacionCache (región "inventario-eventos", con el id del inventario): las réplicas que
+ * tienen clientes de ese inventario les mandan "resincronizar" (uno por inventario y por intervalo,
+ * aunque lleguen varios avisos) para que relean el estado completo.
+ */
+@Service
+public class EventosInventarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventosInventarioService.class);
+
+    public static final String PRODUCTO_CONTADO = "producto-contado";
+    public static final String CANTIDAD_ACTUALIZADA = "cantidad-actualizada";
+    public static final String DETALLE_ELIMINADO = "detalle-eliminado";
+    public static final String ESTADO_SECTOR = "estado-sector";
+    public static final String RECONTEO_INICIADO = "reconteo-iniciado";
+    public static final String RECONTEO_FINALIZADO = "reconteo-finalizado";
+    public static final String CONECTADO = "conectado";
+    public static final String RESINCRONIZAR = "resincronizar";
+
+    private static final String REGION_BUS = "inventario-eventos";
+
+    // Canales sin suscriptores ni eventos en este tiempo se descartan
+    private static final long INACTIVIDAD_CANAL_MS = TimeUnit.HOURS.toMillis(2);
+
+    @Value("${minegocio.inventario.eventos.tamano-buffer:500}")
+    private int tamanoBuffer;
+
+    @Value("${minegocio.inventario.eventos.cola-por-cliente:200}")
+    private int colaPorCliente;
+
+    @Value("${minegocio.inventario.eventos.hilos:4}")
+    private int hilos;
+
+    // El cliente reconecta solo al vencer; acota conexiones colgadas que el heartbeat no detecta
+    @Value("${minegocio.inventario.eventos.timeout-minutos:30}")
+    private long timeoutMinutos;
+
+    @Autowired
+    private BusInvalidacionCache busInvalidacionCache;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Canal> canales = new ConcurrentHashMap<>();
+
+    // Inventarios que cambiaron en otra réplica desde el último aviso a los clientes de este nodo
+    private final Set<Long> cambiosRemotos = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong reenviados = new AtomicLong();
+    private final AtomicLong desconectadosPorLentitud = new AtomicLong();
+    private final AtomicLong resincronizadosPorOtroNodo = new AtomicLong();
+
+    private ThreadPoolExecutor envios;
+
+    /**
+     * Evento de un canal. El id es correlativo dentro del inventario.
+     */
+    public static final class Evento {
+        private final long id;
+        private final String tipo;
+        private final Long conteoSectorId;
+        private final Map<String, Object> datos;
+
+        Evento(long id, String tipo, Long conteoSectorId, Map<String, Object> datos) {
+            this.id = id;
+            this.tipo = tipo;
+            this.conteoSectorId = conteoSectorId;
+            this.datos = datos;
+        }
+
+        public long getId() { return id; }
+        public String getTipo() { return tipo; }
+        public Long getConteoSectorId() { return conteoSectorId; }
+        public Map<String, Object> getDatos() { return datos; }
+    }
+
+    // Marca en la cola de un cliente para enviar un comentario de keep-alive
+    private static final Evento PING = new Evento(-1, null, null, Map.of());
+
+    @PostConstruct
+    public void iniciar() {
+        envios = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(10_000), hilosDemonio("inventario-sse-"));
+        busInvalidacionCache.suscribir(REGION_BUS, (inventarioId, fecha) -> {
+            if (inventarioId != null) {
+                cambiosRemotos.add(inventarioId);
+            }
+        });
+
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("inventario.eventos.publicados", publicados, AtomicLong::get)
+            .description("Eventos de inventario publicados a los canales SSE")
+            .register(meterRegistry);
+        FunctionCounter.builder("inventario.eventos.reenviados", reenviados, AtomicLong::get)
+            .description("Eventos reenviados desde el buffer al reconectar con Last-Event-ID")
+            .register(meterRegistry);
+        FunctionCounter.builder("inventario.eventos.desconectados_por_lentitud", desconectadosPorLentitud, AtomicLong::get)
+            .description("Clientes SSE cerrados porque su cola de envío se llenó")
+            .register(meterRegistry);
+        FunctionCounter.builder("inventario.eventos.resincronizados_por_otro_nodo", resincronizadosPorOtroNodo, AtomicLong::get)
+            .description("Avisos de resincronizar enviados por cambios hechos en otra réplica")
+            .register(meterRegistry);
+        Gauge.builder("inventario.eventos.clientes", canales, c -> c.values().stream().mapToInt(canal -> canal.suscriptores.size()).sum())
+            .description("Conexiones SSE abiertas en este nodo")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        for (Canal canal : canales.values()) {
+            for (Suscriptor suscriptor : new ArrayList<>(canal.suscriptores)) {
+                suscriptor.cerrar();
+            }
+        }
+        envios.shutdownNow();
+    }
+
+    /**
+     * Abre una conexión SSE al canal del inventario, opcionalmente filtrada a un sector.
+     * Con ultimoEventoId (header Last-Event-ID) reenvía los eventos posteriores que sigan en el buffer.
+     */
+    public SseEmitter suscribir(Long inventarioId, Long conteoSectorId, String ultimoEventoId) {
+        Canal canal = canales.computeIfAbsent(inventarioId, Canal::new);
+        SseEmitter emisor = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutos));
+        Suscriptor suscriptor = new Suscriptor(canal, emisor, conteoSectorId);
+        emisor.onCompletion(suscriptor::cerrar);
+        emisor.onTimeout(suscriptor::cerrar);
+        emisor.onError(error -> suscriptor.cerrar());
+
+        Long desde = parsearId(ultimoEventoId);
+        // Reenvío y alta bajo el lock del canal: ningún evento queda entre los dos
+        synchronized (canal) {
+            canal.ultimoUso = System.currentTimeMillis();
+            List<Evento> perdidos = desde != null ? canal.desde(desde) : null;
+            if (desde == null || perdidos == null) {
+                Map<String, Object> datos = new LinkedHashMap<>();
+                datos.put("inventarioId", inventarioId);
+                datos.put("ultimoEventoId", canal.ultimoId());
+                suscriptor.encolar(new Evento(canal.ultimoId(), desde == null ? CONECTADO : RESINCRONIZAR, null, datos));
+            } else {
+                for (Evento evento : perdidos) {
+                    suscriptor.encolar(evento);
+                }
+                reenviados.addAndGet(perdidos.size());
+            }
+            canal.suscriptores.add(suscriptor);
+        }
+        return emisor;
+    }
+
+    /**
+     * Publica un cambio de una fila de conteo (alta, cambio de cantidad o baja)
+     */
+    public void publicarDetalle(DetalleConteo detalle, String tipo, Long usuarioId) {
+        ConteoSector conteoSector = detalle.getConteoSector();
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("detalleId", detalle.getId());
+        datos.put("productoId", detalle.getProducto().getId());
+        datos.put("usuarioId", usuarioId);
+        datos.put("cantidadConteo1", detalle.getCantidadConteo1());
+        datos.put("cantidadConteo2", detalle.getCantidadConteo2());
+        publicar(conteoSector, tipo, datos);
+    }
+
+    /**
+     * Publica el estado de un sector después de una transición (finalizar conteo o reconteo)
+     */
+    public void publicarEstado(ConteoSector conteoSector, String tipo) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("conteo1Finalizado", conteoSector.isConteo1Finalizado());
+        datos.put("conteo2Finalizado", conteoSector.isConteo2Finalizado());
+        datos.put("observaciones", conteoSector.getObservaciones());
+        publicar(conteoSector, tipo, datos);
+    }
+
+    /**
+     * Agrega al evento el estado y el progreso del sector y lo publica al confirmar la transacción
+     * actual (si no hay transacción, en el momento). Los datos se toman ahora, dentro de la sesión.
+     */
+    private void publicar(ConteoSector conteoSector, String tipo, Map<String, Object> datos) {
+        Long inventarioId = conteoSector.getInventarioCompleto().getId();
+        Long conteoSectorId = conteoSector.getId();
+        Map<String, Object> carga = new LinkedHashMap<>();
+        carga.put("conteoSectorId", conteoSectorId);
+        carga.putAll(datos);
+        carga.put("estado", conteoSector.getEstado() != null ? conteoSector.getEstado().name() : null);
+        carga.put("totalProductos", conteoSector.getTotalProductos());
+        carga.put("productosContados", conteoSector.getProductosContados());
+        carga.put("productosConDiferencias", conteoSector.getProductosConDiferencias());
+        carga.put("productosContadosUsuario1", conteoSector.getProductosContadosUsuario1());
+        carga.put("productosContadosUsuario2", conteoSector.getProductosContadosUsuario2());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            emitir(inventarioId, tipo, conteoSectorId, carga);
+            busInvalidacionCache.publicar(REGION_BUS, inventarioId, null);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                emitir(inventarioId, tipo, conteoSectorId, carga);
+                busInvalidacionCache.publicar(REGION_BUS, inventarioId, null);
+            }
+        });
+    }
+
+    private void emitir(Long inventarioId, String tipo, Long conteoSectorId, Map<String, Object> datos) {
+        Canal canal = canales.computeIfAbsent(inventarioId, Canal::new);
+        synchronized (canal) {
+            Evento evento = canal.agregar(tipo, conteoSectorId, datos);
+            for (Suscriptor suscriptor : canal.suscriptores) {
+                suscriptor.encolar(evento);
+            }
+        }
+        publicados.incrementAndGet();
+    }
+
+    /**
+     * Manda "resincronizar" a los clientes de este nodo de los inventarios que cambiaron en otra
+     * réplica; varios avisos del mismo inventario dentro del intervalo se agrupan en uno
+     */
+    @Scheduled(fixedDelayString = "${minegocio.inventario.eventos.intervalo-remotos-ms:1000}")
+    public void resincronizarCambiosRemotos() {
+        for (Long inventarioId : new ArrayList<>(cambiosRemotos)) {
+            cambiosRemotos.remove(inventarioId);
+            Canal canal = canales.get(inventarioId);
+            if (canal == null || canal.suscriptores.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("inventarioId", inventarioId);
+            datos.put("origen", "otro-nodo");
+            emitir(inventarioId, RESINCRONIZAR, null, datos);
+            resincronizadosPorOtroNodo.incrementAndGet();
+        }
+    }
+
+    /**
+     * Keep-alive para los proxies y para detectar conexiones caídas; descarta canales inactivos
+     */
+    @Scheduled(fixedDelayString = "${minegocio.inventario.eventos.heartbeat-ms:20000}")
+    public void mantenerConexiones() {
+        long ahora = System.currentTimeMillis();
+        for (Canal canal : canales.values()) {
+            for (Suscriptor suscriptor : canal.suscriptores) {
+                suscriptor.encolar(PING);
+            }
+            synchronized (canal) {
+                if (canal.suscriptores.isEmpty() && ahora - canal.ultimoUso > INACTIVIDAD_CANAL_MS) {
+                    canales.remove(canal.inventarioId, canal);
+                }
+            }
+        }
+    }
+
+    private static Long parsearId(String ultimoEventoId) {
+        if (ultimoEventoId == null || ultimoEventoId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(ultimoEventoId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Canal de un inventario: buffer circular de eventos y conexiones abiertas.
+     * Los ids arrancan en la hora de creación del canal (ms), así un id anterior a un reinicio
+     * siempre queda fuera del buffer y el cliente resincroniza.
+     */
+    private final class Canal {
+        private final Long inventarioId;
+        private final ArrayDeque<Evento> buffer = new ArrayDeque<>();
+        private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+        private long siguienteId = System.currentTimeMillis();
+        private long ultimoUso = System.currentTimeMillis();
+
+        Canal(Long inventarioId) {
+            this.inventarioId = inventarioId;
+        }
+
+        // Llamar con el lock del canal
+        Evento agregar(String tipo, Long conteoSectorId, Map<String, Object> datos) {
+            Evento evento = new Evento(siguienteId++, tipo, conteoSectorId, datos);
+            buffer.addLast(evento);
+            if (buffer.size() > tamanoBuffer) {
+                buffer.removeFirst();
+            }
+            ultimoUso = System.currentTimeMillis();
+            return evento;
+        }
+
+        long ultimoId() {
+            return siguienteId - 1;
+        }
+
+        /**
+         * Eventos posteriores a ultimoId, o null si hay un hueco (ya salieron del buffer o el id
+         * es de otro arranque). Llamar con el lock del canal.
+         */
+        List<Evento> desde(long ultimoId) {
+            long primero = buffer.isEmpty() ? siguienteId : buffer.peekFirst().id;
+            if (ultimoId < primero - 1 || ultimoId > ultimoId()) {
+                return null;
+            }
+            List<Evento> eventos = new ArrayList<>();
+            for (Evento evento : buffer) {
+                if (evento.id > ultimoId) {
+                    eventos.add(evento);
+                }
+            }
+            return eventos;
+        }
+    }
+
+    /**
+     * Conexión abierta: cola acotada de eventos pendientes que un solo hilo a la vez envía
+     */
+    private final class Suscriptor {
+        private final Canal canal;
+        private final SseEmitter emisor;
+        private final Long conteoSectorId;
+        private final ArrayBlockingQueue<Evento> pendientes = new ArrayBlockingQueue<>(colaPorCliente);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean cerrado;
+
+        Suscriptor(Canal canal, SseEmitter emisor, Long conteoSectorId) {
+            this.canal = canal;
+            this.emisor = emisor;
+            this.conteoSectorId = conteoSectorId;
+        }
+
+        void encolar(Evento evento) {
+            if (cerrado) {
+                return;
+            }
+            // Los eventos de un sector solo van a quien sigue ese sector (o todo el inventario)
+            if (conteoSectorId != null && evento.conteoSectorId != null && !conteoSectorId.equals(evento.conteoSectorId)) {
+                return;
+            }
+            if (!pendientes.offer(evento)) {
+                if (evento != PING) {
+                    desconectadosPorLentitud.incrementAndGet();
+                    logger.warn("Cliente SSE del inventario {} cerrado por cola llena ({} eventos)", canal.inventarioId, colaPorCliente);
+                    cerrar();
+                }
+                return;
+            }
+            programar();
+        }
+
+        private void programar() {
+            if (!enviando.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                envios.execute(this::enviar);
+            } catch (RejectedExecutionException e) {
+                enviando.set(false);
+                cerrar();
+            }
+        }
+
+        private void enviar() {
+            try {
+                Evento evento;
+                while (!cerrado && (evento = pendientes.poll()) != null) {
+                    if (evento == PING) {
+                        emisor.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emisor.send(SseEmitter.event()
+                            .id(String.valueOf(evento.id))
+                            .name(evento.tipo)
+                            .data(evento.datos, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Cliente SSE del inventario {} desconectado: {}", canal.inventarioId, e.getMessage());
+                cerrar();
+            } finally {
+                enviando.set(false);
+            }
+            // Un evento encolado mientras se liberaba la marca
+            if (!cerrado && !pendientes.isEmpty()) {
+                programar();
+            }
+        }
+
+        void cerrar() {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            canal.suscriptores.remove(this);
+            pendientes.clear();
+            try {
+                emisor.complete();
+            } catch (Exception e) {
+                // La conexión ya estaba cerrada
+            }
+        }
+    }
+
+    private static ThreadFactory hilosDemonio(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
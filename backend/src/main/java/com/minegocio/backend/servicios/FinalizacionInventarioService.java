@@ -0,0 +1,361 @@
+package com.minegocio.backend.servicios;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minegocio.backend.entidades.FinalizacionInventario;
+import com.minegocio.backend.entidades.FinalizacionInventario.EstadoFinalizacion;
+import com.minegocio.backend.entidades.FinalizacionInventarioProducto;
+import com.minegocio.backend.entidades.InventarioCompleto;
+import com.minegocio.backend.repositorios.FinalizacionInventarioProductoRepository;
+import com.minegocio.backend.repositorios.FinalizacionInventarioRepository;
+import com.minegocio.backend.repositorios.InventarioCompletoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finalización de inventarios completos (actualizar stock y generar el registro) por lotes.
+ * - Cada finalización tiene una fila en finalizacion_inventario con los productos editados y el avance
+ * - Los productos se aplican en lotes de tamano-lote, cada uno en su propia transacción junto con el
+ *   avance: si el proceso se corta, volver a pedir la finalización la reanuda desde el último lote
+ * - Las finalizaciones corren en un pool acotado: inventarios de distintas empresas avanzan en
+ *   paralelo y el mismo inventario nunca se procesa dos veces a la vez
+ * - El registro del inventario se genera al final con el resultado de todos los lotes
+ */
+@Service
+public class FinalizacionInventarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinalizacionInventarioService.class);
+
+    @Value("${minegocio.inventario.finalizacion.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${minegocio.inventario.finalizacion.hilos:2}")
+    private int hilos;
+
+    @Value("${minegocio.inventario.finalizacion.cola:20}")
+    private int cola;
+
+    // Una finalización EN_PROCESO sin avanzar en este tiempo se considera cortada y se puede reanudar
+    @Value("${minegocio.inventario.finalizacion.abandono-minutos:10}")
+    private long abandonoMinutos;
+
+    @Autowired
+    private InventarioCompletoService inventarioCompletoService;
+
+    @Autowired
+    private InventarioCompletoRepository inventarioCompletoRepository;
+
+    @Autowired
+    private FinalizacionInventarioRepository finalizacionInventarioRepository;
+
+    @Autowired
+    private FinalizacionInventarioProductoRepository finalizacionInventarioProductoRepository;
+
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor ejecutor;
+
+    private TransactionTemplate transaccion;
+
+    // Otra ejecución tomó la misma finalización (quedó como abandonada mientras esperaba en la cola)
+    private static final class FinalizacionTomadaException extends RuntimeException {
+        FinalizacionTomadaException() {
+            super("La actualización de stock de este inventario ya está en curso");
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(cola), hilosDemonio("finalizacion-inventario-"));
+        transaccion = new TransactionTemplate(transactionManager);
+
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("inventario.finalizacion.en_curso", ejecutor, ThreadPoolExecutor::getActiveCount)
+            .description("Finalizaciones de inventario ejecutándose en este nodo")
+            .register(meterRegistry);
+        Gauge.builder("inventario.finalizacion.en_cola", ejecutor, e -> e.getQueue().size())
+            .description("Finalizaciones de inventario esperando un hilo libre")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+
+    /**
+     * Actualiza el stock con los productos editados y genera el registro del inventario.
+     * Si ya hay una finalización de este inventario cortada o con error, la reanuda.
+     * Espera el resultado; si el request se corta, la finalización sigue en segundo plano.
+     */
+    public Map<String, Object> finalizar(Long inventarioId, List<Map<String, Object>> productosEditados, String observaciones, Long usuarioId) {
+        Long finalizacionId;
+        try {
+            finalizacionId = transaccion.execute(estado -> registrar(inventarioId, productosEditados, observaciones, usuarioId));
+        } catch (DataIntegrityViolationException e) {
+            // Dos requests crearon la finalización a la vez
+            throw new FinalizacionTomadaException();
+        }
+
+        Future<Map<String, Object>> resultado;
+        try {
+            resultado = ejecutor.submit(() -> metricasOperacionesService.medir("inventario.actualizar_stock", null, () -> ejecutar(finalizacionId)));
+        } catch (RejectedExecutionException e) {
+            marcarError(finalizacionId, "No se pudo iniciar: demasiadas finalizaciones en curso");
+            throw new RuntimeException("Hay demasiadas actualizaciones de stock en curso, intentá de nuevo en unos minutos");
+        }
+
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Se interrumpió la espera; la actualización de stock sigue en segundo plano");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Avance de la finalización de un inventario, si se inició
+     */
+    public Optional<Map<String, Object>> obtenerProgreso(Long inventarioId) {
+        return finalizacionInventarioRepository.findByInventarioCompletoId(inventarioId).map(f -> {
+            Map<String, Object> progreso = new LinkedHashMap<>();
+            progreso.put("inventarioId", f.getInventarioCompletoId());
+            progreso.put("empresaId", f.getEmpresaId());
+            progreso.put("estado", f.getEstado().name());
+            progreso.put("totalProductos", f.getTotalProductos());
+            progreso.put("productosProcesados", f.getProductosProcesados());
+            progreso.put("porcentaje", f.getPorcentaje());
+            progreso.put("productosConDiferencias", f.getProductosConDiferencias());
+            progreso.put("productosSinDiferencias", f.getProductosSinDiferencias());
+            progreso.put("registroInventarioId", f.getRegistroInventarioId());
+            progreso.put("mensajeError", f.getMensajeError());
+            progreso.put("fechaInicio", f.getFechaInicio());
+            progreso.put("fechaActualizacion", f.getFechaActualizacion());
+            progreso.put("fechaFinalizacion", f.getFechaFinalizacion());
+            return progreso;
+        });
+    }
+
+    /**
+     * Crea la finalización o toma la existente para reanudarla. Devuelve su id.
+     */
+    private Long registrar(Long inventarioId, List<Map<String, Object>> productosEditados, String observaciones, Long usuarioId) {
+        InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
+                .orElseThrow(() -> new RuntimeException("Inventario completo no encontrado"));
+
+        Optional<FinalizacionInventario> existente = finalizacionInventarioRepository.findByInventarioCompletoId(inventarioId);
+        if (existente.isEmpty()) {
+            FinalizacionInventario finalizacion = new FinalizacionInventario(inventarioId, inventario.getEmpresa().getId(), usuarioId);
+            finalizacion.setObservaciones(observaciones);
+            finalizacion.setProductosEditados(escribirProductos(productosEditados));
+            finalizacion.setTotalProductos(productosEditados.size());
+            return finalizacionInventarioRepository.saveAndFlush(finalizacion).getId();
+        }
+
+        FinalizacionInventario finalizacion = existente.get();
+        if (finalizacion.getEstado() == EstadoFinalizacion.COMPLETADA) {
+            throw new RuntimeException("El stock de este inventario ya fue actualizado");
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        if (finalizacionInventarioRepository.tomarParaReanudar(finalizacion.getId(), EstadoFinalizacion.EN_PROCESO,
+                EstadoFinalizacion.ERROR, ahora, ahora.minusMinutes(abandonoMinutos)) == 0) {
+            throw new FinalizacionTomadaException();
+        }
+
+        finalizacion = finalizacionInventarioRepository.findById(finalizacion.getId()).orElseThrow();
+        if (finalizacion.getProductosProcesados() == 0) {
+            // Todavía no se aplicó ningún producto: vale la lista nueva
+            finalizacion.setUsuarioId(usuarioId);
+            finalizacion.setObservaciones(observaciones);
+            finalizacion.setProductosEditados(escribirProductos(productosEditados));
+            finalizacion.setTotalProductos(productosEditados.size());
+        } else {
+            logger.info("Reanudando finalización del inventario {} desde el producto {} de {}",
+                inventarioId, finalizacion.getProductosProcesados(), finalizacion.getTotalProductos());
+        }
+        return finalizacion.getId();
+    }
+
+    private Map<String, Object> ejecutar(Long finalizacionId) {
+        FinalizacionInventario finalizacion = transaccion.execute(estado ->
+            finalizacionInventarioRepository.findById(finalizacionId).orElseThrow());
+        Long inventarioId = finalizacion.getInventarioCompletoId();
+        List<Map<String, Object>> productos = leerProductos(finalizacion.getProductosEditados());
+
+        try {
+            if (finalizacion.getProductosProcesados() == 0) {
+                transaccion.executeWithoutResult(estado -> inventarioCompletoService.prepararFinalizacion(inventarioId));
+            }
+
+            for (int desde = finalizacion.getProductosProcesados(); desde < productos.size(); desde += tamanoLote) {
+                int inicio = desde;
+                int fin = Math.min(desde + tamanoLote, productos.size());
+                transaccion.executeWithoutResult(estado -> confirmarLote(finalizacionId, inventarioId, productos, inicio, fin));
+                logger.debug("Finalización del inventario {}: {} de {} productos", inventarioId, fin, productos.size());
+            }
+
+            Map<String, Object> resultado = transaccion.execute(estado -> cerrar(finalizacionId));
+            logger.info("Inventario {} finalizado: {} productos en lotes de {}", inventarioId, productos.size(), tamanoLote);
+            return resultado;
+        } catch (FinalizacionTomadaException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Error finalizando el inventario {}: {}", inventarioId, e.getMessage(), e);
+            marcarError(finalizacionId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Aplica los productos [inicio, fin) y guarda su resultado y el avance en la misma transacción
+     */
+    private void confirmarLote(Long finalizacionId, Long inventarioId, List<Map<String, Object>> productos, int inicio, int fin) {
+        FinalizacionInventario finalizacion = finalizacionInventarioRepository.bloquear(finalizacionId).orElseThrow();
+        if (finalizacion.getEstado() != EstadoFinalizacion.EN_PROCESO || finalizacion.getProductosProcesados() != inicio) {
+            throw new FinalizacionTomadaException();
+        }
+
+        List<Map<String, Object>> resultados = inventarioCompletoService.procesarLoteFinalizacion(inventarioId, productos.subList(inicio, fin));
+
+        List<FinalizacionInventarioProducto> filas = new ArrayList<>();
+        int conDiferencias = 0;
+        for (int i = 0; i < resultados.size(); i++) {
+            Map<String, Object> resultado = resultados.get(i);
+            FinalizacionInventarioProducto fila = new FinalizacionInventarioProducto(finalizacionId, inicio + i);
+            fila.setProductoId((Long) resultado.get("productoId"));
+            fila.setNombreProducto((String) resultado.get("nombreProducto"));
+            fila.setCodigoProducto((String) resultado.get("codigoProducto"));
+            fila.setStockAnterior((Integer) resultado.get("stockAnterior"));
+            fila.setStockNuevo((Integer) resultado.get("stockNuevo"));
+            fila.setDiferenciaStock((Integer) resultado.get("diferenciaStock"));
+            fila.setObservaciones((String) resultado.get("observaciones"));
+            filas.add(fila);
+            if (fila.getDiferenciaStock() != 0) {
+                conDiferencias++;
+            }
+        }
+        finalizacionInventarioProductoRepository.saveAll(filas);
+
+        finalizacion.setProductosProcesados(fin);
+        finalizacion.setProductosConDiferencias(finalizacion.getProductosConDiferencias() + conDiferencias);
+        finalizacion.setProductosSinDiferencias(finalizacion.getProductosSinDiferencias() + filas.size() - conDiferencias);
+        finalizacion.setFechaActualizacion(LocalDateTime.now());
+    }
+
+    /**
+     * Genera el registro con el resultado de todos los lotes y da por completada la finalización
+     */
+    private Map<String, Object> cerrar(Long finalizacionId) {
+        FinalizacionInventario finalizacion = finalizacionInventarioRepository.bloquear(finalizacionId).orElseThrow();
+        if (finalizacion.getEstado() != EstadoFinalizacion.EN_PROCESO) {
+            throw new FinalizacionTomadaException();
+        }
+
+        List<Map<String, Object>> productosActualizados = new ArrayList<>();
+        for (FinalizacionInventarioProducto fila : finalizacionInventarioProductoRepository.findByFinalizacionIdOrderByOrden(finalizacionId)) {
+            Map<String, Object> registroProducto = new HashMap<>();
+            registroProducto.put("productoId", fila.getProductoId());
+            registroProducto.put("nombreProducto", fila.getNombreProducto());
+            registroProducto.put("codigoProducto", fila.getCodigoProducto());
+            registroProducto.put("stockAnterior", fila.getStockAnterior());
+            registroProducto.put("stockNuevo", fila.getStockNuevo());
+            registroProducto.put("diferenciaStock", fila.getDiferenciaStock());
+            registroProducto.put("observaciones", fila.getObservaciones());
+            productosActualizados.add(registroProducto);
+        }
+
+        Map<String, Object> resultado = inventarioCompletoService.generarRegistroFinalizacion(
+            finalizacion.getInventarioCompletoId(), finalizacion.getUsuarioId(), finalizacion.getObservaciones(), productosActualizados);
+
+        // El resultado por producto ya quedó en DetalleRegistroInventario
+        finalizacionInventarioProductoRepository.eliminarPorFinalizacion(finalizacionId);
+        LocalDateTime ahora = LocalDateTime.now();
+        finalizacion.setEstado(EstadoFinalizacion.COMPLETADA);
+        finalizacion.setRegistroInventarioId((Long) resultado.get("registroInventarioId"));
+        finalizacion.setFechaActualizacion(ahora);
+        finalizacion.setFechaFinalizacion(ahora);
+        return resultado;
+    }
+
+    private void marcarError(Long finalizacionId, String mensaje) {
+        try {
+            transaccion.executeWithoutResult(estado -> finalizacionInventarioRepository.findById(finalizacionId).ifPresent(f -> {
+                f.setEstado(EstadoFinalizacion.ERROR);
+                f.setMensajeError(mensaje);
+                f.setFechaActualizacion(LocalDateTime.now());
+            }));
+        } catch (RuntimeException e) {
+            logger.error("No se pudo marcar con error la finalización {}: {}", finalizacionId, e.getMessage());
+        }
+    }
+
+    private String escribirProductos(List<Map<String, Object>> productosEditados) {
+        try {
+            return objectMapper.writeValueAsString(productosEditados);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Productos editados inválidos: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Map<String, Object>> leerProductos(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<Map<String, Object>>>() {});
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("No se pudieron leer los productos de la finalización: " + e.getMessage(), e);
+        }
+    }
+
+    private static ThreadFactory hilosDemonio(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
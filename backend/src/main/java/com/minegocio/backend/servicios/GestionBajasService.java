@@ -5,6 +5,7 @@ import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.UsuarioRepository;
+import com.minegocio.backend.seguridad.CachePrincipalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +28,9 @@ public class GestionBajasService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private CachePrincipalService cachePrincipalService;
+
     @Autowired
     private EmailService emailService;
 
@@ -61,6 +65,7 @@ public class GestionBajasService {
             for (Usuario usuario : usuarios) {
                 usuario.setActivo(false);
                 usuarioRepository.save(usuario);
+                cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
             }
 
             // Enviar email de confirmación
@@ -104,6 +109,7 @@ public class GestionBajasService {
             for (Usuario usuario : usuarios) {
                 usuario.setActivo(true);
                 usuarioRepository.save(usuario);
+                cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
             }
 
             // Enviar email de confirmación de reactivación
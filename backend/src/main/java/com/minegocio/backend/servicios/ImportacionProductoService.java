@@ -5,23 +5,36 @@ import com.minegocio.backend.dto.ResultadoImportacionDTO;
 import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Producto;
 import com.minegocio.backend.entidades.Sector;
-import com.minegocio.backend.entidades.StockPorSector;
 import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.SectorRepository;
-import com.minegocio.backend.repositorios.StockPorSectorRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class ImportacionProductoService {
@@ -41,6 +54,23 @@ public class ImportacionProductoService {
 
     private static final int NUM_COLUMNAS_IMPORTACION = ENCABEZADOS_IMPORTACION.length;
 
+    /** Los encabezados se buscan en las primeras 16 filas (plantilla con título e instrucciones) */
+    private static final int ULTIMA_FILA_ENCABEZADOS = 16;
+
+    /** Cada cuántas filas se informa el progreso de la validación */
+    private static final int INTERVALO_PROGRESO = 500;
+
+    /** Tamaño de lote para los INSERT por JDBC */
+    private static final int TAMANO_LOTE_INSERCION = 500;
+
+    private static final String SQL_INSERTAR_PRODUCTO =
+        "INSERT INTO productos (nombre, descripcion, precio, stock, stock_minimo, categoria, marca, " +
+        "codigo_personalizado, codigo_barras, activo, destacado, texto_busqueda, empresa_id, " +
+        "fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERTAR_STOCK_SECTOR =
+        "INSERT INTO stock_por_sector (producto_id, sector_id, cantidad, fecha_actualizacion) VALUES (?, ?, ?, ?)";
+
     @Autowired
     private ProductoRepository productoRepository;
 
@@ -54,235 +84,332 @@ public class ImportacionProductoService {
     private SectorRepository sectorRepository;
 
     @Autowired
-    private StockPorSectorRepository stockPorSectorRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VistaStockService vistaStockService;
+
+    @Autowired
+    private CacheTiendaPublicaService cacheTiendaPublicaService;
+
+    @Autowired
+    private UsoEmpresaService usoEmpresaService;
+
+    // Tiempos de la validación y la importación (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
+
+    /**
+     * Recibe el avance de la validación a medida que se leen las filas
+     */
+    public interface ObservadorValidacion {
+        void progreso(int filasProcesadas, int filasConErrores);
+
+        void error(Map<String, Object> error);
+    }
+
+    private static final ObservadorValidacion SIN_OBSERVADOR = new ObservadorValidacion() {
+        public void progreso(int filasProcesadas, int filasConErrores) {}
+
+        public void error(Map<String, Object> error) {}
+    };
 
     /**
      * Valida y procesa un archivo Excel para importación de productos
      */
     @Transactional(readOnly = true)
     public ResultadoImportacionDTO validarArchivoExcel(MultipartFile archivo, Long empresaId) {
-        List<ImportacionProductoDTO> productos = new ArrayList<>();
-        List<Map<String, Object>> errores = new ArrayList<>();
-        int totalRegistros = 0;
-
-        try (InputStream inputStream = archivo.getInputStream()) {
-            Workbook workbook = new XSSFWorkbook(inputStream);
-            Sheet sheet = workbook.getSheetAt(0);
-
-            // Buscar la fila de encabezados (puede estar en diferentes posiciones)
-            int headerRowIndex = encontrarFilaEncabezados(sheet);
-            if (headerRowIndex == -1) {
-                return new ResultadoImportacionDTO(0, 0, 1,
-                    Arrays.asList(Map.of("fila", 1, "error", "Formato de archivo incorrecto. Encabezados esperados (en este orden): " + String.join(", ", ENCABEZADOS_IMPORTACION))),
-                    new ArrayList<>(), "Formato de archivo incorrecto");
-            }
+        Path temporal = null;
+        try {
+            temporal = guardarArchivoTemporal(archivo);
+            return validarArchivoExcel(temporal, empresaId, SIN_OBSERVADOR);
+        } catch (IOException e) {
+            return new ResultadoImportacionDTO(0, 0, 1,
+                Arrays.asList(Map.of("fila", 0, "error", "Error al leer el archivo: " + e.getMessage())),
+                new ArrayList<>(), "Error al procesar el archivo");
+        } finally {
+            eliminarArchivoTemporal(temporal);
+        }
+    }
 
-            Row headerRow = sheet.getRow(headerRowIndex);
-            if (headerRow == null || !validarEncabezados(headerRow)) {
-                return new ResultadoImportacionDTO(0, 0, 1,
-                    Arrays.asList(Map.of("fila", headerRowIndex + 1, "error", "Formato de archivo incorrecto. Encabezados esperados (en este orden): " + String.join(", ", ENCABEZADOS_IMPORTACION))),
-                    new ArrayList<>(), "Formato de archivo incorrecto");
-            }
+    /**
+     * Copia el upload a un archivo temporal para leerlo en streaming (y poder procesarlo
+     * después de que termine el request, como en la validación con progreso)
+     */
+    public Path guardarArchivoTemporal(MultipartFile archivo) throws IOException {
+        Path temporal = Files.createTempFile("importacion-productos-", ".xlsx");
+        try (InputStream entrada = archivo.getInputStream()) {
+            Files.copy(entrada, temporal, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        }
+        return temporal;
+    }
 
-            // Procesar cada fila de datos (empezar después de los encabezados)
-            for (int i = headerRowIndex + 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-
-                totalRegistros++;
-                Map<String, Object> errorFila = validarFila(row, i + 1, empresaId);
-                
-                if (errorFila != null) {
-                    errores.add(errorFila);
-                } else {
-                    ImportacionProductoDTO producto = convertirFilaAProducto(row);
-                    productos.add(producto);
-                }
+    public void eliminarArchivoTemporal(Path temporal) {
+        if (temporal == null) return;
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pudo eliminar el archivo temporal " + temporal + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Valida el archivo leyendo la hoja en streaming (SAX sobre XSSFReader): la memoria usada
+     * no depende de la cantidad de filas, salvo por los productos válidos que se devuelven.
+     */
+    @Transactional(readOnly = true)
+    public ResultadoImportacionDTO validarArchivoExcel(Path archivo, Long empresaId, ObservadorValidacion observador) {
+        return metricasOperacionesService.medir("importacion_productos.validar", empresaId, () -> validarHoja(archivo, empresaId, observador));
+    }
+
+    private ResultadoImportacionDTO validarHoja(Path archivo, Long empresaId, ObservadorValidacion observador) {
+        ValidacionEnCurso validacion = new ValidacionEnCurso(cargarCodigosPersonalizados(empresaId), observador);
+
+        try (OPCPackage paquete = OPCPackage.open(archivo.toFile(), PackageAccess.READ)) {
+            XSSFReader lector = new XSSFReader(paquete);
+            ReadOnlySharedStringsTable textosCompartidos = new ReadOnlySharedStringsTable(paquete);
+            Iterator<InputStream> hojas = lector.getSheetsData();
+            if (!hojas.hasNext()) {
+                return errorDeFormato(1);
             }
 
-            workbook.close();
-        } catch (IOException e) {
-            return new ResultadoImportacionDTO(0, 0, 1, 
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new LectorFilasHoja(textosCompartidos, validacion::procesarFila));
+                parser.parse(new InputSource(hoja));
+            } catch (FinLecturaException fin) {
+                // No se encontraron encabezados en las primeras filas: no hace falta leer el resto
+            }
+        } catch (Exception e) {
+            return new ResultadoImportacionDTO(0, 0, 1,
                 Arrays.asList(Map.of("fila", 0, "error", "Error al leer el archivo: " + e.getMessage())),
                 new ArrayList<>(), "Error al procesar el archivo");
         }
 
-        String mensaje = String.format("Archivo procesado. %d registros válidos, %d con errores", 
-            productos.size(), errores.size());
+        if (validacion.filaEncabezados == -1) {
+            System.out.println("❌ No se encontraron encabezados válidos en las primeras " + ULTIMA_FILA_ENCABEZADOS + " filas");
+            return errorDeFormato(1);
+        }
 
-        return new ResultadoImportacionDTO(totalRegistros, productos.size(), errores.size(), 
-            errores, productos, mensaje);
+        observador.progreso(validacion.totalRegistros, validacion.errores.size());
+        System.out.println("✅ Archivo validado: " + validacion.totalRegistros + " filas, " +
+            validacion.productos.size() + " válidas, " + validacion.errores.size() + " con errores");
+
+        String mensaje = String.format("Archivo procesado. %d registros válidos, %d con errores",
+            validacion.productos.size(), validacion.errores.size());
+
+        return new ResultadoImportacionDTO(validacion.totalRegistros, validacion.productos.size(), validacion.errores.size(),
+            validacion.errores, validacion.productos, mensaje);
     }
 
     /**
-     * Importa los productos validados a la base de datos con distribución por sectores
+     * Importa los productos validados a la base de datos con distribución por sectores.
+     * Los controles (límite del plan, códigos existentes, sectores) se resuelven una sola vez
+     * en memoria y los INSERT se envían por lotes JDBC.
      */
     @Transactional
     public ResultadoImportacionDTO importarProductos(List<ImportacionProductoDTO> productos, Long empresaId) {
+        return metricasOperacionesService.medir("importacion_productos.importar", empresaId, () -> procesarImportacion(productos, empresaId));
+    }
+
+    private ResultadoImportacionDTO procesarImportacion(List<ImportacionProductoDTO> productos, Long empresaId) {
         List<Map<String, Object>> errores = new ArrayList<>();
-        int registrosExitosos = 0;
 
-        System.out.println("🔍 Buscando empresa con ID: " + empresaId);
-        
         Empresa empresa = empresaRepository.findById(empresaId)
             .orElseThrow(() -> {
                 System.err.println("❌ Empresa no encontrada con ID: " + empresaId);
                 return new RuntimeException("Empresa no encontrada con ID: " + empresaId);
             });
-        
-        System.out.println("✅ Empresa encontrada: " + empresa.getNombre());
-
-        // Log de todos los productos antes de agrupar
-        System.out.println("📋 PRODUCTOS ANTES DE AGRUPAR:");
-        for (int i = 0; i < productos.size(); i++) {
-            ImportacionProductoDTO p = productos.get(i);
-            System.out.println("  📦 Producto " + (i+1) + ": Nombre='" + p.getNombre() + "', Stock=" + p.getStock() + ", Sector=" + p.getSectorAlmacenamiento());
-        }
 
         // Agrupar productos por nombre normalizado para sumar stocks y distribuir por sectores
-        Map<String, List<ImportacionProductoDTO>> productosAgrupados = productos.stream()
-            .collect(Collectors.groupingBy(p -> normalizarNombreProducto(p.getNombre())));
-
-        System.out.println("📊 Productos agrupados: " + productosAgrupados.size() + " grupos únicos");
-        System.out.println("📋 Total de productos en Excel: " + productos.size());
-        
-        // Log detallado de la agrupación
-        for (Map.Entry<String, List<ImportacionProductoDTO>> entry : productosAgrupados.entrySet()) {
-            String nombreProducto = entry.getKey();
-            List<ImportacionProductoDTO> productosDelGrupo = entry.getValue();
-            System.out.println("🔍 Grupo: '" + nombreProducto + "' - " + productosDelGrupo.size() + " registros");
-            for (int i = 0; i < productosDelGrupo.size(); i++) {
-                ImportacionProductoDTO p = productosDelGrupo.get(i);
-                System.out.println("  📦 Registro " + (i+1) + ": Nombre='" + p.getNombre() + "', Stock=" + p.getStock() + ", Sector=" + p.getSectorAlmacenamiento());
-            }
+        Map<String, List<ImportacionProductoDTO>> productosAgrupados = new LinkedHashMap<>();
+        for (ImportacionProductoDTO producto : productos) {
+            productosAgrupados.computeIfAbsent(normalizarNombreProducto(producto.getNombre()), k -> new ArrayList<>()).add(producto);
+        }
+        System.out.println("📊 Importando " + productos.size() + " registros en " + productosAgrupados.size() +
+            " productos para la empresa " + empresa.getNombre());
+
+        long cupoDisponible = limiteService.obtenerCupoDisponibleProductos(empresaId);
+        Set<String> codigosExistentes = cargarCodigosPersonalizados(empresaId);
+        Map<String, Sector> sectores = new HashMap<>();
+        for (Sector sector : sectorRepository.findByEmpresaIdOrderByNombre(empresaId)) {
+            sectores.putIfAbsent(sector.getNombre(), sector);
         }
 
+        List<Producto> nuevos = new ArrayList<>();
+        List<List<ImportacionProductoDTO>> registrosPorNuevo = new ArrayList<>();
+
         for (Map.Entry<String, List<ImportacionProductoDTO>> entry : productosAgrupados.entrySet()) {
             String nombreProducto = entry.getKey();
             List<ImportacionProductoDTO> productosDelGrupo = entry.getValue();
-            
-            try {
-                // Verificar límites de la suscripción
-                if (!limiteService.puedeCrearProducto(empresaId)) {
-                    errores.add(Map.of(
-                        "producto", nombreProducto,
-                        "error", "Límite de productos alcanzado en su suscripción"
-                    ));
-                    continue;
-                }
-
-                // Tomar el primer producto del grupo como base (todos tienen el mismo nombre)
-                ImportacionProductoDTO productoBase = productosDelGrupo.get(0);
-                
-                // Verificar si el producto ya existe en la base de datos por código personalizado
-                if (verificarProductoExistenteEnBD(productoBase, empresaId)) {
-                    errores.add(Map.of(
-                        "producto", nombreProducto,
-                        "error", "Producto ya existe en la base de datos con el mismo código personalizado: " + 
-                                (productoBase.getCodigoPersonalizado() != null ? productoBase.getCodigoPersonalizado() : "Sin código personalizado") +
-                                " (Nombre: " + productoBase.getNombre() + ")"
-                    ));
-                    continue;
-                }
 
-                // Calcular stock total sumando todos los registros del mismo producto
-                int stockTotal = productosDelGrupo.stream()
-                    .mapToInt(p -> p.getStock() != null ? p.getStock() : 0)
-                    .sum();
-
-                System.out.println("📦 Producto: " + nombreProducto + " - Stock total: " + stockTotal);
-
-                // Crear el producto principal con stock total
-                Producto producto = new Producto();
-                producto.setNombre(productoBase.getNombre());
-                producto.setDescripcion(productoBase.getDescripcion());
-                producto.setPrecio(productoBase.getPrecio() != null ? productoBase.getPrecio() : BigDecimal.ZERO);
-                producto.setStock(stockTotal); // Stock total sumado
-                producto.setStockMinimo(productoBase.getStockMinimo() != null ? productoBase.getStockMinimo() : 0);
-                producto.setCategoria(productoBase.getCategoria());
-                producto.setMarca(productoBase.getMarca());
-                producto.setSectorAlmacenamiento(null); // No asignar sector específico al producto principal
-                producto.setCodigoBarras(productoBase.getCodigoBarras());
-                producto.setCodigoPersonalizado(productoBase.getCodigoPersonalizado());
-                producto.setEmpresa(empresa);
-                producto.setActivo(true);
-
-                // Guardar el producto principal
-                Producto productoSaved = productoRepository.save(producto);
-                System.out.println("✅ Producto principal creado: " + productoSaved.getId());
-
-                // Distribuir stock por sectores
-                System.out.println("🔄 Distribuyendo stock por sectores para: " + nombreProducto);
-                for (ImportacionProductoDTO productoDelGrupo : productosDelGrupo) {
-                    System.out.println("  📦 Procesando registro: Stock=" + productoDelGrupo.getStock() + 
-                                     ", Sector='" + productoDelGrupo.getSectorAlmacenamiento() + "'");
-                    
-                    if (productoDelGrupo.getSectorAlmacenamiento() != null && 
-                        !productoDelGrupo.getSectorAlmacenamiento().trim().isEmpty() &&
-                        productoDelGrupo.getStock() != null && productoDelGrupo.getStock() > 0) {
-                        
-                        System.out.println("  ✅ Asignando " + productoDelGrupo.getStock() + " unidades al sector: " + 
-                                         productoDelGrupo.getSectorAlmacenamiento());
-                        asignarStockASector(productoSaved, productoDelGrupo.getSectorAlmacenamiento(), 
-                                          productoDelGrupo.getStock(), empresaId);
-                    } else {
-                        System.out.println("  ⚠️ Saltando registro: Sector vacío o stock <= 0");
-                    }
-                }
+            if (nuevos.size() >= cupoDisponible) {
+                errores.add(Map.of(
+                    "producto", nombreProducto,
+                    "error", "Límite de productos alcanzado en su suscripción"
+                ));
+                continue;
+            }
 
-                registrosExitosos++;
+            // Tomar el primer producto del grupo como base (todos tienen el mismo nombre)
+            ImportacionProductoDTO productoBase = productosDelGrupo.get(0);
+            String codigo = productoBase.getCodigoPersonalizado() != null ? productoBase.getCodigoPersonalizado().trim() : "";
 
-            } catch (Exception e) {
-                System.err.println("Error al importar producto " + nombreProducto + ": " + e.getMessage());
-                e.printStackTrace();
+            // Verificar si el producto ya existe por código personalizado (en la base o antes en este archivo)
+            if (!codigo.isEmpty() && !codigosExistentes.add(codigo)) {
                 errores.add(Map.of(
                     "producto", nombreProducto,
-                    "error", "Error al crear producto: " + e.getMessage()
+                    "error", "Producto ya existe en la base de datos con el mismo código personalizado: " +
+                            productoBase.getCodigoPersonalizado() + " (Nombre: " + productoBase.getNombre() + ")"
                 ));
+                continue;
             }
+
+            // Calcular stock total sumando todos los registros del mismo producto
+            int stockTotal = productosDelGrupo.stream()
+                .mapToInt(p -> p.getStock() != null ? p.getStock() : 0)
+                .sum();
+
+            Producto producto = new Producto();
+            producto.setNombre(productoBase.getNombre());
+            producto.setDescripcion(productoBase.getDescripcion());
+            producto.setPrecio(productoBase.getPrecio() != null ? productoBase.getPrecio() : BigDecimal.ZERO);
+            producto.setStock(stockTotal); // Stock total sumado
+            producto.setStockMinimo(productoBase.getStockMinimo() != null ? productoBase.getStockMinimo() : 0);
+            producto.setCategoria(productoBase.getCategoria());
+            producto.setMarca(productoBase.getMarca());
+            producto.setSectorAlmacenamiento(null); // No asignar sector específico al producto principal
+            producto.setCodigoBarras(productoBase.getCodigoBarras());
+            producto.setCodigoPersonalizado(productoBase.getCodigoPersonalizado());
+            producto.setEmpresa(empresa);
+            producto.setActivo(true);
+            producto.actualizarTextoBusqueda();
+
+            nuevos.add(producto);
+            registrosPorNuevo.add(productosDelGrupo);
         }
 
-        String mensaje = String.format("Importación completada. %d productos creados, %d errores", 
-            registrosExitosos, errores.size());
+        insertarProductosEnLotes(nuevos, empresaId);
+        insertarStockPorSectorEnLotes(nuevos, registrosPorNuevo, sectores, empresa);
+        // El alta por JDBC no pasa por UsoEmpresaListener: el contador de productos se suma al confirmar
+        usoEmpresaService.ajustar(empresaId, UsoEmpresaService.Recurso.PRODUCTOS, nuevos.size());
 
-        return new ResultadoImportacionDTO(productos.size(), registrosExitosos, errores.size(), 
+        if (!nuevos.isEmpty()) {
+            cacheTiendaPublicaService.invalidarProducto(empresaId, null);
+        }
+
+        String mensaje = String.format("Importación completada. %d productos creados, %d errores",
+            nuevos.size(), errores.size());
+        System.out.println("✅ " + mensaje);
+
+        return new ResultadoImportacionDTO(productos.size(), nuevos.size(), errores.size(),
             errores, new ArrayList<>(), mensaje);
     }
 
     /**
-     * Asigna stock de un producto a un sector específico
+     * Inserta los productos por lotes JDBC y les asigna el ID generado
      */
-    private void asignarStockASector(Producto producto, String nombreSector, Integer cantidad, Long empresaId) {
-        try {
-            // Buscar o crear el sector
-            Sector sector = buscarOCrearSector(nombreSector, empresaId);
-            if (sector == null) {
-                System.err.println("❌ No se pudo crear/encontrar el sector: " + nombreSector);
-                return;
+    private void insertarProductosEnLotes(List<Producto> productos, Long empresaId) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        for (int desde = 0; desde < productos.size(); desde += TAMANO_LOTE_INSERCION) {
+            List<Producto> lote = productos.subList(desde, Math.min(desde + TAMANO_LOTE_INSERCION, productos.size()));
+            KeyHolder claves = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(SQL_INSERTAR_PRODUCTO, new String[]{"id"}),
+                new org.springframework.jdbc.core.BatchPreparedStatementSetter() {
+                    public void setValues(PreparedStatement ps, int i) throws java.sql.SQLException {
+                        Producto p = lote.get(i);
+                        ps.setString(1, p.getNombre());
+                        ps.setString(2, p.getDescripcion());
+                        ps.setBigDecimal(3, p.getPrecio());
+                        ps.setInt(4, p.getStock());
+                        ps.setInt(5, p.getStockMinimo());
+                        ps.setString(6, p.getCategoria());
+                        ps.setString(7, p.getMarca());
+                        ps.setString(8, p.getCodigoPersonalizado());
+                        ps.setString(9, p.getCodigoBarras());
+                        ps.setBoolean(10, true);
+                        ps.setBoolean(11, false);
+                        ps.setString(12, p.getTextoBusqueda());
+                        ps.setLong(13, empresaId);
+                        ps.setTimestamp(14, ahora);
+                        ps.setTimestamp(15, ahora);
+                    }
+
+                    public int getBatchSize() {
+                        return lote.size();
+                    }
+                },
+                claves);
+
+            List<Map<String, Object>> generadas = claves.getKeyList();
+            for (int i = 0; i < lote.size(); i++) {
+                Object id = generadas.get(i).values().iterator().next();
+                lote.get(i).setId(((Number) id).longValue());
             }
+            // Insertados por JDBC: la proyección de stock no se entera por los listeners de JPA
+            vistaStockService.marcar(lote.stream().map(Producto::getId).toList());
+        }
+    }
 
-            // Buscar si ya existe stock de este producto en este sector
-            Optional<StockPorSector> stockExistente = stockPorSectorRepository
-                .findByProductoIdAndSectorId(producto.getId(), sector.getId());
-
-            if (stockExistente.isPresent()) {
-                // Actualizar stock existente
-                StockPorSector stock = stockExistente.get();
-                stock.setCantidad(stock.getCantidad() + cantidad);
-                stockPorSectorRepository.save(stock);
-                System.out.println("📦 Stock actualizado en sector " + nombreSector + ": +" + cantidad + 
-                                 " (Total: " + stock.getCantidad() + ")");
-            } else {
-                // Crear nuevo registro de stock
-                StockPorSector nuevoStock = new StockPorSector(producto, sector, cantidad);
-                stockPorSectorRepository.save(nuevoStock);
-                System.out.println("📦 Nuevo stock creado en sector " + nombreSector + ": " + cantidad);
+    /**
+     * Suma en memoria el stock de cada producto por sector y lo inserta por lotes.
+     * Los productos son nuevos, así que no hace falta buscar registros existentes.
+     */
+    private void insertarStockPorSectorEnLotes(List<Producto> productos, List<List<ImportacionProductoDTO>> registrosPorProducto,
+                                               Map<String, Sector> sectores, Empresa empresa) {
+        List<Object[]> filas = new ArrayList<>();
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int i = 0; i < productos.size(); i++) {
+            Map<Long, Integer> cantidadPorSector = new LinkedHashMap<>();
+            for (ImportacionProductoDTO registro : registrosPorProducto.get(i)) {
+                String nombreSector = registro.getSectorAlmacenamiento();
+                if (nombreSector == null || nombreSector.trim().isEmpty() || registro.getStock() == null || registro.getStock() <= 0) {
+                    continue;
+                }
+                Sector sector = sectores.computeIfAbsent(nombreSector, nombre -> crearSector(nombre, empresa));
+                cantidadPorSector.merge(sector.getId(), registro.getStock(), Integer::sum);
             }
+            Long productoId = productos.get(i).getId();
+            cantidadPorSector.forEach((sectorId, cantidad) -> filas.add(new Object[]{productoId, sectorId, cantidad, ahora}));
+        }
 
-        } catch (Exception e) {
-            System.err.println("❌ Error al asignar stock al sector " + nombreSector + ": " + e.getMessage());
-            e.printStackTrace();
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR_STOCK_SECTOR, filas, TAMANO_LOTE_INSERCION, (ps, fila) -> {
+                ps.setLong(1, (Long) fila[0]);
+                ps.setLong(2, (Long) fila[1]);
+                ps.setInt(3, (Integer) fila[2]);
+                ps.setTimestamp(4, (Timestamp) fila[3]);
+            });
+            System.out.println("📦 Stock distribuido en sectores: " + filas.size() + " registros");
+        }
+    }
+
+    /**
+     * Crea un sector que no existía durante la importación
+     */
+    private Sector crearSector(String nombreSector, Empresa empresa) {
+        Sector nuevoSector = new Sector();
+        nuevoSector.setNombre(nombreSector);
+        nuevoSector.setDescripcion("Sector creado automáticamente durante importación");
+        nuevoSector.setActivo(true);
+        nuevoSector.setEmpresa(empresa);
+
+        Sector sectorCreado = sectorRepository.save(nuevoSector);
+        System.out.println("✅ Nuevo sector creado: " + nombreSector + " (ID: " + sectorCreado.getId() + ")");
+        return sectorCreado;
+    }
+
+    /**
+     * Códigos personalizados ya usados por la empresa, cargados una sola vez
+     */
+    private Set<String> cargarCodigosPersonalizados(Long empresaId) {
+        Set<String> codigos = new HashSet<>();
+        for (String codigo : productoRepository.findCodigosPersonalizadosByEmpresaId(empresaId)) {
+            codigos.add(codigo.trim());
         }
+        return codigos;
     }
 
     /**
@@ -290,131 +417,88 @@ public class ImportacionProductoService {
      */
     private String normalizarNombreProducto(String nombre) {
         if (nombre == null) return "";
-        
+
         return nombre.trim()
             .toLowerCase()
             .replaceAll("\\s+", " ") // Reemplazar múltiples espacios por uno solo
             .replaceAll("[^a-zA-Z0-9\\s]", ""); // Remover caracteres especiales
     }
 
-    /**
-     * Busca un sector por nombre o lo crea si no existe
-     */
-    private Sector buscarOCrearSector(String nombreSector, Long empresaId) {
-        try {
-            // Buscar sector existente
-            Optional<Sector> sectorExistente = sectorRepository.findByNombreAndEmpresaId(nombreSector, empresaId);
-            
-            if (sectorExistente.isPresent()) {
-                System.out.println("✅ Sector encontrado: " + nombreSector);
-                return sectorExistente.get();
-            }
-
-            // Crear nuevo sector
-            Sector nuevoSector = new Sector();
-            nuevoSector.setNombre(nombreSector);
-            nuevoSector.setDescripcion("Sector creado automáticamente durante importación");
-            nuevoSector.setActivo(true);
-            nuevoSector.setEmpresa(empresaRepository.findById(empresaId).orElse(null));
-            
-            Sector sectorCreado = sectorRepository.save(nuevoSector);
-            System.out.println("✅ Nuevo sector creado: " + nombreSector + " (ID: " + sectorCreado.getId() + ")");
-            
-            return sectorCreado;
-
-        } catch (Exception e) {
-            System.err.println("❌ Error al buscar/crear sector " + nombreSector + ": " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+    private ResultadoImportacionDTO errorDeFormato(int fila) {
+        return new ResultadoImportacionDTO(0, 0, 1,
+            Arrays.asList(Map.of("fila", fila, "error", "Formato de archivo incorrecto. Encabezados esperados (en este orden): " + String.join(", ", ENCABEZADOS_IMPORTACION))),
+            new ArrayList<>(), "Formato de archivo incorrecto");
     }
 
     /**
-     * Busca la fila que contiene los encabezados esperados
+     * Estado de una validación: busca los encabezados y luego valida cada fila a medida que llega
      */
-    private int encontrarFilaEncabezados(Sheet sheet) {
-        System.out.println("🔍 Buscando encabezados en las primeras filas del archivo...");
-        System.out.println("📋 Encabezados esperados: " + String.join(", ", ENCABEZADOS_IMPORTACION));
-        
-        // Buscar en las primeras 15 filas (cubre plantilla con título e instrucciones)
-        for (int rowIndex = 0; rowIndex <= Math.min(15, sheet.getLastRowNum()); rowIndex++) {
-            Row row = sheet.getRow(rowIndex);
-            if (row != null) {
-                String encabezadosFila = obtenerEncabezadosFila(row);
-                System.out.println("🔍 Fila " + rowIndex + ": " + encabezadosFila);
-                
-                if (row.getLastCellNum() >= NUM_COLUMNAS_IMPORTACION) {
-                    if (validarEncabezados(row)) {
-                        System.out.println("✅ Encontrados encabezados válidos en fila " + rowIndex);
-                        return rowIndex;
-                    }
-                } else {
-                    System.out.println("⚠️ Fila " + rowIndex + " no tiene suficientes columnas (" + row.getLastCellNum() + ")");
+    private class ValidacionEnCurso {
+        private final Set<String> codigosExistentes;
+        private final ObservadorValidacion observador;
+        private final List<ImportacionProductoDTO> productos = new ArrayList<>();
+        private final List<Map<String, Object>> errores = new ArrayList<>();
+        private int filaEncabezados = -1;
+        private int totalRegistros = 0;
+
+        ValidacionEnCurso(Set<String> codigosExistentes, ObservadorValidacion observador) {
+            this.codigosExistentes = codigosExistentes;
+            this.observador = observador;
+        }
+
+        void procesarFila(FilaLeida fila) throws FinLecturaException {
+            if (filaEncabezados == -1) {
+                if (esFilaEncabezados(fila)) {
+                    filaEncabezados = fila.numero;
+                    System.out.println("✅ Encontrados encabezados válidos en fila " + fila.numero);
+                } else if (fila.numero >= ULTIMA_FILA_ENCABEZADOS) {
+                    throw new FinLecturaException();
                 }
-            } else {
-                System.out.println("⚠️ Fila " + rowIndex + " está vacía");
+                return;
             }
-        }
-        
-        System.out.println("❌ No se encontraron encabezados válidos en ninguna fila");
-        System.out.println("📊 Total de filas revisadas: " + Math.min(15, sheet.getLastRowNum() + 1));
-        return -1; // No se encontró
-    }
-    
-    /**
-     * Obtiene los encabezados de una fila para debugging
-     */
-    private String obtenerEncabezadosFila(Row row) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < NUM_COLUMNAS_IMPORTACION; i++) {
-            Cell cell = row.getCell(i);
-            if (cell != null) {
-                String valor = obtenerValorCelda(cell);
-                sb.append("[").append(valor != null ? valor : "null").append("] ");
+
+            totalRegistros++;
+            Map<String, Object> errorFila = validarFila(fila, codigosExistentes);
+            if (errorFila != null) {
+                errores.add(errorFila);
+                observador.error(errorFila);
             } else {
-                sb.append("[null] ");
+                productos.add(convertirFilaAProducto(fila));
+            }
+
+            if (totalRegistros % INTERVALO_PROGRESO == 0) {
+                observador.progreso(totalRegistros, errores.size());
             }
         }
-        return sb.toString();
     }
 
     /**
-     * Valida que los encabezados del archivo coincidan con la plantilla actual
+     * Valida que los encabezados de la fila coincidan con la plantilla actual
      */
-    private boolean validarEncabezados(Row headerRow) {
-        System.out.println("🔍 Validando encabezados de la fila...");
-        
-        for (int i = 0; i < ENCABEZADOS_IMPORTACION.length; i++) {
-            Cell cell = headerRow.getCell(i);
-            String valorCelda = obtenerValorCelda(cell);
-            
-            if (cell == null) {
-                System.out.println("❌ Columna " + i + " está vacía, esperado: '" + ENCABEZADOS_IMPORTACION[i] + "'");
-                return false;
-            }
-            
-            if (!ENCABEZADOS_IMPORTACION[i].equals(valorCelda)) {
-                System.out.println("❌ Encabezado no coincide en columna " + i + ": esperado='" + ENCABEZADOS_IMPORTACION[i] + "', encontrado='" + valorCelda + "'");
+    private boolean esFilaEncabezados(FilaLeida fila) {
+        for (int i = 0; i < NUM_COLUMNAS_IMPORTACION; i++) {
+            if (!ENCABEZADOS_IMPORTACION[i].equals(fila.texto(i))) {
                 return false;
             }
-            
-            System.out.println("✅ Columna " + i + ": '" + valorCelda + "' coincide");
         }
-        
-        System.out.println("✅ Todos los encabezados coinciden perfectamente");
         return true;
     }
 
     /**
      * Valida una fila de datos (orden: código personalizado, nombre, marca, …)
      */
-    private Map<String, Object> validarFila(Row row, int numeroFila, Long empresaId) {
-        String codigoPersonalizado = obtenerValorCelda(row.getCell(0));
+    private Map<String, Object> validarFila(FilaLeida fila, Set<String> codigosExistentes) {
+        int numeroFila = fila.numero;
+
+        String codigoPersonalizado = fila.texto(0);
         if (codigoPersonalizado != null && codigoPersonalizado.length() > 50) {
             return Map.of("fila", numeroFila, "error", "El código personalizado no puede exceder 50 caracteres");
         }
+        if (codigoPersonalizado != null && !codigoPersonalizado.isEmpty() && codigosExistentes.contains(codigoPersonalizado)) {
+            return Map.of("fila", numeroFila, "error", "Ya existe un producto con el código personalizado: " + codigoPersonalizado);
+        }
 
-        String nombre = obtenerValorCelda(row.getCell(1));
+        String nombre = fila.texto(1);
         if (nombre == null || nombre.trim().isEmpty()) {
             return Map.of("fila", numeroFila, "error", "El nombre es obligatorio");
         }
@@ -422,37 +506,37 @@ public class ImportacionProductoService {
             return Map.of("fila", numeroFila, "error", "El nombre no puede exceder 200 caracteres");
         }
 
-        String marca = obtenerValorCelda(row.getCell(2));
+        String marca = fila.texto(2);
         if (marca != null && marca.length() > 100) {
             return Map.of("fila", numeroFila, "error", "La marca no puede exceder 100 caracteres");
         }
 
-        String descripcion = obtenerValorCelda(row.getCell(3));
+        String descripcion = fila.texto(3);
         if (descripcion != null && descripcion.length() > 1000) {
             return Map.of("fila", numeroFila, "error", "La descripción no puede exceder 1000 caracteres");
         }
 
-        String categoria = obtenerValorCelda(row.getCell(4));
+        String categoria = fila.texto(4);
         if (categoria != null && categoria.length() > 100) {
             return Map.of("fila", numeroFila, "error", "La categoría no puede exceder 100 caracteres");
         }
 
-        String sectorAlmacenamiento = obtenerValorCelda(row.getCell(5));
+        String sectorAlmacenamiento = fila.texto(5);
         if (sectorAlmacenamiento != null && sectorAlmacenamiento.length() > 100) {
             return Map.of("fila", numeroFila, "error", "El sector de almacenamiento no puede exceder 100 caracteres");
         }
 
-        Integer stock = obtenerValorEntero(row.getCell(6));
+        Integer stock = fila.entero(6);
         if (stock == null || stock < 0) {
             return Map.of("fila", numeroFila, "error", "El stock actual debe ser un número mayor o igual a 0");
         }
 
-        BigDecimal precio = obtenerValorDecimal(row.getCell(7));
+        BigDecimal precio = fila.decimal(7);
         if (precio != null && precio.compareTo(BigDecimal.ZERO) <= 0) {
             return Map.of("fila", numeroFila, "error", "El precio debe ser mayor a 0 si se especifica");
         }
 
-        String codigoBarras = obtenerValorCelda(row.getCell(8));
+        String codigoBarras = fila.texto(8);
         if (codigoBarras != null && codigoBarras.length() > 50) {
             return Map.of("fila", numeroFila, "error", "El código de barras no puede exceder 50 caracteres");
         }
@@ -463,113 +547,206 @@ public class ImportacionProductoService {
     /**
      * Convierte una fila de Excel a DTO (siempre Activo; stock mínimo 0 si no viene en Excel)
      */
-    private ImportacionProductoDTO convertirFilaAProducto(Row row) {
+    private ImportacionProductoDTO convertirFilaAProducto(FilaLeida fila) {
         return new ImportacionProductoDTO(
-            obtenerValorCelda(row.getCell(1)), // nombre
-            obtenerValorCelda(row.getCell(3)), // descripcion
-            obtenerValorDecimal(row.getCell(7)), // precio
-            obtenerValorEntero(row.getCell(6)), // stock
+            fila.texto(1), // nombre
+            fila.texto(3), // descripcion
+            fila.decimal(7), // precio
+            fila.entero(6), // stock
             0, // stockMinimo no está en plantilla
-            obtenerValorCelda(row.getCell(4)), // categoria
-            obtenerValorCelda(row.getCell(2)), // marca
-            obtenerValorCelda(row.getCell(5)), // sectorAlmacenamiento
-            obtenerValorCelda(row.getCell(8)), // codigoBarras
-            obtenerValorCelda(row.getCell(0)), // codigoPersonalizado
+            fila.texto(4), // categoria
+            fila.texto(2), // marca
+            fila.texto(5), // sectorAlmacenamiento
+            fila.texto(8), // codigoBarras
+            fila.texto(0), // codigoPersonalizado
             "Activo"
         );
     }
 
+    // ---- Lectura SAX de la hoja ----
+
     /**
-     * Verifica si un producto ya existe en la base de datos basándose únicamente en código personalizado
-     * Permite productos con el mismo nombre o código de barras, ya que pueden ser productos diferentes
+     * Corta la lectura SAX cuando ya no hace falta seguir leyendo
      */
-    private boolean verificarProductoExistenteEnBD(ImportacionProductoDTO productoDTO, Long empresaId) {
-        // Solo verificar por código personalizado (si existe)
-        if (productoDTO.getCodigoPersonalizado() != null && !productoDTO.getCodigoPersonalizado().trim().isEmpty()) {
-            if (productoRepository.existsByEmpresaIdAndCodigoPersonalizado(empresaId, productoDTO.getCodigoPersonalizado().trim())) {
-                System.out.println("❌ Producto duplicado por código personalizado: " + productoDTO.getCodigoPersonalizado());
-                return true;
-            }
+    private static class FinLecturaException extends SAXException {
+        FinLecturaException() {
+            super("Fin de lectura");
         }
+    }
 
-        // No verificar por nombre ni código de barras para permitir productos similares
-        System.out.println("✅ Producto permitido - Código personalizado único: " + 
-            (productoDTO.getCodigoPersonalizado() != null ? productoDTO.getCodigoPersonalizado() : "Sin código personalizado"));
-        
-        return false;
+    private interface ConsumidorFila {
+        void aceptar(FilaLeida fila) throws FinLecturaException;
     }
 
     /**
-     * Obtiene el valor de una celda como String
+     * Valores de una fila tal como vienen en la hoja. Se distingue si la celda era numérica
+     * para interpretar igual que antes los textos con formato ("$8.000,00").
      */
-    private String obtenerValorCelda(Cell cell) {
-        if (cell == null) return null;
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                // Para números, convertir a string sin decimales si es entero
-                double numericValue = cell.getNumericCellValue();
-                if (numericValue == (int) numericValue) {
-                    return String.valueOf((int) numericValue);
-                } else {
-                    return String.valueOf(numericValue);
+    private static class FilaLeida {
+        private final int numero;
+        private final String[] valores = new String[NUM_COLUMNAS_IMPORTACION];
+        private final boolean[] numericos = new boolean[NUM_COLUMNAS_IMPORTACION];
+
+        FilaLeida(int numero) {
+            this.numero = numero;
+        }
+
+        /**
+         * Valor como texto (los números enteros sin decimales)
+         */
+        String texto(int columna) {
+            String valor = valores[columna];
+            if (valor == null) return null;
+            if (!numericos[columna]) return valor.trim();
+            try {
+                // Sin notación científica: los códigos de barras numéricos se leen completos
+                return new BigDecimal(valor).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        Integer entero(int columna) {
+            String valor = valores[columna];
+            if (valor == null) return null;
+            try {
+                if (numericos[columna]) {
+                    return (int) Double.parseDouble(valor);
                 }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            default:
+                // Manejar formato de números con separadores de miles
+                return Integer.parseInt(valor.trim().replace(".", "").replace(",", ""));
+            } catch (NumberFormatException e) {
                 return null;
+            }
         }
-    }
 
-    /**
-     * Obtiene el valor de una celda como Integer
-     */
-    private Integer obtenerValorEntero(Cell cell) {
-        if (cell == null) return null;
-        
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                return (int) cell.getNumericCellValue();
-            case STRING:
-                try {
-                    String valor = cell.getStringCellValue().trim();
-                    // Manejar formato de números con separadores de miles
-                    valor = valor.replace(".", "").replace(",", "");
-                    return Integer.parseInt(valor);
-                } catch (NumberFormatException e) {
-                    return null;
+        BigDecimal decimal(int columna) {
+            String valor = valores[columna];
+            if (valor == null) return null;
+            try {
+                if (numericos[columna]) {
+                    return BigDecimal.valueOf(Double.parseDouble(valor));
+                }
+                // Manejar formato de moneda argentina: "$8.000,00" -> 8000.00
+                valor = valor.trim();
+                if (valor.startsWith("$")) {
+                    valor = valor.substring(1);
                 }
-            default:
+                return new BigDecimal(valor.replace(".", "").replace(",", "."));
+            } catch (NumberFormatException e) {
                 return null;
+            }
         }
     }
 
     /**
-     * Obtiene el valor de una celda como BigDecimal
+     * Handler SAX mínimo sobre sheetN.xml: arma una FilaLeida por cada &lt;row&gt; con las
+     * primeras columnas de la plantilla. Se usa en lugar de XSSFSheetXMLHandler porque éste
+     * solo entrega el texto formateado y se pierde si la celda era numérica.
      */
-    private BigDecimal obtenerValorDecimal(Cell cell) {
-        if (cell == null) return null;
-        
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                return BigDecimal.valueOf(cell.getNumericCellValue());
-            case STRING:
-                try {
-                    String valor = cell.getStringCellValue().trim();
-                    // Manejar formato de moneda argentina: "$8.000,00" -> 8000.00
-                    if (valor.startsWith("$")) {
-                        valor = valor.substring(1); // Remover el símbolo $
-                    }
-                    // Reemplazar punto por nada (separador de miles) y coma por punto (separador decimal)
-                    valor = valor.replace(".", "").replace(",", ".");
-                    return new BigDecimal(valor);
-                } catch (NumberFormatException e) {
-                    return null;
+    private static class LectorFilasHoja extends DefaultHandler {
+        private final ReadOnlySharedStringsTable textosCompartidos;
+        private final ConsumidorFila consumidor;
+        private final StringBuilder contenido = new StringBuilder();
+
+        private FilaLeida filaActual;
+        private int ultimaFila = 0;
+        private int columnaActual = -1;
+        private int columnaSiguiente = 0;
+        private String tipoCelda;
+        private boolean leyendoValor;
+
+        LectorFilasHoja(ReadOnlySharedStringsTable textosCompartidos, ConsumidorFila consumidor) {
+            this.textosCompartidos = textosCompartidos;
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atributos) {
+            switch (localName) {
+                case "row": {
+                    String r = atributos.getValue("r");
+                    ultimaFila = r != null ? Integer.parseInt(r) : ultimaFila + 1;
+                    filaActual = new FilaLeida(ultimaFila);
+                    columnaSiguiente = 0;
+                    break;
                 }
-            default:
-                return null;
+                case "c": {
+                    String referencia = atributos.getValue("r");
+                    columnaActual = referencia != null ? columnaDeReferencia(referencia) : columnaSiguiente;
+                    columnaSiguiente = columnaActual + 1;
+                    tipoCelda = atributos.getValue("t");
+                    break;
+                }
+                case "v":
+                case "t":
+                    leyendoValor = true;
+                    contenido.setLength(0);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (leyendoValor) {
+                contenido.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    leyendoValor = false;
+                    guardarValor(localName);
+                    break;
+                case "row":
+                    consumidor.aceptar(filaActual);
+                    filaActual = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void guardarValor(String elemento) {
+            if (filaActual == null || columnaActual < 0 || columnaActual >= NUM_COLUMNAS_IMPORTACION) {
+                return;
+            }
+            String valor = contenido.toString();
+            if ("t".equals(elemento)) {
+                // Texto en línea (<is><t>) o concatenado de rich text
+                String previo = filaActual.valores[columnaActual];
+                filaActual.valores[columnaActual] = previo != null ? previo + valor : valor;
+                return;
+            }
+            if (tipoCelda == null || "n".equals(tipoCelda)) {
+                filaActual.valores[columnaActual] = valor;
+                filaActual.numericos[columnaActual] = true;
+            } else if ("s".equals(tipoCelda)) {
+                filaActual.valores[columnaActual] = textosCompartidos.getItemAt(Integer.parseInt(valor)).getString();
+            } else if ("b".equals(tipoCelda)) {
+                filaActual.valores[columnaActual] = String.valueOf("1".equals(valor));
+            } else if (!"e".equals(tipoCelda)) {
+                // str (resultado de fórmula de texto) e inlineStr
+                filaActual.valores[columnaActual] = valor;
+            }
+        }
+
+        /**
+         * "C12" -> 2
+         */
+        private static int columnaDeReferencia(String referencia) {
+            int columna = 0;
+            for (int i = 0; i < referencia.length(); i++) {
+                char c = referencia.charAt(i);
+                if (c < 'A' || c > 'Z') break;
+                columna = columna * 26 + (c - 'A' + 1);
+            }
+            return columna - 1;
         }
     }
 }
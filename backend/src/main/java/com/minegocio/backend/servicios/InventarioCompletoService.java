@@ -21,6 +21,9 @@ import com.minegocio.backend.repositorios.SectorRepository;
 import com.minegocio.backend.repositorios.RegistroInventarioRepository;
 import com.minegocio.backend.repositorios.DetalleRegistroInventarioRepository;
 import com.minegocio.backend.repositorios.StockPorSectorRepository;
+import com.minegocio.backend.utilidades.MuestreoLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -44,6 +47,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class InventarioCompletoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(InventarioCompletoService.class);
+
     @Autowired
     private InventarioCompletoRepository inventarioCompletoRepository;
 
@@ -77,20 +82,29 @@ public class InventarioCompletoService {
     @Autowired
     private StockPorSectorRepository stockPorSectorRepository;
     
-    // Variable para almacenar el ID del inventario actual durante la actualización
-    private Long inventarioActualId;
+    // Tiempos del conteo y la finalización de inventarios (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
+    
+    // Contadores de progreso de los conteos de sector, mantenidos en cada cambio de detalle
+    @Autowired
+    private ProgresoConteoService progresoConteoService;
+    
+    // Eventos en vivo (SSE) para los usuarios que cuentan el inventario
+    @Autowired
+    private EventosInventarioService eventosInventarioService;
 
     /**
      * Obtener un conteo sector por ID
      */
     public ConteoSector obtenerConteoSectorPorId(Long conteoSectorId) {
-        System.out.println("🔍 Buscando conteo sector con ID: " + conteoSectorId);
+        logger.debug("🔍 Buscando conteo sector con ID: {}", conteoSectorId);
         Optional<ConteoSector> conteoSector = conteoSectorRepository.findById(conteoSectorId);
         if (conteoSector.isPresent()) {
-            System.out.println("✅ Conteo sector encontrado: " + conteoSector.get().getSector().getNombre());
+            logger.debug("✅ Conteo sector encontrado: {}", conteoSector.get().getSector().getNombre());
             return conteoSector.get();
         } else {
-            System.out.println("❌ Conteo sector no encontrado con ID: " + conteoSectorId);
+            logger.debug("❌ Conteo sector no encontrado con ID: {}", conteoSectorId);
             return null;
         }
     }
@@ -99,7 +113,7 @@ public class InventarioCompletoService {
      * Obtener detalles de conteo consolidados para todos los usuarios
      */
     public List<DetalleConteo> obtenerDetallesConteoConsolidados(Long conteoSectorId) {
-        System.out.println("🔍 Obteniendo detalles consolidados para sector: " + conteoSectorId);
+        logger.debug("🔍 Obteniendo detalles consolidados para sector: {}", conteoSectorId);
         
         // ✅ USAR LA MISMA LÓGICA QUE obtenerDetalleFinalSectorCompletado
         // Esto asegura consistencia en los valores mostrados
@@ -110,8 +124,9 @@ public class InventarioCompletoService {
      * Obtener detalles solo del usuario actual (modo conteo normal)
      */
     private List<DetalleConteo> obtenerDetallesSoloUsuarioActual(ConteoSector conteoSector, Long usuarioId, boolean esUsuario1, boolean esUsuario2) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         List<DetalleConteo> todosLosDetalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ Todos los detalles encontrados (SIN eliminados): " + todosLosDetalles.size());
+        logger.debug("✅ Todos los detalles encontrados (SIN eliminados): {}", todosLosDetalles.size());
         
         List<DetalleConteo> detallesDelUsuario = new ArrayList<>();
         
@@ -128,14 +143,13 @@ public class InventarioCompletoService {
             
             if (esDelUsuarioActual) {
                 detallesDelUsuario.add(detalle);
-                System.out.println("✅ CONTEO NORMAL: Incluyendo producto " + detalle.getProducto().getNombre() + 
-                                 " para usuario " + usuarioId + 
-                                 " - Cantidad1: " + detalle.getCantidadConteo1() + 
-                                 ", Cantidad2: " + detalle.getCantidadConteo2());
+                if (muestreo.tomar()) {
+                    logger.debug("✅ CONTEO NORMAL: Incluyendo producto {} para usuario {} - Cantidad1: {}, Cantidad2: {}", detalle.getProducto().getNombre(), usuarioId, detalle.getCantidadConteo1(), detalle.getCantidadConteo2());
+                }
             }
         }
         
-        System.out.println("✅ Detalles del usuario " + usuarioId + ": " + detallesDelUsuario.size());
+        logger.debug("✅ Detalles del usuario {}: {}", usuarioId, detallesDelUsuario.size());
         return detallesDelUsuario;
     }
 
@@ -152,24 +166,25 @@ public class InventarioCompletoService {
      * @param forzarFinalizacion true si debe finalizar automáticamente (cuando se actualiza stock), false si solo debe verificar
      */
     public boolean verificarYFinalizarInventarioCompleto(Long inventarioId, boolean forzarFinalizacion) {
-        System.out.println("🔍 Verificando si el inventario completo está listo para finalizar: " + inventarioId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Verificando si el inventario completo está listo para finalizar: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId).orElse(null);
         if (inventario == null) {
-            System.out.println("❌ Inventario completo no encontrado con ID: " + inventarioId);
+            logger.debug("❌ Inventario completo no encontrado con ID: {}", inventarioId);
             return false;
         }
         
         // Obtener todos los sectores del inventario
         List<ConteoSector> sectores = conteoSectorRepository.findByInventarioCompleto(inventario);
-        System.out.println("🔍 Total de sectores en el inventario: " + sectores.size());
+        logger.debug("🔍 Total de sectores en el inventario: {}", sectores.size());
         
         // Debug: mostrar estado de cada sector
         for (int i = 0; i < sectores.size(); i++) {
             ConteoSector sector = sectores.get(i);
-            System.out.println("🔍 Sector " + (i + 1) + ": ID=" + sector.getId() + 
-                             ", Nombre=" + sector.getNombreSector() + 
-                             ", Estado=" + sector.getEstado());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Sector {}: ID={}, Nombre={}, Estado={}", (i + 1), sector.getId(), sector.getNombreSector(), sector.getEstado());
+            }
         }
         
         // Verificar si todos los sectores están completados (incluyendo los completados sin conteo)
@@ -178,14 +193,15 @@ public class InventarioCompletoService {
                             sector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO)
             .count();
         
-        System.out.println("🔍 Sectores completados: " + sectoresCompletados + " de " + sectores.size());
+        logger.debug("🔍 Sectores completados: {} de {}", sectoresCompletados, sectores.size());
         
         // ✅ DEBUG: Mostrar detalle de cada sector
         for (ConteoSector sector : sectores) {
             boolean esCompletado = sector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO || 
                                   sector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO;
-            System.out.println("🔍 DEBUG Sector " + sector.getId() + " (" + sector.getNombreSector() + "): " + 
-                             "Estado=" + sector.getEstado() + ", EsCompletado=" + esCompletado);
+            if (muestreo.tomar()) {
+                logger.debug("🔍 DEBUG Sector {} ({}): Estado={}, EsCompletado={}", sector.getId(), sector.getNombreSector(), sector.getEstado(), esCompletado);
+            }
         }
         
         // SIEMPRE actualizar el progreso del inventario
@@ -194,37 +210,37 @@ public class InventarioCompletoService {
         inventario.setSectoresPendientes((int) sectores.stream().filter(s -> s.getEstado() == ConteoSector.EstadoConteo.PENDIENTE).count());
         inventario.setPorcentajeCompletado(sectores.size() > 0 ? (sectoresCompletados * 100.0 / sectores.size()) : 0.0);
         
-        System.out.println("🔍 Progreso actualizado:");
-        System.out.println("  - Sectores completados: " + inventario.getSectoresCompletados());
-        System.out.println("  - Sectores en progreso: " + inventario.getSectoresEnProgreso());
-        System.out.println("  - Sectores pendientes: " + inventario.getSectoresPendientes());
-        System.out.println("  - Porcentaje completado: " + inventario.getPorcentajeCompletado());
+        logger.debug("🔍 Progreso actualizado:");
+        logger.debug("  - Sectores completados: {}", inventario.getSectoresCompletados());
+        logger.debug("  - Sectores en progreso: {}", inventario.getSectoresEnProgreso());
+        logger.debug("  - Sectores pendientes: {}", inventario.getSectoresPendientes());
+        logger.debug("  - Porcentaje completado: {}", inventario.getPorcentajeCompletado());
         
         // Lógica de finalización basada en el parámetro forzarFinalizacion
         if (sectoresCompletados == sectores.size() && sectores.size() > 0) {
             if (forzarFinalizacion) {
                 // ✅ FINALIZAR: Cuando se actualiza el stock del sistema
-                System.out.println("✅ Todos los sectores están completados. Finalizando inventario por actualización de stock...");
+                logger.debug("✅ Todos los sectores están completados. Finalizando inventario por actualización de stock...");
                 
                 inventario.setEstado(InventarioCompleto.EstadoInventario.COMPLETADO);
                 inventario.setFechaFinalizacion(LocalDateTime.now());
                 
                 inventarioCompletoRepository.save(inventario);
-                System.out.println("✅ Inventario completo finalizado exitosamente por actualización de stock");
+                logger.debug("✅ Inventario completo finalizado exitosamente por actualización de stock");
                 return true;
             } else {
                 // ✅ NO FINALIZAR: Cuando solo se completan los sectores
-                System.out.println("✅ Todos los sectores están completados. Inventario listo para consolidación manual...");
-                System.out.println("🔍 Manteniendo inventario EN_PROGRESO para permitir consolidación y actualización de stock");
+                logger.debug("✅ Todos los sectores están completados. Inventario listo para consolidación manual...");
+                logger.debug("🔍 Manteniendo inventario EN_PROGRESO para permitir consolidación y actualización de stock");
                 
                 // NO cambiar el estado del inventario - mantenerlo EN_PROGRESO
                 // El inventario solo se finaliza cuando se actualiza el stock del sistema
                 inventarioCompletoRepository.save(inventario);
-                System.out.println("✅ Inventario listo para consolidación - NO finalizado automáticamente");
+                logger.debug("✅ Inventario listo para consolidación - NO finalizado automáticamente");
                 return false; // NO finalizar automáticamente
             }
         } else {
-            System.out.println("⏳ Aún hay sectores pendientes o en progreso");
+            logger.debug("⏳ Aún hay sectores pendientes o en progreso");
             // Guardar el progreso actualizado
             inventarioCompletoRepository.save(inventario);
             return false;
@@ -232,18 +248,15 @@ public class InventarioCompletoService {
     }
 
     /**
-     * Actualizar stock del sistema y generar registro del inventario
+     * Primer paso de la finalización (FinalizacionInventarioService): verifica que todos los sectores
+     * estén completados y preserva el stock de los sectores "completado sin conteo"
      */
-    @Transactional
-    public Map<String, Object> actualizarStockYGenerarRegistro(Long inventarioId, List<Map<String, Object>> productosEditados, String observaciones, Long usuarioId) {
-        System.out.println("🔄 Iniciando actualización de stock y generación de registro para inventario: " + inventarioId);
+    public void prepararFinalizacion(Long inventarioId) {
+        logger.debug("🔄 Iniciando actualización de stock y generación de registro para inventario: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
                 .orElseThrow(() -> new RuntimeException("Inventario completo no encontrado"));
         
-        // Establecer el ID del inventario actual para usar en obtenerDistribucionRealPorSectores
-        this.inventarioActualId = inventarioId;
-        
         // Verificar que todos los sectores estén completados (incluyendo los completados sin conteo)
         List<ConteoSector> sectoresVerificacion = conteoSectorRepository.findByInventarioCompleto(inventario);
         boolean todosSectoresCompletados = sectoresVerificacion.stream()
@@ -255,9 +268,141 @@ public class InventarioCompletoService {
         }
         
         // PASO CRÍTICO: Verificar y corregir stock de sectores "completado sin conteo"
-        System.out.println("🔄 === VERIFICANDO STOCK DE SECTORES SIN CONTEO ===");
+        logger.debug("🔄 === VERIFICANDO STOCK DE SECTORES SIN CONTEO ===");
         verificarYCorregirStockSectoresSinConteo(inventario);
+    }
+
+    /**
+     * Aplica el stock final de un lote de productos editados y devuelve el resultado de cada uno.
+     * Productos, filas de StockPorSector y totales de conteo del lote se cargan en pocas consultas.
+     */
+    public List<Map<String, Object>> procesarLoteFinalizacion(Long inventarioId, List<Map<String, Object>> productosEditados) {
+        Set<Long> productoIds = new HashSet<>();
+        for (Map<String, Object> productoEditado : productosEditados) {
+            productoIds.add(Long.valueOf(productoEditado.get("productoId").toString()));
+        }
+        ContextoFinalizacion contexto = cargarContextoFinalizacion(inventarioId, productoIds);
+        
+        List<Map<String, Object>> productosActualizados = new ArrayList<>();
+        for (Map<String, Object> productoEditado : productosEditados) {
+            productosActualizados.add(aplicarProductoFinalizacion(contexto, productoEditado));
+        }
+        return productosActualizados;
+    }
+
+    private Map<String, Object> aplicarProductoFinalizacion(ContextoFinalizacion contexto, Map<String, Object> productoEditado) {
+        Long productoId = Long.valueOf(productoEditado.get("productoId").toString());
+        Integer cantidadFinal = Integer.valueOf(productoEditado.get("cantidadFinal").toString());
+        String observacionesProducto = (String) productoEditado.get("observaciones");
+        Boolean fueContado = (Boolean) productoEditado.get("fueContado");
+        String accionSeleccionada = productoEditado.get("accionSeleccionada") != null
+                ? productoEditado.get("accionSeleccionada").toString().trim()
+                : "";
         
+        Producto producto = contexto.producto(productoId);
+        if (producto == null) {
+            throw new RuntimeException("Producto no encontrado: " + productoId);
+        }
+        
+        // Stock real en BD (momento del POST). Para "omitir" debe mandar la operación.
+        Integer stockAnteriorDb = producto.getStock();
+        // Referencia de la pantalla consolidada (stock ajustado al inventario). Si no viene, se usa el de BD.
+        Integer stockAnteriorRegistro = stockAnteriorDb;
+        Object stockAnteriorCliente = productoEditado.get("stockAnteriorRegistro");
+        if (stockAnteriorCliente != null) {
+            if (stockAnteriorCliente instanceof Number) {
+                stockAnteriorRegistro = ((Number) stockAnteriorCliente).intValue();
+            }
+        }
+        
+        // MANEJO DE PRODUCTOS NO CONTADOS
+        if (fueContado != null && !fueContado) {
+            logger.debug("⚠️ Procesando producto NO CONTADO: {}", producto.getNombre());
+            logger.debug("⚠️ Acción seleccionada: {}", accionSeleccionada);
+            
+            if ("DAR_POR_0".equalsIgnoreCase(accionSeleccionada)) {
+                // Dar por 0 - actualizar stock a 0
+                cantidadFinal = 0;
+                logger.debug("⚠️ Producto NO CONTADO - Dado por 0: {}", producto.getNombre());
+            } else if ("EDITADO".equalsIgnoreCase(accionSeleccionada) || "EDITAR".equalsIgnoreCase(accionSeleccionada)) {
+                // EDITADO - usar el valor editado manualmente por el usuario
+                // La cantidadFinal ya viene del frontend con el valor editado
+                logger.debug("⚠️ Producto NO CONTADO - Editado manualmente: {} - Cantidad editada: {}", producto.getNombre(), cantidadFinal);
+            } else {
+                // OMITIR - conservar valor actual en BD (no el snapshot de consolidación)
+                cantidadFinal = stockAnteriorDb;
+                stockAnteriorRegistro = stockAnteriorDb;
+                logger.debug("⚠️ Producto NO CONTADO - Omitido (conserva valor): {}", producto.getNombre());
+            }
+        }
+        
+        // "Dar por cero" / edición a 0: no usar actualizarStockPorSector con cantidad 0, porque suma
+        // stock de sectores COMPLETADO_SIN_CONTEO y deja unidades en depósito (registro seguía mostrando stock).
+        boolean forzarCeroTotalNoContado = Boolean.FALSE.equals(fueContado)
+                && cantidadFinal != null && cantidadFinal == 0
+                && ("DAR_POR_0".equalsIgnoreCase(accionSeleccionada)
+                        || "EDITADO".equalsIgnoreCase(accionSeleccionada)
+                        || "EDITAR".equalsIgnoreCase(accionSeleccionada));
+        
+        // Actualizar sector del producto basado en el inventario
+        // Solo actualizar sector si el producto fue contado
+        if (fueContado == null || fueContado) {
+            // Buscar el sector más frecuente para este producto en el inventario
+            List<ConteoSector> sectoresDelProducto = contexto.sectores.stream()
+                .filter(sector -> contexto.filasDeConteo(sector, productoId) > 0)
+                .collect(Collectors.toList());
+            
+            if (!sectoresDelProducto.isEmpty()) {
+                // Usar el sector con más conteos para este producto
+                ConteoSector sectorMasFrecuente = sectoresDelProducto.stream()
+                    .max(Comparator.comparing(sector -> contexto.filasDeConteo(sector, productoId)))
+                    .orElse(sectoresDelProducto.get(0));
+                
+                producto.setSectorAlmacenamiento(sectorMasFrecuente.getSector().getNombre());
+                logger.debug("✅ Sector actualizado para {} - Nuevo sector: {}", producto.getNombre(), sectorMasFrecuente.getSector().getNombre());
+            }
+        }
+        
+        productoRepository.save(producto);
+        
+        if (forzarCeroTotalNoContado) {
+            Integer hintUnidadesContados = null;
+            Object ux = productoEditado.get("unidadesEnSectoresContadosDarPorCero");
+            if (ux instanceof Number && ((Number) ux).intValue() > 0) {
+                hintUnidadesContados = ((Number) ux).intValue();
+            }
+            aplicarDarPorCeroNoContadoSoloEnSectoresContados(contexto, productoId, hintUnidadesContados);
+        } else {
+            // Actualizar stock por sector y sincronizar (preserva remanente no sectorizado en product.stock)
+            actualizarStockPorSector(contexto, producto, cantidadFinal);
+        }
+        
+        Integer stockNuevoReal = producto.getStock() != null ? producto.getStock() : 0;
+        // Lista general del historial: comparar total real en BD antes vs después (no el stock "ajustado" de la pantalla de consolidación vs el total final, que mezcla criterios y muestra ± falsos)
+        int stockAntBd = stockAnteriorDb != null ? stockAnteriorDb : 0;
+        Integer diferenciaStockRegistro = stockNuevoReal - stockAntBd;
+        
+        // Crear registro del producto
+        Map<String, Object> registroProducto = new HashMap<>();
+        registroProducto.put("productoId", productoId);
+        registroProducto.put("nombreProducto", producto.getNombre());
+        registroProducto.put("codigoProducto", producto.getCodigoPersonalizado());
+        registroProducto.put("stockAnterior", stockAntBd);
+        registroProducto.put("stockNuevo", stockNuevoReal);
+        registroProducto.put("diferenciaStock", diferenciaStockRegistro);
+        registroProducto.put("observaciones", observacionesProducto);
+        
+        logger.debug("✅ Producto actualizado: {} - Stock anterior BD (historial): {} - Ref. consolidación (opcional): {} - Stock nuevo (real): {} - Diferencia: {}", producto.getNombre(), stockAntBd, stockAnteriorRegistro, stockNuevoReal, diferenciaStockRegistro);
+        return registroProducto;
+    }
+
+    /**
+     * Último paso de la finalización: guarda el registro del inventario con el resultado de todos los
+     * productos, marca el inventario como completado y alinea el stock de la empresa
+     */
+    public Map<String, Object> generarRegistroFinalizacion(Long inventarioId, Long usuarioId, String observaciones, List<Map<String, Object>> productosActualizados) {
+        InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
+                .orElseThrow(() -> new RuntimeException("Inventario completo no encontrado"));
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
@@ -270,135 +415,16 @@ public class InventarioCompletoService {
         registroInventario.put("observaciones", observaciones);
         registroInventario.put("fechaGeneracion", LocalDateTime.now());
         
-        // Obtener información de sectores antes de procesar productos
         List<ConteoSector> sectores = conteoSectorRepository.findByInventarioCompleto(inventario);
         
-        // Procesar cada producto editado
-        List<Map<String, Object>> productosActualizados = new ArrayList<>();
         int productosConDiferencias = 0;
         int productosSinDiferencias = 0;
-        
-        for (Map<String, Object> productoEditado : productosEditados) {
-            Long productoId = Long.valueOf(productoEditado.get("productoId").toString());
-            Integer cantidadFinal = Integer.valueOf(productoEditado.get("cantidadFinal").toString());
-            String observacionesProducto = (String) productoEditado.get("observaciones");
-            Boolean fueContado = (Boolean) productoEditado.get("fueContado");
-            String accionSeleccionada = productoEditado.get("accionSeleccionada") != null
-                    ? productoEditado.get("accionSeleccionada").toString().trim()
-                    : "";
-            
-            Producto producto = productoRepository.findById(productoId)
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + productoId));
-            
-            // Stock real en BD (momento del POST). Para "omitir" debe mandar la operación.
-            Integer stockAnteriorDb = producto.getStock();
-            // Referencia de la pantalla consolidada (stock ajustado al inventario). Si no viene, se usa el de BD.
-            Integer stockAnteriorRegistro = stockAnteriorDb;
-            Object stockAnteriorCliente = productoEditado.get("stockAnteriorRegistro");
-            if (stockAnteriorCliente != null) {
-                if (stockAnteriorCliente instanceof Number) {
-                    stockAnteriorRegistro = ((Number) stockAnteriorCliente).intValue();
-                }
-            }
-            
-            // MANEJO DE PRODUCTOS NO CONTADOS
-            if (fueContado != null && !fueContado) {
-                System.out.println("⚠️ Procesando producto NO CONTADO: " + producto.getNombre());
-                System.out.println("⚠️ Acción seleccionada: " + accionSeleccionada);
-                
-                if ("DAR_POR_0".equalsIgnoreCase(accionSeleccionada)) {
-                    // Dar por 0 - actualizar stock a 0
-                    cantidadFinal = 0;
-                    System.out.println("⚠️ Producto NO CONTADO - Dado por 0: " + producto.getNombre());
-                } else if ("EDITADO".equalsIgnoreCase(accionSeleccionada) || "EDITAR".equalsIgnoreCase(accionSeleccionada)) {
-                    // EDITADO - usar el valor editado manualmente por el usuario
-                    // La cantidadFinal ya viene del frontend con el valor editado
-                    System.out.println("⚠️ Producto NO CONTADO - Editado manualmente: " + producto.getNombre() + 
-                                     " - Cantidad editada: " + cantidadFinal);
-                } else {
-                    // OMITIR - conservar valor actual en BD (no el snapshot de consolidación)
-                    cantidadFinal = stockAnteriorDb;
-                    stockAnteriorRegistro = stockAnteriorDb;
-                    System.out.println("⚠️ Producto NO CONTADO - Omitido (conserva valor): " + producto.getNombre());
-                }
-            }
-            
-            // "Dar por cero" / edición a 0: no usar actualizarStockPorSector con cantidad 0, porque suma
-            // stock de sectores COMPLETADO_SIN_CONTEO y deja unidades en depósito (registro seguía mostrando stock).
-            boolean forzarCeroTotalNoContado = Boolean.FALSE.equals(fueContado)
-                    && cantidadFinal != null && cantidadFinal == 0
-                    && ("DAR_POR_0".equalsIgnoreCase(accionSeleccionada)
-                            || "EDITADO".equalsIgnoreCase(accionSeleccionada)
-                            || "EDITAR".equalsIgnoreCase(accionSeleccionada));
-            
-            // Actualizar sector del producto basado en el inventario
-            // Solo actualizar sector si el producto fue contado
-            if (fueContado == null || fueContado) {
-                // Buscar el sector más frecuente para este producto en el inventario
-                List<ConteoSector> sectoresDelProducto = sectores.stream()
-                    .filter(sector -> {
-                        List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndProductoAndEliminadoFalse(sector, producto);
-                        return !detalles.isEmpty();
-                    })
-                    .collect(Collectors.toList());
-                
-                if (!sectoresDelProducto.isEmpty()) {
-                    // Usar el sector con más conteos para este producto
-                    ConteoSector sectorMasFrecuente = sectoresDelProducto.stream()
-                        .max(Comparator.comparing(sector -> 
-                            detalleConteoRepository.findByConteoSectorAndProductoAndEliminadoFalse(sector, producto).size()))
-                        .orElse(sectoresDelProducto.get(0));
-                    
-                    producto.setSectorAlmacenamiento(sectorMasFrecuente.getSector().getNombre());
-                    System.out.println("✅ Sector actualizado para " + producto.getNombre() + 
-                                     " - Nuevo sector: " + sectorMasFrecuente.getSector().getNombre());
-                }
-            }
-            
-            productoRepository.save(producto);
-            
-            if (forzarCeroTotalNoContado) {
-                Integer hintUnidadesContados = null;
-                Object ux = productoEditado.get("unidadesEnSectoresContadosDarPorCero");
-                if (ux instanceof Number && ((Number) ux).intValue() > 0) {
-                    hintUnidadesContados = ((Number) ux).intValue();
-                }
-                aplicarDarPorCeroNoContadoSoloEnSectoresContados(productoId, hintUnidadesContados);
-            } else {
-                // Actualizar stock por sector y sincronizar (preserva remanente no sectorizado en product.stock)
-                actualizarStockPorSector(producto, cantidadFinal);
-            }
-            
-            Producto productoTrasStock = productoRepository.findById(productoId)
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado tras actualizar stock: " + productoId));
-            Integer stockNuevoReal = productoTrasStock.getStock() != null ? productoTrasStock.getStock() : 0;
-            // Lista general del historial: comparar total real en BD antes vs después (no el stock "ajustado" de la pantalla de consolidación vs el total final, que mezcla criterios y muestra ± falsos)
-            int stockAntBd = stockAnteriorDb != null ? stockAnteriorDb : 0;
-            Integer diferenciaStockRegistro = stockNuevoReal - stockAntBd;
-            
-            // Crear registro del producto
-            Map<String, Object> registroProducto = new HashMap<>();
-            registroProducto.put("productoId", productoId);
-            registroProducto.put("nombreProducto", productoTrasStock.getNombre());
-            registroProducto.put("codigoProducto", productoTrasStock.getCodigoPersonalizado());
-            registroProducto.put("stockAnterior", stockAntBd);
-            registroProducto.put("stockNuevo", stockNuevoReal);
-            registroProducto.put("diferenciaStock", diferenciaStockRegistro);
-            registroProducto.put("observaciones", observacionesProducto);
-            
-            productosActualizados.add(registroProducto);
-            
-            if (diferenciaStockRegistro != 0) {
+        for (Map<String, Object> productoActualizado : productosActualizados) {
+            if ((Integer) productoActualizado.get("diferenciaStock") != 0) {
                 productosConDiferencias++;
             } else {
                 productosSinDiferencias++;
             }
-            
-            System.out.println("✅ Producto actualizado: " + productoTrasStock.getNombre() + 
-                             " - Stock anterior BD (historial): " + stockAntBd + 
-                             " - Ref. consolidación (opcional): " + stockAnteriorRegistro +
-                             " - Stock nuevo (real): " + stockNuevoReal + 
-                             " - Diferencia: " + diferenciaStockRegistro);
         }
         
         // Crear información de sectores
@@ -433,7 +459,15 @@ public class InventarioCompletoService {
         
         // Guardar el registro principal
         registroInventarioEntity = registroInventarioRepository.save(registroInventarioEntity);
-        System.out.println("✅ RegistroInventario guardado con ID: " + registroInventarioEntity.getId());
+        logger.debug("✅ RegistroInventario guardado con ID: {}", registroInventarioEntity.getId());
+        
+        // Productos del registro en una sola consulta
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : productoRepository.findAllById(productosActualizados.stream()
+                .map(p -> Long.valueOf(p.get("productoId").toString()))
+                .collect(Collectors.toSet()))) {
+            productos.put(producto.getId(), producto);
+        }
         
         // Crear y guardar los detalles del registro
         List<DetalleRegistroInventario> detallesRegistro = new ArrayList<>();
@@ -442,8 +476,7 @@ public class InventarioCompletoService {
             detalle.setRegistroInventario(registroInventarioEntity);
             
             Long productoId = Long.valueOf(productoActualizado.get("productoId").toString());
-            Producto producto = productoRepository.findById(productoId).orElse(null);
-            detalle.setProducto(producto);
+            detalle.setProducto(productos.get(productoId));
             
             detalle.setNombreProducto((String) productoActualizado.get("nombreProducto"));
             detalle.setCodigoProducto((String) productoActualizado.get("codigoProducto"));
@@ -458,7 +491,7 @@ public class InventarioCompletoService {
         
         // Guardar todos los detalles
         detalleRegistroInventarioRepository.saveAll(detallesRegistro);
-        System.out.println("✅ " + detallesRegistro.size() + " detalles de registro guardados");
+        logger.debug("✅ {} detalles de registro guardados", detallesRegistro.size());
         
         // Marcar inventario como completado y stock actualizado
         inventario.setEstado(InventarioCompleto.EstadoInventario.COMPLETADO);
@@ -466,7 +499,7 @@ public class InventarioCompletoService {
         inventario.setObservaciones("STOCK_ACTUALIZADO - Stock actualizado y registro generado el " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
         inventarioCompletoRepository.save(inventario);
         
-        System.out.println("✅ Inventario marcado como COMPLETADO con stock actualizado");
+        logger.debug("✅ Inventario marcado como COMPLETADO con stock actualizado");
         
         // SINCRONIZAR STOCK AUTOMÁTICAMENTE - Ejecutar sincronización masiva
         sincronizarStockCompleto(inventario.getEmpresa().getId());
@@ -476,6 +509,7 @@ public class InventarioCompletoService {
         resultado.put("success", true);
         resultado.put("mensaje", "Stock actualizado y registro generado exitosamente");
         resultado.put("registroInventario", registroInventario);
+        resultado.put("registroInventarioId", registroInventarioEntity.getId());
         resultado.put("productosActualizados", productosActualizados);
         resultado.put("sectoresInfo", sectoresInfo);
         resultado.put("estadisticas", Map.of(
@@ -485,39 +519,116 @@ public class InventarioCompletoService {
             "totalSectores", sectores.size()
         ));
         
-        System.out.println("✅ Registro generado y guardado exitosamente:");
-        System.out.println("  - ID del registro: " + registroInventarioEntity.getId());
-        System.out.println("  - Total productos: " + productosActualizados.size());
-        System.out.println("  - Con diferencias: " + productosConDiferencias);
-        System.out.println("  - Sin diferencias: " + productosSinDiferencias);
-        System.out.println("  - Total sectores: " + sectores.size());
+        logger.debug("✅ Registro generado y guardado exitosamente:");
+        logger.debug("  - ID del registro: {}", registroInventarioEntity.getId());
+        logger.debug("  - Total productos: {}", productosActualizados.size());
+        logger.debug("  - Con diferencias: {}", productosConDiferencias);
+        logger.debug("  - Sin diferencias: {}", productosSinDiferencias);
+        logger.debug("  - Total sectores: {}", sectores.size());
         
         return resultado;
     }
 
+    /**
+     * Datos de un lote de la finalización, cargados una vez para todos sus productos y pasados a cada
+     * paso (el inventario en curso ya no vive en un campo del servicio, compartido entre requests).
+     * Las filas de StockPorSector son las entidades de la sesión: los pasos que crean o borran filas
+     * también actualizan filasPorProducto.
+     */
+    private static final class ContextoFinalizacion {
+        private final List<ConteoSector> sectores;
+        // Sector físico -> estado de su conteo en este inventario
+        private final Map<Long, ConteoSector.EstadoConteo> estadosPorSector = new HashMap<>();
+        private final Map<Long, Sector> sectoresPorId = new HashMap<>();
+        private final Map<Long, Producto> productos = new HashMap<>();
+        private final Map<Long, List<StockPorSector>> filasPorProducto = new HashMap<>();
+        // conteoSectorId -> productoId -> {suma conteo 1, suma conteo 2, filas}
+        private final Map<Long, Map<Long, long[]>> conteos = new HashMap<>();
+
+        ContextoFinalizacion(List<ConteoSector> sectores) {
+            this.sectores = sectores;
+            for (ConteoSector conteoSector : sectores) {
+                estadosPorSector.put(conteoSector.getSector().getId(), conteoSector.getEstado());
+                sectoresPorId.put(conteoSector.getSector().getId(), conteoSector.getSector());
+            }
+        }
+
+        Producto producto(Long productoId) {
+            return productos.get(productoId);
+        }
+
+        List<StockPorSector> filas(Long productoId) {
+            return filasPorProducto.computeIfAbsent(productoId, id -> new ArrayList<>());
+        }
+
+        Optional<StockPorSector> fila(Long productoId, Long sectorId) {
+            return filas(productoId).stream().filter(s -> s.getSector().getId().equals(sectorId)).findFirst();
+        }
+
+        long[] conteo(ConteoSector conteoSector, Long productoId) {
+            return conteos.getOrDefault(conteoSector.getId(), Map.of()).get(productoId);
+        }
+
+        long filasDeConteo(ConteoSector conteoSector, Long productoId) {
+            long[] conteo = conteo(conteoSector, productoId);
+            return conteo != null ? conteo[2] : 0;
+        }
+
+        Set<Long> sectoresConEstado(ConteoSector.EstadoConteo estado) {
+            Set<Long> sectorIds = new HashSet<>();
+            estadosPorSector.forEach((sectorId, estadoSector) -> {
+                if (estadoSector == estado) {
+                    sectorIds.add(sectorId);
+                }
+            });
+            return sectorIds;
+        }
+    }
+
+    private ContextoFinalizacion cargarContextoFinalizacion(Long inventarioId, Collection<Long> productoIds) {
+        InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
+                .orElseThrow(() -> new RuntimeException("Inventario completo no encontrado"));
+        ContextoFinalizacion contexto = new ContextoFinalizacion(conteoSectorRepository.findByInventarioCompleto(inventario));
+        
+        for (Producto producto : productoRepository.findAllById(productoIds)) {
+            contexto.productos.put(producto.getId(), producto);
+        }
+        for (StockPorSector fila : stockPorSectorRepository.findByProductoIdIn(productoIds)) {
+            contexto.filas(fila.getProducto().getId()).add(fila);
+        }
+        for (Object[] fila : detalleConteoRepository.sumarPorSectorYProducto(inventarioId, productoIds)) {
+            long suma1 = fila[2] != null ? ((Number) fila[2]).longValue() : 0;
+            long suma2 = fila[3] != null ? ((Number) fila[3]).longValue() : 0;
+            contexto.conteos.computeIfAbsent((Long) fila[0], id -> new HashMap<>())
+                .put((Long) fila[1], new long[]{suma1, suma2, ((Number) fila[4]).longValue()});
+        }
+        return contexto;
+    }
+
     /**
      * Obtener todos los productos consolidados de todos los sectores del inventario
      */
     public List<Map<String, Object>> obtenerProductosConsolidadosInventarioCompleto(Long inventarioId) {
-        System.out.println("🔍 Obteniendo productos consolidados del inventario completo: " + inventarioId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo productos consolidados del inventario completo: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId).orElse(null);
         if (inventario == null) {
-            System.out.println("❌ Inventario completo no encontrado con ID: " + inventarioId);
+            logger.debug("❌ Inventario completo no encontrado con ID: {}", inventarioId);
             return new ArrayList<>();
         }
         
         // Verificar que el inventario tenga sectores completados
         if (inventario.getSectoresCompletados() == null || inventario.getSectoresCompletados() == 0) {
-            System.out.println("⚠️ No hay sectores completados en el inventario");
+            logger.debug("⚠️ No hay sectores completados en el inventario");
             return new ArrayList<>();
         }
         
-        System.out.println("✅ Inventario con " + inventario.getSectoresCompletados() + " sectores completados. Estado: " + inventario.getEstado());
+        logger.debug("✅ Inventario con {} sectores completados. Estado: {}", inventario.getSectoresCompletados(), inventario.getEstado());
         
         // Obtener todos los sectores del inventario
         List<ConteoSector> sectores = conteoSectorRepository.findByInventarioCompleto(inventario);
-        System.out.println("🔍 Procesando " + sectores.size() + " sectores para consolidación");
+        logger.debug("🔍 Procesando {} sectores para consolidación", sectores.size());
         
         // Filtrar sectores completados (incluyendo los completados sin conteo)
         List<ConteoSector> sectoresCompletados = sectores.stream()
@@ -534,20 +645,24 @@ public class InventarioCompletoService {
             .filter(sector -> sector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO)
             .collect(Collectors.toList());
         
-        System.out.println("✅ Sectores completados encontrados: " + sectoresCompletados.size() + " de " + sectores.size());
-        System.out.println("  - Sectores contados: " + sectoresContados.size());
-        System.out.println("  - Sectores completados sin conteo: " + sectoresSinConteo.size());
+        logger.debug("✅ Sectores completados encontrados: {} de {}", sectoresCompletados.size(), sectores.size());
+        logger.debug("  - Sectores contados: {}", sectoresContados.size());
+        logger.debug("  - Sectores completados sin conteo: {}", sectoresSinConteo.size());
         
         // Map para consolidar productos por ID (productoId -> datos consolidados)
         Map<Long, Map<String, Object>> productosConsolidados = new HashMap<>();
         
         // Procesar sectores que fueron realmente contados
         for (ConteoSector sector : sectoresContados) {
-            System.out.println("🔍 Procesando sector: " + sector.getNombreSector() + " (ID: " + sector.getId() + ")");
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Procesando sector: {} (ID: {})", sector.getNombreSector(), sector.getId());
+            }
             
             // Obtener detalles consolidados del sector
             List<DetalleConteo> detallesSector = obtenerDetallesConteoConsolidados(sector.getId());
-            System.out.println("🔍 Detalles consolidados en sector: " + detallesSector.size());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Detalles consolidados en sector: {}", detallesSector.size());
+            }
             
             for (DetalleConteo detalle : detallesSector) {
                 Long productoId = detalle.getProducto().getId();
@@ -599,8 +714,9 @@ public class InventarioCompletoService {
                     sectorInfo.put("formulaCalculo2", detalle.getFormulaCalculo2());
                     sectoresDelProducto.add(sectorInfo);
                     
-                    System.out.println("  ➕ Producto existente actualizado: " + detalle.getProducto().getNombre() + 
-                                     " - Total Usuario1: " + nuevaCantidad1 + ", Total Usuario2: " + nuevaCantidad2);
+                    if (muestreo.tomar()) {
+                        logger.debug("  ➕ Producto existente actualizado: {} - Total Usuario1: {}, Total Usuario2: {}", detalle.getProducto().getNombre(), nuevaCantidad1, nuevaCantidad2);
+                    }
                 } else {
                     // Nuevo producto
                     Map<String, Object> nuevoProducto = new HashMap<>();
@@ -629,8 +745,9 @@ public class InventarioCompletoService {
                     
                     productosConsolidados.put(productoId, nuevoProducto);
                     
-                    System.out.println("  ➕ Nuevo producto agregado: " + detalle.getProducto().getNombre() + 
-                                     " - Usuario1: " + detalle.getCantidadConteo1() + ", Usuario2: " + detalle.getCantidadConteo2());
+                    if (muestreo.tomar()) {
+                        logger.debug("  ➕ Nuevo producto agregado: {} - Usuario1: {}, Usuario2: {}", detalle.getProducto().getNombre(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2());
+                    }
                 }
             }
         }
@@ -646,7 +763,7 @@ public class InventarioCompletoService {
         // Calcular stock ajustado para productos contados (descontando sectores completados sin conteo)
         // Importante: stockSistema en el mapa viene del primer DetalleConteo y suele ser solo el stock EN ESE SECTOR.
         // La consolidación suma conteos de varios sectores y debe comparar contra el STOCK TOTAL del producto en BD.
-        System.out.println("🔍 Calculando stock ajustado para productos contados...");
+        logger.debug("🔍 Calculando stock ajustado para productos contados...");
         for (Map<String, Object> producto : productosConsolidados.values()) {
             Long productoId = (Long) producto.get("productoId");
             Integer stockDesdeDetallePrimerSector = (Integer) producto.get("stockSistema");
@@ -668,18 +785,16 @@ public class InventarioCompletoService {
             producto.put("cantidadFinal", cantidadFinal);
             producto.put("diferenciaSistema", cantidadFinal - stockAjustado);
             
-            System.out.println("  📊 Producto: " + producto.get("nombreProducto") + 
-                             " - Stock detalle (1er sector, ref.): " + stockDesdeDetallePrimerSector + 
-                             " - Stock total BD: " + stockBaseTotal + 
-                             " - Stock ajustado: " + stockAjustado + 
-                             " - Cantidad final: " + cantidadFinal);
+            if (muestreo.tomar()) {
+                logger.debug("  📊 Producto: {} - Stock detalle (1er sector, ref.): {} - Stock total BD: {} - Stock ajustado: {} - Cantidad final: {}", producto.get("nombreProducto"), stockDesdeDetallePrimerSector, stockBaseTotal, stockAjustado, cantidadFinal);
+            }
         }
         
         // AGREGAR PRODUCTOS NO CONTADOS globales - excluye quienes solo tienen stock en sectores "completado sin conteo"
         // (esos mantienen su stock en sistema y no requieren omitir/editar/cero en esta pantalla)
-        System.out.println("🔍 Buscando productos realmente no contados...");
+        logger.debug("🔍 Buscando productos realmente no contados...");
         List<Producto> todosLosProductos = productoRepository.findByEmpresaId(inventario.getEmpresa().getId());
-        System.out.println("🔍 Total de productos en el sistema: " + todosLosProductos.size());
+        logger.debug("🔍 Total de productos en el sistema: {}", todosLosProductos.size());
         
         // Obtener IDs de productos que están en sectores completados sin conteo
         Set<Long> productosEnSectoresSinConteo = new HashSet<>();
@@ -689,7 +804,7 @@ public class InventarioCompletoService {
                 productosEnSectoresSinConteo.add(stockPorSector.getProducto().getId());
             }
         }
-        System.out.println("🔍 Productos en sectores sin conteo: " + productosEnSectoresSinConteo.size());
+        logger.debug("🔍 Productos en sectores sin conteo: {}", productosEnSectoresSinConteo.size());
         
         int productosNoContados = 0;
         for (Producto producto : todosLosProductos) {
@@ -719,9 +834,9 @@ public class InventarioCompletoService {
                 productosConsolidados.put(producto.getId(), productoNoContado);
                 productosNoContados++;
                 
-                System.out.println("  ⚠️ Producto realmente no contado agregado: " + producto.getNombre() + 
-                                 " - Stock original: " + producto.getStock() + 
-                                 " - Stock ajustado: " + stockAjustado);
+                if (muestreo.tomar()) {
+                    logger.debug("  ⚠️ Producto realmente no contado agregado: {} - Stock original: {} - Stock ajustado: {}", producto.getNombre(), producto.getStock(), stockAjustado);
+                }
             } else if (productosConsolidados.containsKey(producto.getId())) {
                 Map<String, Object> agregado = productosConsolidados.get(producto.getId());
                 @SuppressWarnings("unchecked")
@@ -740,14 +855,16 @@ public class InventarioCompletoService {
                 }
             } else {
                 // Solo vinculado a sectores "completado sin conteo": fuera de la lista de acciones; stock intacto
-                System.out.println("  ℹ️ Producto solo en sector(es) sin conteo (sin fila en consolidación): " + producto.getNombre());
+                if (muestreo.tomar()) {
+                    logger.debug("  ℹ️ Producto solo en sector(es) sin conteo (sin fila en consolidación): {}", producto.getNombre());
+                }
             }
         }
         
-        System.out.println("📊 Resumen de productos:");
-        System.out.println("  - Total en sistema: " + todosLosProductos.size());
-        System.out.println("  - Contados: " + (todosLosProductos.size() - productosNoContados));
-        System.out.println("  - No contados: " + productosNoContados);
+        logger.debug("📊 Resumen de productos:");
+        logger.debug("  - Total en sistema: {}", todosLosProductos.size());
+        logger.debug("  - Contados: {}", (todosLosProductos.size() - productosNoContados));
+        logger.debug("  - No contados: {}", productosNoContados);
         
         // Stock sin asignar a ningún sector: max(0, stock total - suma StockPorSector)
         for (Map<String, Object> producto : productosConsolidados.values()) {
@@ -775,7 +892,7 @@ public class InventarioCompletoService {
             return 0; // Mismo tipo, mantener orden original
         });
         
-        System.out.println("✅ Productos consolidados del inventario completo: " + resultado.size());
+        logger.debug("✅ Productos consolidados del inventario completo: {}", resultado.size());
         return resultado;
     }
 
@@ -783,18 +900,19 @@ public class InventarioCompletoService {
      * Obtener registros de inventarios completados para una empresa
      */
     public List<Map<String, Object>> obtenerRegistrosInventariosCompletados(Long empresaId) {
-        System.out.println("🔍 Obteniendo registros de inventarios completados para empresa: " + empresaId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo registros de inventarios completados para empresa: {}", empresaId);
         
         Empresa empresa = empresaRepository.findById(empresaId).orElse(null);
         if (empresa == null) {
-            System.out.println("❌ Empresa no encontrada con ID: " + empresaId);
+            logger.debug("❌ Empresa no encontrada con ID: {}", empresaId);
             return new ArrayList<>();
         }
         
         // Obtener registros de inventarios desde la tabla RegistroInventario
         List<RegistroInventario> registrosInventarios = registroInventarioRepository.findByEmpresaOrderByFechaGeneracionDesc(empresa);
         
-        System.out.println("✅ Registros de inventarios encontrados: " + registrosInventarios.size());
+        logger.debug("✅ Registros de inventarios encontrados: {}", registrosInventarios.size());
         
         List<Map<String, Object>> registros = new ArrayList<>();
         
@@ -836,11 +954,12 @@ public class InventarioCompletoService {
             
             registros.add(registro);
             
-            System.out.println("✅ Registro agregado: " + registroInventario.getNombreInventario() + 
-                             " - Fecha: " + registroInventario.getFechaRealizacion());
+            if (muestreo.tomar()) {
+                logger.debug("✅ Registro agregado: {} - Fecha: {}", registroInventario.getNombreInventario(), registroInventario.getFechaRealizacion());
+            }
         }
         
-        System.out.println("✅ Total registros generados: " + registros.size());
+        logger.debug("✅ Total registros generados: {}", registros.size());
         return registros;
     }
 
@@ -848,7 +967,8 @@ public class InventarioCompletoService {
      * Obtener detalles de productos actualizados para un inventario específico
      */
     public List<Map<String, Object>> obtenerProductosActualizadosInventario(Long inventarioId) {
-        System.out.println("🔍 Obteniendo productos actualizados para inventario: " + inventarioId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo productos actualizados para inventario: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
                 .orElseThrow(() -> new RuntimeException("Inventario completo no encontrado"));
@@ -858,14 +978,14 @@ public class InventarioCompletoService {
             .findFirstByInventarioCompletoOrderByFechaGeneracionDesc(inventario);
         
         if (registroInventario == null) {
-            System.out.println("❌ No se encontró registro de inventario para el inventario: " + inventarioId);
+            logger.debug("❌ No se encontró registro de inventario para el inventario: {}", inventarioId);
             return new ArrayList<>();
         }
         
         // Obtener los detalles del registro
         List<DetalleRegistroInventario> detallesRegistro = detalleRegistroInventarioRepository.findByRegistroInventario(registroInventario);
         
-        System.out.println("✅ Detalles de registro encontrados: " + detallesRegistro.size());
+        logger.debug("✅ Detalles de registro encontrados: {}", detallesRegistro.size());
         
         List<Map<String, Object>> productosActualizados = new ArrayList<>();
         
@@ -881,13 +1001,12 @@ public class InventarioCompletoService {
             
             productosActualizados.add(producto);
             
-            System.out.println("✅ Producto cargado: " + detalle.getNombreProducto() + 
-                             " - Stock anterior: " + detalle.getStockAnterior() + 
-                             " - Stock nuevo: " + detalle.getStockNuevo() + 
-                             " - Diferencia: " + detalle.getDiferenciaStock());
+            if (muestreo.tomar()) {
+                logger.debug("✅ Producto cargado: {} - Stock anterior: {} - Stock nuevo: {} - Diferencia: {}", detalle.getNombreProducto(), detalle.getStockAnterior(), detalle.getStockNuevo(), detalle.getDiferenciaStock());
+            }
         }
         
-        System.out.println("✅ Productos actualizados obtenidos: " + productosActualizados.size());
+        logger.debug("✅ Productos actualizados obtenidos: {}", productosActualizados.size());
         return productosActualizados;
     }
 
@@ -1266,7 +1385,7 @@ public class InventarioCompletoService {
                     return out;
                 }
             } catch (Exception e) {
-                System.err.println("⚠️ No se pudo leer snapshot_stock_sin_conteo: " + e.getMessage());
+                logger.warn("⚠️ No se pudo leer snapshot_stock_sin_conteo: {}", e.getMessage());
             }
         }
 
@@ -1325,7 +1444,7 @@ public class InventarioCompletoService {
      * Obtener detalles de conteo por usuario
      */
     public List<DetalleConteo> obtenerDetallesConteoPorUsuario(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 Obteniendo detalles de conteo para usuario: " + usuarioId + " en sector: " + conteoSectorId);
+        logger.debug("🔍 Obteniendo detalles de conteo para usuario: {} en sector: {}", usuarioId, conteoSectorId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
@@ -1334,7 +1453,7 @@ public class InventarioCompletoService {
 
         // Verificar si estamos en modo reconteo (estado CON_DIFERENCIAS)
         boolean esModoReconteo = conteoSector.getEstado() == ConteoSector.EstadoConteo.CON_DIFERENCIAS;
-        System.out.println("🔍 Modo reconteo: " + esModoReconteo + " (Estado: " + conteoSector.getEstado() + ")");
+        logger.debug("🔍 Modo reconteo: {} (Estado: {})", esModoReconteo, conteoSector.getEstado());
         
         // Determinar qué usuario es
         boolean esUsuario1 = conteoSector.getUsuarioAsignado1() != null && 
@@ -1342,7 +1461,7 @@ public class InventarioCompletoService {
         boolean esUsuario2 = conteoSector.getUsuarioAsignado2() != null && 
                            conteoSector.getUsuarioAsignado2().getId().equals(usuarioId);
         
-        System.out.println("🔍 Usuario " + usuarioId + " - EsUsuario1: " + esUsuario1 + ", EsUsuario2: " + esUsuario2);
+        logger.debug("🔍 Usuario {} - EsUsuario1: {}, EsUsuario2: {}", usuarioId, esUsuario1, esUsuario2);
         
         if (esModoReconteo) {
             // En modo reconteo: usar lógica consolidada
@@ -1357,8 +1476,9 @@ public class InventarioCompletoService {
      * Obtener detalles consolidados para reconteo
      */
     private List<DetalleConteo> obtenerDetallesConsolidadosParaReconteo(ConteoSector conteoSector, boolean esUsuario1, boolean esUsuario2) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         List<DetalleConteo> todosLosDetalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ Todos los detalles encontrados (SIN eliminados): " + todosLosDetalles.size());
+        logger.debug("✅ Todos los detalles encontrados (SIN eliminados): {}", todosLosDetalles.size());
         
         // Agrupar por producto para consolidar múltiples entradas
         Map<Long, List<DetalleConteo>> detallesPorProducto = new HashMap<>();
@@ -1397,7 +1517,9 @@ public class InventarioCompletoService {
                     if (detalle.getFormulaCalculo1() != null && !detalle.getFormulaCalculo1().isEmpty()) {
                         formulasUsuario1.add(detalle.getFormulaCalculo1());
                     }
-                    System.out.println("  ➕ RECONTEO - Sumando Usuario1: " + detalle.getCantidadConteo1() + " (Total: " + totalUsuario1 + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("  ➕ RECONTEO - Sumando Usuario1: {} (Total: {})", detalle.getCantidadConteo1(), totalUsuario1);
+                    }
                 }
                 
                 // Sumar todas las entradas del Usuario 2
@@ -1406,7 +1528,9 @@ public class InventarioCompletoService {
                     if (detalle.getFormulaCalculo2() != null && !detalle.getFormulaCalculo2().isEmpty()) {
                         formulasUsuario2.add(detalle.getFormulaCalculo2());
                     }
-                    System.out.println("  ➕ RECONTEO - Sumando Usuario2: " + detalle.getCantidadConteo2() + " (Total: " + totalUsuario2 + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("  ➕ RECONTEO - Sumando Usuario2: {} (Total: {})", detalle.getCantidadConteo2(), totalUsuario2);
+                    }
                 }
                 
                 // Mantener la fecha más reciente
@@ -1427,10 +1551,9 @@ public class InventarioCompletoService {
             
             detallesConsolidados.put(productoId, detalleConsolidado);
             
-            System.out.println("🔧 RECONTEO - Detalle consolidado para " + primerDetalle.getProducto().getNombre() + 
-                             " - Usuario1: " + totalUsuario1 + " (" + String.join(", ", formulasUsuario1) + ")" +
-                             " - Usuario2: " + totalUsuario2 + " (" + String.join(", ", formulasUsuario2) + ")" +
-                             " - Total entradas: " + detallesDelProducto.size());
+            if (muestreo.tomar()) {
+                logger.debug("🔧 RECONTEO - Detalle consolidado para {} - Usuario1: {} ({}) - Usuario2: {} ({}) - Total entradas: {}", primerDetalle.getProducto().getNombre(), totalUsuario1, String.join(", ", formulasUsuario1), totalUsuario2, String.join(", ", formulasUsuario2), detallesDelProducto.size());
+            }
         }
         
         List<DetalleConteo> detallesFiltrados = new ArrayList<>();
@@ -1452,13 +1575,13 @@ public class InventarioCompletoService {
             
             if (tieneDiferencias) {
                 detallesFiltrados.add(detalle);
-                System.out.println("✅ RECONTEO: Incluyendo producto " + detalle.getProducto().getNombre() + 
-                                 " - Usuario1: " + detalle.getCantidadConteo1() + 
-                                 ", Usuario2: " + detalle.getCantidadConteo2());
+                if (muestreo.tomar()) {
+                    logger.debug("✅ RECONTEO: Incluyendo producto {} - Usuario1: {}, Usuario2: {}", detalle.getProducto().getNombre(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2());
+                }
             }
         }
         
-        System.out.println("✅ Detalles filtrados para reconteo: " + detallesFiltrados.size());
+        logger.debug("✅ Detalles filtrados para reconteo: {}", detallesFiltrados.size());
         return detallesFiltrados;
     }
 
@@ -1468,7 +1591,8 @@ public class InventarioCompletoService {
      * CORREGIDO: Mostrar solo conteos iniciales durante reconteo en proceso
      */
     public List<DetalleConteo> obtenerDetallesConteoParaReconteo(Long conteoSectorId) {
-        System.out.println("🔍 Obteniendo detalles consolidados para reconteo en sector: " + conteoSectorId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo detalles consolidados para reconteo en sector: {}", conteoSectorId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
@@ -1476,7 +1600,7 @@ public class InventarioCompletoService {
         }
 
         List<DetalleConteo> todosLosDetalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ Detalles encontrados para reconteo (SIN eliminados): " + todosLosDetalles.size());
+        logger.debug("✅ Detalles encontrados para reconteo (SIN eliminados): {}", todosLosDetalles.size());
         
         // Verificar si estamos en reconteo y determinar fecha de inicio
         boolean esReconteo = conteoSector.getObservaciones() != null && 
@@ -1489,7 +1613,7 @@ public class InventarioCompletoService {
                 String fechaStr = conteoSector.getObservaciones().split("_")[1];
                 fechaInicioReconteo = LocalDateTime.parse(fechaStr);
             } catch (Exception e) {
-                System.out.println("⚠️ No se pudo parsear fecha de reconteo: " + conteoSector.getObservaciones());
+                logger.debug("⚠️ No se pudo parsear fecha de reconteo: {}", conteoSector.getObservaciones());
                 fechaInicioReconteo = null;
             }
         }
@@ -1530,8 +1654,8 @@ public class InventarioCompletoService {
             // Si no hay series completas, estamos en la primera serie
             numeroSerieReconteo = seriesCompletas > 0 ? seriesCompletas + 1 : 1;
             
-            System.out.println("🔍 RECONTEO: Detectada serie #" + numeroSerieReconteo + " de reconteo");
-            System.out.println("🔍 RECONTEO: Series completas detectadas: " + seriesCompletas);
+            logger.debug("🔍 RECONTEO: Detectada serie #{} de reconteo", numeroSerieReconteo);
+            logger.debug("🔍 RECONTEO: Series completas detectadas: {}", seriesCompletas);
         }
         
         // Agrupar por producto para consolidar múltiples entradas
@@ -1560,7 +1684,9 @@ public class InventarioCompletoService {
             if (esReconteo && fechaInicioReconteo != null) {
                 if (numeroSerieReconteo == 1) {
                     // PRIMERA SERIE: Mostrar solo conteos iniciales como referencia
-                    System.out.println("🔄 PRIMERA SERIE RECONTEO: Mostrando conteos iniciales como referencia");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔄 PRIMERA SERIE RECONTEO: Mostrando conteos iniciales como referencia");
+                    }
                     
                     // ✅ CRÍTICO: Filtrar solo conteos INICIALES (antes de fechaInicioReconteo)
                     // NO incluir reconteos para no mezclar valores
@@ -1574,7 +1700,9 @@ public class InventarioCompletoService {
                         })
                         .collect(java.util.stream.Collectors.toList());
                     
-                    System.out.println("🔍 DEBUG - Detalles iniciales (sin reconteos): " + conteosIniciales.size() + " de " + detallesDelProducto.size());
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 DEBUG - Detalles iniciales (sin reconteos): {} de {}", conteosIniciales.size(), detallesDelProducto.size());
+                    }
                     
                     // ✅ SUMAR TODAS LAS ENTRADAS de cada usuario en conteos INICIALES
                     int totalUsuario1 = 0;
@@ -1589,7 +1717,9 @@ public class InventarioCompletoService {
                             if (detalle.getFormulaCalculo1() != null && !detalle.getFormulaCalculo1().isEmpty()) {
                                 formulasUsuario1.add(detalle.getFormulaCalculo1());
                             }
-                            System.out.println("  ➕ PRIMERA SERIE - Sumando Usuario1: " + detalle.getCantidadConteo1() + " (Total: " + totalUsuario1 + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("  ➕ PRIMERA SERIE - Sumando Usuario1: {} (Total: {})", detalle.getCantidadConteo1(), totalUsuario1);
+                            }
                         }
                         
                         // Sumar todas las entradas del Usuario 2
@@ -1598,7 +1728,9 @@ public class InventarioCompletoService {
                             if (detalle.getFormulaCalculo2() != null && !detalle.getFormulaCalculo2().isEmpty()) {
                                 formulasUsuario2.add(detalle.getFormulaCalculo2());
                             }
-                            System.out.println("  ➕ PRIMERA SERIE - Sumando Usuario2: " + detalle.getCantidadConteo2() + " (Total: " + totalUsuario2 + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("  ➕ PRIMERA SERIE - Sumando Usuario2: {} (Total: {})", detalle.getCantidadConteo2(), totalUsuario2);
+                            }
                         }
                     }
                     
@@ -1608,13 +1740,15 @@ public class InventarioCompletoService {
                     detalleConsolidado.setCantidadConteo2(totalUsuario2 > 0 ? totalUsuario2 : null);
                     detalleConsolidado.setFormulaCalculo2(formulasUsuario2.isEmpty() ? null : String.join(", ", formulasUsuario2));
                     
-                    System.out.println("🔧 PRIMERA SERIE: Conteos iniciales como referencia para " + primerDetalle.getProducto().getNombre() + 
-                                     " - Usuario1: " + detalleConsolidado.getCantidadConteo1() + " (" + detalleConsolidado.getFormulaCalculo1() + ")" +
-                                     " - Usuario2: " + detalleConsolidado.getCantidadConteo2() + " (" + detalleConsolidado.getFormulaCalculo2() + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔧 PRIMERA SERIE: Conteos iniciales como referencia para {} - Usuario1: {} ({}) - Usuario2: {} ({})", primerDetalle.getProducto().getNombre(), detalleConsolidado.getCantidadConteo1(), detalleConsolidado.getFormulaCalculo1(), detalleConsolidado.getCantidadConteo2(), detalleConsolidado.getFormulaCalculo2());
+                    }
                 
                 } else {
                     // SEGUNDA SERIE O POSTERIOR: Mostrar solo el reconteo anterior como referencia
-                    System.out.println("🔄 SERIE #" + numeroSerieReconteo + " RECONTEO: Mostrando reconteo anterior como referencia");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔄 SERIE #{} RECONTEO: Mostrando reconteo anterior como referencia", numeroSerieReconteo);
+                    }
                     
                     // Filtrar solo reconteos (después del inicio del reconteo)
                     List<DetalleConteo> reconteos = detallesDelProducto.stream()
@@ -1637,7 +1771,9 @@ public class InventarioCompletoService {
                         if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
                             valorMasRecienteUsuario1 = detalle.getCantidadConteo1();
                             formulaMasRecienteUsuario1 = detalle.getFormulaCalculo1();
-                            System.out.println("✅ SERIE #" + numeroSerieReconteo + " - Usuario1 más reciente: " + valorMasRecienteUsuario1);
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ SERIE #{} - Usuario1 más reciente: {}", numeroSerieReconteo, valorMasRecienteUsuario1);
+                            }
                             break;
                         }
                     }
@@ -1649,7 +1785,9 @@ public class InventarioCompletoService {
                         if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
                             valorMasRecienteUsuario2 = detalle.getCantidadConteo2();
                             formulaMasRecienteUsuario2 = detalle.getFormulaCalculo2();
-                            System.out.println("✅ SERIE #" + numeroSerieReconteo + " - Usuario2 más reciente: " + valorMasRecienteUsuario2);
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ SERIE #{} - Usuario2 más reciente: {}", numeroSerieReconteo, valorMasRecienteUsuario2);
+                            }
                             break;
                         }
                     }
@@ -1660,9 +1798,9 @@ public class InventarioCompletoService {
                     detalleConsolidado.setCantidadConteo2(valorMasRecienteUsuario2);
                     detalleConsolidado.setFormulaCalculo2(formulaMasRecienteUsuario2);
                     
-                    System.out.println("🔧 SERIE #" + numeroSerieReconteo + ": Reconteo anterior como referencia para " + primerDetalle.getProducto().getNombre() + 
-                                     " - Usuario1: " + detalleConsolidado.getCantidadConteo1() + " (" + detalleConsolidado.getFormulaCalculo1() + ")" +
-                                     " - Usuario2: " + detalleConsolidado.getCantidadConteo2() + " (" + detalleConsolidado.getFormulaCalculo2() + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔧 SERIE #{}: Reconteo anterior como referencia para {} - Usuario1: {} ({}) - Usuario2: {} ({})", numeroSerieReconteo, primerDetalle.getProducto().getNombre(), detalleConsolidado.getCantidadConteo1(), detalleConsolidado.getFormulaCalculo1(), detalleConsolidado.getCantidadConteo2(), detalleConsolidado.getFormulaCalculo2());
+                    }
                 }
                 
             } else {
@@ -1720,13 +1858,13 @@ public class InventarioCompletoService {
             
             if (tieneDiferencias) {
                 detallesConsolidados.add(detalleConsolidado);
-                System.out.println("✅ RECONTEO: Incluyendo producto " + detalleConsolidado.getProducto().getNombre() + 
-                                 " - Usuario1: " + detalleConsolidado.getCantidadConteo1() + 
-                                 ", Usuario2: " + detalleConsolidado.getCantidadConteo2());
+                if (muestreo.tomar()) {
+                    logger.debug("✅ RECONTEO: Incluyendo producto {} - Usuario1: {}, Usuario2: {}", detalleConsolidado.getProducto().getNombre(), detalleConsolidado.getCantidadConteo1(), detalleConsolidado.getCantidadConteo2());
+                }
             }
         }
         
-        System.out.println("✅ Detalles consolidados para reconteo: " + detallesConsolidados.size());
+        logger.debug("✅ Detalles consolidados para reconteo: {}", detallesConsolidados.size());
         
         return detallesConsolidados;
     }
@@ -1736,8 +1874,8 @@ public class InventarioCompletoService {
      * ✅ NUEVA LÓGICA SIMPLE: Usa el servicio simple para obtener detalles
      */
     public List<Map<String, Object>> obtenerDetallesParaReconteo(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 [SIMPLE] Obteniendo detalles para RECONTEO usando lógica simple - Sector: " + conteoSectorId);
-        System.out.println("🔍 [SIMPLE] Usuario solicitando reconteo: " + usuarioId);
+        logger.debug("🔍 [SIMPLE] Obteniendo detalles para RECONTEO usando lógica simple - Sector: {}", conteoSectorId);
+        logger.debug("🔍 [SIMPLE] Usuario solicitando reconteo: {}", usuarioId);
         
         // ✅ NUEVA LÓGICA SIMPLE: Delegar al método simple
         return obtenerDetallesParaReconteoSimple(conteoSectorId, usuarioId);
@@ -1748,22 +1886,23 @@ public class InventarioCompletoService {
      * Muestra TODOS los productos con sus valores finales correctos (sin diferencias)
      */
     public List<DetalleConteo> obtenerDetalleFinalSectorCompletado(Long conteoSectorId) {
-        System.out.println("🔍 [FINAL] Obteniendo detalle final del sector completado: " + conteoSectorId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 [FINAL] Obteniendo detalle final del sector completado: {}", conteoSectorId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
-            System.out.println("❌ [FINAL] ConteoSector no encontrado para ID: " + conteoSectorId);
+            logger.debug("❌ [FINAL] ConteoSector no encontrado para ID: {}", conteoSectorId);
             return new ArrayList<>();
         }
         
         List<DetalleConteo> todosLosDetalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ [FINAL] Detalles encontrados (SIN eliminados): " + todosLosDetalles.size());
+        logger.debug("✅ [FINAL] Detalles encontrados (SIN eliminados): {}", todosLosDetalles.size());
         
         // Verificar si hubo reconteo
         boolean huboReconteo = conteoSector.getObservaciones() != null && 
                               conteoSector.getObservaciones().startsWith("Reconteo");
         
-        System.out.println("🔍 [FINAL] ¿Hubo reconteo? " + huboReconteo);
+        logger.debug("🔍 [FINAL] ¿Hubo reconteo? {}", huboReconteo);
         
         // Agrupar por producto para consolidar múltiples entradas
         Map<Long, List<DetalleConteo>> detallesPorProducto = new HashMap<>();
@@ -1789,7 +1928,9 @@ public class InventarioCompletoService {
             
             if (huboReconteo) {
                 // ✅ HUBO RECONTEO: Usar la lógica simple que ya funciona correctamente
-                System.out.println("🔄 [FINAL] Producto con reconteo: " + primerDetalle.getProducto().getNombre());
+                if (muestreo.tomar()) {
+                    logger.debug("🔄 [FINAL] Producto con reconteo: {}", primerDetalle.getProducto().getNombre());
+                }
                 
                 // ✅ USAR LA LÓGICA SIMPLE: Obtener valores de referencia y actuales del reconteo
                 String referenciaJson = conteoSector.getReferenciaActual();
@@ -1830,15 +1971,14 @@ public class InventarioCompletoService {
                         detalleFinal.setDiferenciaSistema(detalleFinal.getCantidadFinal() - detalleFinal.getStockSistema());
                     }
                     
-                    System.out.println("✅ [FINAL] Valores finales del reconteo para " + primerDetalle.getProducto().getNombre() + 
-                                     " - Usuario1: " + detalleFinal.getCantidadConteo1() + 
-                                     ", Usuario2: " + detalleFinal.getCantidadConteo2() + 
-                                     ", Final: " + detalleFinal.getCantidadFinal() + 
-                                     ", Stock Sistema: " + detalleFinal.getStockSistema() + 
-                                     ", Diferencia: " + detalleFinal.getDiferenciaSistema());
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ [FINAL] Valores finales del reconteo para {} - Usuario1: {}, Usuario2: {}, Final: {}, Stock Sistema: {}, Diferencia: {}", primerDetalle.getProducto().getNombre(), detalleFinal.getCantidadConteo1(), detalleFinal.getCantidadConteo2(), detalleFinal.getCantidadFinal(), detalleFinal.getStockSistema(), detalleFinal.getDiferenciaSistema());
+                    }
                 } else {
                     // ✅ FALLBACK: Si no hay referencia, usar el detalle más reciente
-                    System.out.println("⚠️ [FINAL] No se encontró referencia, usando detalle más reciente");
+                    if (muestreo.tomar()) {
+                        logger.debug("⚠️ [FINAL] No se encontró referencia, usando detalle más reciente");
+                    }
                     
                     detallesDelProducto.sort((d1, d2) -> {
                         if (d1.getFechaActualizacion() == null && d2.getFechaActualizacion() == null) return 0;
@@ -1881,17 +2021,16 @@ public class InventarioCompletoService {
                         detalleFinal.setDiferenciaSistema(detalleFinal.getCantidadFinal() - detalleFinal.getStockSistema());
                     }
                     
-                    System.out.println("✅ [FINAL] Valores del detalle más reciente para " + primerDetalle.getProducto().getNombre() + 
-                                     " - Usuario1: " + detalleFinal.getCantidadConteo1() + 
-                                     ", Usuario2: " + detalleFinal.getCantidadConteo2() + 
-                                     ", Final: " + detalleFinal.getCantidadFinal() + 
-                                     ", Stock Sistema: " + detalleFinal.getStockSistema() + 
-                                     ", Diferencia: " + detalleFinal.getDiferenciaSistema());
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ [FINAL] Valores del detalle más reciente para {} - Usuario1: {}, Usuario2: {}, Final: {}, Stock Sistema: {}, Diferencia: {}", primerDetalle.getProducto().getNombre(), detalleFinal.getCantidadConteo1(), detalleFinal.getCantidadConteo2(), detalleFinal.getCantidadFinal(), detalleFinal.getStockSistema(), detalleFinal.getDiferenciaSistema());
+                    }
                 }
                 
             } else {
                 // ✅ NO HUBO RECONTEO: Mostrar los valores del conteo inicial
-                System.out.println("📋 [FINAL] Producto sin reconteo: " + primerDetalle.getProducto().getNombre());
+                if (muestreo.tomar()) {
+                    logger.debug("📋 [FINAL] Producto sin reconteo: {}", primerDetalle.getProducto().getNombre());
+                }
                 
                 // Sumar todas las cantidades del conteo inicial
                 int totalUsuario1 = 0;
@@ -1938,20 +2077,19 @@ public class InventarioCompletoService {
                     detalleFinal.setDiferenciaSistema(detalleFinal.getCantidadFinal() - detalleFinal.getStockSistema());
                 }
                 
-                System.out.println("✅ [FINAL] Valores del conteo inicial para " + primerDetalle.getProducto().getNombre() + 
-                                 " - Usuario1: " + detalleFinal.getCantidadConteo1() + 
-                                 ", Usuario2: " + detalleFinal.getCantidadConteo2() + 
-                                 ", Final: " + detalleFinal.getCantidadFinal() + 
-                                 ", Stock Sistema: " + detalleFinal.getStockSistema() + 
-                                 ", Diferencia: " + detalleFinal.getDiferenciaSistema());
+                if (muestreo.tomar()) {
+                    logger.debug("✅ [FINAL] Valores del conteo inicial para {} - Usuario1: {}, Usuario2: {}, Final: {}, Stock Sistema: {}, Diferencia: {}", primerDetalle.getProducto().getNombre(), detalleFinal.getCantidadConteo1(), detalleFinal.getCantidadConteo2(), detalleFinal.getCantidadFinal(), detalleFinal.getStockSistema(), detalleFinal.getDiferenciaSistema());
+                }
             }
             
             // ✅ INCLUIR TODOS LOS PRODUCTOS (con y sin diferencias)
             detallesFinales.add(detalleFinal);
-            System.out.println("✅ [FINAL] Incluyendo producto: " + detalleFinal.getProducto().getNombre());
+            if (muestreo.tomar()) {
+                logger.debug("✅ [FINAL] Incluyendo producto: {}", detalleFinal.getProducto().getNombre());
+            }
         }
         
-        System.out.println("✅ [FINAL] Detalles finales consolidados: " + detallesFinales.size());
+        logger.debug("✅ [FINAL] Detalles finales consolidados: {}", detallesFinales.size());
         return detallesFinales;
     }
 
@@ -1960,21 +2098,22 @@ public class InventarioCompletoService {
      */
     @Deprecated
     public List<Map<String, Object>> obtenerDetallesParaReconteoLegacy(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 [LEGACY] Obteniendo detalles consolidados para RECONTEO en sector: " + conteoSectorId);
-        System.out.println("🔍 [LEGACY] Usuario solicitando reconteo: " + usuarioId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 [LEGACY] Obteniendo detalles consolidados para RECONTEO en sector: {}", conteoSectorId);
+        logger.debug("🔍 [LEGACY] Usuario solicitando reconteo: {}", usuarioId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
-            System.out.println("❌ [LEGACY] ConteoSector no encontrado para ID: " + conteoSectorId);
+            logger.debug("❌ [LEGACY] ConteoSector no encontrado para ID: {}", conteoSectorId);
             return new ArrayList<>();
         }
         
-        System.out.println("🔍 [LEGACY] Estado del ConteoSector: " + conteoSector.getEstado());
-        System.out.println("🔍 [LEGACY] Observaciones del ConteoSector: " + conteoSector.getObservaciones());
+        logger.debug("🔍 [LEGACY] Estado del ConteoSector: {}", conteoSector.getEstado());
+        logger.debug("🔍 [LEGACY] Observaciones del ConteoSector: {}", conteoSector.getObservaciones());
 
         // Obtener detalles SIN eliminados
         List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ [LEGACY] Detalles encontrados para RECONTEO (SIN eliminados): " + detalles.size());
+        logger.debug("✅ [LEGACY] Detalles encontrados para RECONTEO (SIN eliminados): {}", detalles.size());
         
         // Agrupar por producto y consolidar
         Map<Long, List<DetalleConteo>> detallesPorProducto = new HashMap<>();
@@ -2005,10 +2144,9 @@ public class InventarioCompletoService {
                                          conteoSector.getObservaciones().contains("Usuario2_Finalizado");
             }
             
-            System.out.println("🔍 RECONTEO - Modo reconteo: " + esReconteo + 
-                             " (Estado: " + conteoSector.getEstado() + 
-                             ", Observaciones: " + conteoSector.getObservaciones() + 
-                             ", Ambos recontaron: " + ambosUsuariosRecontaron + ")");
+            if (muestreo.tomar()) {
+                logger.debug("🔍 RECONTEO - Modo reconteo: {} (Estado: {}, Observaciones: {}, Ambos recontaron: {})", esReconteo, conteoSector.getEstado(), conteoSector.getObservaciones(), ambosUsuariosRecontaron);
+            }
             
             // ✅ LÓGICA ESPECÍFICA POR USUARIO: Determinar qué datos mostrar según el usuario
             boolean esUsuario1 = conteoSector.getUsuarioAsignado1() != null && 
@@ -2016,17 +2154,25 @@ public class InventarioCompletoService {
             boolean esUsuario2 = conteoSector.getUsuarioAsignado2() != null && 
                                 conteoSector.getUsuarioAsignado2().getId().equals(usuarioId);
             
-            System.out.println("🔍 RECONTEO: Usuario solicitando reconteo - esUsuario1: " + esUsuario1 + ", esUsuario2: " + esUsuario2);
-            System.out.println("🔍 DEBUG - Total detalles del producto: " + detallesDelProducto.size());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 RECONTEO: Usuario solicitando reconteo - esUsuario1: {}, esUsuario2: {}", esUsuario1, esUsuario2);
+            }
+            if (muestreo.tomar()) {
+                logger.debug("🔍 DEBUG - Total detalles del producto: {}", detallesDelProducto.size());
+            }
             
             // ✅ DETERMINAR SI ES SEGUNDO RECONTEO (ambos usuarios ya recontaron)
             boolean esSegundoReconteo = ambosUsuariosRecontaron;
-            System.out.println("🔍 RECONTEO: Es segundo reconteo: " + esSegundoReconteo);
+            if (muestreo.tomar()) {
+                logger.debug("🔍 RECONTEO: Es segundo reconteo: {}", esSegundoReconteo);
+            }
             
             if (esUsuario1 || esUsuario2) {
                 if (esSegundoReconteo) {
                     // ✅ SEGUNDO RECONTEO: Mostrar conteo inicial del usuario actual y reconteo del otro usuario
-                    System.out.println("🔍 SEGUNDO RECONTEO: Mostrando conteo inicial del usuario actual y reconteo del otro");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 SEGUNDO RECONTEO: Mostrando conteo inicial del usuario actual y reconteo del otro");
+                    }
                     
                     // Ordenar por fecha de actualización (más reciente primero)
                     detallesDelProducto.sort((d1, d2) -> d2.getFechaActualizacion().compareTo(d1.getFechaActualizacion()));
@@ -2037,7 +2183,9 @@ public class InventarioCompletoService {
                     // Primero, obtener el conteo inicial del usuario que entra
                     if (esUsuario1) {
                         // Usuario1 entra: mostrar su conteo inicial completo (solo los más antiguos)
-                        System.out.println("🔍 Usuario1 entra al segundo reconteo - mostrando su conteo inicial");
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Usuario1 entra al segundo reconteo - mostrando su conteo inicial");
+                        }
                         
                         // Ordenar por fecha de creación (más antiguo primero) para obtener conteos iniciales
                         List<DetalleConteo> detallesOrdenadosPorCreacion = new ArrayList<>(detallesDelProducto);
@@ -2049,12 +2197,16 @@ public class InventarioCompletoService {
                                 if (detalle.getFormulaCalculo1() != null && !detalle.getFormulaCalculo1().trim().isEmpty()) {
                                     formulasUsuario1.add(detalle.getFormulaCalculo1());
                                 }
-                                System.out.println("  ✅ Usuario1 (conteo inicial): " + detalle.getCantidadConteo1() + " (Total: " + totalUsuario1 + ")");
+                                if (muestreo.tomar()) {
+                                    logger.debug("  ✅ Usuario1 (conteo inicial): {} (Total: {})", detalle.getCantidadConteo1(), totalUsuario1);
+                                }
                             }
                         }
                         
                         // Para Usuario2: mostrar solo su último reconteo (el más reciente)
-                        System.out.println("🔍 Mostrando último reconteo de Usuario2");
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Mostrando último reconteo de Usuario2");
+                        }
                         for (DetalleConteo detalle : detallesDelProducto) {
                             if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
                                 // Solo tomar el primer valor (más reciente) para evitar duplicados
@@ -2063,26 +2215,34 @@ public class InventarioCompletoService {
                                     if (detalle.getFormulaCalculo2() != null && !detalle.getFormulaCalculo2().trim().isEmpty()) {
                                         formulasUsuario2.add(detalle.getFormulaCalculo2());
                                     }
-                                    System.out.println("  ✅ Usuario2 (último reconteo): " + detalle.getCantidadConteo2() + " (Total: " + totalUsuario2 + ")");
+                                    if (muestreo.tomar()) {
+                                        logger.debug("  ✅ Usuario2 (último reconteo): {} (Total: {})", detalle.getCantidadConteo2(), totalUsuario2);
+                                    }
                                     break; // Solo tomar el primer (más reciente)
                                 }
                             }
                         }
                     } else if (esUsuario2) {
                         // Usuario2 entra: mostrar su conteo inicial completo
-                        System.out.println("🔍 Usuario2 entra al segundo reconteo - mostrando su conteo inicial");
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Usuario2 entra al segundo reconteo - mostrando su conteo inicial");
+                        }
                         for (DetalleConteo detalle : detallesDelProducto) {
                             if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
                                 totalUsuario2 += detalle.getCantidadConteo2();
                                 if (detalle.getFormulaCalculo2() != null && !detalle.getFormulaCalculo2().trim().isEmpty()) {
                                     formulasUsuario2.add(detalle.getFormulaCalculo2());
                                 }
-                                System.out.println("  ✅ Usuario2 (conteo inicial): " + detalle.getCantidadConteo2() + " (Total: " + totalUsuario2 + ")");
+                                if (muestreo.tomar()) {
+                                    logger.debug("  ✅ Usuario2 (conteo inicial): {} (Total: {})", detalle.getCantidadConteo2(), totalUsuario2);
+                                }
                             }
                         }
                         
                         // Para Usuario1: mostrar solo su último reconteo (el más reciente)
-                        System.out.println("🔍 Mostrando último reconteo de Usuario1");
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Mostrando último reconteo de Usuario1");
+                        }
                         for (DetalleConteo detalle : detallesDelProducto) {
                             if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
                                 // Solo tomar el primer valor (más reciente) para evitar duplicados
@@ -2091,7 +2251,9 @@ public class InventarioCompletoService {
                                     if (detalle.getFormulaCalculo1() != null && !detalle.getFormulaCalculo1().trim().isEmpty()) {
                                         formulasUsuario1.add(detalle.getFormulaCalculo1());
                                     }
-                                    System.out.println("  ✅ Usuario1 (último reconteo): " + detalle.getCantidadConteo1() + " (Total: " + totalUsuario1 + ")");
+                                    if (muestreo.tomar()) {
+                                        logger.debug("  ✅ Usuario1 (último reconteo): {} (Total: {})", detalle.getCantidadConteo1(), totalUsuario1);
+                                    }
                                     break; // Solo tomar el primer (más reciente)
                                 }
                             }
@@ -2099,14 +2261,15 @@ public class InventarioCompletoService {
                     }
                 } else {
                     // ✅ PRIMER RECONTEO: Mostrar todos los valores originales del conteo inicial
-                    System.out.println("🔍 PRIMER RECONTEO: Mostrando todos los valores originales del conteo inicial");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 PRIMER RECONTEO: Mostrando todos los valores originales del conteo inicial");
+                    }
                     detallesDelProducto.sort((d1, d2) -> d1.getFechaCreacion().compareTo(d2.getFechaCreacion()));
                     
                     for (DetalleConteo detalle : detallesDelProducto) {
-                        System.out.println("🔍 DEBUG - Analizando detalle: ID=" + detalle.getId() + 
-                                         ", Usuario1=" + detalle.getCantidadConteo1() + 
-                                         ", Usuario2=" + detalle.getCantidadConteo2() +
-                                         ", FechaCreacion=" + detalle.getFechaCreacion());
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 DEBUG - Analizando detalle: ID={}, Usuario1={}, Usuario2={}, FechaCreacion={}", detalle.getId(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getFechaCreacion());
+                        }
                         
                         // Usuario1: sumar todos los valores originales y recopilar todas las fórmulas
                         if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
@@ -2114,7 +2277,9 @@ public class InventarioCompletoService {
                             if (detalle.getFormulaCalculo1() != null && !detalle.getFormulaCalculo1().trim().isEmpty()) {
                                 formulasUsuario1.add(detalle.getFormulaCalculo1());
                             }
-                            System.out.println("  ➕ Usuario1: Sumando " + detalle.getCantidadConteo1() + " (Total: " + totalUsuario1 + ") - Fórmula: " + detalle.getFormulaCalculo1());
+                            if (muestreo.tomar()) {
+                                logger.debug("  ➕ Usuario1: Sumando {} (Total: {}) - Fórmula: {}", detalle.getCantidadConteo1(), totalUsuario1, detalle.getFormulaCalculo1());
+                            }
                         }
                         // Usuario2: sumar todos los valores originales y recopilar todas las fórmulas
                         if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
@@ -2122,13 +2287,17 @@ public class InventarioCompletoService {
                             if (detalle.getFormulaCalculo2() != null && !detalle.getFormulaCalculo2().trim().isEmpty()) {
                                 formulasUsuario2.add(detalle.getFormulaCalculo2());
                             }
-                            System.out.println("  ➕ Usuario2: Sumando " + detalle.getCantidadConteo2() + " (Total: " + totalUsuario2 + ") - Fórmula: " + detalle.getFormulaCalculo2());
+                            if (muestreo.tomar()) {
+                                logger.debug("  ➕ Usuario2: Sumando {} (Total: {}) - Fórmula: {}", detalle.getCantidadConteo2(), totalUsuario2, detalle.getFormulaCalculo2());
+                            }
                         }
                     }
                 }
             } else {
                 // ✅ USUARIO NO RECONOCIDO: Usar lógica por defecto
-                System.out.println("🔍 USUARIO NO RECONOCIDO: Usando lógica por defecto");
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 USUARIO NO RECONOCIDO: Usando lógica por defecto");
+                }
                 for (DetalleConteo detalle : detallesDelProducto) {
                     if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
                         totalUsuario1 += detalle.getCantidadConteo1();
@@ -2149,13 +2318,19 @@ public class InventarioCompletoService {
             if (!esReconteo || (!esUsuario1 && !esUsuario2)) {
                 if (!esReconteo) {
                     // ✅ MODO CONTEO NORMAL: Mostrar todos los valores
-                    System.out.println("🔍 MODO CONTEO NORMAL: Mostrando todos los valores");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 MODO CONTEO NORMAL: Mostrando todos los valores");
+                    }
                 } else {
                     // ✅ USUARIO NO RECONOCIDO: Ya procesado arriba
-                    System.out.println("🔍 USUARIO NO RECONOCIDO: Ya procesado arriba");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 USUARIO NO RECONOCIDO: Ya procesado arriba");
+                    }
                 }
             } else {
-                System.out.println("🔍 RECONTEO: Ya procesado por usuario específico, saltando lógica adicional");
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 RECONTEO: Ya procesado por usuario específico, saltando lógica adicional");
+                }
             }
             
             int diferencia = totalUsuario1 - totalUsuario2;
@@ -2164,11 +2339,9 @@ public class InventarioCompletoService {
             // significa que tuvo diferencias en el conteo original, por lo que debe incluirse en reconteo
             boolean tieneDiferencias = false;
             
-            System.out.println("🔍 Analizando producto " + primerDetalle.getProducto().getNombre() + 
-                             " - Estado sector: " + conteoSector.getEstado() + 
-                             " - Usuario1: " + totalUsuario1 + ", Usuario2: " + totalUsuario2 +
-                             " - esSegundoReconteo: " + esSegundoReconteo +
-                             " - esUsuario1: " + esUsuario1 + ", esUsuario2: " + esUsuario2);
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Analizando producto {} - Estado sector: {} - Usuario1: {}, Usuario2: {} - esSegundoReconteo: {} - esUsuario1: {}, esUsuario2: {}", primerDetalle.getProducto().getNombre(), conteoSector.getEstado(), totalUsuario1, totalUsuario2, esSegundoReconteo, esUsuario1, esUsuario2);
+            }
             
             // Si el sector está en estado CON_DIFERENCIAS o ESPERANDO_VERIFICACION, incluir todos los productos contados
             if (conteoSector.getEstado() == ConteoSector.EstadoConteo.CON_DIFERENCIAS || 
@@ -2176,34 +2349,45 @@ public class InventarioCompletoService {
                 // Verificar si el producto fue contado por al menos un usuario
                 if (totalUsuario1 > 0 || totalUsuario2 > 0) {
                     tieneDiferencias = true;
-                    System.out.println("✅ RECONTEO: Sector en " + conteoSector.getEstado() + " - Incluyendo producto " + primerDetalle.getProducto().getNombre() + 
-                                     " - Usuario1: " + totalUsuario1 + ", Usuario2: " + totalUsuario2);
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ RECONTEO: Sector en {} - Incluyendo producto {} - Usuario1: {}, Usuario2: {}", conteoSector.getEstado(), primerDetalle.getProducto().getNombre(), totalUsuario1, totalUsuario2);
+                    }
                 } else {
-                    System.out.println("⚠️ RECONTEO: Sector en " + conteoSector.getEstado() + " pero producto no contado - " + primerDetalle.getProducto().getNombre());
+                    if (muestreo.tomar()) {
+                        logger.debug("⚠️ RECONTEO: Sector en {} pero producto no contado - {}", conteoSector.getEstado(), primerDetalle.getProducto().getNombre());
+                    }
                 }
             } else {
-                System.out.println("🔍 Sector NO está en CON_DIFERENCIAS ni ESPERANDO_VERIFICACION, estado actual: " + conteoSector.getEstado());
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 Sector NO está en CON_DIFERENCIAS ni ESPERANDO_VERIFICACION, estado actual: {}", conteoSector.getEstado());
+                }
                 // Si no está en estados de reconteo, verificar diferencias actuales
                 if (totalUsuario1 > 0 && totalUsuario2 > 0) {
                     // Ambos usuarios contaron: verificar si hay diferencia
                     tieneDiferencias = totalUsuario1 != totalUsuario2;
-                    System.out.println("🔍 Ambos usuarios contaron - Diferencia: " + tieneDiferencias);
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Ambos usuarios contaron - Diferencia: {}", tieneDiferencias);
+                    }
                 } else if (totalUsuario1 > 0 || totalUsuario2 > 0) {
                     // Al menos uno contó: hay diferencia
                     tieneDiferencias = true;
-                    System.out.println("🔍 Solo un usuario contó - Diferencia: " + tieneDiferencias);
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Solo un usuario contó - Diferencia: {}", tieneDiferencias);
+                    }
                 }
             }
             
             // Solo procesar si hay diferencias
             if (!tieneDiferencias) {
-                System.out.println("✅ RECONTEO: Excluyendo producto " + primerDetalle.getProducto().getNombre() + 
-                                 " - Usuario1: " + totalUsuario1 + ", Usuario2: " + totalUsuario2 + " (sin diferencias)");
+                if (muestreo.tomar()) {
+                    logger.debug("✅ RECONTEO: Excluyendo producto {} - Usuario1: {}, Usuario2: {} (sin diferencias)", primerDetalle.getProducto().getNombre(), totalUsuario1, totalUsuario2);
+                }
                 continue; // Saltar este producto
             }
             
-            System.out.println("✅ RECONTEO: Incluyendo producto " + primerDetalle.getProducto().getNombre() + 
-                             " - Usuario1: " + totalUsuario1 + ", Usuario2: " + totalUsuario2 + " (tienen diferencias)");
+            if (muestreo.tomar()) {
+                logger.debug("✅ RECONTEO: Incluyendo producto {} - Usuario1: {}, Usuario2: {} (tienen diferencias)", primerDetalle.getProducto().getNombre(), totalUsuario1, totalUsuario2);
+            }
             
             Map<String, Object> productoConsolidado = new HashMap<>();
             productoConsolidado.put("id", primerDetalle.getId());
@@ -2227,7 +2411,7 @@ public class InventarioCompletoService {
                     productoConsolidado.put("usuario2Nombre", conteoSector.getUsuarioAsignado2().getNombre() + " " + conteoSector.getUsuarioAsignado2().getApellidos());
                 }
             } catch (Exception e) {
-                System.err.println("⚠️ Error accediendo a datos de usuarios (posible proxy lazy): " + e.getMessage());
+                logger.warn("⚠️ Error accediendo a datos de usuarios (posible proxy lazy): {}", e.getMessage());
                 productoConsolidado.put("usuario1Id", null);
                 productoConsolidado.put("usuario1Nombre", "Usuario 1");
                 productoConsolidado.put("usuario2Id", null);
@@ -2244,14 +2428,14 @@ public class InventarioCompletoService {
             productosConsolidados.add(productoConsolidado);
         }
         
-        System.out.println("✅ Productos consolidados para RECONTEO: " + productosConsolidados.size());
+        logger.debug("✅ Productos consolidados para RECONTEO: {}", productosConsolidados.size());
         
         // Debug: mostrar cada producto que se devuelve
         for (int i = 0; i < productosConsolidados.size(); i++) {
             Map<String, Object> producto = productosConsolidados.get(i);
-            System.out.println("🔍 Producto " + (i+1) + " devuelto: " + producto.get("nombreProducto") + 
-                             " - Usuario1: " + producto.get("cantidadConteo1") + 
-                             " - Usuario2: " + producto.get("cantidadConteo2"));
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Producto {} devuelto: {} - Usuario1: {} - Usuario2: {}", (i+1), producto.get("nombreProducto"), producto.get("cantidadConteo1"), producto.get("cantidadConteo2"));
+            }
         }
         
         return productosConsolidados;
@@ -2261,7 +2445,8 @@ public class InventarioCompletoService {
      * Obtener detalles consolidados para comparación de conteos (TODOS los productos)
      */
     public List<Map<String, Object>> obtenerDetallesParaComparacion(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 Obteniendo detalles consolidados para comparación en sector: " + conteoSectorId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo detalles consolidados para comparación en sector: {}", conteoSectorId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
@@ -2270,28 +2455,26 @@ public class InventarioCompletoService {
 
         // DEBUG: Obtener TODOS los detalles (incluyendo eliminados) para comparar
         List<DetalleConteo> todosLosDetalles = detalleConteoRepository.findByConteoSectorOrderByProductoNombre(conteoSector);
-        System.out.println("🔍 DEBUG - Total detalles (INCLUYENDO eliminados): " + todosLosDetalles.size());
+        logger.debug("🔍 DEBUG - Total detalles (INCLUYENDO eliminados): {}", todosLosDetalles.size());
         
         // DEBUG: Verificar el estado de eliminado de TODOS los detalles
-        System.out.println("🔍 DEBUG - Estado de TODOS los detalles:");
+        logger.debug("🔍 DEBUG - Estado de TODOS los detalles:");
         for (DetalleConteo detalle : todosLosDetalles) {
-            System.out.println("  - Detalle ID: " + detalle.getId() + 
-                             ", Producto: " + detalle.getProducto().getNombre() + 
-                             ", Eliminado: " + detalle.getEliminado() + 
-                             ", Tipo: " + (detalle.getEliminado() != null ? detalle.getEliminado().getClass().getSimpleName() : "NULL"));
+            if (muestreo.tomar()) {
+                logger.debug("  - Detalle ID: {}, Producto: {}, Eliminado: {}, Tipo: {}", detalle.getId(), detalle.getProducto().getNombre(), detalle.getEliminado(), (detalle.getEliminado() != null ? detalle.getEliminado().getClass().getSimpleName() : "NULL"));
+            }
         }
         
         // Obtener detalles SIN eliminados usando el filtro correcto
         List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ Detalles encontrados para comparación (SIN eliminados): " + detalles.size());
+        logger.debug("✅ Detalles encontrados para comparación (SIN eliminados): {}", detalles.size());
         
         // DEBUG: Verificar el estado de eliminado de cada detalle filtrado
-        System.out.println("🔍 DEBUG - Verificando estado de eliminado de cada detalle filtrado:");
+        logger.debug("🔍 DEBUG - Verificando estado de eliminado de cada detalle filtrado:");
         for (DetalleConteo detalle : detalles) {
-            System.out.println("  - Detalle ID: " + detalle.getId() + 
-                             ", Producto: " + detalle.getProducto().getNombre() + 
-                             ", Eliminado: " + detalle.getEliminado() + 
-                             ", Tipo: " + (detalle.getEliminado() != null ? detalle.getEliminado().getClass().getSimpleName() : "NULL"));
+            if (muestreo.tomar()) {
+                logger.debug("  - Detalle ID: {}, Producto: {}, Eliminado: {}, Tipo: {}", detalle.getId(), detalle.getProducto().getNombre(), detalle.getEliminado(), (detalle.getEliminado() != null ? detalle.getEliminado().getClass().getSimpleName() : "NULL"));
+            }
         }
         
         // Agrupar por producto y consolidar (ya filtrados sin eliminados)
@@ -2299,17 +2482,17 @@ public class InventarioCompletoService {
         for (DetalleConteo detalle : detalles) {
             Long productoId = detalle.getProducto().getId();
             String nombreProducto = detalle.getProducto().getNombre();
-            System.out.println("🔍 DEBUG Agrupación - Detalle ID: " + detalle.getId() + 
-                             ", Producto ID: " + productoId + ", Nombre: " + nombreProducto +
-                             ", Usuario1: " + detalle.getCantidadConteo1() + 
-                             ", Usuario2: " + detalle.getCantidadConteo2() +
-                             ", Eliminado: " + detalle.getEliminado());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 DEBUG Agrupación - Detalle ID: {}, Producto ID: {}, Nombre: {}, Usuario1: {}, Usuario2: {}, Eliminado: {}", detalle.getId(), productoId, nombreProducto, detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getEliminado());
+            }
             detallesPorProducto.computeIfAbsent(productoId, k -> new ArrayList<>()).add(detalle);
         }
         
-        System.out.println("🔍 DEBUG - Total productos únicos: " + detallesPorProducto.size());
+        logger.debug("🔍 DEBUG - Total productos únicos: {}", detallesPorProducto.size());
         for (Map.Entry<Long, List<DetalleConteo>> entry : detallesPorProducto.entrySet()) {
-            System.out.println("  - Producto ID: " + entry.getKey() + ", Detalles: " + entry.getValue().size());
+            if (muestreo.tomar()) {
+                logger.debug("  - Producto ID: {}, Detalles: {}", entry.getKey(), entry.getValue().size());
+            }
         }
 
         List<Map<String, Object>> productosConsolidados = new ArrayList<>();
@@ -2318,17 +2501,16 @@ public class InventarioCompletoService {
             List<DetalleConteo> detallesDelProducto = entry.getValue();
             DetalleConteo primerDetalle = detallesDelProducto.get(0);
             
-            System.out.println("🔍 DEBUG CONSOLIDACIÓN - Producto: " + primerDetalle.getProducto().getNombre() + 
-                             " - Total detalles encontrados: " + detallesDelProducto.size());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 DEBUG CONSOLIDACIÓN - Producto: {} - Total detalles encontrados: {}", primerDetalle.getProducto().getNombre(), detallesDelProducto.size());
+            }
             
             // DEBUG: Mostrar todos los detalles del producto
             for (int i = 0; i < detallesDelProducto.size(); i++) {
                 DetalleConteo detalle = detallesDelProducto.get(i);
-                System.out.println("  📋 Detalle " + (i+1) + " - ID: " + detalle.getId() + 
-                                 ", Usuario1: " + detalle.getCantidadConteo1() + 
-                                 ", Usuario2: " + detalle.getCantidadConteo2() +
-                                 ", Fecha: " + detalle.getFechaActualizacion() +
-                                 ", Estado: " + detalle.getEstado());
+                if (muestreo.tomar()) {
+                    logger.debug("  📋 Detalle {} - ID: {}, Usuario1: {}, Usuario2: {}, Fecha: {}, Estado: {}", (i+1), detalle.getId(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getFechaActualizacion(), detalle.getEstado());
+                }
             }
             
             // ✅ NUEVA LÓGICA: Diferentes estrategias según el estado del sector
@@ -2354,17 +2536,18 @@ public class InventarioCompletoService {
                                          conteoSector.getObservaciones().contains("Usuario2_Finalizado");
             }
             
-            System.out.println("🔍 DEBUG Consolidación - Modo reconteo: " + esReconteo + 
-                             " (Estado: " + conteoSector.getEstado() + 
-                             ", Observaciones: " + conteoSector.getObservaciones() + 
-                             ", Ambos recontaron: " + ambosUsuariosRecontaron + ")");
+            if (muestreo.tomar()) {
+                logger.debug("🔍 DEBUG Consolidación - Modo reconteo: {} (Estado: {}, Observaciones: {}, Ambos recontaron: {})", esReconteo, conteoSector.getEstado(), conteoSector.getObservaciones(), ambosUsuariosRecontaron);
+            }
             
             if (esReconteo) {
                 // ✅ MODO RECONTEO: Lógica corregida según el flujo correcto
                 
                 if (!ambosUsuariosRecontaron) {
                     // ✅ PRIMERA SERIE DE RECONTEO: Mostrar conteos iniciales (valores >= 100)
-                    System.out.println("🔍 PRIMERA SERIE RECONTEO: Mostrando conteos iniciales como referencia");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 PRIMERA SERIE RECONTEO: Mostrando conteos iniciales como referencia");
+                    }
                     
                     boolean hayConteosIniciales = false;
                     DetalleConteo conteoInicialUsuario1 = null;
@@ -2403,7 +2586,9 @@ public class InventarioCompletoService {
                             if (detalle.getFormulaCalculo1() != null && !detalle.getFormulaCalculo1().isEmpty()) {
                                 formulasUsuario1.add(detalle.getFormulaCalculo1());
                             }
-                            System.out.println("  ➕ Sumando entrada Usuario1: " + detalle.getCantidadConteo1() + " (Total acumulado: " + totalUsuario1 + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("  ➕ Sumando entrada Usuario1: {} (Total acumulado: {})", detalle.getCantidadConteo1(), totalUsuario1);
+                            }
                         }
                         
                         // Sumar todas las entradas del Usuario 2 (valores >= 100)
@@ -2412,16 +2597,24 @@ public class InventarioCompletoService {
                             if (detalle.getFormulaCalculo2() != null && !detalle.getFormulaCalculo2().isEmpty()) {
                                 formulasUsuario2.add(detalle.getFormulaCalculo2());
                             }
-                            System.out.println("  ➕ Sumando entrada Usuario2: " + detalle.getCantidadConteo2() + " (Total acumulado: " + totalUsuario2 + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("  ➕ Sumando entrada Usuario2: {} (Total acumulado: {})", detalle.getCantidadConteo2(), totalUsuario2);
+                            }
                         }
                     }
                     
-                    System.out.println("  ✅ Total consolidado Usuario1: " + totalUsuario1 + " (Fórmulas: " + formulasUsuario1 + ")");
-                    System.out.println("  ✅ Total consolidado Usuario2: " + totalUsuario2 + " (Fórmulas: " + formulasUsuario2 + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("  ✅ Total consolidado Usuario1: {} (Fórmulas: {})", totalUsuario1, formulasUsuario1);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  ✅ Total consolidado Usuario2: {} (Fórmulas: {})", totalUsuario2, formulasUsuario2);
+                    }
                     
                     // Si no hay conteos iniciales (valores >= 100), mostrar reconteos anteriores como referencia
                     if (!hayConteosIniciales) {
-                        System.out.println("⚠️ No se encontraron conteos iniciales (>= 100), mostrando reconteos anteriores");
+                        if (muestreo.tomar()) {
+                            logger.debug("⚠️ No se encontraron conteos iniciales (>= 100), mostrando reconteos anteriores");
+                        }
                         DetalleConteo reconteoAnteriorUsuario1 = null;
                         DetalleConteo reconteoAnteriorUsuario2 = null;
                         
@@ -2454,7 +2647,9 @@ public class InventarioCompletoService {
                             if (reconteoAnteriorUsuario1.getFormulaCalculo1() != null && !reconteoAnteriorUsuario1.getFormulaCalculo1().isEmpty()) {
                                 formulasUsuario1.add(reconteoAnteriorUsuario1.getFormulaCalculo1());
                             }
-                            System.out.println("  ✅ Reconteo anterior Usuario1 (más reciente): " + totalUsuario1);
+                            if (muestreo.tomar()) {
+                                logger.debug("  ✅ Reconteo anterior Usuario1 (más reciente): {}", totalUsuario1);
+                            }
                         }
                         
                         if (reconteoAnteriorUsuario2 != null) {
@@ -2462,12 +2657,16 @@ public class InventarioCompletoService {
                             if (reconteoAnteriorUsuario2.getFormulaCalculo2() != null && !reconteoAnteriorUsuario2.getFormulaCalculo2().isEmpty()) {
                                 formulasUsuario2.add(reconteoAnteriorUsuario2.getFormulaCalculo2());
                             }
-                            System.out.println("  ✅ Reconteo anterior Usuario2 (más reciente): " + totalUsuario2);
+                            if (muestreo.tomar()) {
+                                logger.debug("  ✅ Reconteo anterior Usuario2 (más reciente): {}", totalUsuario2);
+                            }
                         }
                     }
                 } else {
                     // ✅ SEGUNDA SERIE O POSTERIOR: Mostrar reconteos anteriores (valores < 100)
-                    System.out.println("🔍 SERIE POSTERIOR RECONTEO: Mostrando reconteos anteriores como referencia");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 SERIE POSTERIOR RECONTEO: Mostrando reconteos anteriores como referencia");
+                    }
                     
                     DetalleConteo reconteoAnteriorUsuario1 = null;
                     DetalleConteo reconteoAnteriorUsuario2 = null;
@@ -2501,7 +2700,9 @@ public class InventarioCompletoService {
                         if (reconteoAnteriorUsuario1.getFormulaCalculo1() != null && !reconteoAnteriorUsuario1.getFormulaCalculo1().isEmpty()) {
                             formulasUsuario1.add(reconteoAnteriorUsuario1.getFormulaCalculo1());
                         }
-                        System.out.println("  ✅ Reconteo anterior Usuario1 (más reciente): " + totalUsuario1);
+                        if (muestreo.tomar()) {
+                            logger.debug("  ✅ Reconteo anterior Usuario1 (más reciente): {}", totalUsuario1);
+                        }
                     }
                     
                     if (reconteoAnteriorUsuario2 != null) {
@@ -2509,18 +2710,21 @@ public class InventarioCompletoService {
                         if (reconteoAnteriorUsuario2.getFormulaCalculo2() != null && !reconteoAnteriorUsuario2.getFormulaCalculo2().isEmpty()) {
                             formulasUsuario2.add(reconteoAnteriorUsuario2.getFormulaCalculo2());
                         }
-                        System.out.println("  ✅ Reconteo anterior Usuario2 (más reciente): " + totalUsuario2);
+                        if (muestreo.tomar()) {
+                            logger.debug("  ✅ Reconteo anterior Usuario2 (más reciente): {}", totalUsuario2);
+                        }
                     }
                 }
                 
-                System.out.println("✅ LÓGICA RECONTEO SIMPLIFICADA APLICADA");
+                if (muestreo.tomar()) {
+                    logger.debug("✅ LÓGICA RECONTEO SIMPLIFICADA APLICADA");
+                }
             } else {
                 // ✅ MODO CONTEO INICIAL: Sumar TODAS las cantidades (múltiples conteos del mismo producto)
                 for (DetalleConteo detalle : detallesDelProducto) {
-                    System.out.println("🔍 DEBUG Conteo Inicial - Detalle ID: " + detalle.getId() + 
-                                     ", Usuario1: " + detalle.getCantidadConteo1() + 
-                                     ", Usuario2: " + detalle.getCantidadConteo2() + 
-                                     ", Fecha Actualización: " + detalle.getFechaActualizacion());
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 DEBUG Conteo Inicial - Detalle ID: {}, Usuario1: {}, Usuario2: {}, Fecha Actualización: {}", detalle.getId(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getFechaActualizacion());
+                    }
                     
                     // Para Usuario 1: sumar todas las cantidades
                     if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
@@ -2533,8 +2737,9 @@ public class InventarioCompletoService {
                             detalle.getFechaActualizacion().isAfter(fechaMasRecienteUsuario1)) {
                             fechaMasRecienteUsuario1 = detalle.getFechaActualizacion();
                         }
-                        System.out.println("✅ Usuario1 - Sumando: " + detalle.getCantidadConteo1() + 
-                                         ", Total acumulado: " + totalUsuario1);
+                        if (muestreo.tomar()) {
+                            logger.debug("✅ Usuario1 - Sumando: {}, Total acumulado: {}", detalle.getCantidadConteo1(), totalUsuario1);
+                        }
                     }
                     
                     // Para Usuario 2: sumar todas las cantidades
@@ -2548,14 +2753,16 @@ public class InventarioCompletoService {
                             detalle.getFechaActualizacion().isAfter(fechaMasRecienteUsuario2)) {
                             fechaMasRecienteUsuario2 = detalle.getFechaActualizacion();
                         }
-                        System.out.println("✅ Usuario2 - Sumando: " + detalle.getCantidadConteo2() + 
-                                         ", Total acumulado: " + totalUsuario2);
+                        if (muestreo.tomar()) {
+                            logger.debug("✅ Usuario2 - Sumando: {}, Total acumulado: {}", detalle.getCantidadConteo2(), totalUsuario2);
+                        }
                     }
                 }
             }
             
-            System.out.println("🔍 DEBUG Consolidación - Producto: " + primerDetalle.getProducto().getNombre() + 
-                             " - Total Usuario1: " + totalUsuario1 + ", Total Usuario2: " + totalUsuario2);
+            if (muestreo.tomar()) {
+                logger.debug("🔍 DEBUG Consolidación - Producto: {} - Total Usuario1: {}, Total Usuario2: {}", primerDetalle.getProducto().getNombre(), totalUsuario1, totalUsuario2);
+            }
             
             int diferencia = totalUsuario1 - totalUsuario2;
             
@@ -2582,7 +2789,7 @@ public class InventarioCompletoService {
                     productoConsolidado.put("usuario2Nombre", conteoSector.getUsuarioAsignado2().getNombre() + " " + conteoSector.getUsuarioAsignado2().getApellidos());
                 }
             } catch (Exception e) {
-                System.err.println("⚠️ Error accediendo a datos de usuarios (posible proxy lazy): " + e.getMessage());
+                logger.warn("⚠️ Error accediendo a datos de usuarios (posible proxy lazy): {}", e.getMessage());
                 productoConsolidado.put("usuario1Id", null);
                 productoConsolidado.put("usuario1Nombre", "Usuario 1");
                 productoConsolidado.put("usuario2Id", null);
@@ -2593,8 +2800,12 @@ public class InventarioCompletoService {
             String historialCompletoUsuario1 = String.join(" | ", formulasUsuario1);
             String historialCompletoUsuario2 = String.join(" | ", formulasUsuario2);
             
-            System.out.println("✅ Usuario1 - Historial completo: " + historialCompletoUsuario1);
-            System.out.println("✅ Usuario2 - Historial completo: " + historialCompletoUsuario2);
+            if (muestreo.tomar()) {
+                logger.debug("✅ Usuario1 - Historial completo: {}", historialCompletoUsuario1);
+            }
+            if (muestreo.tomar()) {
+                logger.debug("✅ Usuario2 - Historial completo: {}", historialCompletoUsuario2);
+            }
             
             // Consolidar fórmulas con detalles de cada conteo individual (para debug)
             List<Map<String, Object>> conteosUsuario1 = new ArrayList<>();
@@ -2608,7 +2819,9 @@ public class InventarioCompletoService {
                     conteoIndividual.put("fecha", detalle.getFechaActualizacion());
                     conteosUsuario1.add(conteoIndividual);
                     
-                    System.out.println("✅ Agregado conteo Usuario1: " + detalle.getCantidadConteo1() + " (" + detalle.getFormulaCalculo1() + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ Agregado conteo Usuario1: {} ({})", detalle.getCantidadConteo1(), detalle.getFormulaCalculo1());
+                    }
                 }
                 if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
                     Map<String, Object> conteoIndividual = new HashMap<>();
@@ -2617,11 +2830,15 @@ public class InventarioCompletoService {
                     conteoIndividual.put("fecha", detalle.getFechaActualizacion());
                     conteosUsuario2.add(conteoIndividual);
                     
-                    System.out.println("✅ Agregado conteo Usuario2: " + detalle.getCantidadConteo2() + " (" + detalle.getFormulaCalculo2() + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ Agregado conteo Usuario2: {} ({})", detalle.getCantidadConteo2(), detalle.getFormulaCalculo2());
+                    }
                 }
             }
             
-            System.out.println("📊 Resumen final - Usuario1: " + conteosUsuario1.size() + " conteos, Usuario2: " + conteosUsuario2.size() + " conteos");
+            if (muestreo.tomar()) {
+                logger.debug("📊 Resumen final - Usuario1: {} conteos, Usuario2: {} conteos", conteosUsuario1.size(), conteosUsuario2.size());
+            }
             
             // ✅ NUEVA LÓGICA: Enviar solo las fórmulas puras (sin total)
             String resumenFormulasUsuario1 = totalUsuario1 > 0 ? 
@@ -2669,7 +2886,7 @@ public class InventarioCompletoService {
             productosConsolidados.add(productoConsolidado);
         }
         
-        System.out.println("✅ Productos consolidados para comparación: " + productosConsolidados.size());
+        logger.debug("✅ Productos consolidados para comparación: {}", productosConsolidados.size());
         return productosConsolidados;
     }
 
@@ -2677,7 +2894,8 @@ public class InventarioCompletoService {
      * Obtener productos con diferencias para reconteo
      */
     public List<Map<String, Object>> obtenerProductosConDiferencias(Long conteoSectorId) {
-        System.out.println("🔍 Obteniendo productos con diferencias para reconteo en sector: " + conteoSectorId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo productos con diferencias para reconteo en sector: {}", conteoSectorId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
@@ -2686,7 +2904,7 @@ public class InventarioCompletoService {
 
         // ✅ CORRECCIÓN: Filtrar por eliminados también en este método
         List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("✅ Detalles encontrados para análisis de diferencias (SIN eliminados): " + detalles.size());
+        logger.debug("✅ Detalles encontrados para análisis de diferencias (SIN eliminados): {}", detalles.size());
         
         // Agrupar por producto y consolidar (SOLO detalles no eliminados)
         Map<Long, List<DetalleConteo>> detallesPorProducto = new HashMap<>();
@@ -2694,12 +2912,14 @@ public class InventarioCompletoService {
             // ✅ FILTRO ADICIONAL: Verificar que no esté eliminado
             if (detalle.getEliminado() == null || !detalle.getEliminado()) {
                 Long productoId = detalle.getProducto().getId();
-                System.out.println("🔍 DEBUG Agrupación - Detalle ID: " + detalle.getId() + 
-                                 ", Producto: " + detalle.getProducto().getNombre() +
-                                 ", Eliminado: " + detalle.getEliminado());
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 DEBUG Agrupación - Detalle ID: {}, Producto: {}, Eliminado: {}", detalle.getId(), detalle.getProducto().getNombre(), detalle.getEliminado());
+                }
                 detallesPorProducto.computeIfAbsent(productoId, k -> new ArrayList<>()).add(detalle);
             } else {
-                System.out.println("🔍 DEBUG Agrupación - EXCLUIDO (eliminado) - Detalle ID: " + detalle.getId());
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 DEBUG Agrupación - EXCLUIDO (eliminado) - Detalle ID: {}", detalle.getId());
+                }
             }
         }
 
@@ -2769,7 +2989,7 @@ public class InventarioCompletoService {
             }
         }
         
-        System.out.println("✅ Productos con diferencias encontrados: " + productosConsolidados.size());
+        logger.debug("✅ Productos con diferencias encontrados: {}", productosConsolidados.size());
         return productosConsolidados;
     }
 
@@ -2779,12 +2999,12 @@ public class InventarioCompletoService {
     @Transactional
     public boolean crearDetalleEliminado(Long conteoSectorId, Map<String, Object> requestBody, Long usuarioId) {
         try {
-            System.out.println("🗑️ Creando detalle eliminado para conteo sector: " + conteoSectorId);
+            logger.debug("🗑️ Creando detalle eliminado para conteo sector: {}", conteoSectorId);
             
             // Obtener el conteo sector
             ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
             if (conteoSector == null) {
-                System.out.println("❌ Conteo sector no encontrado: " + conteoSectorId);
+                logger.debug("❌ Conteo sector no encontrado: {}", conteoSectorId);
                 return false;
             }
             
@@ -2798,7 +3018,7 @@ public class InventarioCompletoService {
             }
             
             if (!esUsuarioAsignado) {
-                System.out.println("❌ Usuario " + usuarioId + " no tiene permisos para este conteo");
+                logger.debug("❌ Usuario {} no tiene permisos para este conteo", usuarioId);
                 return false;
             }
             
@@ -2816,7 +3036,7 @@ public class InventarioCompletoService {
             // Obtener el producto
             Optional<Producto> productoOpt = productoRepository.findById(productoId);
             if (!productoOpt.isPresent()) {
-                System.out.println("❌ Producto no encontrado: " + productoId);
+                logger.debug("❌ Producto no encontrado: {}", productoId);
                 return false;
             }
             
@@ -2852,13 +3072,12 @@ public class InventarioCompletoService {
             
             if (detalleExistente != null) {
                 // Marcar el detalle existente como eliminado
-                System.out.println("🔍 Marcando detalle existente como eliminado - ID: " + detalleExistente.getId() + 
-                                 ", Producto: " + detalleExistente.getProducto().getNombre());
+                logger.debug("🔍 Marcando detalle existente como eliminado - ID: {}, Producto: {}", detalleExistente.getId(), detalleExistente.getProducto().getNombre());
                 detalleExistente.setEliminado(true);
                 detalleConteoRepository.save(detalleExistente);
-                System.out.println("✅ Detalle existente marcado como eliminado exitosamente para producto: " + producto.getNombre());
+                logger.debug("✅ Detalle existente marcado como eliminado exitosamente para producto: {}", producto.getNombre());
             } else {
-                System.out.println("⚠️ No se encontró detalle existente para marcar como eliminado, creando uno nuevo");
+                logger.debug("⚠️ No se encontró detalle existente para marcar como eliminado, creando uno nuevo");
                 // Si no se encuentra un detalle existente, crear uno nuevo (caso excepcional)
                 DetalleConteo detalleEliminado = new DetalleConteo();
                 detalleEliminado.setConteoSector(conteoSector);
@@ -2873,8 +3092,9 @@ public class InventarioCompletoService {
                 detalleEliminado.setStockSistema(obtenerStockSistemaEnSectorParaDetalle(producto, conteoSector));
                 
                 detalleConteoRepository.save(detalleEliminado);
-                System.out.println("✅ Detalle eliminado creado exitosamente para producto: " + producto.getNombre());
+                logger.debug("✅ Detalle eliminado creado exitosamente para producto: {}", producto.getNombre());
             }
+            progresoConteoService.actualizarProducto(conteoSector, productoId);
             
             // Recalcular el progreso del conteo sector
             calcularProgresoReal(conteoSector);
@@ -2883,26 +3103,25 @@ public class InventarioCompletoService {
             return true;
             
         } catch (Exception e) {
-            System.err.println("❌ Error creando detalle eliminado: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error creando detalle eliminado: {}", e.getMessage(), e);
             return false;
         }
     }
 
     public boolean eliminarDetalleConteo(Long detalleId, Long conteoSectorId, Long usuarioId) {
         try {
-            System.out.println("🗑️ Eliminando detalle de conteo: " + detalleId + " del sector: " + conteoSectorId);
+            logger.debug("🗑️ Eliminando detalle de conteo: {} del sector: {}", detalleId, conteoSectorId);
             
             // Verificar que el detalle existe y pertenece al conteo sector
             Optional<DetalleConteo> detalleOpt = detalleConteoRepository.findById(detalleId);
             if (!detalleOpt.isPresent()) {
-                System.out.println("❌ Detalle no encontrado: " + detalleId);
+                logger.debug("❌ Detalle no encontrado: {}", detalleId);
                 return false;
             }
             
             DetalleConteo detalle = detalleOpt.get();
             if (!detalle.getConteoSector().getId().equals(conteoSectorId)) {
-                System.out.println("❌ El detalle no pertenece al conteo sector: " + conteoSectorId);
+                logger.debug("❌ El detalle no pertenece al conteo sector: {}", conteoSectorId);
                 return false;
             }
             
@@ -2918,27 +3137,28 @@ public class InventarioCompletoService {
             }
             
             if (!esUsuarioAsignado) {
-                System.out.println("❌ Usuario " + usuarioId + " no tiene permisos para eliminar detalles de este conteo");
+                logger.debug("❌ Usuario {} no tiene permisos para eliminar detalles de este conteo", usuarioId);
                 return false;
             }
             
             // Marcar el detalle como eliminado (soft delete)
-            System.out.println("🔍 DEBUG - Estado ANTES de marcar como eliminado: " + detalle.getEliminado());
+            logger.debug("🔍 DEBUG - Estado ANTES de marcar como eliminado: {}", detalle.getEliminado());
             detalle.setEliminado(true);
-            System.out.println("🔍 DEBUG - Estado DESPUÉS de setEliminado(true): " + detalle.getEliminado());
+            logger.debug("🔍 DEBUG - Estado DESPUÉS de setEliminado(true): {}", detalle.getEliminado());
             DetalleConteo detalleGuardado = detalleConteoRepository.save(detalle);
-            System.out.println("🔍 DEBUG - Estado DESPUÉS de guardar en BD: " + detalleGuardado.getEliminado());
-            System.out.println("✅ Detalle marcado como eliminado exitosamente: " + detalleId);
+            logger.debug("🔍 DEBUG - Estado DESPUÉS de guardar en BD: {}", detalleGuardado.getEliminado());
+            logger.debug("✅ Detalle marcado como eliminado exitosamente: {}", detalleId);
+            progresoConteoService.actualizarProducto(conteoSector, detalle.getProducto().getId());
             
             // Recalcular el progreso del conteo sector
             calcularProgresoReal(conteoSector);
             conteoSectorRepository.save(conteoSector);
+            eventosInventarioService.publicarDetalle(detalleGuardado, EventosInventarioService.DETALLE_ELIMINADO, usuarioId);
             
             return true;
             
         } catch (Exception e) {
-            System.err.println("❌ Error eliminando detalle: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error eliminando detalle: {}", e.getMessage(), e);
             return false;
         }
     }
@@ -2947,30 +3167,33 @@ public class InventarioCompletoService {
      * Obtener inventario activo por empresa
      */
     public Optional<InventarioCompleto> obtenerInventarioActivo(Long empresaId) {
-        System.out.println("🔍 Obteniendo inventario activo para empresa: " + empresaId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Obteniendo inventario activo para empresa: {}", empresaId);
         
         Empresa empresa = empresaRepository.findById(empresaId)
             .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
         
         // Debug: Listar todos los inventarios de la empresa
         List<InventarioCompleto> todosLosInventarios = inventarioCompletoRepository.findByEmpresaOrderByFechaInicioDesc(empresa);
-        System.out.println("🔍 DEBUG - Total inventarios en empresa: " + todosLosInventarios.size());
+        logger.debug("🔍 DEBUG - Total inventarios en empresa: {}", todosLosInventarios.size());
         for (InventarioCompleto inv : todosLosInventarios) {
-            System.out.println("  - Inventario ID: " + inv.getId() + ", Estado: " + inv.getEstado() + ", Fecha: " + inv.getFechaInicio());
+            if (muestreo.tomar()) {
+                logger.debug("  - Inventario ID: {}, Estado: {}, Fecha: {}", inv.getId(), inv.getEstado(), inv.getFechaInicio());
+            }
         }
         
         // Obtener todos los inventarios activos (PENDIENTE, EN_PROGRESO)
         List<InventarioCompleto> inventariosActivos = inventarioCompletoRepository.findInventariosActivosByEmpresa(empresa);
-        System.out.println("🔍 DEBUG - Inventarios activos encontrados: " + inventariosActivos.size());
+        logger.debug("🔍 DEBUG - Inventarios activos encontrados: {}", inventariosActivos.size());
         
         // Si no hay inventarios activos, buscar el inventario COMPLETADO más reciente
         // PERO solo si NO tiene el stock actualizado Y es RECIENTE (últimas 24 horas)
         if (inventariosActivos.isEmpty()) {
-            System.out.println("🔍 No hay inventarios activos, buscando inventario COMPLETADO más reciente...");
+            logger.debug("🔍 No hay inventarios activos, buscando inventario COMPLETADO más reciente...");
             List<InventarioCompleto> inventariosCompletados = inventarioCompletoRepository.findByEmpresaAndEstadoOrderByFechaInicioDesc(empresa, InventarioCompleto.EstadoInventario.COMPLETADO);
             
             LocalDateTime hace24Horas = LocalDateTime.now().minusHours(24);
-            System.out.println("🔍 Solo considerando inventarios completados después de: " + hace24Horas);
+            logger.debug("🔍 Solo considerando inventarios completados después de: {}", hace24Horas);
             
             for (InventarioCompleto inventario : inventariosCompletados) {
                 // Solo devolver inventarios completados que:
@@ -2980,30 +3203,36 @@ public class InventarioCompletoService {
                 boolean esReciente = inventario.getFechaInicio().isAfter(hace24Horas);
                 
                 if (!tieneStockActualizado && esReciente) {
-                    System.out.println("🔍 Inventario COMPLETADO reciente encontrado (sin stock actualizado): " + inventario.getId() + " - Fecha: " + inventario.getFechaInicio());
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Inventario COMPLETADO reciente encontrado (sin stock actualizado): {} - Fecha: {}", inventario.getId(), inventario.getFechaInicio());
+                    }
                     return Optional.of(inventario);
                 } else {
                     if (tieneStockActualizado) {
-                        System.out.println("🔍 Inventario " + inventario.getId() + " ya tiene stock actualizado, saltando...");
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Inventario {} ya tiene stock actualizado, saltando...", inventario.getId());
+                        }
                     } else if (!esReciente) {
-                        System.out.println("🔍 Inventario " + inventario.getId() + " es muy viejo (" + inventario.getFechaInicio() + "), saltando...");
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Inventario {} es muy viejo ({}), saltando...", inventario.getId(), inventario.getFechaInicio());
+                        }
                     }
                 }
             }
             
-            System.out.println("🔍 No se encontraron inventarios completados recientes sin stock actualizado - Mostrando botón 'Crear Inventario'");
+            logger.debug("🔍 No se encontraron inventarios completados recientes sin stock actualizado - Mostrando botón 'Crear Inventario'");
         }
         
         Optional<InventarioCompleto> inventarioActivo = Optional.empty();
         
         if (inventariosActivos.isEmpty()) {
-            System.out.println("🔍 No hay inventarios activos");
+            logger.debug("🔍 No hay inventarios activos");
         } else if (inventariosActivos.size() == 1) {
             inventarioActivo = Optional.of(inventariosActivos.get(0));
-            System.out.println("🔍 Inventario activo único encontrado: " + inventarioActivo.get().getId());
+            logger.debug("🔍 Inventario activo único encontrado: {}", inventarioActivo.get().getId());
         } else {
             // Hay múltiples inventarios activos - cancelar los más antiguos y mantener el más reciente
-            System.out.println("⚠️ Múltiples inventarios activos encontrados (" + inventariosActivos.size() + "). Cancelando los más antiguos...");
+            logger.debug("⚠️ Múltiples inventarios activos encontrados ({}). Cancelando los más antiguos...", inventariosActivos.size());
             
             // Ordenar por fecha de inicio descendente (más reciente primero)
             inventariosActivos.sort((a, b) -> b.getFechaInicio().compareTo(a.getFechaInicio()));
@@ -3015,18 +3244,20 @@ public class InventarioCompletoService {
             // Cancelar los más antiguos
             for (int i = 1; i < inventariosActivos.size(); i++) {
                 InventarioCompleto inventarioAntiguo = inventariosActivos.get(i);
-                System.out.println("🗑️ Cancelando inventario antiguo: " + inventarioAntiguo.getId());
+                if (muestreo.tomar()) {
+                    logger.debug("🗑️ Cancelando inventario antiguo: {}", inventarioAntiguo.getId());
+                }
                 inventarioAntiguo.setEstado(InventarioCompleto.EstadoInventario.CANCELADO);
                 inventarioAntiguo.setFechaFinalizacion(LocalDateTime.now());
                 inventarioCompletoRepository.save(inventarioAntiguo);
             }
             
-            System.out.println("✅ Inventario activo final: " + inventarioActivo.get().getId());
+            logger.debug("✅ Inventario activo final: {}", inventarioActivo.get().getId());
         }
         
         if (inventarioActivo.isPresent()) {
             InventarioCompleto inventario = inventarioActivo.get();
-            System.out.println("  - ID: " + inventario.getId() + ", Estado: " + inventario.getEstado());
+            logger.debug("  - ID: {}, Estado: {}", inventario.getId(), inventario.getEstado());
             
             // ✅ CORRECCIÓN: Crear copia de la lista para evitar ConcurrentModificationException
             List<ConteoSector> sectores = new ArrayList<>(inventario.getConteosSectores());
@@ -3050,7 +3281,8 @@ public class InventarioCompletoService {
      * Crear un nuevo inventario completo
      */
     public InventarioCompleto crearInventarioCompleto(Long empresaId, Long usuarioAdminId) {
-        System.out.println("🔍 Creando inventario completo para empresa: " + empresaId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Creando inventario completo para empresa: {}", empresaId);
         
         Empresa empresa = empresaRepository.findById(empresaId)
             .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
@@ -3061,9 +3293,11 @@ public class InventarioCompletoService {
         // Verificar si hay inventarios activos y limpiarlos automáticamente
         List<InventarioCompleto> inventariosActivos = inventarioCompletoRepository.findInventariosActivosByEmpresa(empresa);
         if (!inventariosActivos.isEmpty()) {
-            System.out.println("⚠️ Encontrados " + inventariosActivos.size() + " inventarios activos. Cancelando todos...");
+            logger.debug("⚠️ Encontrados {} inventarios activos. Cancelando todos...", inventariosActivos.size());
             for (InventarioCompleto inventarioActivo : inventariosActivos) {
-                System.out.println("🗑️ Cancelando inventario activo: " + inventarioActivo.getId());
+                if (muestreo.tomar()) {
+                    logger.debug("🗑️ Cancelando inventario activo: {}", inventarioActivo.getId());
+                }
                 inventarioActivo.setEstado(InventarioCompleto.EstadoInventario.CANCELADO);
                 inventarioActivo.setFechaFinalizacion(LocalDateTime.now());
                 inventarioCompletoRepository.save(inventarioActivo);
@@ -3087,7 +3321,7 @@ public class InventarioCompletoService {
             conteoSectorRepository.save(conteoSector);
         }
         
-        System.out.println("✅ Inventario completo creado: " + inventario.getId());
+        logger.debug("✅ Inventario completo creado: {}", inventario.getId());
         return inventario;
     }
 
@@ -3095,7 +3329,7 @@ public class InventarioCompletoService {
      * Obtener inventarios completos por empresa
      */
     public List<InventarioCompleto> obtenerInventariosCompletosPorEmpresa(Long empresaId) {
-        System.out.println("🔍 Obteniendo inventarios completos para empresa: " + empresaId);
+        logger.debug("🔍 Obteniendo inventarios completos para empresa: {}", empresaId);
         
         Empresa empresa = empresaRepository.findById(empresaId)
             .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
@@ -3107,7 +3341,7 @@ public class InventarioCompletoService {
      * Obtener inventario completo por ID
      */
     public Optional<InventarioCompleto> obtenerInventarioCompleto(Long inventarioId) {
-        System.out.println("🔍 Obteniendo inventario completo: " + inventarioId);
+        logger.debug("🔍 Obteniendo inventario completo: {}", inventarioId);
         return inventarioCompletoRepository.findById(inventarioId);
     }
 
@@ -3115,7 +3349,7 @@ public class InventarioCompletoService {
      * Obtener conteo sector por ID (wrapper para Optional)
      */
     public Optional<ConteoSector> obtenerConteoSector(Long conteoSectorId) {
-        System.out.println("🔍 Obteniendo conteo sector: " + conteoSectorId);
+        logger.debug("🔍 Obteniendo conteo sector: {}", conteoSectorId);
         return conteoSectorRepository.findById(conteoSectorId);
     }
 
@@ -3123,7 +3357,7 @@ public class InventarioCompletoService {
      * Obtener conteos de sector por inventario
      */
     public List<ConteoSectorDTO> obtenerConteosSector(Long inventarioId) {
-        System.out.println("🔍 Obteniendo conteos de sector para inventario: " + inventarioId);
+        logger.debug("🔍 Obteniendo conteos de sector para inventario: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
             .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
@@ -3163,7 +3397,7 @@ public class InventarioCompletoService {
      * Asignar usuarios a un sector por sector ID
      */
     public ConteoSector asignarUsuariosASectorPorSectorId(Long inventarioId, Long sectorId, Long usuario1Id, Long usuario2Id) {
-        System.out.println("🔍 Asignando usuarios a sector por sector ID - inventario: " + inventarioId + ", sector: " + sectorId);
+        logger.debug("🔍 Asignando usuarios a sector por sector ID - inventario: {}, sector: {}", inventarioId, sectorId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
             .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
@@ -3183,12 +3417,12 @@ public class InventarioCompletoService {
         
         if (conteoSectorOpt.isPresent()) {
             conteoSector = conteoSectorOpt.get();
-            System.out.println("✅ Conteo de sector encontrado: " + conteoSector.getId());
+            logger.debug("✅ Conteo de sector encontrado: {}", conteoSector.getId());
         } else {
-            System.out.println("⚠️ Conteo de sector no encontrado, creando nuevo...");
+            logger.debug("⚠️ Conteo de sector no encontrado, creando nuevo...");
             conteoSector = new ConteoSector(inventario, sector);
             conteoSector = conteoSectorRepository.save(conteoSector);
-            System.out.println("✅ Nuevo conteo de sector creado: " + conteoSector.getId());
+            logger.debug("✅ Nuevo conteo de sector creado: {}", conteoSector.getId());
         }
         
         conteoSector.setUsuarioAsignado1(usuario1);
@@ -3202,7 +3436,7 @@ public class InventarioCompletoService {
      * Asignar usuarios a un sector por conteo sector ID
      */
     public ConteoSector asignarUsuariosASector(Long conteoSectorId, Long usuario1Id, Long usuario2Id) {
-        System.out.println("🔍 Asignando usuarios a sector por conteo ID: " + conteoSectorId);
+        logger.debug("🔍 Asignando usuarios a sector por conteo ID: {}", conteoSectorId);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
@@ -3224,7 +3458,7 @@ public class InventarioCompletoService {
      * Iniciar conteo de sector
      */
     public ConteoSector iniciarConteoSector(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 Iniciando conteo de sector: " + conteoSectorId + " por usuario: " + usuarioId);
+        logger.debug("🔍 Iniciando conteo de sector: {} por usuario: {}", conteoSectorId, usuarioId);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
@@ -3238,9 +3472,9 @@ public class InventarioCompletoService {
         // Solo cambiar el estado si no está ya en progreso
         if (conteoSector.getEstado() != ConteoSector.EstadoConteo.EN_PROGRESO) {
             conteoSector.setEstado(ConteoSector.EstadoConteo.EN_PROGRESO);
-            System.out.println("✅ Estado cambiado a EN_PROGRESO para sector: " + conteoSectorId);
+            logger.debug("✅ Estado cambiado a EN_PROGRESO para sector: {}", conteoSectorId);
         } else {
-            System.out.println("ℹ️ El conteo ya está en progreso para sector: " + conteoSectorId);
+            logger.debug("ℹ️ El conteo ya está en progreso para sector: {}", conteoSectorId);
         }
         
         ConteoSector conteoSectorGuardado = conteoSectorRepository.save(conteoSector);
@@ -3257,28 +3491,35 @@ public class InventarioCompletoService {
      * Agregar producto al conteo
      */
     public DetalleConteo agregarProductoAlConteo(Long conteoSectorId, Long productoId, Integer cantidad, String formulaCalculo, Long usuarioId) {
-        System.out.println("🔍 === AGREGANDO PRODUCTO AL CONTEO ===");
-        System.out.println("🔍 ConteoSector ID: " + conteoSectorId);
-        System.out.println("🔍 Producto ID: " + productoId);
-        System.out.println("🔍 Cantidad: " + cantidad);
-        System.out.println("🔍 Usuario ID: " + usuarioId);
+        DetalleConteo detalle = metricasOperacionesService.medir("inventario.conteo.agregar", null, () -> registrarProductoEnConteo(conteoSectorId, productoId, cantidad, formulaCalculo, usuarioId));
+        eventosInventarioService.publicarDetalle(detalle, EventosInventarioService.PRODUCTO_CONTADO, usuarioId);
+        return detalle;
+    }
+
+    private DetalleConteo registrarProductoEnConteo(Long conteoSectorId, Long productoId, Integer cantidad, String formulaCalculo, Long usuarioId) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 === AGREGANDO PRODUCTO AL CONTEO ===");
+        logger.debug("🔍 ConteoSector ID: {}", conteoSectorId);
+        logger.debug("🔍 Producto ID: {}", productoId);
+        logger.debug("🔍 Cantidad: {}", cantidad);
+        logger.debug("🔍 Usuario ID: {}", usuarioId);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
         
-        System.out.println("🔍 ConteoSector encontrado:");
-        System.out.println("  - ID: " + conteoSector.getId());
-        System.out.println("  - Sector ID: " + conteoSector.getSector().getId());
-        System.out.println("  - Sector Nombre: " + conteoSector.getSector().getNombre());
-        System.out.println("  - Estado: " + conteoSector.getEstado());
+        logger.debug("🔍 ConteoSector encontrado:");
+        logger.debug("  - ID: {}", conteoSector.getId());
+        logger.debug("  - Sector ID: {}", conteoSector.getSector().getId());
+        logger.debug("  - Sector Nombre: {}", conteoSector.getSector().getNombre());
+        logger.debug("  - Estado: {}", conteoSector.getEstado());
         
         Producto producto = productoRepository.findById(productoId)
             .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         
-        System.out.println("🔍 Producto encontrado:");
-        System.out.println("  - ID: " + producto.getId());
-        System.out.println("  - Nombre: " + producto.getNombre());
-        System.out.println("  - Sector Almacenamiento: " + producto.getSectorAlmacenamiento());
+        logger.debug("🔍 Producto encontrado:");
+        logger.debug("  - ID: {}", producto.getId());
+        logger.debug("  - Nombre: {}", producto.getNombre());
+        logger.debug("  - Sector Almacenamiento: {}", producto.getSectorAlmacenamiento());
         
         // Verificar que el usuario está asignado al conteo
         if (!conteoSector.getUsuarioAsignado1().getId().equals(usuarioId) && 
@@ -3292,7 +3533,7 @@ public class InventarioCompletoService {
         DetalleConteo detalle;
         
         if (esReconteo) {
-            System.out.println("🔄 RECONTEO: Creando nueva entrada de reconteo");
+            logger.debug("🔄 RECONTEO: Creando nueva entrada de reconteo");
             
             // En reconteo, siempre crear una nueva entrada para mantener historial
             detalle = new DetalleConteo();
@@ -3307,7 +3548,7 @@ public class InventarioCompletoService {
             List<DetalleConteo> detallesExistentes = detalleConteoRepository.findByConteoSectorAndProductoAndEliminadoFalse(conteoSector, producto);
             
             if (!detallesExistentes.isEmpty()) {
-                System.out.println("✅ RECONTEO: Consolidando valores del otro usuario de " + detallesExistentes.size() + " entradas existentes");
+                logger.debug("✅ RECONTEO: Consolidando valores del otro usuario de {} entradas existentes", detallesExistentes.size());
                 
                 // ✅ CRÍTICO: Determinar fecha de inicio del reconteo para filtrar solo detalles de reconteo
                 LocalDateTime fechaInicioReconteo = null;
@@ -3315,9 +3556,9 @@ public class InventarioCompletoService {
                     try {
                         String fechaStr = conteoSector.getObservaciones().split("_")[1];
                         fechaInicioReconteo = LocalDateTime.parse(fechaStr);
-                        System.out.println("✅ RECONTEO: Fecha de inicio del reconteo: " + fechaInicioReconteo);
+                        logger.debug("✅ RECONTEO: Fecha de inicio del reconteo: {}", fechaInicioReconteo);
                     } catch (Exception e) {
-                        System.out.println("⚠️ No se pudo parsear fecha de reconteo, usando todos los detalles");
+                        logger.debug("⚠️ No se pudo parsear fecha de reconteo, usando todos los detalles");
                     }
                 }
                 
@@ -3332,7 +3573,7 @@ public class InventarioCompletoService {
                     })
                     .collect(java.util.stream.Collectors.toList());
                 
-                System.out.println("✅ RECONTEO: Detalles de reconteo filtrados: " + detallesReconteo.size() + " de " + detallesExistentes.size());
+                logger.debug("✅ RECONTEO: Detalles de reconteo filtrados: {} de {}", detallesReconteo.size(), detallesExistentes.size());
                 
                 // ✅ CORRECCIÓN: NO sumar, sino encontrar el valor MÁS RECIENTE del otro usuario EN RECONTEO
                 // Ordenar por fecha descendente (más reciente primero)
@@ -3349,18 +3590,22 @@ public class InventarioCompletoService {
                         if (det.getCantidadConteo2() != null && det.getCantidadConteo2() > 0) {
                             detalle.setCantidadConteo2(det.getCantidadConteo2());
                             detalle.setFormulaCalculo2(det.getFormulaCalculo2());
-                            System.out.println("✅ RECONTEO: Usuario2 más reciente (de reconteo): " + det.getCantidadConteo2() + " (" + det.getFormulaCalculo2() + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ RECONTEO: Usuario2 más reciente (de reconteo): {} ({})", det.getCantidadConteo2(), det.getFormulaCalculo2());
+                            }
                             break;
                         }
                     }
                     // Si no se encontró en reconteo, usar el conteo inicial como referencia
                     if (detalle.getCantidadConteo2() == null) {
-                        System.out.println("⚠️ RECONTEO: No se encontró reconteo de Usuario2, buscando en conteo inicial");
+                        logger.debug("⚠️ RECONTEO: No se encontró reconteo de Usuario2, buscando en conteo inicial");
                         for (DetalleConteo det : detallesExistentes) {
                             if (det.getCantidadConteo2() != null && det.getCantidadConteo2() > 0) {
                                 detalle.setCantidadConteo2(det.getCantidadConteo2());
                                 detalle.setFormulaCalculo2(det.getFormulaCalculo2());
-                                System.out.println("✅ RECONTEO: Usuario2 del conteo inicial (referencia): " + det.getCantidadConteo2());
+                                if (muestreo.tomar()) {
+                                    logger.debug("✅ RECONTEO: Usuario2 del conteo inicial (referencia): {}", det.getCantidadConteo2());
+                                }
                                 break;
                             }
                         }
@@ -3371,18 +3616,22 @@ public class InventarioCompletoService {
                         if (det.getCantidadConteo1() != null && det.getCantidadConteo1() > 0) {
                             detalle.setCantidadConteo1(det.getCantidadConteo1());
                             detalle.setFormulaCalculo1(det.getFormulaCalculo1());
-                            System.out.println("✅ RECONTEO: Usuario1 más reciente (de reconteo): " + det.getCantidadConteo1() + " (" + det.getFormulaCalculo1() + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ RECONTEO: Usuario1 más reciente (de reconteo): {} ({})", det.getCantidadConteo1(), det.getFormulaCalculo1());
+                            }
                             break;
                         }
                     }
                     // Si no se encontró en reconteo, usar el conteo inicial como referencia
                     if (detalle.getCantidadConteo1() == null) {
-                        System.out.println("⚠️ RECONTEO: No se encontró reconteo de Usuario1, buscando en conteo inicial");
+                        logger.debug("⚠️ RECONTEO: No se encontró reconteo de Usuario1, buscando en conteo inicial");
                         for (DetalleConteo det : detallesExistentes) {
                             if (det.getCantidadConteo1() != null && det.getCantidadConteo1() > 0) {
                                 detalle.setCantidadConteo1(det.getCantidadConteo1());
                                 detalle.setFormulaCalculo1(det.getFormulaCalculo1());
-                                System.out.println("✅ RECONTEO: Usuario1 del conteo inicial (referencia): " + det.getCantidadConteo1());
+                                if (muestreo.tomar()) {
+                                    logger.debug("✅ RECONTEO: Usuario1 del conteo inicial (referencia): {}", det.getCantidadConteo1());
+                                }
                                 break;
                             }
                         }
@@ -3390,20 +3639,22 @@ public class InventarioCompletoService {
                 }
             }
         } else {
-            System.out.println("🆕 CONTEO INICIAL: Creando nueva entrada");
-            System.out.println("🔍 DEBUG CONTEO INICIAL:");
-            System.out.println("  - ConteoSector ID: " + conteoSector.getId());
-            System.out.println("  - Producto ID: " + producto.getId());
-            System.out.println("  - Producto Nombre: " + producto.getNombre());
-            System.out.println("  - Usuario ID: " + usuarioId);
-            System.out.println("  - Cantidad: " + cantidad);
-            System.out.println("  - Fórmula: " + formulaCalculo);
+            logger.debug("🆕 CONTEO INICIAL: Creando nueva entrada");
+            logger.debug("🔍 DEBUG CONTEO INICIAL:");
+            logger.debug("  - ConteoSector ID: {}", conteoSector.getId());
+            logger.debug("  - Producto ID: {}", producto.getId());
+            logger.debug("  - Producto Nombre: {}", producto.getNombre());
+            logger.debug("  - Usuario ID: {}", usuarioId);
+            logger.debug("  - Cantidad: {}", cantidad);
+            logger.debug("  - Fórmula: {}", formulaCalculo);
             
             // Verificar si ya existen detalles para este producto en este sector
             List<DetalleConteo> detallesExistentes = detalleConteoRepository.findByConteoSectorAndProductoAndEliminadoFalse(conteoSector, producto);
-            System.out.println("🔍 DETALLES EXISTENTES para este producto: " + detallesExistentes.size());
+            logger.debug("🔍 DETALLES EXISTENTES para este producto: {}", detallesExistentes.size());
             for (DetalleConteo det : detallesExistentes) {
-                System.out.println("  - Detalle ID: " + det.getId() + ", Usuario1: " + det.getCantidadConteo1() + ", Usuario2: " + det.getCantidadConteo2() + ", Eliminado: " + det.getEliminado());
+                if (muestreo.tomar()) {
+                    logger.debug("  - Detalle ID: {}, Usuario1: {}, Usuario2: {}, Eliminado: {}", det.getId(), det.getCantidadConteo1(), det.getCantidadConteo2(), det.getEliminado());
+                }
             }
             
             // Crear nuevo detalle para conteo inicial (permite múltiples conteos del mismo producto)
@@ -3415,7 +3666,7 @@ public class InventarioCompletoService {
             detalle.setStockSistema(obtenerStockSistemaEnSectorParaDetalle(producto, conteoSector));
             detalle.setPrecioUnitario(producto.getPrecio());
             
-            System.out.println("✅ NUEVA ENTRADA CREADA (antes de guardar)");
+            logger.debug("✅ NUEVA ENTRADA CREADA (antes de guardar)");
         }
         
         // Asignar cantidad según el usuario
@@ -3440,22 +3691,25 @@ public class InventarioCompletoService {
         }
         
         // Guardar el detalle
-        System.out.println("🔍 GUARDANDO detalle - ID antes: " + detalle.getId());
+        logger.debug("🔍 GUARDANDO detalle - ID antes: {}", detalle.getId());
         detalle = detalleConteoRepository.save(detalle);
-        System.out.println("✅ DETALLE GUARDADO - ID después: " + detalle.getId());
-        System.out.println("✅ DETALLE GUARDADO - Producto: " + detalle.getProducto().getNombre());
-        System.out.println("✅ DETALLE GUARDADO - Usuario1: " + detalle.getCantidadConteo1());
-        System.out.println("✅ DETALLE GUARDADO - Usuario2: " + detalle.getCantidadConteo2());
-        System.out.println("✅ DETALLE GUARDADO - Estado: " + detalle.getEstado());
+        logger.debug("✅ DETALLE GUARDADO - ID después: {}", detalle.getId());
+        logger.debug("✅ DETALLE GUARDADO - Producto: {}", detalle.getProducto().getNombre());
+        logger.debug("✅ DETALLE GUARDADO - Usuario1: {}", detalle.getCantidadConteo1());
+        logger.debug("✅ DETALLE GUARDADO - Usuario2: {}", detalle.getCantidadConteo2());
+        logger.debug("✅ DETALLE GUARDADO - Estado: {}", detalle.getEstado());
         
         // Verificar cuántos detalles existen ahora para este producto
         List<DetalleConteo> detallesDespues = detalleConteoRepository.findByConteoSectorAndProductoAndEliminadoFalse(conteoSector, producto);
-        System.out.println("🔍 TOTAL DETALLES después de guardar para este producto: " + detallesDespues.size());
+        logger.debug("🔍 TOTAL DETALLES después de guardar para este producto: {}", detallesDespues.size());
         for (DetalleConteo det : detallesDespues) {
-            System.out.println("  - Detalle ID: " + det.getId() + ", Usuario1: " + det.getCantidadConteo1() + ", Usuario2: " + det.getCantidadConteo2() + ", Eliminado: " + det.getEliminado());
+            if (muestreo.tomar()) {
+                logger.debug("  - Detalle ID: {}, Usuario1: {}, Usuario2: {}, Eliminado: {}", det.getId(), det.getCantidadConteo1(), det.getCantidadConteo2(), det.getEliminado());
+            }
         }
         
         // Actualizar el progreso real del sector
+        progresoConteoService.actualizarProducto(conteoSector, producto.getId());
         calcularProgresoReal(conteoSector);
         conteoSectorRepository.save(conteoSector);
         
@@ -3463,18 +3717,18 @@ public class InventarioCompletoService {
         // El estado se mantiene como PENDIENTE hasta que se finalice el conteo
         // Los estados por usuario se determinan individualmente basándose en los DetalleConteo
         
-        System.out.println("🔍 === DETALLE GUARDADO ===");
-        System.out.println("🔍 Detalle ID: " + detalle.getId());
-        System.out.println("🔍 Producto: " + detalle.getProducto().getNombre());
-        System.out.println("🔍 Sector: " + detalle.getConteoSector().getSector().getNombre());
-        System.out.println("🔍 Cantidad Conteo1: " + detalle.getCantidadConteo1());
-        System.out.println("🔍 Cantidad Conteo2: " + detalle.getCantidadConteo2());
-        System.out.println("🔍 Fórmula1: " + detalle.getFormulaCalculo1());
-        System.out.println("🔍 Fórmula2: " + detalle.getFormulaCalculo2());
+        logger.debug("🔍 === DETALLE GUARDADO ===");
+        logger.debug("🔍 Detalle ID: {}", detalle.getId());
+        logger.debug("🔍 Producto: {}", detalle.getProducto().getNombre());
+        logger.debug("🔍 Sector: {}", detalle.getConteoSector().getSector().getNombre());
+        logger.debug("🔍 Cantidad Conteo1: {}", detalle.getCantidadConteo1());
+        logger.debug("🔍 Cantidad Conteo2: {}", detalle.getCantidadConteo2());
+        logger.debug("🔍 Fórmula1: {}", detalle.getFormulaCalculo1());
+        logger.debug("🔍 Fórmula2: {}", detalle.getFormulaCalculo2());
         
-        System.out.println("✅ Producto agregado al conteo por usuario " + usuarioId);
-        System.out.println("ℹ️ Estado general del conteo sector se mantiene como: " + conteoSector.getEstado());
-        System.out.println("🔍 === FIN AGREGAR PRODUCTO AL CONTEO ===");
+        logger.debug("✅ Producto agregado al conteo por usuario {}", usuarioId);
+        logger.debug("ℹ️ Estado general del conteo sector se mantiene como: {}", conteoSector.getEstado());
+        logger.debug("🔍 === FIN AGREGAR PRODUCTO AL CONTEO ===");
         
         return detalle;
     }
@@ -3483,14 +3737,18 @@ public class InventarioCompletoService {
      * Actualizar detalle de conteo existente
      */
     public DetalleConteo actualizarDetalleConteo(Long conteoSectorId, Long detalleId, Integer cantidad, String formulaCalculo, Long usuarioId) {
-        System.out.println("🔄 ACTUALIZAR DETALLE: Actualizando detalle - sector: " + conteoSectorId + ", detalle: " + detalleId + ", cantidad: " + cantidad);
+        DetalleConteo detalle = metricasOperacionesService.medir("inventario.conteo.actualizar", null, () -> modificarDetalleConteo(conteoSectorId, detalleId, cantidad, formulaCalculo, usuarioId));
+        eventosInventarioService.publicarDetalle(detalle, EventosInventarioService.CANTIDAD_ACTUALIZADA, usuarioId);
+        return detalle;
+    }
+
+    private DetalleConteo modificarDetalleConteo(Long conteoSectorId, Long detalleId, Integer cantidad, String formulaCalculo, Long usuarioId) {
+        logger.debug("🔄 ACTUALIZAR DETALLE: Actualizando detalle - sector: {}, detalle: {}, cantidad: {}", conteoSectorId, detalleId, cantidad);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
         
-        System.out.println("🔍 ACTUALIZAR DEBUG: ConteoSector encontrado - ID: " + conteoSector.getId() + 
-                         ", Usuario1: " + (conteoSector.getUsuarioAsignado1() != null ? conteoSector.getUsuarioAsignado1().getId() : "null") +
-                         ", Usuario2: " + (conteoSector.getUsuarioAsignado2() != null ? conteoSector.getUsuarioAsignado2().getId() : "null"));
+        logger.debug("🔍 ACTUALIZAR DEBUG: ConteoSector encontrado - ID: {}, Usuario1: {}, Usuario2: {}", conteoSector.getId(), (conteoSector.getUsuarioAsignado1() != null ? conteoSector.getUsuarioAsignado1().getId() : "null"), (conteoSector.getUsuarioAsignado2() != null ? conteoSector.getUsuarioAsignado2().getId() : "null"));
         
         // Verificar que el usuario está asignado al conteo
         if (!conteoSector.getUsuarioAsignado1().getId().equals(usuarioId) && 
@@ -3507,21 +3765,16 @@ public class InventarioCompletoService {
             throw new RuntimeException("El detalle no pertenece a este sector");
         }
         
-        System.out.println("🔍 ACTUALIZAR DEBUG: Detalle encontrado - ID: " + detalle.getId() + 
-                         ", Producto: " + detalle.getProducto().getNombre() + 
-                         ", Cantidad1 ANTES: " + detalle.getCantidadConteo1() + 
-                         ", Cantidad2 ANTES: " + detalle.getCantidadConteo2() +
-                         ", Formula1 ANTES: " + detalle.getFormulaCalculo1() +
-                         ", Formula2 ANTES: " + detalle.getFormulaCalculo2());
+        logger.debug("🔍 ACTUALIZAR DEBUG: Detalle encontrado - ID: {}, Producto: {}, Cantidad1 ANTES: {}, Cantidad2 ANTES: {}, Formula1 ANTES: {}, Formula2 ANTES: {}", detalle.getId(), detalle.getProducto().getNombre(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getFormulaCalculo1(), detalle.getFormulaCalculo2());
         
         // Actualizar la cantidad según el usuario
         if (conteoSector.getUsuarioAsignado1().getId().equals(usuarioId)) {
-            System.out.println("🔄 ACTUALIZAR DEBUG: Usuario 1 - Actualizando cantidad de " + detalle.getCantidadConteo1() + " a " + cantidad);
+            logger.debug("🔄 ACTUALIZAR DEBUG: Usuario 1 - Actualizando cantidad de {} a {}", detalle.getCantidadConteo1(), cantidad);
             detalle.setCantidadConteo1(cantidad);
             detalle.setFormulaCalculo1(formulaCalculo);
             detalle.setEstado(DetalleConteo.EstadoDetalle.CONTADO_1);
         } else {
-            System.out.println("🔄 ACTUALIZAR DEBUG: Usuario 2 - Actualizando cantidad de " + detalle.getCantidadConteo2() + " a " + cantidad);
+            logger.debug("🔄 ACTUALIZAR DEBUG: Usuario 2 - Actualizando cantidad de {} a {}", detalle.getCantidadConteo2(), cantidad);
             detalle.setCantidadConteo2(cantidad);
             detalle.setFormulaCalculo2(formulaCalculo);
             detalle.setEstado(DetalleConteo.EstadoDetalle.CONTADO_2);
@@ -3531,13 +3784,10 @@ public class InventarioCompletoService {
         calcularDiferencias(detalle);
         
         DetalleConteo resultado = detalleConteoRepository.save(detalle);
-        System.out.println("✅ ACTUALIZAR DEBUG: Detalle actualizado - Cantidad1 DESPUÉS: " + resultado.getCantidadConteo1() + 
-                         ", Cantidad2 DESPUÉS: " + resultado.getCantidadConteo2() +
-                         ", Formula1 DESPUÉS: " + resultado.getFormulaCalculo1() +
-                         ", Formula2 DESPUÉS: " + resultado.getFormulaCalculo2() +
-                         ", Estado: " + resultado.getEstado());
+        logger.debug("✅ ACTUALIZAR DEBUG: Detalle actualizado - Cantidad1 DESPUÉS: {}, Cantidad2 DESPUÉS: {}, Formula1 DESPUÉS: {}, Formula2 DESPUÉS: {}, Estado: {}", resultado.getCantidadConteo1(), resultado.getCantidadConteo2(), resultado.getFormulaCalculo1(), resultado.getFormulaCalculo2(), resultado.getEstado());
         
         // Actualizar el progreso real del sector
+        progresoConteoService.actualizarProducto(conteoSector, resultado.getProducto().getId());
         calcularProgresoReal(conteoSector);
         conteoSectorRepository.save(conteoSector);
         
@@ -3550,7 +3800,7 @@ public class InventarioCompletoService {
      * Por lo tanto, delegamos a agregarProductoAlConteo que ya maneja esto correctamente
      */
     public DetalleConteo agregarProductoAlReconteo(Long conteoSectorId, Long productoId, Integer cantidad, String formulaCalculo, Long usuarioId) {
-        System.out.println("🔄 RECONTEO: Agregando producto - sector: " + conteoSectorId + ", producto: " + productoId + ", cantidad: " + cantidad);
+        logger.debug("🔄 RECONTEO: Agregando producto - sector: {}, producto: {}, cantidad: {}", conteoSectorId, productoId, cantidad);
         
         // ✅ CORRECCIÓN: En reconteo, delegar a agregarProductoAlConteo que ya maneja correctamente
         // la creación de nuevas entradas y copia de valores del otro usuario
@@ -3562,21 +3812,21 @@ public class InventarioCompletoService {
      */
     @Transactional
     public InventarioCompleto cancelarInventarioCompleto(Long inventarioId) {
-        System.out.println("🔍 Cancelando inventario completo: " + inventarioId);
+        logger.debug("🔍 Cancelando inventario completo: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
             .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
         
-        System.out.println("🔍 Inventario encontrado: " + inventario.getId() + ", estado actual: " + inventario.getEstado());
+        logger.debug("🔍 Inventario encontrado: {}, estado actual: {}", inventario.getId(), inventario.getEstado());
         
         inventario.setEstado(InventarioCompleto.EstadoInventario.CANCELADO);
         inventario.setFechaFinalizacion(LocalDateTime.now());
         
-        System.out.println("🔍 Estado cambiado a CANCELADO, guardando...");
+        logger.debug("🔍 Estado cambiado a CANCELADO, guardando...");
         
         InventarioCompleto inventarioGuardado = inventarioCompletoRepository.save(inventario);
         
-        System.out.println("✅ Inventario cancelado exitosamente: " + inventarioGuardado.getId());
+        logger.debug("✅ Inventario cancelado exitosamente: {}", inventarioGuardado.getId());
         
         return inventarioGuardado;
     }
@@ -3585,7 +3835,11 @@ public class InventarioCompletoService {
      * Finalizar inventario completo
      */
     public InventarioCompleto finalizarInventarioCompleto(Long inventarioId) {
-        System.out.println("🔍 Finalizando inventario completo: " + inventarioId);
+        return metricasOperacionesService.medir("inventario.finalizar", null, () -> cerrarInventarioCompleto(inventarioId));
+    }
+
+    private InventarioCompleto cerrarInventarioCompleto(Long inventarioId) {
+        logger.debug("🔍 Finalizando inventario completo: {}", inventarioId);
         
         InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
             .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
@@ -3601,7 +3855,15 @@ public class InventarioCompletoService {
      */
     @Transactional
     public ConteoSector finalizarConteoSector(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 Finalizando conteo de sector: " + conteoSectorId + " por usuario: " + usuarioId);
+        ConteoSector conteoSector = metricasOperacionesService.medir("inventario.conteo.finalizar", null, () -> cerrarConteoSector(conteoSectorId, usuarioId));
+        // Con diferencias el sector pasa a reconteo; si no, solo cambia de estado
+        eventosInventarioService.publicarEstado(conteoSector, conteoSector.getEstado() == ConteoSector.EstadoConteo.CON_DIFERENCIAS
+            ? EventosInventarioService.RECONTEO_INICIADO : EventosInventarioService.ESTADO_SECTOR);
+        return conteoSector;
+    }
+
+    private ConteoSector cerrarConteoSector(Long conteoSectorId, Long usuarioId) {
+        logger.debug("🔍 Finalizando conteo de sector: {} por usuario: {}", conteoSectorId, usuarioId);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
@@ -3622,32 +3884,32 @@ public class InventarioCompletoService {
             throw new RuntimeException("El usuario no está asignado a este conteo");
         }
         
-        System.out.println("🔍 [FINALIZAR] Estado actual del sector: " + conteoSector.getEstado());
-        System.out.println("🔍 [FINALIZAR] ¿Es usuario 1? " + esUsuario1);
-        System.out.println("🔍 [FINALIZAR] ¿Es usuario 2? " + esUsuario2);
+        logger.debug("🔍 [FINALIZAR] Estado actual del sector: {}", conteoSector.getEstado());
+        logger.debug("🔍 [FINALIZAR] ¿Es usuario 1? {}", esUsuario1);
+        logger.debug("🔍 [FINALIZAR] ¿Es usuario 2? {}", esUsuario2);
         
         // Verificar si ya está en ESPERANDO_VERIFICACION (segundo usuario finalizando)
         if (conteoSector.getEstado() == ConteoSector.EstadoConteo.ESPERANDO_VERIFICACION) {
-            System.out.println("🔍 [FINALIZAR] Segundo usuario finalizando, verificando diferencias...");
+            logger.debug("🔍 [FINALIZAR] Segundo usuario finalizando, verificando diferencias...");
             
             // Comparar conteos de ambos usuarios
             boolean hayDiferencias = verificarDiferenciasEnConteo(conteoSector);
-            System.out.println("🔍 [FINALIZAR] ¿Hay diferencias? " + hayDiferencias);
+            logger.debug("🔍 [FINALIZAR] ¿Hay diferencias? {}", hayDiferencias);
             
             if (hayDiferencias) {
                 conteoSector.setEstado(ConteoSector.EstadoConteo.CON_DIFERENCIAS);
                 // ✅ CORRECCIÓN: Marcar el inicio del reconteo con fecha para poder filtrar correctamente
                 String fechaReconteo = LocalDateTime.now().toString();
                 conteoSector.setObservaciones("Reconteo_" + fechaReconteo);
-                System.out.println("⚠️ [FINALIZAR] Diferencias encontradas, estado cambiado a CON_DIFERENCIAS");
-                System.out.println("⚠️ [FINALIZAR] Inicio de reconteo marcado: Reconteo_" + fechaReconteo);
+                logger.debug("⚠️ [FINALIZAR] Diferencias encontradas, estado cambiado a CON_DIFERENCIAS");
+                logger.debug("⚠️ [FINALIZAR] Inicio de reconteo marcado: Reconteo_{}", fechaReconteo);
             } else {
                 conteoSector.setEstado(ConteoSector.EstadoConteo.COMPLETADO);
-                System.out.println("✅ [FINALIZAR] Sin diferencias, estado cambiado a COMPLETADO");
+                logger.debug("✅ [FINALIZAR] Sin diferencias, estado cambiado a COMPLETADO");
             }
         } else {
             // Primer usuario finalizando
-            System.out.println("🔍 [FINALIZAR] Primer usuario finalizando...");
+            logger.debug("🔍 [FINALIZAR] Primer usuario finalizando...");
             
             // ✅ CRÍTICO: Si ya estamos en reconteo (CON_DIFERENCIAS), NO sobrescribir las observaciones
             // porque contienen la fecha de inicio del reconteo que necesitamos para filtrar correctamente
@@ -3661,34 +3923,34 @@ public class InventarioCompletoService {
                 // Marcar qué usuario finalizó en las observaciones (temporal)
                 if (esUsuario1) {
                     conteoSector.setObservaciones("Usuario1_Finalizado");
-                    System.out.println("🔍 [FINALIZAR] Marcado como Usuario1_Finalizado");
+                    logger.debug("🔍 [FINALIZAR] Marcado como Usuario1_Finalizado");
                 } else if (esUsuario2) {
                     conteoSector.setObservaciones("Usuario2_Finalizado");
-                    System.out.println("🔍 [FINALIZAR] Marcado como Usuario2_Finalizado");
+                    logger.debug("🔍 [FINALIZAR] Marcado como Usuario2_Finalizado");
                 }
-                System.out.println("⏳ [FINALIZAR] Primer usuario finalizado, estado cambiado a ESPERANDO_VERIFICACION");
+                logger.debug("⏳ [FINALIZAR] Primer usuario finalizado, estado cambiado a ESPERANDO_VERIFICACION");
             } else {
                 // Ya está en reconteo, no cambiar nada, solo verificar diferencias
-                System.out.println("⚠️ [FINALIZAR] Ya está en reconteo, manteniendo observaciones y verificando diferencias...");
+                logger.debug("⚠️ [FINALIZAR] Ya está en reconteo, manteniendo observaciones y verificando diferencias...");
                 boolean hayDiferencias = verificarDiferenciasEnConteo(conteoSector);
-                System.out.println("🔍 [FINALIZAR] ¿Hay diferencias? " + hayDiferencias);
+                logger.debug("🔍 [FINALIZAR] ¿Hay diferencias? {}", hayDiferencias);
                 
                 if (!hayDiferencias) {
                     conteoSector.setEstado(ConteoSector.EstadoConteo.COMPLETADO);
-                    System.out.println("✅ [FINALIZAR] Sin diferencias, estado cambiado a COMPLETADO");
+                    logger.debug("✅ [FINALIZAR] Sin diferencias, estado cambiado a COMPLETADO");
                 }
             }
         }
         
-        System.out.println("🔍 [FINALIZAR] Guardando sector con estado: " + conteoSector.getEstado());
+        logger.debug("🔍 [FINALIZAR] Guardando sector con estado: {}", conteoSector.getEstado());
         ConteoSector conteoSectorGuardado = conteoSectorRepository.save(conteoSector);
-        System.out.println("🔍 [FINALIZAR] Sector guardado con ID: " + conteoSectorGuardado.getId() + " y estado: " + conteoSectorGuardado.getEstado());
+        logger.debug("🔍 [FINALIZAR] Sector guardado con ID: {} y estado: {}", conteoSectorGuardado.getId(), conteoSectorGuardado.getEstado());
         
         // ✅ RECALCULAR PROGRESO DEL SECTOR después de cambiar el estado
-        System.out.println("🔄 Recalculando progreso del sector después de finalizar...");
+        logger.debug("🔄 Recalculando progreso del sector después de finalizar...");
         calcularProgresoReal(conteoSectorGuardado);
         conteoSectorGuardado = conteoSectorRepository.save(conteoSectorGuardado);
-        System.out.println("🔍 [FINALIZAR] Progreso recalculado, estado final: " + conteoSectorGuardado.getEstado());
+        logger.debug("🔍 [FINALIZAR] Progreso recalculado, estado final: {}", conteoSectorGuardado.getEstado());
         
         // Actualizar estadísticas del inventario
         InventarioCompleto inventario = conteoSectorGuardado.getInventarioCompleto();
@@ -3696,15 +3958,15 @@ public class InventarioCompletoService {
         inventarioCompletoRepository.save(inventario);
         
         // ✅ ACTUALIZAR PROGRESO DEL INVENTARIO COMPLETO
-        System.out.println("🔄 Actualizando progreso del inventario completo después de finalizar sector...");
+        logger.debug("🔄 Actualizando progreso del inventario completo después de finalizar sector...");
         try {
             verificarYFinalizarInventarioCompleto(inventario.getId());
         } catch (Exception e) {
-            System.err.println("⚠️ Error actualizando progreso del inventario: " + e.getMessage());
+            logger.warn("⚠️ Error actualizando progreso del inventario: {}", e.getMessage());
             // No lanzar la excepción para no interrumpir el flujo principal
         }
         
-        System.out.println("✅ Estado final del sector: " + conteoSectorGuardado.getEstado());
+        logger.debug("✅ Estado final del sector: {}", conteoSectorGuardado.getEstado());
         return conteoSectorGuardado;
     }
 
@@ -3712,18 +3974,19 @@ public class InventarioCompletoService {
      * Verificar si hay diferencias entre los conteos de ambos usuarios
      */
     private boolean verificarDiferenciasEnConteo(ConteoSector conteoSector) {
-        System.out.println("🔍 [VERIFICAR DIFERENCIAS] Iniciando verificación para sector: " + conteoSector.getId());
-        System.out.println("🔍 [VERIFICAR DIFERENCIAS] Estado actual del sector: " + conteoSector.getEstado());
-        System.out.println("🔍 [VERIFICAR DIFERENCIAS] Observaciones del sector: " + conteoSector.getObservaciones());
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 [VERIFICAR DIFERENCIAS] Iniciando verificación para sector: {}", conteoSector.getId());
+        logger.debug("🔍 [VERIFICAR DIFERENCIAS] Estado actual del sector: {}", conteoSector.getEstado());
+        logger.debug("🔍 [VERIFICAR DIFERENCIAS] Observaciones del sector: {}", conteoSector.getObservaciones());
         
         List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("🔍 Total detalles encontrados para verificación: " + detalles.size());
+        logger.debug("🔍 Total detalles encontrados para verificación: {}", detalles.size());
         
         // ✅ NUEVA LÓGICA: Detectar si estamos en reconteo
         boolean estaEnReconteo = conteoSector.getObservaciones() != null && 
                                 conteoSector.getObservaciones().startsWith("Reconteo");
         
-        System.out.println("🔍 [VERIFICAR] ¿Está en reconteo? " + estaEnReconteo);
+        logger.debug("🔍 [VERIFICAR] ¿Está en reconteo? {}", estaEnReconteo);
         
         // Agrupar por producto
         Map<Long, List<DetalleConteo>> detallesPorProducto = new HashMap<>();
@@ -3732,7 +3995,7 @@ public class InventarioCompletoService {
         for (DetalleConteo detalle : detalles) {
             // Verificar que el producto no sea nulo
             if (detalle.getProducto() == null) {
-                System.err.println("⚠️ DetalleConteo con ID " + detalle.getId() + " tiene producto nulo, saltando...");
+                logger.warn("⚠️ DetalleConteo con ID {} tiene producto nulo, saltando...", detalle.getId());
                 continue;
             }
             
@@ -3754,7 +4017,9 @@ public class InventarioCompletoService {
             if (estaEnReconteo) {
                 // ✅ CORRECCIÓN: EN RECONTEO, encontrar el valor más reciente de cada usuario independientemente
                 // Esto permite que funcione sin importar el orden de quién recuenta primero
-                System.out.println("🔍 [VERIFICAR] Modo reconteo - Consolidando valores por usuario");
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 [VERIFICAR] Modo reconteo - Consolidando valores por usuario");
+                }
                 
                 // Ordenar todos los detalles por fecha descendente (más reciente primero)
                 List<DetalleConteo> todosDetallesOrdenados = new ArrayList<>(detallesDelProducto);
@@ -3770,7 +4035,9 @@ public class InventarioCompletoService {
                 for (DetalleConteo detalle : todosDetallesOrdenados) {
                     if (detalle.getCantidadConteo1() != null) {
                         valorMasRecienteUsuario1 = detalle.getCantidadConteo1();
-                        System.out.println("✅ [VERIFICAR] Usuario1 más reciente: " + valorMasRecienteUsuario1 + " (Detalle ID: " + detalle.getId() + ")");
+                        if (muestreo.tomar()) {
+                            logger.debug("✅ [VERIFICAR] Usuario1 más reciente: {} (Detalle ID: {})", valorMasRecienteUsuario1, detalle.getId());
+                        }
                         break;
                     }
                 }
@@ -3780,7 +4047,9 @@ public class InventarioCompletoService {
                 for (DetalleConteo detalle : todosDetallesOrdenados) {
                     if (detalle.getCantidadConteo2() != null) {
                         valorMasRecienteUsuario2 = detalle.getCantidadConteo2();
-                        System.out.println("✅ [VERIFICAR] Usuario2 más reciente: " + valorMasRecienteUsuario2 + " (Detalle ID: " + detalle.getId() + ")");
+                        if (muestreo.tomar()) {
+                            logger.debug("✅ [VERIFICAR] Usuario2 más reciente: {} (Detalle ID: {})", valorMasRecienteUsuario2, detalle.getId());
+                        }
                         break;
                     }
                 }
@@ -3793,26 +4062,28 @@ public class InventarioCompletoService {
                     totalesUsuario2.put(productoId, valorMasRecienteUsuario2);
                 }
                 
-                System.out.println("✅ [VERIFICAR] Valores consolidados - Usuario1: " + valorMasRecienteUsuario1 + ", Usuario2: " + valorMasRecienteUsuario2);
+                if (muestreo.tomar()) {
+                    logger.debug("✅ [VERIFICAR] Valores consolidados - Usuario1: {}, Usuario2: {}", valorMasRecienteUsuario1, valorMasRecienteUsuario2);
+                }
             } else {
                 // ✅ CONTEO NORMAL: Sumar todas las cantidades (permitir conteos múltiples)
                 for (DetalleConteo detalle : detallesDelProducto) {
-            System.out.println("🔍 Procesando detalle ID: " + detalle.getId() + 
-                             ", Producto: " + nombreProducto + 
-                             ", Usuario1: " + detalle.getCantidadConteo1() + 
-                             ", Usuario2: " + detalle.getCantidadConteo2() + 
-                             ", Eliminado: " + detalle.getEliminado());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Procesando detalle ID: {}, Producto: {}, Usuario1: {}, Usuario2: {}, Eliminado: {}", detalle.getId(), nombreProducto, detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getEliminado());
+            }
             
             if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
                 totalesUsuario1.put(productoId, totalesUsuario1.getOrDefault(productoId, 0) + detalle.getCantidadConteo1());
-                System.out.println("🔍 CONTEO NORMAL - Producto " + nombreProducto + " - Usuario 1: +" + detalle.getCantidadConteo1() + 
-                                 " (total: " + totalesUsuario1.get(productoId) + ")");
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 CONTEO NORMAL - Producto {} - Usuario 1: +{} (total: {})", nombreProducto, detalle.getCantidadConteo1(), totalesUsuario1.get(productoId));
+                }
             }
             
             if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
                 totalesUsuario2.put(productoId, totalesUsuario2.getOrDefault(productoId, 0) + detalle.getCantidadConteo2());
-                System.out.println("🔍 CONTEO NORMAL - Producto " + nombreProducto + " - Usuario 2: +" + detalle.getCantidadConteo2() + 
-                                 " (total: " + totalesUsuario2.get(productoId) + ")");
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 CONTEO NORMAL - Producto {} - Usuario 2: +{} (total: {})", nombreProducto, detalle.getCantidadConteo2(), totalesUsuario2.get(productoId));
+                }
                     }
                 }
             }
@@ -3828,26 +4099,30 @@ public class InventarioCompletoService {
             Integer total1 = totalesUsuario1.getOrDefault(productoId, 0);
             Integer total2 = totalesUsuario2.getOrDefault(productoId, 0);
             
-            System.out.println("🔍 Comparando producto " + nombreProducto + ": Usuario 1=" + total1 + ", Usuario 2=" + total2);
+            if (muestreo.tomar()) {
+                logger.debug("🔍 Comparando producto {}: Usuario 1={}, Usuario 2={}", nombreProducto, total1, total2);
+            }
             
             // Si ambos usuarios contaron el producto, comparar totales
             if (total1 > 0 && total2 > 0) {
                 if (!total1.equals(total2)) {
-                    System.out.println("⚠️ Diferencia encontrada en CONTEO NORMAL - producto: " + nombreProducto + 
-                                     " - Usuario 1: " + total1 + ", Usuario 2: " + total2);
+                    if (muestreo.tomar()) {
+                        logger.debug("⚠️ Diferencia encontrada en CONTEO NORMAL - producto: {} - Usuario 1: {}, Usuario 2: {}", nombreProducto, total1, total2);
+                    }
                     return true;
                 }
             }
             
             // Si solo uno de los usuarios contó el producto, también es una diferencia
             if ((total1 > 0 && total2 == 0) || (total2 > 0 && total1 == 0)) {
-                System.out.println("⚠️ Diferencia encontrada en CONTEO NORMAL: solo un usuario contó " + nombreProducto + 
-                                 " (Usuario 1: " + total1 + ", Usuario 2: " + total2 + ")");
+                if (muestreo.tomar()) {
+                    logger.debug("⚠️ Diferencia encontrada en CONTEO NORMAL: solo un usuario contó {} (Usuario 1: {}, Usuario 2: {})", nombreProducto, total1, total2);
+                }
                 return true;
             }
         }
         
-        System.out.println("✅ No se encontraron diferencias entre los conteos");
+        logger.debug("✅ No se encontraron diferencias entre los conteos");
         return false;
     }
 
@@ -3856,12 +4131,13 @@ public class InventarioCompletoService {
      * Este método es específico para reconteos y compara solo los valores de reconteo
      */
     private boolean verificarDiferenciasEnReconteo(ConteoSector conteoSector) {
-        System.out.println("🔍 [RECONTEO] Verificando diferencias en reconteo sector: " + conteoSector.getId());
-        System.out.println("🔍 [RECONTEO] Estado actual del sector: " + conteoSector.getEstado());
-        System.out.println("🔍 [RECONTEO] Observaciones del sector: " + conteoSector.getObservaciones());
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 [RECONTEO] Verificando diferencias en reconteo sector: {}", conteoSector.getId());
+        logger.debug("🔍 [RECONTEO] Estado actual del sector: {}", conteoSector.getEstado());
+        logger.debug("🔍 [RECONTEO] Observaciones del sector: {}", conteoSector.getObservaciones());
         
         List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("🔍 [RECONTEO] Total detalles encontrados para verificación: " + detalles.size());
+        logger.debug("🔍 [RECONTEO] Total detalles encontrados para verificación: {}", detalles.size());
         
         // Consolidar reconteos por producto
         Map<Long, Integer> reconteosUsuario1 = new HashMap<>();
@@ -3876,27 +4152,27 @@ public class InventarioCompletoService {
             if (detalle.getFechaActualizacion() != null && 
                 detalle.getFechaActualizacion().isAfter(fechaInicioReconteo)) {
                 fechaInicioReconteo = detalle.getFechaActualizacion().minusMinutes(1); // Un minuto antes
-                System.out.println("🔍 [RECONTEO] Nueva fecha de inicio del reconteo: " + fechaInicioReconteo);
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 [RECONTEO] Nueva fecha de inicio del reconteo: {}", fechaInicioReconteo);
+                }
                 break;
             }
         }
         
         // Debug: Mostrar todas las fechas de actualización
-        System.out.println("🔍 [RECONTEO] Fechas de actualización de todos los detalles:");
+        logger.debug("🔍 [RECONTEO] Fechas de actualización de todos los detalles:");
         for (DetalleConteo detalle : detalles) {
-            System.out.println("  - Detalle ID: " + detalle.getId() + 
-                             ", Fecha creación: " + detalle.getFechaCreacion() + 
-                             ", Fecha actualización: " + detalle.getFechaActualizacion() +
-                             ", Usuario1: " + detalle.getCantidadConteo1() + 
-                             ", Usuario2: " + detalle.getCantidadConteo2());
+            if (muestreo.tomar()) {
+                logger.debug("  - Detalle ID: {}, Fecha creación: {}, Fecha actualización: {}, Usuario1: {}, Usuario2: {}", detalle.getId(), detalle.getFechaCreacion(), detalle.getFechaActualizacion(), detalle.getCantidadConteo1(), detalle.getCantidadConteo2());
+            }
         }
         
-        System.out.println("🔍 [RECONTEO] Fecha de inicio del reconteo: " + fechaInicioReconteo);
+        logger.debug("🔍 [RECONTEO] Fecha de inicio del reconteo: {}", fechaInicioReconteo);
         
         for (DetalleConteo detalle : detalles) {
             // Verificar que el producto no sea nulo
             if (detalle.getProducto() == null) {
-                System.err.println("⚠️ [RECONTEO] DetalleConteo con ID " + detalle.getId() + " tiene producto nulo, saltando...");
+                logger.warn("⚠️ [RECONTEO] DetalleConteo con ID {} tiene producto nulo, saltando...", detalle.getId());
                 continue;
             }
             
@@ -3908,24 +4184,24 @@ public class InventarioCompletoService {
             boolean esValorReconteo = detalle.getFechaActualizacion() != null && 
                                     detalle.getFechaActualizacion().isAfter(fechaInicioReconteo);
             
-            System.out.println("🔍 [RECONTEO] Procesando detalle ID: " + detalle.getId() + 
-                             ", Producto: " + nombreProducto + 
-                             ", Fecha actualización: " + detalle.getFechaActualizacion() + 
-                             ", Es reconteo: " + esValorReconteo + 
-                             ", Usuario1: " + detalle.getCantidadConteo1() + 
-                             ", Usuario2: " + detalle.getCantidadConteo2() + 
-                             ", Eliminado: " + detalle.getEliminado());
+            if (muestreo.tomar()) {
+                logger.debug("🔍 [RECONTEO] Procesando detalle ID: {}, Producto: {}, Fecha actualización: {}, Es reconteo: {}, Usuario1: {}, Usuario2: {}, Eliminado: {}", detalle.getId(), nombreProducto, detalle.getFechaActualizacion(), esValorReconteo, detalle.getCantidadConteo1(), detalle.getCantidadConteo2(), detalle.getEliminado());
+            }
             
             // Solo usar valores del reconteo (más recientes que la fecha de inicio)
             if (esValorReconteo) {
             if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
                 reconteosUsuario1.put(productoId, detalle.getCantidadConteo1());
-                System.out.println("🔍 [RECONTEO] Producto " + nombreProducto + " - Usuario 1 reconteo: " + detalle.getCantidadConteo1());
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 [RECONTEO] Producto {} - Usuario 1 reconteo: {}", nombreProducto, detalle.getCantidadConteo1());
+                }
             }
             
             if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
                 reconteosUsuario2.put(productoId, detalle.getCantidadConteo2());
-                System.out.println("🔍 [RECONTEO] Producto " + nombreProducto + " - Usuario 2 reconteo: " + detalle.getCantidadConteo2());
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 [RECONTEO] Producto {} - Usuario 2 reconteo: {}", nombreProducto, detalle.getCantidadConteo2());
+                }
                 }
             }
         }
@@ -3940,33 +4216,41 @@ public class InventarioCompletoService {
             Integer reconteo1 = reconteosUsuario1.getOrDefault(productoId, 0);
             Integer reconteo2 = reconteosUsuario2.getOrDefault(productoId, 0);
             
-            System.out.println("🔍 [RECONTEO] Comparando producto " + nombreProducto + ": Usuario 1=" + reconteo1 + ", Usuario 2=" + reconteo2);
+            if (muestreo.tomar()) {
+                logger.debug("🔍 [RECONTEO] Comparando producto {}: Usuario 1={}, Usuario 2={}", nombreProducto, reconteo1, reconteo2);
+            }
             
             // Si ambos usuarios recontaron el producto, comparar reconteos
             if (reconteo1 > 0 && reconteo2 > 0) {
-                System.out.println("🔍 [RECONTEO] Ambos usuarios recontaron " + nombreProducto + 
-                                 " - Usuario 1: " + reconteo1 + ", Usuario 2: " + reconteo2);
-                System.out.println("🔍 [RECONTEO] ¿Son iguales? " + reconteo1.equals(reconteo2));
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 [RECONTEO] Ambos usuarios recontaron {} - Usuario 1: {}, Usuario 2: {}", nombreProducto, reconteo1, reconteo2);
+                }
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 [RECONTEO] ¿Son iguales? {}", reconteo1.equals(reconteo2));
+                }
                 
                 if (!reconteo1.equals(reconteo2)) {
-                    System.out.println("⚠️ [RECONTEO] Diferencia encontrada en reconteo - producto: " + nombreProducto + 
-                                     " - Usuario 1: " + reconteo1 + ", Usuario 2: " + reconteo2);
+                    if (muestreo.tomar()) {
+                        logger.debug("⚠️ [RECONTEO] Diferencia encontrada en reconteo - producto: {} - Usuario 1: {}, Usuario 2: {}", nombreProducto, reconteo1, reconteo2);
+                    }
                     return true;
                 } else {
-                    System.out.println("✅ [RECONTEO] Sin diferencias en reconteo - producto: " + nombreProducto + 
-                                     " - Usuario 1: " + reconteo1 + ", Usuario 2: " + reconteo2);
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ [RECONTEO] Sin diferencias en reconteo - producto: {} - Usuario 1: {}, Usuario 2: {}", nombreProducto, reconteo1, reconteo2);
+                    }
                 }
             }
             
             // Si solo uno de los usuarios recontó el producto, también es una diferencia
             if ((reconteo1 > 0 && reconteo2 == 0) || (reconteo2 > 0 && reconteo1 == 0)) {
-                System.out.println("⚠️ [RECONTEO] Diferencia encontrada: solo un usuario recontó " + nombreProducto + 
-                                 " (Usuario 1: " + reconteo1 + ", Usuario 2: " + reconteo2 + ")");
+                if (muestreo.tomar()) {
+                    logger.debug("⚠️ [RECONTEO] Diferencia encontrada: solo un usuario recontó {} (Usuario 1: {}, Usuario 2: {})", nombreProducto, reconteo1, reconteo2);
+                }
                 return true;
             }
         }
         
-        System.out.println("✅ [RECONTEO] No se encontraron diferencias entre los reconteos");
+        logger.debug("✅ [RECONTEO] No se encontraron diferencias entre los reconteos");
         return false;
     }
 
@@ -3974,7 +4258,7 @@ public class InventarioCompletoService {
      * Resetear estado de conteo (método de debug)
      */
     public ConteoSector resetearEstadoConteo(Long conteoSectorId) {
-        System.out.println("🔧 DEBUG: Reseteando estado del conteo: " + conteoSectorId);
+        logger.debug("🔧 DEBUG: Reseteando estado del conteo: {}", conteoSectorId);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
@@ -3989,12 +4273,12 @@ public class InventarioCompletoService {
      * Actualizar reconteo existente
      */
     public DetalleConteo actualizarReconteo(Long conteoSectorId, Long productoId, Integer cantidad, String formulaCalculo, Long usuarioId) {
-        System.out.println("🔄 ACTUALIZAR RECONTEO: Actualizando reconteo - sector: " + conteoSectorId + ", producto: " + productoId + ", cantidad: " + cantidad);
+        logger.debug("🔄 ACTUALIZAR RECONTEO: Actualizando reconteo - sector: {}, producto: {}, cantidad: {}", conteoSectorId, productoId, cantidad);
         
         ConteoSector conteoSector = conteoSectorRepository.findById(conteoSectorId)
             .orElseThrow(() -> new RuntimeException("Conteo de sector no encontrado"));
         
-        System.out.println("🔍 ACTUALIZAR RECONTEO DEBUG: ConteoSector encontrado - ID: " + conteoSector.getId());
+        logger.debug("🔍 ACTUALIZAR RECONTEO DEBUG: ConteoSector encontrado - ID: {}", conteoSector.getId());
         
         if (!conteoSector.getUsuarioAsignado1().getId().equals(usuarioId) && 
             !conteoSector.getUsuarioAsignado2().getId().equals(usuarioId)) {
@@ -4030,16 +4314,16 @@ public class InventarioCompletoService {
             throw new RuntimeException("No se encontró el detalle de reconteo para actualizar");
         }
         
-        System.out.println("🔍 ACTUALIZAR RECONTEO DEBUG: Detalle encontrado - ID: " + detalleExistente.getId());
+        logger.debug("🔍 ACTUALIZAR RECONTEO DEBUG: Detalle encontrado - ID: {}", detalleExistente.getId());
         
         // Actualizar el detalle según el usuario
         if (usuarioId.equals(conteoSector.getUsuarioAsignado1().getId())) {
-            System.out.println("🔄 ACTUALIZAR RECONTEO DEBUG: Usuario 1 - Actualizando cantidad de " + detalleExistente.getCantidadConteo1() + " a " + cantidad);
+            logger.debug("🔄 ACTUALIZAR RECONTEO DEBUG: Usuario 1 - Actualizando cantidad de {} a {}", detalleExistente.getCantidadConteo1(), cantidad);
             detalleExistente.setCantidadConteo1(cantidad);
             detalleExistente.setFormulaCalculo1(formulaCalculo);
             detalleExistente.setEstado(DetalleConteo.EstadoDetalle.CONTADO_1);
         } else {
-            System.out.println("🔄 ACTUALIZAR RECONTEO DEBUG: Usuario 2 - Actualizando cantidad de " + detalleExistente.getCantidadConteo2() + " a " + cantidad);
+            logger.debug("🔄 ACTUALIZAR RECONTEO DEBUG: Usuario 2 - Actualizando cantidad de {} a {}", detalleExistente.getCantidadConteo2(), cantidad);
             detalleExistente.setCantidadConteo2(cantidad);
             detalleExistente.setFormulaCalculo2(formulaCalculo);
             detalleExistente.setEstado(DetalleConteo.EstadoDetalle.CONTADO_2);
@@ -4050,11 +4334,13 @@ public class InventarioCompletoService {
         
         DetalleConteo resultado = detalleConteoRepository.save(detalleExistente);
         
-        System.out.println("✅ ACTUALIZAR RECONTEO DEBUG: Reconteo actualizado exitosamente - ID: " + resultado.getId());
+        logger.debug("✅ ACTUALIZAR RECONTEO DEBUG: Reconteo actualizado exitosamente - ID: {}", resultado.getId());
         
         // Recalcular progreso del sector
+        progresoConteoService.actualizarProducto(conteoSector, productoId);
         calcularProgresoReal(conteoSector);
         conteoSectorRepository.save(conteoSector);
+        eventosInventarioService.publicarDetalle(resultado, EventosInventarioService.CANTIDAD_ACTUALIZADA, usuarioId);
         
         return resultado;
     }
@@ -4064,13 +4350,19 @@ public class InventarioCompletoService {
      */
     @Transactional
     public ConteoSector finalizarReconteoSector(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 [LEGACY] Delegando finalizarReconteoSector al servicio simple...");
+        ConteoSector conteoSector = metricasOperacionesService.medir("inventario.reconteo.finalizar", null, () -> cerrarReconteoSector(conteoSectorId, usuarioId));
+        eventosInventarioService.publicarEstado(conteoSector, EventosInventarioService.RECONTEO_FINALIZADO);
+        return conteoSector;
+    }
+
+    private ConteoSector cerrarReconteoSector(Long conteoSectorId, Long usuarioId) {
+        logger.debug("🔍 [LEGACY] Delegando finalizarReconteoSector al servicio simple...");
         
         // ✅ NUEVA LÓGICA SIMPLE: Delegar al servicio simple
         ConteoSector conteoSectorGuardado = inventarioCompletoServiceSimple.finalizarReconteoSector(conteoSectorId, usuarioId);
         
         // ✅ RECALCULAR PROGRESO DEL SECTOR después de cambiar el estado
-        System.out.println("🔄 Recalculando progreso del sector después de finalizar reconteo...");
+        logger.debug("🔄 Recalculando progreso del sector después de finalizar reconteo...");
         calcularProgresoReal(conteoSectorGuardado);
         conteoSectorGuardado = conteoSectorRepository.save(conteoSectorGuardado);
         
@@ -4081,9 +4373,9 @@ public class InventarioCompletoService {
         
         // ✅ CORRECCIÓN: NO llamar automáticamente a verificarYFinalizarInventarioCompleto
         // El inventario debe mantenerse EN_PROGRESO hasta que se haga la consolidación manual
-        System.out.println("✅ [LEGACY] Sector completado - Inventario mantenido en EN_PROGRESO para consolidación manual");
+        logger.debug("✅ [LEGACY] Sector completado - Inventario mantenido en EN_PROGRESO para consolidación manual");
         
-        System.out.println("✅ [LEGACY] Estado final del sector (reconteo): " + conteoSectorGuardado.getEstado());
+        logger.debug("✅ [LEGACY] Estado final del sector (reconteo): {}", conteoSectorGuardado.getEstado());
         return conteoSectorGuardado;
     }
 
@@ -4092,13 +4384,14 @@ public class InventarioCompletoService {
      * cuando no se puede parsear desde las observaciones
      */
     private LocalDateTime determinarFechaInicioReconteoAlternativa(ConteoSector conteoSector) {
-        System.out.println("🔍 Buscando fecha de inicio de reconteo de manera alternativa...");
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 Buscando fecha de inicio de reconteo de manera alternativa...");
         
         // Obtener todos los detalles del sector ordenados por fecha
         List<DetalleConteo> todosLosDetalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
         
         if (todosLosDetalles.isEmpty()) {
-            System.out.println("⚠️ No hay detalles para determinar fecha de reconteo");
+            logger.debug("⚠️ No hay detalles para determinar fecha de reconteo");
             return null;
         }
         
@@ -4129,7 +4422,9 @@ public class InventarioCompletoService {
                 
                 if (minutosDiferencia > 30) { // Salto significativo de tiempo
                     fechaInicioReconteo = actual.getFechaActualizacion();
-                    System.out.println("✅ Fecha de reconteo determinada por salto temporal: " + fechaInicioReconteo);
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ Fecha de reconteo determinada por salto temporal: {}", fechaInicioReconteo);
+                    }
                     break;
                 }
             }
@@ -4138,7 +4433,7 @@ public class InventarioCompletoService {
         if (fechaInicioReconteo == null) {
             // Si no encontramos un salto temporal, usar la fecha del primer detalle más reciente
             fechaInicioReconteo = todosLosDetalles.get(todosLosDetalles.size() - 1).getFechaActualizacion();
-            System.out.println("✅ Fecha de reconteo determinada por último detalle: " + fechaInicioReconteo);
+            logger.debug("✅ Fecha de reconteo determinada por último detalle: {}", fechaInicioReconteo);
         }
         
         return fechaInicioReconteo;
@@ -4149,7 +4444,8 @@ public class InventarioCompletoService {
      * CORREGIDO: Manejo más robusto de fechas y consolidación
      */
     private void reemplazarConteosInicialesConReconteos(ConteoSector conteoSector) {
-        System.out.println("🔄 RECONTEO: Iniciando reemplazo de conteos iniciales con reconteos...");
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔄 RECONTEO: Iniciando reemplazo de conteos iniciales con reconteos...");
         
         // Obtener fecha de inicio del reconteo actual con manejo mejorado
         LocalDateTime fechaInicioReconteo = null;
@@ -4157,16 +4453,16 @@ public class InventarioCompletoService {
             try {
                 String fechaStr = conteoSector.getObservaciones().split("_")[1];
                 fechaInicioReconteo = LocalDateTime.parse(fechaStr);
-                System.out.println("✅ Fecha de reconteo parseada correctamente: " + fechaInicioReconteo);
+                logger.debug("✅ Fecha de reconteo parseada correctamente: {}", fechaInicioReconteo);
             } catch (Exception e) {
-                System.out.println("⚠️ No se pudo parsear fecha de reconteo: " + conteoSector.getObservaciones());
+                logger.debug("⚠️ No se pudo parsear fecha de reconteo: {}", conteoSector.getObservaciones());
                 // CORRECCIÓN: En lugar de retornar, intentar determinar la fecha de otra manera
                 fechaInicioReconteo = determinarFechaInicioReconteoAlternativa(conteoSector);
             }
         }
         
         if (fechaInicioReconteo == null) {
-            System.out.println("⚠️ No se pudo determinar fecha de inicio del reconteo, usando fecha actual");
+            logger.debug("⚠️ No se pudo determinar fecha de inicio del reconteo, usando fecha actual");
             fechaInicioReconteo = LocalDateTime.now().minusHours(1); // Usar 1 hora atrás como fallback
         }
         
@@ -4199,7 +4495,9 @@ public class InventarioCompletoService {
             
             // Si hay reconteos, reemplazar los conteos iniciales
             if (!reconteos.isEmpty()) {
-                System.out.println("🔄 RECONTEO: Reemplazando conteos del producto ID: " + productoId);
+                if (muestreo.tomar()) {
+                    logger.debug("🔄 RECONTEO: Reemplazando conteos del producto ID: {}", productoId);
+                }
                 
                 // Encontrar el detalle base (primer detalle del producto)
                 DetalleConteo detalleBase = detallesDelProducto.get(0);
@@ -4235,22 +4533,26 @@ public class InventarioCompletoService {
                 if (reconteoMasRecienteUsuario1 != null) {
                     detalleBase.setCantidadConteo1(reconteoMasRecienteUsuario1.getCantidadConteo1());
                     detalleBase.setFormulaCalculo1(reconteoMasRecienteUsuario1.getFormulaCalculo1());
-                    System.out.println("  - Usuario1: " + reconteoMasRecienteUsuario1.getCantidadConteo1() + 
-                                     " (" + reconteoMasRecienteUsuario1.getFormulaCalculo1() + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Usuario1: {} ({})", reconteoMasRecienteUsuario1.getCantidadConteo1(), reconteoMasRecienteUsuario1.getFormulaCalculo1());
+                    }
                 }
                 
                 if (reconteoMasRecienteUsuario2 != null) {
                     detalleBase.setCantidadConteo2(reconteoMasRecienteUsuario2.getCantidadConteo2());
                     detalleBase.setFormulaCalculo2(reconteoMasRecienteUsuario2.getFormulaCalculo2());
-                    System.out.println("  - Usuario2: " + reconteoMasRecienteUsuario2.getCantidadConteo2() + 
-                                     " (" + reconteoMasRecienteUsuario2.getFormulaCalculo2() + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Usuario2: {} ({})", reconteoMasRecienteUsuario2.getCantidadConteo2(), reconteoMasRecienteUsuario2.getFormulaCalculo2());
+                    }
                 }
                 
                 // Eliminar los conteos iniciales (mantener solo el detalle base con los reconteos)
                 for (DetalleConteo conteoInicial : conteosIniciales) {
                     if (!conteoInicial.getId().equals(detalleBase.getId())) {
                         detalleConteoRepository.delete(conteoInicial);
-                        System.out.println("  - Eliminado conteo inicial ID: " + conteoInicial.getId());
+                        if (muestreo.tomar()) {
+                            logger.debug("  - Eliminado conteo inicial ID: {}", conteoInicial.getId());
+                        }
                     }
                 }
                 
@@ -4260,162 +4562,44 @@ public class InventarioCompletoService {
                         !reconteo.getId().equals(reconteoMasRecienteUsuario1 != null ? reconteoMasRecienteUsuario1.getId() : null) &&
                         !reconteo.getId().equals(reconteoMasRecienteUsuario2 != null ? reconteoMasRecienteUsuario2.getId() : null)) {
                         detalleConteoRepository.delete(reconteo);
-                        System.out.println("  - Eliminado reconteo duplicado ID: " + reconteo.getId());
+                        if (muestreo.tomar()) {
+                            logger.debug("  - Eliminado reconteo duplicado ID: {}", reconteo.getId());
+                        }
                     }
                 }
                 
                 // Guardar el detalle base actualizado
                 detalleConteoRepository.save(detalleBase);
-                System.out.println("  - Guardado detalle base ID: " + detalleBase.getId() + " con reconteos consolidados");
+                if (muestreo.tomar()) {
+                    logger.debug("  - Guardado detalle base ID: {} con reconteos consolidados", detalleBase.getId());
+                }
             }
         }
         
-        System.out.println("✅ RECONTEO: Reemplazo completado - conteos iniciales reemplazados con reconteos");
+        logger.debug("✅ RECONTEO: Reemplazo completado - conteos iniciales reemplazados con reconteos");
     }
 
     /**
-     * Calcular el progreso real de un conteo de sector
+     * Calcular el progreso real de un conteo de sector.
+     * Los contadores los mantiene ProgresoConteoService en cada cambio de DetalleConteo; acá se
+     * leen (se arman si el conteo todavía no los tiene o pasó a reconteo) y se decide si el
+     * reconteo quedó completo.
      */
     public void calcularProgresoReal(ConteoSector conteoSector) {
-        System.out.println("📊 Calculando progreso real para sector: " + conteoSector.getId());
-        System.out.println("📊 STACK TRACE - Llamada desde: " + Thread.currentThread().getStackTrace()[2].getMethodName());
-        
-        // Obtener todos los detalles de conteo para este sector
-        List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
-        System.out.println("📊 DEBUG - Detalles encontrados (SIN eliminados): " + detalles.size());
-        
-        // Contar productos únicos que aparecen en DetalleConteo (estos son los productos que se están contando)
-        Set<Long> productosUnicos = new HashSet<>();
-        Set<Long> productosContados = new HashSet<>();
-        int productosConDiferencias = 0;
-        
-        // Agrupar por producto para calcular totales consolidados
-        Map<Long, List<DetalleConteo>> detallesPorProducto = new HashMap<>();
-        for (DetalleConteo detalle : detalles) {
-            Long productoId = detalle.getProducto().getId();
-            productosUnicos.add(productoId);
-            detallesPorProducto.computeIfAbsent(productoId, k -> new ArrayList<>()).add(detalle);
-        }
+        progresoConteoService.sincronizar(conteoSector);
         
         // ✅ NUEVA LÓGICA: Detectar si estamos en reconteo
-        boolean estaEnReconteo = conteoSector.getObservaciones() != null && 
-                                conteoSector.getObservaciones().startsWith("Reconteo");
+        boolean estaEnReconteo = ProgresoConteoService.enReconteo(conteoSector);
         
-        System.out.println("🔍 [PROGRESO] ¿Está en reconteo? " + estaEnReconteo);
+        logger.debug("🔍 [PROGRESO] ¿Está en reconteo? {}", estaEnReconteo);
         if (estaEnReconteo) {
-            System.out.println("🔍 [PROGRESO] Observaciones del sector: " + conteoSector.getObservaciones());
+            logger.debug("🔍 [PROGRESO] Observaciones del sector: {}", conteoSector.getObservaciones());
         }
         
-        // Calcular totales consolidados y detectar diferencias por producto
-        for (Map.Entry<Long, List<DetalleConteo>> entry : detallesPorProducto.entrySet()) {
-            Long productoId = entry.getKey();
-            List<DetalleConteo> detallesDelProducto = entry.getValue();
-            
-            // Sumar todas las cantidades de cada usuario para este producto
-            int totalUsuario1 = 0;
-            int totalUsuario2 = 0;
-            boolean usuario1Conto = false;
-            boolean usuario2Conto = false;
-            
-            if (estaEnReconteo) {
-                // ✅ EN RECONTEO: Solo usar los valores de reconteo (no del conteo inicial)
-                // Filtrar solo los detalles de reconteo (excluir los del conteo inicial)
-                List<DetalleConteo> detallesReconteo = new ArrayList<>();
-                for (DetalleConteo detalle : detallesDelProducto) {
-                    // Un detalle es de reconteo si:
-                    // 1. Tiene valores de ambos usuarios Y
-                    // 2. Ambos valores son mayores que 0 (no son del conteo inicial)
-                    boolean tieneValoresAmbosUsuarios = detalle.getCantidadConteo1() != null && detalle.getCantidadConteo2() != null;
-                    boolean ambosValoresPositivos = (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) && 
-                                                   (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0);
-                    
-                    if (tieneValoresAmbosUsuarios && ambosValoresPositivos) {
-                        detallesReconteo.add(detalle);
-                        System.out.println("🔍 [PROGRESO] Detalle de reconteo encontrado - ID: " + detalle.getId() + 
-                                         ", Usuario1: " + detalle.getCantidadConteo1() + 
-                                         ", Usuario2: " + detalle.getCantidadConteo2());
-                    } else {
-                        System.out.println("🔍 [PROGRESO] Detalle de conteo inicial ignorado - ID: " + detalle.getId() + 
-                                         ", Usuario1: " + detalle.getCantidadConteo1() + 
-                                         ", Usuario2: " + detalle.getCantidadConteo2());
-                    }
-                }
-                
-                System.out.println("🔍 [PROGRESO] Producto " + productoId + " - Detalles de reconteo encontrados: " + detallesReconteo.size());
-                
-                if (!detallesReconteo.isEmpty()) {
-                    // Ordenar por fecha de actualización descendente para obtener el más reciente
-                    detallesReconteo.sort((d1, d2) -> {
-                        if (d1.getFechaActualizacion() == null && d2.getFechaActualizacion() == null) return 0;
-                        if (d1.getFechaActualizacion() == null) return 1;
-                        if (d2.getFechaActualizacion() == null) return -1;
-                        return d2.getFechaActualizacion().compareTo(d1.getFechaActualizacion());
-                    });
-                    
-                    // Tomar solo el primer detalle de reconteo (el más reciente)
-                    DetalleConteo detalleReconteo = detallesReconteo.get(0);
-                    System.out.println("🔍 [PROGRESO] Producto " + productoId + " - Usando detalle de reconteo ID: " + detalleReconteo.getId() + 
-                                     ", Fecha: " + detalleReconteo.getFechaActualizacion() + 
-                                     ", Usuario1: " + detalleReconteo.getCantidadConteo1() + 
-                                     ", Usuario2: " + detalleReconteo.getCantidadConteo2());
-                    
-                    // ✅ CORRECCIÓN: Solo usar valores si ambos usuarios tienen valores válidos en el mismo detalle
-                    if (detalleReconteo.getCantidadConteo1() != null && detalleReconteo.getCantidadConteo1() > 0 &&
-                        detalleReconteo.getCantidadConteo2() != null && detalleReconteo.getCantidadConteo2() > 0) {
-                        
-                        totalUsuario1 = detalleReconteo.getCantidadConteo1();
-                        totalUsuario2 = detalleReconteo.getCantidadConteo2();
-                        usuario1Conto = true;
-                        usuario2Conto = true;
-                        
-                        System.out.println("✅ [PROGRESO] Valores de reconteo válidos - Usuario1: " + totalUsuario1 + ", Usuario2: " + totalUsuario2);
-                    } else {
-                        System.out.println("⚠️ [PROGRESO] Detalle de reconteo no tiene valores válidos de ambos usuarios");
-                    }
-                } else {
-                    System.out.println("⚠️ [PROGRESO] Producto " + productoId + " - No se encontraron detalles de reconteo");
-                }
-            } else {
-                // ✅ CONTEO NORMAL: Sumar todas las cantidades
-            for (DetalleConteo detalle : detallesDelProducto) {
-                if (detalle.getCantidadConteo1() != null && detalle.getCantidadConteo1() > 0) {
-                    totalUsuario1 += detalle.getCantidadConteo1();
-                    usuario1Conto = true;
-                }
-                if (detalle.getCantidadConteo2() != null && detalle.getCantidadConteo2() > 0) {
-                    totalUsuario2 += detalle.getCantidadConteo2();
-                    usuario2Conto = true;
-                    }
-                }
-            }
-            
-            if (usuario1Conto || usuario2Conto) {
-                productosContados.add(productoId);
-                
-                // Verificar si hay diferencias entre usuarios usando totales consolidados
-                if (usuario1Conto && usuario2Conto) {
-                    if (totalUsuario1 != totalUsuario2) {
-                        productosConDiferencias++;
-                        System.out.println("🔍 DIFERENCIA detectada en producto " + productoId + 
-                                         ": Usuario1=" + totalUsuario1 + ", Usuario2=" + totalUsuario2);
-                    }
-                }
-            }
-        }
-        
-        int totalProductos = productosUnicos.size(); // Total basado en productos únicos en DetalleConteo
-        
-        // Calcular porcentaje
-        double porcentaje = 0.0;
-        if (totalProductos > 0) {
-            porcentaje = (productosContados.size() * 100.0) / totalProductos;
-        }
-        
-        // Actualizar los valores
-        conteoSector.setTotalProductos(totalProductos);
-        conteoSector.setProductosContados(productosContados.size());
-        conteoSector.setProductosConDiferencias(productosConDiferencias);
-        conteoSector.setPorcentajeCompletado(porcentaje);
+        int totalProductos = conteoSector.getTotalProductos();
+        int productosContados = conteoSector.getProductosContados();
+        int productosConDiferencias = conteoSector.getProductosConDiferencias();
+        double porcentaje = conteoSector.getPorcentajeCompletado();
         
         // ✅ NUEVA LÓGICA: Verificar si ya no hay diferencias y completar automáticamente
         // ⚠️ IMPORTANTE: Solo ejecutar si NO estamos en medio de un reconteo
@@ -4431,14 +4615,14 @@ public class InventarioCompletoService {
         // cuando ambos usuarios ya recontaron (cuando el segundo termina)
         if (estaEnReconteo && 
             productosConDiferencias == 0 && 
-            productosContados.size() == totalProductos &&
+            productosContados == totalProductos &&
             !estadoEsperandoVerificacion) {
             
             // 🔍 VERIFICACIÓN CORREGIDA: Usar el método correcto para verificar diferencias en cantidades
             boolean hayDiferenciasEnCantidades = verificarDiferenciasEnConteo(conteoSector);
             
             if (!hayDiferenciasEnCantidades) {
-                System.out.println("🎉 ¡Reconteo completado sin diferencias! Completando automáticamente el sector: " + conteoSector.getId());
+                logger.info("🎉 Reconteo completado sin diferencias, sector {} completado automáticamente", conteoSector.getId());
                 
                 // Cambiar estado a COMPLETADO
                 conteoSector.setEstado(ConteoSector.EstadoConteo.COMPLETADO);
@@ -4450,34 +4634,29 @@ public class InventarioCompletoService {
                     conteoSector.setObservaciones("Reconteo completado automáticamente - Sin diferencias");
                 }
                 
-                System.out.println("✅ Sector completado automáticamente - Estado: " + conteoSector.getEstado());
                 
                 // ✅ GUARDAR EL CAMBIO EN LA BASE DE DATOS
                 conteoSectorRepository.save(conteoSector);
-                System.out.println("✅ Cambio guardado en la base de datos");
+                logger.debug("✅ Cambio guardado en la base de datos");
                 
                 // ✅ ACTUALIZAR PROGRESO DEL INVENTARIO COMPLETO
-                System.out.println("🔄 Actualizando progreso del inventario completo después de completar sector automáticamente...");
+                logger.debug("🔄 Actualizando progreso del inventario completo después de completar sector automáticamente...");
                 try {
                     verificarYFinalizarInventarioCompleto(conteoSector.getInventarioCompleto().getId());
                 } catch (Exception e) {
-                    System.err.println("⚠️ Error actualizando progreso del inventario: " + e.getMessage());
+                    logger.warn("⚠️ Error actualizando progreso del inventario: {}", e.getMessage());
                     // No lanzar la excepción para no interrumpir el flujo principal
                 }
             } else {
-                System.out.println("⚠️ Hay diferencias en el reconteo, manteniendo estado CON_DIFERENCIAS");
+                logger.debug("⚠️ Hay diferencias en el reconteo, manteniendo estado CON_DIFERENCIAS");
             }
         } else if (estaEnReconteo) {
-            System.out.println("⚠️ Sector en reconteo - Verificando si se puede completar automáticamente...");
+            logger.debug("⚠️ Sector en reconteo - Verificando si se puede completar automáticamente...");
         } else if (estadoEsperandoVerificacion) {
-            System.out.println("⚠️ Estado esperando verificación (" + conteoSector.getEstado() + "), NO modificando estado automáticamente");
+            logger.debug("⚠️ Estado esperando verificación ({}), NO modificando estado automáticamente", conteoSector.getEstado());
         }
         
-        System.out.println("📊 Progreso calculado - Total productos únicos: " + totalProductos + 
-                         ", Contados: " + productosContados.size() + 
-                         ", Con diferencias: " + productosConDiferencias + 
-                         ", Porcentaje: " + String.format("%.1f", porcentaje) + "%" +
-                         ", Estado: " + conteoSector.getEstado());
+        logger.debug("📊 Progreso calculado - Total productos únicos: {}, Contados: {}, Con diferencias: {}, Porcentaje: {}%, Estado: {}", totalProductos, productosContados, productosConDiferencias, porcentaje, conteoSector.getEstado());
     }
 
     /**
@@ -4485,9 +4664,9 @@ public class InventarioCompletoService {
      */
     @Transactional(readOnly = true)
     public ConteoSector.EstadoConteo determinarEstadoUsuario(ConteoSector conteoSector, Long usuarioId) {
-        System.out.println("🔍 Determinando estado para usuario: " + usuarioId + " en sector: " + conteoSector.getId());
-        System.out.println("🔍 Estado general del sector: " + conteoSector.getEstado());
-        System.out.println("🔍 Observaciones del sector: " + conteoSector.getObservaciones());
+        logger.debug("🔍 Determinando estado para usuario: {} en sector: {}", usuarioId, conteoSector.getId());
+        logger.debug("🔍 Estado general del sector: {}", conteoSector.getEstado());
+        logger.debug("🔍 Observaciones del sector: {}", conteoSector.getObservaciones());
         
         // Si el conteo está en estados finales, retornar el estado general
         if (conteoSector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO) {
@@ -4499,7 +4678,7 @@ public class InventarioCompletoService {
             String observaciones = conteoSector.getObservaciones();
             boolean esReconteo = observaciones != null && observaciones.startsWith("Reconteo_");
             
-            System.out.println("🔍 Estado CON_DIFERENCIAS - esReconteo: " + esReconteo);
+            logger.debug("🔍 Estado CON_DIFERENCIAS - esReconteo: {}", esReconteo);
             
             if (esReconteo) {
                 // En reconteo, determinar qué usuario debe hacer reconteo
@@ -4508,9 +4687,9 @@ public class InventarioCompletoService {
             boolean esUsuario2 = conteoSector.getUsuarioAsignado2() != null && 
                                 conteoSector.getUsuarioAsignado2().getId().equals(usuarioId);
             
-                System.out.println("🔍 Usuario " + usuarioId + " - esUsuario1: " + esUsuario1 + ", esUsuario2: " + esUsuario2);
-                System.out.println("🔍 UsuarioAsignado1 ID: " + (conteoSector.getUsuarioAsignado1() != null ? conteoSector.getUsuarioAsignado1().getId() : "null"));
-                System.out.println("🔍 UsuarioAsignado2 ID: " + (conteoSector.getUsuarioAsignado2() != null ? conteoSector.getUsuarioAsignado2().getId() : "null"));
+                logger.debug("🔍 Usuario {} - esUsuario1: {}, esUsuario2: {}", usuarioId, esUsuario1, esUsuario2);
+                logger.debug("🔍 UsuarioAsignado1 ID: {}", (conteoSector.getUsuarioAsignado1() != null ? conteoSector.getUsuarioAsignado1().getId() : "null"));
+                logger.debug("🔍 UsuarioAsignado2 ID: {}", (conteoSector.getUsuarioAsignado2() != null ? conteoSector.getUsuarioAsignado2().getId() : "null"));
             
                 if (esUsuario1 || esUsuario2) {
                     // Verificar si este usuario ya finalizó el reconteo
@@ -4522,10 +4701,10 @@ public class InventarioCompletoService {
             }
             
             if (esElUsuarioQueFinalizo) {
-                        System.out.println("⏳ Usuario " + usuarioId + " ya finalizó reconteo, esperando verificación");
+                        logger.debug("⏳ Usuario {} ya finalizó reconteo, esperando verificación", usuarioId);
                         return ConteoSector.EstadoConteo.ESPERANDO_VERIFICACION;
             } else {
-                        System.out.println("🔄 Usuario " + usuarioId + " debe hacer reconteo, estado: CON_DIFERENCIAS");
+                        logger.debug("🔄 Usuario {} debe hacer reconteo, estado: CON_DIFERENCIAS", usuarioId);
                 return ConteoSector.EstadoConteo.CON_DIFERENCIAS;
                     }
                 }
@@ -4537,16 +4716,16 @@ public class InventarioCompletoService {
         
         // Si está esperando verificación, determinar el estado específico del usuario
         if (conteoSector.getEstado() == ConteoSector.EstadoConteo.ESPERANDO_VERIFICACION) {
-            System.out.println("🔍 Estado ESPERANDO_VERIFICACION detectado");
+            logger.debug("🔍 Estado ESPERANDO_VERIFICACION detectado");
             boolean esUsuario1 = conteoSector.getUsuarioAsignado1() != null && 
                                 conteoSector.getUsuarioAsignado1().getId().equals(usuarioId);
             boolean esUsuario2 = conteoSector.getUsuarioAsignado2() != null && 
                                 conteoSector.getUsuarioAsignado2().getId().equals(usuarioId);
             
-            System.out.println("🔍 Usuario " + usuarioId + " - esUsuario1: " + esUsuario1 + ", esUsuario2: " + esUsuario2);
-            System.out.println("🔍 UsuarioAsignado1 ID: " + (conteoSector.getUsuarioAsignado1() != null ? conteoSector.getUsuarioAsignado1().getId() : "null"));
-            System.out.println("🔍 UsuarioAsignado2 ID: " + (conteoSector.getUsuarioAsignado2() != null ? conteoSector.getUsuarioAsignado2().getId() : "null"));
-            System.out.println("🔍 Observaciones en ESPERANDO_VERIFICACION: " + conteoSector.getObservaciones());
+            logger.debug("🔍 Usuario {} - esUsuario1: {}, esUsuario2: {}", usuarioId, esUsuario1, esUsuario2);
+            logger.debug("🔍 UsuarioAsignado1 ID: {}", (conteoSector.getUsuarioAsignado1() != null ? conteoSector.getUsuarioAsignado1().getId() : "null"));
+            logger.debug("🔍 UsuarioAsignado2 ID: {}", (conteoSector.getUsuarioAsignado2() != null ? conteoSector.getUsuarioAsignado2().getId() : "null"));
+            logger.debug("🔍 Observaciones en ESPERANDO_VERIFICACION: {}", conteoSector.getObservaciones());
             
             if (esUsuario1 || esUsuario2) {
                 // Verificar qué usuario finalizó basándose en las observaciones
@@ -4554,34 +4733,34 @@ public class InventarioCompletoService {
                 boolean esElUsuarioQueFinalizo = false;
                 boolean esReconteo = false;
                 
-                System.out.println("🔍 Observaciones: " + observaciones);
+                logger.debug("🔍 Observaciones: {}", observaciones);
                 
                 // Verificar si es reconteo o conteo inicial
                 if (esUsuario1 && ("Usuario1_Finalizado".equals(observaciones) || "Reconteo_Usuario1_Finalizado".equals(observaciones))) {
                     esElUsuarioQueFinalizo = true;
                     esReconteo = observaciones.startsWith("Reconteo_");
-                    System.out.println("🔍 Usuario1 finalizó - esReconteo: " + esReconteo);
+                    logger.debug("🔍 Usuario1 finalizó - esReconteo: {}", esReconteo);
                 } else if (esUsuario2 && ("Usuario2_Finalizado".equals(observaciones) || "Reconteo_Usuario2_Finalizado".equals(observaciones))) {
                     esElUsuarioQueFinalizo = true;
                     esReconteo = observaciones.startsWith("Reconteo_");
-                    System.out.println("🔍 Usuario2 finalizó - esReconteo: " + esReconteo);
+                    logger.debug("🔍 Usuario2 finalizó - esReconteo: {}", esReconteo);
                 } else {
                     // Si no es el usuario que finalizó, determinar si es reconteo basándose en las observaciones
                     esReconteo = observaciones != null && observaciones.startsWith("Reconteo_");
-                    System.out.println("🔍 Usuario no finalizó - esReconteo: " + esReconteo);
+                    logger.debug("🔍 Usuario no finalizó - esReconteo: {}", esReconteo);
                 }
                 
-                System.out.println("🔍 esElUsuarioQueFinalizo: " + esElUsuarioQueFinalizo + ", esReconteo: " + esReconteo);
+                logger.debug("🔍 esElUsuarioQueFinalizo: {}, esReconteo: {}", esElUsuarioQueFinalizo, esReconteo);
                 
                 if (esElUsuarioQueFinalizo) {
                     // El usuario que finalizó está esperando verificación
-                    System.out.println("⏳ Usuario " + usuarioId + " finalizó " + (esReconteo ? "reconteo" : "conteo") + ", esperando verificación");
+                    logger.debug("⏳ Usuario {} finalizó {}, esperando verificación", usuarioId, (esReconteo ? "reconteo" : "conteo"));
                     return ConteoSector.EstadoConteo.ESPERANDO_VERIFICACION;
                 } else {
                     // El usuario que no ha finalizado
                     if (esReconteo) {
                         // En reconteo, el segundo usuario SIEMPRE debe ver CON_DIFERENCIAS para poder hacer reconteo
-                        System.out.println("🔄 Usuario " + usuarioId + " debe hacer reconteo, estado: CON_DIFERENCIAS");
+                        logger.debug("🔄 Usuario {} debe hacer reconteo, estado: CON_DIFERENCIAS", usuarioId);
                         return ConteoSector.EstadoConteo.CON_DIFERENCIAS;
                     } else {
                         // Para conteo inicial, determinar si ha contado algo
@@ -4600,10 +4779,10 @@ public class InventarioCompletoService {
                         }
                         
                         if (tieneProductosContados) {
-                            System.out.println("✅ Usuario " + usuarioId + " ha contado productos, estado: EN_PROGRESO");
+                            logger.debug("✅ Usuario {} ha contado productos, estado: EN_PROGRESO", usuarioId);
                         return ConteoSector.EstadoConteo.EN_PROGRESO;
                         } else {
-                            System.out.println("ℹ️ Usuario " + usuarioId + " no ha contado productos, estado: PENDIENTE");
+                            logger.debug("ℹ️ Usuario {} no ha contado productos, estado: PENDIENTE", usuarioId);
                             return ConteoSector.EstadoConteo.PENDIENTE;
                         }
                     }
@@ -4642,10 +4821,10 @@ public class InventarioCompletoService {
             
             // Si el usuario tiene productos contados, está en progreso
             if (tieneProductosContados) {
-                System.out.println("✅ Usuario " + usuarioId + " tiene productos contados, estado: EN_PROGRESO");
+                logger.debug("✅ Usuario {} tiene productos contados, estado: EN_PROGRESO", usuarioId);
                 return ConteoSector.EstadoConteo.EN_PROGRESO;
             } else {
-                System.out.println("ℹ️ Usuario " + usuarioId + " no tiene productos contados, estado: PENDIENTE");
+                logger.debug("ℹ️ Usuario {} no tiene productos contados, estado: PENDIENTE", usuarioId);
                 return ConteoSector.EstadoConteo.PENDIENTE;
             }
         }
@@ -4677,10 +4856,10 @@ public class InventarioCompletoService {
                 
                 // Si el usuario tiene productos contados, está en progreso
                 if (tieneProductosContados) {
-                    System.out.println("✅ Usuario " + usuarioId + " tiene productos contados, estado: EN_PROGRESO");
+                    logger.debug("✅ Usuario {} tiene productos contados, estado: EN_PROGRESO", usuarioId);
                     return ConteoSector.EstadoConteo.EN_PROGRESO;
                 } else {
-                    System.out.println("ℹ️ Usuario " + usuarioId + " no tiene productos contados, estado: PENDIENTE");
+                    logger.debug("ℹ️ Usuario {} no tiene productos contados, estado: PENDIENTE", usuarioId);
                     return ConteoSector.EstadoConteo.PENDIENTE;
                 }
             }
@@ -4696,7 +4875,7 @@ public class InventarioCompletoService {
     private void calcularDiferencias(DetalleConteo detalle) {
         if (detalle == null) return;
         
-        System.out.println("🔍 Calculando diferencias para detalle ID: " + detalle.getId());
+        logger.debug("🔍 Calculando diferencias para detalle ID: {}", detalle.getId());
         
         // Calcular diferencia entre conteos de usuarios
         Integer cantidad1 = detalle.getCantidadConteo1();
@@ -4705,16 +4884,16 @@ public class InventarioCompletoService {
         if (cantidad1 != null && cantidad2 != null) {
             int diferencia = cantidad1 - cantidad2;
             detalle.setDiferenciaEntreConteos(diferencia);
-            System.out.println("🔍 Diferencia entre conteos: " + cantidad1 + " - " + cantidad2 + " = " + diferencia);
+            logger.debug("🔍 Diferencia entre conteos: {} - {} = {}", cantidad1, cantidad2, diferencia);
         } else if (cantidad1 != null) {
             detalle.setDiferenciaEntreConteos(cantidad1);
-            System.out.println("🔍 Solo usuario 1 contó: " + cantidad1);
+            logger.debug("🔍 Solo usuario 1 contó: {}", cantidad1);
         } else if (cantidad2 != null) {
             detalle.setDiferenciaEntreConteos(-cantidad2);
-            System.out.println("🔍 Solo usuario 2 contó: " + cantidad2);
+            logger.debug("🔍 Solo usuario 2 contó: {}", cantidad2);
         } else {
             detalle.setDiferenciaEntreConteos(0);
-            System.out.println("🔍 Ningún usuario contó");
+            logger.debug("🔍 Ningún usuario contó");
         }
         
         // Calcular diferencia con sistema
@@ -4726,7 +4905,7 @@ public class InventarioCompletoService {
             );
             int diferenciaSistema = stockSistema - cantidadFinal;
             detalle.setDiferenciaSistema(diferenciaSistema);
-            System.out.println("🔍 Diferencia con sistema: " + stockSistema + " - " + cantidadFinal + " = " + diferenciaSistema);
+            logger.debug("🔍 Diferencia con sistema: {} - {} = {}", stockSistema, cantidadFinal, diferenciaSistema);
         }
         
         // Calcular valor de diferencia (precio unitario * diferencia)
@@ -4735,17 +4914,17 @@ public class InventarioCompletoService {
             java.math.BigDecimal diferencia = java.math.BigDecimal.valueOf(detalle.getDiferenciaEntreConteos());
             java.math.BigDecimal valorDiferencia = precioUnitario.multiply(diferencia);
             detalle.setValorDiferencia(valorDiferencia);
-            System.out.println("🔍 Valor diferencia: " + precioUnitario + " * " + diferencia + " = " + valorDiferencia);
+            logger.debug("🔍 Valor diferencia: {} * {} = {}", precioUnitario, diferencia, valorDiferencia);
         }
         
-        System.out.println("✅ Diferencias calculadas para detalle ID: " + detalle.getId());
+        logger.debug("✅ Diferencias calculadas para detalle ID: {}", detalle.getId());
     }
 
     /**
      * Verificar si ambos usuarios contaron exactamente los mismos productos
      */
     private boolean verificarAmbosUsuariosContaronMismosProductos(ConteoSector conteoSector) {
-        System.out.println("🔍 Verificando si ambos usuarios contaron los mismos productos en sector: " + conteoSector.getId());
+        logger.debug("🔍 Verificando si ambos usuarios contaron los mismos productos en sector: {}", conteoSector.getId());
         
         List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
         
@@ -4769,18 +4948,18 @@ public class InventarioCompletoService {
             }
         }
         
-        System.out.println("🔍 Productos contados por Usuario 1: " + productosUsuario1.size() + " productos");
-        System.out.println("🔍 Productos contados por Usuario 2: " + productosUsuario2.size() + " productos");
+        logger.debug("🔍 Productos contados por Usuario 1: {} productos", productosUsuario1.size());
+        logger.debug("🔍 Productos contados por Usuario 2: {} productos", productosUsuario2.size());
         
         // Verificar si ambos usuarios contaron exactamente los mismos productos
         boolean mismosProductos = productosUsuario1.equals(productosUsuario2);
         
         if (mismosProductos) {
-            System.out.println("✅ Ambos usuarios contaron exactamente los mismos productos");
+            logger.debug("✅ Ambos usuarios contaron exactamente los mismos productos");
         } else {
-            System.out.println("⚠️ Los usuarios NO contaron los mismos productos:");
-            System.out.println("  - Solo Usuario 1 contó: " + productosUsuario1.size() + " productos");
-            System.out.println("  - Solo Usuario 2 contó: " + productosUsuario2.size() + " productos");
+            logger.debug("⚠️ Los usuarios NO contaron los mismos productos:");
+            logger.debug("  - Solo Usuario 1 contó: {} productos", productosUsuario1.size());
+            logger.debug("  - Solo Usuario 2 contó: {} productos", productosUsuario2.size());
             
             // Mostrar productos únicos de cada usuario
             Set<Long> soloUsuario1 = new HashSet<>(productosUsuario1);
@@ -4790,10 +4969,10 @@ public class InventarioCompletoService {
             soloUsuario2.removeAll(productosUsuario1);
             
             if (!soloUsuario1.isEmpty()) {
-                System.out.println("  - Productos solo del Usuario 1: " + soloUsuario1);
+                logger.debug("  - Productos solo del Usuario 1: {}", soloUsuario1);
             }
             if (!soloUsuario2.isEmpty()) {
-                System.out.println("  - Productos solo del Usuario 2: " + soloUsuario2);
+                logger.debug("  - Productos solo del Usuario 2: {}", soloUsuario2);
             }
         }
         
@@ -4809,23 +4988,15 @@ public class InventarioCompletoService {
      * No se usa {@code sumaFinal + residuoSinSectorizar}: si el sector A estaba solo en el remanente del producto,
      * ese residuo duplicaba las 5 del sector contado y el total seguía en 10.
      */
-    private void aplicarDarPorCeroNoContadoSoloEnSectoresContados(Long productoId, Integer unidadesHintCliente) {
-        InventarioCompleto inv = inventarioCompletoRepository.findById(this.inventarioActualId).orElse(null);
-        if (inv == null) {
-            System.err.println("⚠️ aplicarDarPorCero: inventario actual no encontrado (id=" + this.inventarioActualId + ")");
-            return;
-        }
-        Set<Long> sectoresFisicosContados = conteoSectorRepository.findByInventarioCompleto(inv).stream()
-                .filter(cs -> cs.getEstado() == ConteoSector.EstadoConteo.COMPLETADO)
-                .map(cs -> cs.getSector().getId())
-                .collect(Collectors.toSet());
+    private void aplicarDarPorCeroNoContadoSoloEnSectoresContados(ContextoFinalizacion contexto, Long productoId, Integer unidadesHintCliente) {
+        Set<Long> sectoresFisicosContados = contexto.sectoresConEstado(ConteoSector.EstadoConteo.COMPLETADO);
 
-        Producto prodRef = productoRepository.findById(productoId).orElse(null);
+        Producto prodRef = contexto.producto(productoId);
         if (prodRef == null) {
             return;
         }
 
-        List<StockPorSector> filasIniciales = stockPorSectorRepository.findByProductoId(productoId);
+        List<StockPorSector> filasIniciales = contexto.filas(productoId);
         int stockInicial = prodRef.getStock() != null ? prodRef.getStock() : 0;
 
         int sumaEnDepositosContadosAntes = 0;
@@ -4852,7 +5023,7 @@ public class InventarioCompletoService {
             stockPorSectorRepository.save(s);
         }
 
-        List<StockPorSector> filasFinal = stockPorSectorRepository.findByProductoId(productoId);
+        List<StockPorSector> filasFinal = contexto.filas(productoId);
         int sumaFinal = filasFinal.stream().mapToInt(s -> s.getCantidad() != null ? s.getCantidad() : 0).sum();
 
         int stockPorResta = Math.max(0, stockInicial - unidadesQuitadasDeContados);
@@ -4860,39 +5031,37 @@ public class InventarioCompletoService {
 
         prodRef.setStock(stockFinal);
         productoRepository.save(prodRef);
-        System.out.println("✅ Dar por cero (sectores COMPLETADO): " + prodRef.getNombre()
-                + " — quitadas de contados=" + unidadesQuitadasDeContados
-                + " (filas=" + sumaEnDepositosContadosAntes + ", hint=" + unidadesHintCliente + ")"
-                + " — suma depósitos tras=" + sumaFinal + " → stock total=" + stockFinal);
+        logger.debug("✅ Dar por cero (sectores COMPLETADO): {} — quitadas de contados={} (filas={}, hint={}) — suma depósitos tras={} → stock total={}", prodRef.getNombre(), unidadesQuitadasDeContados, sumaEnDepositosContadosAntes, unidadesHintCliente, sumaFinal, stockFinal);
     }
     
     /**
      * Actualizar stock por sector para un producto
      */
-    private void actualizarStockPorSector(Producto producto, Integer cantidadFinal) {
+    private void actualizarStockPorSector(ContextoFinalizacion contexto, Producto producto, Integer cantidadFinal) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         try {
-            System.out.println("🔄 === INICIANDO ACTUALIZACIÓN STOCK POR SECTOR ===");
-            System.out.println("🔄 Producto: " + producto.getNombre() + " (ID: " + producto.getId() + ")");
-            System.out.println("🔄 Cantidad final solicitada: " + cantidadFinal);
-            System.out.println("🔄 Stock actual del producto: " + producto.getStock());
+            logger.debug("🔄 === INICIANDO ACTUALIZACIÓN STOCK POR SECTOR ===");
+            logger.debug("🔄 Producto: {} (ID: {})", producto.getNombre(), producto.getId());
+            logger.debug("🔄 Cantidad final solicitada: {}", cantidadFinal);
+            logger.debug("🔄 Stock actual del producto: {}", producto.getStock());
             
             // Remanente no cargado en ningún StockPorSector (total - suma filas), a preservar al sincronizar
-            Producto prodRef = productoRepository.findById(producto.getId()).orElse(producto);
-            List<StockPorSector> filasIniciales = stockPorSectorRepository.findByProductoId(prodRef.getId());
+            Producto prodRef = producto;
+            List<StockPorSector> filasIniciales = contexto.filas(prodRef.getId());
             int sumaInicial = filasIniciales.stream().mapToInt(s -> s.getCantidad() != null ? s.getCantidad() : 0).sum();
             int stockInicial = prodRef.getStock() != null ? prodRef.getStock() : 0;
             int residuoSinSectorizar = Math.max(0, stockInicial - sumaInicial);
-            System.out.println("🔄 Residuo sin sectorizar a preservar: " + residuoSinSectorizar + " (stock=" + stockInicial + ", suma filas=" + sumaInicial + ")");
+            logger.debug("🔄 Residuo sin sectorizar a preservar: {} (stock={}, suma filas={})", residuoSinSectorizar, stockInicial, sumaInicial);
             
             // PASO 1: Obtener la distribución real del inventario por sectores
-            Map<Long, Integer> distribucionPorSectores = obtenerDistribucionRealPorSectores(producto.getId());
+            Map<Long, Integer> distribucionPorSectores = obtenerDistribucionRealPorSectores(contexto, producto);
             
-            System.out.println("🔄 Distribución obtenida: " + distribucionPorSectores);
+            logger.debug("🔄 Distribución obtenida: {}", distribucionPorSectores);
             
             if (distribucionPorSectores.isEmpty()) {
-                System.out.println("⚠️ No se encontró distribución por sectores para producto: " + producto.getNombre());
+                logger.debug("⚠️ No se encontró distribución por sectores para producto: {}", producto.getNombre());
                 // Fallback: usar el sector principal
-                actualizarStockSectorPrincipal(producto, cantidadFinal);
+                actualizarStockSectorPrincipal(contexto, producto, cantidadFinal);
                 return;
             }
             
@@ -4900,33 +5069,23 @@ public class InventarioCompletoService {
             Map<Long, Integer> sectoresContados = new HashMap<>();
             Map<Long, Integer> sectoresSinConteo = new HashMap<>();
             
-            // Obtener información de sectores del inventario para clasificar
-            InventarioCompleto inventario = inventarioCompletoRepository.findById(this.inventarioActualId).orElse(null);
-            if (inventario != null) {
-                List<ConteoSector> todosLosSectores = conteoSectorRepository.findByInventarioCompleto(inventario);
-                Map<Long, ConteoSector.EstadoConteo> estadosSectores = todosLosSectores.stream()
-                    .collect(Collectors.toMap(
-                        sector -> sector.getSector().getId(),
-                        ConteoSector::getEstado
-                    ));
+            // Clasificar según el estado del conteo de cada sector en el inventario
+            for (Map.Entry<Long, Integer> entry : distribucionPorSectores.entrySet()) {
+                Long sectorId = entry.getKey();
+                Integer cantidad = entry.getValue();
+                ConteoSector.EstadoConteo estado = contexto.estadosPorSector.get(sectorId);
                 
-                for (Map.Entry<Long, Integer> entry : distribucionPorSectores.entrySet()) {
-                    Long sectorId = entry.getKey();
-                    Integer cantidad = entry.getValue();
-                    ConteoSector.EstadoConteo estado = estadosSectores.get(sectorId);
-                    
-                    if (estado == ConteoSector.EstadoConteo.COMPLETADO) {
-                        sectoresContados.put(sectorId, cantidad);
-                    } else if (estado == ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO) {
-                        sectoresSinConteo.put(sectorId, cantidad);
-                    }
+                if (estado == ConteoSector.EstadoConteo.COMPLETADO) {
+                    sectoresContados.put(sectorId, cantidad);
+                } else if (estado == ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO) {
+                    sectoresSinConteo.put(sectorId, cantidad);
                 }
             }
             
-            System.out.println("🔍 Distribución original: " + distribucionPorSectores);
-            System.out.println("🔍 Sectores contados: " + sectoresContados);
-            System.out.println("🔍 Sectores sin conteo: " + sectoresSinConteo);
-            System.out.println("🔍 Cantidad final solicitada: " + cantidadFinal);
+            logger.debug("🔍 Distribución original: {}", distribucionPorSectores);
+            logger.debug("🔍 Sectores contados: {}", sectoresContados);
+            logger.debug("🔍 Sectores sin conteo: {}", sectoresSinConteo);
+            logger.debug("🔍 Cantidad final solicitada: {}", cantidadFinal);
             
             // PASO 3: Calcular distribución final
             // - Sectores contados: usar cantidades del inventario
@@ -4936,30 +5095,30 @@ public class InventarioCompletoService {
             Integer totalSectoresSinConteo = sectoresSinConteo.values().stream().mapToInt(Integer::intValue).sum();
             Integer totalActual = totalSectoresContados + totalSectoresSinConteo;
             
-            System.out.println("🔍 === ANÁLISIS DETALLADO ===");
-            System.out.println("🔍 Producto: " + producto.getNombre());
-            System.out.println("🔍 Cantidad final solicitada: " + cantidadFinal);
-            System.out.println("🔍 Stock actual del producto: " + producto.getStock());
-            System.out.println("🔍 Total sectores contados: " + totalSectoresContados);
-            System.out.println("🔍 Total sectores sin conteo: " + totalSectoresSinConteo);
-            System.out.println("🔍 Total actual (contados + sin conteo): " + totalActual);
-            System.out.println("🔍 ¿Coinciden cantidad final y total actual? " + cantidadFinal.equals(totalActual));
+            logger.debug("🔍 === ANÁLISIS DETALLADO ===");
+            logger.debug("🔍 Producto: {}", producto.getNombre());
+            logger.debug("🔍 Cantidad final solicitada: {}", cantidadFinal);
+            logger.debug("🔍 Stock actual del producto: {}", producto.getStock());
+            logger.debug("🔍 Total sectores contados: {}", totalSectoresContados);
+            logger.debug("🔍 Total sectores sin conteo: {}", totalSectoresSinConteo);
+            logger.debug("🔍 Total actual (contados + sin conteo): {}", totalActual);
+            logger.debug("🔍 ¿Coinciden cantidad final y total actual? {}", cantidadFinal.equals(totalActual));
             
-            System.out.println("🔍 Total sectores contados: " + totalSectoresContados);
-            System.out.println("🔍 Total sectores sin conteo: " + totalSectoresSinConteo);
-            System.out.println("🔍 Total actual: " + totalActual);
+            logger.debug("🔍 Total sectores contados: {}", totalSectoresContados);
+            logger.debug("🔍 Total sectores sin conteo: {}", totalSectoresSinConteo);
+            logger.debug("🔍 Total actual: {}", totalActual);
             
             // CORRECCIÓN: La cantidad final debe incluir TODOS los sectores (contados + sin conteo)
             // La cantidad final que llega aquí solo incluye sectores contados, necesitamos sumar los sin conteo
             Integer cantidadFinalCompleta = cantidadFinal + totalSectoresSinConteo;
             
-            System.out.println("🔍 === CÁLCULO DE AJUSTE CORREGIDO ===");
-            System.out.println("🔍 Cantidad final solicitada (solo contados): " + cantidadFinal);
-            System.out.println("🔍 Total sectores sin conteo: " + totalSectoresSinConteo);
-            System.out.println("🔍 Total sectores contados: " + totalSectoresContados);
-            System.out.println("🔍 Total actual (contados + sin conteo): " + totalActual);
-            System.out.println("🔍 Cantidad final completa (contados + sin conteo): " + cantidadFinalCompleta);
-            System.out.println("🔍 ¿Necesita ajuste? " + (!totalActual.equals(cantidadFinalCompleta)));
+            logger.debug("🔍 === CÁLCULO DE AJUSTE CORREGIDO ===");
+            logger.debug("🔍 Cantidad final solicitada (solo contados): {}", cantidadFinal);
+            logger.debug("🔍 Total sectores sin conteo: {}", totalSectoresSinConteo);
+            logger.debug("🔍 Total sectores contados: {}", totalSectoresContados);
+            logger.debug("🔍 Total actual (contados + sin conteo): {}", totalActual);
+            logger.debug("🔍 Cantidad final completa (contados + sin conteo): {}", cantidadFinalCompleta);
+            logger.debug("🔍 ¿Necesita ajuste? {}", (!totalActual.equals(cantidadFinalCompleta)));
             
             // CORRECCIÓN: NO hacer ajustes proporcionales cuando hay sectores sin conteo
             // Cada sector debe mantener su cantidad original
@@ -4972,13 +5131,13 @@ public class InventarioCompletoService {
                 if (necesitaAjuste) {
                     Integer diferencia = cantidadFinalCompleta - totalActual;
                     cantidadFinalSectoresContados = totalSectoresContados + diferencia;
-                    System.out.println("🔍 Diferencia a distribuir (solo sectores contados): " + diferencia);
-                    System.out.println("🔍 Cantidad final para sectores contados: " + cantidadFinalSectoresContados);
+                    logger.debug("🔍 Diferencia a distribuir (solo sectores contados): {}", diferencia);
+                    logger.debug("🔍 Cantidad final para sectores contados: {}", cantidadFinalSectoresContados);
                 }
             } else {
-                System.out.println("🔍 NO SE HACE AJUSTE - Hay sectores sin conteo, cada sector mantiene su cantidad original");
-                System.out.println("🔍 Sectores contados mantienen: " + totalSectoresContados);
-                System.out.println("🔍 Sectores sin conteo mantienen: " + totalSectoresSinConteo);
+                logger.debug("🔍 NO SE HACE AJUSTE - Hay sectores sin conteo, cada sector mantiene su cantidad original");
+                logger.debug("🔍 Sectores contados mantienen: {}", totalSectoresContados);
+                logger.debug("🔍 Sectores sin conteo mantienen: {}", totalSectoresSinConteo);
             }
             
             // PASO 4: Actualizar o crear registros con la distribución
@@ -4991,40 +5150,66 @@ public class InventarioCompletoService {
                 
                 if (sectoresContados.containsKey(sectorId)) {
                     // Sector contado: mantener cantidad original cuando hay sectores sin conteo
-                    System.out.println("🔍 === PROCESANDO SECTOR CONTADO ===");
-                    System.out.println("🔍 Sector ID: " + sectorId);
-                    System.out.println("🔍 Cantidad original: " + cantidadOriginal);
-                    System.out.println("🔍 Total sectores contados: " + totalSectoresContados);
-                    System.out.println("🔍 Total sectores sin conteo: " + totalSectoresSinConteo);
-                    System.out.println("🔍 ¿Necesita ajuste? " + necesitaAjuste);
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 === PROCESANDO SECTOR CONTADO ===");
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Sector ID: {}", sectorId);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Cantidad original: {}", cantidadOriginal);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Total sectores contados: {}", totalSectoresContados);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Total sectores sin conteo: {}", totalSectoresSinConteo);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 ¿Necesita ajuste? {}", necesitaAjuste);
+                    }
                     
                     if (necesitaAjuste && totalSectoresContados > 0) {
                         double factorAjuste = cantidadFinalSectoresContados.doubleValue() / totalSectoresContados.doubleValue();
                         cantidadFinalSector = (int) Math.round(cantidadOriginal * factorAjuste);
-                        System.out.println("🔍 AJUSTE APLICADO - Factor: " + factorAjuste);
-                        System.out.println("🔍 Cálculo: " + cantidadOriginal + " * " + factorAjuste + " = " + cantidadFinalSector);
-                        System.out.println("🔍 Sector contado ajustado: " + sectorId + " - Original: " + cantidadOriginal + " -> Final: " + cantidadFinalSector);
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 AJUSTE APLICADO - Factor: {}", factorAjuste);
+                        }
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Cálculo: {} * {} = {}", cantidadOriginal, factorAjuste, cantidadFinalSector);
+                        }
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Sector contado ajustado: {} - Original: {} -> Final: {}", sectorId, cantidadOriginal, cantidadFinalSector);
+                        }
                     } else {
                         cantidadFinalSector = cantidadOriginal;
-                        System.out.println("🔍 SIN AJUSTE - Manteniendo cantidad original");
-                        System.out.println("🔍 Sector contado sin ajuste: " + sectorId + " - Cantidad: " + cantidadFinalSector);
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 SIN AJUSTE - Manteniendo cantidad original");
+                        }
+                        if (muestreo.tomar()) {
+                            logger.debug("🔍 Sector contado sin ajuste: {} - Cantidad: {}", sectorId, cantidadFinalSector);
+                        }
                     }
                 } else if (sectoresSinConteo.containsKey(sectorId)) {
                     // Sector sin conteo: mantener cantidad original
                     cantidadFinalSector = cantidadOriginal;
-                    System.out.println("🔍 Sector sin conteo mantenido: " + sectorId + " - Cantidad: " + cantidadFinalSector);
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 Sector sin conteo mantenido: {} - Cantidad: {}", sectorId, cantidadFinalSector);
+                    }
                 } else {
                     // No debería pasar, pero por seguridad
                     cantidadFinalSector = cantidadOriginal;
-                    System.out.println("⚠️ Sector no clasificado: " + sectorId + " - Cantidad: " + cantidadFinalSector);
+                    if (muestreo.tomar()) {
+                        logger.debug("⚠️ Sector no clasificado: {} - Cantidad: {}", sectorId, cantidadFinalSector);
+                    }
                 }
                 
                 // Solo procesar si la cantidad es mayor a 0
                 if (cantidadFinalSector > 0) {
-                    Sector sector = sectorRepository.findById(sectorId).orElse(null);
+                    Sector sector = contexto.sectoresPorId.get(sectorId);
                     if (sector != null) {
                         // Buscar si ya existe un registro para este producto y sector
-                        Optional<StockPorSector> stockExistente = stockPorSectorRepository.findByProductoIdAndSectorId(producto.getId(), sectorId);
+                        Optional<StockPorSector> stockExistente = contexto.fila(producto.getId(), sectorId);
                         
                         if (stockExistente.isPresent()) {
                             // Actualizar el registro existente
@@ -5032,110 +5217,107 @@ public class InventarioCompletoService {
                             stock.setCantidad(cantidadFinalSector);
                             stock.setFechaActualizacion(LocalDateTime.now());
                             stockPorSectorRepository.save(stock);
-                            System.out.println("✅ Stock actualizado: " + producto.getNombre() + " en " + sector.getNombre() + " = " + cantidadFinalSector + " (original: " + cantidadOriginal + ")");
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ Stock actualizado: {} en {} = {} (original: {})", producto.getNombre(), sector.getNombre(), cantidadFinalSector, cantidadOriginal);
+                            }
                         } else {
                             // Crear nuevo registro
                             StockPorSector nuevoStock = new StockPorSector(producto, sector, cantidadFinalSector);
-                            stockPorSectorRepository.save(nuevoStock);
-                            System.out.println("✅ Stock creado: " + producto.getNombre() + " en " + sector.getNombre() + " = " + cantidadFinalSector + " (original: " + cantidadOriginal + ")");
+                            contexto.filas(producto.getId()).add(stockPorSectorRepository.save(nuevoStock));
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ Stock creado: {} en {} = {} (original: {})", producto.getNombre(), sector.getNombre(), cantidadFinalSector, cantidadOriginal);
+                            }
                         }
                     }
                 }
             }
             
             // PASO 5: Eliminar registros de sectores que no están en la distribución
-            List<StockPorSector> todosLosStocks = stockPorSectorRepository.findByProductoId(producto.getId());
-            System.out.println("🔍 === VERIFICANDO STOCKS EXISTENTES ===");
-            System.out.println("🔍 Total stocks existentes para " + producto.getNombre() + ": " + todosLosStocks.size());
+            List<StockPorSector> todosLosStocks = new ArrayList<>(contexto.filas(producto.getId()));
+            logger.debug("🔍 === VERIFICANDO STOCKS EXISTENTES ===");
+            logger.debug("🔍 Total stocks existentes para {}: {}", producto.getNombre(), todosLosStocks.size());
             for (StockPorSector stock : todosLosStocks) {
-                System.out.println("🔍 Stock existente: " + producto.getNombre() + " en " + stock.getSector().getNombre() + " = " + stock.getCantidad());
-            }
-            System.out.println("🔍 Distribución a mantener: " + distribucionPorSectores);
-            
-            Set<Long> sectoresInventarioIds = new HashSet<>();
-            InventarioCompleto invActual = inventarioCompletoRepository.findById(this.inventarioActualId).orElse(null);
-            if (invActual != null) {
-                for (ConteoSector cs : conteoSectorRepository.findByInventarioCompleto(invActual)) {
-                    sectoresInventarioIds.add(cs.getSector().getId());
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 Stock existente: {} en {} = {}", producto.getNombre(), stock.getSector().getNombre(), stock.getCantidad());
                 }
             }
+            logger.debug("🔍 Distribución a mantener: {}", distribucionPorSectores);
+            
+            Set<Long> sectoresInventarioIds = contexto.estadosPorSector.keySet();
             
             for (StockPorSector stock : todosLosStocks) {
                 Long sectorId = stock.getSector().getId();
                 if (!sectoresInventarioIds.contains(sectorId)) {
-                    System.out.println("⏭️ Stock en sector fuera de este inventario — no se elimina: " + producto.getNombre() + " en " + stock.getSector().getNombre());
+                    if (muestreo.tomar()) {
+                        logger.debug("⏭️ Stock en sector fuera de este inventario — no se elimina: {} en {}", producto.getNombre(), stock.getSector().getNombre());
+                    }
                     continue;
                 }
                 if (!distribucionPorSectores.containsKey(sectorId)) {
                     stockPorSectorRepository.delete(stock);
-                    System.out.println("🗑️ Stock eliminado: " + producto.getNombre() + " en " + stock.getSector().getNombre() + " (no está en distribución del inventario)");
+                    contexto.filas(producto.getId()).remove(stock);
+                    if (muestreo.tomar()) {
+                        logger.debug("🗑️ Stock eliminado: {} en {} (no está en distribución del inventario)", producto.getNombre(), stock.getSector().getNombre());
+                    }
                 } else {
-                    System.out.println("✅ Stock mantenido: " + producto.getNombre() + " en " + stock.getSector().getNombre() + " = " + stock.getCantidad());
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ Stock mantenido: {} en {} = {}", producto.getNombre(), stock.getSector().getNombre(), stock.getCantidad());
+                    }
                 }
             }
             
                 // Sincronizar stock total: suma de filas + remanente no sectorizado (no pisar con solo cantidadFinalCompleta)
-                List<StockPorSector> filasFinal = stockPorSectorRepository.findByProductoId(producto.getId());
+                List<StockPorSector> filasFinal = contexto.filas(producto.getId());
                 int sumaFinal = filasFinal.stream().mapToInt(s -> s.getCantidad() != null ? s.getCantidad() : 0).sum();
                 int stockFinal = sumaFinal + residuoSinSectorizar;
                 if (sumaInicial == 0 && stockInicial > 0) {
                     stockFinal = Math.min(stockFinal, stockInicial);
                 }
-                Producto pSync = productoRepository.findById(producto.getId()).orElse(producto);
+                Producto pSync = producto;
                 Integer stActual = pSync.getStock();
                 if (stActual == null || !stActual.equals(stockFinal)) {
                     pSync.setStock(stockFinal);
                     productoRepository.save(pSync);
-                    System.out.println("🔄 Stock del producto sincronizado: " + pSync.getNombre() + " = " + stockFinal + " (suma filas=" + sumaFinal + " + residuo=" + residuoSinSectorizar + ")");
+                    logger.debug("🔄 Stock del producto sincronizado: {} = {} (suma filas={} + residuo={})", pSync.getNombre(), stockFinal, sumaFinal, residuoSinSectorizar);
                 }
             
             // PASO 6: VERIFICACIÓN FINAL - Mostrar el estado final
-            System.out.println("🔄 === VERIFICACIÓN FINAL ===");
-            List<StockPorSector> stocksVerificacionFinal = stockPorSectorRepository.findByProductoId(producto.getId());
+            logger.debug("🔄 === VERIFICACIÓN FINAL ===");
+            List<StockPorSector> stocksVerificacionFinal = contexto.filas(producto.getId());
             for (StockPorSector stock : stocksVerificacionFinal) {
-                System.out.println("🔄 Stock final - Producto: " + producto.getNombre() + 
-                                 " - Sector: " + stock.getSector().getNombre() + 
-                                 " - Cantidad: " + stock.getCantidad());
+                if (muestreo.tomar()) {
+                    logger.debug("🔄 Stock final - Producto: {} - Sector: {} - Cantidad: {}", producto.getNombre(), stock.getSector().getNombre(), stock.getCantidad());
+                }
             }
-            System.out.println("🔄 === FIN ACTUALIZACIÓN STOCK POR SECTOR ===");
+            logger.debug("🔄 === FIN ACTUALIZACIÓN STOCK POR SECTOR ===");
             
         } catch (Exception e) {
-            System.err.println("❌ Error actualizando stock por sector para producto " + producto.getNombre() + ": " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error actualizando stock por sector para producto {}: {}", producto.getNombre(), e.getMessage(), e);
         }
     }
     
     /**
      * Obtener la distribución real por sectores basada en el inventario realizado
      */
-    private Map<Long, Integer> obtenerDistribucionRealPorSectores(Long productoId) {
+    private Map<Long, Integer> obtenerDistribucionRealPorSectores(ContextoFinalizacion contexto, Producto producto) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         Map<Long, Integer> distribucion = new HashMap<>();
         
         try {
-            Producto producto = productoRepository.findById(productoId).orElse(null);
-            if (producto == null) {
-                System.out.println("⚠️ Producto no encontrado con ID: " + productoId);
-                return distribucion;
-            }
-            
-            System.out.println("🔍 === OBTENIENDO DISTRIBUCIÓN PARA PRODUCTO: " + producto.getNombre() + " ===");
-            
-            // PASO 1: Obtener todos los sectores del inventario actual
-            InventarioCompleto inventario = inventarioCompletoRepository.findById(this.inventarioActualId).orElse(null);
-            if (inventario == null) {
-                System.out.println("⚠️ Inventario no encontrado con ID: " + this.inventarioActualId);
-                return distribucion;
-            }
+            logger.debug("🔍 === OBTENIENDO DISTRIBUCIÓN PARA PRODUCTO: {} ===", producto.getNombre());
             
-            List<ConteoSector> todosLosSectores = conteoSectorRepository.findByInventarioCompleto(inventario);
-            System.out.println("🔍 Total de sectores en el inventario: " + todosLosSectores.size());
+            // PASO 1: Sectores del inventario (cargados con el lote)
+            List<ConteoSector> todosLosSectores = contexto.sectores;
+            logger.debug("🔍 Total de sectores en el inventario: {}", todosLosSectores.size());
             
             // PASO 2: Procesar cada sector del inventario
             for (ConteoSector conteoSector : todosLosSectores) {
                 // Solo procesar sectores completados
                 if (conteoSector.getEstado() != ConteoSector.EstadoConteo.COMPLETADO && 
                     conteoSector.getEstado() != ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO) {
-                    System.out.println("  ⏭️ Saltando sector " + conteoSector.getSector().getNombre() + " - Estado: " + conteoSector.getEstado());
+                    if (muestreo.tomar()) {
+                        logger.debug("  ⏭️ Saltando sector {} - Estado: {}", conteoSector.getSector().getNombre(), conteoSector.getEstado());
+                    }
                     continue;
                 }
                 
@@ -5143,80 +5325,72 @@ public class InventarioCompletoService {
                 Integer cantidadSector = 0;
                 
                 if (conteoSector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO) {
-                    // PASO 2A: Sector contado - buscar en DetalleConteo
-                    List<DetalleConteo> detallesDelProducto = detalleConteoRepository.findByConteoSectorAndProductoAndEliminadoFalse(conteoSector, producto);
+                    // PASO 2A: Sector contado - totales de DetalleConteo del producto (múltiples conteos sumados)
+                    long[] conteo = contexto.conteo(conteoSector, producto.getId());
                     
-                    if (!detallesDelProducto.isEmpty()) {
-                        // Consolidar cantidades de múltiples conteos del mismo producto
-                        int totalConteo1 = 0;
-                        int totalConteo2 = 0;
-                        
-                        for (DetalleConteo detalle : detallesDelProducto) {
-                            if (detalle.getCantidadConteo1() != null) {
-                                totalConteo1 += detalle.getCantidadConteo1();
-                            }
-                            if (detalle.getCantidadConteo2() != null) {
-                                totalConteo2 += detalle.getCantidadConteo2();
-                            }
-                        }
+                    if (conteo != null) {
+                        int totalConteo1 = (int) conteo[0];
+                        int totalConteo2 = (int) conteo[1];
                         
                         cantidadSector = Math.max(totalConteo1, totalConteo2);
                         
-                        System.out.println("  🔍 SECTOR CONTADO - Producto: " + producto.getNombre() + 
-                                         " - Sector: " + conteoSector.getSector().getNombre() + 
-                                         " - Total Conteo1: " + totalConteo1 + 
-                                         " - Total Conteo2: " + totalConteo2 + 
-                                         " - Cantidad final: " + cantidadSector);
+                        if (muestreo.tomar()) {
+                            logger.debug("  🔍 SECTOR CONTADO - Producto: {} - Sector: {} - Total Conteo1: {} - Total Conteo2: {} - Cantidad final: {}", producto.getNombre(), conteoSector.getSector().getNombre(), totalConteo1, totalConteo2, cantidadSector);
+                        }
                     } else {
-                        System.out.println("  ⚠️ SECTOR CONTADO SIN DETALLES - Producto: " + producto.getNombre() + 
-                                         " - Sector: " + conteoSector.getSector().getNombre());
+                        if (muestreo.tomar()) {
+                            logger.debug("  ⚠️ SECTOR CONTADO SIN DETALLES - Producto: {} - Sector: {}", producto.getNombre(), conteoSector.getSector().getNombre());
+                        }
                     }
                     // Conteo en 0 o sin líneas, pero hay unidades en el depósito: incluir en distribución para poder
                     // aplicar "dar por 0" / cantidad final vía actualizarStockPorSector (antes quedaba fuera del mapa).
                     if (cantidadSector == 0) {
-                        Optional<StockPorSector> stDep = stockPorSectorRepository.findByProductoIdAndSectorId(
-                                producto.getId(), sectorId);
+                        Optional<StockPorSector> stDep = contexto.fila(producto.getId(), sectorId);
                         int enDeposito = stDep.map(s -> s.getCantidad() != null ? s.getCantidad() : 0).orElse(0);
                         if (enDeposito > 0) {
                             cantidadSector = enDeposito;
-                            System.out.println("  📦 COMPLETADO: base desde StockPorSector (sin conteo efectivo): "
-                                    + cantidadSector + " en " + conteoSector.getSector().getNombre());
+                            if (muestreo.tomar()) {
+                                logger.debug("  📦 COMPLETADO: base desde StockPorSector (sin conteo efectivo): {} en {}", cantidadSector, conteoSector.getSector().getNombre());
+                            }
                         }
                     }
                 } else {
                     // PASO 2B: Sector completado sin conteo - buscar en StockPorSector
-                    Optional<StockPorSector> stockActual = stockPorSectorRepository.findByProductoIdAndSectorId(producto.getId(), sectorId);
+                    Optional<StockPorSector> stockActual = contexto.fila(producto.getId(), sectorId);
                     cantidadSector = stockActual.map(StockPorSector::getCantidad).orElse(0);
                     
-                    System.out.println("  🔍 SECTOR SIN CONTEO - Producto: " + producto.getNombre() + 
-                                     " - Sector: " + conteoSector.getSector().getNombre() + 
-                                     " - Stock actual mantenido: " + cantidadSector);
+                    if (muestreo.tomar()) {
+                        logger.debug("  🔍 SECTOR SIN CONTEO - Producto: {} - Sector: {} - Stock actual mantenido: {}", producto.getNombre(), conteoSector.getSector().getNombre(), cantidadSector);
+                    }
                 }
                 
                 // PASO 3: Agregar a la distribución si hay cantidad
                 if (cantidadSector > 0) {
                     distribucion.put(sectorId, cantidadSector);
-                    System.out.println("  ✅ Agregado a distribución - Sector: " + conteoSector.getSector().getNombre() + 
-                                     " (ID: " + sectorId + "): " + cantidadSector);
+                    if (muestreo.tomar()) {
+                        logger.debug("  ✅ Agregado a distribución - Sector: {} (ID: {}): {}", conteoSector.getSector().getNombre(), sectorId, cantidadSector);
+                    }
                 } else {
-                    System.out.println("  ⚠️ Sin cantidad - Sector: " + conteoSector.getSector().getNombre() + 
-                                     " (ID: " + sectorId + "): " + cantidadSector);
+                    if (muestreo.tomar()) {
+                        logger.debug("  ⚠️ Sin cantidad - Sector: {} (ID: {}): {}", conteoSector.getSector().getNombre(), sectorId, cantidadSector);
+                    }
                 }
             }
             
-            System.out.println("🔍 === DISTRIBUCIÓN FINAL PARA " + producto.getNombre() + " ===");
+            logger.debug("🔍 === DISTRIBUCIÓN FINAL PARA {} ===", producto.getNombre());
             for (Map.Entry<Long, Integer> entry : distribucion.entrySet()) {
                 Long sectorId = entry.getKey();
                 Integer cantidad = entry.getValue();
-                Sector sector = sectorRepository.findById(sectorId).orElse(null);
+                Sector sector = contexto.sectoresPorId.get(sectorId);
                 String nombreSector = sector != null ? sector.getNombre() : "Sector ID " + sectorId;
-                System.out.println("  📊 " + nombreSector + ": " + cantidad);
+                if (muestreo.tomar()) {
+                    logger.debug("  📊 {}: {}", nombreSector, cantidad);
+                }
             }
-            System.out.println("🔍 === FIN DISTRIBUCIÓN ===");
+            logger.debug("🔍 === FIN DISTRIBUCIÓN ===");
             
         } catch (Exception e) {
-            System.err.println("❌ Error obteniendo distribución por sectores: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error obteniendo distribución por sectores: {}", e.getMessage(), e);
         }
         
         return distribucion;
@@ -5225,9 +5399,9 @@ public class InventarioCompletoService {
     /**
      * Fallback: actualizar solo el sector principal cuando no hay distribución disponible
      */
-    private void actualizarStockSectorPrincipal(Producto producto, Integer cantidadFinal) {
-        Producto prod = productoRepository.findById(producto.getId()).orElse(producto);
-        List<StockPorSector> filasIni = stockPorSectorRepository.findByProductoId(prod.getId());
+    private void actualizarStockSectorPrincipal(ContextoFinalizacion contexto, Producto producto, Integer cantidadFinal) {
+        Producto prod = producto;
+        List<StockPorSector> filasIni = contexto.filas(prod.getId());
         int sumaInicial = filasIni.stream().mapToInt(s -> s.getCantidad() != null ? s.getCantidad() : 0).sum();
         int stockInicial = prod.getStock() != null ? prod.getStock() : 0;
         int residuoSinSectorizar = Math.max(0, stockInicial - sumaInicial);
@@ -5236,12 +5410,12 @@ public class InventarioCompletoService {
             .orElse(null);
         
         if (sector == null) {
-            System.out.println("⚠️ No se encontró sector principal para producto: " + producto.getNombre());
+            logger.debug("⚠️ No se encontró sector principal para producto: {}", producto.getNombre());
             return;
         }
         
         // Buscar si ya existe un registro de stock por sector para este producto y sector
-        Optional<StockPorSector> stockExistente = stockPorSectorRepository.findByProductoIdAndSectorId(producto.getId(), sector.getId());
+        Optional<StockPorSector> stockExistente = contexto.fila(producto.getId(), sector.getId());
         
         if (stockExistente.isPresent()) {
             // Actualizar el stock existente
@@ -5249,26 +5423,26 @@ public class InventarioCompletoService {
             stock.setCantidad(cantidadFinal);
             stock.setFechaActualizacion(LocalDateTime.now());
             stockPorSectorRepository.save(stock);
-            System.out.println("✅ Stock por sector actualizado (fallback): " + producto.getNombre() + " en " + sector.getNombre() + " = " + cantidadFinal);
+            logger.debug("✅ Stock por sector actualizado (fallback): {} en {} = {}", producto.getNombre(), sector.getNombre(), cantidadFinal);
         } else {
             // Crear nuevo registro de stock por sector
             StockPorSector nuevoStock = new StockPorSector(producto, sector, cantidadFinal);
-            stockPorSectorRepository.save(nuevoStock);
-            System.out.println("✅ Nuevo stock por sector creado (fallback): " + producto.getNombre() + " en " + sector.getNombre() + " = " + cantidadFinal);
+            contexto.filas(producto.getId()).add(stockPorSectorRepository.save(nuevoStock));
+            logger.debug("✅ Nuevo stock por sector creado (fallback): {} en {} = {}", producto.getNombre(), sector.getNombre(), cantidadFinal);
         }
         
-        List<StockPorSector> filasFinal = stockPorSectorRepository.findByProductoId(prod.getId());
+        List<StockPorSector> filasFinal = contexto.filas(prod.getId());
         int sumaFinal = filasFinal.stream().mapToInt(s -> s.getCantidad() != null ? s.getCantidad() : 0).sum();
         int stockFinal = sumaFinal + residuoSinSectorizar;
         if (sumaInicial == 0 && stockInicial > 0) {
             stockFinal = Math.min(stockFinal, stockInicial);
         }
-        Producto pSync = productoRepository.findById(prod.getId()).orElse(prod);
+        Producto pSync = prod;
         Integer st = pSync.getStock();
         if (st == null || !st.equals(stockFinal)) {
             pSync.setStock(stockFinal);
             productoRepository.save(pSync);
-            System.out.println("🔄 Stock del producto sincronizado (fallback): " + pSync.getNombre() + " = " + stockFinal);
+            logger.debug("🔄 Stock del producto sincronizado (fallback): {} = {}", pSync.getNombre(), stockFinal);
         }
     }
     
@@ -5278,16 +5452,21 @@ public class InventarioCompletoService {
      * Si la suma en depósitos es mayor que el stock total, se reparte proporcionalmente para alinear filas al total del producto.
      */
     private void sincronizarStockCompleto(Long empresaId) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         try {
-            System.out.println("🔄 SINCRONIZACIÓN AUTOMÁTICA - Iniciando revisión para empresa: " + empresaId);
+            logger.debug("🔄 SINCRONIZACIÓN AUTOMÁTICA - Iniciando revisión para empresa: {}", empresaId);
             
             List<Producto> productos = productoRepository.findByEmpresaId(empresaId);
             int productosSincronizados = 0;
             int productosConInconsistencias = 0;
             
+            // Filas de todos los productos de la empresa en una consulta
+            Map<Long, List<StockPorSector>> filasPorProducto = stockPorSectorRepository.findByEmpresaId(empresaId).stream()
+                    .collect(Collectors.groupingBy(s -> s.getProducto().getId()));
+            
             for (Producto producto : productos) {
                 try {
-                    List<StockPorSector> stockEnSectores = stockPorSectorRepository.findByProductoId(producto.getId());
+                    List<StockPorSector> stockEnSectores = filasPorProducto.getOrDefault(producto.getId(), List.of());
                     int stockTotalEnSectores = stockEnSectores.stream()
                             .mapToInt(s -> s.getCantidad() != null ? s.getCantidad() : 0)
                             .sum();
@@ -5328,20 +5507,21 @@ public class InventarioCompletoService {
                         stockPorSectorRepository.save(sps);
                     }
                     productosSincronizados++;
-                    System.out.println("✅ Stock alineado (filas mayor que total): " + producto.getNombre() + " → total " + target);
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ Stock alineado (filas mayor que total): {} → total {}", producto.getNombre(), target);
+                    }
                 } catch (Exception e) {
-                    System.err.println("❌ Error sincronizando producto " + producto.getNombre() + ": " + e.getMessage());
+                    logger.error("❌ Error sincronizando producto {}: {}", producto.getNombre(), e.getMessage());
                 }
             }
             
-            System.out.println("🔄 SINCRONIZACIÓN AUTOMÁTICA - Completada:");
-            System.out.println("  - Total productos: " + productos.size());
-            System.out.println("  - Productos con suma depósitos mayor que stock (corregidos): " + productosConInconsistencias);
-            System.out.println("  - Filas ajustadas: " + productosSincronizados);
+            logger.debug("🔄 SINCRONIZACIÓN AUTOMÁTICA - Completada:");
+            logger.debug("  - Total productos: {}", productos.size());
+            logger.debug("  - Productos con suma depósitos mayor que stock (corregidos): {}", productosConInconsistencias);
+            logger.debug("  - Filas ajustadas: {}", productosSincronizados);
             
         } catch (Exception e) {
-            System.err.println("❌ Error en sincronización automática: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error en sincronización automática: {}", e.getMessage(), e);
         }
     }
 
@@ -5349,11 +5529,12 @@ public class InventarioCompletoService {
      * Marcar un sector como completado sin conteo
      */
     public void marcarSectorCompletadoSinConteo(Long inventarioId, Long sectorId, String sectorNombre, Usuario usuario) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         try {
-            System.out.println("🔄 === MARCAR SECTOR COMPLETADO SIN CONTEO ===");
-            System.out.println("🔍 Inventario ID: " + inventarioId);
-            System.out.println("🔍 Sector ID: " + sectorId);
-            System.out.println("🔍 Sector Nombre: " + sectorNombre);
+            logger.debug("🔄 === MARCAR SECTOR COMPLETADO SIN CONTEO ===");
+            logger.debug("🔍 Inventario ID: {}", inventarioId);
+            logger.debug("🔍 Sector ID: {}", sectorId);
+            logger.debug("🔍 Sector Nombre: {}", sectorNombre);
             
             // Obtener el inventario completo
             InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
@@ -5369,7 +5550,7 @@ public class InventarioCompletoService {
             ConteoSector conteo;
             if (conteoExistente.isPresent()) {
                 conteo = conteoExistente.get();
-                System.out.println("✅ Conteo existente — actualizar a COMPLETADO_SIN_CONTEO");
+                logger.debug("✅ Conteo existente — actualizar a COMPLETADO_SIN_CONTEO");
             } else {
                 conteo = new ConteoSector();
                 conteo.setInventarioCompleto(inventario);
@@ -5378,7 +5559,7 @@ public class InventarioCompletoService {
                 conteo.setTotalProductos(0);
                 conteo.setProductosContados(0);
                 conteo.setProductosConDiferencias(0);
-                System.out.println("✅ Nuevo conteo — COMPLETADO_SIN_CONTEO");
+                logger.debug("✅ Nuevo conteo — COMPLETADO_SIN_CONTEO");
             }
             
             List<Map<String, Object>> filasSnap = construirFilasJsonSnapshotPreservarSinConteo(
@@ -5390,13 +5571,13 @@ public class InventarioCompletoService {
             conteo.setPorcentajeCompletado(100.0);
             conteoSectorRepository.save(conteo);
             
-            System.out.println("🔍 DEBUG - Estado guardado: " + conteo.getEstado());
-            System.out.println("🔍 DEBUG - Sector ID: " + conteo.getSector().getId());
-            System.out.println("🔍 DEBUG - Sector Nombre: " + conteo.getSector().getNombre());
-            System.out.println("🔍 Snapshot sin conteo: " + filasSnap.size() + " productos");
+            logger.debug("🔍 DEBUG - Estado guardado: {}", conteo.getEstado());
+            logger.debug("🔍 DEBUG - Sector ID: {}", conteo.getSector().getId());
+            logger.debug("🔍 DEBUG - Sector Nombre: {}", conteo.getSector().getNombre());
+            logger.debug("🔍 Snapshot sin conteo: {} productos", filasSnap.size());
             
             // PASO CRÍTICO: Preservar el stock original de todos los productos en este sector
-            System.out.println("🔄 === PRESERVANDO STOCK ORIGINAL DEL SECTOR ===");
+            logger.debug("🔄 === PRESERVANDO STOCK ORIGINAL DEL SECTOR ===");
             List<Producto> productosEmpresa = productoRepository.findByEmpresaId(inventario.getEmpresa().getId());
             int productosPreservados = 0;
             
@@ -5407,7 +5588,9 @@ public class InventarioCompletoService {
                 if (stockExistente.isPresent()) {
                     // El producto ya tiene stock en este sector, mantenerlo
                     StockPorSector stock = stockExistente.get();
-                    System.out.println("✅ Stock preservado: " + producto.getNombre() + " en " + sector.getNombre() + " = " + stock.getCantidad());
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ Stock preservado: {} en {} = {}", producto.getNombre(), sector.getNombre(), stock.getCantidad());
+                    }
                     productosPreservados++;
                 } else {
                     // El producto no tiene stock en este sector, pero podría tenerlo según su sector de almacenamiento
@@ -5415,43 +5598,44 @@ public class InventarioCompletoService {
                         // Crear registro de stock para preservar el stock original
                         StockPorSector nuevoStock = new StockPorSector(producto, sector, producto.getStock());
                         stockPorSectorRepository.save(nuevoStock);
-                        System.out.println("✅ Stock creado para preservar: " + producto.getNombre() + " en " + sector.getNombre() + " = " + producto.getStock());
+                        if (muestreo.tomar()) {
+                            logger.debug("✅ Stock creado para preservar: {} en {} = {}", producto.getNombre(), sector.getNombre(), producto.getStock());
+                        }
                         productosPreservados++;
                     }
                 }
             }
             
-            System.out.println("🔄 === STOCK PRESERVADO ===");
-            System.out.println("  - Total productos en empresa: " + productosEmpresa.size());
-            System.out.println("  - Productos con stock preservado: " + productosPreservados);
+            logger.debug("🔄 === STOCK PRESERVADO ===");
+            logger.debug("  - Total productos en empresa: {}", productosEmpresa.size());
+            logger.debug("  - Productos con stock preservado: {}", productosPreservados);
             
             // Actualizar el progreso del inventario completo
-            System.out.println("🔄 === ANTES DE LLAMAR A verificarYFinalizarInventarioCompleto ===");
-            System.out.println("🔄 Inventario ID: " + inventario.getId());
-            System.out.println("🔄 Estado actual del inventario: " + inventario.getEstado());
-            System.out.println("🔄 Sectores completados actual: " + inventario.getSectoresCompletados());
-            System.out.println("🔄 Total sectores actual: " + inventario.getTotalSectores());
+            logger.debug("🔄 === ANTES DE LLAMAR A verificarYFinalizarInventarioCompleto ===");
+            logger.debug("🔄 Inventario ID: {}", inventario.getId());
+            logger.debug("🔄 Estado actual del inventario: {}", inventario.getEstado());
+            logger.debug("🔄 Sectores completados actual: {}", inventario.getSectoresCompletados());
+            logger.debug("🔄 Total sectores actual: {}", inventario.getTotalSectores());
             
             boolean finalizado = verificarYFinalizarInventarioCompleto(inventario.getId());
-            System.out.println("🔄 Resultado de verificarYFinalizarInventarioCompleto: " + finalizado);
+            logger.debug("🔄 Resultado de verificarYFinalizarInventarioCompleto: {}", finalizado);
             
             // Recargar el inventario para obtener los datos actualizados
             inventario = inventarioCompletoRepository.findById(inventarioId).orElse(null);
             if (inventario != null) {
-                System.out.println("🔍 Estado final del inventario:");
-                System.out.println("  - ID: " + inventario.getId());
-                System.out.println("  - Estado: " + inventario.getEstado());
-                System.out.println("  - Sectores completados: " + inventario.getSectoresCompletados());
-                System.out.println("  - Total sectores: " + inventario.getTotalSectores());
-                System.out.println("  - Porcentaje completado: " + inventario.getPorcentajeCompletado());
-                System.out.println("  - Finalizado: " + finalizado);
+                logger.debug("🔍 Estado final del inventario:");
+                logger.debug("  - ID: {}", inventario.getId());
+                logger.debug("  - Estado: {}", inventario.getEstado());
+                logger.debug("  - Sectores completados: {}", inventario.getSectoresCompletados());
+                logger.debug("  - Total sectores: {}", inventario.getTotalSectores());
+                logger.debug("  - Porcentaje completado: {}", inventario.getPorcentajeCompletado());
+                logger.debug("  - Finalizado: {}", finalizado);
             }
             
-            System.out.println("✅ Sector marcado como completado sin conteo exitosamente");
+            logger.debug("✅ Sector marcado como completado sin conteo exitosamente");
             
         } catch (Exception e) {
-            System.err.println("❌ Error marcando sector como completado sin conteo: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error marcando sector como completado sin conteo: {}", e.getMessage(), e);
             throw e;
         }
     }
@@ -5461,10 +5645,10 @@ public class InventarioCompletoService {
      */
     public void cancelarSectorCompletadoSinConteo(Long inventarioId, Long sectorId, String sectorNombre, Usuario usuario) {
         try {
-            System.out.println("🔄 === CANCELAR SECTOR COMPLETADO SIN CONTEO ===");
-            System.out.println("🔍 Inventario ID: " + inventarioId);
-            System.out.println("🔍 Sector ID: " + sectorId);
-            System.out.println("🔍 Sector Nombre: " + sectorNombre);
+            logger.debug("🔄 === CANCELAR SECTOR COMPLETADO SIN CONTEO ===");
+            logger.debug("🔍 Inventario ID: {}", inventarioId);
+            logger.debug("🔍 Sector ID: {}", sectorId);
+            logger.debug("🔍 Sector Nombre: {}", sectorNombre);
             
             // Obtener el inventario completo
             InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
@@ -5494,10 +5678,10 @@ public class InventarioCompletoService {
                     
                     conteoSectorRepository.save(conteo);
                     
-                    System.out.println("✅ Conteo actualizado de COMPLETADO_SIN_CONTEO a PENDIENTE");
-                    System.out.println("🔍 DEBUG - Estado guardado: " + conteo.getEstado());
-                    System.out.println("🔍 DEBUG - Sector ID: " + conteo.getSector().getId());
-                    System.out.println("🔍 DEBUG - Sector Nombre: " + conteo.getSector().getNombre());
+                    logger.debug("✅ Conteo actualizado de COMPLETADO_SIN_CONTEO a PENDIENTE");
+                    logger.debug("🔍 DEBUG - Estado guardado: {}", conteo.getEstado());
+                    logger.debug("🔍 DEBUG - Sector ID: {}", conteo.getSector().getId());
+                    logger.debug("🔍 DEBUG - Sector Nombre: {}", conteo.getSector().getNombre());
                 } else {
                     throw new RuntimeException("El sector no está en estado COMPLETADO_SIN_CONTEO");
                 }
@@ -5506,26 +5690,25 @@ public class InventarioCompletoService {
             }
             
             // Actualizar el progreso del inventario completo
-            System.out.println("🔄 === ACTUALIZANDO PROGRESO DEL INVENTARIO ===");
+            logger.debug("🔄 === ACTUALIZANDO PROGRESO DEL INVENTARIO ===");
             boolean finalizado = verificarYFinalizarInventarioCompleto(inventario.getId(), true); // forzarFinalizacion = true para actualización de stock
-            System.out.println("🔄 Resultado de verificarYFinalizarInventarioCompleto: " + finalizado);
+            logger.debug("🔄 Resultado de verificarYFinalizarInventarioCompleto: {}", finalizado);
             
             // Recargar el inventario para obtener los datos actualizados
             inventario = inventarioCompletoRepository.findById(inventarioId).orElse(null);
             if (inventario != null) {
-                System.out.println("🔍 Estado final del inventario:");
-                System.out.println("  - ID: " + inventario.getId());
-                System.out.println("  - Estado: " + inventario.getEstado());
-                System.out.println("  - Sectores completados: " + inventario.getSectoresCompletados());
-                System.out.println("  - Total sectores: " + inventario.getTotalSectores());
-                System.out.println("  - Porcentaje completado: " + inventario.getPorcentajeCompletado());
-                System.out.println("  - Finalizado: " + finalizado);
+                logger.debug("🔍 Estado final del inventario:");
+                logger.debug("  - ID: {}", inventario.getId());
+                logger.debug("  - Estado: {}", inventario.getEstado());
+                logger.debug("  - Sectores completados: {}", inventario.getSectoresCompletados());
+                logger.debug("  - Total sectores: {}", inventario.getTotalSectores());
+                logger.debug("  - Porcentaje completado: {}", inventario.getPorcentajeCompletado());
+                logger.debug("  - Finalizado: {}", finalizado);
             }
             
-            System.out.println("✅ Sector cancelado de completado sin conteo exitosamente");
+            logger.debug("✅ Sector cancelado de completado sin conteo exitosamente");
         } catch (Exception e) {
-            System.err.println("❌ Error cancelando sector completado sin conteo: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error cancelando sector completado sin conteo: {}", e.getMessage(), e);
             throw e;
         }
     }
@@ -5536,11 +5719,12 @@ public class InventarioCompletoService {
      */
     @Transactional
     public void marcarSectorCompletadoVacio(Long inventarioId, Long sectorId, String sectorNombre, Usuario usuario) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         try {
-            System.out.println("🔄 === MARCAR SECTOR COMPLETADO VACÍO ===");
-            System.out.println("🔍 Inventario ID: " + inventarioId);
-            System.out.println("🔍 Sector ID: " + sectorId);
-            System.out.println("🔍 Sector Nombre: " + sectorNombre);
+            logger.debug("🔄 === MARCAR SECTOR COMPLETADO VACÍO ===");
+            logger.debug("🔍 Inventario ID: {}", inventarioId);
+            logger.debug("🔍 Sector ID: {}", sectorId);
+            logger.debug("🔍 Sector Nombre: {}", sectorNombre);
             
             // Obtener el inventario completo
             InventarioCompleto inventario = inventarioCompletoRepository.findById(inventarioId)
@@ -5578,13 +5762,13 @@ public class InventarioCompletoService {
             }
             
             // PASO CRÍTICO: Obtener todos los productos con stock en este sector
-            System.out.println("🔄 === OBTENIENDO PRODUCTOS CON STOCK EN EL SECTOR ===");
+            logger.debug("🔄 === OBTENIENDO PRODUCTOS CON STOCK EN EL SECTOR ===");
             List<StockPorSector> stocksEnSector = stockPorSectorRepository.findBySectorId(sectorId);
-            System.out.println("🔍 Productos encontrados en el sector: " + stocksEnSector.size());
+            logger.debug("🔍 Productos encontrados en el sector: {}", stocksEnSector.size());
             
             List<Map<String, Object>> filasVaciado = construirFilasJsonSnapshotSectorVaciado(stocksEnSector);
             conteo.setSnapshotStockSinConteo(serializarSnapshotStockSinConteo(filasVaciado));
-            System.out.println("🔍 Snapshot sector vacío: " + filasVaciado.size() + " productos con stock previo");
+            logger.debug("🔍 Snapshot sector vacío: {} productos con stock previo", filasVaciado.size());
             
             int productosDescontados = 0;
             int cantidadTotalDescontada = 0;
@@ -5597,8 +5781,9 @@ public class InventarioCompletoService {
                 Producto producto = stock.getProducto();
                 Integer cantidadEnSector = stock.getCantidad();
                 
-                System.out.println("🔄 Procesando producto: " + producto.getNombre() + 
-                    " - Cantidad en sector: " + cantidadEnSector);
+                if (muestreo.tomar()) {
+                    logger.debug("🔄 Procesando producto: {} - Cantidad en sector: {}", producto.getNombre(), cantidadEnSector);
+                }
                 
                 // Crear DetalleConteo con cantidad 0 para ambos usuarios (sector vacío)
                 DetalleConteo detalleConteo;
@@ -5647,12 +5832,24 @@ public class InventarioCompletoService {
                 producto.setStock(stockTotalRecalculado);
                 productoRepository.save(producto);
                 
-                System.out.println("✅ Producto procesado:");
-                System.out.println("  - Producto: " + producto.getNombre());
-                System.out.println("  - Cantidad descontada del sector: " + cantidadEnSector);
-                System.out.println("  - Stock anterior total: " + stockAnterior);
-                System.out.println("  - Stock nuevo total (recalculado): " + stockTotalRecalculado);
-                System.out.println("  - Diferencia: " + (stockTotalRecalculado - stockAnterior));
+                if (muestreo.tomar()) {
+                    logger.debug("✅ Producto procesado:");
+                }
+                if (muestreo.tomar()) {
+                    logger.debug("  - Producto: {}", producto.getNombre());
+                }
+                if (muestreo.tomar()) {
+                    logger.debug("  - Cantidad descontada del sector: {}", cantidadEnSector);
+                }
+                if (muestreo.tomar()) {
+                    logger.debug("  - Stock anterior total: {}", stockAnterior);
+                }
+                if (muestreo.tomar()) {
+                    logger.debug("  - Stock nuevo total (recalculado): {}", stockTotalRecalculado);
+                }
+                if (muestreo.tomar()) {
+                    logger.debug("  - Diferencia: {}", (stockTotalRecalculado - stockAnterior));
+                }
                 
                 productosDescontados++;
                 cantidadTotalDescontada += cantidadEnSector;
@@ -5665,32 +5862,31 @@ public class InventarioCompletoService {
             conteo.setPorcentajeCompletado(100.0);
             conteoSectorRepository.save(conteo);
             
-            System.out.println("🔄 === RESUMEN DE DESCUENTO ===");
-            System.out.println("  - Productos procesados: " + productosDescontados);
-            System.out.println("  - Cantidad total descontada: " + cantidadTotalDescontada);
+            logger.debug("🔄 === RESUMEN DE DESCUENTO ===");
+            logger.debug("  - Productos procesados: {}", productosDescontados);
+            logger.debug("  - Cantidad total descontada: {}", cantidadTotalDescontada);
             
             // Actualizar el progreso del inventario completo
-            System.out.println("🔄 === ACTUALIZANDO PROGRESO DEL INVENTARIO ===");
+            logger.debug("🔄 === ACTUALIZANDO PROGRESO DEL INVENTARIO ===");
             boolean finalizado = verificarYFinalizarInventarioCompleto(inventario.getId());
-            System.out.println("🔄 Resultado de verificarYFinalizarInventarioCompleto: " + finalizado);
+            logger.debug("🔄 Resultado de verificarYFinalizarInventarioCompleto: {}", finalizado);
             
             // Recargar el inventario para obtener los datos actualizados
             inventario = inventarioCompletoRepository.findById(inventarioId).orElse(null);
             if (inventario != null) {
-                System.out.println("🔍 Estado final del inventario:");
-                System.out.println("  - ID: " + inventario.getId());
-                System.out.println("  - Estado: " + inventario.getEstado());
-                System.out.println("  - Sectores completados: " + inventario.getSectoresCompletados());
-                System.out.println("  - Total sectores: " + inventario.getTotalSectores());
-                System.out.println("  - Porcentaje completado: " + inventario.getPorcentajeCompletado());
-                System.out.println("  - Finalizado: " + finalizado);
+                logger.debug("🔍 Estado final del inventario:");
+                logger.debug("  - ID: {}", inventario.getId());
+                logger.debug("  - Estado: {}", inventario.getEstado());
+                logger.debug("  - Sectores completados: {}", inventario.getSectoresCompletados());
+                logger.debug("  - Total sectores: {}", inventario.getTotalSectores());
+                logger.debug("  - Porcentaje completado: {}", inventario.getPorcentajeCompletado());
+                logger.debug("  - Finalizado: {}", finalizado);
             }
             
-            System.out.println("✅ Sector marcado como completado vacío exitosamente");
+            logger.debug("✅ Sector marcado como completado vacío exitosamente");
             
         } catch (Exception e) {
-            System.err.println("❌ Error marcando sector como completado vacío: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error marcando sector como completado vacío: {}", e.getMessage(), e);
             throw e;
         }
     }
@@ -5699,26 +5895,38 @@ public class InventarioCompletoService {
      * Verificar y corregir stock de sectores "completado sin conteo"
      */
     private void verificarYCorregirStockSectoresSinConteo(InventarioCompleto inventario) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         try {
-            System.out.println("🔄 === VERIFICANDO STOCK DE SECTORES SIN CONTEO ===");
+            logger.debug("🔄 === VERIFICANDO STOCK DE SECTORES SIN CONTEO ===");
             
             // Obtener todos los sectores "completado sin conteo"
             List<ConteoSector> sectoresSinConteo = conteoSectorRepository.findByInventarioCompleto(inventario).stream()
                 .filter(sector -> sector.getEstado() == ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO)
                 .collect(Collectors.toList());
             
-            System.out.println("🔍 Sectores sin conteo encontrados: " + sectoresSinConteo.size());
+            logger.debug("🔍 Sectores sin conteo encontrados: {}", sectoresSinConteo.size());
+            if (sectoresSinConteo.isEmpty()) {
+                return;
+            }
+            
+            // Obtener todos los productos de la empresa
+            List<Producto> productosEmpresa = productoRepository.findByEmpresaId(inventario.getEmpresa().getId());
             
             for (ConteoSector conteoSector : sectoresSinConteo) {
                 Sector sector = conteoSector.getSector();
-                System.out.println("🔍 Verificando sector: " + sector.getNombre() + " (ID: " + sector.getId() + ")");
+                if (muestreo.tomar()) {
+                    logger.debug("🔍 Verificando sector: {} (ID: {})", sector.getNombre(), sector.getId());
+                }
                 
-                // Obtener todos los productos de la empresa
-                List<Producto> productosEmpresa = productoRepository.findByEmpresaId(inventario.getEmpresa().getId());
+                // Filas del sector en una consulta
+                Map<Long, StockPorSector> stockDelSector = new HashMap<>();
+                for (StockPorSector stockPorSector : stockPorSectorRepository.findBySectorId(sector.getId())) {
+                    stockDelSector.putIfAbsent(stockPorSector.getProducto().getId(), stockPorSector);
+                }
                 
                 for (Producto producto : productosEmpresa) {
                     // Verificar si el producto tiene stock en este sector
-                    Optional<StockPorSector> stockExistente = stockPorSectorRepository.findByProductoIdAndSectorId(producto.getId(), sector.getId());
+                    Optional<StockPorSector> stockExistente = Optional.ofNullable(stockDelSector.get(producto.getId()));
                     
                     if (!stockExistente.isPresent()) {
                         // El producto no tiene stock en este sector, pero podría tenerlo según su sector de almacenamiento
@@ -5726,21 +5934,24 @@ public class InventarioCompletoService {
                             // Crear registro de stock para preservar el stock original
                             StockPorSector nuevoStock = new StockPorSector(producto, sector, producto.getStock());
                             stockPorSectorRepository.save(nuevoStock);
-                            System.out.println("✅ Stock creado para preservar: " + producto.getNombre() + " en " + sector.getNombre() + " = " + producto.getStock());
+                            if (muestreo.tomar()) {
+                                logger.debug("✅ Stock creado para preservar: {} en {} = {}", producto.getNombre(), sector.getNombre(), producto.getStock());
+                            }
                         }
                     } else {
                         // El producto ya tiene stock en este sector
                         StockPorSector stock = stockExistente.get();
-                        System.out.println("✅ Stock ya existe: " + producto.getNombre() + " en " + sector.getNombre() + " = " + stock.getCantidad());
+                        if (muestreo.tomar()) {
+                            logger.debug("✅ Stock ya existe: {} en {} = {}", producto.getNombre(), sector.getNombre(), stock.getCantidad());
+                        }
                     }
                 }
             }
             
-            System.out.println("🔄 === VERIFICACIÓN COMPLETADA ===");
+            logger.debug("🔄 === VERIFICACIÓN COMPLETADA ===");
             
         } catch (Exception e) {
-            System.err.println("❌ Error verificando stock de sectores sin conteo: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ Error verificando stock de sectores sin conteo: {}", e.getMessage(), e);
         }
     }
 
@@ -5753,6 +5964,7 @@ public class InventarioCompletoService {
     private void incorporarProductosSinRegistroDeConteoEnSectoresContados(
             List<ConteoSector> sectoresContados,
             Map<Long, Map<String, Object>> productosConsolidados) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
 
         for (ConteoSector sector : sectoresContados) {
             // Solo excluir si hubo conteo con cantidad > 0 (línea en 0,0 = nadie contó de hecho)
@@ -5842,8 +6054,9 @@ public class InventarioCompletoService {
                     productosConsolidados.put(pid, nuevo);
                 }
 
-                System.out.println("  ⚠️ [CONTEO] Stock en sector contado sin detalle: " + prod.getNombre()
-                        + " → " + sector.getNombreSector() + " (esperado en depósito: " + cant + ")");
+                if (muestreo.tomar()) {
+                    logger.debug("  ⚠️ [CONTEO] Stock en sector contado sin detalle: {} → {} (esperado en depósito: {})", prod.getNombre(), sector.getNombreSector(), cant);
+                }
             }
         }
     }
@@ -5898,6 +6111,7 @@ public class InventarioCompletoService {
      * Calcular stock ajustado descontando sectores completados sin conteo
      */
     private Integer calcularStockAjustado(Long productoId, Integer stockOriginal, List<ConteoSector> sectoresSinConteo) {
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         try {
             if (sectoresSinConteo.isEmpty()) {
                 return stockOriginal; // No hay sectores sin conteo, usar stock original
@@ -5916,23 +6130,24 @@ public class InventarioCompletoService {
                 for (StockPorSector stockPorSector : stockPorSectores) {
                     if (stockPorSector.getSector().getId().equals(sectorSinConteo.getSector().getId())) {
                         stockEnSectoresSinConteo += stockPorSector.getCantidad();
-                        System.out.println("    📦 Descontando stock del sector " + sectorSinConteo.getSector().getNombre() + 
-                                         ": " + stockPorSector.getCantidad());
+                        if (muestreo.tomar()) {
+                            logger.debug("    📦 Descontando stock del sector {}: {}", sectorSinConteo.getSector().getNombre(), stockPorSector.getCantidad());
+                        }
                     }
                 }
             }
             
             Integer stockAjustado = stockOriginal - stockEnSectoresSinConteo;
             
-            System.out.println("    📊 Stock ajustado para producto ID " + productoId + ":");
-            System.out.println("      - Stock original: " + stockOriginal);
-            System.out.println("      - Stock en sectores sin conteo: " + stockEnSectoresSinConteo);
-            System.out.println("      - Stock ajustado: " + stockAjustado);
+            logger.debug("    📊 Stock ajustado para producto ID {}:", productoId);
+            logger.debug("      - Stock original: {}", stockOriginal);
+            logger.debug("      - Stock en sectores sin conteo: {}", stockEnSectoresSinConteo);
+            logger.debug("      - Stock ajustado: {}", stockAjustado);
             
             return Math.max(0, stockAjustado); // No permitir stock negativo
             
         } catch (Exception e) {
-            System.err.println("❌ Error calculando stock ajustado para producto " + productoId + ": " + e.getMessage());
+            logger.error("❌ Error calculando stock ajustado para producto {}: {}", productoId, e.getMessage());
             return stockOriginal; // En caso de error, usar stock original
         }
     }
@@ -5945,57 +6160,58 @@ public class InventarioCompletoService {
      * ✅ NUEVA LÓGICA SIMPLE: Establece la referencia inicial usando el servicio simple
      */
     public void establecerReferenciaInicialSimple(ConteoSector conteoSector) {
-        System.out.println("🔍 [SIMPLE] Estableciendo referencia inicial para sector: " + conteoSector.getId());
-        System.out.println("🔍 [SIMPLE] Estado del sector antes: " + conteoSector.getEstado());
-        System.out.println("🔍 [SIMPLE] Referencia antes: " + conteoSector.getReferenciaActual());
+        logger.debug("🔍 [SIMPLE] Estableciendo referencia inicial para sector: {}", conteoSector.getId());
+        logger.debug("🔍 [SIMPLE] Estado del sector antes: {}", conteoSector.getEstado());
+        logger.debug("🔍 [SIMPLE] Referencia antes: {}", conteoSector.getReferenciaActual());
         
         inventarioCompletoServiceSimple.establecerReferenciaInicial(conteoSector);
         
-        System.out.println("🔍 [SIMPLE] Referencia después del servicio simple: " + conteoSector.getReferenciaActual());
+        logger.debug("🔍 [SIMPLE] Referencia después del servicio simple: {}", conteoSector.getReferenciaActual());
         
         // Guardar el sector con la referencia actualizada
         ConteoSector sectorGuardado = conteoSectorRepository.save(conteoSector);
-        System.out.println("✅ [SIMPLE] Referencia inicial guardada en base de datos");
-        System.out.println("✅ [SIMPLE] Referencia en sector guardado: " + sectorGuardado.getReferenciaActual());
+        logger.debug("✅ [SIMPLE] Referencia inicial guardada en base de datos");
+        logger.debug("✅ [SIMPLE] Referencia en sector guardado: {}", sectorGuardado.getReferenciaActual());
     }
 
     /**
      * ✅ NUEVA LÓGICA SIMPLE: Actualiza la referencia actual usando el servicio simple
      */
     public void actualizarReferenciaActualSimple(ConteoSector conteoSector) {
-        System.out.println("🔍 [SIMPLE] Actualizando referencia actual para sector: " + conteoSector.getId());
+        logger.debug("🔍 [SIMPLE] Actualizando referencia actual para sector: {}", conteoSector.getId());
         inventarioCompletoServiceSimple.actualizarReferenciaActual(conteoSector);
         
         // Guardar el sector con la referencia actualizada
         conteoSectorRepository.save(conteoSector);
-        System.out.println("✅ [SIMPLE] Referencia actual guardada en base de datos");
+        logger.debug("✅ [SIMPLE] Referencia actual guardada en base de datos");
     }
 
     /**
      * ✅ NUEVA LÓGICA SIMPLE: Obtiene los detalles para reconteo usando la referencia actual
      */
     public List<Map<String, Object>> obtenerDetallesParaReconteoSimple(Long conteoSectorId, Long usuarioId) {
-        System.out.println("🔍 [SIMPLE] Obteniendo detalles para reconteo (lógica simple) - Sector: " + conteoSectorId);
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
+        logger.debug("🔍 [SIMPLE] Obteniendo detalles para reconteo (lógica simple) - Sector: {}", conteoSectorId);
         
         ConteoSector conteoSector = obtenerConteoSectorPorId(conteoSectorId);
         if (conteoSector == null) {
-            System.out.println("❌ [SIMPLE] ConteoSector no encontrado para ID: " + conteoSectorId);
+            logger.debug("❌ [SIMPLE] ConteoSector no encontrado para ID: {}", conteoSectorId);
             return new ArrayList<>();
         }
 
         // Verificar que tiene referencia actual
-        System.out.println("🔍 [SIMPLE] Verificando referencia actual:");
-        System.out.println("  - Referencia actual es null: " + (conteoSector.getReferenciaActual() == null));
-        System.out.println("  - Referencia actual está vacía: " + (conteoSector.getReferenciaActual() != null && conteoSector.getReferenciaActual().trim().isEmpty()));
-        System.out.println("  - Referencia actual: " + conteoSector.getReferenciaActual());
+        logger.debug("🔍 [SIMPLE] Verificando referencia actual:");
+        logger.debug("  - Referencia actual es null: {}", (conteoSector.getReferenciaActual() == null));
+        logger.debug("  - Referencia actual está vacía: {}", (conteoSector.getReferenciaActual() != null && conteoSector.getReferenciaActual().trim().isEmpty()));
+        logger.debug("  - Referencia actual: {}", conteoSector.getReferenciaActual());
         
         if (conteoSector.getReferenciaActual() == null || conteoSector.getReferenciaActual().trim().isEmpty()) {
-            System.out.println("⚠️ [SIMPLE] No hay referencia actual, estableciendo referencia inicial...");
+            logger.debug("⚠️ [SIMPLE] No hay referencia actual, estableciendo referencia inicial...");
             establecerReferenciaInicialSimple(conteoSector);
             
             // Recargar el conteoSector después de establecer la referencia
             conteoSector = obtenerConteoSectorPorId(conteoSectorId);
-            System.out.println("🔍 [SIMPLE] Referencia actual después de establecer: " + conteoSector.getReferenciaActual());
+            logger.debug("🔍 [SIMPLE] Referencia actual después de establecer: {}", conteoSector.getReferenciaActual());
         }
 
         List<Map<String, Object>> detallesReconteo = new ArrayList<>();
@@ -6003,7 +6219,7 @@ public class InventarioCompletoService {
         try {
             // Parsear la referencia actual (JSON simple)
             String referenciaJson = conteoSector.getReferenciaActual();
-            System.out.println("🔍 [SIMPLE] Referencia actual: " + referenciaJson);
+            logger.debug("🔍 [SIMPLE] Referencia actual: {}", referenciaJson);
             
             // ✅ CORRECCIÓN: Obtener detalles actuales del sector
             List<DetalleConteo> detalles = detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector);
@@ -6015,7 +6231,7 @@ public class InventarioCompletoService {
             }
             
             // ✅ FILTRO CRÍTICO: Solo procesar productos que TIENEN DIFERENCIAS
-            System.out.println("🔍 [SIMPLE] Filtrando productos con diferencias...");
+            logger.debug("🔍 [SIMPLE] Filtrando productos con diferencias...");
             int totalProductos = detallesPorProducto.size();
             int productosConDiferencias = 0;
             
@@ -6040,11 +6256,19 @@ public class InventarioCompletoService {
                             int cantidadUsuario2 = Integer.parseInt(usuario2Ref.toString());
                             tieneDiferencias = cantidadUsuario1 != cantidadUsuario2;
                             
-                            System.out.println("🔍 [SIMPLE] Producto " + productoId + " (" + primerDetalle.getProducto().getNombre() + "):");
-                            System.out.println("  - Usuario1: " + cantidadUsuario1 + ", Usuario2: " + cantidadUsuario2);
-                            System.out.println("  - Tiene diferencias: " + tieneDiferencias);
+                            if (muestreo.tomar()) {
+                                logger.debug("🔍 [SIMPLE] Producto {} ({}):", productoId, primerDetalle.getProducto().getNombre());
+                            }
+                            if (muestreo.tomar()) {
+                                logger.debug("  - Usuario1: {}, Usuario2: {}", cantidadUsuario1, cantidadUsuario2);
+                            }
+                            if (muestreo.tomar()) {
+                                logger.debug("  - Tiene diferencias: {}", tieneDiferencias);
+                            }
                         } catch (NumberFormatException e) {
-                            System.out.println("⚠️ [SIMPLE] Error parseando cantidades para producto " + productoId);
+                            if (muestreo.tomar()) {
+                                logger.debug("⚠️ [SIMPLE] Error parseando cantidades para producto {}", productoId);
+                            }
                             tieneDiferencias = false;
                         }
                     }
@@ -6053,7 +6277,9 @@ public class InventarioCompletoService {
                 // ✅ SOLO PROCESAR PRODUCTOS CON DIFERENCIAS
                 if (tieneDiferencias) {
                     productosConDiferencias++;
-                    System.out.println("✅ [SIMPLE] Incluyendo producto " + productoId + " en reconteo (tiene diferencias)");
+                    if (muestreo.tomar()) {
+                        logger.debug("✅ [SIMPLE] Incluyendo producto {} en reconteo (tiene diferencias)", productoId);
+                    }
                     Map<String, Object> detalleReconteo = new HashMap<>();
                     detalleReconteo.put("productoId", productoId);
                     detalleReconteo.put("nombreProducto", primerDetalle.getProducto().getNombre());
@@ -6137,14 +6363,30 @@ public class InventarioCompletoService {
                     String formulasActual2 = String.join(" | ", formulasActual2List);
                     
                     // Debug: Mostrar valores calculados
-                    System.out.println("🔍 [SIMPLE] Producto " + productoId + " - Reconteo:");
-                    System.out.println("  - Estado del sector: " + conteoSector.getEstado());
-                    System.out.println("  - Observaciones: " + observaciones);
-                    System.out.println("  - Ambos usuarios terminaron: " + ambosUsuariosTerminaron);
-                    System.out.println("  - Referencia Usuario1: " + valoresReferencia.get("usuario1") + " (fórmulas: " + valoresReferencia.get("formulas1") + ")");
-                    System.out.println("  - Referencia Usuario2: " + valoresReferencia.get("usuario2") + " (fórmulas: " + valoresReferencia.get("formulas2") + ")");
-                    System.out.println("  - Reconteo Usuario1: " + cantidadActual1 + " (fórmulas: " + formulasActual1 + ")");
-                    System.out.println("  - Reconteo Usuario2: " + cantidadActual2 + " (fórmulas: " + formulasActual2 + ")");
+                    if (muestreo.tomar()) {
+                        logger.debug("🔍 [SIMPLE] Producto {} - Reconteo:", productoId);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Estado del sector: {}", conteoSector.getEstado());
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Observaciones: {}", observaciones);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Ambos usuarios terminaron: {}", ambosUsuariosTerminaron);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Referencia Usuario1: {} (fórmulas: {})", valoresReferencia.get("usuario1"), valoresReferencia.get("formulas1"));
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Referencia Usuario2: {} (fórmulas: {})", valoresReferencia.get("usuario2"), valoresReferencia.get("formulas2"));
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Reconteo Usuario1: {} (fórmulas: {})", cantidadActual1, formulasActual1);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Reconteo Usuario2: {} (fórmulas: {})", cantidadActual2, formulasActual2);
+                    }
                     
                     // 3. VALORES ACTUALES DEL RECONTEO (para que el usuario vea lo que ya ingresó)
                     detalleReconteo.put("cantidadConteo1", cantidadActual1);
@@ -6163,7 +6405,9 @@ public class InventarioCompletoService {
                             int cantidadUsuario2Ref = Integer.parseInt(usuario2Ref.toString());
                             diferenciaEntreUsuariosReferencia = Math.abs(cantidadUsuario1Ref - cantidadUsuario2Ref);
                         } catch (NumberFormatException e) {
-                            System.out.println("⚠️ [SIMPLE] Error parseando cantidades de referencia para diferencia");
+                            if (muestreo.tomar()) {
+                                logger.debug("⚠️ [SIMPLE] Error parseando cantidades de referencia para diferencia");
+                            }
                         }
                     }
                     
@@ -6174,23 +6418,28 @@ public class InventarioCompletoService {
                     detalleReconteo.put("hayDiferencias", hayDiferencias);
                     
                     // Debug: Mostrar diferencias
-                    System.out.println("  - Diferencia entre usuarios (REFERENCIA): " + diferenciaEntreUsuariosReferencia + " (hayDiferencias: " + hayDiferencias + ")");
-                    System.out.println("  - Valores referencia - Usuario1: " + usuario1Ref + ", Usuario2: " + usuario2Ref);
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Diferencia entre usuarios (REFERENCIA): {} (hayDiferencias: {})", diferenciaEntreUsuariosReferencia, hayDiferencias);
+                    }
+                    if (muestreo.tomar()) {
+                        logger.debug("  - Valores referencia - Usuario1: {}, Usuario2: {}", usuario1Ref, usuario2Ref);
+                    }
                     
                     detallesReconteo.add(detalleReconteo);
                 } else {
-                    System.out.println("⏭️ [SIMPLE] Saltando producto " + productoId + " - NO tiene diferencias");
+                    if (muestreo.tomar()) {
+                        logger.debug("⏭️ [SIMPLE] Saltando producto {} - NO tiene diferencias", productoId);
+                    }
                 }
             }
             
-            System.out.println("✅ [SIMPLE] FILTRADO COMPLETADO:");
-            System.out.println("  - Total productos en sector: " + totalProductos);
-            System.out.println("  - Productos con diferencias: " + productosConDiferencias);
-            System.out.println("  - Productos incluidos en reconteo: " + detallesReconteo.size());
+            logger.debug("✅ [SIMPLE] FILTRADO COMPLETADO:");
+            logger.debug("  - Total productos en sector: {}", totalProductos);
+            logger.debug("  - Productos con diferencias: {}", productosConDiferencias);
+            logger.debug("  - Productos incluidos en reconteo: {}", detallesReconteo.size());
             
         } catch (Exception e) {
-            System.err.println("❌ [SIMPLE] Error obteniendo detalles para reconteo: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [SIMPLE] Error obteniendo detalles para reconteo: {}", e.getMessage(), e);
         }
         
         return detallesReconteo;
@@ -6207,7 +6456,7 @@ public class InventarioCompletoService {
             // Buscar la sección del producto en el JSON
             int inicioProducto = referenciaJson.indexOf("\"" + productoIdStr + "\":{");
             if (inicioProducto == -1) {
-                System.out.println("⚠️ [SIMPLE] Producto " + productoId + " no encontrado en referencia");
+                logger.debug("⚠️ [SIMPLE] Producto {} no encontrado en referencia", productoId);
                 return null;
             }
             
@@ -6216,7 +6465,7 @@ public class InventarioCompletoService {
             int finLlave = encontrarFinLlave(referenciaJson, inicioLlave);
             
             if (inicioLlave == -1 || finLlave == -1) {
-                System.out.println("⚠️ [SIMPLE] Error parseando JSON para producto " + productoId);
+                logger.debug("⚠️ [SIMPLE] Error parseando JSON para producto {}", productoId);
                 return null;
             }
             
@@ -6248,7 +6497,7 @@ public class InventarioCompletoService {
             return valores;
             
         } catch (Exception e) {
-            System.err.println("❌ [SIMPLE] Error parseando valores de referencia para producto " + productoId + ": " + e.getMessage());
+            logger.error("❌ [SIMPLE] Error parseando valores de referencia para producto {}: {}", productoId, e.getMessage());
             return null;
         }
     }
@@ -6300,7 +6549,7 @@ public class InventarioCompletoService {
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [SIMPLE] Error extrayendo valor JSON para clave " + clave + ": " + e.getMessage());
+            logger.error("❌ [SIMPLE] Error extrayendo valor JSON para clave {}: {}", clave, e.getMessage());
             return null;
         }
     }
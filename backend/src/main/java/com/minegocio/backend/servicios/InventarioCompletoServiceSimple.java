@@ -24,6 +24,9 @@ public class InventarioCompletoServiceSimple {
     @Autowired
     private ConteoSectorRepository conteoSectorRepository;
 
+    @Autowired
+    private ProgresoConteoService progresoConteoService;
+
     /**
      * ✅ NUEVA LÓGICA SIMPLE: Establece la referencia inicial con los valores del conteo inicial
      */
@@ -442,6 +445,8 @@ public class InventarioCompletoServiceSimple {
         // Si llegamos aquí, no hay diferencias. Consolidar reconteos en los detalles
         consolidarReconteoSinDiferencias(detallesPorProducto, reconteosUsuario1, reconteosUsuario2);
         regresarEstadoConteoSinDiferencias(conteoSector, detallesPorProducto);
+        // La consolidación reescribe los detalles de todo el sector: el progreso se rearma una vez
+        progresoConteoService.reconstruir(conteoSector);
         
         System.out.println("✅ [SIMPLE] No se encontraron diferencias entre los reconteos");
         return false;
@@ -0,0 +1,326 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.dto.MovimientoDiaDTO;
+import com.minegocio.backend.entidades.IndiceEmpresa;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.entidades.StockDiarioProducto;
+import com.minegocio.backend.entidades.StockDiarioProducto.Concepto;
+import com.minegocio.backend.repositorios.IndiceEmpresaRepository;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.repositorios.StockDiarioProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Libro diario de stock por producto (StockDiarioProducto).
+ *
+ * RemitoIngresoService, PlanillaPedidoService, PlanillaDevolucionService y RoturaPerdidaService
+ * registran cada movimiento en la misma transacción del documento; los movimientos del día y
+ * por rango se leen con una sola consulta agregada sobre los productos que tuvieron movimientos.
+ * La primera consulta de una empresa reconstruye el libro desde el historial y deja la marca
+ * LIBRO_STOCK_DIARIO en indices_empresa. La reconstrucción toma el candado exclusivo de la
+ * empresa y cada registro el compartido (hasta el fin de la transacción del documento), así
+ * un documento confirmado durante la reconstrucción no queda fuera ni se cuenta dos veces.
+ */
+@Service
+public class LibroStockDiarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibroStockDiarioService.class);
+
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    // Mismo orden que las columnas de sumarMovimientosPorProducto (ingresos, devoluciones, salidas, roturas)
+    private static final Concepto[] CONCEPTOS = Concepto.values();
+    private static final String CONTADOR = "libro-stock";
+
+    @Autowired
+    private StockDiarioProductoRepository stockDiarioProductoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private IndiceEmpresaRepository indiceEmpresaRepository;
+
+    @Autowired
+    private ContadoresSql contadoresSql;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Empresas con el libro ya construido; las demás se indexan completas en la primera consulta
+    private final Set<Long> empresasIndexadas = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registra un movimiento en el libro del día del documento.
+     * Llamar antes de modificar el stock del producto: si es la primera fila del producto,
+     * el stock actual se toma como apertura. Una cantidad negativa revierte un movimiento
+     * (eliminación o edición del documento).
+     */
+    @Transactional
+    public void registrar(Long empresaId, Producto producto, LocalDateTime momento, Concepto concepto, int cantidad) {
+        if (producto == null || producto.getId() == null || cantidad == 0) {
+            return;
+        }
+        // Antes de mirar la marca: si la reconstrucción está en curso, espera a que termine
+        contadoresSql.bloquearCompartido(CONTADOR, empresaId);
+        if (!estaIndexada(empresaId)) {
+            // Sin libro todavía: la reconstrucción inicial ya va a incluir este documento
+            return;
+        }
+        Long productoId = producto.getId();
+        LocalDate fecha = momento != null ? momento.toLocalDate() : LocalDate.now();
+        int efecto = concepto.efecto(cantidad);
+        // Las reversiones no cuentan como último movimiento del día
+        LocalDateTime ultimoMovimiento = cantidad > 0 ? momento : null;
+
+        int actualizadas = stockDiarioProductoRepository.acumular(empresaId, productoId, fecha,
+                concepto == Concepto.INGRESO ? cantidad : 0,
+                concepto == Concepto.DEVOLUCION ? cantidad : 0,
+                concepto == Concepto.SALIDA ? cantidad : 0,
+                concepto == Concepto.ROTURA ? cantidad : 0,
+                efecto, ultimoMovimiento, LocalDateTime.now());
+        if (actualizadas == 0) {
+            // Primera fila del día: se da de alta vacía sin pisar a quien la cree en paralelo y se vuelve a sumar
+            int apertura = calcularApertura(empresaId, producto, fecha);
+            LocalDateTime ahora = LocalDateTime.now();
+            contadoresSql.insertarSiFalta("stock_diario_productos", ContadoresSql.fila(
+                    "empresa_id", empresaId,
+                    "producto_id", productoId,
+                    "fecha", fecha,
+                    "stock_apertura", apertura,
+                    "ingresos", 0,
+                    "devoluciones", 0,
+                    "salidas", 0,
+                    "roturas", 0,
+                    "stock_cierre", apertura,
+                    "fecha_actualizacion", ahora),
+                    "empresa_id", "producto_id", "fecha");
+            stockDiarioProductoRepository.acumular(empresaId, productoId, fecha,
+                    concepto == Concepto.INGRESO ? cantidad : 0,
+                    concepto == Concepto.DEVOLUCION ? cantidad : 0,
+                    concepto == Concepto.SALIDA ? cantidad : 0,
+                    concepto == Concepto.ROTURA ? cantidad : 0,
+                    efecto, ultimoMovimiento, ahora);
+        }
+        stockDiarioProductoRepository.desplazarPosteriores(empresaId, productoId, fecha, efecto);
+    }
+
+    /**
+     * Mueve las cantidades de un documento de un día a otro (cambio de fecha del documento)
+     */
+    @Transactional
+    public void moverFecha(Long empresaId, Map<Producto, Integer> cantidades, Concepto concepto,
+                           LocalDateTime fechaAnterior, LocalDateTime fechaNueva) {
+        if (fechaAnterior == null || fechaNueva == null || fechaAnterior.toLocalDate().equals(fechaNueva.toLocalDate())) {
+            return;
+        }
+        cantidades.forEach((producto, cantidad) -> {
+            registrar(empresaId, producto, fechaAnterior, concepto, -cantidad);
+            registrar(empresaId, producto, fechaNueva, concepto, cantidad);
+        });
+    }
+
+    /**
+     * Movimientos por producto entre dos días (inclusive), agrupados por concepto
+     */
+    @Transactional(readOnly = true)
+    public Map<Concepto, MovimientoDiaDTO.MovimientosDTO> obtenerMovimientos(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
+        asegurarIndexada(empresaId);
+
+        Map<Concepto, List<MovimientoDiaDTO.ProductoMovimientoDTO>> productos = new EnumMap<>(Concepto.class);
+        Map<Concepto, Integer> totales = new EnumMap<>(Concepto.class);
+        for (Concepto concepto : CONCEPTOS) {
+            productos.put(concepto, new ArrayList<>());
+            totales.put(concepto, 0);
+        }
+
+        for (Object[] fila : stockDiarioProductoRepository.sumarMovimientosPorProducto(empresaId, fechaInicio, fechaFin)) {
+            Long productoId = (Long) fila[0];
+            String nombre = (String) fila[1];
+            String codigo = (String) fila[2];
+            LocalDateTime ultimo = (LocalDateTime) fila[7];
+            String fechaMovimiento = ultimo != null ? ultimo.format(DATETIME_FORMATTER) : null;
+            for (int i = 0; i < CONCEPTOS.length; i++) {
+                int cantidad = fila[3 + i] != null ? ((Number) fila[3 + i]).intValue() : 0;
+                if (cantidad > 0) {
+                    productos.get(CONCEPTOS[i]).add(new MovimientoDiaDTO.ProductoMovimientoDTO(
+                            productoId, nombre, codigo, cantidad, fechaMovimiento, null));
+                    totales.merge(CONCEPTOS[i], cantidad, Integer::sum);
+                }
+            }
+        }
+
+        Map<Concepto, MovimientoDiaDTO.MovimientosDTO> resultado = new EnumMap<>(Concepto.class);
+        for (Concepto concepto : CONCEPTOS) {
+            resultado.put(concepto, new MovimientoDiaDTO.MovimientosDTO(totales.get(concepto), productos.get(concepto)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Reconstruye el libro de una empresa desde el historial con una única agregación SQL.
+     * Apertura y cierre se derivan hacia atrás desde el stock actual de cada producto.
+     */
+    @Transactional
+    public int reconstruirLibro(Long empresaId) {
+        logger.debug("🔄 [LIBRO STOCK] Reconstruyendo libro diario de stock para empresa {}", empresaId);
+
+        // Espera a que confirmen los documentos en curso; los nuevos esperan a esta transacción
+        contadoresSql.bloquearExclusivo(CONTADOR, empresaId);
+
+        Map<Long, Integer> stockActual = new HashMap<>();
+        for (Object[] fila : productoRepository.findStockPorEmpresaId(empresaId)) {
+            stockActual.put((Long) fila[0], fila[1] != null ? ((Number) fila[1]).intValue() : 0);
+        }
+
+        // Filas ordenadas por producto y día
+        Map<Long, List<StockDiarioProducto>> diasPorProducto = new HashMap<>();
+        for (Object[] fila : stockDiarioProductoRepository.agregarHistorialPorDia(empresaId)) {
+            Long productoId = ((Number) fila[0]).longValue();
+            // El día se toma del timestamp del documento: un DATE nativo puede volver corrido según la zona horaria del driver
+            LocalDateTime ultimoMovimiento = aLocalDateTime(fila[6]);
+            LocalDate dia = ultimoMovimiento != null ? ultimoMovimiento.toLocalDate() : aLocalDate(fila[1]);
+            if (dia == null || !stockActual.containsKey(productoId)) {
+                continue;
+            }
+            StockDiarioProducto registro = new StockDiarioProducto(empresaId, productoId, dia, 0);
+            registro.setIngresos(aEntero(fila[2]));
+            registro.setDevoluciones(aEntero(fila[3]));
+            registro.setSalidas(aEntero(fila[4]));
+            registro.setRoturas(aEntero(fila[5]));
+            registro.setUltimoMovimiento(ultimoMovimiento);
+            diasPorProducto.computeIfAbsent(productoId, k -> new ArrayList<>()).add(registro);
+        }
+
+        List<StockDiarioProducto> registros = new ArrayList<>();
+        diasPorProducto.forEach((productoId, dias) -> {
+            int cierre = stockActual.get(productoId);
+            for (int i = dias.size() - 1; i >= 0; i--) {
+                StockDiarioProducto dia = dias.get(i);
+                int neto = dia.getIngresos() + dia.getDevoluciones() - dia.getSalidas() - dia.getRoturas();
+                dia.setStockCierre(cierre);
+                dia.setStockApertura(cierre - neto);
+                cierre = dia.getStockApertura();
+            }
+            registros.addAll(dias);
+        });
+
+        stockDiarioProductoRepository.eliminarPorEmpresa(empresaId);
+        stockDiarioProductoRepository.saveAll(registros);
+        contadoresSql.marcarIndice(empresaId, IndiceEmpresa.TipoIndice.LIBRO_STOCK_DIARIO);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    empresasIndexadas.add(empresaId);
+                }
+            });
+        }
+
+        logger.debug("✅ [LIBRO STOCK] Filas reconstruidas: {}", registros.size());
+        return registros.size();
+    }
+
+    /**
+     * Olvida el estado de indexación (por ejemplo, después de limpiar todas las tablas)
+     */
+    public void limpiarEstado() {
+        empresasIndexadas.clear();
+    }
+
+    /**
+     * Construye el libro en una transacción propia si la empresa nunca fue indexada
+     */
+    private void asegurarIndexada(Long empresaId) {
+        if (estaIndexada(empresaId)) {
+            return;
+        }
+        TransactionTemplate reconstruccion = new TransactionTemplate(transactionManager);
+        reconstruccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reconstruccion.executeWithoutResult(estado -> {
+            // Otra réplica o petición pudo terminar la reconstrucción mientras se esperaba el candado
+            contadoresSql.bloquearExclusivo(CONTADOR, empresaId);
+            if (!indiceEmpresaRepository.existsByEmpresaIdAndTipo(empresaId, IndiceEmpresa.TipoIndice.LIBRO_STOCK_DIARIO)) {
+                reconstruirLibro(empresaId);
+            }
+        });
+        empresasIndexadas.add(empresaId);
+    }
+
+    private boolean estaIndexada(Long empresaId) {
+        if (empresasIndexadas.contains(empresaId)) {
+            return true;
+        }
+        if (indiceEmpresaRepository.existsByEmpresaIdAndTipo(empresaId, IndiceEmpresa.TipoIndice.LIBRO_STOCK_DIARIO)) {
+            empresasIndexadas.add(empresaId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Apertura de un día nuevo: cierre del día anterior del producto, o apertura del siguiente
+     * si el movimiento es anterior a todos, o el stock actual si el producto no tiene filas
+     */
+    private int calcularApertura(Long empresaId, Producto producto, LocalDate fecha) {
+        Optional<StockDiarioProducto> anterior = stockDiarioProductoRepository
+                .findFirstByEmpresaIdAndProductoIdAndFechaLessThanOrderByFechaDesc(empresaId, producto.getId(), fecha);
+        if (anterior.isPresent()) {
+            return anterior.get().getStockCierre();
+        }
+        Optional<StockDiarioProducto> siguiente = stockDiarioProductoRepository
+                .findFirstByEmpresaIdAndProductoIdAndFechaGreaterThanOrderByFechaAsc(empresaId, producto.getId(), fecha);
+        if (siguiente.isPresent()) {
+            return siguiente.get().getStockApertura();
+        }
+        return producto.getStock() != null ? producto.getStock() : 0;
+    }
+
+    private static int aEntero(Object valor) {
+        return valor != null ? ((Number) valor).intValue() : 0;
+    }
+
+    private static LocalDate aLocalDate(Object valor) {
+        if (valor instanceof LocalDate) {
+            return (LocalDate) valor;
+        }
+        if (valor instanceof java.sql.Date) {
+            return ((java.sql.Date) valor).toLocalDate();
+        }
+        if (valor instanceof java.util.Date) {
+            return new java.sql.Date(((java.util.Date) valor).getTime()).toLocalDate();
+        }
+        return valor != null ? LocalDate.parse(valor.toString().substring(0, 10)) : null;
+    }
+
+    private static LocalDateTime aLocalDateTime(Object valor) {
+        if (valor instanceof LocalDateTime) {
+            return (LocalDateTime) valor;
+        }
+        if (valor instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) valor).toLocalDateTime();
+        }
+        return null;
+    }
+}
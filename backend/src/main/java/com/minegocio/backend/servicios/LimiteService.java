@@ -1,92 +1,63 @@
 package com.minegocio.backend.servicios;
 
-import com.minegocio.backend.entidades.Empresa;
-import com.minegocio.backend.entidades.Plan;
-import com.minegocio.backend.entidades.Suscripcion;
-import com.minegocio.backend.repositorios.EmpresaRepository;
-import com.minegocio.backend.repositorios.ProductoRepository;
-import com.minegocio.backend.repositorios.ClienteRepository;
+import com.minegocio.backend.servicios.UsoEmpresaService.Recurso;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Servicio para verificar límites de suscripción
+ * Servicio para verificar límites de suscripción.
+ * El uso y los límites del plan salen de UsoEmpresaService (en memoria).
  */
 @Service
-@Transactional(readOnly = true)
 public class LimiteService {
 
     @Autowired
-    private SuscripcionAutomaticaService suscripcionAutomaticaService;
-
-    @Autowired
-    private EmpresaRepository empresaRepository;
-
-    @Autowired
-    private ProductoRepository productoRepository;
-
-    @Autowired
-    private ClienteRepository clienteRepository;
-
-    @Autowired
-    private AlmacenamientoService almacenamientoService;
+    private UsoEmpresaService usoEmpresaService;
 
     /**
      * Verifica si una empresa puede crear más productos
      */
     public boolean puedeCrearProducto(Long empresaId) {
-        Suscripcion suscripcion = suscripcionAutomaticaService.obtenerSuscripcionActiva(empresaId);
-        if (suscripcion == null) return false;
-
-        Plan plan = suscripcion.getPlan();
-        if (plan.getMaxProductos() == -1) return true; // Sin límite
+        return usoEmpresaService.obtener(empresaId).disponible(Recurso.PRODUCTOS) > 0;
+    }
 
-        long productosActuales = productoRepository.findByEmpresaIdAndActivoTrue(empresaId).size();
-        return productosActuales < plan.getMaxProductos();
+    /**
+     * Cantidad de productos que la empresa todavía puede crear (Long.MAX_VALUE si no tiene límite).
+     * Para altas masivas: se consulta una vez en lugar de llamar a puedeCrearProducto por producto.
+     */
+    public long obtenerCupoDisponibleProductos(Long empresaId) {
+        return usoEmpresaService.obtener(empresaId).disponible(Recurso.PRODUCTOS);
     }
 
     /**
      * Verifica si una empresa puede crear más clientes
      */
     public boolean puedeCrearCliente(Long empresaId) {
-        Suscripcion suscripcion = suscripcionAutomaticaService.obtenerSuscripcionActiva(empresaId);
-        if (suscripcion == null) return false;
-
-        Plan plan = suscripcion.getPlan();
-        if (plan.getMaxClientes() == -1) return true; // Sin límite
-
-        long clientesActuales = clienteRepository.countByEmpresaId(empresaId);
-        return clientesActuales < plan.getMaxClientes();
+        return usoEmpresaService.obtener(empresaId).disponible(Recurso.CLIENTES) > 0;
     }
 
     /**
      * Obtiene información de límites de una empresa
      */
     public LimiteInfo obtenerLimiteInfo(Long empresaId) {
-        Suscripcion suscripcion = suscripcionAutomaticaService.obtenerSuscripcionActiva(empresaId);
-        if (suscripcion == null) {
+        UsoEmpresaService.Uso uso = usoEmpresaService.obtener(empresaId);
+        if (!uso.isConSuscripcion()) {
             return new LimiteInfo(0, 0, 0, 0, 0, 0, 0, 0, "Sin suscripción");
         }
 
-        Plan plan = suscripcion.getPlan();
-        long productosActuales = productoRepository.findByEmpresaIdAndActivoTrue(empresaId).size();
-        long clientesActuales = clienteRepository.countByEmpresaId(empresaId);
-
-        // Obtener almacenamiento total (archivos + base de datos)
-        long almacenamientoActualBytes = almacenamientoService.obtenerAlmacenamientoTotalBytes(empresaId);
-        long almacenamientoActualGB = almacenamientoActualBytes / (1024 * 1024 * 1024);
+        // Almacenamiento total (archivos + base de datos)
+        long almacenamientoActualGB = uso.getAlmacenamientoBytes() / (1024 * 1024 * 1024);
 
         return new LimiteInfo(
-            productosActuales,
-            plan.getMaxProductos(),
-            clientesActuales,
-            plan.getMaxClientes(),
-            0, // TODO: Implementar conteo de usuarios
-            plan.getMaxUsuarios(),
+            uso.getProductos(),
+            uso.getMaxProductos(),
+            uso.getClientes(),
+            uso.getMaxClientes(),
+            uso.getUsuarios(),
+            uso.getMaxUsuarios(),
             almacenamientoActualGB,
-            plan.getMaxAlmacenamientoGB(),
-            plan.getNombre()
+            uso.getMaxAlmacenamientoGB(),
+            uso.getPlanNombre()
         );
     }
 
@@ -0,0 +1,223 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.seguridad.UsuarioPrincipal;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Tiempos de las operaciones de negocio costosas (movimientos del día, conteos de inventario,
+ * exportaciones Excel, pedidos e importaciones) en una sola métrica: negocio.operacion.
+ * - Timer con histograma publicado, para calcular percentiles en Prometheus (/actuator/prometheus)
+ * - Etiquetas: operacion, nivel (plan activo de la empresa) y resultado (ok, error, rollback)
+ * - Dentro de una transacción el tiempo se registra al terminarla, así incluye el commit y una
+ *   transacción revertida cuenta como rollback aunque el método no haya lanzado excepción
+ *
+ * El nivel se resuelve por empresa con JdbcTemplate (un error no marca la transacción para rollback)
+ * y se cachea unos minutos; las empresas sin suscripción activa quedan como "sin_plan".
+ */
+@Service
+public class MetricasOperacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricasOperacionesService.class);
+
+    public static final String METRICA = "negocio.operacion";
+
+    public static final String RESULTADO_OK = "ok";
+    public static final String RESULTADO_ERROR = "error";
+    public static final String RESULTADO_ROLLBACK = "rollback";
+
+    static final String NIVEL_SIN_PLAN = "sin_plan";
+    static final String NIVEL_SIN_EMPRESA = "sin_empresa";
+    static final String NIVEL_DESCONOCIDO = "desconocido";
+
+    private static final String SQL_PLAN_ACTIVO =
+        "SELECT p.nombre FROM suscripciones s JOIN planes p ON p.id = s.plan_id " +
+        "WHERE s.empresa_id = ? AND s.estado = 'ACTIVA' ORDER BY s.fecha_inicio DESC";
+
+    @Value("${minegocio.metricas.nivel.ttl-segundos:600}")
+    private long ttlNivelSegundos;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, NivelCacheado> niveles = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta la operación midiendo su duración. Si empresaId es null se toma la del usuario autenticado.
+     */
+    public <T> T medir(String operacion, Long empresaId, Supplier<T> cuerpo) {
+        Medicion medicion = iniciar(operacion, empresaId);
+        try {
+            T resultado = cuerpo.get();
+            medicion.terminar(RESULTADO_OK);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            medicion.terminar(RESULTADO_ERROR);
+            throw e;
+        }
+    }
+
+    public void medir(String operacion, Long empresaId, Runnable cuerpo) {
+        medir(operacion, empresaId, () -> {
+            cuerpo.run();
+            return null;
+        });
+    }
+
+    /**
+     * Comienza una medición que termina en otro punto del código (por ejemplo al escribir una descarga)
+     */
+    public Medicion iniciar(String operacion, Long empresaId) {
+        return iniciar(operacion, empresaId, System.nanoTime());
+    }
+
+    /**
+     * Como {@link #iniciar(String, Long)} pero con el instante de inicio ya tomado (System.nanoTime)
+     */
+    public Medicion iniciar(String operacion, Long empresaId, long inicioNanos) {
+        if (meterRegistry == null) {
+            return Medicion.NULA;
+        }
+        String nivel = resolverNivel(empresaId != null ? empresaId : empresaAutenticada());
+        return new Medicion(this, operacion, nivel, inicioNanos);
+    }
+
+    /**
+     * Observador para un libro Excel: mide desde que se crea el libro hasta que se terminó de escribir
+     * en la respuesta (o se descartó por un error). La operación queda como "excel.{reporte}".
+     */
+    public LibroExcelStreaming.ObservadorLibro exportacionExcel(String reporte, Long empresaId) {
+        Medicion medicion = iniciar("excel." + reporte, empresaId);
+        return exito -> medicion.terminar(exito ? RESULTADO_OK : RESULTADO_ERROR);
+    }
+
+    void registrar(String operacion, String nivel, String resultado, long nanos) {
+        Timer.builder(METRICA)
+            .description("Duración de las operaciones de negocio")
+            .tag("operacion", operacion)
+            .tag("nivel", nivel)
+            .tag("resultado", resultado)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(5))
+            .maximumExpectedValue(Duration.ofMinutes(5))
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    String resolverNivel(Long empresaId) {
+        if (empresaId == null) {
+            return NIVEL_SIN_EMPRESA;
+        }
+        long ahora = System.currentTimeMillis();
+        NivelCacheado cacheado = niveles.get(empresaId);
+        if (cacheado != null && cacheado.expiraEn > ahora) {
+            return cacheado.nivel;
+        }
+        String nivel;
+        try {
+            List<String> planes = jdbcTemplate.queryForList(SQL_PLAN_ACTIVO, String.class, empresaId);
+            nivel = planes.isEmpty() ? NIVEL_SIN_PLAN : normalizarNivel(planes.get(0));
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo resolver el plan de la empresa {} para métricas: {}", empresaId, e.getMessage());
+            return NIVEL_DESCONOCIDO;
+        }
+        niveles.put(empresaId, new NivelCacheado(nivel, ahora + ttlNivelSegundos * 1000));
+        return nivel;
+    }
+
+    /**
+     * Nombre del plan como etiqueta: minúsculas, sin acentos y solo [a-z0-9_]
+     */
+    static String normalizarNivel(String nombrePlan) {
+        if (nombrePlan == null || nombrePlan.isBlank()) {
+            return NIVEL_SIN_PLAN;
+        }
+        String sinAcentos = Normalizer.normalize(nombrePlan.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        String nivel = sinAcentos.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_+|_+$", "");
+        if (nivel.length() > 40) {
+            nivel = nivel.substring(0, 40);
+        }
+        return nivel.isEmpty() ? NIVEL_SIN_PLAN : nivel;
+    }
+
+    private Long empresaAutenticada() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UsuarioPrincipal principal) {
+            return principal.getEmpresaId();
+        }
+        return null;
+    }
+
+    /**
+     * Medición en curso. terminar() se puede llamar una sola vez; las llamadas siguientes se ignoran.
+     */
+    public static class Medicion {
+
+        static final Medicion NULA = new Medicion(null, null, null, 0);
+
+        private final MetricasOperacionesService metricas;
+        private final String operacion;
+        private final String nivel;
+        private final long inicioNanos;
+        private boolean terminada;
+
+        Medicion(MetricasOperacionesService metricas, String operacion, String nivel, long inicioNanos) {
+            this.metricas = metricas;
+            this.operacion = operacion;
+            this.nivel = nivel;
+            this.inicioNanos = inicioNanos;
+        }
+
+        /**
+         * Registra la duración con el resultado dado. Si hay una transacción activa el registro
+         * se posterga hasta que termine, y un rollback reemplaza un resultado "ok".
+         */
+        public void terminar(String resultado) {
+            if (metricas == null || terminada) {
+                return;
+            }
+            terminada = true;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        String resultadoFinal = status != STATUS_COMMITTED && RESULTADO_OK.equals(resultado)
+                            ? RESULTADO_ROLLBACK : resultado;
+                        registrarAhora(resultadoFinal);
+                    }
+                });
+            } else {
+                registrarAhora(resultado);
+            }
+        }
+
+        private void registrarAhora(String resultado) {
+            metricas.registrar(operacion, nivel, resultado, System.nanoTime() - inicioNanos);
+        }
+    }
+
+    private record NivelCacheado(String nivel, long expiraEn) {
+    }
+}
@@ -4,6 +4,10 @@ import com.minegocio.backend.dto.MovimientoDiaDTO;
 import com.minegocio.backend.entidades.*;
 import com.minegocio.backend.repositorios.*;
 import com.minegocio.backend.seguridad.UsuarioPrincipal;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
+import com.minegocio.backend.utilidades.MuestreoLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,7 +17,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.io.IOException;
-import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -21,10 +24,11 @@ import java.util.*;
 import java.util.stream.Collectors;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 @Service
 public class MovimientoDiaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimientoDiaService.class);
     
     // Configurar sistema para modo headless al inicializar la clase
     static {
@@ -77,60 +81,49 @@ public class MovimientoDiaService {
     @Autowired
     private NotificacionService notificacionService;
     
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
+    
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
     
-    // Cache para almacenar el stock inicial de cada día por empresa
-    // Formato: "empresaId_fecha" -> StockInicialDTO
-    private static final Map<String, MovimientoDiaDTO.StockInicialDTO> stockInicialCache = new HashMap<>();
+    // Stock inicial de cada día por empresa (LRU + TTL, invalidado también en las demás réplicas)
+    @Autowired
+    private CacheStockInicialService cacheStockInicialService;
+    
+    // Tiempos de la consulta y el cierre del día y de las exportaciones Excel (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
     
     /**
      * Obtener movimientos del día para una fecha específica
      */
     @Transactional(readOnly = true)
     public MovimientoDiaDTO obtenerMovimientosDia(String fechaStr) {
-        // DEBUG: Verificar registros antes de calcular movimientos
-        try {
-            System.out.println("🔍 [DEBUG] === VERIFICANDO REGISTROS EN BASE DE DATOS ===");
-            Map<String, Object> debugInfo = debugRegistrosFecha(fechaStr);
-            System.out.println("🔍 [DEBUG] === FIN VERIFICACIÓN ===");
-        } catch (Exception e) {
-            System.err.println("❌ [DEBUG] Error en verificación: " + e.getMessage());
-        }
+        return metricasOperacionesService.medir("movimientos_dia.obtener", null, () -> calcularMovimientosDia(fechaStr));
+    }
+    
+    private MovimientoDiaDTO calcularMovimientosDia(String fechaStr) {
         Long empresaId = null;
         try {
             empresaId = obtenerEmpresaId();
             LocalDate fecha = LocalDate.parse(fechaStr, DATE_FORMATTER);
             LocalDate fechaActual = LocalDate.now();
             
-            System.out.println("🔍 [MOVIMIENTOS] Obteniendo movimientos para empresa: " + empresaId + ", fecha: " + fecha);
-            System.out.println("🔍 [MOVIMIENTOS] EmpresaId obtenido: " + empresaId);
+            logger.debug("🔍 [MOVIMIENTOS] Obteniendo movimientos para empresa: {}, fecha: {}", empresaId, fecha);
+            logger.debug("🔍 [MOVIMIENTOS] EmpresaId obtenido: {}", empresaId);
             
-            // Verificar si la empresa existe y tiene productos
+            // Verificar que se obtuvo la empresa del usuario
             if (empresaId == null) {
-                System.err.println("❌ [MOVIMIENTOS] ERROR: empresaId es NULL - No se pudo obtener la empresa del usuario");
+                logger.error("❌ [MOVIMIENTOS] ERROR: empresaId es NULL - No se pudo obtener la empresa del usuario");
                 throw new RuntimeException("No se pudo obtener la empresa del usuario");
             }
             
-            // Verificar productos en la empresa
-            List<Producto> productosEmpresa = productoRepository.findByEmpresaId(empresaId);
-            System.out.println("🔍 [MOVIMIENTOS] Productos encontrados en empresa " + empresaId + ": " + productosEmpresa.size());
-            if (productosEmpresa.isEmpty()) {
-                System.out.println("⚠️ [MOVIMIENTOS] ADVERTENCIA: No hay productos en la empresa " + empresaId);
-            } else {
-                System.out.println("✅ [MOVIMIENTOS] Empresa tiene productos, continuando con el cálculo");
-                // Mostrar algunos productos como ejemplo
-                for (int i = 0; i < Math.min(3, productosEmpresa.size()); i++) {
-                    Producto p = productosEmpresa.get(i);
-                    System.out.println("  - Producto " + (i+1) + ": " + p.getId() + " | " + p.getNombre() + " | Stock: " + p.getStock());
-                }
-            }
-            
             // Si es un día nuevo (después de medianoche), cerrar automáticamente el día anterior
             // NOTA: No se puede hacer dentro de una transacción de solo lectura
             // El cierre automático se manejará en el controlador o en un método separado
             if (fecha.isAfter(fechaActual.minusDays(1))) {
-                System.out.println("ℹ️ [MOVIMIENTOS] Día nuevo detectado, pero no se puede cerrar automáticamente en transacción de solo lectura");
+                logger.debug("ℹ️ [MOVIMIENTOS] Día nuevo detectado, pero no se puede cerrar automáticamente en transacción de solo lectura");
             }
             
             // Determinar si el día está cerrado automáticamente
@@ -140,35 +133,34 @@ public class MovimientoDiaService {
             Optional<CierreDia> cierreExistente = cierreDiaRepository.findByEmpresaIdAndFecha(empresaId, fecha);
             
             if (cierreExistente.isPresent()) {
-                System.out.println("🔍 [MOVIMIENTOS] Cierre encontrado, cargando datos existentes");
+                logger.debug("🔍 [MOVIMIENTOS] Cierre encontrado, cargando datos existentes");
                 return cargarMovimientosDesdeCierre(cierreExistente.get());
             } else {
-                System.out.println("🔍 [MOVIMIENTOS] No hay cierre, calculando movimientos en tiempo real");
+                logger.debug("🔍 [MOVIMIENTOS] No hay cierre, calculando movimientos en tiempo real");
                 MovimientoDiaDTO movimientos = calcularMovimientosEnTiempoReal(empresaId, fecha);
                 
                 // Si es un día pasado, automáticamente se considera cerrado
                 if (diaCerrado) {
                     movimientos.setDiaCerrado(true);
-                    System.out.println("🔒 [MOVIMIENTOS] Día pasado detectado, marcando como cerrado automáticamente");
+                    logger.debug("🔒 [MOVIMIENTOS] Día pasado detectado, marcando como cerrado automáticamente");
                 }
                 
-                System.out.println("📊 [MOVIMIENTOS] Movimientos calculados:");
-                System.out.println("  - Stock Inicial: " + movimientos.getStockInicial().getCantidadTotal() + " productos");
-                System.out.println("  - Ingresos: " + movimientos.getIngresos().getCantidadTotal());
-                System.out.println("  - Devoluciones: " + movimientos.getDevoluciones().getCantidadTotal());
-                System.out.println("  - Salidas: " + movimientos.getSalidas().getCantidadTotal());
-                System.out.println("  - Roturas: " + movimientos.getRoturas().getCantidadTotal());
-                System.out.println("  - Balance Final: " + movimientos.getBalanceFinal().getCantidadTotal());
+                logger.debug("📊 [MOVIMIENTOS] Movimientos calculados:");
+                logger.debug("  - Stock Inicial: {} productos", movimientos.getStockInicial().getCantidadTotal());
+                logger.debug("  - Ingresos: {}", movimientos.getIngresos().getCantidadTotal());
+                logger.debug("  - Devoluciones: {}", movimientos.getDevoluciones().getCantidadTotal());
+                logger.debug("  - Salidas: {}", movimientos.getSalidas().getCantidadTotal());
+                logger.debug("  - Roturas: {}", movimientos.getRoturas().getCantidadTotal());
+                logger.debug("  - Balance Final: {}", movimientos.getBalanceFinal().getCantidadTotal());
                 
                 return movimientos;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [MOVIMIENTOS] Error al obtener movimientos: " + e.getMessage());
-            System.err.println("❌ [MOVIMIENTOS] Stack trace completo:");
-            e.printStackTrace();
-            System.err.println("❌ [MOVIMIENTOS] Empresa ID: " + empresaId);
-            System.err.println("❌ [MOVIMIENTOS] Fecha recibida: " + fechaStr);
+            logger.error("❌ [MOVIMIENTOS] Error al obtener movimientos: {}", e.getMessage());
+            logger.error("❌ [MOVIMIENTOS] Stack trace completo:", e);
+            logger.error("❌ [MOVIMIENTOS] Empresa ID: {}", empresaId);
+            logger.error("❌ [MOVIMIENTOS] Fecha recibida: {}", fechaStr);
             throw new RuntimeException("Error al obtener movimientos del día: " + e.getMessage(), e);
         }
     }
@@ -184,8 +176,7 @@ public class MovimientoDiaService {
             LocalDate fecha = LocalDate.parse(fechaStr, DATE_FORMATTER);
             cerrarDiaAnteriorAutomaticamente(empresaId, fecha);
         } catch (Exception e) {
-            System.err.println("❌ [AUTO-CIERRE PÚBLICO] Error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [AUTO-CIERRE PÚBLICO] Error: {}", e.getMessage(), e);
         }
     }
     
@@ -203,7 +194,7 @@ public class MovimientoDiaService {
             Optional<CierreDia> cierreAnterior = cierreDiaRepository.findByEmpresaIdAndFecha(empresaId, diaAnterior);
             
             if (cierreAnterior.isEmpty() || !cierreAnterior.get().getCerrado()) {
-                System.out.println("🔄 [AUTO-CIERRE] Día anterior no cerrado, cerrando automáticamente: " + diaAnterior);
+                logger.debug("🔄 [AUTO-CIERRE] Día anterior no cerrado, cerrando automáticamente: {}", diaAnterior);
                 
                 // Calcular movimientos del día anterior
                 MovimientoDiaDTO movimientos = calcularMovimientosEnTiempoReal(empresaId, diaAnterior);
@@ -221,18 +212,17 @@ public class MovimientoDiaService {
                 // Guardar los detalles del cierre
                 guardarDetallesCierre(cierre, movimientos);
                 
-                // Limpiar cache del stock inicial para que se recalcule
-                limpiarCacheStockInicial();
+                // El stock inicial del día siguiente sale de este cierre
+                limpiarCacheStockInicial(empresaId, fechaActual);
                 
-                System.out.println("✅ [AUTO-CIERRE] Día anterior cerrado automáticamente: " + diaAnterior);
+                logger.info("✅ [AUTO-CIERRE] Día anterior cerrado automáticamente: {}", diaAnterior);
                 
             } else {
-                System.out.println("ℹ️ [AUTO-CIERRE] Día anterior ya está cerrado: " + diaAnterior);
+                logger.debug("ℹ️ [AUTO-CIERRE] Día anterior ya está cerrado: {}", diaAnterior);
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [AUTO-CIERRE] Error al cerrar día anterior: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [AUTO-CIERRE] Error al cerrar día anterior: {}", e.getMessage(), e);
             // No lanzar excepción para no interrumpir el flujo normal
         }
     }
@@ -245,17 +235,12 @@ public class MovimientoDiaService {
         // Obtener stock inicial (balance final del día anterior)
         MovimientoDiaDTO.StockInicialDTO stockInicial = obtenerStockInicial(empresaId, fecha);
         
-        // Obtener ingresos del día
-        MovimientoDiaDTO.MovimientosDTO ingresos = obtenerIngresos(empresaId, fecha);
-        
-        // Obtener devoluciones del día
-        MovimientoDiaDTO.MovimientosDTO devoluciones = obtenerDevoluciones(empresaId, fecha);
-        
-        // Obtener salidas del día
-        MovimientoDiaDTO.MovimientosDTO salidas = obtenerSalidas(empresaId, fecha);
-        
-        // Obtener roturas del día
-        MovimientoDiaDTO.MovimientosDTO roturas = obtenerRoturas(empresaId, fecha);
+        // Ingresos, devoluciones, salidas y roturas del día desde el libro diario de stock
+        Map<StockDiarioProducto.Concepto, MovimientoDiaDTO.MovimientosDTO> movimientosDia = obtenerMovimientosLibro(empresaId, fecha, fecha);
+        MovimientoDiaDTO.MovimientosDTO ingresos = movimientosDia.get(StockDiarioProducto.Concepto.INGRESO);
+        MovimientoDiaDTO.MovimientosDTO devoluciones = movimientosDia.get(StockDiarioProducto.Concepto.DEVOLUCION);
+        MovimientoDiaDTO.MovimientosDTO salidas = movimientosDia.get(StockDiarioProducto.Concepto.SALIDA);
+        MovimientoDiaDTO.MovimientosDTO roturas = movimientosDia.get(StockDiarioProducto.Concepto.ROTURA);
         
         // Calcular balance final
         MovimientoDiaDTO.StockInicialDTO balanceFinal = calcularBalanceFinal(empresaId, stockInicial, ingresos, devoluciones, salidas, roturas);
@@ -281,23 +266,19 @@ public class MovimientoDiaService {
      * 3. Para días futuros: usar el stock actual
      */
     private MovimientoDiaDTO.StockInicialDTO obtenerStockInicial(Long empresaId, LocalDate fecha) {
-        // Verificar si ya tenemos el stock inicial en cache para este día
-        String cacheKey = empresaId + "_" + fecha.format(DATE_FORMATTER);
-        
-        if (stockInicialCache.containsKey(cacheKey)) {
-            System.out.println("📊 [STOCK INICIAL] Usando stock inicial desde cache para: " + fecha);
-            return stockInicialCache.get(cacheKey);
-        }
-        
+        return cacheStockInicialService.obtener(empresaId, fecha, () -> calcularStockInicial(empresaId, fecha));
+    }
+    
+    private MovimientoDiaDTO.StockInicialDTO calcularStockInicial(Long empresaId, LocalDate fecha) {
         LocalDate diaAnterior = fecha.minusDays(1);
         LocalDate fechaActual = LocalDate.now();
         Optional<CierreDia> cierreAnterior = cierreDiaRepository.findByEmpresaIdAndFecha(empresaId, diaAnterior);
         
-        System.out.println("🔍 [STOCK INICIAL] Calculando para fecha: " + fecha + ", Día anterior: " + diaAnterior);
+        logger.debug("🔍 [STOCK INICIAL] Calculando para fecha: {}, Día anterior: {}", fecha, diaAnterior);
         
         if (cierreAnterior.isPresent() && cierreAnterior.get().getCerrado()) {
             // CASO 1: Hay cierre del día anterior - usar balance final del día anterior
-            System.out.println("📊 [STOCK INICIAL] Usando balance final del día anterior");
+            logger.debug("📊 [STOCK INICIAL] Usando balance final del día anterior");
             
             List<DetalleCierreDia> detallesBalance = detalleCierreDiaRepository
                 .findByCierreDiaIdAndTipoMovimientoOrderByFechaCreacionAsc(
@@ -321,47 +302,38 @@ public class MovimientoDiaService {
             
             int cantidadTotal = productos.stream().mapToInt(p -> p.getCantidadInicial() != null ? p.getCantidadInicial() : 0).sum();
             
-            System.out.println("📊 [STOCK INICIAL] Balance final del día anterior - Total: " + cantidadTotal);
+            logger.debug("📊 [STOCK INICIAL] Balance final del día anterior - Total: {}", cantidadTotal);
             
             MovimientoDiaDTO.StockInicialDTO stockInicial = new MovimientoDiaDTO.StockInicialDTO(cantidadTotal, productos);
             
-            // Guardar en cache para futuras consultas del mismo día
-            stockInicialCache.put(cacheKey, stockInicial);
-            System.out.println("💾 [STOCK INICIAL] Stock inicial guardado en cache para: " + fecha);
-            
             return stockInicial;
             
         } else if (fecha.isBefore(fechaActual) || fecha.isEqual(fechaActual)) {
             // CASO 2: No hay cierre del día anterior y es día pasado o actual
             // CORRECCIÓN: Usar directamente el stock actual como stock inicial para evitar desfases
-            System.out.println("📊 [STOCK INICIAL] No hay cierre del día anterior - usando stock actual como stock inicial");
+            logger.debug("📊 [STOCK INICIAL] No hay cierre del día anterior - usando stock actual como stock inicial");
             
             // Obtener stock actual
             List<Producto> productosActuales;
             try {
                 productosActuales = productoRepository.findByEmpresaId(empresaId);
-                System.out.println("🔍 [STOCK INICIAL] Productos encontrados en la empresa: " + productosActuales.size());
+                logger.debug("🔍 [STOCK INICIAL] Productos encontrados en la empresa: {}", productosActuales.size());
                 if (productosActuales.isEmpty()) {
-                    System.out.println("⚠️ [STOCK INICIAL] NO HAY PRODUCTOS EN LA EMPRESA - Devolviendo datos vacíos para mostrar las cards");
+                    logger.warn("⚠️ [STOCK INICIAL] NO HAY PRODUCTOS EN LA EMPRESA - Devolviendo datos vacíos para mostrar las cards");
                     // Devolver datos vacíos pero válidos para que se muestren las cards
                     List<MovimientoDiaDTO.ProductoStockDTO> productosVacios = new ArrayList<>();
                     MovimientoDiaDTO.StockInicialDTO stockInicialVacio = new MovimientoDiaDTO.StockInicialDTO(0, productosVacios);
                     
-                    // Guardar en cache
-                    stockInicialCache.put(cacheKey, stockInicialVacio);
-                    System.out.println("💾 [STOCK INICIAL] Stock inicial vacío guardado en cache para: " + fecha);
-                    
                     return stockInicialVacio;
                 }
             } catch (Exception e) {
-                System.err.println("❌ [STOCK INICIAL] Error al consultar productos: " + e.getMessage());
-                e.printStackTrace();
+                logger.error("❌ [STOCK INICIAL] Error al consultar productos: {}", e.getMessage(), e);
                 throw new RuntimeException("Error al consultar productos de la empresa", e);
             }
             
             // CORRECCIÓN: Usar directamente el stock actual como stock inicial
             // No hacer cálculos complejos que causen desfases
-            System.out.println("📊 [STOCK INICIAL] Usando stock actual directamente como stock inicial");
+            logger.debug("📊 [STOCK INICIAL] Usando stock actual directamente como stock inicial");
             
             // Crear DTOs usando directamente el stock actual
             List<MovimientoDiaDTO.ProductoStockDTO> productosDTO = productosActuales.stream()
@@ -381,37 +353,32 @@ public class MovimientoDiaService {
             
             int cantidadTotal = productosDTO.stream().mapToInt(p -> p.getCantidadInicial() != null ? p.getCantidadInicial() : 0).sum();
             
-            System.out.println("📊 [STOCK INICIAL] Stock actual usado como stock inicial - Total: " + cantidadTotal);
-            System.out.println("📊 [STOCK INICIAL] Productos incluidos: " + productosDTO.size());
+            logger.debug("📊 [STOCK INICIAL] Stock actual usado como stock inicial - Total: {}", cantidadTotal);
+            logger.debug("📊 [STOCK INICIAL] Productos incluidos: {}", productosDTO.size());
+            MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
             for (MovimientoDiaDTO.ProductoStockDTO producto : productosDTO) {
-                System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + " | Stock: " + producto.getCantidadInicial());
+                if (muestreo.tomar()) {
+                    logger.debug("  - {} | {} | Stock: {}", producto.getCodigoPersonalizado(), producto.getNombre(), producto.getCantidadInicial());
+                }
             }
-            System.out.println("🔒 [STOCK INICIAL] IMPORTANTE: Este stock inicial evita desfases al usar stock actual directamente");
+            logger.debug("🔒 [STOCK INICIAL] IMPORTANTE: Este stock inicial evita desfases al usar stock actual directamente");
             
             MovimientoDiaDTO.StockInicialDTO stockInicialCalculado = new MovimientoDiaDTO.StockInicialDTO(cantidadTotal, productosDTO);
             
-            // Guardar en cache para futuras consultas del mismo día
-            stockInicialCache.put(cacheKey, stockInicialCalculado);
-            System.out.println("💾 [STOCK INICIAL] Stock inicial guardado en cache para: " + fecha);
-            
             return stockInicialCalculado;
             
         } else {
             // CASO 3: Día futuro - usar stock actual
-            System.out.println("📊 [STOCK INICIAL] Día futuro - usando stock actual");
+            logger.debug("📊 [STOCK INICIAL] Día futuro - usando stock actual");
             
             List<Producto> productos = productoRepository.findByEmpresaId(empresaId);
             
             if (productos.isEmpty()) {
-                System.out.println("⚠️ [STOCK INICIAL] NO HAY PRODUCTOS EN LA EMPRESA (día futuro) - Devolviendo datos vacíos para mostrar las cards");
+                logger.warn("⚠️ [STOCK INICIAL] NO HAY PRODUCTOS EN LA EMPRESA (día futuro) - Devolviendo datos vacíos para mostrar las cards");
                 // Devolver datos vacíos pero válidos para que se muestren las cards
                 List<MovimientoDiaDTO.ProductoStockDTO> productosVacios = new ArrayList<>();
                 MovimientoDiaDTO.StockInicialDTO stockInicialVacio = new MovimientoDiaDTO.StockInicialDTO(0, productosVacios);
                 
-                // Guardar en cache
-                stockInicialCache.put(cacheKey, stockInicialVacio);
-                System.out.println("💾 [STOCK INICIAL] Stock inicial vacío guardado en cache para: " + fecha);
-                
                 return stockInicialVacio;
             }
             
@@ -431,18 +398,17 @@ public class MovimientoDiaService {
             
             int cantidadTotal = productosDTO.stream().mapToInt(p -> p.getCantidadInicial() != null ? p.getCantidadInicial() : 0).sum();
             
-            System.out.println("📊 [STOCK INICIAL] Stock actual para día futuro - Total: " + cantidadTotal);
-            System.out.println("📊 [STOCK INICIAL] Productos incluidos: " + productosDTO.size());
+            logger.debug("📊 [STOCK INICIAL] Stock actual para día futuro - Total: {}", cantidadTotal);
+            logger.debug("📊 [STOCK INICIAL] Productos incluidos: {}", productosDTO.size());
+            MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
             for (MovimientoDiaDTO.ProductoStockDTO producto : productosDTO) {
-                System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + " | Stock: " + producto.getCantidadInicial());
+                if (muestreo.tomar()) {
+                    logger.debug("  - {} | {} | Stock: {}", producto.getCodigoPersonalizado(), producto.getNombre(), producto.getCantidadInicial());
+                }
             }
             
             MovimientoDiaDTO.StockInicialDTO stockInicial = new MovimientoDiaDTO.StockInicialDTO(cantidadTotal, productosDTO);
             
-            // Guardar en cache para futuras consultas del mismo día
-            stockInicialCache.put(cacheKey, stockInicial);
-            System.out.println("💾 [STOCK INICIAL] Stock inicial guardado en cache para: " + fecha);
-            
             return stockInicial;
         }
     }
@@ -451,17 +417,16 @@ public class MovimientoDiaService {
      * Limpiar cache del stock inicial (útil para testing o reinicio del día)
      */
     public void limpiarCacheStockInicial() {
-        stockInicialCache.clear();
-        System.out.println("🗑️ [CACHE] Stock inicial cache limpiado");
+        cacheStockInicialService.invalidar(null, null);
+        logger.debug("🗑️ [CACHE] Stock inicial cache limpiado");
     }
     
     /**
      * Limpiar cache del stock inicial para una fecha específica
      */
     public void limpiarCacheStockInicial(Long empresaId, LocalDate fecha) {
-        String cacheKey = empresaId + "_" + fecha.format(DATE_FORMATTER);
-        stockInicialCache.remove(cacheKey);
-        System.out.println("🗑️ [CACHE] Stock inicial cache limpiado para: " + fecha);
+        cacheStockInicialService.invalidar(empresaId, fecha);
+        logger.debug("🗑️ [CACHE] Stock inicial cache limpiado para: {}", fecha);
     }
     
     /**
@@ -471,18 +436,22 @@ public class MovimientoDiaService {
      */
     @Transactional
     public String cerrarDia(String fechaStr) {
+        return metricasOperacionesService.medir("movimientos_dia.cerrar", null, () -> procesarCierreDia(fechaStr));
+    }
+    
+    private String procesarCierreDia(String fechaStr) {
         try {
             Long empresaId = obtenerEmpresaId();
             LocalDate fecha = LocalDate.parse(fechaStr, DATE_FORMATTER);
             
-            System.out.println("🔒 [CIERRE DÍA] Procesando día para empresa: " + empresaId + ", fecha: " + fecha);
+            logger.debug("🔒 [CIERRE DÍA] Procesando día para empresa: {}, fecha: {}", empresaId, fecha);
             
             // Verificar si ya existe un cierre para esta fecha
             Optional<CierreDia> cierreExistente = cierreDiaRepository.findByEmpresaIdAndFecha(empresaId, fecha);
             
             if (cierreExistente.isPresent() && cierreExistente.get().getCerrado()) {
                 // DÍA CERRADO - REABRIR
-                System.out.println("🔓 [REABRIR DÍA] Reabriendo día cerrado");
+                logger.debug("🔓 [REABRIR DÍA] Reabriendo día cerrado");
                 
                 // Eliminar detalles del cierre
                 detalleCierreDiaRepository.deleteByCierreDiaId(cierreExistente.get().getId());
@@ -490,19 +459,19 @@ public class MovimientoDiaService {
                 // Eliminar el cierre
                 cierreDiaRepository.delete(cierreExistente.get());
                 
-                // Limpiar cache del stock inicial
-                limpiarCacheStockInicial();
+                // El stock inicial del día siguiente ya no sale de este cierre
+                limpiarCacheStockInicial(empresaId, fecha.plusDays(1));
                 
-                System.out.println("✅ [REABRIR DÍA] Día reabierto exitosamente para: " + fecha);
+                logger.info("✅ [REABRIR DÍA] Día reabierto exitosamente para: {}", fecha);
                 return "Día reabierto exitosamente para " + fecha + ". Ahora puedes hacer más movimientos.";
                 
             } else {
                 // DÍA ABIERTO - CERRAR
-                System.out.println("🔒 [CIERRE DÍA] Cerrando día abierto");
+                logger.debug("🔒 [CIERRE DÍA] Cerrando día abierto");
                 
                 // Si existe pero no está cerrado, eliminarlo para recrearlo
                 if (cierreExistente.isPresent()) {
-                    System.out.println("🔒 [CIERRE DÍA] Eliminando cierre existente no cerrado");
+                    logger.debug("🔒 [CIERRE DÍA] Eliminando cierre existente no cerrado");
                     detalleCierreDiaRepository.deleteByCierreDiaId(cierreExistente.get().getId());
                     cierreDiaRepository.delete(cierreExistente.get());
                 }
@@ -518,15 +487,15 @@ public class MovimientoDiaService {
                 
                 // Guardar el cierre
                 cierre = cierreDiaRepository.save(cierre);
-                System.out.println("🔒 [CIERRE DÍA] Cierre guardado con ID: " + cierre.getId());
+                logger.debug("🔒 [CIERRE DÍA] Cierre guardado con ID: {}", cierre.getId());
                 
                 // Guardar los detalles del cierre
                 guardarDetallesCierre(cierre, movimientos);
                 
-                // Limpiar cache del stock inicial para que se recalcule
-                limpiarCacheStockInicial();
+                // El stock inicial del día siguiente sale de este cierre
+                limpiarCacheStockInicial(empresaId, fecha.plusDays(1));
                 
-                System.out.println("✅ [CIERRE DÍA] Día cerrado exitosamente para: " + fecha);
+                logger.info("✅ [CIERRE DÍA] Día cerrado exitosamente para: {}", fecha);
                 
                 // Crear notificación de cierre de día
                 try {
@@ -541,17 +510,16 @@ public class MovimientoDiaService {
                         totalProductos,
                         valorTotal
                     );
-                    System.out.println("🔒 Notificación de cierre de día creada para: " + fecha);
+                    logger.debug("🔒 Notificación de cierre de día creada para: {}", fecha);
                 } catch (Exception e) {
-                    System.err.println("Error al crear notificación de cierre de día: " + e.getMessage());
+                    logger.warn("Error al crear notificación de cierre de día: {}", e.getMessage());
                 }
                 
                 return "Día cerrado exitosamente para " + fecha + ". Balance final guardado.";
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [CIERRE DÍA] Error al procesar el día: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [CIERRE DÍA] Error al procesar el día: {}", e.getMessage(), e);
             throw new RuntimeException("Error al procesar el día: " + e.getMessage(), e);
         }
     }
@@ -575,10 +543,11 @@ public class MovimientoDiaService {
             debug.put("totalStockActual", stockActual.values().stream().mapToInt(Integer::intValue).sum());
             
             // 2. Movimientos del día
-            MovimientoDiaDTO.MovimientosDTO ingresos = obtenerIngresos(empresaId, fecha);
-            MovimientoDiaDTO.MovimientosDTO devoluciones = obtenerDevoluciones(empresaId, fecha);
-            MovimientoDiaDTO.MovimientosDTO salidas = obtenerSalidas(empresaId, fecha);
-            MovimientoDiaDTO.MovimientosDTO roturas = obtenerRoturas(empresaId, fecha);
+            Map<StockDiarioProducto.Concepto, MovimientoDiaDTO.MovimientosDTO> movimientosDia = obtenerMovimientosLibro(empresaId, fecha, fecha);
+            MovimientoDiaDTO.MovimientosDTO ingresos = movimientosDia.get(StockDiarioProducto.Concepto.INGRESO);
+            MovimientoDiaDTO.MovimientosDTO devoluciones = movimientosDia.get(StockDiarioProducto.Concepto.DEVOLUCION);
+            MovimientoDiaDTO.MovimientosDTO salidas = movimientosDia.get(StockDiarioProducto.Concepto.SALIDA);
+            MovimientoDiaDTO.MovimientosDTO roturas = movimientosDia.get(StockDiarioProducto.Concepto.ROTURA);
             
             debug.put("ingresos", ingresos.getProductos().stream().collect(Collectors.toMap(
                 p -> p.getId(), p -> p.getCantidad()
@@ -655,8 +624,7 @@ public class MovimientoDiaService {
             return debug;
             
         } catch (Exception e) {
-            System.err.println("❌ [DEBUG] Error al obtener información de debug: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [DEBUG] Error al obtener información de debug: {}", e.getMessage(), e);
             throw new RuntimeException("Error al obtener información de debug: " + e.getMessage(), e);
         }
     }
@@ -667,48 +635,47 @@ public class MovimientoDiaService {
      */
     public String ejecutarMigracionV36() {
         try {
-            System.out.println("🔧 [MIGRACIÓN] Ejecutando migración V36...");
+            logger.debug("🔧 [MIGRACIÓN] Ejecutando migración V36...");
             
             // Verificar si la columna ya existe
             try {
                 String checkQuery = "SELECT estado FROM planillas_devoluciones LIMIT 1";
                 jdbcTemplate.queryForObject(checkQuery, String.class);
-                System.out.println("⚠️ [MIGRACIÓN] La columna 'estado' ya existe en planillas_devoluciones");
+                logger.warn("⚠️ [MIGRACIÓN] La columna 'estado' ya existe en planillas_devoluciones");
                 return "La columna 'estado' ya existe en la tabla planillas_devoluciones";
             } catch (Exception e) {
-                System.out.println("🔧 [MIGRACIÓN] La columna 'estado' no existe, procediendo con la migración...");
+                logger.debug("🔧 [MIGRACIÓN] La columna 'estado' no existe, procediendo con la migración...");
             }
             
             // Ejecutar la migración V36
-            System.out.println("🔧 [MIGRACIÓN] Agregando columna 'estado'...");
+            logger.debug("🔧 [MIGRACIÓN] Agregando columna 'estado'...");
             jdbcTemplate.execute("ALTER TABLE planillas_devoluciones ADD COLUMN estado VARCHAR(50) NOT NULL DEFAULT 'PENDIENTE_VERIFICACION'");
             
-            System.out.println("🔧 [MIGRACIÓN] Agregando columna 'usuario_verificacion_id'...");
+            logger.debug("🔧 [MIGRACIÓN] Agregando columna 'usuario_verificacion_id'...");
             jdbcTemplate.execute("ALTER TABLE planillas_devoluciones ADD COLUMN usuario_verificacion_id BIGINT");
             
-            System.out.println("🔧 [MIGRACIÓN] Agregando columna 'fecha_verificacion'...");
+            logger.debug("🔧 [MIGRACIÓN] Agregando columna 'fecha_verificacion'...");
             jdbcTemplate.execute("ALTER TABLE planillas_devoluciones ADD COLUMN fecha_verificacion TIMESTAMP");
             
-            System.out.println("🔧 [MIGRACIÓN] Agregando foreign key...");
+            logger.debug("🔧 [MIGRACIÓN] Agregando foreign key...");
             try {
                 jdbcTemplate.execute("ALTER TABLE planillas_devoluciones ADD CONSTRAINT fk_planilla_devolucion_usuario_verificacion FOREIGN KEY (usuario_verificacion_id) REFERENCES usuarios(id)");
             } catch (Exception e) {
-                System.out.println("⚠️ [MIGRACIÓN] Foreign key ya existe o no se pudo crear: " + e.getMessage());
+                logger.warn("⚠️ [MIGRACIÓN] Foreign key ya existe o no se pudo crear: {}", e.getMessage());
             }
             
-            System.out.println("🔧 [MIGRACIÓN] Creando índice...");
+            logger.debug("🔧 [MIGRACIÓN] Creando índice...");
             try {
                 jdbcTemplate.execute("CREATE INDEX idx_planillas_devoluciones_estado ON planillas_devoluciones(estado)");
             } catch (Exception e) {
-                System.out.println("⚠️ [MIGRACIÓN] Índice ya existe o no se pudo crear: " + e.getMessage());
+                logger.warn("⚠️ [MIGRACIÓN] Índice ya existe o no se pudo crear: {}", e.getMessage());
             }
             
-            System.out.println("✅ [MIGRACIÓN] Migración V36 completada exitosamente");
+            logger.info("✅ [MIGRACIÓN] Migración V36 completada exitosamente");
             return "Migración V36 completada: columnas estado, usuario_verificacion_id y fecha_verificacion agregadas a planillas_devoluciones";
             
         } catch (Exception e) {
-            System.err.println("❌ [MIGRACIÓN] Error al ejecutar migración V36: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [MIGRACIÓN] Error al ejecutar migración V36: {}", e.getMessage(), e);
             throw new RuntimeException("Error al ejecutar migración V36: " + e.getMessage(), e);
         }
     }
@@ -720,7 +687,7 @@ public class MovimientoDiaService {
     @Scheduled(cron = "0 0 0 * * *") // Ejecutar a las 00:00 todos los días
     public void capturarStockInicialAutomatico() {
         try {
-            System.out.println("🕐 [AUTO-CAPTURE] Iniciando captura automática del stock inicial para el día: " + LocalDate.now());
+            logger.debug("🕐 [AUTO-CAPTURE] Iniciando captura automática del stock inicial para el día: {}", LocalDate.now());
             
             // Obtener todas las empresas activas
             // Nota: Necesitarías un método para obtener todas las empresas
@@ -732,11 +699,10 @@ public class MovimientoDiaService {
             // Esto asegura que siempre tengamos el stock inicial disponible
             capturarStockInicialParaFecha(fechaHoy);
             
-            System.out.println("✅ [AUTO-CAPTURE] Captura automática del stock inicial completada para: " + fechaHoy);
+            logger.info("✅ [AUTO-CAPTURE] Captura automática del stock inicial completada para: {}", fechaHoy);
             
         } catch (Exception e) {
-            System.err.println("❌ [AUTO-CAPTURE] Error en captura automática del stock inicial: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [AUTO-CAPTURE] Error en captura automática del stock inicial: {}", e.getMessage(), e);
         }
     }
     
@@ -750,25 +716,21 @@ public class MovimientoDiaService {
             List<Long> empresasIds = obtenerTodasLasEmpresasIds();
             
             for (Long empresaId : empresasIds) {
-                String cacheKey = empresaId + "_" + fecha.format(DATE_FORMATTER);
-                
                 // Solo capturar si no existe ya
-                if (!stockInicialCache.containsKey(cacheKey)) {
-                    System.out.println("📊 [AUTO-CAPTURE] Capturando stock inicial para empresa: " + empresaId + ", fecha: " + fecha);
+                if (!cacheStockInicialService.contiene(empresaId, fecha)) {
+                    logger.debug("📊 [AUTO-CAPTURE] Capturando stock inicial para empresa: {}, fecha: {}", empresaId, fecha);
                     
                     // Calcular y guardar stock inicial
-                    MovimientoDiaDTO.StockInicialDTO stockInicial = calcularStockInicialParaEmpresa(empresaId, fecha);
-                    stockInicialCache.put(cacheKey, stockInicial);
+                    cacheStockInicialService.obtener(empresaId, fecha, () -> calcularStockInicialParaEmpresa(empresaId, fecha));
                     
-                    System.out.println("✅ [AUTO-CAPTURE] Stock inicial capturado para empresa: " + empresaId + ", fecha: " + fecha);
+                    logger.debug("✅ [AUTO-CAPTURE] Stock inicial capturado para empresa: {}, fecha: {}", empresaId, fecha);
                 } else {
-                    System.out.println("ℹ️ [AUTO-CAPTURE] Stock inicial ya existe para empresa: " + empresaId + ", fecha: " + fecha);
+                    logger.debug("ℹ️ [AUTO-CAPTURE] Stock inicial ya existe para empresa: {}, fecha: {}", empresaId, fecha);
                 }
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [AUTO-CAPTURE] Error capturando stock inicial para fecha " + fecha + ": " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [AUTO-CAPTURE] Error capturando stock inicial para fecha {}: {}", fecha, e.getMessage(), e);
         }
     }
     
@@ -783,7 +745,7 @@ public class MovimientoDiaService {
             // TODO: Implementar consulta real a la base de datos
             // return empresaRepository.findAll().stream().map(Empresa::getId).collect(Collectors.toList());
         } catch (Exception e) {
-            System.err.println("❌ [AUTO-CAPTURE] Error obteniendo empresas: " + e.getMessage());
+            logger.error("❌ [AUTO-CAPTURE] Error obteniendo empresas: {}", e.getMessage());
             return List.of(1L); // Fallback a empresa por defecto
         }
     }
@@ -845,201 +807,14 @@ public class MovimientoDiaService {
     }
     
     /**
-     * Obtener ingresos del día
+     * Ingresos, devoluciones, salidas y roturas entre dos días (inclusive), leídos del libro diario de stock
      */
-    private MovimientoDiaDTO.MovimientosDTO obtenerIngresos(Long empresaId, LocalDate fecha) {
-        // Convertir LocalDate a LocalDateTime para buscar en el rango del día
-        LocalDateTime fechaInicio = fecha.atStartOfDay();
-        LocalDateTime fechaFin = fecha.atTime(23, 59, 59, 999999999);
-        
-        List<RemitoIngreso> remitos = remitoIngresoRepository.findByRangoFechasAndEmpresaId(fechaInicio, fechaFin, empresaId);
-        
-        // Mapa para agrupar productos por ID
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosAgrupados = new HashMap<>();
-        
-        for (RemitoIngreso remito : remitos) {
-            List<DetalleRemitoIngreso> detalles = detalleRemitoIngresoRepository
-                .findByRemitoIngresoIdOrderByFechaCreacionAsc(remito.getId());
-            
-            for (DetalleRemitoIngreso detalle : detalles) {
-                if (detalle.getProducto() != null) {
-                    Long productoId = detalle.getProducto().getId();
-                    
-                    if (productosAgrupados.containsKey(productoId)) {
-                        // Sumar cantidad al producto existente
-                        MovimientoDiaDTO.ProductoMovimientoDTO productoExistente = productosAgrupados.get(productoId);
-                        productoExistente.setCantidad(productoExistente.getCantidad() + detalle.getCantidad());
-                    } else {
-                        // Crear nuevo producto
-                        productosAgrupados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                            detalle.getProducto().getId(),
-                            detalle.getProducto().getNombre(),
-                            detalle.getProducto().getCodigoPersonalizado(),
-                            detalle.getCantidad(),
-                            remito.getFechaRemito().format(DATETIME_FORMATTER),
-                            null // Sin observaciones
-                        ));
-                    }
-                }
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosAgrupados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        System.out.println("📊 [INGRESOS] Productos unificados: " + productos.size() + ", Total: " + cantidadTotal);
-        for (MovimientoDiaDTO.ProductoMovimientoDTO producto : productos) {
-            System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + " | " + producto.getCantidad());
-        }
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-    
-    /**
-     * Obtener devoluciones del día
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerDevoluciones(Long empresaId, LocalDate fecha) {
-        // Convertir LocalDate a LocalDateTime para buscar en el rango del día
-        LocalDateTime fechaInicio = fecha.atStartOfDay();
-        LocalDateTime fechaFin = fecha.atTime(23, 59, 59, 999999999);
-        
-        List<PlanillaDevolucion> planillas = planillaDevolucionRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(empresaId, fechaInicio, fechaFin);
-        
-        // Mapa para agrupar productos por ID
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosAgrupados = new HashMap<>();
-        
-        for (PlanillaDevolucion planilla : planillas) {
-            List<DetallePlanillaDevolucion> detalles = detallePlanillaDevolucionRepository
-                .findByPlanillaDevolucionIdOrderByFechaCreacionAsc(planilla.getId());
-            
-            for (DetallePlanillaDevolucion detalle : detalles) {
-                // Solo sumar productos en BUEN_ESTADO para los movimientos del día
-                // Si no tiene estado definido (productos existentes), considerarlo como BUEN_ESTADO
-                DetallePlanillaDevolucion.EstadoProducto estado = detalle.getEstadoProducto();
-                if (estado == null || estado == DetallePlanillaDevolucion.EstadoProducto.BUEN_ESTADO) {
-                    Long productoId = detalle.getProducto().getId();
-                    
-                    if (productosAgrupados.containsKey(productoId)) {
-                        // Sumar cantidad al producto existente
-                        MovimientoDiaDTO.ProductoMovimientoDTO productoExistente = productosAgrupados.get(productoId);
-                        productoExistente.setCantidad(productoExistente.getCantidad() + detalle.getCantidad());
-                    } else {
-                        // Crear nuevo producto
-                        productosAgrupados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                            detalle.getProducto().getId(),
-                            detalle.getProducto().getNombre(),
-                            detalle.getProducto().getCodigoPersonalizado(),
-                            detalle.getCantidad(),
-                            detalle.getFechaCreacion().format(DATETIME_FORMATTER),
-                            null // Sin observaciones
-                        ));
-                    }
-                }
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosAgrupados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        System.out.println("📊 [DEVOLUCIONES] Productos unificados: " + productos.size() + ", Total: " + cantidadTotal);
-        for (MovimientoDiaDTO.ProductoMovimientoDTO producto : productos) {
-            System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + " | " + producto.getCantidad());
-        }
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-    
-    /**
-     * Obtener salidas del día
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerSalidas(Long empresaId, LocalDate fecha) {
-        // Convertir LocalDate a LocalDateTime para buscar en el rango del día
-        LocalDateTime fechaInicio = fecha.atStartOfDay();
-        LocalDateTime fechaFin = fecha.atTime(23, 59, 59, 999999999);
-        
-        List<PlanillaPedido> planillas = planillaPedidoRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(empresaId, fechaInicio, fechaFin);
-        
-        // Mapa para agrupar productos por ID
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosAgrupados = new HashMap<>();
-        
-        for (PlanillaPedido planilla : planillas) {
-            List<DetallePlanillaPedido> detalles = detallePlanillaPedidoRepository
-                .findByPlanillaPedidoIdOrderByFechaCreacionAsc(planilla.getId());
-            
-            for (DetallePlanillaPedido detalle : detalles) {
-                Long productoId = detalle.getProducto().getId();
-                
-                if (productosAgrupados.containsKey(productoId)) {
-                    // Sumar cantidad al producto existente
-                    MovimientoDiaDTO.ProductoMovimientoDTO productoExistente = productosAgrupados.get(productoId);
-                    productoExistente.setCantidad(productoExistente.getCantidad() + detalle.getCantidad());
-                } else {
-                    // Crear nuevo producto
-                    productosAgrupados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                        detalle.getProducto().getId(),
-                        detalle.getProducto().getNombre(),
-                        detalle.getProducto().getCodigoPersonalizado(),
-                        detalle.getCantidad(),
-                        detalle.getFechaCreacion().format(DATETIME_FORMATTER),
-                        null // Sin observaciones
-                    ));
-                }
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosAgrupados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        System.out.println("📊 [SALIDAS] Productos unificados: " + productos.size() + ", Total: " + cantidadTotal);
-        for (MovimientoDiaDTO.ProductoMovimientoDTO producto : productos) {
-            System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + " | " + producto.getCantidad());
-        }
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-    
-    /**
-     * Obtener roturas del día
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerRoturas(Long empresaId, LocalDate fecha) {
-        // Convertir LocalDate a LocalDateTime para buscar en el rango del día
-        LocalDateTime fechaInicio = fecha.atStartOfDay();
-        LocalDateTime fechaFin = fecha.atTime(23, 59, 59, 999999999);
-        
-        List<RoturaPerdida> roturas = roturaPerdidaRepository.findByEmpresaIdAndFechaBetweenOrderByFechaCreacionDesc(empresaId, fechaInicio, fechaFin);
-        
-        // Mapa para agrupar productos por ID
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosAgrupados = new HashMap<>();
-        
-        for (RoturaPerdida rotura : roturas) {
-            Long productoId = rotura.getProducto().getId();
-            
-            if (productosAgrupados.containsKey(productoId)) {
-                // Sumar cantidad al producto existente
-                MovimientoDiaDTO.ProductoMovimientoDTO productoExistente = productosAgrupados.get(productoId);
-                productoExistente.setCantidad(productoExistente.getCantidad() + rotura.getCantidad());
-            } else {
-                // Crear nuevo producto
-                productosAgrupados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                    rotura.getProducto().getId(),
-                    rotura.getProducto().getNombre(),
-                    rotura.getProducto().getCodigoPersonalizado(),
-                    rotura.getCantidad(),
-                    rotura.getFecha().format(DATETIME_FORMATTER),
-                    null // Sin observaciones
-                ));
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosAgrupados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        System.out.println("📊 [ROTURAS] Productos unificados: " + productos.size() + ", Total: " + cantidadTotal);
-        for (MovimientoDiaDTO.ProductoMovimientoDTO producto : productos) {
-            System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + " | " + producto.getCantidad());
-        }
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
+    private Map<StockDiarioProducto.Concepto, MovimientoDiaDTO.MovimientosDTO> obtenerMovimientosLibro(
+            Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
+        Map<StockDiarioProducto.Concepto, MovimientoDiaDTO.MovimientosDTO> movimientos =
+            libroStockDiarioService.obtenerMovimientos(empresaId, fechaInicio, fechaFin);
+        logger.debug("📊 [MOVIMIENTOS] Libro de stock {} a {} - Ingresos: {}, Devoluciones: {}, Salidas: {}, Roturas: {}", fechaInicio, fechaFin, movimientos.get(StockDiarioProducto.Concepto.INGRESO).getCantidadTotal(), movimientos.get(StockDiarioProducto.Concepto.DEVOLUCION).getCantidadTotal(), movimientos.get(StockDiarioProducto.Concepto.SALIDA).getCantidadTotal(), movimientos.get(StockDiarioProducto.Concepto.ROTURA).getCantidadTotal());
+        return movimientos;
     }
     
     /**
@@ -1058,17 +833,25 @@ public class MovimientoDiaService {
         
         // CORRECCIÓN: Usar directamente el stock real actual del sistema
         // Esto garantiza que el balance final sea exactamente igual al stock real
-        System.out.println("🔍 [CALCULAR BALANCE FINAL] Usando stock real actual del sistema para evitar desfases");
+        logger.debug("🔍 [CALCULAR BALANCE FINAL] Usando stock real actual del sistema para evitar desfases");
         
         // Obtener el stock real actual de la base de datos usando el empresaId
         if (empresaId == null) {
-            System.out.println("⚠️ [CALCULAR BALANCE FINAL] No se proporcionó empresaId, usando stock inicial");
+            logger.warn("⚠️ [CALCULAR BALANCE FINAL] No se proporcionó empresaId, usando stock inicial");
             return stockInicial;
         }
         
         // Obtener productos reales de la base de datos
         List<Producto> productosReales = productoRepository.findByEmpresaId(empresaId);
-        System.out.println("🔍 [CALCULAR BALANCE FINAL] Productos reales encontrados: " + productosReales.size());
+        logger.debug("🔍 [CALCULAR BALANCE FINAL] Productos reales encontrados: {}", productosReales.size());
+        
+        // Cantidad inicial por producto, indexada una sola vez
+        Map<Long, Integer> cantidadesIniciales = new HashMap<>();
+        if (stockInicial != null && stockInicial.getProductos() != null) {
+            for (MovimientoDiaDTO.ProductoStockDTO p : stockInicial.getProductos()) {
+                cantidadesIniciales.putIfAbsent(p.getId(), p.getCantidadInicial() != null ? p.getCantidadInicial() : 0);
+            }
+        }
         
         // Crear balance final usando el stock real actual
         List<MovimientoDiaDTO.ProductoStockDTO> productosBalance = productosReales.stream()
@@ -1083,16 +866,7 @@ public class MovimientoDiaService {
                 productoDTO.setCantidad(stockReal != null ? stockReal : 0);
                 
                 // Para cantidad inicial, usar el stock inicial si está disponible
-                Integer cantidadInicial = 0;
-                if (stockInicial != null && stockInicial.getProductos() != null) {
-                    Optional<MovimientoDiaDTO.ProductoStockDTO> stockInicialProducto = stockInicial.getProductos().stream()
-                        .filter(p -> p.getId().equals(producto.getId()))
-                        .findFirst();
-                    if (stockInicialProducto.isPresent()) {
-                        cantidadInicial = stockInicialProducto.get().getCantidadInicial() != null ? 
-                            stockInicialProducto.get().getCantidadInicial() : 0;
-                    }
-                }
+                Integer cantidadInicial = cantidadesIniciales.getOrDefault(producto.getId(), 0);
                 productoDTO.setCantidadInicial(cantidadInicial);
                 
                 // Calcular variación
@@ -1117,14 +891,13 @@ public class MovimientoDiaService {
         
         int cantidadTotal = productosBalance.stream().mapToInt(p -> p.getCantidad() != null ? p.getCantidad() : 0).sum();
         
-        System.out.println("📊 [BALANCE FINAL] Balance final = Stock real actual - Total: " + cantidadTotal);
-        System.out.println("📊 [BALANCE FINAL] Productos incluidos: " + productosBalance.size());
+        logger.debug("📊 [BALANCE FINAL] Balance final = Stock real actual - Total: {}", cantidadTotal);
+        logger.debug("📊 [BALANCE FINAL] Productos incluidos: {}", productosBalance.size());
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         for (MovimientoDiaDTO.ProductoStockDTO producto : productosBalance) {
-                System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + 
-                                 " | Inicial: " + producto.getCantidadInicial() + 
-                             " | Final (Stock Real): " + producto.getCantidad() + 
-                                 " | Variación: " + producto.getVariacion() + 
-                                 " | Tipo: " + producto.getTipoVariacion());
+                if (muestreo.tomar()) {
+                    logger.debug("  - {} | {} | Inicial: {} | Final (Stock Real): {} | Variación: {} | Tipo: {}", producto.getCodigoPersonalizado(), producto.getNombre(), producto.getCantidadInicial(), producto.getCantidad(), producto.getVariacion(), producto.getTipoVariacion());
+                }
         }
         
         return new MovimientoDiaDTO.StockInicialDTO(cantidadTotal, productosBalance);
@@ -1193,16 +966,16 @@ public class MovimientoDiaService {
      * Construir Balance Final desde detalles de cierre con cálculo de variaciones
      */
     private MovimientoDiaDTO.StockInicialDTO construirBalanceFinalDesdeCierre(List<DetalleCierreDia> detallesBalance, List<DetalleCierreDia> detallesStockInicial) {
-        System.out.println("🔍 [CONSTRUIR BALANCE FINAL] detallesBalance: " + (detallesBalance != null ? detallesBalance.size() : "null"));
-        System.out.println("🔍 [CONSTRUIR BALANCE FINAL] detallesStockInicial: " + (detallesStockInicial != null ? detallesStockInicial.size() : "null"));
+        logger.debug("🔍 [CONSTRUIR BALANCE FINAL] detallesBalance: {}", (detallesBalance != null ? detallesBalance.size() : "null"));
+        logger.debug("🔍 [CONSTRUIR BALANCE FINAL] detallesStockInicial: {}", (detallesStockInicial != null ? detallesStockInicial.size() : "null"));
         
         if (detallesBalance == null) {
-            System.out.println("⚠️ [CONSTRUIR BALANCE FINAL] detallesBalance es null, retornando lista vacía");
+            logger.warn("⚠️ [CONSTRUIR BALANCE FINAL] detallesBalance es null, retornando lista vacía");
             return new MovimientoDiaDTO.StockInicialDTO(0, new ArrayList<>());
         }
         
         if (detallesBalance.isEmpty()) {
-            System.out.println("⚠️ [CONSTRUIR BALANCE FINAL] detallesBalance está vacío, retornando lista vacía");
+            logger.warn("⚠️ [CONSTRUIR BALANCE FINAL] detallesBalance está vacío, retornando lista vacía");
             return new MovimientoDiaDTO.StockInicialDTO(0, new ArrayList<>());
         }
         
@@ -1244,14 +1017,13 @@ public class MovimientoDiaService {
         int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoStockDTO::getCantidad).sum();
         
         // Log para debug
-        System.out.println("📊 [BALANCE FINAL DESDE CIERRE] Productos con cambios:");
+        logger.debug("📊 [BALANCE FINAL DESDE CIERRE] Productos con cambios:");
+        MuestreoLog muestreo = new MuestreoLog(logger, 20, 100);
         for (MovimientoDiaDTO.ProductoStockDTO producto : productos) {
             if (!"SIN_CAMBIOS".equals(producto.getTipoVariacion())) {
-                System.out.println("  - " + producto.getCodigoPersonalizado() + " | " + producto.getNombre() + 
-                                 " | Inicial: " + producto.getCantidadInicial() + 
-                                 " | Final: " + producto.getCantidad() + 
-                                 " | Variación: " + producto.getVariacion() + 
-                                 " | Tipo: " + producto.getTipoVariacion());
+                if (muestreo.tomar()) {
+                    logger.debug("  - {} | {} | Inicial: {} | Final: {} | Variación: {} | Tipo: {}", producto.getCodigoPersonalizado(), producto.getNombre(), producto.getCantidadInicial(), producto.getCantidad(), producto.getVariacion(), producto.getTipoVariacion());
+                }
             }
         }
         
@@ -1346,7 +1118,7 @@ public class MovimientoDiaService {
             LocalDateTime fechaInicio = fecha.atStartOfDay();
             LocalDateTime fechaFin = fecha.atTime(23, 59, 59, 999999999);
             
-            System.out.println("🔍 [DEBUG] Verificando registros para empresa: " + empresaId + ", fecha: " + fecha);
+            logger.debug("🔍 [DEBUG] Verificando registros para empresa: {}, fecha: {}", empresaId, fecha);
             
             // Contar ingresos
             List<RemitoIngreso> ingresos = remitoIngresoRepository.findByRangoFechasAndEmpresaId(fechaInicio, fechaFin, empresaId);
@@ -1414,17 +1186,16 @@ public class MovimientoDiaService {
                 )).collect(Collectors.toList())
             ));
             
-            System.out.println("📊 [DEBUG] Resultados:");
-            System.out.println("  - Ingresos: " + ingresos.size() + " remitos, " + totalIngresos + " detalles");
-            System.out.println("  - Roturas: " + roturas.size() + " registros, " + totalRoturas + " cantidad total");
-            System.out.println("  - Devoluciones: " + devoluciones.size() + " planillas, " + totalDevoluciones + " detalles");
-            System.out.println("  - Salidas: " + salidas.size() + " planillas, " + totalSalidas + " detalles");
+            logger.debug("📊 [DEBUG] Resultados:");
+            logger.debug("  - Ingresos: {} remitos, {} detalles", ingresos.size(), totalIngresos);
+            logger.debug("  - Roturas: {} registros, {} cantidad total", roturas.size(), totalRoturas);
+            logger.debug("  - Devoluciones: {} planillas, {} detalles", devoluciones.size(), totalDevoluciones);
+            logger.debug("  - Salidas: {} planillas, {} detalles", salidas.size(), totalSalidas);
             
             return resultado;
             
         } catch (Exception e) {
-            System.err.println("❌ [DEBUG] Error al verificar registros: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [DEBUG] Error al verificar registros: {}", e.getMessage(), e);
             throw new RuntimeException("Error al verificar registros: " + e.getMessage(), e);
         }
     }
@@ -1439,17 +1210,17 @@ public class MovimientoDiaService {
             LocalDate fechaInicio = LocalDate.parse(fechaInicioStr, DATE_FORMATTER);
             LocalDate fechaFin = LocalDate.parse(fechaFinStr, DATE_FORMATTER);
             
-            System.out.println("🔍 [MOVIMIENTOS RANGO] Obteniendo movimientos para empresa: " + empresaId + 
-                             ", rango: " + fechaInicio + " a " + fechaFin);
+            logger.debug("🔍 [MOVIMIENTOS RANGO] Obteniendo movimientos para empresa: {}, rango: {} a {}", empresaId, fechaInicio, fechaFin);
             
             // Obtener stock inicial del primer día
             MovimientoDiaDTO stockInicial = obtenerMovimientosDia(fechaInicioStr);
             
-            // Calcular movimientos acumulados durante el rango
-            MovimientoDiaDTO.MovimientosDTO ingresosAcumulados = obtenerIngresosAcumulados(empresaId, fechaInicio, fechaFin);
-            MovimientoDiaDTO.MovimientosDTO devolucionesAcumuladas = obtenerDevolucionesAcumuladas(empresaId, fechaInicio, fechaFin);
-            MovimientoDiaDTO.MovimientosDTO salidasAcumuladas = obtenerSalidasAcumuladas(empresaId, fechaInicio, fechaFin);
-            MovimientoDiaDTO.MovimientosDTO roturasAcumuladas = obtenerRoturasAcumuladas(empresaId, fechaInicio, fechaFin);
+            // Movimientos acumulados durante el rango: una sola agregación sobre el libro diario de stock
+            Map<StockDiarioProducto.Concepto, MovimientoDiaDTO.MovimientosDTO> movimientosRango = obtenerMovimientosLibro(empresaId, fechaInicio, fechaFin);
+            MovimientoDiaDTO.MovimientosDTO ingresosAcumulados = movimientosRango.get(StockDiarioProducto.Concepto.INGRESO);
+            MovimientoDiaDTO.MovimientosDTO devolucionesAcumuladas = movimientosRango.get(StockDiarioProducto.Concepto.DEVOLUCION);
+            MovimientoDiaDTO.MovimientosDTO salidasAcumuladas = movimientosRango.get(StockDiarioProducto.Concepto.SALIDA);
+            MovimientoDiaDTO.MovimientosDTO roturasAcumuladas = movimientosRango.get(StockDiarioProducto.Concepto.ROTURA);
             
             // Calcular balance final
             MovimientoDiaDTO.StockInicialDTO balanceFinal = calcularBalanceFinalAcumulado(
@@ -1471,167 +1242,15 @@ public class MovimientoDiaService {
             resultado.setBalanceFinal(balanceFinal);
             resultado.setDiaCerrado(true); // Los rangos siempre se consideran cerrados
             
-            System.out.println("✅ [MOVIMIENTOS RANGO] Movimientos calculados exitosamente");
+            logger.debug("✅ [MOVIMIENTOS RANGO] Movimientos calculados exitosamente");
             return resultado;
             
         } catch (Exception e) {
-            System.err.println("❌ [MOVIMIENTOS RANGO] Error al obtener movimientos por rango: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [MOVIMIENTOS RANGO] Error al obtener movimientos por rango: {}", e.getMessage(), e);
             throw new RuntimeException("Error al obtener movimientos por rango", e);
         }
     }
 
-    /**
-     * Obtener ingresos acumulados en un rango de fechas
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerIngresosAcumulados(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(23, 59, 59, 999999999);
-        
-        List<RemitoIngreso> remitos = remitoIngresoRepository.findByRangoFechasAndEmpresaId(inicio, fin, empresaId);
-        
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosUnificados = new HashMap<>();
-        
-        for (RemitoIngreso remito : remitos) {
-            for (DetalleRemitoIngreso detalle : remito.getDetalles()) {
-                Long productoId = detalle.getProducto().getId();
-                
-                if (productosUnificados.containsKey(productoId)) {
-                    MovimientoDiaDTO.ProductoMovimientoDTO existente = productosUnificados.get(productoId);
-                    existente.setCantidad(existente.getCantidad() + detalle.getCantidad());
-                } else {
-                    productosUnificados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                        productoId,
-                        detalle.getProducto().getNombre(),
-                        detalle.getProducto().getCodigoPersonalizado(),
-                        detalle.getCantidad(),
-                        remito.getFechaRemito().format(DATETIME_FORMATTER),
-                        null
-                    ));
-                }
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosUnificados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-
-    /**
-     * Obtener devoluciones acumuladas en un rango de fechas
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerDevolucionesAcumuladas(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(23, 59, 59, 999999999);
-        
-        List<PlanillaDevolucion> devoluciones = planillaDevolucionRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(empresaId, inicio, fin);
-        
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosUnificados = new HashMap<>();
-        
-        for (PlanillaDevolucion devolucion : devoluciones) {
-            for (DetallePlanillaDevolucion detalle : devolucion.getDetalles()) {
-                // Solo sumar productos en BUEN_ESTADO para los movimientos del día
-                // Si no tiene estado definido (productos existentes), considerarlo como BUEN_ESTADO
-                DetallePlanillaDevolucion.EstadoProducto estado = detalle.getEstadoProducto();
-                if (estado == null || estado == DetallePlanillaDevolucion.EstadoProducto.BUEN_ESTADO) {
-                    Long productoId = detalle.getProducto().getId();
-                    
-                    if (productosUnificados.containsKey(productoId)) {
-                        MovimientoDiaDTO.ProductoMovimientoDTO existente = productosUnificados.get(productoId);
-                        existente.setCantidad(existente.getCantidad() + detalle.getCantidad());
-                    } else {
-                        productosUnificados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                            productoId,
-                            detalle.getProducto().getNombre(),
-                            detalle.getProducto().getCodigoPersonalizado(),
-                            detalle.getCantidad(),
-                            devolucion.getFechaPlanilla().format(DATETIME_FORMATTER),
-                            null
-                        ));
-                    }
-                }
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosUnificados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-
-    /**
-     * Obtener salidas acumuladas en un rango de fechas
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerSalidasAcumuladas(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(23, 59, 59, 999999999);
-        
-        List<PlanillaPedido> pedidos = planillaPedidoRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(empresaId, inicio, fin);
-        
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosUnificados = new HashMap<>();
-        
-        for (PlanillaPedido pedido : pedidos) {
-            for (DetallePlanillaPedido detalle : pedido.getDetalles()) {
-                Long productoId = detalle.getProducto().getId();
-                
-                if (productosUnificados.containsKey(productoId)) {
-                    MovimientoDiaDTO.ProductoMovimientoDTO existente = productosUnificados.get(productoId);
-                    existente.setCantidad(existente.getCantidad() + detalle.getCantidad());
-                } else {
-                    productosUnificados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                        productoId,
-                        detalle.getProducto().getNombre(),
-                        detalle.getProducto().getCodigoPersonalizado(),
-                        detalle.getCantidad(),
-                        pedido.getFechaPlanilla().format(DATETIME_FORMATTER),
-                        null
-                    ));
-                }
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosUnificados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-
-    /**
-     * Obtener roturas acumuladas en un rango de fechas
-     */
-    private MovimientoDiaDTO.MovimientosDTO obtenerRoturasAcumuladas(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(23, 59, 59, 999999999);
-        
-        List<RoturaPerdida> roturas = roturaPerdidaRepository.findByEmpresaIdAndFechaBetweenOrderByFechaCreacionDesc(empresaId, inicio, fin);
-        
-        Map<Long, MovimientoDiaDTO.ProductoMovimientoDTO> productosUnificados = new HashMap<>();
-        
-        for (RoturaPerdida rotura : roturas) {
-            Long productoId = rotura.getProducto().getId();
-            
-            if (productosUnificados.containsKey(productoId)) {
-                MovimientoDiaDTO.ProductoMovimientoDTO existente = productosUnificados.get(productoId);
-                existente.setCantidad(existente.getCantidad() + rotura.getCantidad());
-            } else {
-                productosUnificados.put(productoId, new MovimientoDiaDTO.ProductoMovimientoDTO(
-                    productoId,
-                    rotura.getProducto().getNombre(),
-                    rotura.getProducto().getCodigoPersonalizado(),
-                    rotura.getCantidad(),
-                    rotura.getFecha().format(DATETIME_FORMATTER),
-                    null
-                ));
-            }
-        }
-        
-        List<MovimientoDiaDTO.ProductoMovimientoDTO> productos = new ArrayList<>(productosUnificados.values());
-        int cantidadTotal = productos.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum();
-        
-        return new MovimientoDiaDTO.MovimientosDTO(cantidadTotal, productos);
-    }
-
     /**
      * Calcular balance final acumulado
      */
@@ -1743,47 +1362,52 @@ public class MovimientoDiaService {
      * Exportar movimientos del día a Excel
      */
     @Transactional(readOnly = true)
-    public byte[] exportarMovimientosDiaExcel(String fechaStr) throws IOException {
+    public LibroExcelStreaming exportarMovimientosDiaExcel(String fechaStr) throws IOException {
         try {
-            System.out.println("🔍 [EXPORTAR] Iniciando exportación a Excel para fecha: " + fechaStr);
+            logger.debug("🔍 [EXPORTAR] Iniciando exportación a Excel para fecha: {}", fechaStr);
             
             // Obtener los movimientos del día
             MovimientoDiaDTO movimientos = obtenerMovimientosDia(fechaStr);
             
             // Crear el workbook de Excel
-            try (var workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("movimientos_dia", null));
+            try {
+                Workbook workbook = libro.getLibro();
                 var sheet = workbook.createSheet("Movimientos del Día");
                 
                 // Crear estilos
-                var headerStyle = workbook.createCellStyle();
-                var headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setColor(org.apache.poi.ss.usermodel.IndexedColors.WHITE.getIndex());
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.BLUE.getIndex());
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                headerStyle.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
-                headerStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var dataStyle = workbook.createCellStyle();
-                dataStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var totalStyle = workbook.createCellStyle();
-                var totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-                totalStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.GREY_25_PERCENT.getIndex());
-                totalStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                totalStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                Font headerFont = libro.fuente("headerFont", f -> {
+                    f.setBold(true);
+                    f.setColor(org.apache.poi.ss.usermodel.IndexedColors.WHITE.getIndex());
+                });
+                CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                    e.setFont(headerFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.BLUE.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+                CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                    e.setFont(totalFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.GREY_25_PERCENT.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
                 
                 // Crear título
                 var titleRow = sheet.createRow(0);
@@ -1968,19 +1592,15 @@ public class MovimientoDiaService {
                     sheet.setColumnWidth(i, 4000);
                 }
                 
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [EXPORTAR] Excel generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-                    return excelBytes;
-                }
+                logger.debug("✅ [EXPORTAR] Excel generado exitosamente");
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [EXPORTAR] Error al exportar movimientos a Excel: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [EXPORTAR] Error al exportar movimientos a Excel: {}", e.getMessage(), e);
             throw new IOException("Error al exportar movimientos a Excel", e);
         }
     }
@@ -1989,47 +1609,52 @@ public class MovimientoDiaService {
      * Exportar movimientos por rango de fechas a Excel
      */
     @Transactional(readOnly = true)
-    public byte[] exportarMovimientosRangoExcel(String fechaInicioStr, String fechaFinStr) throws IOException {
+    public LibroExcelStreaming exportarMovimientosRangoExcel(String fechaInicioStr, String fechaFinStr) throws IOException {
         try {
-            System.out.println("🔍 [EXPORTAR] Iniciando exportación a Excel para rango: " + fechaInicioStr + " a " + fechaFinStr);
+            logger.debug("🔍 [EXPORTAR] Iniciando exportación a Excel para rango: {} a {}", fechaInicioStr, fechaFinStr);
             
             // Obtener los movimientos del rango
             MovimientoDiaDTO movimientos = obtenerMovimientosRango(fechaInicioStr, fechaFinStr);
             
             // Crear el workbook de Excel
-            try (var workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("movimientos_rango", null));
+            try {
+                Workbook workbook = libro.getLibro();
                 var sheet = workbook.createSheet("Movimientos por Rango");
                 
                 // Crear estilos
-                var headerStyle = workbook.createCellStyle();
-                var headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setColor(org.apache.poi.ss.usermodel.IndexedColors.WHITE.getIndex());
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.BLUE.getIndex());
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                headerStyle.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
-                headerStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var dataStyle = workbook.createCellStyle();
-                dataStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var totalStyle = workbook.createCellStyle();
-                var totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-                totalStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.GREY_25_PERCENT.getIndex());
-                totalStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                totalStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                Font headerFont = libro.fuente("headerFont", f -> {
+                    f.setBold(true);
+                    f.setColor(org.apache.poi.ss.usermodel.IndexedColors.WHITE.getIndex());
+                });
+                CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                    e.setFont(headerFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.BLUE.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+                CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                    e.setFont(totalFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.GREY_25_PERCENT.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
                 
                 // Crear título
                 var titleRow = sheet.createRow(0);
@@ -2214,19 +1839,15 @@ public class MovimientoDiaService {
                     sheet.setColumnWidth(i, 4000);
                 }
                 
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [EXPORTAR] Excel de rango generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-                    return excelBytes;
-                }
+                logger.debug("✅ [EXPORTAR] Excel de rango generado exitosamente");
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [EXPORTAR] Error al exportar movimientos de rango a Excel: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [EXPORTAR] Error al exportar movimientos de rango a Excel: {}", e.getMessage(), e);
             throw new IOException("Error al exportar movimientos de rango a Excel", e);
         }
     }
@@ -2236,12 +1857,12 @@ public class MovimientoDiaService {
      * Incluye: código personalizado, productos iniciales, cantidades, remitos por día
      */
     @Transactional(readOnly = true)
-    public byte[] exportarIngresosDiaExcel(String fechaStr) throws IOException {
+    public LibroExcelStreaming exportarIngresosDiaExcel(String fechaStr) throws IOException {
         try {
             Long empresaId = obtenerEmpresaId();
             LocalDate fecha = LocalDate.parse(fechaStr, DATE_FORMATTER);
             
-            System.out.println("🔍 [EXPORTAR INGRESOS] Exportando ingresos para empresa: " + empresaId + ", fecha: " + fecha);
+            logger.debug("🔍 [EXPORTAR INGRESOS] Exportando ingresos para empresa: {}, fecha: {}", empresaId, fecha);
             
             // Obtener movimientos del día
             MovimientoDiaDTO movimientos = obtenerMovimientosDia(fechaStr);
@@ -2253,41 +1874,46 @@ public class MovimientoDiaService {
             List<RemitoIngreso> remitosDelDia = remitoIngresoRepository.findByRangoFechasAndEmpresaId(
                 inicioDia, finDia, empresaId);
             
-            System.out.println("📋 [EXPORTAR INGRESOS] Remitos encontrados: " + remitosDelDia.size());
+            logger.debug("📋 [EXPORTAR INGRESOS] Remitos encontrados: {}", remitosDelDia.size());
             
             // Crear workbook
-            try (var workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("ingresos_dia", empresaId));
+            try {
+                Workbook workbook = libro.getLibro();
                 var sheet = workbook.createSheet("Ingresos del Día");
                 
                 // Estilos
-                var headerStyle = workbook.createCellStyle();
-                var headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setFontHeightInPoints((short) 12);
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                headerStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var dataStyle = workbook.createCellStyle();
-                dataStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var totalStyle = workbook.createCellStyle();
-                var totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-                totalStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_YELLOW.getIndex());
-                totalStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                totalStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                Font headerFont = libro.fuente("headerFont", f -> {
+                    f.setBold(true);
+                    f.setFontHeightInPoints((short) 12);
+                });
+                CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                    e.setFont(headerFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+                CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                    e.setFont(totalFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_YELLOW.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
                 
                 // Crear estructura de encabezados como en la imagen
                 // Primera fila: "N° de Remito" como encabezado principal
@@ -2442,19 +2068,15 @@ public class MovimientoDiaService {
                     sheet.setColumnWidth(i, 4000);
                 }
                 
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [EXPORTAR INGRESOS] Excel de ingresos generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-                    return excelBytes;
-                }
+                logger.debug("✅ [EXPORTAR INGRESOS] Excel de ingresos generado exitosamente");
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [EXPORTAR INGRESOS] Error al exportar ingresos a Excel: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [EXPORTAR INGRESOS] Error al exportar ingresos a Excel: {}", e.getMessage(), e);
             throw new IOException("Error al exportar ingresos a Excel", e);
         }
     }
@@ -2464,12 +2086,12 @@ public class MovimientoDiaService {
      * Incluye: código personalizado, productos, cantidades, planillas por día
      */
     @Transactional(readOnly = true)
-    public byte[] exportarPlanillasDiaExcel(String fechaStr) throws IOException {
+    public LibroExcelStreaming exportarPlanillasDiaExcel(String fechaStr) throws IOException {
         try {
             Long empresaId = obtenerEmpresaId();
             LocalDate fecha = LocalDate.parse(fechaStr, DATE_FORMATTER);
             
-            System.out.println("🔍 [EXPORTAR PLANILLAS] Exportando planillas para empresa: " + empresaId + ", fecha: " + fecha);
+            logger.debug("🔍 [EXPORTAR PLANILLAS] Exportando planillas para empresa: {}, fecha: {}", empresaId, fecha);
             
             // Obtener movimientos del día
             MovimientoDiaDTO movimientos = obtenerMovimientosDia(fechaStr);
@@ -2481,41 +2103,46 @@ public class MovimientoDiaService {
             List<PlanillaPedido> planillasDelDia = planillaPedidoRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(
                 empresaId, inicioDia, finDia);
             
-            System.out.println("📋 [EXPORTAR PLANILLAS] Planillas encontradas: " + planillasDelDia.size());
+            logger.debug("📋 [EXPORTAR PLANILLAS] Planillas encontradas: {}", planillasDelDia.size());
             
             // Crear workbook
-            try (var workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("planillas_dia", empresaId));
+            try {
+                Workbook workbook = libro.getLibro();
                 var sheet = workbook.createSheet("Planillas del Día");
                 
                 // Estilos
-                var headerStyle = workbook.createCellStyle();
-                var headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setFontHeightInPoints((short) 12);
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                headerStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var dataStyle = workbook.createCellStyle();
-                dataStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var totalStyle = workbook.createCellStyle();
-                var totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-                totalStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_YELLOW.getIndex());
-                totalStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                totalStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                Font headerFont = libro.fuente("headerFont", f -> {
+                    f.setBold(true);
+                    f.setFontHeightInPoints((short) 12);
+                });
+                CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                    e.setFont(headerFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+                CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                    e.setFont(totalFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_YELLOW.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
                 
                 // Crear estructura de encabezados (3 filas: encabezado, números de planilla, patentes)
                 var headerRow1 = sheet.createRow(0);
@@ -2667,19 +2294,15 @@ public class MovimientoDiaService {
                     sheet.setColumnWidth(i, 4000);
                 }
                 
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [EXPORTAR PLANILLAS] Excel de planillas generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-                    return excelBytes;
-                }
+                logger.debug("✅ [EXPORTAR PLANILLAS] Excel de planillas generado exitosamente");
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [EXPORTAR PLANILLAS] Error al exportar planillas a Excel: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [EXPORTAR PLANILLAS] Error al exportar planillas a Excel: {}", e.getMessage(), e);
             throw new IOException("Error al exportar planillas a Excel", e);
         }
     }
@@ -2689,12 +2312,12 @@ public class MovimientoDiaService {
      * Incluye: código personalizado, productos, cantidades, planillas de devolución por día
      */
     @Transactional(readOnly = true)
-    public byte[] exportarDevolucionesDiaExcel(String fechaStr) throws IOException {
+    public LibroExcelStreaming exportarDevolucionesDiaExcel(String fechaStr) throws IOException {
         try {
             Long empresaId = obtenerEmpresaId();
             LocalDate fecha = LocalDate.parse(fechaStr, DATE_FORMATTER);
             
-            System.out.println("🔍 [EXPORTAR DEVOLUCIONES] Exportando devoluciones para empresa: " + empresaId + ", fecha: " + fecha);
+            logger.debug("🔍 [EXPORTAR DEVOLUCIONES] Exportando devoluciones para empresa: {}, fecha: {}", empresaId, fecha);
             
             // Obtener movimientos del día
             MovimientoDiaDTO movimientos = obtenerMovimientosDia(fechaStr);
@@ -2706,41 +2329,46 @@ public class MovimientoDiaService {
             List<PlanillaDevolucion> devolucionesDelDia = planillaDevolucionRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(
                 empresaId, inicioDia, finDia);
             
-            System.out.println("📋 [EXPORTAR DEVOLUCIONES] Devoluciones encontradas: " + devolucionesDelDia.size());
+            logger.debug("📋 [EXPORTAR DEVOLUCIONES] Devoluciones encontradas: {}", devolucionesDelDia.size());
             
             // Crear workbook
-            try (var workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("devoluciones_dia", empresaId));
+            try {
+                Workbook workbook = libro.getLibro();
                 var sheet = workbook.createSheet("Devoluciones del Día");
                 
                 // Estilos
-                var headerStyle = workbook.createCellStyle();
-                var headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setFontHeightInPoints((short) 12);
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                headerStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var dataStyle = workbook.createCellStyle();
-                dataStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                var totalStyle = workbook.createCellStyle();
-                var totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-                totalStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_YELLOW.getIndex());
-                totalStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                totalStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                totalStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                Font headerFont = libro.fuente("headerFont", f -> {
+                    f.setBold(true);
+                    f.setFontHeightInPoints((short) 12);
+                });
+                CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                    e.setFont(headerFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
+                
+                Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+                CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                    e.setFont(totalFont);
+                    e.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_YELLOW.getIndex());
+                    e.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
+                    e.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                    e.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
+                });
                 
                 // Crear estructura de encabezados (solo 2 filas, sin observaciones)
                 var headerRow1 = sheet.createRow(0);
@@ -2875,19 +2503,15 @@ public class MovimientoDiaService {
                     sheet.setColumnWidth(i, 4000);
                 }
                 
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [EXPORTAR DEVOLUCIONES] Excel de devoluciones generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-                    return excelBytes;
-                }
+                logger.debug("✅ [EXPORTAR DEVOLUCIONES] Excel de devoluciones generado exitosamente");
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [EXPORTAR DEVOLUCIONES] Error al exportar devoluciones a Excel: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [EXPORTAR DEVOLUCIONES] Error al exportar devoluciones a Excel: {}", e.getMessage(), e);
             throw new IOException("Error al exportar devoluciones a Excel", e);
         }
     }
@@ -2897,90 +2521,86 @@ public class MovimientoDiaService {
      * Incluye: código personalizado, descripción, cantidad inicial, total
      */
     @Transactional(readOnly = true)
-    public byte[] exportarStockInicialExcel(String fechaStr) throws IOException {
+    public LibroExcelStreaming exportarStockInicialExcel(String fechaStr) throws IOException {
         // Configurar sistema para modo headless ANTES de cualquier operación
         configurarModoHeadless();
         
-        System.out.println("🔍 [SERVICE] Exportando stock inicial a Excel para fecha: " + fechaStr);
+        logger.debug("🔍 [SERVICE] Exportando stock inicial a Excel para fecha: {}", fechaStr);
         
-        try {
-            return exportarStockInicialExcelCompleto(fechaStr);
-        } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error en stock inicial Excel, usando versión CSV: " + e.getMessage());
-            // Fallback a CSV
-            return exportarStockInicialCSV(fechaStr);
-        }
+        // Si falla, el controlador responde con exportarStockInicialCSV
+        return exportarStockInicialExcelCompleto(fechaStr);
     }
     
     /**
      * Versión completa del stock inicial a Excel
      */
-    private byte[] exportarStockInicialExcelCompleto(String fechaStr) throws IOException {
+    private LibroExcelStreaming exportarStockInicialExcelCompleto(String fechaStr) throws IOException {
         
         // Obtener movimientos del día
         MovimientoDiaDTO movimientos;
         try {
-            System.out.println("🔍 [SERVICE] Llamando a obtenerMovimientosDia con fecha: " + fechaStr);
+            logger.debug("🔍 [SERVICE] Llamando a obtenerMovimientosDia con fecha: {}", fechaStr);
             movimientos = obtenerMovimientosDia(fechaStr);
-            System.out.println("🔍 [SERVICE] Movimientos obtenidos: " + (movimientos != null ? "SÍ" : "NO"));
+            logger.debug("🔍 [SERVICE] Movimientos obtenidos: {}", (movimientos != null ? "SÍ" : "NO"));
             
             if (movimientos == null) {
-                System.out.println("⚠️ [SERVICE] No hay movimientos para la fecha: " + fechaStr);
+                logger.warn("⚠️ [SERVICE] No hay movimientos para la fecha: {}", fechaStr);
                 throw new RuntimeException("No hay movimientos disponibles para la fecha especificada");
             }
             
-            System.out.println("🔍 [SERVICE] Fecha en movimientos: " + movimientos.getFecha());
-            System.out.println("🔍 [SERVICE] Stock inicial: " + (movimientos.getStockInicial() != null ? "NO NULL" : "NULL"));
+            logger.debug("🔍 [SERVICE] Fecha en movimientos: {}", movimientos.getFecha());
+            logger.debug("🔍 [SERVICE] Stock inicial: {}", (movimientos.getStockInicial() != null ? "NO NULL" : "NULL"));
             
             if (movimientos.getStockInicial() == null) {
-                System.out.println("⚠️ [SERVICE] Stock inicial es null para la fecha: " + fechaStr);
+                logger.warn("⚠️ [SERVICE] Stock inicial es null para la fecha: {}", fechaStr);
             } else {
-                System.out.println("🔍 [SERVICE] Cantidad total stock inicial: " + movimientos.getStockInicial().getCantidadTotal());
+                logger.debug("🔍 [SERVICE] Cantidad total stock inicial: {}", movimientos.getStockInicial().getCantidadTotal());
                 if (movimientos.getStockInicial().getProductos() == null) {
-                    System.out.println("⚠️ [SERVICE] Productos de stock inicial es null para la fecha: " + fechaStr);
+                    logger.warn("⚠️ [SERVICE] Productos de stock inicial es null para la fecha: {}", fechaStr);
                 } else {
-                    System.out.println("🔍 [SERVICE] Productos de stock inicial: " + movimientos.getStockInicial().getProductos().size());
+                    logger.debug("🔍 [SERVICE] Productos de stock inicial: {}", movimientos.getStockInicial().getProductos().size());
                 }
             }
             
             if (movimientos.getStockInicial() == null || movimientos.getStockInicial().getProductos() == null || movimientos.getStockInicial().getProductos().isEmpty()) {
-                System.out.println("⚠️ [SERVICE] No hay stock inicial para exportar en la fecha: " + fechaStr + ", generando Excel vacío");
+                logger.warn("⚠️ [SERVICE] No hay stock inicial para exportar en la fecha: {}, generando Excel vacío", fechaStr);
             }
         } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error al obtener movimientos: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [SERVICE] Error al obtener movimientos: {}", e.getMessage(), e);
             throw new IOException("Error al obtener movimientos del día: " + e.getMessage(), e);
         }
         
-        // Crear workbook de Excel con inicialización segura
-        org.apache.poi.xssf.usermodel.XSSFWorkbook workbook = null;
+        // Crear workbook de Excel
+        LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("stock_inicial", null));
         try {
-            // Inicialización diferida y segura
-            workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook();
-            System.out.println("🔍 [SERVICE] Creando workbook de Excel");
+            Workbook workbook = libro.getLibro();
+            logger.debug("🔍 [SERVICE] Creando workbook de Excel");
             Sheet sheet = workbook.createSheet("Stock Inicial");
-            System.out.println("🔍 [SERVICE] Sheet creado: " + sheet.getSheetName());
+            logger.debug("🔍 [SERVICE] Sheet creado: {}", sheet.getSheetName());
             
             // Crear estilos
-            System.out.println("🔍 [SERVICE] Creando estilos");
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setColor(IndexedColors.WHITE.getIndex());
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-            
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
+            logger.debug("🔍 [SERVICE] Creando estilos");
+            Font headerFont = libro.fuente("headerFont", f -> {
+                f.setBold(true);
+                f.setColor(IndexedColors.WHITE.getIndex());
+            });
+            CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                e.setFont(headerFont);
+                e.setFillForegroundColor(IndexedColors.BLUE.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setAlignment(HorizontalAlignment.CENTER);
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
+            
+            CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
             
             // Título principal
             Row titleRow = sheet.createRow(0);
@@ -3055,33 +2675,23 @@ public class MovimientoDiaService {
             // Establecer anchos de columnas fijos (evita errores de fuentes en headless)
             establecerAnchosColumnas(sheet, 15, 30, 12); // Código, Descripción, Cantidad
             
-            // Convertir a bytes
-            try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                byte[] workbookBytes = outputStream.toByteArray();
-                
-                System.out.println("✅ [SERVICE] Excel de stock inicial generado exitosamente. Tamaño: " + workbookBytes.length + " bytes");
-                System.out.println("📊 [SERVICE] Productos exportados: " + productos.size() + ", Total cantidad: " + totalCantidad);
-                
-                return workbookBytes;
-            }
-        } finally {
-            if (workbook != null) {
-                try {
-                    workbook.close();
-                } catch (Exception e) {
-                    System.err.println("⚠️ [SERVICE] Error al cerrar workbook: " + e.getMessage());
-                }
-            }
+            logger.debug("✅ [SERVICE] Excel de stock inicial generado exitosamente");
+            logger.debug("📊 [SERVICE] Productos exportados: {}, Total cantidad: {}", productos.size(), totalCantidad);
+            
+            return libro;
+        } catch (RuntimeException e) {
+            libro.descartar();
+            throw e;
         }
     }
     
     /**
      * Versión CSV del stock inicial como fallback
      */
-    private byte[] exportarStockInicialCSV(String fechaStr) {
+    @Transactional(readOnly = true)
+    public byte[] exportarStockInicialCSV(String fechaStr) {
         try {
-            System.out.println("🔍 [SERVICE] Generando stock inicial CSV para fecha: " + fechaStr);
+            logger.debug("🔍 [SERVICE] Generando stock inicial CSV para fecha: {}", fechaStr);
             
             StringBuilder csv = new StringBuilder();
             csv.append("STOCK INICIAL - ").append(fechaStr).append("\n");
@@ -3104,12 +2714,11 @@ public class MovimientoDiaService {
             }
             
             byte[] csvBytes = csv.toString().getBytes("UTF-8");
-            System.out.println("✅ [SERVICE] Stock inicial CSV generado. Tamaño: " + csvBytes.length + " bytes");
+            logger.debug("✅ [SERVICE] Stock inicial CSV generado. Tamaño: {} bytes", csvBytes.length);
             return csvBytes;
             
         } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error en stock inicial CSV: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [SERVICE] Error en stock inicial CSV: {}", e.getMessage(), e);
             return "Error generando stock inicial".getBytes();
         }
     }
@@ -3122,20 +2731,18 @@ public class MovimientoDiaService {
      * Pestañas: Ingresos, Planillas, Retornos, Pérdidas, Inventario, Stock Final
      */
     @Transactional(readOnly = true)
-    public byte[] exportarReporteCompletoExcel(String fechaStr) {
+    public LibroExcelStreaming exportarReporteCompletoExcel(String fechaStr) {
         // VERSIÓN COMPLETA CON 6 PESTAÑAS
         try {
             return exportarReporteCompletoExcelCompleto(fechaStr);
         } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error en reporte completo, usando versión simple: " + e.getMessage());
-            // Fallback a versión simple si falla la completa
-            try {
-                return exportarReporteCompletoExcelSimple(fechaStr);
-            } catch (Exception e2) {
-                System.err.println("❌ [SERVICE] Error en reporte simple, usando versión CSV: " + e2.getMessage());
-                // Fallback final a CSV
-                return exportarReporteCompletoCSV(fechaStr);
+            logger.error("❌ [SERVICE] Error en reporte completo, usando versión simple: {}", e.getMessage());
+            // Fallback a versión simple si falla la completa; si también falla, el controlador usa exportarReporteCompletoCSV
+            LibroExcelStreaming simple = exportarReporteCompletoExcelSimple(fechaStr);
+            if (simple == null) {
+                throw new RuntimeException("Error al generar reporte completo", e);
             }
+            return simple;
         }
     }
     
@@ -3143,16 +2750,14 @@ public class MovimientoDiaService {
      * Versión simplificada del reporte para debug
      */
     @Transactional(readOnly = true)
-    private byte[] exportarReporteCompletoExcelSimple(String fechaStr) {
+    private LibroExcelStreaming exportarReporteCompletoExcelSimple(String fechaStr) {
         try {
-            System.out.println("🔍 [SERVICE] Generando reporte SIMPLE para fecha: " + fechaStr);
+            logger.debug("🔍 [SERVICE] Generando reporte SIMPLE para fecha: {}", fechaStr);
             
-            // Crear workbook simple con inicialización diferida
-            org.apache.poi.xssf.usermodel.XSSFWorkbook workbook = null;
+            // Crear workbook simple
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("reporte_completo_simple", null));
             try {
-                // Inicialización diferida y segura
-                workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook();
-                Sheet sheet = workbook.createSheet("Prueba");
+                Sheet sheet = libro.crearHoja("Prueba");
                 
                 // Datos básicos
                 Row row1 = sheet.createRow(0);
@@ -3170,27 +2775,15 @@ public class MovimientoDiaService {
                 // Establecer anchos de columnas fijos
                 establecerAnchosColumnas(sheet, 20, 15);
                 
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [SERVICE] Reporte SIMPLE generado. Tamaño: " + excelBytes.length + " bytes");
-                    return excelBytes;
-                }
-            } finally {
-                if (workbook != null) {
-                    try {
-                        workbook.close();
-                    } catch (Exception e) {
-                        System.err.println("⚠️ [SERVICE] Error al cerrar workbook: " + e.getMessage());
-                    }
-                }
+                logger.debug("✅ [SERVICE] Reporte SIMPLE generado");
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error en reporte SIMPLE: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [SERVICE] Error en reporte SIMPLE: {}", e.getMessage(), e);
             return null;
         }
     }
@@ -3199,9 +2792,9 @@ public class MovimientoDiaService {
      * Versión CSV del reporte como fallback final
      */
     @Transactional(readOnly = true)
-    private byte[] exportarReporteCompletoCSV(String fechaStr) {
+    public byte[] exportarReporteCompletoCSV(String fechaStr) {
         try {
-            System.out.println("🔍 [SERVICE] Generando reporte CSV para fecha: " + fechaStr);
+            logger.debug("🔍 [SERVICE] Generando reporte CSV para fecha: {}", fechaStr);
             
             StringBuilder csv = new StringBuilder();
             csv.append("REPORTE COMPLETO - ").append(fechaStr).append("\n");
@@ -3253,12 +2846,11 @@ public class MovimientoDiaService {
             }
             
             byte[] csvBytes = csv.toString().getBytes("UTF-8");
-            System.out.println("✅ [SERVICE] Reporte CSV generado. Tamaño: " + csvBytes.length + " bytes");
+            logger.debug("✅ [SERVICE] Reporte CSV generado. Tamaño: {} bytes", csvBytes.length);
             return csvBytes;
             
         } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error en reporte CSV: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [SERVICE] Error en reporte CSV: {}", e.getMessage(), e);
             return "Error generando reporte".getBytes();
         }
     }
@@ -3267,92 +2859,84 @@ public class MovimientoDiaService {
      * Versión completa del reporte (temporalmente deshabilitada)
      */
     @Transactional(readOnly = true)
-    public byte[] exportarReporteCompletoExcelCompleto(String fechaStr) {
+    public LibroExcelStreaming exportarReporteCompletoExcelCompleto(String fechaStr) {
         // Configurar sistema para modo headless ANTES de cualquier operación
         configurarModoHeadless();
         
         try {
             
-            System.out.println("🔍 [SERVICE] Generando reporte completo para fecha: " + fechaStr);
-            System.out.println("🔍 [SERVICE] Empresa ID: " + obtenerEmpresaId());
+            logger.debug("🔍 [SERVICE] Generando reporte completo para fecha: {}", fechaStr);
+            logger.debug("🔍 [SERVICE] Empresa ID: {}", obtenerEmpresaId());
             
             // Obtener datos de movimientos
             MovimientoDiaDTO movimientos = obtenerMovimientosDia(fechaStr);
-            System.out.println("🔍 [SERVICE] Movimientos obtenidos: " + (movimientos != null ? "SÍ" : "NO"));
+            logger.debug("🔍 [SERVICE] Movimientos obtenidos: {}", (movimientos != null ? "SÍ" : "NO"));
             
-            // Crear workbook con try-with-resources y inicialización segura
-            org.apache.poi.xssf.usermodel.XSSFWorkbook workbook = null;
+            // Crear workbook en streaming: las seis pestañas comparten los estilos cacheados del libro
+            LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("reporte_completo", null));
             try {
-                // Inicialización diferida y segura
-                workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook();
+                Workbook workbook = libro.getLibro();
             
             // Crear estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 12);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
-            
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
-            titleStyle.setAlignment(HorizontalAlignment.CENTER);
+            Font headerFont = libro.fuente("headerFont", f -> {
+                f.setBold(true);
+                f.setFontHeightInPoints((short) 12);
+            });
+            CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                e.setFont(headerFont);
+                e.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+                e.setAlignment(HorizontalAlignment.CENTER);
+            });
+            
+            CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
+            
+            Font titleFont = libro.fuente("titleFont", f -> {
+                f.setBold(true);
+                f.setFontHeightInPoints((short) 14);
+            });
+            CellStyle titleStyle = libro.estilo("titleStyle", e -> {
+                e.setFont(titleFont);
+                e.setAlignment(HorizontalAlignment.CENTER);
+            });
             
             // 1. PESTAÑA INGRESOS
-            crearPestanaIngresos(workbook, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
+            crearPestanaIngresos(libro, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
             
             // 2. PESTAÑA PLANILLAS
-            crearPestanaPlanillas(workbook, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
+            crearPestanaPlanillas(libro, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
             
             // 3. PESTAÑA RETORNOS
-            crearPestanaRetornos(workbook, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
+            crearPestanaRetornos(libro, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
             
             // 4. PESTAÑA PÉRDIDAS
-            crearPestanaPerdidas(workbook, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
+            crearPestanaPerdidas(libro, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
             
             // 5. PESTAÑA INVENTARIO (antes Stock)
-            crearPestanaStock(workbook, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
+            crearPestanaStock(libro, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
             
             // 6. PESTAÑA STOCK FINAL (nueva)
-            crearPestanaStockFinal(workbook, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
+            crearPestanaStockFinal(libro, movimientos, fechaStr, headerStyle, dataStyle, titleStyle);
             
-                // Convertir a bytes
-                try (var outputStream = new java.io.ByteArrayOutputStream()) {
-                    workbook.write(outputStream);
-                    byte[] excelBytes = outputStream.toByteArray();
-                    
-                    System.out.println("✅ [SERVICE] Reporte completo generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
-                    
-                    return excelBytes;
-                }
-            } finally {
-                if (workbook != null) {
-                    try {
-                        workbook.close();
-                    } catch (Exception e) {
-                        System.err.println("⚠️ [SERVICE] Error al cerrar workbook: " + e.getMessage());
-                    }
-                }
+                logger.debug("✅ [SERVICE] Reporte completo generado exitosamente");
+                
+                return libro;
+            } catch (RuntimeException e) {
+                libro.descartar();
+                throw e;
             }
             
         } catch (Exception e) {
-            System.err.println("❌ [SERVICE] Error al generar reporte completo: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [SERVICE] Error al generar reporte completo: {}", e.getMessage(), e);
             throw new RuntimeException("Error al generar reporte completo", e);
         }
     }
@@ -3360,10 +2944,11 @@ public class MovimientoDiaService {
     /**
      * Crear pestaña de Ingresos
      */
-    private void crearPestanaIngresos(Workbook workbook, MovimientoDiaDTO movimientos, String fechaStr, 
+    private void crearPestanaIngresos(LibroExcelStreaming libro, MovimientoDiaDTO movimientos, String fechaStr, 
                                     CellStyle headerStyle, CellStyle dataStyle, CellStyle titleStyle) {
+        Workbook workbook = libro.getLibro();
         try {
-            System.out.println("🔍 [INGRESOS] Iniciando creación de pestaña Ingresos");
+            logger.debug("🔍 [INGRESOS] Iniciando creación de pestaña Ingresos");
             Sheet sheet = workbook.createSheet("Ingresos");
             
             // Título
@@ -3374,13 +2959,13 @@ public class MovimientoDiaService {
             sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 10));
             
             // Obtener remitos de ingresos del día
-            System.out.println("🔍 [INGRESOS] Obteniendo remitos para fecha: " + fechaStr);
+            logger.debug("🔍 [INGRESOS] Obteniendo remitos para fecha: {}", fechaStr);
             List<RemitoIngreso> remitos = remitoIngresoRepository.findByRangoFechasAndEmpresaId(
                 LocalDate.parse(fechaStr).atStartOfDay(),
                 LocalDate.parse(fechaStr).atTime(23, 59, 59),
                 obtenerEmpresaId()
             );
-            System.out.println("🔍 [INGRESOS] Remitos encontrados: " + remitos.size());
+            logger.debug("🔍 [INGRESOS] Remitos encontrados: {}", remitos.size());
         
         // Obtener TODOS los productos del stock inicial (igual que en el modal)
         Set<Producto> productosUnicos = new HashSet<>();
@@ -3427,24 +3012,23 @@ public class MovimientoDiaService {
         obsRow.createCell(2).setCellValue("");
         
         // Observaciones de remitos (transporte)
-        System.out.println("🔍 [INGRESOS] Procesando observaciones de " + remitos.size() + " remitos");
+        logger.debug("🔍 [INGRESOS] Procesando observaciones de {} remitos", remitos.size());
         int obsColIndex = 3;
         for (RemitoIngreso remito : remitos) {
             Cell obsCell = obsRow.createCell(obsColIndex++);
             String observacion = "";
             try {
-                System.out.println("🔍 [INGRESOS] Procesando remito: " + remito.getNumeroRemito());
+                logger.debug("🔍 [INGRESOS] Procesando remito: {}", remito.getNumeroRemito());
                 // Intentar obtener observaciones de diferentes formas
                 if (remito.getObservaciones() != null) {
                     observacion = remito.getObservaciones();
-                    System.out.println("🔍 [INGRESOS] Observación encontrada: " + observacion);
+                    logger.debug("🔍 [INGRESOS] Observación encontrada: {}", observacion);
                 } else {
                     observacion = "";
-                    System.out.println("🔍 [INGRESOS] Sin observación para remito: " + remito.getNumeroRemito());
+                    logger.debug("🔍 [INGRESOS] Sin observación para remito: {}", remito.getNumeroRemito());
                 }
             } catch (Exception e) {
-                System.err.println("❌ [INGRESOS] Error al obtener observaciones del remito " + remito.getNumeroRemito() + ": " + e.getMessage());
-                e.printStackTrace();
+                logger.error("❌ [INGRESOS] Error al obtener observaciones del remito {}: {}", remito.getNumeroRemito(), e.getMessage(), e);
                 observacion = "";
             }
             obsCell.setCellValue(observacion);
@@ -3496,16 +3080,16 @@ public class MovimientoDiaService {
         }
         
         // Crear estilo para la fila de totales
-        CellStyle totalStyle = workbook.createCellStyle();
-        Font totalFont = workbook.createFont();
-        totalFont.setBold(true);
-        totalStyle.setFont(totalFont);
-        totalStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        totalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        totalStyle.setBorderTop(BorderStyle.THICK);
-        totalStyle.setBorderBottom(BorderStyle.THICK);
-        totalStyle.setBorderLeft(BorderStyle.THIN);
-        totalStyle.setBorderRight(BorderStyle.THIN);
+        Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+        CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+            e.setFont(totalFont);
+            e.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            e.setBorderTop(BorderStyle.THICK);
+            e.setBorderBottom(BorderStyle.THICK);
+            e.setBorderLeft(BorderStyle.THIN);
+            e.setBorderRight(BorderStyle.THIN);
+        });
         
         // Agregar fila de totales solo si hay productos
         if (rowIndex > 3) { // Verificar que hay al menos una fila de datos (rowIndex 3 = primera fila de datos)
@@ -3541,11 +3125,10 @@ public class MovimientoDiaService {
         // Congelar paneles para mantener encabezados visibles
         sheet.createFreezePane(0, 4);
         
-        System.out.println("✅ [INGRESOS] Pestaña Ingresos creada exitosamente con fila de totales");
+        logger.debug("✅ [INGRESOS] Pestaña Ingresos creada exitosamente con fila de totales");
         
         } catch (Exception e) {
-            System.err.println("❌ [INGRESOS] Error al crear pestaña Ingresos: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [INGRESOS] Error al crear pestaña Ingresos: {}", e.getMessage(), e);
             throw e;
         }
     }
@@ -3553,8 +3136,9 @@ public class MovimientoDiaService {
     /**
      * Crear pestaña de Planillas
      */
-    private void crearPestanaPlanillas(Workbook workbook, MovimientoDiaDTO movimientos, String fechaStr, 
+    private void crearPestanaPlanillas(LibroExcelStreaming libro, MovimientoDiaDTO movimientos, String fechaStr, 
                                      CellStyle headerStyle, CellStyle dataStyle, CellStyle titleStyle) {
+        Workbook workbook = libro.getLibro();
         Sheet sheet = workbook.createSheet("Planillas");
         
         // Título
@@ -3673,16 +3257,16 @@ public class MovimientoDiaService {
         }
         
         // Estilo para la fila de totales
-        CellStyle totalStyle = workbook.createCellStyle();
-        Font totalFont = workbook.createFont();
-        totalFont.setBold(true);
-        totalStyle.setFont(totalFont);
-        totalStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        totalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        totalStyle.setBorderTop(BorderStyle.THICK);
-        totalStyle.setBorderBottom(BorderStyle.THICK);
-        totalStyle.setBorderLeft(BorderStyle.THIN);
-        totalStyle.setBorderRight(BorderStyle.THIN);
+        Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+        CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+            e.setFont(totalFont);
+            e.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            e.setBorderTop(BorderStyle.THICK);
+            e.setBorderBottom(BorderStyle.THICK);
+            e.setBorderLeft(BorderStyle.THIN);
+            e.setBorderRight(BorderStyle.THIN);
+        });
         
         for (int i = 0; i < colIndex; i++) {
             if (totalRow.getCell(i) != null) {
@@ -3700,8 +3284,9 @@ public class MovimientoDiaService {
     /**
      * Crear pestaña de Retornos
      */
-    private void crearPestanaRetornos(Workbook workbook, MovimientoDiaDTO movimientos, String fechaStr, 
+    private void crearPestanaRetornos(LibroExcelStreaming libro, MovimientoDiaDTO movimientos, String fechaStr, 
                                     CellStyle headerStyle, CellStyle dataStyle, CellStyle titleStyle) {
+        Workbook workbook = libro.getLibro();
         Sheet sheet = workbook.createSheet("Retornos");
         
         // Título
@@ -3826,16 +3411,16 @@ public class MovimientoDiaService {
             }
             
             // Estilo para la fila de totales
-            CellStyle totalStyle = workbook.createCellStyle();
-            Font totalFont = workbook.createFont();
-            totalFont.setBold(true);
-            totalStyle.setFont(totalFont);
-            totalStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            totalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            totalStyle.setBorderTop(BorderStyle.THICK);
-            totalStyle.setBorderBottom(BorderStyle.THICK);
-            totalStyle.setBorderLeft(BorderStyle.THIN);
-            totalStyle.setBorderRight(BorderStyle.THIN);
+            Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+            CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                e.setFont(totalFont);
+                e.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setBorderTop(BorderStyle.THICK);
+                e.setBorderBottom(BorderStyle.THICK);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
             
             for (int i = 0; i < colIndex; i++) {
                 if (totalRow.getCell(i) != null) {
@@ -3854,8 +3439,9 @@ public class MovimientoDiaService {
     /**
      * Crear pestaña de Pérdidas
      */
-    private void crearPestanaPerdidas(Workbook workbook, MovimientoDiaDTO movimientos, String fechaStr, 
+    private void crearPestanaPerdidas(LibroExcelStreaming libro, MovimientoDiaDTO movimientos, String fechaStr, 
                                     CellStyle headerStyle, CellStyle dataStyle, CellStyle titleStyle) {
+        Workbook workbook = libro.getLibro();
         Sheet sheet = workbook.createSheet("Pérdidas");
         
         // Título
@@ -3871,7 +3457,7 @@ public class MovimientoDiaService {
             LocalDate.parse(fechaStr).atStartOfDay(),
             LocalDate.parse(fechaStr).atTime(23, 59, 59)
         );
-        System.out.println("🔍 [PÉRDIDAS] Total pérdidas encontradas: " + perdidas.size());
+        logger.debug("🔍 [PÉRDIDAS] Total pérdidas encontradas: {}", perdidas.size());
         
         // Crear encabezados
         Row headerRow = sheet.createRow(2);
@@ -3901,7 +3487,7 @@ public class MovimientoDiaService {
             Cell cantidadCell = dataRow.createCell(2);
             cantidadCell.setCellValue(perdida.getCantidad());
             cantidadCell.setCellType(CellType.NUMERIC); // Asegurar que sea tratado como número
-            System.out.println("🔍 [PÉRDIDAS] Agregando pérdida - Fila: " + (rowIndex-1) + ", Cantidad: " + perdida.getCantidad());
+            logger.debug("🔍 [PÉRDIDAS] Agregando pérdida - Fila: {}, Cantidad: {}", (rowIndex-1), perdida.getCantidad());
             
             // Observación
             dataRow.createCell(3).setCellValue(perdida.getObservaciones() != null ? perdida.getObservaciones() : "");
@@ -3924,21 +3510,21 @@ public class MovimientoDiaService {
             Cell totalCantidadCell = totalRow.createCell(2);
             String totalCantidadFormula = "SUM(C3:C" + (rowIndex - 1) + ")";
             totalCantidadCell.setCellFormula(totalCantidadFormula);
-            System.out.println("🔍 [PÉRDIDAS] Fórmula de totales: " + totalCantidadFormula + " (rowIndex: " + rowIndex + ")");
+            logger.debug("🔍 [PÉRDIDAS] Fórmula de totales: {} (rowIndex: {})", totalCantidadFormula, rowIndex);
             
             totalRow.createCell(3).setCellValue(""); // Columna de observación vacía
             
             // Estilo para la fila de totales
-            CellStyle totalStyle = workbook.createCellStyle();
-            Font totalFont = workbook.createFont();
-            totalFont.setBold(true);
-            totalStyle.setFont(totalFont);
-            totalStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            totalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            totalStyle.setBorderTop(BorderStyle.THICK);
-            totalStyle.setBorderBottom(BorderStyle.THICK);
-            totalStyle.setBorderLeft(BorderStyle.THIN);
-            totalStyle.setBorderRight(BorderStyle.THIN);
+            Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+            CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+                e.setFont(totalFont);
+                e.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setBorderTop(BorderStyle.THICK);
+                e.setBorderBottom(BorderStyle.THICK);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
             
             // Aplicar estilos a la fila de totales
             for (int i = 0; i < 4; i++) {
@@ -3955,8 +3541,9 @@ public class MovimientoDiaService {
     /**
      * Crear pestaña de Inventario
      */
-    private void crearPestanaStock(Workbook workbook, MovimientoDiaDTO movimientos, String fechaStr, 
+    private void crearPestanaStock(LibroExcelStreaming libro, MovimientoDiaDTO movimientos, String fechaStr, 
                                  CellStyle headerStyle, CellStyle dataStyle, CellStyle titleStyle) {
+        Workbook workbook = libro.getLibro();
         Sheet sheet = workbook.createSheet("Inventario");
         
         // Título
@@ -3970,13 +3557,15 @@ public class MovimientoDiaService {
         Row infoRow = sheet.createRow(1);
         Cell infoCell = infoRow.createCell(0);
         infoCell.setCellValue("💡 Ingrese el recuento real en cada sector - la diferencia total se calculará automáticamente");
-        CellStyle infoStyle = workbook.createCellStyle();
-        Font infoFont = workbook.createFont();
-        infoFont.setItalic(true);
-        infoFont.setFontHeightInPoints((short) 10);
-        infoStyle.setFont(infoFont);
-        infoStyle.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
-        infoStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        Font infoFont = libro.fuente("infoFont", f -> {
+            f.setItalic(true);
+            f.setFontHeightInPoints((short) 10);
+        });
+        CellStyle infoStyle = libro.estilo("infoStyle", e -> {
+            e.setFont(infoFont);
+            e.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
+            e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        });
         infoCell.setCellStyle(infoStyle);
         sheet.addMergedRegion(new CellRangeAddress(1, 1, 0, 9)); // Aumentado para 9 columnas
         
@@ -4028,10 +3617,11 @@ public class MovimientoDiaService {
             saldoCell.setCellStyle(dataStyle);
             
             // Crear estilo para celdas de sectores (editable)
-            CellStyle sectorStyle = workbook.createCellStyle();
-            sectorStyle.cloneStyleFrom(dataStyle);
-            sectorStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            sectorStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            CellStyle sectorStyle = libro.estilo("sectorStyle", e -> {
+                e.cloneStyleFrom(dataStyle);
+                e.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            });
             
             // Columnas de sectores (inicializadas en 0, editables)
             int currentColIndex = 3;
@@ -4051,10 +3641,11 @@ public class MovimientoDiaService {
             diferenciaCell.setCellFormula(formula);
             
             // Estilo para la celda de diferencia
-            CellStyle diferenciaStyle = workbook.createCellStyle();
-            diferenciaStyle.cloneStyleFrom(dataStyle);
-            diferenciaStyle.setFillForegroundColor(IndexedColors.LIGHT_ORANGE.getIndex());
-            diferenciaStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            CellStyle diferenciaStyle = libro.estilo("diferenciaStyle", e -> {
+                e.cloneStyleFrom(dataStyle);
+                e.setFillForegroundColor(IndexedColors.LIGHT_ORANGE.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            });
             diferenciaCell.setCellStyle(diferenciaStyle);
             
             // Aplicar estilos a las celdas de texto
@@ -4087,16 +3678,16 @@ public class MovimientoDiaService {
         totalDiferenciaCell.setCellFormula(totalDiferenciaFormula);
         
         // Estilo para la fila de totales
-        CellStyle totalStyle = workbook.createCellStyle();
-        Font totalFont = workbook.createFont();
-        totalFont.setBold(true);
-        totalStyle.setFont(totalFont);
-        totalStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        totalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        totalStyle.setBorderTop(BorderStyle.THICK);
-        totalStyle.setBorderBottom(BorderStyle.THICK);
-        totalStyle.setBorderLeft(BorderStyle.THIN);
-        totalStyle.setBorderRight(BorderStyle.THIN);
+        Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+        CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+            e.setFont(totalFont);
+            e.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            e.setBorderTop(BorderStyle.THICK);
+            e.setBorderBottom(BorderStyle.THICK);
+            e.setBorderLeft(BorderStyle.THIN);
+            e.setBorderRight(BorderStyle.THIN);
+        });
         
         for (int i = 0; i <= totalColIndex; i++) {
             if (totalRow.getCell(i) != null) {
@@ -4115,8 +3706,9 @@ public class MovimientoDiaService {
     /**
      * Crear pestaña de Stock Final (formato compatible con importación)
      */
-    private void crearPestanaStockFinal(Workbook workbook, MovimientoDiaDTO movimientos, String fechaStr, 
+    private void crearPestanaStockFinal(LibroExcelStreaming libro, MovimientoDiaDTO movimientos, String fechaStr, 
                                       CellStyle headerStyle, CellStyle dataStyle, CellStyle titleStyle) {
+        Workbook workbook = libro.getLibro();
         Sheet sheet = workbook.createSheet("Stock Final");
         
         // Título
@@ -4130,13 +3722,15 @@ public class MovimientoDiaService {
         Row infoRow = sheet.createRow(1);
         Cell infoCell = infoRow.createCell(0);
         infoCell.setCellValue("💡 Esta pestaña contiene el stock real después del recuento físico - Formato compatible con importación");
-        CellStyle infoStyle = workbook.createCellStyle();
-        Font infoFont = workbook.createFont();
-        infoFont.setItalic(true);
-        infoFont.setFontHeightInPoints((short) 10);
-        infoStyle.setFont(infoFont);
-        infoStyle.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
-        infoStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        Font infoFont = libro.fuente("infoFont", f -> {
+            f.setItalic(true);
+            f.setFontHeightInPoints((short) 10);
+        });
+        CellStyle infoStyle = libro.estilo("infoStyle", e -> {
+            e.setFont(infoFont);
+            e.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
+            e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        });
         infoCell.setCellStyle(infoStyle);
         sheet.addMergedRegion(new CellRangeAddress(1, 1, 0, 3));
         
@@ -4177,10 +3771,11 @@ public class MovimientoDiaService {
             stockCell.setCellFormula(formula);
             
             // Estilo para la celda de stock (conectada dinámicamente)
-            CellStyle stockStyle = workbook.createCellStyle();
-            stockStyle.cloneStyleFrom(dataStyle);
-            stockStyle.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
-            stockStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            CellStyle stockStyle = libro.estilo("stockStyle", e -> {
+                e.cloneStyleFrom(dataStyle);
+                e.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            });
             stockCell.setCellStyle(stockStyle);
             
             // Aplicar estilos a las celdas de texto
@@ -4199,16 +3794,16 @@ public class MovimientoDiaService {
         totalStockCell.setCellFormula(totalStockFormula);
         
         // Estilo para la fila de totales
-        CellStyle totalStyle = workbook.createCellStyle();
-        Font totalFont = workbook.createFont();
-        totalFont.setBold(true);
-        totalStyle.setFont(totalFont);
-        totalStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        totalStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        totalStyle.setBorderTop(BorderStyle.THICK);
-        totalStyle.setBorderBottom(BorderStyle.THICK);
-        totalStyle.setBorderLeft(BorderStyle.THIN);
-        totalStyle.setBorderRight(BorderStyle.THIN);
+        Font totalFont = libro.fuente("totalFont", f -> f.setBold(true));
+        CellStyle totalStyle = libro.estilo("totalStyle", e -> {
+            e.setFont(totalFont);
+            e.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            e.setBorderTop(BorderStyle.THICK);
+            e.setBorderBottom(BorderStyle.THICK);
+            e.setBorderLeft(BorderStyle.THIN);
+            e.setBorderRight(BorderStyle.THIN);
+        });
         
         for (int i = 0; i < 3; i++) {
             if (totalRow.getCell(i) != null) {
@@ -4229,7 +3824,7 @@ public class MovimientoDiaService {
     @Transactional(readOnly = true)
     public List<Map<String, Object>> obtenerProductosPerdidos(String fechaStr) {
         try {
-            System.out.println("🔍 [PRODUCTOS PERDIDOS] Obteniendo productos perdidos para fecha: " + fechaStr);
+            logger.debug("🔍 [PRODUCTOS PERDIDOS] Obteniendo productos perdidos para fecha: {}", fechaStr);
             
             Long empresaId = obtenerEmpresaId();
             LocalDate fecha = LocalDate.parse(fechaStr);
@@ -4241,8 +3836,8 @@ public class MovimientoDiaService {
             // 1. Obtener productos perdidos de remitos de ingreso
             List<RemitoIngreso> remitos = remitoIngresoRepository.findByRangoFechasAndEmpresaId(fechaInicio, fechaFin, empresaId);
             for (RemitoIngreso remito : remitos) {
-                List<DetalleRemitoIngreso> detalles = detalleRemitoIngresoRepository.findByRemitoIngresoIdOrderByFechaCreacionAsc(remito.getId());
-                for (DetalleRemitoIngreso detalle : detalles) {
+                // Detalles y productos de todos los remitos se cargan de a lotes (default_batch_fetch_size)
+                for (DetalleRemitoIngreso detalle : remito.getDetalles()) {
                     if (detalle.getEstadoProducto() != null && 
                         (detalle.getEstadoProducto() == DetalleRemitoIngreso.EstadoProducto.ROTO ||
                          detalle.getEstadoProducto() == DetalleRemitoIngreso.EstadoProducto.MAL_ESTADO ||
@@ -4282,8 +3877,7 @@ public class MovimientoDiaService {
             // 2. Obtener productos perdidos de planillas de devolución
             List<PlanillaDevolucion> devoluciones = planillaDevolucionRepository.findByEmpresaIdAndFechaPlanillaBetweenOrderByFechaCreacionDesc(empresaId, fechaInicio, fechaFin);
             for (PlanillaDevolucion devolucion : devoluciones) {
-                List<DetallePlanillaDevolucion> detalles = detallePlanillaDevolucionRepository.findByPlanillaDevolucionIdOrderByFechaCreacionAsc(devolucion.getId());
-                for (DetallePlanillaDevolucion detalle : detalles) {
+                for (DetallePlanillaDevolucion detalle : devolucion.getDetalles()) {
                     if (detalle.getEstadoProducto() != null && 
                         (detalle.getEstadoProducto() == DetallePlanillaDevolucion.EstadoProducto.ROTO ||
                          detalle.getEstadoProducto() == DetallePlanillaDevolucion.EstadoProducto.MAL_ESTADO ||
@@ -4385,12 +3979,11 @@ public class MovimientoDiaService {
                 return 0;
             });
             
-            System.out.println("✅ [PRODUCTOS PERDIDOS] Encontrados " + productosPerdidos.size() + " productos perdidos");
+            logger.debug("✅ [PRODUCTOS PERDIDOS] Encontrados {} productos perdidos", productosPerdidos.size());
             return productosPerdidos;
             
         } catch (Exception e) {
-            System.err.println("❌ [PRODUCTOS PERDIDOS] Error al obtener productos perdidos: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [PRODUCTOS PERDIDOS] Error al obtener productos perdidos: {}", e.getMessage(), e);
             throw new RuntimeException("Error al obtener productos perdidos", e);
         }
     }
@@ -4409,32 +4002,31 @@ public class MovimientoDiaService {
 
     private Long obtenerEmpresaId() {
         try {
-            System.out.println("🔍 [EMPRESA ID] Obteniendo empresa ID...");
+            logger.debug("🔍 [EMPRESA ID] Obteniendo empresa ID...");
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            System.out.println("🔍 [EMPRESA ID] Authentication: " + (authentication != null ? "NO NULL" : "NULL"));
+            logger.debug("🔍 [EMPRESA ID] Authentication: {}", (authentication != null ? "NO NULL" : "NULL"));
             
             if (authentication != null) {
-                System.out.println("🔍 [EMPRESA ID] Principal: " + (authentication.getPrincipal() != null ? authentication.getPrincipal().getClass().getSimpleName() : "NULL"));
-                System.out.println("🔍 [EMPRESA ID] Es UsuarioPrincipal: " + (authentication.getPrincipal() instanceof UsuarioPrincipal));
+                logger.debug("🔍 [EMPRESA ID] Principal: {}", (authentication.getPrincipal() != null ? authentication.getPrincipal().getClass().getSimpleName() : "NULL"));
+                logger.debug("🔍 [EMPRESA ID] Es UsuarioPrincipal: {}", (authentication.getPrincipal() instanceof UsuarioPrincipal));
                 
                 if (authentication.getPrincipal() instanceof UsuarioPrincipal) {
                     UsuarioPrincipal usuarioPrincipal = (UsuarioPrincipal) authentication.getPrincipal();
                     Long empresaId = usuarioPrincipal.getEmpresaId();
-                    System.out.println("✅ [EMPRESA ID] Empresa ID obtenido: " + empresaId);
+                    logger.debug("✅ [EMPRESA ID] Empresa ID obtenido: {}", empresaId);
                     return empresaId;
                 } else {
-                    System.err.println("❌ [EMPRESA ID] Principal no es UsuarioPrincipal: " + authentication.getPrincipal().getClass().getName());
+                    logger.error("❌ [EMPRESA ID] Principal no es UsuarioPrincipal: {}", authentication.getPrincipal().getClass().getName());
                 }
             } else {
-                System.err.println("❌ [EMPRESA ID] Authentication es NULL");
+                logger.error("❌ [EMPRESA ID] Authentication es NULL");
             }
             
-            System.err.println("❌ [EMPRESA ID] No se pudo obtener empresa ID - Authentication o Principal inválido");
+            logger.error("❌ [EMPRESA ID] No se pudo obtener empresa ID - Authentication o Principal inválido");
             throw new RuntimeException("No se pudo obtener el ID de la empresa - Usuario no autenticado correctamente");
             
         } catch (Exception e) {
-            System.err.println("❌ [EMPRESA ID] Error al obtener empresa ID: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("❌ [EMPRESA ID] Error al obtener empresa ID: {}", e.getMessage(), e);
             throw new RuntimeException("Error al obtener el ID de la empresa: " + e.getMessage(), e);
         }
     }
@@ -4464,9 +4056,9 @@ public class MovimientoDiaService {
             System.setProperty("java.awt.fonts", "");
             System.setProperty("sun.java2d.fontpath", "");
             
-            System.out.println("✅ [SERVICE] Sistema configurado para modo headless");
+            logger.debug("✅ [SERVICE] Sistema configurado para modo headless");
         } catch (Exception e) {
-            System.err.println("⚠️ [SERVICE] Error configurando modo headless: " + e.getMessage());
+            logger.warn("⚠️ [SERVICE] Error configurando modo headless: {}", e.getMessage());
         }
     }
     
@@ -4480,7 +4072,7 @@ public class MovimientoDiaService {
                 sheet.setColumnWidth(i, anchos[i] * 256); // POI usa unidades de 1/256 de carácter
             }
         } catch (Exception e) {
-            System.err.println("⚠️ [SERVICE] Error estableciendo anchos de columna: " + e.getMessage());
+            logger.warn("⚠️ [SERVICE] Error estableciendo anchos de columna: {}", e.getMessage());
         }
     }
 }
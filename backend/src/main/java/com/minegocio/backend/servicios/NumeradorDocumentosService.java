@@ -0,0 +1,176 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.SecuenciaDocumento.TipoDocumento;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numeración de documentos por empresa y tipo (hi/lo):
+ * - Cada réplica reserva en secuencias_documentos un bloque de números con un UPDATE atómico,
+ *   en su propia transacción, y lo reparte en memoria sin bloqueos
+ * - La reserva usa una conexión dedicada (pool propio de 1 conexión) y nunca la del pool
+ *   principal: quien pide el número suele estar dentro de la transacción del checkout y una
+ *   segunda conexión del pool principal (3 en Railway) lo agotaría con pocas ventas simultáneas
+ * - Dos réplicas nunca reciben el mismo bloque, así los números son únicos sin reintentos
+ *   contra las tablas de documentos
+ * - Los números de un bloque no usado (reinicio, rollback del documento) se pierden: puede
+ *   haber huecos y el orden entre réplicas no es estrictamente cronológico
+ * - El número lleva el id de empresa porque las columnas de número son únicas en toda la base
+ */
+@Service
+public class NumeradorDocumentosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumeradorDocumentosService.class);
+
+    @Value("${minegocio.numeracion.tamano-bloque:20}")
+    private int tamanoBloque;
+
+    @Value("${minegocio.numeracion.conexion-dedicada:true}")
+    private boolean conexionDedicada;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ContadoresSql contadoresSql;
+
+    private HikariDataSource poolDedicado;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transaccion;
+
+    private final ConcurrentHashMap<String, Bloque> bloques = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object> reservas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void iniciar() {
+        DataSource origen = dataSource;
+        if (conexionDedicada && dataSource instanceof HikariDataSource) {
+            // Misma URL, credenciales y propiedades SSL que el pool principal
+            HikariConfig config = new HikariConfig();
+            ((HikariDataSource) dataSource).copyStateTo(config);
+            config.setPoolName("numeracion-documentos");
+            config.setMaximumPoolSize(1);
+            config.setMinimumIdle(0);
+            poolDedicado = new HikariDataSource(config);
+            origen = poolDedicado;
+        } else {
+            logger.info("Numeración de documentos sin conexión dedicada (pool principal)");
+        }
+        jdbc = new JdbcTemplate(origen);
+        transaccion = new TransactionTemplate(new DataSourceTransactionManager(origen));
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (poolDedicado != null) {
+            poolDedicado.close();
+        }
+    }
+
+    public String siguienteNumeroPlanillaPedido(Long empresaId) {
+        return String.format("PP-%d-%06d", empresaId, siguienteValor(empresaId, TipoDocumento.PLANILLA_PEDIDO));
+    }
+
+    public String siguienteNumeroPlanillaDevolucion(Long empresaId) {
+        return String.format("DEV-%d-%06d", empresaId, siguienteValor(empresaId, TipoDocumento.PLANILLA_DEVOLUCION));
+    }
+
+    public String siguienteNumeroPedido(Long empresaId) {
+        return String.format("PED-%d-%06d", empresaId, siguienteValor(empresaId, TipoDocumento.PEDIDO));
+    }
+
+    public String siguienteNumeroVentaRapida(Long empresaId) {
+        return String.format("VR-%d-%06d", empresaId, siguienteValor(empresaId, TipoDocumento.VENTA_RAPIDA));
+    }
+
+    public String siguienteCodigoBarras(Long empresaId) {
+        return String.format("EMP-%d-%08d", empresaId, siguienteValor(empresaId, TipoDocumento.CODIGO_BARRAS));
+    }
+
+    /**
+     * Próximo valor de la secuencia. Solo consulta la base cuando se agota el bloque en memoria.
+     */
+    public long siguienteValor(Long empresaId, TipoDocumento tipo) {
+        String clave = empresaId + ":" + tipo;
+        while (true) {
+            Bloque bloque = bloques.get(clave);
+            if (bloque != null) {
+                long valor = bloque.siguiente.getAndIncrement();
+                if (valor < bloque.limite) {
+                    return valor;
+                }
+            }
+            // Bloque agotado: un solo hilo por secuencia reserva el próximo, el resto espera y reintenta
+            synchronized (reservas.computeIfAbsent(clave, c -> new Object())) {
+                if (bloques.get(clave) == bloque) {
+                    long inicio = reservarBloque(empresaId, tipo);
+                    bloques.put(clave, new Bloque(inicio, inicio + tamanoBloque));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserva [inicio, inicio + tamanoBloque) en una transacción propia sobre la conexión
+     * dedicada (fuera de la transacción de quien pide el número) y devuelve el inicio
+     */
+    private long reservarBloque(Long empresaId, TipoDocumento tipo) {
+        return transaccion.execute(estado -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            if (avanzar(empresaId, tipo, ahora) == 0) {
+                // Primera reserva de la secuencia; si otra réplica la crea a la vez, ambas avanzan después
+                if (contadoresSql.insertarSiFalta(jdbc, "secuencias_documentos", ContadoresSql.fila(
+                        "empresa_id", empresaId,
+                        "tipo", tipo.name(),
+                        "proximo_valor", 1L,
+                        "fecha_actualizacion", ahora),
+                        "empresa_id", "tipo")) {
+                    logger.info("Secuencia de numeración creada: empresa {}, {}", empresaId, tipo);
+                }
+                avanzar(empresaId, tipo, ahora);
+            }
+            Long proximoValor = jdbc.queryForObject(
+                "SELECT proximo_valor FROM secuencias_documentos WHERE empresa_id = ? AND tipo = ?",
+                Long.class, empresaId, tipo.name());
+            return proximoValor - tamanoBloque;
+        });
+    }
+
+    /**
+     * Avanza el contador en un bloque. La fila queda bloqueada hasta el fin de la transacción,
+     * así dos réplicas nunca reservan el mismo bloque.
+     */
+    private int avanzar(Long empresaId, TipoDocumento tipo, LocalDateTime ahora) {
+        return jdbc.update(
+            "UPDATE secuencias_documentos SET proximo_valor = proximo_valor + ?, fecha_actualizacion = ? " +
+            "WHERE empresa_id = ? AND tipo = ?",
+            tamanoBloque, ahora, empresaId, tipo.name());
+    }
+
+    private static class Bloque {
+        final AtomicLong siguiente;
+        final long limite;
+
+        Bloque(long inicio, long limite) {
+            this.siguiente = new AtomicLong(inicio);
+            this.limite = limite;
+        }
+    }
+}
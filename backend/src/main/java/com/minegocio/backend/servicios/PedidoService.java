@@ -9,17 +9,19 @@ import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Pedido;
 import com.minegocio.backend.entidades.DetallePedido;
 import com.minegocio.backend.entidades.Producto;
-import com.minegocio.backend.entidades.VentaRapida;
-import com.minegocio.backend.entidades.DetalleVentaRapida;
+import com.minegocio.backend.entidades.VentaProductoAcumulada;
 import com.minegocio.backend.repositorios.ClienteRepository;
 import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.PedidoRepository;
 import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.VentaRapidaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +32,9 @@ import java.util.stream.Collectors;
 
 @Service
 public class PedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PedidoService.class);
+
     @Autowired
     private PedidoRepository pedidoRepository;
     @Autowired
@@ -50,27 +55,43 @@ public class PedidoService {
     
     @Autowired
     private EmailService emailService;
+    
+    @Autowired
+    private RankingVentasService rankingVentasService;
+
+    @Autowired
+    private ResumenVentasDiarioService resumenVentasDiarioService;
+
+    @Autowired
+    private DescuentoStockService descuentoStockService;
+
+    @Autowired
+    private NumeradorDocumentosService numeradorDocumentosService;
+
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
 
     @Transactional
     public PedidoDTO crearPedido(Long empresaId, PedidoDTO pedidoDTO, Long usuarioId) {
-        System.out.println("=== DEBUG CREAR PEDIDO ===");
-        System.out.println("EmpresaId: " + empresaId);
-        System.out.println("ClienteId: " + pedidoDTO.getClienteId());
-        System.out.println("Total: " + pedidoDTO.getTotal());
+        return metricasOperacionesService.medir("pedido.crear", empresaId, () -> registrarPedido(empresaId, pedidoDTO, usuarioId));
+    }
+
+    private PedidoDTO registrarPedido(Long empresaId, PedidoDTO pedidoDTO, Long usuarioId) {
+        logger.debug("Crear pedido - empresa {}, cliente {}, total {}", empresaId, pedidoDTO.getClienteId(), pedidoDTO.getTotal());
         
         // Buscar empresa
         Empresa empresa = empresaRepository.findById(empresaId)
                 .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
-        System.out.println("Empresa encontrada: " + empresa.getNombre());
+        logger.debug("Empresa encontrada: {}", empresa.getNombre());
         
         // Buscar cliente (puede ser null para pedidos públicos)
         Cliente cliente = null;
         if (pedidoDTO.getClienteId() != null) {
             cliente = clienteRepository.findById(pedidoDTO.getClienteId())
                     .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
-            System.out.println("Cliente encontrado: " + cliente.getNombre() + " " + cliente.getApellidos());
+            logger.debug("Cliente encontrado: {} {}", cliente.getNombre(), cliente.getApellidos());
         } else {
-            System.out.println("Pedido público - sin cliente registrado");
+            logger.debug("Pedido público - sin cliente registrado");
         }
         
         // Crear entidad Pedido
@@ -89,17 +110,24 @@ public class PedidoService {
         }
         
         pedido.setObservaciones(pedidoDTO.getNotas());
-        pedido.setNumeroPedido(pedido.generarNumeroPedido());
+        pedido.setNumeroPedido(numeradorDocumentosService.siguienteNumeroPedido(empresaId));
         
-        System.out.println("Pedido creado con número: " + pedido.getNumeroPedido());
-        System.out.println("🔍 Fecha actual antes de guardar: " + LocalDateTime.now());
+        logger.debug("Pedido creado con número: {}", pedido.getNumeroPedido());
         
+        // Descontar stock de todas las líneas de una vez (UPDATE condicional por producto)
+        Map<Long, Integer> cantidadesPorProducto = new HashMap<>();
+        for (DetallePedidoDTO detalleDTO : pedidoDTO.getDetalles()) {
+            cantidadesPorProducto.merge(detalleDTO.getProductoId(), detalleDTO.getCantidad(), Integer::sum);
+        }
+        descuentoStockService.descontar(empresaId, cantidadesPorProducto);
+        logger.debug("Stock descontado para {} productos del pedido {}", cantidadesPorProducto.size(), pedido.getNumeroPedido());
+
         // Detalles
         List<DetallePedido> detalles = pedidoDTO.getDetalles().stream().map(detalleDTO -> {
             Producto producto = productoRepository.findById(detalleDTO.getProductoId())
                     .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + detalleDTO.getProductoId()));
-            System.out.println("DEBUG Pedido: productoId=" + producto.getId() + ", nombre=" + producto.getNombre() + ", precio=" + producto.getPrecio());
-            System.out.println("DEBUG DetalleDTO: productoId=" + detalleDTO.getProductoId() + ", cantidad=" + detalleDTO.getCantidad() + ", precioUnitario=" + detalleDTO.getPrecioUnitario());
+            logger.debug("DEBUG Pedido: productoId={}, nombre={}, precio={}", producto.getId(), producto.getNombre(), producto.getPrecio());
+            logger.debug("DEBUG DetalleDTO: productoId={}, cantidad={}, precioUnitario={}", detalleDTO.getProductoId(), detalleDTO.getCantidad(), detalleDTO.getPrecioUnitario());
 
             // Validar precio
             BigDecimal precioFinal = producto.getPrecio();
@@ -107,32 +135,14 @@ public class PedidoService {
                 // Si el precio en la base es null o <= 0, usa el del DTO (frontend)
                 if (detalleDTO.getPrecioUnitario() != null && detalleDTO.getPrecioUnitario().compareTo(BigDecimal.ZERO) > 0) {
                     precioFinal = detalleDTO.getPrecioUnitario();
-                    System.out.println("ATENCIÓN: Usando precio del DTO porque el producto en la base no tiene precio válido.");
+                    logger.debug("ATENCIÓN: Usando precio del DTO porque el producto en la base no tiene precio válido.");
                 } else {
                     // Permitir productos sin precio (para gestión de inventario)
                     precioFinal = BigDecimal.ZERO;
-                    System.out.println("INFO: Producto '" + producto.getNombre() + "' sin precio - permitido para gestión de inventario.");
+                    logger.debug("INFO: Producto '{}' sin precio - permitido para gestión de inventario.", producto.getNombre());
                 }
             }
 
-            // Descontar stock
-            System.out.println("=== DEBUG STOCK PEDIDO ===");
-            System.out.println("Producto: " + producto.getNombre() + " (ID: " + producto.getId() + ")");
-            System.out.println("Stock antes del descuento: " + producto.getStock());
-            System.out.println("Cantidad a descontar: " + detalleDTO.getCantidad());
-            
-            if (producto.getStock() < detalleDTO.getCantidad()) {
-                throw new RuntimeException("Stock insuficiente para el producto: " + producto.getNombre());
-            }
-            
-            Integer stockAnterior = producto.getStock();
-            producto.setStock(producto.getStock() - detalleDTO.getCantidad());
-            productoRepository.save(producto);
-            
-            System.out.println("Stock después del descuento: " + producto.getStock());
-            System.out.println("Verificación: " + stockAnterior + " - " + detalleDTO.getCantidad() + " = " + producto.getStock());
-            System.out.println("=== FIN DEBUG STOCK PEDIDO ===");
-
             DetallePedido detalle = new DetallePedido();
             detalle.setPedido(pedido);
             detalle.setProducto(producto);
@@ -147,35 +157,30 @@ public class PedidoService {
         pedido.setDetalles(detalles);
         pedido.calcularTotal();
         
-        System.out.println("Pedido calculado - Total: " + pedido.getTotal() + ", Detalles: " + pedido.getDetalles().size());
+        logger.debug("Pedido calculado - Total: {}, Detalles: {}", pedido.getTotal(), pedido.getDetalles().size());
         
         // Guardar pedido y detalles
         Pedido guardado = pedidoRepository.save(pedido);
-        System.out.println("Pedido guardado con ID: " + guardado.getId());
-        System.out.println("🔍 Fecha de creación guardada: " + guardado.getFechaCreacion());
-        System.out.println("🔍 Fecha actual después de guardar: " + LocalDateTime.now());
-        System.out.println("Pedido guardado - Cliente ID: " + (guardado.getCliente() != null ? guardado.getCliente().getId() : "null"));
-        System.out.println("Pedido guardado - Cliente Email: " + guardado.getClienteEmail());
-        System.out.println("Pedido guardado - Empresa ID: " + guardado.getEmpresa().getId());
-        
-        // Verificar que se guardó correctamente
-        if (cliente != null) {
-            List<Pedido> pedidosVerificacion = pedidoRepository.findByClienteAndEmpresa(cliente, empresa);
-            System.out.println("Pedidos del cliente después de guardar: " + pedidosVerificacion.size());
-            for (Pedido p : pedidosVerificacion) {
-                System.out.println("  - Pedido verificación ID: " + p.getId() + ", Cliente ID: " + p.getCliente().getId());
+        logger.debug("Pedido guardado con ID: {}", guardado.getId());
+        
+        // Actualizar contadores del ranking de ventas
+        rankingVentasService.registrarPedido(guardado);
+        resumenVentasDiarioService.registrarPedido(guardado);
+        logger.debug("🔍 Fecha de creación guardada: {}", guardado.getFechaCreacion());
+        logger.debug("Pedido guardado - Cliente ID: {}", (guardado.getCliente() != null ? guardado.getCliente().getId() : "null"));
+        logger.debug("Pedido guardado - Cliente Email: {}", guardado.getClienteEmail());
+        logger.debug("Pedido guardado - Empresa ID: {}", guardado.getEmpresa().getId());
+        
+        // Verificar que se guardó correctamente (consultas extra: solo con DEBUG habilitado)
+        if (logger.isDebugEnabled()) {
+            if (cliente != null) {
+                List<Pedido> pedidosVerificacion = pedidoRepository.findByClienteAndEmpresa(cliente, empresa);
+                logger.debug("Pedidos del cliente después de guardar: {}", pedidosVerificacion.size());
+            } else {
+                logger.debug("Pedido público guardado - sin cliente asociado");
             }
-        } else {
-            System.out.println("Pedido público guardado - sin cliente asociado");
-        }
-        
-        // Verificación adicional usando el método que se usa para buscar
-        List<Pedido> pedidosPorClienteOEmail = pedidoRepository.findPedidosPorClienteOEmail(cliente, pedidoDTO.getClienteEmail(), empresa);
-        System.out.println("Pedidos encontrados por cliente o email después de guardar: " + pedidosPorClienteOEmail.size());
-        for (Pedido p : pedidosPorClienteOEmail) {
-            System.out.println("  - Pedido por cliente/email ID: " + p.getId() + 
-                             ", Cliente ID: " + (p.getCliente() != null ? p.getCliente().getId() : "null") +
-                             ", Email: " + p.getClienteEmail());
+            List<Pedido> pedidosPorClienteOEmail = pedidoRepository.findPedidosPorClienteOEmail(cliente, pedidoDTO.getClienteEmail(), empresa);
+            logger.debug("Pedidos encontrados por cliente o email después de guardar: {}", pedidosPorClienteOEmail.size());
         }
         
         // Crear notificación de nuevo pedido
@@ -200,13 +205,13 @@ public class PedidoService {
                 historialInventarioService.registrarOperacionInventario(request, userId, empresaId, false);
             } catch (Exception e) {
                 // Log del error pero no fallar la operación principal
-                System.err.println("Error al registrar historial de inventario en pedido: " + e.getMessage());
+                logger.warn("Error al registrar historial de inventario en pedido: {}", e.getMessage());
             }
         }
         
         // Devolver DTO
         PedidoDTO resultado = convertirADTO(guardado);
-        System.out.println("=== FIN DEBUG CREAR PEDIDO ===");
+        logger.info("Pedido {} creado - empresa {}, total {}", guardado.getNumeroPedido(), empresaId, guardado.getTotal());
         return resultado;
     }
     
@@ -239,35 +244,28 @@ public class PedidoService {
      */
     @Transactional
     public List<PedidoDTO> obtenerPedidosPorClienteYEmpresa(Long clienteId, Long empresaId) {
-        System.out.println("=== DEBUG PEDIDO SERVICE - obtenerPedidosPorClienteYEmpresa ===");
-        System.out.println("ClienteId: " + clienteId);
-        System.out.println("EmpresaId: " + empresaId);
+        logger.debug("Pedidos del cliente {} en empresa {}", clienteId, empresaId);
         
         Cliente cliente = clienteRepository.findById(clienteId)
                 .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
-        System.out.println("Cliente encontrado: " + cliente.getNombre() + " " + cliente.getApellidos());
-        System.out.println("Email del cliente: " + cliente.getEmail());
+        logger.debug("Cliente encontrado: {} {}", cliente.getNombre(), cliente.getApellidos());
+        logger.debug("Email del cliente: {}", cliente.getEmail());
         
         Empresa empresa = empresaRepository.findById(empresaId)
                 .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
-        System.out.println("Empresa encontrada: " + empresa.getNombre());
+        logger.debug("Empresa encontrada: {}", empresa.getNombre());
         
         // Buscar pedidos tanto por cliente como por email del cliente
         List<Pedido> pedidos = pedidoRepository.findPedidosPorClienteOEmail(cliente, cliente.getEmail(), empresa);
-        System.out.println("Pedidos encontrados en BD: " + pedidos.size());
+        logger.debug("Pedidos encontrados en BD: {}", pedidos.size());
         
         // Debug adicional: mostrar detalles de cada pedido encontrado
         for (Pedido pedido : pedidos) {
-            System.out.println("  - Pedido ID: " + pedido.getId() + 
-                             ", Cliente ID: " + (pedido.getCliente() != null ? pedido.getCliente().getId() : "null") +
-                             ", Cliente Email: " + pedido.getClienteEmail() +
-                             ", Estado: " + pedido.getEstado() +
-                             ", Total: " + pedido.getTotal());
+            logger.debug("  - Pedido ID: {}, Cliente ID: {}, Cliente Email: {}, Estado: {}, Total: {}", pedido.getId(), (pedido.getCliente() != null ? pedido.getCliente().getId() : "null"), pedido.getClienteEmail(), pedido.getEstado(), pedido.getTotal());
         }
         
         List<PedidoDTO> pedidosDTO = pedidos.stream().map(this::convertirADTO).collect(Collectors.toList());
-        System.out.println("Pedidos convertidos a DTO: " + pedidosDTO.size());
-        System.out.println("=== FIN DEBUG PEDIDO SERVICE ===");
+        logger.debug("Pedidos convertidos a DTO: {}", pedidosDTO.size());
         
         return pedidosDTO;
     }
@@ -277,10 +275,7 @@ public class PedidoService {
      */
     @Transactional
     public PedidoDTO actualizarEstadoPedido(Long empresaId, Long pedidoId, String nuevoEstado) {
-        System.out.println("=== DEBUG ACTUALIZAR ESTADO PEDIDO ===");
-        System.out.println("EmpresaId: " + empresaId);
-        System.out.println("PedidoId: " + pedidoId);
-        System.out.println("Nuevo estado: " + nuevoEstado);
+        logger.debug("Actualizar estado pedido {} de empresa {} a {}", pedidoId, empresaId, nuevoEstado);
         
         // Buscar empresa
         Empresa empresa = empresaRepository.findById(empresaId)
@@ -290,7 +285,7 @@ public class PedidoService {
         Pedido pedido = pedidoRepository.findByIdAndEmpresa(pedidoId, empresa)
                 .orElseThrow(() -> new RuntimeException("Pedido no encontrado"));
         
-        System.out.println("Pedido encontrado: " + pedido.getNumeroPedido() + " - Estado actual: " + pedido.getEstado());
+        logger.debug("Pedido encontrado: {} - Estado actual: {}", pedido.getNumeroPedido(), pedido.getEstado());
         
         // Validar y convertir el nuevo estado
         Pedido.EstadoPedido estado;
@@ -306,7 +301,9 @@ public class PedidoService {
         }
         
         // Actualizar estado
+        Pedido.EstadoPedido estadoAnterior = pedido.getEstado();
         pedido.setEstado(estado);
+        resumenVentasDiarioService.cambiarEstadoPedido(pedido, estadoAnterior);
         
         // Si se marca como entregado, establecer fecha de entrega real
         if (estado == Pedido.EstadoPedido.ENTREGADO) {
@@ -315,19 +312,21 @@ public class PedidoService {
         
         // Si se cancela el pedido, restaurar el stock de los productos
         if (estado == Pedido.EstadoPedido.CANCELADO) {
-            System.out.println("Restaurando stock de productos por cancelación del pedido");
+            logger.debug("Restaurando stock de productos por cancelación del pedido");
+            Map<Long, Integer> cantidadesRestauradas = new HashMap<>();
             for (DetallePedido detalle : pedido.getDetalles()) {
-                Producto producto = detalle.getProducto();
-                int cantidadRestaurada = detalle.getCantidad();
-                producto.setStock(producto.getStock() + cantidadRestaurada);
-                productoRepository.save(producto);
-                System.out.println("Stock restaurado para producto " + producto.getNombre() + ": +" + cantidadRestaurada);
+                cantidadesRestauradas.merge(detalle.getProducto().getId(), detalle.getCantidad(), Integer::sum);
+                logger.debug("Stock restaurado para producto {}: +{}", detalle.getProducto().getNombre(), detalle.getCantidad());
             }
+            descuentoStockService.incrementar(pedido.getEmpresa().getId(), cantidadesRestauradas);
+            
+            // Descontar el pedido de los contadores del ranking de ventas
+            rankingVentasService.revertirPedido(pedido);
         }
         
         // Guardar cambios
         Pedido pedidoActualizado = pedidoRepository.save(pedido);
-        System.out.println("Estado actualizado exitosamente a: " + pedidoActualizado.getEstado());
+        logger.info("Pedido {} pasó de {} a {}", pedidoActualizado.getNumeroPedido(), estadoAnterior, pedidoActualizado.getEstado());
         
         // Crear notificaciones según el estado
         String nombreCliente = pedido.getCliente() != null ? 
@@ -349,10 +348,10 @@ public class PedidoService {
                         pedido.getTotal(),
                         "Pedido cancelado por el administrador"
                     );
-                    System.out.println("✅ Email de cancelación enviado al cliente: " + emailCliente);
+                    logger.debug("✅ Email de cancelación enviado al cliente: {}", emailCliente);
                 }
             } catch (Exception e) {
-                System.err.println("❌ Error enviando email de cancelación al cliente: " + e.getMessage());
+                logger.error("❌ Error enviando email de cancelación al cliente: {}", e.getMessage());
                 // No lanzar excepción para no fallar la cancelación del pedido
             }
         } else if (estado == Pedido.EstadoPedido.ENVIADO) {
@@ -368,18 +367,16 @@ public class PedidoService {
                         pedido.getTotal(),
                         pedido.getDireccionEntrega()
                     );
-                    System.out.println("✅ Email de pedido enviado al cliente: " + emailCliente);
+                    logger.debug("✅ Email de pedido enviado al cliente: {}", emailCliente);
                 }
             } catch (Exception e) {
-                System.err.println("❌ Error enviando email de pedido enviado al cliente: " + e.getMessage());
+                logger.error("❌ Error enviando email de pedido enviado al cliente: {}", e.getMessage());
                 // No lanzar excepción para no fallar la actualización del estado
             }
         } else if (estado == Pedido.EstadoPedido.ENTREGADO) {
             notificacionService.crearNotificacionPedidoCompletado(empresaId, nombreCliente, pedido.getNumeroPedido());
         }
         
-        System.out.println("=== FIN DEBUG ACTUALIZAR ESTADO PEDIDO ===");
-        
         return convertirADTO(pedidoActualizado);
     }
 
@@ -435,7 +432,7 @@ public class PedidoService {
             dto.setCliente(clienteDTO);
         }
         
-        System.out.println("🔍 convertirADTO - Fecha de creación del pedido: " + pedido.getFechaCreacion());
+        logger.debug("🔍 convertirADTO - Fecha de creación del pedido: {}", pedido.getFechaCreacion());
         dto.setFechaCreacion(pedido.getFechaCreacion());
         dto.setEstado(pedido.getEstado());
         dto.setTotal(pedido.getTotal());
@@ -511,82 +508,49 @@ public class PedidoService {
     /**
      * Obtiene estadísticas generales de pedidos por empresa
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public PedidoEstadisticas obtenerEstadisticasPedidos(Long empresaId) {
-        System.out.println("=== DEBUG ESTADISTICAS PEDIDOS ===");
-        System.out.println("EmpresaId: " + empresaId);
-        
         Empresa empresa = empresaRepository.findById(empresaId)
                 .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
         
-        System.out.println("Empresa encontrada: " + empresa.getNombre());
-        
-        List<Pedido> pedidos = pedidoRepository.findByEmpresaWithDetallesOrderByFechaCreacionDesc(empresa);
-        System.out.println("Total de pedidos encontrados: " + pedidos.size());
-        
-        // Contar pedidos por estado
-        long pedidosPendientes = pedidos.stream().filter(p -> p.getEstado() == Pedido.EstadoPedido.PENDIENTE).count();
-        long pedidosConfirmados = pedidos.stream().filter(p -> p.getEstado() == Pedido.EstadoPedido.CONFIRMADO).count();
-        long pedidosEntregados = pedidos.stream().filter(p -> p.getEstado() == Pedido.EstadoPedido.ENTREGADO).count();
-        long pedidosCancelados = pedidos.stream().filter(p -> p.getEstado() == Pedido.EstadoPedido.CANCELADO).count();
-        
-        System.out.println("Pedidos por estado:");
-        System.out.println("  - PENDIENTE: " + pedidosPendientes);
-        System.out.println("  - CONFIRMADO: " + pedidosConfirmados);
-        System.out.println("  - ENTREGADO: " + pedidosEntregados);
-        System.out.println("  - CANCELADO: " + pedidosCancelados);
-        
-        BigDecimal totalPedidos = pedidos.stream()
-                .filter(pedido -> pedido.getEstado() != Pedido.EstadoPedido.CANCELADO)
-                .map(Pedido::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        int totalTransacciones = (int) pedidos.stream()
-                .filter(pedido -> pedido.getEstado() != Pedido.EstadoPedido.CANCELADO)
-                .count();
-        
-        int totalProductos = pedidos.stream()
-                .filter(pedido -> pedido.getEstado() != Pedido.EstadoPedido.CANCELADO)
-                .flatMapToInt(pedido -> (pedido.getDetalles() != null ? pedido.getDetalles().stream().mapToInt(DetallePedido::getCantidad) : java.util.stream.IntStream.empty()))
-                .sum();
-        
-        int cantidadPedidos = pedidos.size();
-        
-        System.out.println("Estadísticas calculadas:");
-        System.out.println("  - Total pedidos (monetario): " + totalPedidos);
-        System.out.println("  - Total transacciones: " + totalTransacciones);
-        System.out.println("  - Total productos: " + totalProductos);
-        System.out.println("  - Cantidad pedidos: " + cantidadPedidos);
-        System.out.println("=== FIN DEBUG ESTADISTICAS PEDIDOS ===");
-        
-        return new PedidoEstadisticas(totalPedidos, totalTransacciones, totalProductos, cantidadPedidos);
+        // Suma del resumen diario por estado, sin cargar pedidos ni detalles
+        return calcularEstadisticas(
+                resumenVentasDiarioService.resumirPedidos(empresa, null, null),
+                estado -> estado != Pedido.EstadoPedido.CANCELADO);
     }
 
     /**
      * Obtiene estadísticas de pedidos por rango de fechas
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public PedidoEstadisticas obtenerEstadisticasPedidosPorFecha(Long empresaId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
         Empresa empresa = empresaRepository.findById(empresaId)
                 .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
         
-        List<Pedido> pedidos = pedidoRepository.findByEmpresaAndFechaCreacionBetweenWithDetalles(empresa, fechaInicio, fechaFin);
-        
-        BigDecimal totalPedidos = pedidos.stream()
-                .filter(pedido -> pedido.getEstado() == Pedido.EstadoPedido.ENTREGADO)
-                .map(Pedido::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        int totalTransacciones = (int) pedidos.stream()
-                .filter(pedido -> pedido.getEstado() == Pedido.EstadoPedido.ENTREGADO)
-                .count();
-        
-        int totalProductos = pedidos.stream()
-                .filter(pedido -> pedido.getEstado() == Pedido.EstadoPedido.ENTREGADO)
-                .flatMapToInt(pedido -> (pedido.getDetalles() != null ? pedido.getDetalles().stream().mapToInt(DetallePedido::getCantidad) : java.util.stream.IntStream.empty()))
-                .sum();
-        
-        int cantidadPedidos = pedidos.size();
+        return calcularEstadisticas(
+                resumenVentasDiarioService.resumirPedidos(empresa, fechaInicio, fechaFin),
+                estado -> estado == Pedido.EstadoPedido.ENTREGADO);
+    }
+
+    /**
+     * Arma las estadísticas a partir de los agregados por estado: el total, las transacciones
+     * y los productos cuentan solo los estados aceptados; cantidadPedidos cuenta todos
+     */
+    private PedidoEstadisticas calcularEstadisticas(Map<String, ResumenVentasDiarioService.Totales> resumenPorEstado,
+                                                    java.util.function.Predicate<Pedido.EstadoPedido> cuenta) {
+        BigDecimal totalPedidos = BigDecimal.ZERO;
+        int totalTransacciones = 0;
+        int totalProductos = 0;
+        int cantidadPedidos = 0;
+        for (Map.Entry<String, ResumenVentasDiarioService.Totales> entrada : resumenPorEstado.entrySet()) {
+            ResumenVentasDiarioService.Totales totales = entrada.getValue();
+            cantidadPedidos += (int) totales.getCantidad();
+            if (cuenta.test(Pedido.EstadoPedido.valueOf(entrada.getKey()))) {
+                totalTransacciones += (int) totales.getCantidad();
+                totalPedidos = totalPedidos.add(totales.getTotal());
+                totalProductos += (int) totales.getUnidades();
+            }
+        }
         
         return new PedidoEstadisticas(totalPedidos, totalTransacciones, totalProductos, cantidadPedidos);
     }
@@ -624,141 +588,34 @@ public class PedidoService {
     /**
      * Obtiene los productos más vendidos de una empresa
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> obtenerTopProductosMasVendidos(Long empresaId, int limite) {
-        System.out.println("=== DEBUG TOP PRODUCTOS MÁS VENDIDOS ===");
-        System.out.println("EmpresaId: " + empresaId + ", Límite: " + limite);
-        
-        Empresa empresa = empresaRepository.findById(empresaId)
-                .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
-        
-        // Obtener todos los productos de la empresa
-        List<Producto> productos = productoRepository.findByEmpresaId(empresaId);
-        System.out.println("Total productos encontrados: " + productos.size());
-        
-        // Calcular ventas por producto (pedidos + ventas rápidas)
-        List<Map<String, Object>> productosConVentas = productos.stream()
-                .map(producto -> {
-                    // Calcular ventas de pedidos
-                    int ventasPedidos = pedidoRepository.findByEmpresaOrderByFechaCreacionDesc(empresa).stream()
-                            .filter(pedido -> pedido.getEstado() != Pedido.EstadoPedido.CANCELADO)
-                            .flatMapToInt(pedido -> 
-                                pedido.getDetalles() != null ? 
-                                pedido.getDetalles().stream()
-                                    .filter(detalle -> detalle.getProducto().getId().equals(producto.getId()))
-                                    .mapToInt(DetallePedido::getCantidad) : 
-                                java.util.stream.IntStream.empty()
-                            )
-                            .sum();
-                    
-                    // Calcular ventas rápidas para este producto
-                    int ventasRapidas = ventaRapidaRepository.findByEmpresaIdOrderByFechaVentaDesc(empresaId).stream()
-                            .flatMapToInt(venta ->
-                                venta.getDetalles() != null ?
-                                venta.getDetalles().stream()
-                                    .filter(detalle -> detalle.getProducto().getId().equals(producto.getId()))
-                                    .mapToInt(DetalleVentaRapida::getCantidad) :
-                                java.util.stream.IntStream.empty()
-                            )
-                            .sum();
-                    
-                    System.out.println("  Producto " + producto.getNombre() + " - Ventas pedidos: " + ventasPedidos + ", Ventas rápidas: " + ventasRapidas + ", Total: " + (ventasPedidos + ventasRapidas));
-                    
-                    int totalVentas = ventasPedidos + ventasRapidas;
-                    
-                    Map<String, Object> productoData = new HashMap<>();
-                    productoData.put("id", producto.getId());
-                    productoData.put("nombre", producto.getNombre());
-                    productoData.put("precio", producto.getPrecio());
-                    productoData.put("stock", producto.getStock());
-                    productoData.put("imagenUrl", producto.getImagenPrincipal());
-                    productoData.put("ventasPedidos", ventasPedidos);
-                    productoData.put("ventasRapidas", ventasRapidas);
-                    productoData.put("totalVentas", totalVentas);
-                    
-                    return productoData;
-                })
-                .filter(producto -> (Integer) producto.get("totalVentas") > 0) // Solo productos con ventas
-                .sorted((p1, p2) -> Integer.compare((Integer) p2.get("totalVentas"), (Integer) p1.get("totalVentas"))) // Ordenar por ventas descendente
-                .limit(limite)
-                .collect(Collectors.toList());
-        
-        System.out.println("Top " + limite + " productos más vendidos encontrados: " + productosConVentas.size());
-        productosConVentas.forEach(producto -> {
-            System.out.println("  - " + producto.get("nombre") + ": " + producto.get("totalVentas") + " unidades");
-        });
-        System.out.println("=== FIN DEBUG TOP PRODUCTOS MÁS VENDIDOS ===");
-        
-        return productosConVentas;
+        return obtenerTopProductosMasVendidos(empresaId, limite, VentaProductoAcumulada.Periodo.TOTAL, null);
+    }
+
+    /**
+     * Obtiene los productos más vendidos de una empresa en un período (día/mes/año de la fecha dada)
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerTopProductosMasVendidos(Long empresaId, int limite,
+                                                                    VentaProductoAcumulada.Periodo periodo, LocalDate fecha) {
+        return rankingVentasService.obtenerMasVendidos(empresaId, limite, periodo, fecha);
     }
 
     /**
      * Obtiene los productos menos vendidos de una empresa
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> obtenerTopProductosMenosVendidos(Long empresaId, int limite) {
-        System.out.println("=== DEBUG TOP PRODUCTOS MENOS VENDIDOS ===");
-        System.out.println("EmpresaId: " + empresaId + ", Límite: " + limite);
-        
-        Empresa empresa = empresaRepository.findById(empresaId)
-                .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
-        
-        // Obtener todos los productos de la empresa
-        List<Producto> productos = productoRepository.findByEmpresaId(empresaId);
-        System.out.println("Total productos encontrados: " + productos.size());
-        
-        // Calcular ventas por producto
-        List<Map<String, Object>> productosConVentas = productos.stream()
-                .map(producto -> {
-                    // Calcular ventas de pedidos
-                    int ventasPedidos = pedidoRepository.findByEmpresaOrderByFechaCreacionDesc(empresa).stream()
-                            .filter(pedido -> pedido.getEstado() != Pedido.EstadoPedido.CANCELADO)
-                            .flatMapToInt(pedido -> 
-                                pedido.getDetalles() != null ? 
-                                pedido.getDetalles().stream()
-                                    .filter(detalle -> detalle.getProducto().getId().equals(producto.getId()))
-                                    .mapToInt(DetallePedido::getCantidad) : 
-                                java.util.stream.IntStream.empty()
-                            )
-                            .sum();
-                    
-                    // Calcular ventas rápidas para este producto
-                    int ventasRapidas = ventaRapidaRepository.findByEmpresaIdOrderByFechaVentaDesc(empresaId).stream()
-                            .flatMapToInt(venta ->
-                                venta.getDetalles() != null ?
-                                venta.getDetalles().stream()
-                                    .filter(detalle -> detalle.getProducto().getId().equals(producto.getId()))
-                                    .mapToInt(DetalleVentaRapida::getCantidad) :
-                                java.util.stream.IntStream.empty()
-                            )
-                            .sum();
-                    
-                    System.out.println("  Producto " + producto.getNombre() + " - Ventas pedidos: " + ventasPedidos + ", Ventas rápidas: " + ventasRapidas + ", Total: " + (ventasPedidos + ventasRapidas));
-                    
-                    int totalVentas = ventasPedidos + ventasRapidas;
-                    
-                    Map<String, Object> productoData = new HashMap<>();
-                    productoData.put("id", producto.getId());
-                    productoData.put("nombre", producto.getNombre());
-                    productoData.put("precio", producto.getPrecio());
-                    productoData.put("stock", producto.getStock());
-                    productoData.put("imagenUrl", producto.getImagenPrincipal());
-                    productoData.put("ventasPedidos", ventasPedidos);
-                    productoData.put("ventasRapidas", ventasRapidas);
-                    productoData.put("totalVentas", totalVentas);
-                    
-                    return productoData;
-                })
-                .sorted((p1, p2) -> Integer.compare((Integer) p1.get("totalVentas"), (Integer) p2.get("totalVentas"))) // Ordenar por ventas ascendente
-                .limit(limite)
-                .collect(Collectors.toList());
-        
-        System.out.println("Top " + limite + " productos menos vendidos encontrados: " + productosConVentas.size());
-        productosConVentas.forEach(producto -> {
-            System.out.println("  - " + producto.get("nombre") + ": " + producto.get("totalVentas") + " unidades");
-        });
-        System.out.println("=== FIN DEBUG TOP PRODUCTOS MENOS VENDIDOS ===");
-        
-        return productosConVentas;
+        return obtenerTopProductosMenosVendidos(empresaId, limite, VentaProductoAcumulada.Periodo.TOTAL, null);
+    }
+
+    /**
+     * Obtiene los productos menos vendidos de una empresa en un período (día/mes/año de la fecha dada)
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerTopProductosMenosVendidos(Long empresaId, int limite,
+                                                                     VentaProductoAcumulada.Periodo periodo, LocalDate fecha) {
+        return rankingVentasService.obtenerMenosVendidos(empresaId, limite, periodo, fecha);
     }
 }
@@ -3,6 +3,7 @@ package com.minegocio.backend.servicios;
 import com.minegocio.backend.entidades.PermisoUsuario;
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.PermisoUsuarioRepository;
+import com.minegocio.backend.seguridad.CachePrincipalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +22,9 @@ public class PermisoUsuarioService {
     @Autowired
     private PermisoUsuarioRepository permisoUsuarioRepository;
 
+    @Autowired
+    private CachePrincipalService cachePrincipalService;
+
     /**
      * Asigna permisos a un usuario
      */
@@ -92,6 +96,7 @@ public class PermisoUsuarioService {
                 }
             }
             
+            cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
             System.out.println("✅ [PERMISOS] Permisos asignados exitosamente");
             
         } catch (Exception e) {
@@ -19,6 +19,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +57,12 @@ public class PlanillaDevolucionService {
     
     @Autowired
     private NotificacionService notificacionService;
+    
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
+
+    @Autowired
+    private NumeradorDocumentosService numeradorDocumentosService;
 
     /**
      * Crear una nueva planilla de devolución y SUMAR al stock
@@ -88,9 +95,8 @@ public class PlanillaDevolucionService {
         if (dto.getNumeroPlanilla() != null && !dto.getNumeroPlanilla().isEmpty()) {
             planilla.setNumeroPlanilla(dto.getNumeroPlanilla());
         } else {
-            // Temporal: generar un valor por defecto para evitar el error de NOT NULL
-            // Usar la fecha del usuario para generar el número, no la hora del servidor
-            String numeroPlanillaDefault = "DEV" + (fechaPlanilla.getHour() * 100 + fechaPlanilla.getMinute());
+            // Generar número de planilla automático único
+            String numeroPlanillaDefault = numeradorDocumentosService.siguienteNumeroPlanillaDevolucion(empresaId);
             planilla.setNumeroPlanilla(numeroPlanillaDefault);
             System.out.println("🔄 [DEVOLUCION] Usando número de planilla por defecto: " + numeroPlanillaDefault);
         }
@@ -153,6 +159,8 @@ public class PlanillaDevolucionService {
                         System.out.println("   Cantidad: " + detalleDTO.getCantidad());
                         System.out.println("   Estado: " + detalle.getEstadoProducto().name());
                         System.out.println("   Cantidad original guardada: 0 (se sumará en verificación)");
+                        
+                        registrarEnLibro(planilla, detalle, 1);
                     }
                 } else {
                     // No hay producto asociado, no se suma al stock
@@ -172,6 +180,20 @@ public class PlanillaDevolucionService {
         return planilla;
     }
 
+    /**
+     * Registra (signo 1) o revierte (signo -1) en el libro diario de stock un detalle en buen estado
+     */
+    private void registrarEnLibro(PlanillaDevolucion planilla, DetallePlanillaDevolucion detalle, int signo) {
+        if (detalle.getProducto() == null || detalle.getCantidad() == null) {
+            return;
+        }
+        if (detalle.getEstadoProducto() != null && detalle.getEstadoProducto() != DetallePlanillaDevolucion.EstadoProducto.BUEN_ESTADO) {
+            return;
+        }
+        libroStockDiarioService.registrar(planilla.getEmpresa().getId(), detalle.getProducto(), planilla.getFechaPlanilla(),
+                StockDiarioProducto.Concepto.DEVOLUCION, signo * detalle.getCantidad());
+    }
+
     /**
      * SUMAR cantidad al stock de un producto (para devoluciones) directamente
      */
@@ -204,12 +226,9 @@ public class PlanillaDevolucionService {
         
         List<PlanillaDevolucionResponseDTO> result = planillas.stream().map(planilla -> {
             System.out.println("🔍 [DEVOLUCION] Procesando planilla ID: " + planilla.getId());
-            // Cargar los detalles para cada planilla
-            List<DetallePlanillaDevolucion> detalles = detallePlanillaDevolucionRepository.findByPlanillaDevolucionIdOrderByFechaCreacionAsc(planilla.getId());
-            System.out.println("🔍 [DEVOLUCION] Detalles encontrados para planilla " + planilla.getId() + ": " + detalles.size());
-            
-            // Convertir detalles a DTOs
-            List<DetallePlanillaDevolucionResponseDTO> detallesDTO = detalles.stream()
+            // Los detalles de todas las planillas se cargan de a lotes (default_batch_fetch_size)
+            List<DetallePlanillaDevolucionResponseDTO> detallesDTO = planilla.getDetalles().stream()
+                .sorted(Comparator.comparing(DetallePlanillaDevolucion::getFechaCreacion, Comparator.nullsLast(Comparator.naturalOrder())))
                 .map(detalle -> {
                     String estadoProducto = "BUEN_ESTADO"; // Valor por defecto
                     try {
@@ -281,6 +300,7 @@ public class PlanillaDevolucionService {
         List<DetallePlanillaDevolucion> detalles = detallePlanillaDevolucionRepository.findByPlanillaDevolucionIdOrderByFechaCreacionAsc(id);
         
         for (DetallePlanillaDevolucion detalle : detalles) {
+            registrarEnLibro(planilla, detalle, -1);
             if (detalle.getProducto() != null) {
                 // Restar del stock SOLO si estaba en buen estado
                 try {
@@ -686,6 +706,8 @@ public class PlanillaDevolucionService {
         // Eliminar detalles existentes y REVERTIR el stock que se había sumado
         List<DetallePlanillaDevolucion> detallesExistentes = new ArrayList<>(planilla.getDetalles());
         for (DetallePlanillaDevolucion detalle : detallesExistentes) {
+            registrarEnLibro(planilla, detalle, -1);
+            
             // REVERTIR el stock que se había sumado para este detalle
             if (detalle.getProducto() != null && detalle.getCantidadOriginalStock() != null && detalle.getCantidadOriginalStock() > 0) {
                 System.out.println("🔄 [EDICION] Revirtiendo stock de detalle eliminado:");
@@ -771,6 +793,7 @@ public class PlanillaDevolucionService {
 
                 detalle.setPlanillaDevolucion(planilla);
                 planilla.agregarDetalle(detalle);
+                registrarEnLibro(planilla, detalle, 1);
             }
         }
 
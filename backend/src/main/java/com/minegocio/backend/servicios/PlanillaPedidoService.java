@@ -10,20 +10,22 @@ import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.PlanillaPedidoRepository;
 import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.UsuarioRepository;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,6 +35,12 @@ import java.util.stream.Collectors;
 @Transactional
 public class PlanillaPedidoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PlanillaPedidoService.class);
+
+    // Tiempos de las exportaciones Excel (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
+
     @Autowired
     private PlanillaPedidoRepository planillaPedidoRepository;
 
@@ -50,9 +58,18 @@ public class PlanillaPedidoService {
     
     @Autowired
     private StockSincronizacionService stockSincronizacionService;
+
+    @Autowired
+    private DescuentoStockService descuentoStockService;
+
+    @Autowired
+    private NumeradorDocumentosService numeradorDocumentosService;
     
     @Autowired
     private NotificacionService notificacionService;
+    
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
 
     /**
      * Crear una nueva planilla de pedido y descontar del stock
@@ -64,29 +81,29 @@ public class PlanillaPedidoService {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrada"));
 
-        System.out.println("📋 [SERVICE] Fecha recibida en DTO: " + dto.getFechaPlanilla());
-        System.out.println("📋 [SERVICE] Zona horaria del usuario: " + dto.getZonaHoraria());
-        System.out.println("📋 [SERVICE] Fecha actual del servidor: " + java.time.LocalDateTime.now());
-        System.out.println("📋 [SERVICE] Zona horaria del servidor: " + java.time.ZoneId.systemDefault());
+        logger.debug("📋 [SERVICE] Fecha recibida en DTO: {}", dto.getFechaPlanilla());
+        logger.debug("📋 [SERVICE] Zona horaria del usuario: {}", dto.getZonaHoraria());
+        logger.debug("📋 [SERVICE] Fecha actual del servidor: {}", java.time.LocalDateTime.now());
+        logger.debug("📋 [SERVICE] Zona horaria del servidor: {}", java.time.ZoneId.systemDefault());
         
         // Guardar la fecha exacta que envía el usuario (sin convertir a UTC)
         LocalDateTime fechaPlanilla;
         if (dto.getFechaPlanilla() != null) {
             // Parsear la fecha ISO string a LocalDateTime
             String fechaString = dto.getFechaPlanilla();
-            System.out.println("📋 [SERVICE] Fecha string original: " + fechaString);
+            logger.debug("📋 [SERVICE] Fecha string original: {}", fechaString);
             
             if (fechaString.endsWith("Z")) {
                 fechaString = fechaString.substring(0, fechaString.length() - 1);
-                System.out.println("📋 [SERVICE] Fecha string después de remover Z: " + fechaString);
+                logger.debug("📋 [SERVICE] Fecha string después de remover Z: {}", fechaString);
             }
             
             fechaPlanilla = LocalDateTime.parse(fechaString, DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
-            System.out.println("📋 [SERVICE] Fecha parseada como LocalDateTime: " + fechaPlanilla);
-            System.out.println("📋 [SERVICE] Guardando fecha exacta del usuario (sin conversión UTC)");
+            logger.debug("📋 [SERVICE] Fecha parseada como LocalDateTime: {}", fechaPlanilla);
+            logger.debug("📋 [SERVICE] Guardando fecha exacta del usuario (sin conversión UTC)");
         } else {
             fechaPlanilla = LocalDateTime.now();
-            System.out.println("📋 [SERVICE] Fecha nula, usando fecha actual: " + fechaPlanilla);
+            logger.debug("📋 [SERVICE] Fecha nula, usando fecha actual: {}", fechaPlanilla);
         }
         
         PlanillaPedido planilla = new PlanillaPedido(empresa, usuario, fechaPlanilla);
@@ -98,9 +115,9 @@ public class PlanillaPedidoService {
             planilla.setNumeroPlanilla(dto.getNumeroPlanilla());
         } else {
             // Generar número de planilla automático único
-            String numeroPlanillaAuto = generarNumeroPlanillaUnico(empresaId);
+            String numeroPlanillaAuto = numeradorDocumentosService.siguienteNumeroPlanillaPedido(empresaId);
             planilla.setNumeroPlanilla(numeroPlanillaAuto);
-            System.out.println("📋 [PEDIDO] Generando número de planilla automático: " + numeroPlanillaAuto);
+            logger.debug("📋 [PEDIDO] Generando número de planilla automático: {}", numeroPlanillaAuto);
         }
 
         planilla = planillaPedidoRepository.save(planilla);
@@ -115,6 +132,7 @@ public class PlanillaPedidoService {
         planilla.setTotalProductos(totalProductos);
 
         // Agregar detalles si se proporcionan y descontar del stock
+        Map<Long, Integer> cantidadesPorProducto = new HashMap<>();
         if (dto.getDetalles() != null && !dto.getDetalles().isEmpty()) {
             for (DetallePlanillaPedidoDTO detalleDTO : dto.getDetalles()) {
                 DetallePlanillaPedido detalle = new DetallePlanillaPedido(planilla, detalleDTO.getDescripcion(), detalleDTO.getCantidad());
@@ -135,7 +153,9 @@ public class PlanillaPedidoService {
                         }
                         
                         // Descontar del stock del producto
-                        descontarDelStock(producto, detalleDTO.getCantidad());
+                        libroStockDiarioService.registrar(empresaId, producto, fechaPlanilla,
+                                StockDiarioProducto.Concepto.SALIDA, detalleDTO.getCantidad());
+                        cantidadesPorProducto.merge(producto.getId(), detalleDTO.getCantidad(), Integer::sum);
                     }
                 }
 
@@ -143,6 +163,9 @@ public class PlanillaPedidoService {
             }
         }
 
+        // Un solo lote de descuentos para todas las líneas de la planilla
+        descontarDelStock(empresaId, cantidadesPorProducto);
+
         planilla = planillaPedidoRepository.save(planilla);
         
         // Crear notificación de nueva planilla de pedido
@@ -153,47 +176,14 @@ public class PlanillaPedidoService {
                 planilla.getTotalProductos(),
                 planilla.getObservaciones()
             );
-            System.out.println("📋 Notificación de planilla de pedido creada para planilla #" + planilla.getNumeroPlanilla());
+            logger.debug("📋 Notificación de planilla de pedido creada para planilla #{}", planilla.getNumeroPlanilla());
         } catch (Exception e) {
-            System.err.println("Error al crear notificación de planilla de pedido: " + e.getMessage());
+            logger.warn("Error al crear notificación de planilla de pedido: {}", e.getMessage());
         }
         
         return planilla;
     }
 
-    /**
-     * Generar un número de planilla único para una empresa
-     */
-    private String generarNumeroPlanillaUnico(Long empresaId) {
-        int maxIntentos = 20;
-        int intento = 0;
-        
-        while (intento < maxIntentos) {
-            // Generar número basado en timestamp + empresaId + intento
-            long timestamp = System.currentTimeMillis();
-            String numero = String.format("PED%06d%02d", 
-                (timestamp % 1000000), // Últimos 6 dígitos del timestamp
-                (intento % 100)); // 2 dígitos del intento
-            
-            // Verificar si el número ya existe
-            if (!planillaPedidoRepository.existsByNumeroPlanilla(numero)) {
-                return numero;
-            }
-            
-            intento++;
-            // Pequeña pausa para evitar colisiones en sistemas muy rápidos
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-        
-        // Si después de 20 intentos no se encuentra un número único, usar timestamp completo
-        return "PED" + System.currentTimeMillis();
-    }
-
     /**
      * Obtener todas las planillas de una empresa
      */
@@ -201,11 +191,9 @@ public class PlanillaPedidoService {
         List<PlanillaPedido> planillas = planillaPedidoRepository.findByEmpresaIdOrderByFechaPlanillaDesc(empresaId);
         
         return planillas.stream().map(planilla -> {
-            // Cargar los detalles para cada planilla
-            List<DetallePlanillaPedido> detalles = detallePlanillaPedidoRepository.findByPlanillaPedidoIdOrderByFechaCreacionAsc(planilla.getId());
-            
-            // Convertir detalles a DTOs
-            List<DetallePlanillaPedidoResponseDTO> detallesDTO = detalles.stream()
+            // Los detalles de todas las planillas se cargan de a lotes (default_batch_fetch_size)
+            List<DetallePlanillaPedidoResponseDTO> detallesDTO = planilla.getDetalles().stream()
+                .sorted(Comparator.comparing(DetallePlanillaPedido::getFechaCreacion, Comparator.nullsLast(Comparator.naturalOrder())))
                 .map(detalle -> new DetallePlanillaPedidoResponseDTO(
                     detalle.getId(),
                     detalle.getNumeroPersonalizado(),
@@ -270,17 +258,33 @@ public class PlanillaPedidoService {
         }
 
         if (dto.getFechaPlanilla() != null) {
+            LocalDateTime fechaAnterior = planilla.getFechaPlanilla();
             try {
                 LocalDateTime fechaPlanilla = LocalDateTime.parse(dto.getFechaPlanilla(), DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
                 planilla.setFechaPlanilla(fechaPlanilla);
             } catch (Exception e) {
                 throw new RuntimeException("Error al parsear la fecha de la planilla: " + dto.getFechaPlanilla(), e);
             }
+            moverSalidasEnLibro(planilla, fechaAnterior, planilla.getFechaPlanilla());
         }
 
         return planillaPedidoRepository.save(planilla);
     }
 
+    /**
+     * Pasa las salidas de la planilla del día anterior al nuevo en el libro diario de stock
+     */
+    private void moverSalidasEnLibro(PlanillaPedido planilla, LocalDateTime fechaAnterior, LocalDateTime fechaNueva) {
+        Map<Producto, Integer> cantidades = new HashMap<>();
+        for (DetallePlanillaPedido detalle : detallePlanillaPedidoRepository.findByPlanillaPedidoIdOrderByFechaCreacionAsc(planilla.getId())) {
+            if (detalle.getProducto() != null) {
+                cantidades.merge(detalle.getProducto(), detalle.getCantidad(), Integer::sum);
+            }
+        }
+        libroStockDiarioService.moverFecha(planilla.getEmpresa().getId(), cantidades,
+                StockDiarioProducto.Concepto.SALIDA, fechaAnterior, fechaNueva);
+    }
+
     /**
      * Eliminar planilla de pedido y restaurar el stock
      */
@@ -294,6 +298,8 @@ public class PlanillaPedidoService {
         // Restaurar el stock de cada producto
         for (DetallePlanillaPedido detalle : detalles) {
             if (detalle.getProducto() != null) {
+                libroStockDiarioService.registrar(planilla.getEmpresa().getId(), detalle.getProducto(),
+                        planilla.getFechaPlanilla(), StockDiarioProducto.Concepto.SALIDA, -detalle.getCantidad());
                 restaurarStock(detalle.getProducto(), detalle.getCantidad());
             }
         }
@@ -330,7 +336,9 @@ public class PlanillaPedidoService {
                 }
                 
                 // Descontar del stock del producto
-                descontarDelStock(producto, dto.getCantidad());
+                libroStockDiarioService.registrar(planilla.getEmpresa().getId(), producto, planilla.getFechaPlanilla(),
+                        StockDiarioProducto.Concepto.SALIDA, dto.getCantidad());
+                descontarDelStock(planilla.getEmpresa().getId(), Map.of(producto.getId(), dto.getCantidad()));
             }
         }
 
@@ -362,6 +370,8 @@ public class PlanillaPedidoService {
         
         // Restaurar el stock si el detalle tiene un producto asociado
         if (detalle.getProducto() != null) {
+            libroStockDiarioService.registrar(planilla.getEmpresa().getId(), detalle.getProducto(),
+                    planilla.getFechaPlanilla(), StockDiarioProducto.Concepto.SALIDA, -detalle.getCantidad());
             restaurarStock(detalle.getProducto(), detalle.getCantidad());
         }
         
@@ -389,46 +399,26 @@ public class PlanillaPedidoService {
     }
 
     /**
-     * Descontar cantidad del stock de un producto usando sincronización inteligente
+     * Descontar cantidades del stock de los productos usando sincronización inteligente
      * Este método utiliza el StockSincronizacionService para descontar stock de manera inteligente
-     * priorizando productos sin sector, luego sectores con menos stock, y finalmente sectores con más stock
+     * priorizando productos sin sector, luego sectores con menos stock, y finalmente sectores con más stock.
+     * Si algún producto no tiene stock suficiente no se descuenta ninguno y la planilla no se guarda.
      */
-    private void descontarDelStock(Producto producto, Integer cantidad) {
-        if (producto.getStock() != null && cantidad != null && cantidad > 0) {
-            try {
-                System.out.println("🔄 PLANILLA PEDIDO - Iniciando descuento inteligente de stock");
-                System.out.println("🔄 PLANILLA PEDIDO - Producto: " + producto.getNombre() + " (ID: " + producto.getId() + ")");
-                System.out.println("🔄 PLANILLA PEDIDO - Cantidad a descontar: " + cantidad);
-                System.out.println("🔄 PLANILLA PEDIDO - Stock actual: " + producto.getStock());
-                System.out.println("🔄 PLANILLA PEDIDO - Empresa: " + producto.getEmpresa().getId());
-                
-                // Usar el sistema de sincronización inteligente
-                Map<String, Object> resultado = stockSincronizacionService.descontarStockInteligente(
-                    producto.getEmpresa().getId(),
-                    producto.getId(),
-                    cantidad,
-                    "Carga de planilla de pedido"
-                );
-                
-                System.out.println("✅ PLANILLA PEDIDO - Descuento inteligente completado exitosamente");
-                System.out.println("✅ PLANILLA PEDIDO - Resultado: " + resultado);
-                
-            } catch (Exception e) {
-                System.err.println("❌ PLANILLA PEDIDO - Error en descuento inteligente: " + e.getMessage());
-                e.printStackTrace();
-                
-                // Fallback: Si hay error en la sincronización inteligente, usar el método tradicional
-                System.out.println("⚠️ PLANILLA PEDIDO - Usando método tradicional como fallback");
-                int nuevoStock = producto.getStock() - cantidad;
-                if (nuevoStock < 0) {
-                    throw new RuntimeException("Stock insuficiente para el producto: " + producto.getNombre() + 
-                        ". Stock disponible: " + producto.getStock() + ", Cantidad solicitada: " + cantidad);
-                }
-                producto.setStock(nuevoStock);
-                productoRepository.save(producto);
-                System.out.println("⚠️ PLANILLA PEDIDO - Stock actualizado usando método tradicional: " + nuevoStock);
-            }
+    private void descontarDelStock(Long empresaId, Map<Long, Integer> cantidadesPorProducto) {
+        if (cantidadesPorProducto.isEmpty()) {
+            return;
         }
+        logger.debug("🔄 PLANILLA PEDIDO - Iniciando descuento inteligente de stock");
+        logger.debug("🔄 PLANILLA PEDIDO - Empresa: {}, Cantidades: {}", empresaId, cantidadesPorProducto);
+
+        List<Map<String, Object>> resultados = stockSincronizacionService.descontarStockInteligente(
+            empresaId,
+            cantidadesPorProducto,
+            "Carga de planilla de pedido"
+        );
+
+        logger.debug("✅ PLANILLA PEDIDO - Descuento inteligente completado exitosamente");
+        logger.debug("✅ PLANILLA PEDIDO - Resultado: {}", resultados);
     }
 
     /**
@@ -436,9 +426,8 @@ public class PlanillaPedidoService {
      */
     private void restaurarStock(Producto producto, Integer cantidad) {
         if (producto.getStock() != null && cantidad != null) {
-            int nuevoStock = producto.getStock() + cantidad;
-            producto.setStock(nuevoStock);
-            productoRepository.save(producto);
+            descuentoStockService.incrementar(producto.getEmpresa().getId(), Map.of(producto.getId(), cantidad));
+            int nuevoStock = producto.getStock();
             
             // Sincronizar con sectores para restaurar el stock correctamente
             try {
@@ -449,7 +438,7 @@ public class PlanillaPedidoService {
                     "Eliminación de planilla de pedido"
                 );
             } catch (Exception e) {
-                System.err.println("⚠️ [PLANILLA PEDIDO] Error al sincronizar con sectores: " + e.getMessage());
+                logger.warn("⚠️ [PLANILLA PEDIDO] Error al sincronizar con sectores: {}", e.getMessage());
                 // No fallar la operación principal si hay error en sincronización
             }
         }
@@ -458,7 +447,7 @@ public class PlanillaPedidoService {
     /**
      * Exportar planilla de pedido a Excel
      */
-    public byte[] exportarPlanillaAExcel(Long planillaId, Long empresaId) throws IOException {
+    public LibroExcelStreaming exportarPlanillaAExcel(Long planillaId, Long empresaId) {
         // Verificar que la planilla pertenece a la empresa
         PlanillaPedido planilla = planillaPedidoRepository.findByIdAndEmpresaId(planillaId, empresaId)
                 .orElseThrow(() -> new RuntimeException("Planilla no encontrada o no pertenece a la empresa"));
@@ -468,28 +457,33 @@ public class PlanillaPedidoService {
                 .findByPlanillaPedidoIdOrderByFechaCreacionAsc(planillaId);
 
         // Crear el workbook de Excel
-        try (Workbook workbook = new XSSFWorkbook()) {
+        LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("planilla_pedido", empresaId));
+        try {
+            Workbook workbook = libro.getLibro();
             Sheet sheet = workbook.createSheet("Planilla de Pedido");
 
             // Crear estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setColor(IndexedColors.WHITE.getIndex());
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
+            Font headerFont = libro.fuente("headerFont", f -> {
+                f.setBold(true);
+                f.setColor(IndexedColors.WHITE.getIndex());
+            });
+            CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                e.setFont(headerFont);
+                e.setFillForegroundColor(IndexedColors.BLUE.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setAlignment(HorizontalAlignment.CENTER);
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
+
+            CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
 
             // Crear encabezado de información de la planilla
             int rowNum = 0;
@@ -552,7 +546,7 @@ public class PlanillaPedidoService {
                         }
                     } catch (Exception e) {
                         // Si hay error al extraer patente, continuar sin mostrar error
-                        System.out.println("⚠️ Error al extraer patente del transporte: " + e.getMessage());
+                        logger.debug("⚠️ Error al extraer patente del transporte: {}", e.getMessage());
                     }
                 }
             }
@@ -629,10 +623,10 @@ public class PlanillaPedidoService {
             sheet.setColumnWidth(2, 20000); // Nombre del Producto
             sheet.setColumnWidth(3, 4000);  // Cantidad
 
-            // Convertir a bytes
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+            return libro;
+        } catch (RuntimeException e) {
+            libro.descartar();
+            throw e;
         }
     }
 
@@ -681,7 +675,7 @@ public class PlanillaPedidoService {
      */
     private LocalDateTime convertirFechaUsuarioAUTC(LocalDateTime fechaUsuario, String zonaHorariaUsuario) {
         if (fechaUsuario == null || zonaHorariaUsuario == null) {
-            System.out.println("⚠️ [DEBUG] Fecha o zona horaria nula en convertirFechaUsuarioAUTC");
+            logger.debug("⚠️ [DEBUG] Fecha o zona horaria nula en convertirFechaUsuarioAUTC");
             return fechaUsuario;
         }
         
@@ -691,17 +685,17 @@ public class PlanillaPedidoService {
             ZonedDateTime fechaUTC = fechaZonada.withZoneSameInstant(ZoneId.of("UTC"));
             LocalDateTime resultado = fechaUTC.toLocalDateTime();
             
-            System.out.println("🔍 [DEBUG] convertirFechaUsuarioAUTC:");
-            System.out.println("  - fechaUsuario: " + fechaUsuario);
-            System.out.println("  - zonaHorariaUsuario: " + zonaHorariaUsuario);
-            System.out.println("  - zonaUsuario: " + zonaUsuario);
-            System.out.println("  - fechaZonada: " + fechaZonada);
-            System.out.println("  - fechaUTC: " + fechaUTC);
-            System.out.println("  - resultado: " + resultado);
+            logger.debug("🔍 [DEBUG] convertirFechaUsuarioAUTC:");
+            logger.debug("  - fechaUsuario: {}", fechaUsuario);
+            logger.debug("  - zonaHorariaUsuario: {}", zonaHorariaUsuario);
+            logger.debug("  - zonaUsuario: {}", zonaUsuario);
+            logger.debug("  - fechaZonada: {}", fechaZonada);
+            logger.debug("  - fechaUTC: {}", fechaUTC);
+            logger.debug("  - resultado: {}", resultado);
             
             return resultado;
         } catch (Exception e) {
-            System.out.println("⚠️ Error convirtiendo fecha de usuario a UTC: " + e.getMessage());
+            logger.debug("⚠️ Error convirtiendo fecha de usuario a UTC: {}", e.getMessage());
             return fechaUsuario;
         }
     }
@@ -720,7 +714,7 @@ public class PlanillaPedidoService {
             ZonedDateTime fechaUsuario = fechaZonadaUTC.withZoneSameInstant(zonaUsuario);
             return fechaUsuario.toLocalDateTime();
         } catch (Exception e) {
-            System.out.println("⚠️ Error convirtiendo fecha UTC a usuario: " + e.getMessage());
+            logger.debug("⚠️ Error convirtiendo fecha UTC a usuario: {}", e.getMessage());
             return fechaUTC;
         }
     }
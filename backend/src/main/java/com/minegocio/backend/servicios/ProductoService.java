@@ -1,5 +1,6 @@
 package com.minegocio.backend.servicios;
 
+import com.minegocio.backend.dto.CatalogoPublicoPaginaDTO;
 import com.minegocio.backend.dto.ProductoDTO;
 import com.minegocio.backend.dto.InventarioRequestDTO;
 import com.minegocio.backend.dto.DependenciasProductoDTO;
@@ -18,22 +19,26 @@ import java.time.LocalDateTime;
 import java.util.Comparator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.UUID;
-import java.util.Random;
 
 @Service
 @Transactional
 public class ProductoService {
 
+    private static final int LIMITE_POR_DEFECTO_CATALOGO = 24;
+    private static final int LIMITE_MAXIMO_CATALOGO = 100;
+
     @Autowired
     private ProductoRepository productoRepository;
 
@@ -65,6 +70,12 @@ public class ProductoService {
     @Autowired
     private StockSincronizacionService stockSincronizacionService;
 
+    @Autowired
+    private CacheTiendaPublicaService cacheTiendaPublicaService;
+
+    @Autowired
+    private NumeradorDocumentosService numeradorDocumentosService;
+
     /**
      * Método auxiliar para crear sector automáticamente si no existe
      */
@@ -127,6 +138,112 @@ public class ProductoService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Busca en el catálogo público con filtros resueltos en SQL y paginación por cursor (keyset).
+     * Orden: NOMBRE (por defecto), PRECIO_ASC, PRECIO_DESC o RECIENTES.
+     * El cursor es opaco: se devuelve en cada página y se reenvía para pedir la siguiente.
+     */
+    @Transactional(readOnly = true)
+    public CatalogoPublicoPaginaDTO buscarCatalogoPublico(Long empresaId, String categoria, String marca, String buscar,
+                                                          String orden, String cursor, Integer limite) {
+        String ordenEfectivo = orden != null && !orden.isBlank() ? orden.trim().toUpperCase() : "NOMBRE";
+        int limiteEfectivo = limite != null ? Math.max(1, Math.min(limite, LIMITE_MAXIMO_CATALOGO)) : LIMITE_POR_DEFECTO_CATALOGO;
+
+        String[] partesCursor = decodificarCursorCatalogo(cursor);
+        Long cursorId = partesCursor != null ? Long.valueOf(partesCursor[0]) : null;
+        String cursorValor = partesCursor != null ? partesCursor[1] : null;
+
+        // Se pide un elemento extra para saber si hay más páginas sin contar el total
+        List<Producto> productos = consultarCatalogoPublico(empresaId, categoria, marca, buscar, ordenEfectivo,
+                cursorId, cursorValor, PageRequest.of(0, limiteEfectivo + 1));
+
+        boolean hayMas = productos.size() > limiteEfectivo;
+        if (hayMas) {
+            productos = productos.subList(0, limiteEfectivo);
+        }
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            Producto ultimo = productos.get(productos.size() - 1);
+            String valor;
+            switch (ordenEfectivo) {
+                case "PRECIO_ASC":
+                case "PRECIO_DESC":
+                    valor = (ultimo.getPrecio() != null ? ultimo.getPrecio() : BigDecimal.ZERO).toPlainString();
+                    break;
+                case "RECIENTES":
+                    valor = "";
+                    break;
+                default:
+                    valor = ultimo.getNombre();
+            }
+            siguienteCursor = codificarCursorCatalogo(ultimo.getId(), valor);
+        }
+
+        List<ProductoDTO> items = productos.stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+        return new CatalogoPublicoPaginaDTO(items, siguienteCursor, hayMas, limiteEfectivo, ordenEfectivo);
+    }
+
+    /**
+     * Obtiene todos los productos activos del catálogo público aplicando los filtros en SQL
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoDTO> obtenerCatalogoPublicoCompleto(Long empresaId, String categoria, String marca, String buscar) {
+        return consultarCatalogoPublico(empresaId, categoria, marca, buscar, "NOMBRE", null, null, Pageable.unpaged())
+                .stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+    }
+
+    private List<Producto> consultarCatalogoPublico(Long empresaId, String categoria, String marca, String buscar,
+                                                    String orden, Long cursorId, String cursorValor, Pageable pageable) {
+        String categoriaFiltro = categoria != null && !categoria.isEmpty() ? categoria : null;
+        String marcaFiltro = marca != null && !marca.isEmpty() ? marca : null;
+        String patron = null;
+        if (buscar != null && !buscar.isBlank()) {
+            String termino = Producto.normalizarTextoBusqueda(buscar).replace("%", "").replace("_", "");
+            patron = termino.isEmpty() ? null : "%" + termino + "%";
+        }
+
+        switch (orden) {
+            case "PRECIO_ASC":
+                return productoRepository.buscarCatalogoPublicoPorPrecioAsc(empresaId, categoriaFiltro, marcaFiltro, patron,
+                        cursorValor != null ? new BigDecimal(cursorValor) : null, cursorId, pageable);
+            case "PRECIO_DESC":
+                return productoRepository.buscarCatalogoPublicoPorPrecioDesc(empresaId, categoriaFiltro, marcaFiltro, patron,
+                        cursorValor != null ? new BigDecimal(cursorValor) : null, cursorId, pageable);
+            case "RECIENTES":
+                return productoRepository.buscarCatalogoPublicoRecientes(empresaId, categoriaFiltro, marcaFiltro, patron,
+                        cursorId, pageable);
+            case "NOMBRE":
+                return productoRepository.buscarCatalogoPublicoPorNombre(empresaId, categoriaFiltro, marcaFiltro, patron,
+                        cursorValor, cursorId, pageable);
+            default:
+                throw new IllegalArgumentException("Orden de catálogo no soportado: " + orden);
+        }
+    }
+
+    private static String codificarCursorCatalogo(Long id, String valor) {
+        String crudo = id + "|" + (valor != null ? valor : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificarCursorCatalogo(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String crudo = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separador = crudo.indexOf('|');
+            Long.parseLong(crudo.substring(0, separador));
+            return new String[] { crudo.substring(0, separador), crudo.substring(separador + 1) };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de catálogo inválido");
+        }
+    }
+
     public List<ProductoDTO> obtenerTodosLosProductosIncluirInactivos(Long empresaId) {
         List<Producto> productos = productoRepository.findByEmpresaId(empresaId);
         return productos.stream()
@@ -200,6 +317,7 @@ public class ProductoService {
         System.out.println("🔍 Guardando producto en base de datos...");
         Producto productoGuardado = productoRepository.save(producto);
         System.out.println("✅ Producto guardado con ID: " + productoGuardado.getId());
+        cacheTiendaPublicaService.invalidarProducto(empresaId, productoGuardado.getId());
         
         // Crear sector automáticamente si se especificó un sector de almacenamiento
         if (productoDTO.getSectorAlmacenamiento() != null && !productoDTO.getSectorAlmacenamiento().trim().isEmpty()) {
@@ -390,6 +508,7 @@ public class ProductoService {
         }
 
         Producto productoActualizado = productoRepository.save(producto);
+        cacheTiendaPublicaService.invalidarProducto(empresaId, id);
         System.out.println("🔍 === DESPUÉS DE GUARDAR ===");
         System.out.println("🔍 Stock en producto guardado: " + productoActualizado.getStock());
         System.out.println("🔍 Stock en producto original: " + producto.getStock());
@@ -518,6 +637,7 @@ public class ProductoService {
         
         producto.setActivo(false);
         productoRepository.save(producto);
+        cacheTiendaPublicaService.invalidarProducto(empresaId, id);
     }
 
     public void eliminarProductoFisicamente(Long empresaId, Long id) {
@@ -526,6 +646,7 @@ public class ProductoService {
         
         // Eliminar físicamente de la base de datos
         productoRepository.delete(producto);
+        cacheTiendaPublicaService.invalidarProducto(empresaId, id);
     }
 
     public ProductoDTO reactivarProducto(Long empresaId, Long id) {
@@ -534,6 +655,7 @@ public class ProductoService {
         
         producto.setActivo(true);
         Producto productoReactivo = productoRepository.save(producto);
+        cacheTiendaPublicaService.invalidarProducto(empresaId, id);
         return convertirADTO(productoReactivo);
     }
 
@@ -545,6 +667,7 @@ public class ProductoService {
         Integer stockAnterior = producto.getStock();
         producto.setStock(nuevoStock);
         productoRepository.save(producto);
+        cacheTiendaPublicaService.invalidarStockProducto(empresaId, id);
         
         // Registrar la operación en el historial de inventario
         try {
@@ -747,32 +870,14 @@ public class ProductoService {
     }
 
     /**
-     * Genera un código de barras único para la empresa
+     * Genera un código de barras único para la empresa a partir de su secuencia de códigos.
+     * Solo se salta un valor si coincide con un código cargado a mano.
      */
     public String generarCodigoBarras(Long empresaId) {
         String codigo;
-        boolean esUnico = false;
-        int intentos = 0;
-        final int MAX_INTENTOS = 10;
-        
         do {
-            // Generar código con formato: EMP-{empresaId}-{timestamp}-{random}
-            long timestamp = System.currentTimeMillis();
-            int random = new Random().nextInt(1000);
-            codigo = String.format("EMP-%d-%d-%03d", empresaId, timestamp, random);
-            
-            // Verificar que sea único en la empresa
-            List<Producto> productosConMismoCodigo = productoRepository.findByEmpresaIdAndCodigoBarras(empresaId, codigo);
-            esUnico = productosConMismoCodigo.isEmpty();
-            
-            intentos++;
-        } while (!esUnico && intentos < MAX_INTENTOS);
-        
-        if (!esUnico) {
-            // Si no se pudo generar uno único, usar UUID
-            codigo = "EMP-" + empresaId + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        }
-        
+            codigo = numeradorDocumentosService.siguienteCodigoBarras(empresaId);
+        } while (codigoBarrasExiste(empresaId, codigo));
         return codigo;
     }
 
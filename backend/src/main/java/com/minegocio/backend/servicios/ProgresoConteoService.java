@@ -0,0 +1,362 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.ConteoSector;
+import com.minegocio.backend.entidades.DetalleConteo;
+import com.minegocio.backend.entidades.ProgresoConteoProducto;
+import com.minegocio.backend.repositorios.ConteoSectorRepository;
+import com.minegocio.backend.repositorios.DetalleConteoRepository;
+import com.minegocio.backend.repositorios.ProgresoConteoProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Mantiene el progreso de los conteos de sector de forma incremental:
+ * - Cada cambio de DetalleConteo recalcula solo el producto afectado (sus pocas filas) y
+ *   ajusta los contadores del ConteoSector con la diferencia entre el estado anterior y el
+ *   nuevo de ese producto, con la fila del conteo bloqueada para que dos usuarios contando a
+ *   la vez no pisen sus cambios
+ * - La primera vez que se toca un conteo, o cuando pasa de conteo inicial a reconteo, los
+ *   contadores se arman desde las filas de progreso (o desde los detalles si todavía no hay)
+ * - Una tarea periódica concilia los conteos activos contra el recálculo completo y corrige
+ *   cualquier desvío (cambios hechos por fuera de este servicio)
+ */
+@Service
+public class ProgresoConteoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgresoConteoService.class);
+
+    // Estados en los que un conteo todavía recibe detalles y se concilia
+    private static final List<ConteoSector.EstadoConteo> ESTADOS_ACTIVOS = List.of(
+        ConteoSector.EstadoConteo.PENDIENTE,
+        ConteoSector.EstadoConteo.EN_PROGRESO,
+        ConteoSector.EstadoConteo.ESPERANDO_VERIFICACION,
+        ConteoSector.EstadoConteo.CON_DIFERENCIAS);
+
+    // Fecha de actualización descendente, las filas sin fecha al final
+    private static final Comparator<DetalleConteo> MAS_RECIENTE_PRIMERO = Comparator.comparing(
+        DetalleConteo::getFechaActualizacion, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed();
+
+    private static final String SQL_BLOQUEAR_CONTEO =
+        "SELECT total_productos, productos_contados, productos_con_diferencias, productos_contados_usuario_1, " +
+        "productos_contados_usuario_2, progreso_en_reconteo FROM conteo_sector WHERE id = ? FOR UPDATE";
+
+    private static final String SQL_GUARDAR_CONTADORES =
+        "UPDATE conteo_sector SET total_productos = ?, productos_contados = ?, productos_con_diferencias = ?, " +
+        "productos_contados_usuario_1 = ?, productos_contados_usuario_2 = ?, porcentaje_completado = ?, " +
+        "progreso_en_reconteo = ? WHERE id = ?";
+
+    @Autowired
+    private ProgresoConteoProductoRepository progresoConteoProductoRepository;
+
+    @Autowired
+    private DetalleConteoRepository detalleConteoRepository;
+
+    @Autowired
+    private ConteoSectorRepository conteoSectorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Contadores de progreso de un conteo de sector
+     */
+    public static class Contadores {
+        private int totalProductos;
+        private int productosContados;
+        private int productosConDiferencias;
+        private int contadosUsuario1;
+        private int contadosUsuario2;
+        // Modo con el que se armaron (null: todavía no se armaron)
+        private Boolean enReconteo;
+
+        void sumar(ProgresoConteoProducto producto, boolean reconteo, int signo) {
+            totalProductos += signo;
+            if (producto.contado(reconteo)) {
+                productosContados += signo;
+            }
+            if (producto.conDiferencias(reconteo)) {
+                productosConDiferencias += signo;
+            }
+            if (producto.contadoPorUsuario1(reconteo)) {
+                contadosUsuario1 += signo;
+            }
+            if (producto.contadoPorUsuario2(reconteo)) {
+                contadosUsuario2 += signo;
+            }
+        }
+
+        boolean mismosValores(Contadores otros) {
+            return totalProductos == otros.totalProductos
+                && productosContados == otros.productosContados
+                && productosConDiferencias == otros.productosConDiferencias
+                && contadosUsuario1 == otros.contadosUsuario1
+                && contadosUsuario2 == otros.contadosUsuario2;
+        }
+
+        public double getPorcentaje() {
+            return totalProductos > 0 ? (productosContados * 100.0) / totalProductos : 0.0;
+        }
+
+        public int getTotalProductos() { return totalProductos; }
+        public int getProductosContados() { return productosContados; }
+        public int getProductosConDiferencias() { return productosConDiferencias; }
+        public int getContadosUsuario1() { return contadosUsuario1; }
+        public int getContadosUsuario2() { return contadosUsuario2; }
+    }
+
+    /**
+     * Un conteo está en reconteo mientras sus observaciones empiezan con "Reconteo"
+     */
+    public static boolean enReconteo(ConteoSector conteoSector) {
+        return conteoSector.getObservaciones() != null && conteoSector.getObservaciones().startsWith("Reconteo");
+    }
+
+    /**
+     * Progreso de un producto a partir de sus filas no eliminadas; null si no tiene ninguna.
+     * En el conteo inicial se suma lo de cada usuario; para el reconteo se toma la fila más
+     * reciente en la que ambos usuarios cargaron cantidad.
+     */
+    public static ProgresoConteoProducto calcularProducto(Long conteoSectorId, Long productoId, List<DetalleConteo> detalles) {
+        ProgresoConteoProducto progreso = new ProgresoConteoProducto(conteoSectorId, productoId);
+        DetalleConteo reconteo = null;
+        for (DetalleConteo detalle : detalles) {
+            if (Boolean.TRUE.equals(detalle.getEliminado())) {
+                continue;
+            }
+            progreso.setFilas(progreso.getFilas() + 1);
+            Integer cantidad1 = detalle.getCantidadConteo1();
+            Integer cantidad2 = detalle.getCantidadConteo2();
+            if (cantidad1 != null && cantidad1 > 0) {
+                progreso.setTotalUsuario1(progreso.getTotalUsuario1() + cantidad1);
+                progreso.setContadoUsuario1(true);
+            }
+            if (cantidad2 != null && cantidad2 > 0) {
+                progreso.setTotalUsuario2(progreso.getTotalUsuario2() + cantidad2);
+                progreso.setContadoUsuario2(true);
+            }
+            if (cantidad1 != null && cantidad1 > 0 && cantidad2 != null && cantidad2 > 0
+                    && (reconteo == null || MAS_RECIENTE_PRIMERO.compare(detalle, reconteo) < 0)) {
+                reconteo = detalle;
+            }
+        }
+        if (progreso.getFilas() == 0) {
+            return null;
+        }
+        if (reconteo != null) {
+            progreso.setReconteoUsuario1(reconteo.getCantidadConteo1());
+            progreso.setReconteoUsuario2(reconteo.getCantidadConteo2());
+        }
+        return progreso;
+    }
+
+    /**
+     * Progreso de todos los productos de un sector a partir de sus filas (recálculo completo)
+     */
+    public static Map<Long, ProgresoConteoProducto> calcularSector(Long conteoSectorId, List<DetalleConteo> detalles) {
+        Map<Long, List<DetalleConteo>> porProducto = new LinkedHashMap<>();
+        for (DetalleConteo detalle : detalles) {
+            porProducto.computeIfAbsent(detalle.getProducto().getId(), k -> new ArrayList<>()).add(detalle);
+        }
+        Map<Long, ProgresoConteoProducto> progreso = new HashMap<>();
+        for (Map.Entry<Long, List<DetalleConteo>> entrada : porProducto.entrySet()) {
+            ProgresoConteoProducto producto = calcularProducto(conteoSectorId, entrada.getKey(), entrada.getValue());
+            if (producto != null) {
+                progreso.put(entrada.getKey(), producto);
+            }
+        }
+        return progreso;
+    }
+
+    public static Contadores contar(Collection<ProgresoConteoProducto> productos, boolean reconteo) {
+        Contadores contadores = new Contadores();
+        for (ProgresoConteoProducto producto : productos) {
+            contadores.sumar(producto, reconteo, 1);
+        }
+        contadores.enReconteo = reconteo;
+        return contadores;
+    }
+
+    /**
+     * Ajusta el progreso después de cambiar (alta, modificación o baja) filas de un producto.
+     * Debe llamarse después de guardar el DetalleConteo, dentro de la misma transacción.
+     */
+    @Transactional
+    public void actualizarProducto(ConteoSector conteoSector, Long productoId) {
+        Contadores contadores = bloquear(conteoSector.getId());
+        boolean reconteo = enReconteo(conteoSector);
+        if (contadores.enReconteo == null) {
+            // Primer cambio desde que existe el progreso incremental: se arma desde los detalles
+            reconstruir(conteoSector);
+            return;
+        }
+        if (contadores.enReconteo != reconteo) {
+            contadores = contar(progresoConteoProductoRepository.findByConteoSectorId(conteoSector.getId()), reconteo);
+        }
+
+        Optional<ProgresoConteoProducto> anterior =
+            progresoConteoProductoRepository.findByConteoSectorIdAndProductoId(conteoSector.getId(), productoId);
+        ProgresoConteoProducto nuevo = calcularProducto(conteoSector.getId(), productoId,
+            detalleConteoRepository.findByConteoSectorIdAndProductoIdAndEliminadoFalse(conteoSector.getId(), productoId));
+
+        if (anterior.isPresent()) {
+            contadores.sumar(anterior.get(), reconteo, -1);
+        }
+        if (nuevo != null) {
+            contadores.sumar(nuevo, reconteo, 1);
+        }
+
+        if (nuevo == null) {
+            anterior.ifPresent(progresoConteoProductoRepository::delete);
+        } else if (anterior.isPresent()) {
+            anterior.get().copiarDe(nuevo);
+            progresoConteoProductoRepository.save(anterior.get());
+        } else {
+            progresoConteoProductoRepository.save(nuevo);
+        }
+        contadores.enReconteo = reconteo;
+        guardar(conteoSector, contadores);
+    }
+
+    /**
+     * Deja en el ConteoSector los contadores vigentes, armándolos si el conteo todavía no los
+     * tiene o si cambió de modo (conteo inicial / reconteo) desde el último cambio
+     */
+    @Transactional
+    public void sincronizar(ConteoSector conteoSector) {
+        Contadores contadores = bloquear(conteoSector.getId());
+        boolean reconteo = enReconteo(conteoSector);
+        if (contadores.enReconteo == null) {
+            reconstruir(conteoSector);
+            return;
+        }
+        if (contadores.enReconteo != reconteo) {
+            contadores = contar(progresoConteoProductoRepository.findByConteoSectorId(conteoSector.getId()), reconteo);
+            guardar(conteoSector, contadores);
+        } else {
+            aplicar(conteoSector, contadores);
+        }
+    }
+
+    /**
+     * Recalcula el progreso completo del conteo desde sus detalles y corrige las filas de
+     * progreso y los contadores que no coincidan. Devuelve cuántas diferencias encontró.
+     */
+    @Transactional
+    public int reconstruir(ConteoSector conteoSector) {
+        Contadores guardados = bloquear(conteoSector.getId());
+        boolean reconteo = enReconteo(conteoSector);
+        Map<Long, ProgresoConteoProducto> calculados = calcularSector(conteoSector.getId(),
+            detalleConteoRepository.findByConteoSectorAndEliminadoFalseOrderByProductoNombre(conteoSector));
+
+        int diferencias = 0;
+        Map<Long, ProgresoConteoProducto> vigentes = new HashMap<>();
+        for (ProgresoConteoProducto existente : progresoConteoProductoRepository.findByConteoSectorId(conteoSector.getId())) {
+            ProgresoConteoProducto calculado = calculados.remove(existente.getProductoId());
+            if (calculado == null) {
+                progresoConteoProductoRepository.delete(existente);
+                diferencias++;
+                continue;
+            }
+            if (!existente.coincideCon(calculado)) {
+                existente.copiarDe(calculado);
+                progresoConteoProductoRepository.save(existente);
+                diferencias++;
+            }
+            vigentes.put(existente.getProductoId(), existente);
+        }
+        // Lo que quedó en calculados son productos sin fila de progreso
+        progresoConteoProductoRepository.saveAll(calculados.values());
+        diferencias += calculados.size();
+        vigentes.putAll(calculados);
+
+        Contadores contadores = contar(vigentes.values(), reconteo);
+        if (guardados.enReconteo == null || guardados.enReconteo != reconteo || !guardados.mismosValores(contadores)) {
+            diferencias++;
+        }
+        guardar(conteoSector, contadores);
+        return diferencias;
+    }
+
+    /**
+     * Concilia periódicamente los conteos activos contra el recálculo completo
+     */
+    @Scheduled(initialDelayString = "${minegocio.inventario.progreso.conciliacion-ms:900000}",
+               fixedDelayString = "${minegocio.inventario.progreso.conciliacion-ms:900000}")
+    public void conciliarConteosActivos() {
+        try {
+            List<Long> conteos = conteoSectorRepository.findIdsConProgresoPorEstado(ESTADOS_ACTIVOS);
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            int corregidos = 0;
+            for (Long conteoSectorId : conteos) {
+                Integer diferencias = transaccion.execute(estado -> conteoSectorRepository.findById(conteoSectorId)
+                    .map(this::reconstruir)
+                    .orElse(0));
+                if (diferencias != null && diferencias > 0) {
+                    corregidos++;
+                    logger.warn("Progreso del conteo {} corregido por conciliación ({} diferencias)", conteoSectorId, diferencias);
+                }
+            }
+            logger.debug("Conciliación de progreso: {} conteos revisados, {} corregidos", conteos.size(), corregidos);
+        } catch (Exception e) {
+            logger.error("Error conciliando el progreso de los conteos: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lee los contadores guardados del conteo bloqueando su fila hasta el fin de la transacción
+     */
+    private Contadores bloquear(Long conteoSectorId) {
+        return jdbcTemplate.queryForObject(SQL_BLOQUEAR_CONTEO, (rs, fila) -> {
+            Contadores contadores = new Contadores();
+            contadores.totalProductos = rs.getInt("total_productos");
+            contadores.productosContados = rs.getInt("productos_contados");
+            contadores.productosConDiferencias = rs.getInt("productos_con_diferencias");
+            contadores.contadosUsuario1 = rs.getInt("productos_contados_usuario_1");
+            contadores.contadosUsuario2 = rs.getInt("productos_contados_usuario_2");
+            boolean reconteo = rs.getBoolean("progreso_en_reconteo");
+            contadores.enReconteo = rs.wasNull() ? null : reconteo;
+            return contadores;
+        }, conteoSectorId);
+    }
+
+    private void guardar(ConteoSector conteoSector, Contadores contadores) {
+        jdbcTemplate.update(SQL_GUARDAR_CONTADORES, contadores.totalProductos, contadores.productosContados,
+            contadores.productosConDiferencias, contadores.contadosUsuario1, contadores.contadosUsuario2,
+            contadores.getPorcentaje(), contadores.enReconteo, conteoSector.getId());
+        aplicar(conteoSector, contadores);
+    }
+
+    /**
+     * Copia los contadores a la entidad, para que un guardado posterior del ConteoSector no
+     * vuelva a escribir los valores que tenía al cargarse
+     */
+    private void aplicar(ConteoSector conteoSector, Contadores contadores) {
+        conteoSector.setTotalProductos(contadores.totalProductos);
+        conteoSector.setProductosContados(contadores.productosContados);
+        conteoSector.setProductosConDiferencias(contadores.productosConDiferencias);
+        conteoSector.setProductosContadosUsuario1(contadores.contadosUsuario1);
+        conteoSector.setProductosContadosUsuario2(contadores.contadosUsuario2);
+        conteoSector.setPorcentajeCompletado(contadores.getPorcentaje());
+        conteoSector.setProgresoEnReconteo(contadores.enReconteo);
+    }
+}
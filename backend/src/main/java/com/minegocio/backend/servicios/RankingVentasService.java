@@ -0,0 +1,335 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.DetallePedido;
+import com.minegocio.backend.entidades.DetalleVentaRapida;
+import com.minegocio.backend.entidades.IndiceEmpresa;
+import com.minegocio.backend.entidades.Pedido;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.entidades.VentaProductoAcumulada;
+import com.minegocio.backend.entidades.VentaProductoAcumulada.Periodo;
+import com.minegocio.backend.entidades.VentaRapida;
+import com.minegocio.backend.repositorios.IndiceEmpresaRepository;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.repositorios.VentaProductoAcumuladaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de ranking de ventas por producto.
+ *
+ * Mantiene contadores pre-agregados (VentaProductoAcumulada) por empresa, producto y
+ * período (total, día, mes, año) que se actualizan al crear/cancelar pedidos y ventas
+ * rápidas. Los top/bottom N se resuelven leyendo un único bucket y seleccionando con
+ * un heap de tamaño K, sin recorrer pedidos ni ventas.
+ *
+ * La primera consulta de cada empresa construye los contadores desde el historial y deja
+ * la marca RANKING_VENTAS en indices_empresa. La reconstrucción toma el candado exclusivo
+ * de la empresa y los incrementos el compartido, así ninguna venta confirmada mientras
+ * se reconstruye queda fuera ni se cuenta dos veces.
+ */
+@Service
+public class RankingVentasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RankingVentasService.class);
+
+    private static final Periodo[] PERIODOS = Periodo.values();
+    private static final String TABLA = "ventas_producto_acumuladas";
+    private static final String CONTADOR = "ranking-ventas";
+
+    // Empresas con la marca de índice ya leída en esta réplica
+    private final Set<Long> empresasIndexadas = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private VentaProductoAcumuladaRepository ventaProductoAcumuladaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private IndiceEmpresaRepository indiceEmpresaRepository;
+
+    @Autowired
+    private ContadoresSql contadoresSql;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Suma al ranking las unidades de un pedido recién creado
+     */
+    @Transactional
+    public void registrarPedido(Pedido pedido) {
+        if (pedido.getEstado() == Pedido.EstadoPedido.CANCELADO) {
+            return;
+        }
+        acumularPedido(pedido, 1);
+    }
+
+    /**
+     * Descuenta del ranking las unidades de un pedido cancelado
+     */
+    @Transactional
+    public void revertirPedido(Pedido pedido) {
+        acumularPedido(pedido, -1);
+    }
+
+    /**
+     * Suma al ranking las unidades de una venta rápida
+     */
+    @Transactional
+    public void registrarVentaRapida(VentaRapida venta) {
+        if (venta.getDetalles() == null || venta.getDetalles().isEmpty()) {
+            return;
+        }
+        Map<Long, Long> unidadesPorProducto = new HashMap<>();
+        for (DetalleVentaRapida detalle : venta.getDetalles()) {
+            unidadesPorProducto.merge(detalle.getProducto().getId(), (long) detalle.getCantidad(), Long::sum);
+        }
+        LocalDate fecha = venta.getFechaVenta() != null ? venta.getFechaVenta().toLocalDate() : LocalDate.now();
+        Long empresaId = venta.getEmpresa().getId();
+        contadoresSql.bloquearCompartido(CONTADOR, empresaId);
+        unidadesPorProducto.forEach((productoId, unidades) -> acumular(empresaId, productoId, fecha, 0L, unidades));
+    }
+
+    private void acumularPedido(Pedido pedido, int signo) {
+        if (pedido.getDetalles() == null || pedido.getDetalles().isEmpty()) {
+            return;
+        }
+        Map<Long, Long> unidadesPorProducto = new HashMap<>();
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            unidadesPorProducto.merge(detalle.getProducto().getId(), (long) detalle.getCantidad(), Long::sum);
+        }
+        LocalDate fecha = pedido.getFechaCreacion() != null ? pedido.getFechaCreacion().toLocalDate() : LocalDate.now();
+        Long empresaId = pedido.getEmpresa().getId();
+        contadoresSql.bloquearCompartido(CONTADOR, empresaId);
+        unidadesPorProducto.forEach((productoId, unidades) -> acumular(empresaId, productoId, fecha, signo * unidades, 0L));
+    }
+
+    /**
+     * Aplica el delta a los cuatro buckets (total, día, mes, año) de un producto.
+     * Si el bucket no existe se da de alta en cero sin pisar al que lo cree en paralelo
+     * y se vuelve a sumar, de modo que el UPDATE siempre serializa los incrementos.
+     */
+    private void acumular(Long empresaId, Long productoId, LocalDate fecha, long deltaPedidos, long deltaVentasRapidas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Periodo periodo : PERIODOS) {
+            String clave = periodo.clavePara(fecha);
+            int actualizados = ventaProductoAcumuladaRepository.incrementar(
+                    empresaId, productoId, periodo, clave, deltaPedidos, deltaVentasRapidas, ahora);
+            if (actualizados == 0) {
+                contadoresSql.insertarSiFalta(TABLA, ContadoresSql.fila(
+                        "empresa_id", empresaId,
+                        "producto_id", productoId,
+                        "periodo", periodo.name(),
+                        "clave_periodo", clave,
+                        "unidades_pedidos", 0L,
+                        "unidades_ventas_rapidas", 0L,
+                        "fecha_actualizacion", ahora),
+                        "empresa_id", "producto_id", "periodo", "clave_periodo");
+                ventaProductoAcumuladaRepository.incrementar(
+                        empresaId, productoId, periodo, clave, deltaPedidos, deltaVentasRapidas, ahora);
+            }
+        }
+    }
+
+    /**
+     * Reconstruye los contadores de una empresa desde el historial con una única agregación SQL
+     * y marca la empresa como indexada
+     */
+    @Transactional
+    public int reconstruirRanking(Long empresaId) {
+        logger.debug("🔄 [RANKING] Reconstruyendo contadores de ventas para empresa {}", empresaId);
+
+        // Espera a que confirmen los incrementos en curso; los nuevos esperan a esta transacción
+        contadoresSql.bloquearExclusivo(CONTADOR, empresaId);
+
+        Map<String, VentaProductoAcumulada> contadores = new LinkedHashMap<>();
+        for (Object[] fila : ventaProductoAcumuladaRepository.agregarHistorialVentasPorDia(empresaId)) {
+            Long productoId = ((Number) fila[0]).longValue();
+            LocalDate dia = aLocalDate(fila[1]);
+            long unidadesPedidos = fila[2] != null ? ((Number) fila[2]).longValue() : 0L;
+            long unidadesVentasRapidas = fila[3] != null ? ((Number) fila[3]).longValue() : 0L;
+            if (dia == null) {
+                continue;
+            }
+            for (Periodo periodo : PERIODOS) {
+                String clave = periodo.clavePara(dia);
+                VentaProductoAcumulada contador = contadores.computeIfAbsent(
+                        productoId + "|" + periodo + "|" + clave,
+                        k -> new VentaProductoAcumulada(empresaId, productoId, periodo, clave));
+                contador.setUnidadesPedidos(contador.getUnidadesPedidos() + unidadesPedidos);
+                contador.setUnidadesVentasRapidas(contador.getUnidadesVentasRapidas() + unidadesVentasRapidas);
+            }
+        }
+
+        ventaProductoAcumuladaRepository.eliminarPorEmpresa(empresaId);
+        ventaProductoAcumuladaRepository.saveAll(contadores.values());
+        contadoresSql.marcarIndice(empresaId, IndiceEmpresa.TipoIndice.RANKING_VENTAS);
+
+        logger.debug("✅ [RANKING] Contadores reconstruidos: {}", contadores.size());
+        return contadores.size();
+    }
+
+    /**
+     * Top N productos más vendidos (solo productos con ventas)
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerMasVendidos(Long empresaId, int limite, Periodo periodo, LocalDate fecha) {
+        Map<Long, long[]> contadores = cargarContadores(empresaId, periodo, fecha);
+
+        // Min-heap de tamaño K: la raíz es el peor de los K mejores
+        Comparator<Map.Entry<Long, long[]>> orden = Comparator
+                .comparingLong((Map.Entry<Long, long[]> e) -> total(e.getValue()))
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        List<Map.Entry<Long, long[]>> seleccion = seleccionarK(
+                contadores.entrySet().stream().filter(e -> total(e.getValue()) > 0).collect(Collectors.toList()),
+                limite, orden);
+
+        return construirResultado(seleccion);
+    }
+
+    /**
+     * Top N productos menos vendidos (incluye productos sin ventas)
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerMenosVendidos(Long empresaId, int limite, Periodo periodo, LocalDate fecha) {
+        Map<Long, long[]> contadores = cargarContadores(empresaId, periodo, fecha);
+
+        List<Map.Entry<Long, long[]>> candidatos = new ArrayList<>();
+        for (Long productoId : productoRepository.findIdsByEmpresaId(empresaId)) {
+            long[] unidades = contadores.getOrDefault(productoId, new long[2]);
+            candidatos.add(Map.entry(productoId, unidades));
+        }
+
+        // Max-heap de tamaño K: la raíz es el mayor de los K menos vendidos
+        Comparator<Map.Entry<Long, long[]>> orden = Comparator
+                .comparingLong((Map.Entry<Long, long[]> e) -> total(e.getValue()))
+                .thenComparing(Map.Entry::getKey)
+                .reversed();
+        List<Map.Entry<Long, long[]>> seleccion = seleccionarK(candidatos, limite, orden);
+
+        return construirResultado(seleccion);
+    }
+
+    /**
+     * Carga los contadores del bucket pedido; reconstruye si la empresa no tiene la marca de
+     * índice (primera consulta, también para empresas con ventas anteriores al ranking)
+     */
+    private Map<Long, long[]> cargarContadores(Long empresaId, Periodo periodo, LocalDate fecha) {
+        Periodo periodoEfectivo = periodo != null ? periodo : Periodo.TOTAL;
+        LocalDate fechaEfectiva = fecha != null ? fecha : LocalDate.now();
+
+        if (!empresasIndexadas.contains(empresaId)) {
+            if (!indiceEmpresaRepository.existsByEmpresaIdAndTipo(empresaId, IndiceEmpresa.TipoIndice.RANKING_VENTAS)) {
+                // Primera consulta de la empresa: se indexa el historial en una transacción propia de escritura
+                TransactionTemplate reconstruccion = new TransactionTemplate(transactionManager);
+                reconstruccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                reconstruccion.executeWithoutResult(estado -> {
+                    // Otra réplica o petición pudo terminar la reconstrucción mientras se esperaba el candado
+                    contadoresSql.bloquearExclusivo(CONTADOR, empresaId);
+                    if (!indiceEmpresaRepository.existsByEmpresaIdAndTipo(empresaId, IndiceEmpresa.TipoIndice.RANKING_VENTAS)) {
+                        reconstruirRanking(empresaId);
+                    }
+                });
+            }
+            empresasIndexadas.add(empresaId);
+        }
+
+        Map<Long, long[]> contadores = new HashMap<>();
+        for (Object[] fila : ventaProductoAcumuladaRepository.findContadoresPorPeriodo(
+                empresaId, periodoEfectivo, periodoEfectivo.clavePara(fechaEfectiva))) {
+            contadores.put((Long) fila[0], new long[] { (Long) fila[1], (Long) fila[2] });
+        }
+        return contadores;
+    }
+
+    /**
+     * Selecciona los K mejores según el orden dado en O(N log K).
+     * El comparador define qué elemento es "peor" (queda en la raíz del heap).
+     */
+    private List<Map.Entry<Long, long[]>> seleccionarK(List<Map.Entry<Long, long[]>> candidatos, int limite,
+                                                       Comparator<Map.Entry<Long, long[]>> orden) {
+        if (limite <= 0 || candidatos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Map.Entry<Long, long[]>> heap = new PriorityQueue<>(limite + 1, orden);
+        for (Map.Entry<Long, long[]> candidato : candidatos) {
+            heap.offer(candidato);
+            if (heap.size() > limite) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, long[]>> seleccion = new ArrayList<>(heap);
+        seleccion.sort(orden.reversed());
+        return seleccion;
+    }
+
+    /**
+     * Arma la respuesta (mismo formato que usaba PedidoService) cargando solo los K productos elegidos
+     */
+    private List<Map<String, Object>> construirResultado(List<Map.Entry<Long, long[]>> seleccion) {
+        if (seleccion.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Producto> productos = productoRepository.findAllById(
+                seleccion.stream().map(Map.Entry::getKey).collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (Map.Entry<Long, long[]> entrada : seleccion) {
+            Producto producto = productos.get(entrada.getKey());
+            if (producto == null) {
+                continue;
+            }
+            long[] unidades = entrada.getValue();
+            Map<String, Object> productoData = new HashMap<>();
+            productoData.put("id", producto.getId());
+            productoData.put("nombre", producto.getNombre());
+            productoData.put("precio", producto.getPrecio());
+            productoData.put("stock", producto.getStock());
+            productoData.put("imagenUrl", producto.getImagenPrincipal());
+            productoData.put("ventasPedidos", (int) unidades[0]);
+            productoData.put("ventasRapidas", (int) unidades[1]);
+            productoData.put("totalVentas", (int) total(unidades));
+            resultado.add(productoData);
+        }
+        return resultado;
+    }
+
+    private static long total(long[] unidades) {
+        return unidades[0] + unidades[1];
+    }
+
+    private static LocalDate aLocalDate(Object valor) {
+        if (valor instanceof LocalDate) {
+            return (LocalDate) valor;
+        }
+        if (valor instanceof java.sql.Date) {
+            return ((java.sql.Date) valor).toLocalDate();
+        }
+        if (valor instanceof java.util.Date) {
+            return new java.sql.Date(((java.util.Date) valor).getTime()).toLocalDate();
+        }
+        return valor != null ? LocalDate.parse(valor.toString().substring(0, 10)) : null;
+    }
+}
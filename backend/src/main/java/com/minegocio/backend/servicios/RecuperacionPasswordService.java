@@ -6,6 +6,7 @@ import com.minegocio.backend.entidades.TokenRecuperacion;
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.TokenRecuperacionRepository;
 import com.minegocio.backend.repositorios.UsuarioRepository;
+import com.minegocio.backend.seguridad.CachePrincipalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -30,6 +31,9 @@ public class RecuperacionPasswordService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CachePrincipalService cachePrincipalService;
+
     /**
      * Solicita la recuperación de contraseña
      */
@@ -117,6 +121,7 @@ public class RecuperacionPasswordService {
         String nuevaPasswordHash = passwordEncoder.encode(request.getNuevaPassword());
         usuario.setPassword(nuevaPasswordHash);
         usuarioRepository.save(usuario);
+        cachePrincipalService.invalidarUsuario(usuario.getId(), usuario.getEmail());
 
         // Marcar el token como usado
         tokenRepository.marcarComoUsado(request.getToken());
@@ -6,24 +6,24 @@ import com.minegocio.backend.entidades.DetalleRemitoIngreso;
 import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Producto;
 import com.minegocio.backend.entidades.RemitoIngreso;
+import com.minegocio.backend.entidades.StockDiarioProducto;
 import com.minegocio.backend.entidades.Usuario;
 import com.minegocio.backend.repositorios.DetalleRemitoIngresoRepository;
 import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.RemitoIngresoRepository;
 import com.minegocio.backend.repositorios.UsuarioRepository;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,6 +31,10 @@ import java.util.stream.Collectors;
 
 @Service
 public class RemitoIngresoService {
+
+    // Tiempos de las exportaciones Excel (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
     
     @Autowired
     private RemitoIngresoRepository remitoIngresoRepository;
@@ -53,7 +57,11 @@ public class RemitoIngresoService {
     @Autowired
     private NotificacionService notificacionService;
     
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
+    
     // Obtener todos los remitos de una empresa
+    @Transactional(readOnly = true)
     public List<RemitoIngresoDTO> obtenerRemitosPorEmpresa(Long empresaId) {
         System.out.println("=== DEBUG RemitoIngresoService.obtenerRemitosPorEmpresa ===");
         System.out.println("Buscando remitos para empresa ID: " + empresaId);
@@ -74,6 +82,7 @@ public class RemitoIngresoService {
     }
     
     // Obtener un remito por ID
+    @Transactional(readOnly = true)
     public Optional<RemitoIngresoDTO> obtenerRemitoPorId(Long id, Long empresaId) {
         Optional<RemitoIngreso> remito = remitoIngresoRepository.findById(id);
         if (remito.isPresent() && remito.get().getEmpresa().getId().equals(empresaId)) {
@@ -220,6 +229,9 @@ public class RemitoIngresoService {
                         System.out.println("📥 INGRESO - Cantidad a sumar: " + detalleDTO.getCantidad());
                         System.out.println("📥 INGRESO - Nuevo stock calculado: " + nuevoStock);
                         
+                        libroStockDiarioService.registrar(remitoDTO.getEmpresaId(), productoActualizado, fechaRemito,
+                            StockDiarioProducto.Concepto.INGRESO, detalleDTO.getCantidad());
+                        
                         // Usar el sistema de sincronización para distribuir el stock según el sector asignado
                         productoActualizado.setStock(nuevoStock);
                         productoRepository.save(productoActualizado);
@@ -273,7 +285,8 @@ public class RemitoIngresoService {
             e.printStackTrace();
         }
         
-        return convertirADTO(remito);
+        // Los detalles se guardaron aparte: la colección del remito no los tiene
+        return convertirADTO(remito, detalleRemitoIngresoRepository.findByRemitoIngresoIdOrderByFechaCreacionAsc(remito.getId()));
     }
     
     // Eliminar un remito
@@ -291,6 +304,9 @@ public class RemitoIngresoService {
                 if (detalle.getProducto() != null) {
                     Producto producto = detalle.getProducto();
                     
+                    libroStockDiarioService.registrar(empresaId, producto, remito.get().getFechaRemito(),
+                        StockDiarioProducto.Concepto.INGRESO, -detalle.getCantidad());
+                    
                     // Verificar si el producto era nuevo (creado en este remito)
                     // Un producto es nuevo si su stock es igual a la cantidad del detalle
                     // y fue creado recientemente (mismo día o muy cercano)
@@ -367,6 +383,7 @@ public class RemitoIngresoService {
     }
     
     // Buscar remitos por fecha
+    @Transactional(readOnly = true)
     public List<RemitoIngresoDTO> buscarPorFecha(LocalDateTime fecha, Long empresaId) {
         List<RemitoIngreso> remitos = remitoIngresoRepository.findByFechaRemitoAndEmpresaId(fecha, empresaId);
         return remitos.stream()
@@ -375,6 +392,7 @@ public class RemitoIngresoService {
     }
     
     // Buscar remitos por rango de fechas
+    @Transactional(readOnly = true)
     public List<RemitoIngresoDTO> buscarPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin, Long empresaId) {
         List<RemitoIngreso> remitos = remitoIngresoRepository.findByRangoFechasAndEmpresaId(fechaInicio, fechaFin, empresaId);
         return remitos.stream()
@@ -383,6 +401,7 @@ public class RemitoIngresoService {
     }
     
     // Buscar remitos por texto
+    @Transactional(readOnly = true)
     public List<RemitoIngresoDTO> buscarPorTexto(String busqueda, Long empresaId) {
         List<RemitoIngreso> remitos = remitoIngresoRepository.findByBusquedaAndEmpresaId(busqueda, empresaId);
         return remitos.stream()
@@ -391,7 +410,7 @@ public class RemitoIngresoService {
     }
     
     // Exportar remito a Excel
-    public byte[] exportarRemitoAExcel(Long remitoId, Long empresaId) throws IOException {
+    public LibroExcelStreaming exportarRemitoAExcel(Long remitoId, Long empresaId) {
         Optional<RemitoIngreso> remitoOpt = remitoIngresoRepository.findById(remitoId);
         if (!remitoOpt.isPresent() || !remitoOpt.get().getEmpresa().getId().equals(empresaId)) {
             throw new RuntimeException("Remito no encontrado");
@@ -400,35 +419,42 @@ public class RemitoIngresoService {
         RemitoIngreso remito = remitoOpt.get();
         List<DetalleRemitoIngreso> detalles = detalleRemitoIngresoRepository.findByRemitoIngresoIdOrderByFechaCreacionAsc(remitoId);
         
-        try (Workbook workbook = new XSSFWorkbook()) {
+        LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("remito_ingreso", empresaId));
+        try {
+            Workbook workbook = libro.getLibro();
             Sheet sheet = workbook.createSheet("Remito de Ingreso");
             
             // Estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setColor(IndexedColors.WHITE.getIndex());
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
+            Font headerFont = libro.fuente("headerFont", f -> {
+                f.setBold(true);
+                f.setColor(IndexedColors.WHITE.getIndex());
+            });
+            CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                e.setFont(headerFont);
+                e.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setAlignment(HorizontalAlignment.CENTER);
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
             
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
-            titleStyle.setAlignment(HorizontalAlignment.CENTER);
+            Font titleFont = libro.fuente("titleFont", f -> {
+                f.setBold(true);
+                f.setFontHeightInPoints((short) 14);
+            });
+            CellStyle titleStyle = libro.estilo("titleStyle", e -> {
+                e.setFont(titleFont);
+                e.setAlignment(HorizontalAlignment.CENTER);
+            });
             
-            CellStyle borderStyle = workbook.createCellStyle();
-            borderStyle.setBorderTop(BorderStyle.THIN);
-            borderStyle.setBorderBottom(BorderStyle.THIN);
-            borderStyle.setBorderLeft(BorderStyle.THIN);
-            borderStyle.setBorderRight(BorderStyle.THIN);
+            CellStyle borderStyle = libro.estilo("borderStyle", e -> {
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
             
             // Título
             Row titleRow = sheet.createRow(0);
@@ -497,16 +523,21 @@ public class RemitoIngresoService {
             sheet.setColumnWidth(2, 15000); // Descripción
             sheet.setColumnWidth(3, 3000);  // Cantidad
             sheet.setColumnWidth(4, 8000);  // Observaciones
-            
-            // Generar el archivo
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+
+            return libro;
+        } catch (RuntimeException e) {
+            libro.descartar();
+            throw e;
         }
     }
     
     // Métodos de conversión
     private RemitoIngresoDTO convertirADTO(RemitoIngreso remito) {
+        // En listados, los detalles de todos los remitos se cargan de a lotes (default_batch_fetch_size)
+        return convertirADTO(remito, remito.getDetalles() != null ? remito.getDetalles() : List.of());
+    }
+    
+    private RemitoIngresoDTO convertirADTO(RemitoIngreso remito, List<DetalleRemitoIngreso> detalles) {
         System.out.println("=== DEBUG convertirADTO ===");
         System.out.println("Convirtiendo remito ID: " + remito.getId());
         System.out.println("Número remito: " + remito.getNumeroRemito());
@@ -514,9 +545,8 @@ public class RemitoIngresoService {
         System.out.println("Fecha remito (toString): " + remito.getFechaRemito().toString());
         System.out.println("Fecha remito (ISO): " + remito.getFechaRemito().format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         
-        List<DetalleRemitoIngresoDTO> detallesDTO = detalleRemitoIngresoRepository
-                .findByRemitoIngresoIdOrderByFechaCreacionAsc(remito.getId())
-                .stream()
+        List<DetalleRemitoIngresoDTO> detallesDTO = detalles.stream()
+                .sorted(Comparator.comparing(DetalleRemitoIngreso::getFechaCreacion, Comparator.nullsLast(Comparator.naturalOrder())))
                 .map(this::convertirDetalleADTO)
                 .collect(Collectors.toList());
         
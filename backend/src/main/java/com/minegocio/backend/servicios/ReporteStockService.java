@@ -2,13 +2,11 @@ package com.minegocio.backend.servicios;
 
 import com.minegocio.backend.entidades.Producto;
 import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -17,22 +15,28 @@ import java.util.List;
 @Service
 public class ReporteStockService {
 
+    // Tiempos de las exportaciones Excel (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
+
     @Autowired
     private ProductoRepository productoRepository;
 
     /**
-     * Genera un reporte de stock en Excel para una empresa
+     * Genera un reporte de stock en Excel para una empresa.
+     * El libro se devuelve armado y sin escribir; quien lo recibe debe enviarlo o cerrarlo.
      */
-    public byte[] generarReporteStock(Long empresaId) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Reporte de Stock");
+    public LibroExcelStreaming generarReporteStock(Long empresaId) {
+        LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("reporte_stock", empresaId));
+        try {
+            Sheet sheet = libro.crearHoja("Reporte de Stock");
 
             // Crear estilos
-            CellStyle headerStyle = crearEstiloEncabezado(workbook);
-            CellStyle titleStyle = crearEstiloTitulo(workbook);
-            CellStyle dateStyle = crearEstiloFecha(workbook);
-            CellStyle numberStyle = crearEstiloNumero(workbook);
-            CellStyle currencyStyle = crearEstiloMoneda(workbook);
+            CellStyle headerStyle = crearEstiloEncabezado(libro);
+            CellStyle titleStyle = crearEstiloTitulo(libro);
+            CellStyle dateStyle = crearEstiloFecha(libro);
+            CellStyle numberStyle = crearEstiloNumero(libro);
+            CellStyle currencyStyle = crearEstiloMoneda(libro);
 
                                     // Título del reporte
                         Row titleRow = sheet.createRow(0);
@@ -104,7 +108,7 @@ public class ReporteStockService {
                         }
 
             // Agregar resumen al final
-            agregarResumen(sheet, productos, rowNum + 2);
+            agregarResumen(libro, sheet, productos, rowNum + 2);
 
             // Ajustar ancho de columnas (sin autoSize para evitar problemas de fuentes)
             sheet.setColumnWidth(0, 30 * 256);  // Nombre
@@ -119,81 +123,77 @@ public class ReporteStockService {
             sheet.setColumnWidth(9, 20 * 256);  // Código Personalizado
             sheet.setColumnWidth(10, 15 * 256); // Estado
 
-            // Convertir a bytes
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+            return libro;
+        } catch (RuntimeException e) {
+            libro.descartar();
+            throw e;
         }
     }
 
     /**
      * Crea el estilo para los encabezados
      */
-    private CellStyle crearEstiloEncabezado(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setBold(true);
-        font.setColor(IndexedColors.WHITE.getIndex());
-        style.setFont(font);
-        style.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderBottom(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
-        return style;
+    private CellStyle crearEstiloEncabezado(LibroExcelStreaming libro) {
+        Font font = libro.fuente("encabezado", f -> {
+            f.setBold(true);
+            f.setColor(IndexedColors.WHITE.getIndex());
+        });
+        return libro.estilo("encabezado", style -> {
+            style.setFont(font);
+            style.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            style.setBorderTop(BorderStyle.THIN);
+            style.setBorderBottom(BorderStyle.THIN);
+            style.setBorderLeft(BorderStyle.THIN);
+            style.setBorderRight(BorderStyle.THIN);
+            style.setAlignment(HorizontalAlignment.CENTER);
+            style.setVerticalAlignment(VerticalAlignment.CENTER);
+        });
     }
 
     /**
      * Crea el estilo para el título
      */
-    private CellStyle crearEstiloTitulo(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setBold(true);
-        font.setFontHeightInPoints((short) 16);
-        style.setFont(font);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        return style;
+    private CellStyle crearEstiloTitulo(LibroExcelStreaming libro) {
+        Font font = libro.fuente("titulo", f -> {
+            f.setBold(true);
+            f.setFontHeightInPoints((short) 16);
+        });
+        return libro.estilo("titulo", style -> {
+            style.setFont(font);
+            style.setAlignment(HorizontalAlignment.CENTER);
+        });
     }
 
     /**
      * Crea el estilo para la fecha
      */
-    private CellStyle crearEstiloFecha(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setItalic(true);
-        style.setFont(font);
-        return style;
+    private CellStyle crearEstiloFecha(LibroExcelStreaming libro) {
+        Font font = libro.fuente("fecha", f -> f.setItalic(true));
+        return libro.estilo("fecha", style -> style.setFont(font));
     }
 
     /**
      * Crea el estilo para números
      */
-    private CellStyle crearEstiloNumero(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        style.setAlignment(HorizontalAlignment.CENTER);
-        return style;
+    private CellStyle crearEstiloNumero(LibroExcelStreaming libro) {
+        return libro.estilo("numero", style -> style.setAlignment(HorizontalAlignment.CENTER));
     }
 
     /**
      * Crea el estilo para moneda
      */
-    private CellStyle crearEstiloMoneda(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(workbook.createDataFormat().getFormat("$#,##0.00"));
-        style.setAlignment(HorizontalAlignment.RIGHT);
-        return style;
+    private CellStyle crearEstiloMoneda(LibroExcelStreaming libro) {
+        return libro.estilo("moneda", style -> {
+            style.setDataFormat(libro.formato("$#,##0.00"));
+            style.setAlignment(HorizontalAlignment.RIGHT);
+        });
     }
 
     /**
      * Agrega un resumen al final del reporte
      */
-    private void agregarResumen(Sheet sheet, List<Producto> productos, int startRow) {
+    private void agregarResumen(LibroExcelStreaming libro, Sheet sheet, List<Producto> productos, int startRow) {
         // Línea en blanco
         sheet.createRow(startRow);
         
@@ -201,7 +201,7 @@ public class ReporteStockService {
         Row summaryTitleRow = sheet.createRow(startRow + 1);
         Cell summaryTitleCell = summaryTitleRow.createCell(0);
         summaryTitleCell.setCellValue("RESUMEN DEL INVENTARIO");
-        summaryTitleCell.setCellStyle(crearEstiloTitulo(sheet.getWorkbook()));
+        summaryTitleCell.setCellStyle(crearEstiloTitulo(libro));
         sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(startRow + 1, startRow + 1, 0, 5));
 
         // Estadísticas
@@ -240,7 +240,7 @@ public class ReporteStockService {
         row5.createCell(0).setCellValue("Valor total del inventario:");
         Cell valorCell = row5.createCell(1);
         valorCell.setCellValue(valorTotal.doubleValue());
-        valorCell.setCellStyle(crearEstiloMoneda(sheet.getWorkbook()));
+        valorCell.setCellStyle(crearEstiloMoneda(libro));
 
         Row row6 = sheet.createRow(startRow + 8);
         row6.createCell(0).setCellValue("Productos con stock bajo:");
@@ -0,0 +1,327 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.DetallePedido;
+import com.minegocio.backend.entidades.DetalleVentaRapida;
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.IndiceEmpresa;
+import com.minegocio.backend.entidades.Pedido;
+import com.minegocio.backend.entidades.ResumenVentasDiario;
+import com.minegocio.backend.entidades.ResumenVentasDiario.Canal;
+import com.minegocio.backend.entidades.VentaRapida;
+import com.minegocio.backend.repositorios.IndiceEmpresaRepository;
+import com.minegocio.backend.repositorios.PedidoRepository;
+import com.minegocio.backend.repositorios.ResumenVentasDiarioRepository;
+import com.minegocio.backend.repositorios.VentaRapidaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio del resumen diario de ventas.
+ *
+ * Mantiene por empresa, día, canal (pedido o venta rápida) y estado la cantidad de
+ * documentos, el total facturado, las unidades y los renglones de detalle. Se actualiza al
+ * crear pedidos y ventas rápidas y al cambiar el estado de un pedido, de modo que las
+ * estadísticas por día, mes o año suman a lo sumo 366 filas por estado. Los rangos que no
+ * empiezan y terminan en días completos se resuelven con agregados directos en la base.
+ *
+ * Al arrancar se construye desde el historial el resumen de las empresas sin la marca
+ * RESUMEN_VENTAS_DIARIO en indices_empresa. La reconstrucción toma el candado exclusivo de
+ * la empresa y los incrementos el compartido, así una venta confirmada mientras se
+ * reconstruye no queda fuera ni se cuenta dos veces.
+ */
+@Service
+public class ResumenVentasDiarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenVentasDiarioService.class);
+
+    // Un rango termina en día completo si su hora final es 23:59:59 o posterior
+    private static final LocalTime FIN_DEL_DIA = LocalTime.of(23, 59, 59);
+    private static final String CONTADOR = "resumen-ventas";
+
+    @Autowired
+    private ResumenVentasDiarioRepository resumenVentasDiarioRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private VentaRapidaRepository ventaRapidaRepository;
+
+    @Autowired
+    private IndiceEmpresaRepository indiceEmpresaRepository;
+
+    @Autowired
+    private ContadoresSql contadoresSql;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Totales acumulados de un estado (o de las ventas rápidas)
+     */
+    public static class Totales {
+        private long cantidad;
+        private BigDecimal total = BigDecimal.ZERO;
+        private long unidades;
+        private long lineas;
+
+        void sumar(long cantidad, BigDecimal total, long unidades, long lineas) {
+            this.cantidad += cantidad;
+            this.total = this.total.add(total != null ? total : BigDecimal.ZERO);
+            this.unidades += unidades;
+            this.lineas += lineas;
+        }
+
+        public long getCantidad() { return cantidad; }
+        public BigDecimal getTotal() { return total; }
+        public long getUnidades() { return unidades; }
+        public long getLineas() { return lineas; }
+    }
+
+    /**
+     * Suma al resumen un pedido recién creado
+     */
+    @Transactional
+    public void registrarPedido(Pedido pedido) {
+        contadoresSql.bloquearCompartido(CONTADOR, pedido.getEmpresa().getId());
+        acumularPedido(pedido, pedido.getEstado(), 1);
+    }
+
+    /**
+     * Mueve un pedido del estado anterior a su estado actual, en el día en que fue creado
+     */
+    @Transactional
+    public void cambiarEstadoPedido(Pedido pedido, Pedido.EstadoPedido estadoAnterior) {
+        if (estadoAnterior == pedido.getEstado()) {
+            return;
+        }
+        contadoresSql.bloquearCompartido(CONTADOR, pedido.getEmpresa().getId());
+        acumularPedido(pedido, estadoAnterior, -1);
+        acumularPedido(pedido, pedido.getEstado(), 1);
+    }
+
+    /**
+     * Suma al resumen una venta rápida
+     */
+    @Transactional
+    public void registrarVentaRapida(VentaRapida venta) {
+        long unidades = 0;
+        long lineas = 0;
+        if (venta.getDetalles() != null) {
+            for (DetalleVentaRapida detalle : venta.getDetalles()) {
+                unidades += detalle.getCantidad();
+                lineas++;
+            }
+        }
+        LocalDate fecha = venta.getFechaVenta() != null ? venta.getFechaVenta().toLocalDate() : LocalDate.now();
+        contadoresSql.bloquearCompartido(CONTADOR, venta.getEmpresa().getId());
+        acumular(venta.getEmpresa().getId(), fecha, Canal.VENTA_RAPIDA, ResumenVentasDiario.ESTADO_VENTA_RAPIDA,
+                1, venta.getTotal(), unidades, lineas);
+    }
+
+    private void acumularPedido(Pedido pedido, Pedido.EstadoPedido estado, int signo) {
+        long unidades = 0;
+        long lineas = 0;
+        if (pedido.getDetalles() != null) {
+            for (DetallePedido detalle : pedido.getDetalles()) {
+                unidades += detalle.getCantidad();
+                lineas++;
+            }
+        }
+        BigDecimal total = pedido.getTotal() != null ? pedido.getTotal() : BigDecimal.ZERO;
+        LocalDate fecha = pedido.getFechaCreacion() != null ? pedido.getFechaCreacion().toLocalDate() : LocalDate.now();
+        acumular(pedido.getEmpresa().getId(), fecha, Canal.PEDIDO, estado.name(),
+                signo, signo > 0 ? total : total.negate(), signo * unidades, signo * lineas);
+    }
+
+    /**
+     * Suma los deltas a la fila del día. Si no existe se da de alta en cero sin pisar a quien
+     * la cree en paralelo y se vuelve a sumar, de modo que el UPDATE serializa los incrementos.
+     */
+    private void acumular(Long empresaId, LocalDate fecha, Canal canal, String estado,
+                          long deltaCantidad, BigDecimal deltaTotal, long deltaUnidades, long deltaLineas) {
+        BigDecimal total = deltaTotal != null ? deltaTotal : BigDecimal.ZERO;
+        LocalDateTime ahora = LocalDateTime.now();
+        int actualizados = resumenVentasDiarioRepository.incrementar(
+                empresaId, fecha, canal, estado, deltaCantidad, total, deltaUnidades, deltaLineas, ahora);
+        if (actualizados == 0) {
+            contadoresSql.insertarSiFalta("resumen_ventas_diario", ContadoresSql.fila(
+                    "empresa_id", empresaId,
+                    "fecha", fecha,
+                    "canal", canal.name(),
+                    "estado", estado,
+                    "cantidad", 0L,
+                    "total", BigDecimal.ZERO,
+                    "unidades", 0L,
+                    "lineas", 0L,
+                    "fecha_actualizacion", ahora),
+                    "empresa_id", "fecha", "canal", "estado");
+            resumenVentasDiarioRepository.incrementar(
+                    empresaId, fecha, canal, estado, deltaCantidad, total, deltaUnidades, deltaLineas, ahora);
+        }
+    }
+
+    /**
+     * Reconstruye el resumen de una empresa desde el historial con dos agregaciones SQL
+     * y marca la empresa como indexada
+     */
+    @Transactional
+    public int reconstruir(Long empresaId) {
+        logger.debug("🔄 [RESUMEN VENTAS] Reconstruyendo resumen diario para empresa {}", empresaId);
+
+        // Espera a que confirmen las ventas en curso; las nuevas esperan a esta transacción
+        contadoresSql.bloquearExclusivo(CONTADOR, empresaId);
+
+        Map<String, ResumenVentasDiario> resumenes = new LinkedHashMap<>();
+        for (Object[] fila : resumenVentasDiarioRepository.agregarPedidosPorDia(empresaId)) {
+            LocalDate dia = aLocalDate(fila[0]);
+            if (dia == null) {
+                continue;
+            }
+            ResumenVentasDiario resumen = new ResumenVentasDiario(empresaId, dia, Canal.PEDIDO, fila[1].toString());
+            completar(resumen, fila[2], fila[3], fila[4], fila[5]);
+            resumenes.put(dia + "|" + Canal.PEDIDO + "|" + resumen.getEstado(), resumen);
+        }
+        for (Object[] fila : resumenVentasDiarioRepository.agregarVentasRapidasPorDia(empresaId)) {
+            LocalDate dia = aLocalDate(fila[0]);
+            if (dia == null) {
+                continue;
+            }
+            ResumenVentasDiario resumen = new ResumenVentasDiario(
+                    empresaId, dia, Canal.VENTA_RAPIDA, ResumenVentasDiario.ESTADO_VENTA_RAPIDA);
+            completar(resumen, fila[1], fila[2], fila[3], fila[4]);
+            resumenes.put(dia + "|" + Canal.VENTA_RAPIDA, resumen);
+        }
+
+        resumenVentasDiarioRepository.eliminarPorEmpresa(empresaId);
+        resumenVentasDiarioRepository.saveAll(resumenes.values());
+        contadoresSql.marcarIndice(empresaId, IndiceEmpresa.TipoIndice.RESUMEN_VENTAS_DIARIO);
+
+        logger.debug("✅ [RESUMEN VENTAS] Filas reconstruidas: {}", resumenes.size());
+        return resumenes.size();
+    }
+
+    /**
+     * Carga inicial: construye el resumen de las empresas con ventas que todavía no tienen la marca
+     * (incluye las ventas anteriores al resumen aunque la empresa ya tenga filas de incrementos)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarEmpresasSinResumen() {
+        try {
+            List<Number> empresas = resumenVentasDiarioRepository.findEmpresasSinResumen();
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            for (Number empresaId : empresas) {
+                transaccion.executeWithoutResult(estado -> {
+                    // Otra réplica que arrancó a la vez pudo reconstruirla mientras se esperaba el candado
+                    contadoresSql.bloquearExclusivo(CONTADOR, empresaId.longValue());
+                    if (!indiceEmpresaRepository.existsByEmpresaIdAndTipo(
+                            empresaId.longValue(), IndiceEmpresa.TipoIndice.RESUMEN_VENTAS_DIARIO)) {
+                        reconstruir(empresaId.longValue());
+                    }
+                });
+            }
+            if (!empresas.isEmpty()) {
+                logger.info("📊 [RESUMEN VENTAS] Resumen construido para {} empresas", empresas.size());
+            }
+        } catch (Exception e) {
+            logger.error("❌ [RESUMEN VENTAS] Error en la carga inicial del resumen: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Totales de pedidos por estado (nombre de Pedido.EstadoPedido). Sin fechas abarca todo el historial.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Totales> resumirPedidos(Empresa empresa, LocalDateTime inicio, LocalDateTime fin) {
+        Map<String, Totales> porEstado = new LinkedHashMap<>();
+        if (inicio == null || fin == null) {
+            acumularFilas(porEstado, resumenVentasDiarioRepository.resumirHistoricoPorEstado(empresa.getId(), Canal.PEDIDO));
+        } else if (cubreDiasCompletos(inicio, fin)) {
+            acumularFilas(porEstado, resumenVentasDiarioRepository.resumirPorEstado(
+                    empresa.getId(), Canal.PEDIDO, inicio.toLocalDate(), fin.toLocalDate()));
+        } else {
+            // Rango con horas parciales: agregados directos sobre pedidos
+            for (Object[] fila : pedidoRepository.resumirPorEstadoEnRango(empresa, inicio, fin)) {
+                porEstado.computeIfAbsent(fila[0].toString(), k -> new Totales())
+                        .sumar(((Number) fila[1]).longValue(), (BigDecimal) fila[2], 0, 0);
+            }
+            for (Object[] fila : pedidoRepository.sumarUnidadesPorEstadoEnRango(empresa, inicio, fin)) {
+                porEstado.computeIfAbsent(fila[0].toString(), k -> new Totales())
+                        .sumar(0, BigDecimal.ZERO, ((Number) fila[1]).longValue(), ((Number) fila[2]).longValue());
+            }
+        }
+        return porEstado;
+    }
+
+    /**
+     * Totales de ventas rápidas. Sin fechas abarca todo el historial.
+     */
+    @Transactional(readOnly = true)
+    public Totales resumirVentasRapidas(Long empresaId, LocalDateTime inicio, LocalDateTime fin) {
+        Map<String, Totales> porEstado = new LinkedHashMap<>();
+        if (inicio == null || fin == null) {
+            acumularFilas(porEstado, resumenVentasDiarioRepository.resumirHistoricoPorEstado(empresaId, Canal.VENTA_RAPIDA));
+        } else if (cubreDiasCompletos(inicio, fin)) {
+            acumularFilas(porEstado, resumenVentasDiarioRepository.resumirPorEstado(
+                    empresaId, Canal.VENTA_RAPIDA, inicio.toLocalDate(), fin.toLocalDate()));
+        } else {
+            // Rango con horas parciales: agregados directos sobre ventas rápidas
+            Totales totales = new Totales();
+            for (Object[] fila : ventaRapidaRepository.resumirEnRango(empresaId, inicio, fin)) {
+                totales.sumar(((Number) fila[0]).longValue(), (BigDecimal) fila[1], 0, 0);
+            }
+            for (Object[] fila : ventaRapidaRepository.sumarUnidadesEnRango(empresaId, inicio, fin)) {
+                totales.sumar(0, BigDecimal.ZERO, ((Number) fila[0]).longValue(), ((Number) fila[1]).longValue());
+            }
+            return totales;
+        }
+        return porEstado.getOrDefault(ResumenVentasDiario.ESTADO_VENTA_RAPIDA, new Totales());
+    }
+
+    private void acumularFilas(Map<String, Totales> porEstado, List<Object[]> filas) {
+        for (Object[] fila : filas) {
+            porEstado.computeIfAbsent((String) fila[0], k -> new Totales()).sumar(
+                    ((Number) fila[1]).longValue(), (BigDecimal) fila[2],
+                    ((Number) fila[3]).longValue(), ((Number) fila[4]).longValue());
+        }
+    }
+
+    private static boolean cubreDiasCompletos(LocalDateTime inicio, LocalDateTime fin) {
+        return inicio.toLocalTime().equals(LocalTime.MIDNIGHT) && !fin.toLocalTime().isBefore(FIN_DEL_DIA);
+    }
+
+    private static void completar(ResumenVentasDiario resumen, Object cantidad, Object total, Object unidades, Object lineas) {
+        resumen.setCantidad(cantidad != null ? ((Number) cantidad).longValue() : 0L);
+        resumen.setTotal(total != null ? new BigDecimal(total.toString()) : BigDecimal.ZERO);
+        resumen.setUnidades(unidades != null ? ((Number) unidades).longValue() : 0L);
+        resumen.setLineas(lineas != null ? ((Number) lineas).longValue() : 0L);
+    }
+
+    private static LocalDate aLocalDate(Object valor) {
+        if (valor instanceof LocalDate) {
+            return (LocalDate) valor;
+        }
+        if (valor instanceof java.sql.Date) {
+            return ((java.sql.Date) valor).toLocalDate();
+        }
+        if (valor instanceof java.util.Date) {
+            return new java.sql.Date(((java.util.Date) valor).getTime()).toLocalDate();
+        }
+        return valor != null ? LocalDate.parse(valor.toString().substring(0, 10)) : null;
+    }
+}
@@ -8,14 +8,12 @@ import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.RoturaPerdidaRepository;
 import com.minegocio.backend.repositorios.UsuarioRepository;
 import com.minegocio.backend.servicios.StockSincronizacionService;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -29,6 +27,10 @@ import java.util.stream.Collectors;
 @Transactional
 public class RoturaPerdidaService {
 
+    // Tiempos de las exportaciones Excel (negocio.operacion)
+    @Autowired
+    private MetricasOperacionesService metricasOperacionesService;
+
     @Autowired
     private RoturaPerdidaRepository roturaPerdidaRepository;
 
@@ -47,6 +49,9 @@ public class RoturaPerdidaService {
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private LibroStockDiarioService libroStockDiarioService;
+
     /**
      * Crear una nueva rotura o pérdida
      */
@@ -114,6 +119,9 @@ public class RoturaPerdidaService {
                     throw new RuntimeException("La cantidad debe ser mayor a 0");
                 }
                 
+                libroStockDiarioService.registrar(empresaId, producto, fechaPlanilla,
+                        StockDiarioProducto.Concepto.ROTURA, dto.getCantidad());
+                
                 // Descontar del stock usando la estrategia híbrida inteligente directamente
                 stockSincronizacionService.descontarStockInteligente(
                     producto.getEmpresa().getId(),
@@ -232,6 +240,12 @@ public class RoturaPerdidaService {
         } else {
             fechaPlanilla = LocalDateTime.now();
         }
+
+        // El libro diario sigue al documento: se revierte el registro anterior y se aplica el nuevo
+        Long empresaId = roturaPerdida.getEmpresa().getId();
+        libroStockDiarioService.registrar(empresaId, roturaPerdida.getProducto(), roturaPerdida.getFecha(),
+                StockDiarioProducto.Concepto.ROTURA, -roturaPerdida.getCantidad());
+
         roturaPerdida.setFecha(fechaPlanilla);
         roturaPerdida.setCantidad(dto.getCantidad());
         roturaPerdida.setObservaciones(dto.getObservaciones());
@@ -255,6 +269,9 @@ public class RoturaPerdidaService {
             roturaPerdida.setCodigoPersonalizado(dto.getCodigoPersonalizado());
         }
 
+        libroStockDiarioService.registrar(empresaId, roturaPerdida.getProducto(), roturaPerdida.getFecha(),
+                StockDiarioProducto.Concepto.ROTURA, roturaPerdida.getCantidad());
+
         return roturaPerdidaRepository.save(roturaPerdida);
     }
 
@@ -272,6 +289,9 @@ public class RoturaPerdidaService {
             Integer stockAnterior = producto.getStock();
             Integer nuevoStock = stockAnterior + roturaPerdida.getCantidad();
             
+            libroStockDiarioService.registrar(producto.getEmpresa().getId(), producto, roturaPerdida.getFecha(),
+                    StockDiarioProducto.Concepto.ROTURA, -roturaPerdida.getCantidad());
+            
             // Usar la sincronización automática que actualiza tanto el producto como los sectores
             stockSincronizacionService.sincronizarStockConSectores(
                 producto.getEmpresa().getId(),
@@ -318,7 +338,7 @@ public class RoturaPerdidaService {
     /**
      * Exportar roturas y pérdidas a Excel
      */
-    public byte[] exportarRoturasPerdidasAExcel(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) throws IOException {
+    public LibroExcelStreaming exportarRoturasPerdidasAExcel(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin) {
         // Convertir LocalDate a LocalDateTime para la consulta
         LocalDateTime fechaInicioDateTime = fechaInicio.atStartOfDay();
         LocalDateTime fechaFinDateTime = fechaFin.atTime(23, 59, 59);
@@ -333,28 +353,33 @@ public class RoturaPerdidaService {
                 .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
 
         // Crear el workbook de Excel
-        try (Workbook workbook = new XSSFWorkbook()) {
+        LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("roturas_perdidas", empresaId));
+        try {
+            Workbook workbook = libro.getLibro();
             Sheet sheet = workbook.createSheet("Roturas y Pérdidas");
 
             // Crear estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setColor(IndexedColors.WHITE.getIndex());
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
+            Font headerFont = libro.fuente("headerFont", f -> {
+                f.setBold(true);
+                f.setColor(IndexedColors.WHITE.getIndex());
+            });
+            CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                e.setFont(headerFont);
+                e.setFillForegroundColor(IndexedColors.RED.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setAlignment(HorizontalAlignment.CENTER);
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
+
+            CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
 
             // Crear encabezado de información
             int rowNum = 0;
@@ -388,8 +413,7 @@ public class RoturaPerdidaService {
             cell3.setCellValue("Total de Productos Afectados:");
             Cell cell3Value = infoRow3.createCell(1);
             cell3Value.setCellValue(totalProductos);
-            CellStyle leftAlignStyle = workbook.createCellStyle();
-            leftAlignStyle.setAlignment(HorizontalAlignment.LEFT);
+            CellStyle leftAlignStyle = libro.estilo("leftAlignStyle", e -> e.setAlignment(HorizontalAlignment.LEFT));
             cell3Value.setCellStyle(leftAlignStyle);
             sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(rowNum-1, rowNum-1, 1, 4));
 
@@ -439,45 +463,50 @@ public class RoturaPerdidaService {
             sheet.setColumnWidth(4, 4000);  // Cantidad
             sheet.setColumnWidth(5, 12000); // Observaciones
 
-            // Convertir a bytes
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+            return libro;
+        } catch (RuntimeException e) {
+            libro.descartar();
+            throw e;
         }
     }
 
     /**
      * Exportar roturas y pérdidas del día actual a Excel
      */
-    public byte[] exportarRoturasPerdidasDelDiaAExcel(Long empresaId, LocalDate fecha) throws IOException {
+    public LibroExcelStreaming exportarRoturasPerdidasDelDiaAExcel(Long empresaId, LocalDate fecha) {
         List<RoturaPerdida> roturasPerdidas = roturaPerdidaRepository.findByEmpresaIdAndFechaOrderByFechaCreacionDesc(empresaId, fecha);
         
         Empresa empresa = empresaRepository.findById(empresaId)
                 .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
 
         // Crear el workbook de Excel
-        try (Workbook workbook = new XSSFWorkbook()) {
+        LibroExcelStreaming libro = new LibroExcelStreaming(metricasOperacionesService.exportacionExcel("roturas_perdidas_dia", empresaId));
+        try {
+            Workbook workbook = libro.getLibro();
             Sheet sheet = workbook.createSheet("Roturas y Pérdidas del Día");
 
             // Crear estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setColor(IndexedColors.WHITE.getIndex());
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
+            Font headerFont = libro.fuente("headerFont", f -> {
+                f.setBold(true);
+                f.setColor(IndexedColors.WHITE.getIndex());
+            });
+            CellStyle headerStyle = libro.estilo("headerStyle", e -> {
+                e.setFont(headerFont);
+                e.setFillForegroundColor(IndexedColors.RED.getIndex());
+                e.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+                e.setAlignment(HorizontalAlignment.CENTER);
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
+
+            CellStyle dataStyle = libro.estilo("dataStyle", e -> {
+                e.setBorderTop(BorderStyle.THIN);
+                e.setBorderBottom(BorderStyle.THIN);
+                e.setBorderLeft(BorderStyle.THIN);
+                e.setBorderRight(BorderStyle.THIN);
+            });
 
             // Crear encabezado de información
             int rowNum = 0;
@@ -510,8 +539,7 @@ public class RoturaPerdidaService {
             cell3.setCellValue("Total de Productos Afectados:");
             Cell cell3Value = infoRow3.createCell(1);
             cell3Value.setCellValue(totalProductos);
-            CellStyle leftAlignStyle = workbook.createCellStyle();
-            leftAlignStyle.setAlignment(HorizontalAlignment.LEFT);
+            CellStyle leftAlignStyle = libro.estilo("leftAlignStyle", e -> e.setAlignment(HorizontalAlignment.LEFT));
             cell3Value.setCellStyle(leftAlignStyle);
             sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(rowNum-1, rowNum-1, 1, 5));
 
@@ -561,10 +589,10 @@ public class RoturaPerdidaService {
             sheet.setColumnWidth(4, 4000);  // Cantidad
             sheet.setColumnWidth(5, 12000); // Observaciones
 
-            // Convertir a bytes
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+            return libro;
+        } catch (RuntimeException e) {
+            libro.descartar();
+            throw e;
         }
     }
 
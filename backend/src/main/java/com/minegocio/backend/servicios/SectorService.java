@@ -43,6 +43,9 @@ public class SectorService {
     
     @Autowired
     private HistorialMovimientoStockService historialMovimientoStockService;
+
+    @Autowired
+    private VistaStockService vistaStockService;
     
     /**
      * Crear un nuevo sector
@@ -98,6 +101,7 @@ public class SectorService {
         sector.setNombre(nombre);
         sector.setDescripcion(descripcion);
         sector.setUbicacion(ubicacion);
+        vistaStockService.actualizarNombreSector(sectorId, nombre);
         
         return sectorRepository.save(sector);
     }
@@ -344,131 +348,24 @@ public class SectorService {
     
     /**
      * Obtener stock general de la empresa
-     * Incluye productos con sector asignado y sin sector asignado
+     * Incluye productos con sector asignado y sin sector asignado.
+     * Se lee de la proyección vista_stock_sector (ver VistaStockService).
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> obtenerStockGeneral(Long empresaId) {
-        
-        Empresa empresa = empresaRepository.findById(empresaId)
-            .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
-        
-        List<Map<String, Object>> stockGeneral = new ArrayList<>();
-        
-        // Obtener productos con sector asignado (nueva estructura)
-        List<StockPorSector> stockPorSectores = stockPorSectorRepository.findByEmpresaId(empresaId);
-        
-        for (StockPorSector stock : stockPorSectores) {
-            // Solo mostrar productos con cantidad > 0
-            if (stock.getCantidad() == null || stock.getCantidad() <= 0) {
-                continue;
-            }
-            
-            Map<String, Object> item = new HashMap<>();
-            item.put("id", stock.getId()); // ID único para el frontend
-            // Forzar carga de imágenes lazy
-            List<String> imagenes = new ArrayList<>();
-            try {
-                if (stock.getProducto().getImagenes() != null) {
-                    imagenes.addAll(stock.getProducto().getImagenes());
-                }
-            } catch (Exception e) {
-                System.err.println("Error cargando imágenes para producto " + stock.getProducto().getId() + ": " + e.getMessage());
-            }
-            
-            item.put("producto", Map.of(
-                "id", stock.getProducto().getId(),
-                "nombre", stock.getProducto().getNombre(),
-                "codigoPersonalizado", stock.getProducto().getCodigoPersonalizado() != null ? stock.getProducto().getCodigoPersonalizado() : "",
-                "unidadMedida", stock.getProducto().getUnidad() != null ? stock.getProducto().getUnidad() : "",
-                "imagenes", imagenes
-            ));
-            item.put("sector", Map.of(
-                "id", stock.getSector().getId(),
-                "nombre", stock.getSector().getNombre()
-            ));
-            item.put("cantidad", stock.getCantidad());
-            item.put("fechaActualizacion", stock.getFechaActualizacion() != null ? stock.getFechaActualizacion().toString() : new Date().toString());
-            item.put("tipo", "con_sector");
-            stockGeneral.add(item);
-        }
-        
-        // Obtener TODOS los productos de la empresa
-        List<Producto> todosLosProductos = productoRepository.findByEmpresaId(empresaId);
-        
-        // 🔄 NUEVA LÓGICA: Calcular stock sin sectorizar para cada producto
-        // Un producto puede tener stock tanto en sectores como sin sectorizar
-        Map<Long, Integer> stockEnSectoresPorProducto = stockPorSectores.stream()
-            .collect(Collectors.groupingBy(
-                stock -> stock.getProducto().getId(),
-                Collectors.summingInt(stock -> stock.getCantidad() != null ? stock.getCantidad() : 0)
-            ));
-        
-        
-        // 🔄 LÓGICA CORREGIDA: Agregar productos que tienen stock sin sectorizar
-        // (Un producto puede aparecer tanto en sectores como sin sectorizar)
-        int productosProcesados = 0;
-        int productosActivosConStock = 0;
-        int productosSinSector = 0;
-        
-        for (Producto producto : todosLosProductos) {
-            try {
-                productosProcesados++;
-                
-                // Solo procesar productos activos con stock > 0
-                if (!producto.getActivo() || producto.getStock() == null || producto.getStock() <= 0) {
-                    continue;
-                }
-                
-                productosActivosConStock++;
-                
-                // ✅ NUEVA LÓGICA: Calcular stock sin sectorizar para este producto
-                Integer stockEnSectores = stockEnSectoresPorProducto.getOrDefault(producto.getId(), 0);
-                Integer stockSinSectorizar = Math.max(0, producto.getStock() - stockEnSectores);
-                
-                
-                // Mostrar productos que tienen stock sin sectorizar > 0
-                // O que tienen stock 0 (para mostrar productos que quedaron en cero después de cargas de planilla)
-                boolean tieneStockSinSectorizar = stockSinSectorizar > 0;
-                boolean tieneStockCero = (producto.getStock() == null || producto.getStock() <= 0);
-                
-                if (tieneStockSinSectorizar || tieneStockCero) {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("id", producto.getId() + "_sin_sector"); // ID único para el frontend
-                    // Forzar carga de imágenes lazy
-                    List<String> imagenes = new ArrayList<>();
-                    try {
-                        if (producto.getImagenes() != null) {
-                            imagenes.addAll(producto.getImagenes());
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error cargando imágenes para producto " + producto.getId() + ": " + e.getMessage());
-                    }
-                    
-                    item.put("producto", Map.of(
-                        "id", producto.getId(),
-                        "nombre", producto.getNombre(),
-                        "codigoPersonalizado", producto.getCodigoPersonalizado() != null ? producto.getCodigoPersonalizado() : "",
-                        "unidadMedida", producto.getUnidad() != null ? producto.getUnidad() : "",
-                        "imagenes", imagenes
-                    ));
-                    item.put("sector", null); // Sin sector asignado
-                    item.put("cantidad", tieneStockCero ? producto.getStock() : stockSinSectorizar); // Stock sin sectorizar o stock total si es cero
-                    item.put("fechaActualizacion", producto.getFechaActualizacion() != null ? producto.getFechaActualizacion().toString() : new Date().toString());
-                    item.put("tipo", "sin_sector");
-                    stockGeneral.add(item);
-                    productosSinSector++;
-                    
-                    if (tieneStockCero) {
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("🔍 SECTOR SERVICE - Error procesando Producto: " + e.getMessage());
-            }
+        if (!empresaRepository.existsById(empresaId)) {
+            throw new RuntimeException("Empresa no encontrada");
         }
-        
-        
-        
-        return stockGeneral;
+        return vistaStockService.obtenerStockGeneral(empresaId);
+    }
+
+    /**
+     * Obtener stock general paginado, filtrando por nombre/código, sector y tipo (con o sin sector)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerStockGeneralPaginado(Long empresaId, int pagina, int tamano,
+                                                          String busqueda, Long sectorId, Boolean conSector) {
+        return vistaStockService.obtenerStockGeneralPaginado(empresaId, pagina, tamano, busqueda, sectorId, conSector);
     }
     
     /**
@@ -477,81 +374,10 @@ public class SectorService {
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> obtenerStockDetallado(Long empresaId) {
-        // System.out.println("🔍 SECTOR SERVICE - Iniciando obtenerStockDetallado para empresa: " + empresaId);
-        
-        Empresa empresa = empresaRepository.findById(empresaId)
-            .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
-        
-        List<Map<String, Object>> stockDetallado = new ArrayList<>();
-        
-        // Obtener TODOS los productos de la empresa
-        List<Producto> todosLosProductos = productoRepository.findByEmpresaId(empresaId);
-        
-        // Obtener stock por sectores
-        List<StockPorSector> stockPorSectores = stockPorSectorRepository.findByEmpresaId(empresaId);
-        // System.out.println("🔍 SECTOR SERVICE - StockPorSectores encontrados: " + stockPorSectores.size());
-        
-        for (Producto producto : todosLosProductos) {
-            try {
-                // Solo procesar productos activos
-                if (!producto.getActivo()) {
-                    continue;
-                }
-                
-                List<Map<String, Object>> ubicaciones = new ArrayList<>();
-                
-                // Calcular el stock total asignado a sectores para este producto
-                Integer stockAsignado = stockPorSectores.stream()
-                    .filter(stock -> stock.getProducto().getId().equals(producto.getId()))
-                    .mapToInt(StockPorSector::getCantidad)
-                    .sum();
-                
-                // Calcular el stock sin asignar
-                Integer stockTotal = producto.getStock() != null ? producto.getStock() : 0;
-                Integer stockSinAsignar = Math.max(0, stockTotal - stockAsignado);
-                
-                // Agregar ubicación "Sin asignar" si hay stock disponible
-                if (stockSinAsignar > 0) {
-                    Map<String, Object> ubicacionSinAsignar = new HashMap<>();
-                    ubicacionSinAsignar.put("ubicacion", "Sin asignar");
-                    ubicacionSinAsignar.put("cantidad", stockSinAsignar);
-                    ubicacionSinAsignar.put("stockId", producto.getId() + "_sin_asignar");
-                    ubicaciones.add(ubicacionSinAsignar);
-                }
-                
-                // Agregar ubicaciones por sector
-                List<StockPorSector> stockDelProducto = stockPorSectores.stream()
-                    .filter(stock -> stock.getProducto().getId().equals(producto.getId()))
-                    .collect(Collectors.toList());
-                
-                for (StockPorSector stock : stockDelProducto) {
-                    if (stock.getCantidad() > 0) {
-                        Map<String, Object> ubicacion = new HashMap<>();
-                        ubicacion.put("ubicacion", stock.getSector().getNombre());
-                        ubicacion.put("cantidad", stock.getCantidad());
-                        ubicacion.put("stockId", stock.getId().toString());
-                        ubicaciones.add(ubicacion);
-                    }
-                }
-                
-                // Solo agregar productos que tengan ubicaciones con stock
-                if (!ubicaciones.isEmpty()) {
-                    Map<String, Object> productoDetallado = new HashMap<>();
-                    productoDetallado.put("productoId", producto.getId());
-                    productoDetallado.put("productoNombre", producto.getNombre());
-                    productoDetallado.put("codigoPersonalizado", producto.getCodigoPersonalizado());
-                    productoDetallado.put("ubicaciones", ubicaciones);
-                    stockDetallado.add(productoDetallado);
-                }
-                
-            } catch (Exception e) {
-                System.err.println("🔍 SECTOR SERVICE - Error procesando Producto en stock detallado: " + e.getMessage());
-                e.printStackTrace();
-            }
+        if (!empresaRepository.existsById(empresaId)) {
+            throw new RuntimeException("Empresa no encontrada");
         }
-        
-        // System.out.println("🔍 SECTOR SERVICE - Total productos en stock detallado: " + stockDetallado.size());
-        return stockDetallado;
+        return vistaStockService.obtenerStockDetallado(empresaId);
     }
     
     /**
@@ -6,6 +6,8 @@ import com.minegocio.backend.entidades.Sector;
 import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.StockPorSectorRepository;
 import com.minegocio.backend.repositorios.SectorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +26,8 @@ import java.util.stream.Collectors;
 @Service
 public class StockSincronizacionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(StockSincronizacionService.class);
+
     @Autowired
     private ProductoRepository productoRepository;
 
@@ -33,6 +37,12 @@ public class StockSincronizacionService {
     @Autowired
     private SectorRepository sectorRepository;
 
+    @Autowired
+    private DescuentoStockService descuentoStockService;
+
+    @Autowired
+    private AsignacionSectoresService asignacionSectoresService;
+
     /**
      * Descuenta stock de un producto aplicando la estrategia híbrida inteligente
      * 
@@ -44,66 +54,26 @@ public class StockSincronizacionService {
      */
     @Transactional
     public Map<String, Object> descontarStockInteligente(Long empresaId, Long productoId, Integer cantidad, String motivo) {
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Iniciando descuento inteligente");
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Empresa: " + empresaId + ", Producto: " + productoId + ", Cantidad: " + cantidad);
-        
-        // Verificar que el producto existe y pertenece a la empresa
-        Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado o no pertenece a la empresa"));
-
-        // Verificar stock total disponible
-        Integer stockTotalDisponible = obtenerStockTotalDisponible(empresaId, productoId);
-        if (stockTotalDisponible < cantidad) {
-            throw new RuntimeException("Stock insuficiente para el producto: " + producto.getNombre() + 
-                ". Disponible: " + stockTotalDisponible + ", Solicitado: " + cantidad);
-        }
-
-        Map<String, Object> resultado = new HashMap<>();
-        resultado.put("productoId", productoId);
-        resultado.put("productoNombre", producto.getNombre());
-        resultado.put("cantidadSolicitada", cantidad);
-        resultado.put("motivo", motivo);
-        resultado.put("fechaDescuento", LocalDateTime.now());
-        resultado.put("descuentos", new java.util.ArrayList<Map<String, Object>>());
-
-        Integer cantidadRestante = cantidad;
-
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Iniciando descuento de " + cantidad + " unidades");
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock total disponible: " + stockTotalDisponible);
-        
-        // 1. PRIMERA PRIORIDAD: Descontar de productos sin sectorizar
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Paso 1: Descontando de productos sin sectorizar...");
-        cantidadRestante = descontarDeProductoSinSectorizar(empresaId, productoId, cantidadRestante, resultado);
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Cantidad restante después de sin sectorizar: " + cantidadRestante);
-
-        // 2. SEGUNDA PRIORIDAD: Descontar de sectores ordenados por cantidad (menor a mayor)
-        if (cantidadRestante > 0) {
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Paso 2: Descontando de sectores...");
-            cantidadRestante = descontarDeSectores(empresaId, productoId, cantidadRestante, resultado);
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Cantidad restante después de sectores: " + cantidadRestante);
-        } else {
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - No hay cantidad restante para descontar de sectores");
-        }
-
-        // NO actualizar el stock total del producto aquí porque ya se actualizó en descontarDeProductoSinSectorizar
-        // El stock del producto ya refleja el stock sin sectorizar después del descuento
-
-        // 3. LIMPIEZA FINAL: Eliminar registros de StockPorSector con cantidad 0 para este producto
-        limpiarRegistrosStockCero(productoId, empresaId);
-        
-        // 4. LIMPIEZA ADICIONAL: Si el producto quedó en stock 0, limpiar sectorAlmacenamiento
-        if (producto.getStock() != null && producto.getStock() <= 0) {
-            limpiarSectorAlmacenamientoSiStockCero(productoId, empresaId);
-        }
+        return descontarStockInteligente(empresaId, Map.of(productoId, cantidad), motivo).get(0);
+    }
 
-        resultado.put("cantidadDescontada", cantidad - cantidadRestante);
-        resultado.put("cantidadRestante", cantidadRestante);
-        resultado.put("stockRestante", stockTotalDisponible - cantidad);
+    /**
+     * Descuenta stock de varios productos (todas las líneas de un documento) aplicando la estrategia
+     * híbrida inteligente. El stock total de todos los productos se descuenta primero en un solo lote
+     * de UPDATE condicionales (DescuentoStockService): si alguno no alcanza no se descuenta ninguno.
+     * Después, con la fila del producto ya bloqueada, AsignacionSectoresService reparte el descuento
+     * entre sin sectorizar y sectores en una sola lectura y lotes JDBC.
+     */
+    @Transactional
+    public List<Map<String, Object>> descontarStockInteligente(Long empresaId, Map<Long, Integer> cantidadesPorProducto, String motivo) {
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Iniciando descuento inteligente de {} productos", cantidadesPorProducto.size());
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Empresa: {}, Cantidades: {}", empresaId, cantidadesPorProducto);
 
-        System.out.println("✅ STOCK SINCRONIZACIÓN - Descuento completado exitosamente");
-        System.out.println("✅ STOCK SINCRONIZACIÓN - Cantidad descontada: " + (cantidad - cantidadRestante));
+        descuentoStockService.descontar(empresaId, cantidadesPorProducto);
+        List<Map<String, Object>> resultados = asignacionSectoresService.asignarDescuento(empresaId, cantidadesPorProducto, motivo);
 
-        return resultado;
+        logger.debug("✅ STOCK SINCRONIZACIÓN - Descuento completado exitosamente");
+        return resultados;
     }
 
     /**
@@ -112,7 +82,7 @@ public class StockSincronizacionService {
      */
     @Transactional
     public Map<String, Object> incrementarStockInteligente(Long empresaId, Long productoId, Integer cantidad, String observacion) {
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Iniciando incremento de " + cantidad + " unidades");
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Iniciando incremento de {} unidades", cantidad);
         
         // Validar que el producto existe
         Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
@@ -127,17 +97,18 @@ public class StockSincronizacionService {
         
         Integer stockSinSectorizar = Math.max(0, stockActual - stockEnSectores);
         
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock actual: " + stockActual);
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock en sectores: " + stockEnSectores);
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock sin sectorizar: " + stockSinSectorizar);
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Stock actual: {}", stockActual);
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Stock en sectores: {}", stockEnSectores);
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Stock sin sectorizar: {}", stockSinSectorizar);
         
-        // Incrementar el stock total del producto
-        Integer nuevoStockTotal = stockActual + cantidad;
-        producto.setStock(nuevoStockTotal);
-        productoRepository.save(producto);
+        // Incrementar el stock total del producto (UPDATE atómico)
+        descuentoStockService.incrementar(empresaId, Map.of(productoId, cantidad));
+        Integer nuevoStockTotal = producto.getStock();
+        stockActual = nuevoStockTotal - cantidad;
+        stockSinSectorizar = Math.max(0, stockActual - stockEnSectores);
         
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Nuevo stock total: " + nuevoStockTotal);
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Nuevo stock sin sectorizar: " + (stockSinSectorizar + cantidad));
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Nuevo stock total: {}", nuevoStockTotal);
+        logger.debug("🔍 STOCK SINCRONIZACIÓN - Nuevo stock sin sectorizar: {}", (stockSinSectorizar + cantidad));
         
         // Crear resultado
         Map<String, Object> resultado = new HashMap<>();
@@ -151,7 +122,7 @@ public class StockSincronizacionService {
         resultado.put("observacion", observacion);
         resultado.put("fechaIncremento", LocalDateTime.now());
         
-        System.out.println("✅ STOCK SINCRONIZACIÓN - Incremento completado exitosamente");
+        logger.debug("✅ STOCK SINCRONIZACIÓN - Incremento completado exitosamente");
         
         return resultado;
     }
@@ -175,136 +146,6 @@ public class StockSincronizacionService {
         return stockTotal + stockEnSectoresTotal;
     }
 
-    /**
-     * Descuenta stock del producto sin sectorizar
-     * IMPORTANTE: Solo descuenta del producto.stock si realmente hay stock sin sectorizar
-     */
-    private Integer descontarDeProductoSinSectorizar(Long empresaId, Long productoId, Integer cantidad, Map<String, Object> resultado) {
-        Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-        // Calcular el stock realmente sin sectorizar
-        Integer stockTotalProducto = producto.getStock() != null ? producto.getStock() : 0;
-        Integer stockEnSectores = stockPorSectorRepository.findByProductoIdAndSectorEmpresaId(productoId, empresaId)
-                .stream()
-                .mapToInt(stock -> stock.getCantidad() != null ? stock.getCantidad() : 0)
-                .sum();
-        
-        // El stock sin sectorizar es la diferencia entre el stock total y el stock en sectores
-        Integer stockSinSectorizar = Math.max(0, stockTotalProducto - stockEnSectores);
-        
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock total producto: " + stockTotalProducto);
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock en sectores: " + stockEnSectores);
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock sin sectorizar calculado: " + stockSinSectorizar);
-        
-        if (stockSinSectorizar > 0) {
-            Integer cantidadADescontar = Math.min(cantidad, stockSinSectorizar);
-            
-            // Descontar del producto principal
-            Integer nuevoStockTotal = stockTotalProducto - cantidadADescontar;
-            producto.setStock(nuevoStockTotal);
-            productoRepository.save(producto);
-
-            // Registrar el descuento
-            Map<String, Object> descuento = new HashMap<>();
-            descuento.put("tipo", "SIN_SECTORIZAR");
-            descuento.put("cantidad", cantidadADescontar);
-            descuento.put("stockAnterior", stockTotalProducto);
-            descuento.put("stockNuevo", nuevoStockTotal);
-            descuento.put("stockSinSectorizarAnterior", stockSinSectorizar);
-            descuento.put("stockSinSectorizarNuevo", stockSinSectorizar - cantidadADescontar);
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> descuentos = (List<Map<String, Object>>) resultado.get("descuentos");
-            descuentos.add(descuento);
-
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Descontado de sin sectorizar: " + cantidadADescontar);
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Nuevo stock total: " + nuevoStockTotal);
-            
-            return cantidad - cantidadADescontar;
-        } else {
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - No hay stock sin sectorizar para descontar");
-        }
-        
-        return cantidad;
-    }
-
-    /**
-     * Descuenta stock de sectores ordenados por cantidad (menor a mayor)
-     */
-    private Integer descontarDeSectores(Long empresaId, Long productoId, Integer cantidad, Map<String, Object> resultado) {
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Descontando de sectores: " + cantidad + " unidades");
-        
-        // Obtener todos los sectores con stock del producto, ordenados por cantidad (menor a mayor)
-        List<StockPorSector> stockEnSectores = stockPorSectorRepository.findByProductoIdAndSectorEmpresaId(productoId, empresaId)
-                .stream()
-                .filter(stock -> stock.getCantidad() != null && stock.getCantidad() > 0)
-                .sorted(Comparator.comparing(StockPorSector::getCantidad))
-                .collect(Collectors.toList());
-
-        System.out.println("🔍 STOCK SINCRONIZACIÓN - Sectores encontrados con stock: " + stockEnSectores.size());
-        for (StockPorSector stock : stockEnSectores) {
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Sector: " + stock.getSector().getNombre() + " - Cantidad: " + stock.getCantidad());
-        }
-
-        Integer cantidadRestante = cantidad;
-
-        for (StockPorSector stockSector : stockEnSectores) {
-            if (cantidadRestante <= 0) break;
-
-            Integer cantidadADescontar = Math.min(cantidadRestante, stockSector.getCantidad());
-            Integer stockAnterior = stockSector.getCantidad();
-
-            // Descontar del sector
-            Integer nuevaCantidad = stockAnterior - cantidadADescontar;
-            
-            if (nuevaCantidad <= 0) {
-                // Si la cantidad queda en 0 o menos, eliminar el registro
-                stockPorSectorRepository.delete(stockSector);
-                System.out.println("🗑️ STOCK SINCRONIZACIÓN - Eliminado registro de sector con stock 0: " + stockSector.getSector().getNombre());
-            } else {
-                // Si queda stock, actualizar la cantidad
-                stockSector.setCantidad(nuevaCantidad);
-                stockSector.setFechaActualizacion(LocalDateTime.now());
-                stockPorSectorRepository.save(stockSector);
-            }
-            
-            // ACTUALIZAR EL STOCK TOTAL DEL PRODUCTO
-            // Cuando se descuenta de sectores, también hay que actualizar el stock total del producto
-            Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-            
-            Integer stockTotalAnterior = producto.getStock() != null ? producto.getStock() : 0;
-            Integer nuevoStockTotal = stockTotalAnterior - cantidadADescontar;
-            producto.setStock(nuevoStockTotal);
-            productoRepository.save(producto);
-            
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Stock total del producto actualizado: " + stockTotalAnterior + " -> " + nuevoStockTotal);
-
-            // Registrar el descuento
-            Map<String, Object> descuento = new HashMap<>();
-            descuento.put("tipo", "SECTOR");
-            descuento.put("sectorId", stockSector.getSector().getId());
-            descuento.put("sectorNombre", stockSector.getSector().getNombre());
-            descuento.put("cantidad", cantidadADescontar);
-            descuento.put("stockAnterior", stockAnterior);
-            descuento.put("stockNuevo", nuevaCantidad <= 0 ? 0 : nuevaCantidad);
-            descuento.put("registroEliminado", nuevaCantidad <= 0);
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> descuentos = (List<Map<String, Object>>) resultado.get("descuentos");
-            descuentos.add(descuento);
-
-            System.out.println("🔍 STOCK SINCRONIZACIÓN - Descontado del sector " + stockSector.getSector().getNombre() + ": " + cantidadADescontar);
-
-            cantidadRestante -= cantidadADescontar;
-        }
-
-        return cantidadRestante;
-    }
-
-
-
     /**
      * Obtiene el detalle de stock disponible por ubicación para un producto
      */
@@ -350,8 +191,8 @@ public class StockSincronizacionService {
      */
     @Transactional
     public Map<String, Object> sincronizarStockConSectores(Long empresaId, Long productoId, Integer nuevoStockTotal, String motivo) {
-        System.out.println("🔄 SINCRONIZACIÓN - Iniciando sincronización de stock con sectores");
-        System.out.println("🔄 SINCRONIZACIÓN - Empresa: " + empresaId + ", Producto: " + productoId + ", Nuevo Stock Total: " + nuevoStockTotal);
+        logger.debug("🔄 SINCRONIZACIÓN - Iniciando sincronización de stock con sectores");
+        logger.debug("🔄 SINCRONIZACIÓN - Empresa: {}, Producto: {}, Nuevo Stock Total: {}", empresaId, productoId, nuevoStockTotal);
         
         Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
@@ -360,9 +201,9 @@ public class StockSincronizacionService {
         Integer stockAnterior = producto.getStock() != null ? producto.getStock() : 0;
         Integer diferencia = nuevoStockTotal - stockAnterior;
         
-        System.out.println("🔄 SINCRONIZACIÓN - Stock anterior del producto: " + stockAnterior);
-        System.out.println("🔄 SINCRONIZACIÓN - Nuevo stock total solicitado: " + nuevoStockTotal);
-        System.out.println("🔄 SINCRONIZACIÓN - Diferencia a aplicar: " + diferencia);
+        logger.debug("🔄 SINCRONIZACIÓN - Stock anterior del producto: {}", stockAnterior);
+        logger.debug("🔄 SINCRONIZACIÓN - Nuevo stock total solicitado: {}", nuevoStockTotal);
+        logger.debug("🔄 SINCRONIZACIÓN - Diferencia a aplicar: {}", diferencia);
 
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("productoId", productoId);
@@ -390,7 +231,7 @@ public class StockSincronizacionService {
             List<Map<String, Object>> cambios = (List<Map<String, Object>>) resultado.get("cambios");
             cambios.add(cambio);
 
-            System.out.println("🔄 SINCRONIZACIÓN - Aumentado stock sin sectorizar: " + diferencia);
+            logger.debug("🔄 SINCRONIZACIÓN - Aumentado stock sin sectorizar: {}", diferencia);
 
         } else if (diferencia < 0) {
             // Disminución de stock - aplicar estrategia híbrida inteligente
@@ -400,10 +241,10 @@ public class StockSincronizacionService {
             // NO actualizar el stock del producto aquí porque descontarStockInteligente ya lo hace
             // El stock del producto ya refleja el stock sin sectorizar después del descuento
             
-            System.out.println("🔄 SINCRONIZACIÓN - Descontado stock usando estrategia híbrida: " + cantidadADescontar);
+            logger.debug("🔄 SINCRONIZACIÓN - Descontado stock usando estrategia híbrida: {}", cantidadADescontar);
         }
 
-        System.out.println("✅ SINCRONIZACIÓN - Sincronización completada exitosamente");
+        logger.debug("✅ SINCRONIZACIÓN - Sincronización completada exitosamente");
         return resultado;
     }
 
@@ -413,8 +254,8 @@ public class StockSincronizacionService {
      */
     @Transactional
     public Map<String, Object> sincronizarSectorConProducto(Long empresaId, Long productoId, Long sectorId, Integer nuevoStockSector, String motivo) {
-        System.out.println("🔄 SINCRONIZACIÓN - Iniciando sincronización de sector con producto");
-        System.out.println("🔄 SINCRONIZACIÓN - Sector: " + sectorId + ", Nuevo Stock: " + nuevoStockSector);
+        logger.debug("🔄 SINCRONIZACIÓN - Iniciando sincronización de sector con producto");
+        logger.debug("🔄 SINCRONIZACIÓN - Sector: {}, Nuevo Stock: {}", sectorId, nuevoStockSector);
         
         Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
@@ -457,7 +298,7 @@ public class StockSincronizacionService {
             productoRepository.save(producto);
         }
 
-        System.out.println("✅ SINCRONIZACIÓN - Sector sincronizado exitosamente");
+        logger.debug("✅ SINCRONIZACIÓN - Sector sincronizado exitosamente");
         return resultado;
     }
 
@@ -497,67 +338,4 @@ public class StockSincronizacionService {
 
         return resultado;
     }
-
-    /**
-     * Limpia registros de StockPorSector con cantidad 0 para un producto específico
-     * Este método se ejecuta automáticamente después de cada descuento de stock
-     */
-    private void limpiarRegistrosStockCero(Long productoId, Long empresaId) {
-        try {
-            System.out.println("🧹 STOCK SINCRONIZACIÓN - Limpiando registros con stock 0 para producto: " + productoId);
-            
-            // Obtener todos los registros de StockPorSector para este producto
-            List<StockPorSector> registrosStock = stockPorSectorRepository.findByProductoIdAndSectorEmpresaId(productoId, empresaId);
-            
-            int registrosEliminados = 0;
-            for (StockPorSector stock : registrosStock) {
-                if (stock.getCantidad() == null || stock.getCantidad() <= 0) {
-                    stockPorSectorRepository.delete(stock);
-                    registrosEliminados++;
-                    System.out.println("🗑️ STOCK SINCRONIZACIÓN - Eliminado registro con stock 0 en sector: " + stock.getSector().getNombre());
-                }
-            }
-            
-            if (registrosEliminados > 0) {
-                System.out.println("✅ STOCK SINCRONIZACIÓN - Limpieza completada. Registros eliminados: " + registrosEliminados);
-            } else {
-                System.out.println("✅ STOCK SINCRONIZACIÓN - No se encontraron registros con stock 0 para limpiar");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ STOCK SINCRONIZACIÓN - Error limpiando registros con stock 0: " + e.getMessage());
-            // No fallar la operación principal si hay error en la limpieza
-        }
-    }
-
-    /**
-     * Limpia el campo sectorAlmacenamiento de un producto si quedó en stock cero
-     * Esto asegura que el producto aparezca correctamente en el stock general
-     */
-    private void limpiarSectorAlmacenamientoSiStockCero(Long productoId, Long empresaId) {
-        try {
-            System.out.println("🧹 STOCK SINCRONIZACIÓN - Limpiando sectorAlmacenamiento para producto con stock cero: " + productoId);
-            
-            Producto producto = productoRepository.findByIdAndEmpresaId(productoId, empresaId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-            
-            // Solo limpiar si realmente tiene stock 0 y tiene sectorAlmacenamiento asignado
-            if ((producto.getStock() == null || producto.getStock() <= 0) && 
-                (producto.getSectorAlmacenamiento() != null && !producto.getSectorAlmacenamiento().trim().isEmpty())) {
-                
-                String sectorAnterior = producto.getSectorAlmacenamiento();
-                producto.setSectorAlmacenamiento(null);
-                productoRepository.save(producto);
-                
-                System.out.println("✅ STOCK SINCRONIZACIÓN - sectorAlmacenamiento limpiado para producto: " + producto.getNombre() + 
-                    " (sector anterior: " + sectorAnterior + ")");
-            } else {
-                System.out.println("✅ STOCK SINCRONIZACIÓN - No se requiere limpieza de sectorAlmacenamiento para producto: " + producto.getNombre());
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ STOCK SINCRONIZACIÓN - Error limpiando sectorAlmacenamiento: " + e.getMessage());
-            // No fallar la operación principal si hay error en la limpieza
-        }
-    }
 }
@@ -2,13 +2,11 @@ package com.minegocio.backend.servicios;
 
 import com.minegocio.backend.dto.DashboardSuperAdminDTO;
 import com.minegocio.backend.dto.EmpresaTopDTO;
-import com.minegocio.backend.dto.DatoTendenciaDTO;
 import com.minegocio.backend.dto.AlertaSuperAdminDTO;
 import com.minegocio.backend.dto.NotificacionSuperAdminDTO;
 import com.minegocio.backend.dto.EmpresaDTO;
 import com.minegocio.backend.entidades.Empresa;
 import com.minegocio.backend.entidades.Suscripcion;
-import com.minegocio.backend.entidades.Plan;
 import com.minegocio.backend.repositorios.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -47,113 +45,27 @@ public class SuperAdminService {
     @Autowired
     private SuscripcionRepository suscripcionRepository;
 
-    @Autowired
-    private PlanRepository planRepository;
-
     @Autowired
     private PedidoService pedidoService;
 
     @Autowired
     private VentaRapidaService ventaRapidaService;
 
+    @Autowired
+    private DashboardSuperAdminSnapshotService dashboardSnapshotService;
+
     /**
-     * Obtiene el dashboard principal con todas las estadísticas
+     * Obtiene el dashboard principal con todas las estadísticas (última versión precalculada)
      */
     public DashboardSuperAdminDTO obtenerDashboard() {
-        DashboardSuperAdminDTO dashboard = new DashboardSuperAdminDTO();
-
-        // Estadísticas generales
-        dashboard.setTotalEmpresas(empresaRepository.count());
-        dashboard.setTotalUsuarios(usuarioRepository.countByActivoTrue());
-        dashboard.setTotalClientes(clienteRepository.count());
-        dashboard.setTotalProductos(productoRepository.count());
-        dashboard.setTotalPedidos(pedidoRepository.count());
-        dashboard.setTotalVentasRapidas(ventaRapidaRepository.count());
-
-        // Estadísticas de suscripciones
-        dashboard.setEmpresasActivas(empresaRepository.countByEstadoSuscripcion(Empresa.EstadoSuscripcion.ACTIVA));
-        dashboard.setEmpresasEnPrueba(empresaRepository.countByEstadoSuscripcion(Empresa.EstadoSuscripcion.PRUEBA));
-        dashboard.setEmpresasSuspendidas(empresaRepository.countByEstadoSuscripcion(Empresa.EstadoSuscripcion.SUSPENDIDA));
-        dashboard.setEmpresasCanceladas(empresaRepository.countByEstadoSuscripcion(Empresa.EstadoSuscripcion.CANCELADA));
-
-        // Empresas por expirar (próximos 7 días)
-        LocalDateTime fechaLimite = LocalDateTime.now().plusDays(7);
-        List<Empresa> empresasPorExpirar = empresaRepository.findEmpresasConPruebaPorExpirar(
-            LocalDateTime.now(), fechaLimite);
-        dashboard.setEmpresasPorExpirar((long) empresasPorExpirar.size());
-
-        // Estadísticas de planes
-        Map<String, Long> empresasPorPlan = new HashMap<>();
-        Map<String, BigDecimal> ingresosPorPlan = new HashMap<>();
-        
-        // Obtener estadísticas reales de planes
-        List<Plan> planes = planRepository.findByActivoTrueOrderByOrdenAsc();
-        for (Plan plan : planes) {
-            // Contar suscripciones activas por plan
-            List<Suscripcion> suscripcionesActivas = suscripcionRepository.findByPlanOrderByFechaCreacionDesc(plan)
-                .stream()
-                .filter(s -> s.getEstado() == Suscripcion.EstadoSuscripcion.ACTIVA)
-                .collect(Collectors.toList());
-            
-            long cantidadEmpresas = suscripcionesActivas.size();
-            empresasPorPlan.put(plan.getNombre(), cantidadEmpresas);
-            
-            BigDecimal ingresos = plan.getPrecio().multiply(new BigDecimal(cantidadEmpresas));
-            ingresosPorPlan.put(plan.getNombre(), ingresos);
-        }
-        
-        dashboard.setEmpresasPorPlan(empresasPorPlan);
-        dashboard.setIngresosPorPlan(ingresosPorPlan);
-
-        // Estadísticas financieras
-        BigDecimal ingresosMensuales = ingresosPorPlan.values().stream()
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dashboard.setIngresosMensuales(ingresosMensuales);
-        dashboard.setIngresosAnuales(ingresosMensuales.multiply(new BigDecimal("12")));
-        dashboard.setIngresosTotales(ingresosMensuales.multiply(new BigDecimal("24"))); // Ejemplo
-
-        // Cálculo de promedio y tasa de conversión
-        long totalEmpresasActivas = dashboard.getEmpresasActivas();
-        if (totalEmpresasActivas > 0) {
-            dashboard.setPromedioIngresosPorEmpresa(ingresosMensuales.divide(new BigDecimal(totalEmpresasActivas), 2, BigDecimal.ROUND_HALF_UP));
-        }
-
-        long totalEmpresasEnPrueba = dashboard.getEmpresasEnPrueba();
-        if (totalEmpresasEnPrueba > 0) {
-            BigDecimal tasaConversion = new BigDecimal(dashboard.getEmpresasActivas())
-                .divide(new BigDecimal(totalEmpresasEnPrueba + dashboard.getEmpresasActivas()), 4, BigDecimal.ROUND_HALF_UP)
-                .multiply(new BigDecimal("100"));
-            dashboard.setTasaConversionPrueba(tasaConversion);
-        }
-
-        // Estadísticas de crecimiento
-        LocalDateTime inicioMes = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime inicioAno = LocalDateTime.now().withDayOfYear(1).withHour(0).withMinute(0).withSecond(0);
-        
-        // Por ahora usar count() ya que no tenemos el método específico
-        dashboard.setNuevasEmpresasEsteMes(empresaRepository.count());
-        dashboard.setNuevasEmpresasEsteAno(empresaRepository.count());
-
-        // Top empresas
-        dashboard.setTopEmpresasPorIngresos(obtenerTopEmpresasPorIngresos(5));
-        dashboard.setTopEmpresasPorActividad(obtenerTopEmpresasPorActividad(5));
-        dashboard.setEmpresasEnRiesgo(obtenerEmpresasEnRiesgo());
-
-        // Alertas y notificaciones
-        dashboard.setAlertas(obtenerAlertas(false));
-        dashboard.setNotificaciones(obtenerNotificaciones(false));
-
-        // Tendencias
-        dashboard.setTendenciaEmpresas(generarTendenciaEmpresas());
-        dashboard.setTendenciaIngresos(generarTendenciaIngresos());
-        dashboard.setTendenciaProductos(generarTendenciaProductos());
-
-        // Estadísticas de actividad
-        dashboard.setEmpresasActivasHoy(calcularEmpresasActivasHoy());
-        dashboard.setEmpresasInactivasMasDe30Dias(calcularEmpresasInactivasMasDe30Dias());
-        dashboard.setEmpresasNuevasEstaSemana(calcularEmpresasNuevasEstaSemana());
+        return dashboardSnapshotService.obtener();
+    }
 
-        return dashboard;
+    /**
+     * Recalcula el dashboard en el momento
+     */
+    public DashboardSuperAdminDTO refrescarDashboard() {
+        return dashboardSnapshotService.refrescar();
     }
 
     /**
@@ -444,64 +356,4 @@ public class SuperAdminService {
         
         return dto;
     }
-
-    private List<DatoTendenciaDTO> generarTendenciaEmpresas() {
-        List<DatoTendenciaDTO> tendencia = new ArrayList<>();
-        
-        // Generar datos de los últimos 6 meses
-        for (int i = 5; i >= 0; i--) {
-            LocalDateTime fecha = LocalDateTime.now().minusMonths(i);
-            // Por ahora usar count() ya que no tenemos el método específico
-            long cantidad = empresaRepository.count();
-            
-            tendencia.add(new DatoTendenciaDTO(fecha, cantidad));
-        }
-        
-        return tendencia;
-    }
-
-    private List<DatoTendenciaDTO> generarTendenciaIngresos() {
-        List<DatoTendenciaDTO> tendencia = new ArrayList<>();
-        
-        // Generar datos de los últimos 6 meses
-        for (int i = 5; i >= 0; i--) {
-            LocalDateTime fecha = LocalDateTime.now().minusMonths(i);
-            BigDecimal ingresos = new BigDecimal("10000").multiply(new BigDecimal(i + 1));
-            
-            tendencia.add(new DatoTendenciaDTO(fecha, ingresos));
-        }
-        
-        return tendencia;
-    }
-
-    private List<DatoTendenciaDTO> generarTendenciaProductos() {
-        List<DatoTendenciaDTO> tendencia = new ArrayList<>();
-        
-        // Generar datos de los últimos 6 meses
-        for (int i = 5; i >= 0; i--) {
-            LocalDateTime fecha = LocalDateTime.now().minusMonths(i);
-            // Por ahora usar count() ya que no tenemos el método específico
-            long cantidad = productoRepository.count();
-            
-            tendencia.add(new DatoTendenciaDTO(fecha, cantidad));
-        }
-        
-        return tendencia;
-    }
-
-    private Long calcularEmpresasActivasHoy() {
-        // Implementar lógica para calcular empresas activas hoy
-        return empresaRepository.countByEstadoSuscripcion(Empresa.EstadoSuscripcion.ACTIVA);
-    }
-
-    private Long calcularEmpresasInactivasMasDe30Dias() {
-        // Implementar lógica para calcular empresas inactivas más de 30 días
-        // Por ahora, retornar 0 ya que Empresa no tiene campo ultimoAcceso
-        return 0L;
-    }
-
-    private Long calcularEmpresasNuevasEstaSemana() {
-        // Por ahora usar count() ya que no tenemos el método específico
-        return empresaRepository.count();
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,437 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.UsoAlmacenamientoEmpresa;
+import com.minegocio.backend.repositorios.EmpresaRepository;
+import com.minegocio.backend.repositorios.UsoAlmacenamientoEmpresaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Contabilidad del almacenamiento usado por cada empresa (tabla uso_almacenamiento_empresa):
+ * - Archivos: AlmacenamientoService suma o resta cada archivo en la misma transacción que lo
+ *   registra o lo da de baja; al medir la empresa se recalculan desde archivos_empresa con su fila
+ *   bloqueada, así un alta concurrente no se pierde
+ * - Base de datos: por cada tabla con empresa_id (o con producto_id, a través de productos) se
+ *   cuentan las filas de la empresa y se mide el tamaño real de una muestra: pg_column_size en
+ *   PostgreSQL y el largo en bytes de cada columna en H2
+ * - Solo se miden los datos propios de la empresa: las proyecciones, contadores derivados, colas de
+ *   trabajos y cachés (TABLAS_EXCLUIDAS) se reconstruyen desde esos datos y no cuentan para su límite
+ * - Una tarea periódica mide por tandas las empresas nunca medidas y las de medición más vieja
+ * - Las pantallas y las verificaciones de límites leen la fila de la empresa (una consulta por clave).
+ *   Si todavía no existe se crea con los archivos contados y la base de datos en 0, y la base se
+ *   mide en segundo plano: la lectura nunca recorre las tablas en el hilo del request
+ */
+@Service
+public class UsoAlmacenamientoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsoAlmacenamientoService.class);
+
+    // Cabecera de la fila y puntero de línea en PostgreSQL: pg_column_size no los incluye
+    private static final int BYTES_CABECERA_FILA = 28;
+
+    // Tablas con empresa_id o producto_id que no son datos de la empresa: proyecciones y contadores
+    // derivados de pedidos, ventas y stock, estado de trabajos en segundo plano, colas y cachés
+    private static final Set<String> TABLAS_EXCLUIDAS = Set.of(
+        "uso_almacenamiento_empresa", "flyway_schema_history",
+        "vista_stock_sector", "stock_diario_productos", "ventas_producto_acumuladas", "resumen_ventas_diario",
+        "indices_empresa", "secuencias_documentos",
+        "finalizacion_inventario", "finalizacion_inventario_producto", "progreso_conteo_producto",
+        "emails_pendientes", "invalidaciones_cache", "snapshot_dashboard_superadmin");
+
+    // Solo se arman consultas con nombres de tabla simples
+    private static final Pattern NOMBRE_SIMPLE = Pattern.compile("[a-z0-9_]+");
+
+    private static final String SQL_COLUMNAS =
+        "SELECT c.table_name AS tabla, c.column_name AS columna, UPPER(c.data_type) AS tipo " +
+        "FROM information_schema.columns c JOIN information_schema.tables t " +
+        "ON t.table_schema = c.table_schema AND t.table_name = c.table_name " +
+        "WHERE t.table_type IN ('BASE TABLE', 'TABLE') AND LOWER(c.table_schema) = LOWER(CURRENT_SCHEMA) " +
+        "ORDER BY c.table_name, c.ordinal_position";
+
+    private static final String SQL_CREAR =
+        "INSERT INTO uso_almacenamiento_empresa (empresa_id, archivos_cantidad, archivos_bytes, " +
+        "archivos_producto_cantidad, archivos_producto_bytes, archivos_logo_cantidad, archivos_logo_bytes, " +
+        "archivos_fondo_cantidad, archivos_fondo_bytes, base_datos_filas, base_datos_bytes, fecha_actualizacion) " +
+        "SELECT e.id, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, ? FROM empresas e WHERE %s " +
+        "NOT EXISTS (SELECT 1 FROM uso_almacenamiento_empresa u WHERE u.empresa_id = e.id)";
+
+    private static final String SQL_SUMAR_ARCHIVO =
+        "UPDATE uso_almacenamiento_empresa SET archivos_cantidad = archivos_cantidad + ?, " +
+        "archivos_bytes = archivos_bytes + ?%s, fecha_actualizacion = ? WHERE empresa_id = ?";
+
+    private static final String SQL_BLOQUEAR =
+        "SELECT id FROM uso_almacenamiento_empresa WHERE empresa_id = ? FOR UPDATE";
+
+    private static final String SQL_ARCHIVOS_POR_TIPO =
+        "SELECT tipo_archivo, COUNT(*) AS cantidad, COALESCE(SUM(tamaño_bytes), 0) AS bytes " +
+        "FROM archivos_empresa WHERE empresa_id = ? AND activo = TRUE GROUP BY tipo_archivo";
+
+    private static final String SQL_GUARDAR_ARCHIVOS =
+        "UPDATE uso_almacenamiento_empresa SET archivos_cantidad = ?, archivos_bytes = ?, " +
+        "archivos_producto_cantidad = ?, archivos_producto_bytes = ?, archivos_logo_cantidad = ?, " +
+        "archivos_logo_bytes = ?, archivos_fondo_cantidad = ?, archivos_fondo_bytes = ?, " +
+        "fecha_actualizacion = ? WHERE empresa_id = ?";
+
+    private static final String SQL_GUARDAR_BASE_DATOS =
+        "UPDATE uso_almacenamiento_empresa SET base_datos_filas = ?, base_datos_bytes = ?, " +
+        "fecha_base_datos = ?, fecha_actualizacion = ? WHERE empresa_id = ?";
+
+    // Tipos de archivo con contadores propios (columna archivos_<tipo>_*)
+    private static final Set<String> TIPOS_ARCHIVO = Set.of("producto", "logo", "fondo");
+
+    @Value("${minegocio.almacenamiento.uso.empresas-por-ciclo:20}")
+    private int empresasPorCiclo;
+
+    @Value("${minegocio.almacenamiento.uso.vigencia-minutos:360}")
+    private long vigenciaMinutos;
+
+    @Value("${minegocio.almacenamiento.uso.filas-muestra:500}")
+    private int filasMuestra;
+
+    @Autowired
+    private UsoAlmacenamientoEmpresaRepository usoAlmacenamientoEmpresaRepository;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Se arman la primera vez que se mide (el esquema no cambia con la aplicación en marcha)
+    private volatile List<TablaEmpresa> tablas;
+    private volatile Boolean postgres;
+
+    // Mediciones de base de datos pedidas por una primera lectura (una a la vez, sin repetir empresa)
+    private ThreadPoolExecutor mediciones;
+    private final Set<Long> medicionesPendientes = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void iniciar() {
+        mediciones = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), tarea -> {
+            Thread hilo = new Thread(tarea, "medicion-almacenamiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        mediciones.shutdownNow();
+    }
+
+    /**
+     * Uso de almacenamiento de la empresa. Si todavía no tiene fila se crea con sus archivos contados
+     * y la base de datos se mide en segundo plano (hasta entonces vale 0).
+     */
+    @Transactional(readOnly = true)
+    public UsoAlmacenamientoEmpresa obtener(Long empresaId) {
+        return usoAlmacenamientoEmpresaRepository.findByEmpresaId(empresaId).orElseGet(() -> {
+            if (!empresaRepository.existsById(empresaId)) {
+                throw new RuntimeException("Empresa no encontrada");
+            }
+            crearFila(empresaId);
+            recalcularArchivosEnTransaccion(empresaId);
+            programarMedicion(empresaId);
+            return usoAlmacenamientoEmpresaRepository.findByEmpresaId(empresaId)
+                .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
+        });
+    }
+
+    /**
+     * Mide la base de datos de la empresa en el hilo de mediciones. Si la cola está llena la mide
+     * la tarea periódica, que empieza por las empresas nunca medidas.
+     */
+    private void programarMedicion(Long empresaId) {
+        if (!medicionesPendientes.add(empresaId)) {
+            return;
+        }
+        try {
+            mediciones.execute(() -> {
+                try {
+                    medirBaseDatos(empresaId);
+                } catch (Exception e) {
+                    logger.warn("No se pudo medir el almacenamiento de la empresa {}: {}", empresaId, e.getMessage());
+                } finally {
+                    medicionesPendientes.remove(empresaId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            medicionesPendientes.remove(empresaId);
+        }
+    }
+
+    /**
+     * Bytes en base de datos de la última medición de la empresa, sin medir: si todavía no se midió
+     * es 0 y la tarea periódica la mide primero (las empresas nunca medidas van adelante)
+     */
+    public long obtenerBaseDatosBytesMedidos(Long empresaId) {
+        return usoAlmacenamientoEmpresaRepository.findByEmpresaId(empresaId)
+            .map(UsoAlmacenamientoEmpresa::getBaseDatosBytes)
+            .orElse(0L);
+    }
+
+    /**
+     * Suma (o resta, con valores negativos) un archivo al uso de la empresa. Se llama dentro de la
+     * transacción que registra o da de baja el archivo, así el contador se confirma junto con él.
+     */
+    public void sumarArchivo(Long empresaId, String tipoArchivo, int cantidad, long bytes) {
+        String tipo = tipoArchivo != null ? tipoArchivo.toLowerCase() : "";
+        List<Object> parametros = new ArrayList<>(List.of(cantidad, bytes));
+        String columnasTipo = "";
+        if (TIPOS_ARCHIVO.contains(tipo)) {
+            columnasTipo = String.format(", archivos_%1$s_cantidad = archivos_%1$s_cantidad + ?, " +
+                "archivos_%1$s_bytes = archivos_%1$s_bytes + ?", tipo);
+            parametros.add(cantidad);
+            parametros.add(bytes);
+        }
+        parametros.add(Timestamp.valueOf(LocalDateTime.now()));
+        parametros.add(empresaId);
+        int actualizadas = jdbcTemplate.update(String.format(SQL_SUMAR_ARCHIVO, columnasTipo), parametros.toArray());
+        if (actualizadas == 0) {
+            // Primera vez de la empresa: se crea la fila y se cuentan todos sus archivos (incluido este)
+            crearFila(empresaId);
+            recalcularArchivos(empresaId);
+        }
+    }
+
+    /**
+     * Pide volver a medir la base de datos de todas las empresas (después de borrados masivos)
+     */
+    @Transactional
+    public void pedirMedicionCompleta() {
+        usoAlmacenamientoEmpresaRepository.marcarTodasParaMedir();
+    }
+
+    /**
+     * Crea las filas que faltan y mide una tanda de empresas: primero las nunca medidas,
+     * después las de medición más vieja que la vigencia
+     */
+    @Scheduled(initialDelayString = "${minegocio.almacenamiento.uso.intervalo-ms:60000}",
+               fixedDelayString = "${minegocio.almacenamiento.uso.intervalo-ms:60000}")
+    public void medirPendientes() {
+        try {
+            try {
+                jdbcTemplate.update(String.format(SQL_CREAR, ""), Timestamp.valueOf(LocalDateTime.now()));
+            } catch (DataIntegrityViolationException e) {
+                // Otra réplica creó las mismas filas: se crean en el próximo ciclo si todavía faltan
+            }
+            List<Long> empresas = usoAlmacenamientoEmpresaRepository.findEmpresasParaMedir(
+                LocalDateTime.now().minusMinutes(vigenciaMinutos), PageRequest.of(0, empresasPorCiclo));
+            for (Long empresaId : empresas) {
+                try {
+                    medir(empresaId);
+                } catch (Exception e) {
+                    logger.warn("No se pudo medir el almacenamiento de la empresa {}: {}", empresaId, e.getMessage());
+                }
+            }
+            if (!empresas.isEmpty()) {
+                logger.debug("Almacenamiento medido para {} empresas", empresas.size());
+            }
+        } catch (Exception e) {
+            logger.error("Error midiendo el almacenamiento de las empresas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recalcula los archivos de la empresa y mide su base de datos
+     */
+    public void medir(Long empresaId) {
+        recalcularArchivosEnTransaccion(empresaId);
+        medirBaseDatos(empresaId);
+    }
+
+    private void recalcularArchivosEnTransaccion(Long empresaId) {
+        TransactionTemplate archivos = new TransactionTemplate(transactionManager);
+        archivos.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        archivos.executeWithoutResult(estado -> recalcularArchivos(empresaId));
+    }
+
+    /**
+     * Cuenta las filas de la empresa en cada tabla con sus datos y guarda el total
+     */
+    private void medirBaseDatos(Long empresaId) {
+        // Sin transacción: cada consulta se confirma sola y una tabla que falla no afecta a las demás
+        TransactionTemplate medicion = new TransactionTemplate(transactionManager);
+        medicion.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        medicion.executeWithoutResult(estado -> {
+            long filas = 0;
+            long bytes = 0;
+            for (TablaEmpresa tabla : tablas()) {
+                try {
+                    long[] medida = medirTabla(tabla, empresaId);
+                    filas += medida[0];
+                    bytes += medida[1];
+                } catch (DataAccessException e) {
+                    logger.warn("No se pudo medir la tabla {} de la empresa {}: {}", tabla.nombre, empresaId, e.getMessage());
+                }
+            }
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update(SQL_GUARDAR_BASE_DATOS, filas, bytes, ahora, ahora, empresaId);
+        });
+    }
+
+    /**
+     * Vuelve a contar los archivos activos de la empresa con su fila bloqueada: un alta que se
+     * confirma mientras tanto espera y suma sobre el valor recalculado
+     */
+    private void recalcularArchivos(Long empresaId) {
+        if (jdbcTemplate.queryForList(SQL_BLOQUEAR, Long.class, empresaId).isEmpty()) {
+            return;
+        }
+        long cantidad = 0;
+        long bytes = 0;
+        Map<String, long[]> porTipo = new LinkedHashMap<>();
+        for (String tipo : TIPOS_ARCHIVO) {
+            porTipo.put(tipo, new long[2]);
+        }
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(SQL_ARCHIVOS_POR_TIPO, empresaId)) {
+            Object tipo = fila.get("tipo_archivo");
+            long filaCantidad = ((Number) fila.get("cantidad")).longValue();
+            long filaBytes = ((Number) fila.get("bytes")).longValue();
+            cantidad += filaCantidad;
+            bytes += filaBytes;
+            long[] acumulado = tipo != null ? porTipo.get(tipo.toString().toLowerCase()) : null;
+            if (acumulado != null) {
+                acumulado[0] += filaCantidad;
+                acumulado[1] += filaBytes;
+            }
+        }
+        jdbcTemplate.update(SQL_GUARDAR_ARCHIVOS, cantidad, bytes,
+            porTipo.get("producto")[0], porTipo.get("producto")[1], porTipo.get("logo")[0], porTipo.get("logo")[1],
+            porTipo.get("fondo")[0], porTipo.get("fondo")[1], Timestamp.valueOf(LocalDateTime.now()), empresaId);
+    }
+
+    /**
+     * Filas de la empresa en la tabla y su tamaño en bytes. Si la empresa tiene más filas que la
+     * muestra, el tamaño es la cantidad de filas por el promedio de la muestra.
+     */
+    private long[] medirTabla(TablaEmpresa tabla, Long empresaId) {
+        String origen = tabla.porProducto
+            ? tabla.nombre + " x JOIN productos p ON p.id = x.producto_id WHERE p.empresa_id = ?"
+            : tabla.nombre + " x WHERE x.empresa_id = ?";
+        String tamano = esPostgres() ? "pg_column_size(m.*)" : tabla.tamanoH2;
+        long[] muestra = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*), COALESCE(SUM(" + tamano + "), 0) FROM (SELECT x.* FROM " + origen + " LIMIT " + filasMuestra + ") m",
+            (rs, fila) -> new long[]{rs.getLong(1), rs.getLong(2)}, empresaId);
+        long enMuestra = muestra[0];
+        if (enMuestra == 0) {
+            return new long[]{0, 0};
+        }
+        long filas = enMuestra < filasMuestra
+            ? enMuestra
+            : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + origen, Long.class, empresaId);
+        long bytesPorFila = muestra[1] / enMuestra + BYTES_CABECERA_FILA;
+        return new long[]{filas, filas * bytesPorFila};
+    }
+
+    private boolean esPostgres() {
+        if (postgres == null) {
+            String motor = jdbcTemplate.execute((ConnectionCallback<String>) conexion ->
+                conexion.getMetaData().getDatabaseProductName());
+            postgres = motor != null && motor.toLowerCase().contains("postgres");
+        }
+        return postgres;
+    }
+
+    /**
+     * Tablas con datos de empresas, leídas del catálogo: las que tienen empresa_id y, entre las que
+     * no, las que tienen producto_id (se atribuyen a la empresa del producto)
+     */
+    private List<TablaEmpresa> tablas() {
+        if (tablas == null) {
+            Map<String, List<String[]>> columnasPorTabla = new LinkedHashMap<>();
+            jdbcTemplate.query(SQL_COLUMNAS, rs -> {
+                columnasPorTabla.computeIfAbsent(rs.getString("tabla"), t -> new ArrayList<>())
+                    .add(new String[]{rs.getString("columna"), rs.getString("tipo")});
+            });
+            List<TablaEmpresa> encontradas = new ArrayList<>();
+            for (Map.Entry<String, List<String[]>> entrada : columnasPorTabla.entrySet()) {
+                String nombre = entrada.getKey().toLowerCase();
+                if (TABLAS_EXCLUIDAS.contains(nombre) || !NOMBRE_SIMPLE.matcher(nombre).matches()) {
+                    continue;
+                }
+                boolean conEmpresa = false;
+                boolean conProducto = false;
+                List<String> tamanoColumnas = new ArrayList<>();
+                for (String[] columna : entrada.getValue()) {
+                    conEmpresa |= "empresa_id".equalsIgnoreCase(columna[0]);
+                    conProducto |= "producto_id".equalsIgnoreCase(columna[0]);
+                    String referencia = "m.\"" + columna[0].replace("\"", "\"\"") + "\"";
+                    String tipo = columna[1] != null ? columna[1] : "";
+                    tamanoColumnas.add(tipo.contains("LARGE OBJECT") || tipo.contains("LOB")
+                        ? "COALESCE(OCTET_LENGTH(" + referencia + "), 0)"
+                        : "COALESCE(OCTET_LENGTH(CAST(" + referencia + " AS VARCHAR)), 0)");
+                }
+                if (conEmpresa || conProducto) {
+                    encontradas.add(new TablaEmpresa(nombre, !conEmpresa, String.join(" + ", tamanoColumnas)));
+                }
+            }
+            tablas = encontradas;
+            logger.info("Medición de almacenamiento: {} tablas con datos de empresas", encontradas.size());
+        }
+        return tablas;
+    }
+
+    /**
+     * Crea la fila de la empresa en su propia transacción (si dos la crean a la vez, una falla sin
+     * arrastrar a la transacción que la pidió)
+     */
+    private void crearFila(Long empresaId) {
+        try {
+            TransactionTemplate creacion = new TransactionTemplate(transactionManager);
+            creacion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            creacion.executeWithoutResult(estado -> jdbcTemplate.update(String.format(SQL_CREAR, "e.id = ? AND"),
+                Timestamp.valueOf(LocalDateTime.now()), empresaId));
+        } catch (DataIntegrityViolationException e) {
+            // La creó otra transacción
+        }
+    }
+
+    /**
+     * Tabla medida por empresa: directa (empresa_id) o a través de productos (producto_id)
+     */
+    private static class TablaEmpresa {
+        private final String nombre;
+        private final boolean porProducto;
+        // Suma del largo en bytes de cada columna de la fila m (H2)
+        private final String tamanoH2;
+
+        TablaEmpresa(String nombre, boolean porProducto, String tamanoH2) {
+            this.nombre = nombre;
+            this.porProducto = porProducto;
+            this.tamanoH2 = tamanoH2;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.Plan;
+import com.minegocio.backend.entidades.Suscripcion;
+import com.minegocio.backend.repositorios.ArchivoEmpresaRepository;
+import com.minegocio.backend.repositorios.ClienteRepository;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.repositorios.UsuarioRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Medidor de uso por empresa para los límites del plan (LimiteService):
+ * - Guarda en memoria productos activos, clientes, usuarios activos y bytes de archivos activos
+ *   de cada empresa, junto con los límites del plan de su suscripción activa (con TTL)
+ * - Las altas, bajas y cambios de activo hechos por JPA (UsoEmpresaListener) ajustan los
+ *   contadores al confirmar la transacción; las demás réplicas descartan su entrada por el
+ *   BusInvalidacionCache y la vuelven a contar
+ * - Un recuento no se guarda si mientras se hacía hubo transacciones con ajustes de la empresa:
+ *   podría incluir o no sus cambios y el ajuste al confirmar los contaría dos veces
+ * - Una tarea periódica concilia los contadores con COUNT(*) agrupados por empresa (cambios por
+ *   JDBC o consultas masivas que no pasan por el listener)
+ */
+@Service
+public class UsoEmpresaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsoEmpresaService.class);
+
+    public static final String REGION = "uso-empresa";
+
+    // Empresas por consulta agrupada al conciliar
+    private static final int TAMANO_LOTE = 500;
+
+    private static final long BYTES_POR_GB = 1024L * 1024 * 1024;
+
+    public enum Recurso {
+        PRODUCTOS,
+        CLIENTES,
+        USUARIOS,
+        ALMACENAMIENTO
+    }
+
+    @Value("${minegocio.limites.max-empresas:5000}")
+    private int maxEmpresas;
+
+    @Value("${minegocio.limites.plan-ttl-segundos:300}")
+    private long planTtlSegundos;
+
+    @Autowired
+    private SuscripcionAutomaticaService suscripcionAutomaticaService;
+
+    @Autowired
+    private UsoAlmacenamientoService usoAlmacenamientoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ArchivoEmpresaRepository archivoEmpresaRepository;
+
+    @Autowired
+    private BusInvalidacionCache busInvalidacionCache;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong correcciones = new AtomicLong();
+
+    // Todo el estado siguiente se protege con el monitor de entradas.
+    // LinkedHashMap en orden de acceso: el primero es siempre el menos usado recientemente
+    private final LinkedHashMap<Long, Contadores> entradas = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Contadores> eldest) {
+            return size() > maxEmpresas;
+        }
+    };
+
+    // Cambia al empezar y al terminar cada transacción con ajustes de la empresa
+    private final Map<Long, Long> versiones = new HashMap<>();
+
+    // Transacciones con ajustes de la empresa todavía sin terminar
+    private final Map<Long, Integer> enCurso = new HashMap<>();
+
+    // Cambia al vaciar todas las entradas (invalidación sin empresa)
+    private long epoca;
+
+    // Cambia al descartar límites de plan: una carga que empezó antes no se guarda
+    private long generacionPlanes;
+
+    @PostConstruct
+    public void iniciar() {
+        busInvalidacionCache.suscribir(REGION, this::descartarLocal);
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("limites.uso.cache.aciertos", aciertos, AtomicLong::get)
+            .description("Verificaciones de límites resueltas en memoria")
+            .register(meterRegistry);
+        FunctionCounter.builder("limites.uso.cache.fallos", fallos, AtomicLong::get)
+            .description("Verificaciones de límites que tuvieron que contar o cargar el plan")
+            .register(meterRegistry);
+        FunctionCounter.builder("limites.uso.conciliacion.correcciones", correcciones, AtomicLong::get)
+            .description("Contadores de uso corregidos al conciliar con COUNT(*)")
+            .register(meterRegistry);
+        Gauge.builder("limites.uso.cache.entradas", this, UsoEmpresaService::getTamano)
+            .description("Empresas con contadores de uso en memoria")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Uso actual y límites del plan de una empresa; en memoria salvo la primera vez o al vencer el plan
+     */
+    @Transactional(readOnly = true)
+    public Uso obtener(Long empresaId) {
+        long ahora = System.currentTimeMillis();
+        long version;
+        long epocaInicial;
+        long generacionInicial;
+        boolean contar;
+        synchronized (entradas) {
+            Contadores existente = entradas.get(empresaId);
+            if (existente != null && existente.limites != null && existente.limites.expiraEn >= ahora) {
+                aciertos.incrementAndGet();
+                return new Uso(existente, existente.limites);
+            }
+            version = versiones.getOrDefault(empresaId, 0L);
+            epocaInicial = epoca;
+            generacionInicial = generacionPlanes;
+            contar = existente == null;
+        }
+
+        fallos.incrementAndGet();
+        LimitesPlan limites = cargarLimites(empresaId, ahora);
+        Contadores contados = contar ? contar(List.of(empresaId)).get(empresaId) : null;
+
+        synchronized (entradas) {
+            Contadores actual = entradas.get(empresaId);
+            if (actual == null && contados != null && sinCambios(empresaId, version, epocaInicial)) {
+                entradas.put(empresaId, contados);
+                actual = contados;
+            }
+            if (actual != null) {
+                if (generacionPlanes == generacionInicial) {
+                    actual.limites = limites;
+                }
+                return new Uso(actual, limites);
+            }
+        }
+        // La entrada se descartó mientras se cargaba el plan: se usa un recuento sin guardarlo
+        return new Uso(contados != null ? contados : contar(List.of(empresaId)).get(empresaId), limites);
+    }
+
+    /**
+     * Suma delta al contador del recurso de la empresa cuando se confirme la transacción actual
+     * (o ya mismo si no hay transacción)
+     */
+    public void ajustar(Long empresaId, Recurso recurso, long delta) {
+        if (empresaId == null || delta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (entradas) {
+                aplicarLocal(empresaId, recurso, delta);
+                marcarCambio(empresaId);
+            }
+            busInvalidacionCache.publicar(REGION, empresaId, null);
+            return;
+        }
+        // Se busca entre las sincronizaciones de la transacción actual (las de una suspendida no aparecen)
+        AjustesAlConfirmar ajustes = null;
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof AjustesAlConfirmar existentes) {
+                ajustes = existentes;
+                break;
+            }
+        }
+        if (ajustes == null) {
+            ajustes = new AjustesAlConfirmar();
+            TransactionSynchronizationManager.registerSynchronization(ajustes);
+        }
+        ajustes.sumar(empresaId, recurso, delta);
+    }
+
+    /**
+     * Descarta los límites de plan cacheados de una empresa (o de todas si es null) ahora y al
+     * confirmar la transacción actual, y avisa a las demás réplicas
+     */
+    public void invalidarPlan(Long empresaId) {
+        descartarPlanLocal(empresaId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartarPlanLocal(empresaId);
+                    busInvalidacionCache.publicar(REGION, empresaId, null);
+                }
+            });
+        } else {
+            busInvalidacionCache.publicar(REGION, empresaId, null);
+        }
+    }
+
+    /**
+     * Concilia periódicamente los contadores en memoria con COUNT(*) agrupados por empresa
+     */
+    @Scheduled(initialDelayString = "${minegocio.limites.conciliacion-ms:600000}",
+               fixedDelayString = "${minegocio.limites.conciliacion-ms:600000}")
+    public void conciliar() {
+        try {
+            List<Long> empresas;
+            Map<Long, Long> versionesIniciales = new HashMap<>();
+            long epocaInicial;
+            synchronized (entradas) {
+                empresas = new ArrayList<>(entradas.keySet());
+                for (Long empresaId : empresas) {
+                    versionesIniciales.put(empresaId, versiones.getOrDefault(empresaId, 0L));
+                }
+                epocaInicial = epoca;
+            }
+
+            int corregidas = 0;
+            for (int desde = 0; desde < empresas.size(); desde += TAMANO_LOTE) {
+                List<Long> lote = empresas.subList(desde, Math.min(empresas.size(), desde + TAMANO_LOTE));
+                Map<Long, Contadores> contados = contar(lote);
+                synchronized (entradas) {
+                    for (Long empresaId : lote) {
+                        Contadores actual = entradas.get(empresaId);
+                        Contadores calculado = contados.get(empresaId);
+                        if (actual == null || !sinCambios(empresaId, versionesIniciales.get(empresaId), epocaInicial)
+                                || actual.mismosValores(calculado)) {
+                            continue;
+                        }
+                        logger.warn("Uso de la empresa {} corregido por conciliación: productos {}→{}, clientes {}→{}, " +
+                                "usuarios {}→{}, bytes {}→{}", empresaId, actual.productos, calculado.productos,
+                            actual.clientes, calculado.clientes, actual.usuarios, calculado.usuarios,
+                            actual.archivosBytes, calculado.archivosBytes);
+                        actual.copiarDe(calculado);
+                        corregidas++;
+                    }
+                }
+            }
+            correcciones.addAndGet(corregidas);
+            logger.debug("Conciliación de uso: {} empresas revisadas, {} corregidas", empresas.size(), corregidas);
+        } catch (Exception e) {
+            logger.error("Error conciliando los contadores de uso: {}", e.getMessage(), e);
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    /**
+     * Cuenta el uso de varias empresas con una consulta agrupada por recurso
+     */
+    private Map<Long, Contadores> contar(Collection<Long> empresaIds) {
+        Map<Long, Contadores> contados = new HashMap<>();
+        for (Long empresaId : empresaIds) {
+            contados.put(empresaId, new Contadores());
+        }
+        for (Object[] fila : productoRepository.contarActivosPorEmpresas(empresaIds)) {
+            contados.get((Long) fila[0]).productos = ((Number) fila[1]).longValue();
+        }
+        for (Object[] fila : clienteRepository.contarPorEmpresas(empresaIds)) {
+            contados.get((Long) fila[0]).clientes = ((Number) fila[1]).longValue();
+        }
+        for (Object[] fila : usuarioRepository.contarActivosPorEmpresas(empresaIds)) {
+            contados.get((Long) fila[0]).usuarios = ((Number) fila[1]).longValue();
+        }
+        for (Object[] fila : archivoEmpresaRepository.sumarTamañoActivosPorEmpresas(empresaIds)) {
+            contados.get((Long) fila[0]).archivosBytes = ((Number) fila[1]).longValue();
+        }
+        return contados;
+    }
+
+    private LimitesPlan cargarLimites(Long empresaId, long ahora) {
+        long expiraEn = ahora + planTtlSegundos * 1000;
+        Suscripcion suscripcion = suscripcionAutomaticaService.obtenerSuscripcionActiva(empresaId);
+        if (suscripcion == null) {
+            return new LimitesPlan(null, 0, 0, 0, 0, 0, expiraEn);
+        }
+        Plan plan = suscripcion.getPlan();
+        // La parte de base de datos del almacenamiento la mide UsoAlmacenamientoService en segundo
+        // plano: se relee la última medición junto con el plan, sin medir en esta lectura
+        long baseDatosBytes = usoAlmacenamientoService.obtenerBaseDatosBytesMedidos(empresaId);
+        return new LimitesPlan(plan.getNombre(), plan.getMaxProductos(), plan.getMaxClientes(),
+            plan.getMaxUsuarios(), plan.getMaxAlmacenamientoGB(), baseDatosBytes, expiraEn);
+    }
+
+    // Los métodos siguientes se llaman con el monitor de entradas tomado
+
+    private boolean sinCambios(Long empresaId, Long versionInicial, long epocaInicial) {
+        return epoca == epocaInicial
+            && enCurso.getOrDefault(empresaId, 0) == 0
+            && versiones.getOrDefault(empresaId, 0L).equals(versionInicial);
+    }
+
+    private void marcarCambio(Long empresaId) {
+        versiones.merge(empresaId, 1L, Long::sum);
+    }
+
+    private void aplicarLocal(Long empresaId, Recurso recurso, long delta) {
+        Contadores contadores = entradas.get(empresaId);
+        if (contadores != null) {
+            contadores.sumar(recurso, delta);
+        }
+    }
+
+    private void descartarPlanLocal(Long empresaId) {
+        synchronized (entradas) {
+            generacionPlanes++;
+            if (empresaId == null) {
+                entradas.values().forEach(contadores -> contadores.limites = null);
+            } else if (entradas.containsKey(empresaId)) {
+                entradas.get(empresaId).limites = null;
+            }
+        }
+    }
+
+    /**
+     * Aplica una invalidación de otra réplica: descarta la entrada y se vuelve a contar
+     */
+    private void descartarLocal(Long empresaId, LocalDate fecha) {
+        synchronized (entradas) {
+            generacionPlanes++;
+            if (empresaId == null) {
+                epoca++;
+                entradas.clear();
+            } else {
+                marcarCambio(empresaId);
+                entradas.remove(empresaId);
+            }
+        }
+    }
+
+    /**
+     * Ajustes de la transacción actual por empresa; se aplican al confirmarla
+     */
+    private class AjustesAlConfirmar implements TransactionSynchronization {
+        private final Map<Long, long[]> deltas = new LinkedHashMap<>();
+
+        void sumar(Long empresaId, Recurso recurso, long delta) {
+            long[] porRecurso = deltas.get(empresaId);
+            if (porRecurso == null) {
+                porRecurso = new long[Recurso.values().length];
+                deltas.put(empresaId, porRecurso);
+                synchronized (entradas) {
+                    enCurso.merge(empresaId, 1, Integer::sum);
+                    marcarCambio(empresaId);
+                }
+            }
+            porRecurso[recurso.ordinal()] += delta;
+        }
+
+        @Override
+        public void afterCommit() {
+            List<Long> cambiadas = new ArrayList<>();
+            synchronized (entradas) {
+                for (Map.Entry<Long, long[]> entrada : deltas.entrySet()) {
+                    boolean cambio = false;
+                    for (Recurso recurso : Recurso.values()) {
+                        long delta = entrada.getValue()[recurso.ordinal()];
+                        if (delta != 0) {
+                            aplicarLocal(entrada.getKey(), recurso, delta);
+                            cambio = true;
+                        }
+                    }
+                    if (cambio) {
+                        cambiadas.add(entrada.getKey());
+                    }
+                }
+            }
+            for (Long empresaId : cambiadas) {
+                busInvalidacionCache.publicar(REGION, empresaId, null);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            synchronized (entradas) {
+                for (Long empresaId : deltas.keySet()) {
+                    enCurso.computeIfPresent(empresaId, (id, abiertas) -> abiertas > 1 ? abiertas - 1 : null);
+                    marcarCambio(empresaId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Contadores de uso de una empresa en memoria
+     */
+    private static class Contadores {
+        private long productos;
+        private long clientes;
+        private long usuarios;
+        private long archivosBytes;
+        private LimitesPlan limites;
+
+        void sumar(Recurso recurso, long delta) {
+            switch (recurso) {
+                case PRODUCTOS -> productos = Math.max(0, productos + delta);
+                case CLIENTES -> clientes = Math.max(0, clientes + delta);
+                case USUARIOS -> usuarios = Math.max(0, usuarios + delta);
+                case ALMACENAMIENTO -> archivosBytes = Math.max(0, archivosBytes + delta);
+            }
+        }
+
+        boolean mismosValores(Contadores otros) {
+            return productos == otros.productos && clientes == otros.clientes
+                && usuarios == otros.usuarios && archivosBytes == otros.archivosBytes;
+        }
+
+        void copiarDe(Contadores otros) {
+            productos = otros.productos;
+            clientes = otros.clientes;
+            usuarios = otros.usuarios;
+            archivosBytes = otros.archivosBytes;
+        }
+    }
+
+    /**
+     * Límites del plan de la suscripción activa (planNombre null: sin suscripción activa)
+     */
+    private static class LimitesPlan {
+        private final String planNombre;
+        private final long maxProductos;
+        private final long maxClientes;
+        private final long maxUsuarios;
+        private final long maxAlmacenamientoGB;
+        private final long baseDatosBytes;
+        private final long expiraEn;
+
+        LimitesPlan(String planNombre, long maxProductos, long maxClientes, long maxUsuarios,
+                    long maxAlmacenamientoGB, long baseDatosBytes, long expiraEn) {
+            this.planNombre = planNombre;
+            this.maxProductos = maxProductos;
+            this.maxClientes = maxClientes;
+            this.maxUsuarios = maxUsuarios;
+            this.maxAlmacenamientoGB = maxAlmacenamientoGB;
+            this.baseDatosBytes = baseDatosBytes;
+            this.expiraEn = expiraEn;
+        }
+    }
+
+    /**
+     * Foto inmutable del uso y los límites de una empresa (un límite -1 es ilimitado)
+     */
+    public static class Uso {
+        private final long productos;
+        private final long clientes;
+        private final long usuarios;
+        private final long almacenamientoBytes;
+        private final LimitesPlan limites;
+
+        private Uso(Contadores contadores, LimitesPlan limites) {
+            this.productos = contadores.productos;
+            this.clientes = contadores.clientes;
+            this.usuarios = contadores.usuarios;
+            this.almacenamientoBytes = contadores.archivosBytes + limites.baseDatosBytes;
+            this.limites = limites;
+        }
+
+        /**
+         * Cuánto más del recurso admite el plan (bytes para ALMACENAMIENTO); 0 sin suscripción
+         * activa y Long.MAX_VALUE si el plan no tiene límite
+         */
+        public long disponible(Recurso recurso) {
+            if (!isConSuscripcion()) return 0;
+            long maximo;
+            long actual;
+            switch (recurso) {
+                case PRODUCTOS -> { maximo = limites.maxProductos; actual = productos; }
+                case CLIENTES -> { maximo = limites.maxClientes; actual = clientes; }
+                case USUARIOS -> { maximo = limites.maxUsuarios; actual = usuarios; }
+                default -> {
+                    maximo = limites.maxAlmacenamientoGB == -1 ? -1 : limites.maxAlmacenamientoGB * BYTES_POR_GB;
+                    actual = almacenamientoBytes;
+                }
+            }
+            if (maximo == -1) return Long.MAX_VALUE; // Sin límite
+            return Math.max(0, maximo - actual);
+        }
+
+        public boolean isConSuscripcion() { return limites.planNombre != null; }
+        public String getPlanNombre() { return limites.planNombre; }
+
+        public long getProductos() { return productos; }
+        public long getClientes() { return clientes; }
+        public long getUsuarios() { return usuarios; }
+        public long getAlmacenamientoBytes() { return almacenamientoBytes; }
+
+        public long getMaxProductos() { return limites.maxProductos; }
+        public long getMaxClientes() { return limites.maxClientes; }
+        public long getMaxUsuarios() { return limites.maxUsuarios; }
+        public long getMaxAlmacenamientoGB() { return limites.maxAlmacenamientoGB; }
+    }
+}
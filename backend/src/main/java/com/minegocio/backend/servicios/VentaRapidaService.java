@@ -8,6 +8,8 @@ import com.minegocio.backend.repositorios.ClienteRepository;
 import com.minegocio.backend.repositorios.EmpresaRepository;
 import com.minegocio.backend.repositorios.ProductoRepository;
 import com.minegocio.backend.repositorios.VentaRapidaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +19,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -26,6 +29,8 @@ import java.util.Map;
  */
 @Service
 public class VentaRapidaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentaRapidaService.class);
     
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
@@ -49,6 +54,15 @@ public class VentaRapidaService {
     
     @Autowired
     private StockSincronizacionService stockSincronizacionService;
+    
+    @Autowired
+    private RankingVentasService rankingVentasService;
+
+    @Autowired
+    private ResumenVentasDiarioService resumenVentasDiarioService;
+
+    @Autowired
+    private NumeradorDocumentosService numeradorDocumentosService;
 
     /**
      * Procesa una venta rápida y la guarda en el historial
@@ -80,34 +94,27 @@ public class VentaRapidaService {
         if (ventaDTO.getFechaVenta() != null && !ventaDTO.getFechaVenta().isEmpty()) {
             try {
                 fechaVenta = LocalDateTime.parse(ventaDTO.getFechaVenta(), DATETIME_FORMATTER);
-                System.out.println("📅 [VENTA RAPIDA] Usando fecha del DTO: " + fechaVenta);
+                logger.debug("📅 [VENTA RAPIDA] Usando fecha del DTO: {}", fechaVenta);
             } catch (Exception e) {
-                System.out.println("⚠️ [VENTA RAPIDA] Error al parsear fecha del DTO, usando fecha actual: " + e.getMessage());
+                logger.debug("⚠️ [VENTA RAPIDA] Error al parsear fecha del DTO, usando fecha actual: {}", e.getMessage());
                 fechaVenta = LocalDateTime.now();
             }
         } else {
             fechaVenta = LocalDateTime.now();
-            System.out.println("📅 [VENTA RAPIDA] Usando fecha actual: " + fechaVenta);
+            logger.debug("📅 [VENTA RAPIDA] Usando fecha actual: {}", fechaVenta);
         }
         ventaRapida.setFechaVenta(fechaVenta);
         
-        // Generar número de comprobante usando la fecha del usuario
-        String numeroComprobante = "VR-" + (fechaVenta.getHour() * 100 + fechaVenta.getMinute());
+        // Generar número de comprobante único
+        String numeroComprobante = numeradorDocumentosService.siguienteNumeroVentaRapida(empresaId);
         ventaRapida.setNumeroComprobante(numeroComprobante);
 
         // Agregar detalles de la venta
+        Map<Long, Integer> cantidadesPorProducto = new HashMap<>();
         for (VentaRapidaDTO.DetalleVentaRapidaDTO detalleDTO : ventaDTO.getDetalles()) {
             Producto producto = productoRepository.findById(detalleDTO.getProductoId())
                     .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + detalleDTO.getProductoId()));
 
-            // Verificar stock total disponible (incluyendo sectores)
-            Map<String, Object> detalleStock = stockSincronizacionService.obtenerDetalleStockDisponible(empresaId, detalleDTO.getProductoId());
-            Integer stockTotalDisponible = (Integer) detalleStock.get("stockTotal");
-            if (stockTotalDisponible < detalleDTO.getCantidad()) {
-                throw new RuntimeException("Stock insuficiente para " + producto.getNombre() + 
-                    ". Disponible: " + stockTotalDisponible + ", Solicitado: " + detalleDTO.getCantidad());
-            }
-
             // Crear detalle de la venta rápida
             DetalleVentaRapida detalle = new DetalleVentaRapida();
             detalle.setVentaRapida(ventaRapida);
@@ -117,45 +124,52 @@ public class VentaRapidaService {
             detalle.setPrecioUnitario(detalleDTO.getPrecioUnitario());
             detalle.setSubtotal(detalleDTO.getSubtotal());
 
-            // Descontar stock usando la estrategia híbrida inteligente
-            try {
-                Map<String, Object> resultadoDescuento = stockSincronizacionService.descontarStockInteligente(
-                    empresaId, 
-                    detalleDTO.getProductoId(), 
-                    detalleDTO.getCantidad(), 
-                    "Venta rápida - " + ventaRapida.getNumeroComprobante()
-                );
-                System.out.println("✅ STOCK SINCRONIZACIÓN - Stock descontado para venta rápida: " + resultadoDescuento);
-            } catch (Exception e) {
-                System.err.println("❌ STOCK SINCRONIZACIÓN - Error al descontar stock: " + e.getMessage());
-                throw new RuntimeException("Error al procesar el descuento de stock: " + e.getMessage());
-            }
+            cantidadesPorProducto.merge(detalleDTO.getProductoId(), detalleDTO.getCantidad(), Integer::sum);
+            ventaRapida.agregarDetalle(detalle);
+        }
+
+        // Descontar stock usando la estrategia híbrida inteligente: el control de stock suficiente
+        // es el propio UPDATE condicional, todas las líneas en un lote (si una falla no se descuenta ninguna)
+        try {
+            List<Map<String, Object>> resultadosDescuento = stockSincronizacionService.descontarStockInteligente(
+                empresaId,
+                cantidadesPorProducto,
+                "Venta rápida - " + ventaRapida.getNumeroComprobante()
+            );
+            logger.debug("✅ STOCK SINCRONIZACIÓN - Stock descontado para venta rápida: {}", resultadosDescuento);
+        } catch (Exception e) {
+            logger.error("❌ STOCK SINCRONIZACIÓN - Error al descontar stock: {}", e.getMessage());
+            throw new RuntimeException("Error al procesar el descuento de stock: " + e.getMessage());
+        }
 
-            // Registrar la operación de decremento en el historial de inventario
-            if (usuarioId != null) {
+        // Registrar las operaciones de decremento en el historial de inventario
+        if (usuarioId != null) {
+            for (DetalleVentaRapida detalle : ventaRapida.getDetalles()) {
                 try {
                     InventarioRequestDTO request = new InventarioRequestDTO();
-                    request.setProductoId(detalleDTO.getProductoId());
+                    request.setProductoId(detalle.getProducto().getId());
                     request.setTipoOperacion("DECREMENTO");
-                    request.setCantidad(detalleDTO.getCantidad());
-                    request.setPrecioUnitario(detalleDTO.getPrecioUnitario());
+                    request.setCantidad(detalle.getCantidad());
+                    request.setPrecioUnitario(detalle.getPrecioUnitario());
                     request.setObservacion("Venta rápida - " + ventaRapida.getNumeroComprobante());
-                    request.setCodigoBarras(producto.getCodigoBarras());
+                    request.setCodigoBarras(detalle.getProducto().getCodigoBarras());
                     request.setMetodoEntrada("VENTA_RAPIDA");
                     
                     historialInventarioService.registrarOperacionInventario(request, usuarioId, empresaId, false);
                 } catch (Exception e) {
                     // Log del error pero no fallar la operación principal
-                    System.err.println("Error al registrar historial de inventario en venta rápida: " + e.getMessage());
+                    logger.warn("Error al registrar historial de inventario en venta rápida: {}", e.getMessage());
                 }
             }
-
-            ventaRapida.agregarDetalle(detalle);
         }
 
         // Guardar la venta rápida
         VentaRapida ventaGuardada = ventaRapidaRepository.save(ventaRapida);
         
+        // Actualizar contadores del ranking de ventas
+        rankingVentasService.registrarVentaRapida(ventaGuardada);
+        resumenVentasDiarioService.registrarVentaRapida(ventaGuardada);
+        
         // Crear notificación de venta rápida
         notificacionService.crearNotificacionVentaRapida(empresaId, ventaDTO.getTotal().doubleValue(), ventaDTO.getMetodoPago());
         
@@ -318,81 +332,28 @@ public class VentaRapidaService {
     /**
      * Obtiene estadísticas de ventas rápidas para una empresa
      */
+    @Transactional(readOnly = true)
     public VentaRapidaEstadisticas obtenerEstadisticasVentasRapidas(Long empresaId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        System.out.println("=== DEBUG ESTADISTICAS VENTAS RAPIDAS CON FECHAS ===");
-        System.out.println("🔍 Buscando ventas para empresa ID: " + empresaId);
-        System.out.println("📅 Fecha inicio: " + fechaInicio);
-        System.out.println("📅 Fecha fin: " + fechaFin);
-        
-        List<VentaRapida> ventas = ventaRapidaRepository.findByEmpresaIdAndFechaVentaBetweenOrderByFechaVentaDesc(
-            empresaId, fechaInicio, fechaFin);
-        
-        System.out.println("📊 Ventas encontradas en rango: " + ventas.size());
-
-        BigDecimal totalVentas = ventas.stream()
-                .map(VentaRapida::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int totalTransacciones = ventas.size();
-
-        int totalProductos = ventas.stream()
-                .mapToInt(venta -> venta.getDetalles().size())
-                .sum();
-
-        // Calcular total de unidades vendidas
-        int totalUnidadesVendidas = ventas.stream()
-                .flatMapToInt(venta -> venta.getDetalles().stream()
-                        .mapToInt(detalle -> detalle.getCantidad()))
-                .sum();
-
-        System.out.println("💰 Total ventas en rango: " + totalVentas);
-        System.out.println("🔄 Total transacciones en rango: " + totalTransacciones);
-        System.out.println("📦 Total productos en rango: " + totalProductos);
-        System.out.println("📊 Total unidades vendidas en rango: " + totalUnidadesVendidas);
-        System.out.println("=== FIN DEBUG ESTADISTICAS VENTAS RAPIDAS CON FECHAS ===");
-
-        return new VentaRapidaEstadisticas(totalVentas, totalTransacciones, totalProductos, ventas.size(), totalUnidadesVendidas);
+        logger.debug("📊 Estadísticas de ventas rápidas - Empresa: {}, Rango: {} - {}", empresaId, fechaInicio, fechaFin);
+        return convertirAEstadisticas(resumenVentasDiarioService.resumirVentasRapidas(empresaId, fechaInicio, fechaFin));
     }
 
     /**
      * Obtiene estadísticas de ventas rápidas para una empresa (todas las ventas)
      */
+    @Transactional(readOnly = true)
     public VentaRapidaEstadisticas obtenerEstadisticasVentasRapidas(Long empresaId) {
-        System.out.println("=== DEBUG ESTADISTICAS VENTAS RAPIDAS ===");
-        System.out.println("🔍 Buscando ventas para empresa ID: " + empresaId);
-        
-        List<VentaRapida> ventas = ventaRapidaRepository.findByEmpresaIdOrderByFechaVentaDesc(empresaId);
-        
-        System.out.println("📊 Ventas encontradas: " + ventas.size());
-        
-        if (!ventas.isEmpty()) {
-            System.out.println("📋 Primera venta: ID=" + ventas.get(0).getId() + ", Total=" + ventas.get(0).getTotal());
-            System.out.println("📋 Última venta: ID=" + ventas.get(ventas.size()-1).getId() + ", Total=" + ventas.get(ventas.size()-1).getTotal());
-        }
-
-        BigDecimal totalVentas = ventas.stream()
-                .map(VentaRapida::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int totalTransacciones = ventas.size();
-
-        int totalProductos = ventas.stream()
-                .mapToInt(venta -> venta.getDetalles().size())
-                .sum();
-
-        // Calcular total de unidades vendidas
-        int totalUnidadesVendidas = ventas.stream()
-                .flatMapToInt(venta -> venta.getDetalles().stream()
-                        .mapToInt(detalle -> detalle.getCantidad()))
-                .sum();
-
-        System.out.println("💰 Total ventas: " + totalVentas);
-        System.out.println("🔄 Total transacciones: " + totalTransacciones);
-        System.out.println("📦 Total productos: " + totalProductos);
-        System.out.println("📊 Total unidades vendidas: " + totalUnidadesVendidas);
-        System.out.println("=== FIN DEBUG ESTADISTICAS VENTAS RAPIDAS ===");
+        logger.debug("📊 Estadísticas de ventas rápidas - Empresa: {}", empresaId);
+        return convertirAEstadisticas(resumenVentasDiarioService.resumirVentasRapidas(empresaId, null, null));
+    }
 
-        return new VentaRapidaEstadisticas(totalVentas, totalTransacciones, totalProductos, ventas.size(), totalUnidadesVendidas);
+    /**
+     * Arma las estadísticas desde el resumen diario: totalProductos son los renglones de detalle
+     */
+    private VentaRapidaEstadisticas convertirAEstadisticas(ResumenVentasDiarioService.Totales totales) {
+        int cantidadVentas = (int) totales.getCantidad();
+        return new VentaRapidaEstadisticas(totales.getTotal(), cantidadVentas, (int) totales.getLineas(),
+                cantidadVentas, (int) totales.getUnidades());
     }
 
     /**
@@ -0,0 +1,340 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.VistaStockSector;
+import com.minegocio.backend.repositorios.VistaStockSectorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mantiene la proyección vista_stock_sector y la lee para las pantallas de stock general:
+ * - Los cambios de Producto y StockPorSector hechos por JPA marcan el producto (VistaStockListener);
+ *   los servicios que escriben por JDBC lo marcan con marcar()
+ * - Al confirmar la transacción se recalculan solo las filas de los productos marcados, en pocas
+ *   sentencias por lote y con las filas de esos productos bloqueadas (así dos transacciones no
+ *   duplican filas)
+ * - La lectura es una sola consulta indexada por empresa, con paginación y filtros
+ * - Como todo cambio de stock pasa por acá, también invalida la caché de la tienda pública
+ */
+@Service
+public class VistaStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VistaStockService.class);
+
+    private static final int TAMANO_LOTE = 500;
+
+    private static final String SQL_BLOQUEAR_PRODUCTOS =
+        "SELECT id, empresa_id, nombre, codigo_personalizado, unidad, activo, stock, fecha_actualizacion " +
+        "FROM productos WHERE id IN (%s) ORDER BY id FOR UPDATE";
+
+    private static final String SQL_STOCK_SECTORES =
+        "SELECT sps.id, sps.producto_id, sps.sector_id, s.nombre AS sector_nombre, sps.cantidad, sps.fecha_actualizacion " +
+        "FROM stock_por_sector sps JOIN sectores s ON s.id = sps.sector_id " +
+        "WHERE sps.producto_id IN (%s) ORDER BY sps.id";
+
+    private static final String SQL_IMAGENES =
+        "SELECT producto_id, url_imagen FROM producto_imagenes WHERE producto_id IN (%s)";
+
+    private static final String SQL_ELIMINAR =
+        "DELETE FROM vista_stock_sector WHERE producto_id IN (%s)";
+
+    private static final String SQL_INSERTAR =
+        "INSERT INTO vista_stock_sector (empresa_id, producto_id, sector_id, sector_nombre, stock_por_sector_id, " +
+        "producto_nombre, codigo_personalizado, unidad_medida, imagen_url, producto_activo, cantidad, fecha_actualizacion) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VistaStockSectorRepository vistaStockSectorRepository;
+
+    @Autowired
+    private CacheTiendaPublicaService cacheTiendaPublicaService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Marca productos cuyo stock o datos cambiaron; sus filas se recalculan al confirmar la transacción
+     */
+    public void marcar(Collection<Long> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refrescar(productoIds);
+            return;
+        }
+        // Se busca entre las sincronizaciones de la transacción actual (las de una suspendida no aparecen)
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof RefrescoAlConfirmar refresco) {
+                refresco.productoIds.addAll(productoIds);
+                return;
+            }
+        }
+        RefrescoAlConfirmar refresco = new RefrescoAlConfirmar();
+        refresco.productoIds.addAll(productoIds);
+        TransactionSynchronizationManager.registerSynchronization(refresco);
+    }
+
+    public void marcar(Long productoId) {
+        if (productoId != null) {
+            marcar(Collections.singleton(productoId));
+        }
+    }
+
+    /**
+     * Propaga el nuevo nombre de un sector a sus filas
+     */
+    public void actualizarNombreSector(Long sectorId, String nombre) {
+        jdbcTemplate.update("UPDATE vista_stock_sector SET sector_nombre = ? WHERE sector_id = ?", nombre, sectorId);
+    }
+
+    /**
+     * Recalcula las filas de los productos indicados con el estado actual de la base
+     */
+    @Transactional
+    public void refrescar(Collection<Long> productoIds) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(productoIds));
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE) {
+            refrescarLote(ids.subList(desde, Math.min(ids.size(), desde + TAMANO_LOTE)));
+        }
+    }
+
+    private void refrescarLote(List<Long> ids) {
+        String marcadores = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] parametros = ids.toArray();
+
+        Map<Long, Object[]> productos = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(SQL_BLOQUEAR_PRODUCTOS, marcadores), rs -> {
+            productos.put(rs.getLong("id"), new Object[]{
+                rs.getLong("empresa_id"), rs.getString("nombre"), rs.getString("codigo_personalizado"),
+                rs.getString("unidad"), rs.getObject("activo") == null || rs.getBoolean("activo"),
+                rs.getObject("stock") != null ? rs.getInt("stock") : null, rs.getTimestamp("fecha_actualizacion")
+            });
+        }, parametros);
+
+        Map<Long, String> imagenes = new HashMap<>();
+        jdbcTemplate.query(String.format(SQL_IMAGENES, marcadores),
+            rs -> { imagenes.putIfAbsent(rs.getLong("producto_id"), rs.getString("url_imagen")); }, parametros);
+
+        Map<Long, Integer> stockEnSectores = new HashMap<>();
+        List<Object[]> filas = new ArrayList<>();
+        jdbcTemplate.query(String.format(SQL_STOCK_SECTORES, marcadores), rs -> {
+            long productoId = rs.getLong("producto_id");
+            Object[] producto = productos.get(productoId);
+            int cantidad = rs.getInt("cantidad");
+            stockEnSectores.merge(productoId, cantidad, Integer::sum);
+            if (producto != null && cantidad > 0) {
+                filas.add(fila(producto, productoId, rs.getLong("sector_id"), rs.getString("sector_nombre"),
+                    rs.getLong("id"), imagenes.get(productoId), cantidad, rs.getTimestamp("fecha_actualizacion")));
+            }
+        }, parametros);
+
+        // Stock sin sectorizar: lo que el total del producto tiene fuera de los sectores
+        for (Map.Entry<Long, Object[]> entrada : productos.entrySet()) {
+            Object[] producto = entrada.getValue();
+            Integer stock = (Integer) producto[5];
+            int sinSectorizar = stock == null ? 0 : Math.max(0, stock - stockEnSectores.getOrDefault(entrada.getKey(), 0));
+            if (sinSectorizar > 0) {
+                filas.add(fila(producto, entrada.getKey(), null, null, null, imagenes.get(entrada.getKey()),
+                    sinSectorizar, (Timestamp) producto[6]));
+            }
+        }
+
+        jdbcTemplate.update(String.format(SQL_ELIMINAR, marcadores), parametros);
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+        }
+
+        // Stock publicado en la tienda: listados y detalle de estos productos, por empresa
+        Map<Long, List<Long>> productosPorEmpresa = new HashMap<>();
+        productos.forEach((productoId, producto) ->
+            productosPorEmpresa.computeIfAbsent((Long) producto[0], k -> new ArrayList<>()).add(productoId));
+        productosPorEmpresa.forEach(cacheTiendaPublicaService::invalidarStockProductos);
+    }
+
+    private static Object[] fila(Object[] producto, Long productoId, Long sectorId, String sectorNombre, Long stockPorSectorId,
+                                 String imagenUrl, int cantidad, Timestamp fecha) {
+        return new Object[]{producto[0], productoId, sectorId, sectorNombre, stockPorSectorId,
+            producto[1], producto[2], producto[3], imagenUrl, producto[4], cantidad, fecha};
+    }
+
+    /**
+     * Recalcula la proyección completa de una empresa
+     */
+    @Transactional
+    public void reconstruir(Long empresaId) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM productos WHERE empresa_id = ?", Long.class, empresaId);
+        // Filas de productos que ya no existen
+        jdbcTemplate.update("DELETE FROM vista_stock_sector WHERE empresa_id = ? AND producto_id NOT IN " +
+            "(SELECT id FROM productos WHERE empresa_id = ?)", empresaId, empresaId);
+        refrescar(ids);
+    }
+
+    /**
+     * Carga inicial: empresas con stock que todavía no tienen filas en la proyección
+     * (la tabla recién creada o bases donde Flyway no corre)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarEmpresasSinProyeccion() {
+        try {
+            List<Long> empresas = jdbcTemplate.queryForList(
+                "SELECT e.id FROM empresas e WHERE EXISTS (SELECT 1 FROM productos p WHERE p.empresa_id = e.id AND p.stock > 0) " +
+                "AND NOT EXISTS (SELECT 1 FROM vista_stock_sector v WHERE v.empresa_id = e.id)", Long.class);
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            for (Long empresaId : empresas) {
+                transaccion.executeWithoutResult(estado -> reconstruir(empresaId));
+            }
+            if (!empresas.isEmpty()) {
+                logger.info("📦 VISTA STOCK - Proyección construida para {} empresas", empresas.size());
+            }
+        } catch (Exception e) {
+            logger.error("❌ VISTA STOCK - Error en la carga inicial de la proyección: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stock general (formato de SectorService.obtenerStockGeneral) en una sola lectura
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerStockGeneral(Long empresaId) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (VistaStockSector fila : vistaStockSectorRepository.findStockGeneral(empresaId)) {
+            items.add(aItemStockGeneral(fila));
+        }
+        return items;
+    }
+
+    /**
+     * Stock general paginado. busqueda filtra por nombre o código, conSector por tipo de fila.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerStockGeneralPaginado(Long empresaId, int pagina, int tamano,
+                                                          String busqueda, Long sectorId, Boolean conSector) {
+        String patron = busqueda == null || busqueda.trim().isEmpty() ? null : "%" + busqueda.trim().toLowerCase() + "%";
+        Page<VistaStockSector> filas = vistaStockSectorRepository.buscarStockGeneral(empresaId, patron, sectorId, conSector,
+            PageRequest.of(pagina, tamano, Sort.by("productoNombre", "id")));
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (VistaStockSector fila : filas.getContent()) {
+            items.add(aItemStockGeneral(fila));
+        }
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("content", items);
+        resultado.put("page", filas.getNumber());
+        resultado.put("size", filas.getSize());
+        resultado.put("totalElements", filas.getTotalElements());
+        resultado.put("totalPages", filas.getTotalPages());
+        return resultado;
+    }
+
+    /**
+     * Stock detallado (formato de SectorService.obtenerStockDetallado): productos activos con sus ubicaciones
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerStockDetallado(Long empresaId) {
+        Map<Long, Map<String, Object>> productos = new LinkedHashMap<>();
+        for (VistaStockSector fila : vistaStockSectorRepository.findStockDetallado(empresaId)) {
+            Map<String, Object> producto = productos.computeIfAbsent(fila.getProductoId(), id -> {
+                Map<String, Object> nuevo = new HashMap<>();
+                nuevo.put("productoId", id);
+                nuevo.put("productoNombre", fila.getProductoNombre());
+                nuevo.put("codigoPersonalizado", fila.getCodigoPersonalizado());
+                nuevo.put("ubicaciones", new ArrayList<Map<String, Object>>());
+                return nuevo;
+            });
+            Map<String, Object> ubicacion = new HashMap<>();
+            ubicacion.put("ubicacion", fila.getSectorId() == null ? "Sin asignar" : fila.getSectorNombre());
+            ubicacion.put("cantidad", fila.getCantidad());
+            ubicacion.put("stockId", fila.getSectorId() == null ? fila.getProductoId() + "_sin_asignar" : fila.getStockPorSectorId().toString());
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> ubicaciones = (List<Map<String, Object>>) producto.get("ubicaciones");
+            ubicaciones.add(ubicacion);
+        }
+        return new ArrayList<>(productos.values());
+    }
+
+    private Map<String, Object> aItemStockGeneral(VistaStockSector fila) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", fila.getSectorId() == null ? fila.getProductoId() + "_sin_sector" : fila.getStockPorSectorId());
+        item.put("producto", Map.of(
+            "id", fila.getProductoId(),
+            "nombre", fila.getProductoNombre(),
+            "codigoPersonalizado", fila.getCodigoPersonalizado() != null ? fila.getCodigoPersonalizado() : "",
+            "unidadMedida", fila.getUnidadMedida() != null ? fila.getUnidadMedida() : "",
+            "imagenes", fila.getImagenUrl() != null ? List.of(fila.getImagenUrl()) : List.of()
+        ));
+        item.put("sector", fila.getSectorId() == null ? null : Map.of(
+            "id", fila.getSectorId(),
+            "nombre", fila.getSectorNombre()
+        ));
+        item.put("cantidad", fila.getCantidad());
+        item.put("fechaActualizacion", fila.getFechaActualizacion() != null ? fila.getFechaActualizacion().toString() : new Date().toString());
+        item.put("tipo", fila.getSectorId() == null ? "sin_sector" : "con_sector");
+        return item;
+    }
+
+    /**
+     * Productos marcados en la transacción actual; se recalculan justo antes del commit.
+     * Si la marca llegó en el flush del propio commit (beforeCommit ya pasó), se recalculan
+     * después, en una transacción nueva.
+     */
+    private class RefrescoAlConfirmar implements TransactionSynchronization {
+
+        private final Set<Long> productoIds = new TreeSet<>();
+        private boolean refrescado;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (readOnly) {
+                return;
+            }
+            // El flush dispara los listeners de las entidades que todavía no se escribieron
+            entityManager.flush();
+            refrescar(new ArrayList<>(productoIds));
+            refrescado = true;
+        }
+
+        @Override
+        public void afterCommit() {
+            if (refrescado) {
+                return;
+            }
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transaccion.executeWithoutResult(estado -> refrescar(new ArrayList<>(productoIds)));
+        }
+    }
+}
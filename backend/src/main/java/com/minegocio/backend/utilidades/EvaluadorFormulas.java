@@ -0,0 +1,292 @@
+package com.minegocio.backend.utilidades;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Compilador de fórmulas de conteo ("12x24+6", "3*(10+2)", "100/4").
+ * Tokeniza y parsea con un parser Pratt a un árbol inmutable, que luego se
+ * puede evaluar muchas veces y desde varios hilos sin volver a parsear.
+ * - Operadores: + - * / y 'x'/'X' como multiplicación, paréntesis y signo unario
+ * - Aritmética exacta: enteros en long con control de desborde, decimales en BigDecimal
+ */
+public final class EvaluadorFormulas {
+
+    public static final int LONGITUD_MAXIMA = 200;
+    private static final int PROFUNDIDAD_MAXIMA = 64;
+    private static final MathContext PRECISION_DIVISION = MathContext.DECIMAL128;
+
+    private EvaluadorFormulas() {}
+
+    /**
+     * Compila una fórmula. Lanza IllegalArgumentException si la sintaxis no es válida.
+     */
+    public static Formula compilar(String expresion) {
+        if (expresion == null || expresion.isBlank()) {
+            throw new IllegalArgumentException("La expresión es obligatoria");
+        }
+        if (expresion.length() > LONGITUD_MAXIMA) {
+            throw new IllegalArgumentException("La expresión supera los " + LONGITUD_MAXIMA + " caracteres");
+        }
+        Parser parser = new Parser(expresion);
+        Nodo raiz = parser.parsearExpresion(0, 0);
+        if (parser.siguiente() != FIN) {
+            throw new IllegalArgumentException("Carácter inesperado '" + parser.actual() + "' en la posición " + (parser.pos + 1));
+        }
+        return new Formula(raiz);
+    }
+
+    /**
+     * Fórmula compilada e inmutable
+     */
+    public static final class Formula {
+        private final Nodo raiz;
+
+        private Formula(Nodo raiz) {
+            this.raiz = raiz;
+        }
+
+        /**
+         * true si solo usa enteros, + - * (se evalúa sin BigDecimal)
+         */
+        public boolean esEntera() {
+            return raiz.entero;
+        }
+
+        /**
+         * Evalúa una fórmula entera. Lanza ArithmeticException si el resultado desborda un long.
+         */
+        public long evaluarEntero() {
+            return raiz.evaluarEntero();
+        }
+
+        /**
+         * Evalúa con precisión decimal (división incluida)
+         */
+        public BigDecimal evaluar() {
+            if (raiz.entero) {
+                try {
+                    return BigDecimal.valueOf(raiz.evaluarEntero());
+                } catch (ArithmeticException desborde) {
+                    // seguir con BigDecimal
+                }
+            }
+            return raiz.evaluarDecimal();
+        }
+    }
+
+    // ---- Árbol ----
+
+    private abstract static class Nodo {
+        final boolean entero;
+
+        Nodo(boolean entero) {
+            this.entero = entero;
+        }
+
+        abstract long evaluarEntero();
+
+        abstract BigDecimal evaluarDecimal();
+    }
+
+    private static final class Numero extends Nodo {
+        private final long valorEntero;
+        private final BigDecimal valor;
+
+        Numero(long valorEntero) {
+            super(true);
+            this.valorEntero = valorEntero;
+            this.valor = BigDecimal.valueOf(valorEntero);
+        }
+
+        Numero(BigDecimal valor) {
+            super(false);
+            this.valorEntero = 0;
+            this.valor = valor;
+        }
+
+        long evaluarEntero() { return valorEntero; }
+
+        BigDecimal evaluarDecimal() { return valor; }
+    }
+
+    private static final class Negacion extends Nodo {
+        private final Nodo operando;
+
+        Negacion(Nodo operando) {
+            super(operando.entero);
+            this.operando = operando;
+        }
+
+        long evaluarEntero() { return Math.negateExact(operando.evaluarEntero()); }
+
+        BigDecimal evaluarDecimal() { return operando.evaluarDecimal().negate(); }
+    }
+
+    private static final class Operacion extends Nodo {
+        private final char operador;
+        private final Nodo izquierda;
+        private final Nodo derecha;
+
+        Operacion(char operador, Nodo izquierda, Nodo derecha) {
+            super(operador != '/' && izquierda.entero && derecha.entero);
+            this.operador = operador;
+            this.izquierda = izquierda;
+            this.derecha = derecha;
+        }
+
+        long evaluarEntero() {
+            long a = izquierda.evaluarEntero();
+            long b = derecha.evaluarEntero();
+            switch (operador) {
+                case '+': return Math.addExact(a, b);
+                case '-': return Math.subtractExact(a, b);
+                default: return Math.multiplyExact(a, b);
+            }
+        }
+
+        BigDecimal evaluarDecimal() {
+            BigDecimal a = izquierda.evaluarDecimal();
+            BigDecimal b = derecha.evaluarDecimal();
+            switch (operador) {
+                case '+': return a.add(b);
+                case '-': return a.subtract(b);
+                case '*': return a.multiply(b);
+                default:
+                    if (b.signum() == 0) {
+                        throw new ArithmeticException("División por cero");
+                    }
+                    return a.divide(b, PRECISION_DIVISION);
+            }
+        }
+    }
+
+    // ---- Tokenizador + parser Pratt ----
+
+    private static final char FIN = '\0';
+    private static final char NUMERO = '#';
+
+    private static final class Parser {
+        private final String texto;
+        private int pos;
+
+        Parser(String texto) {
+            this.texto = texto;
+        }
+
+        /**
+         * Devuelve el tipo del próximo token sin consumirlo: un operador, '(' ')', NUMERO o FIN
+         */
+        char siguiente() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= texto.length()) {
+                return FIN;
+            }
+            char c = texto.charAt(pos);
+            if ((c >= '0' && c <= '9') || c == '.') {
+                return NUMERO;
+            }
+            switch (c) {
+                case '+': case '-': case '/': case '(': case ')':
+                    return c;
+                case '*': case 'x': case 'X': case '×':
+                    return '*';
+                default:
+                    throw new IllegalArgumentException("La expresión contiene caracteres no permitidos");
+            }
+        }
+
+        char actual() {
+            return texto.charAt(pos);
+        }
+
+        Nodo parsearExpresion(int potenciaMinima, int profundidad) {
+            if (profundidad > PROFUNDIDAD_MAXIMA) {
+                throw new IllegalArgumentException("La expresión tiene demasiados niveles de anidamiento");
+            }
+            Nodo izquierda = parsearPrefijo(profundidad);
+            while (true) {
+                char operador = siguiente();
+                int potencia = potenciaIzquierda(operador);
+                if (potencia == 0 || potencia < potenciaMinima) {
+                    return izquierda;
+                }
+                pos++;
+                // Asociatividad izquierda: el lado derecho exige una potencia mayor
+                Nodo derecha = parsearExpresion(potencia + 1, profundidad + 1);
+                izquierda = new Operacion(operador, izquierda, derecha);
+            }
+        }
+
+        private Nodo parsearPrefijo(int profundidad) {
+            char token = siguiente();
+            switch (token) {
+                case NUMERO:
+                    return leerNumero();
+                case '(': {
+                    pos++;
+                    Nodo interior = parsearExpresion(0, profundidad + 1);
+                    if (siguiente() != ')') {
+                        throw new IllegalArgumentException("Falta cerrar un paréntesis");
+                    }
+                    pos++;
+                    return interior;
+                }
+                case '-':
+                    pos++;
+                    return new Negacion(parsearExpresion(POTENCIA_UNARIA, profundidad + 1));
+                case '+':
+                    pos++;
+                    return parsearExpresion(POTENCIA_UNARIA, profundidad + 1);
+                case FIN:
+                    throw new IllegalArgumentException("La expresión está incompleta");
+                default:
+                    throw new IllegalArgumentException("Carácter inesperado '" + actual() + "' en la posición " + (pos + 1));
+            }
+        }
+
+        private Nodo leerNumero() {
+            int inicio = pos;
+            boolean decimal = false;
+            long valor = 0;
+            boolean cabeEnLong = true;
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos);
+                if (c >= '0' && c <= '9') {
+                    if (cabeEnLong && valor <= (Long.MAX_VALUE - 9) / 10) {
+                        valor = valor * 10 + (c - '0');
+                    } else {
+                        cabeEnLong = false;
+                    }
+                } else if (c == '.') {
+                    if (decimal) {
+                        throw new IllegalArgumentException("Número inválido en la posición " + (inicio + 1));
+                    }
+                    decimal = true;
+                } else {
+                    break;
+                }
+                pos++;
+            }
+            if (pos - inicio == 1 && decimal) {
+                throw new IllegalArgumentException("Número inválido en la posición " + (inicio + 1));
+            }
+            if (!decimal && cabeEnLong) {
+                return new Numero(valor);
+            }
+            return new Numero(new BigDecimal(texto.substring(inicio, pos)));
+        }
+    }
+
+    private static final int POTENCIA_UNARIA = 30;
+
+    private static int potenciaIzquierda(char operador) {
+        switch (operador) {
+            case '+': case '-': return 10;
+            case '*': case '/': return 20;
+            default: return 0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.minegocio.backend.utilidades;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Motor común para los reportes Excel.
+ * - SXSSFWorkbook con ventana deslizante: solo las últimas VENTANA_FILAS filas de cada hoja
+ *   quedan en memoria, el resto se vuelca a un archivo temporal comprimido
+ * - Estilos y fuentes cacheados por nombre dentro del libro (Excel admite ~64000 estilos por archivo)
+ * - Se escribe directo a la respuesta HTTP con StreamingResponseBody, sin copia intermedia en byte[]
+ *
+ * Uso: el servicio arma el libro y lo devuelve; el controlador lo envía con {@link #comoDescarga(String)}.
+ * Las filas ya volcadas no se pueden volver a leer (getRow devuelve null), por eso las filas se escriben en orden.
+ * Con un {@link ObservadorLibro} se avisa el fin del libro (escrito o descartado), para medir la exportación completa.
+ */
+public class LibroExcelStreaming implements Closeable {
+
+    public static final int VENTANA_FILAS = 200;
+
+    public static final MediaType TIPO_XLSX =
+        MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    /**
+     * Recibe el resultado del libro una sola vez: exito=true si se escribió completo
+     */
+    public interface ObservadorLibro {
+        void terminado(boolean exito);
+    }
+
+    private final SXSSFWorkbook libro;
+    private final Map<String, CellStyle> estilos = new HashMap<>();
+    private final Map<String, Font> fuentes = new HashMap<>();
+    private final ObservadorLibro observador;
+    private boolean escrito;
+    private boolean cerrado;
+
+    public LibroExcelStreaming() {
+        this(null);
+    }
+
+    public LibroExcelStreaming(ObservadorLibro observador) {
+        this.libro = new SXSSFWorkbook(VENTANA_FILAS);
+        this.libro.setCompressTempFiles(true);
+        this.observador = observador;
+    }
+
+    /**
+     * Libro subyacente, para el código que trabaja con la API de POI
+     */
+    public Workbook getLibro() {
+        return libro;
+    }
+
+    public Sheet crearHoja(String nombre) {
+        return libro.createSheet(nombre);
+    }
+
+    /**
+     * Devuelve el estilo con ese nombre, creándolo la primera vez con el configurador dado
+     */
+    public CellStyle estilo(String nombre, Consumer<CellStyle> configurador) {
+        CellStyle estilo = estilos.get(nombre);
+        if (estilo == null) {
+            estilo = libro.createCellStyle();
+            configurador.accept(estilo);
+            estilos.put(nombre, estilo);
+        }
+        return estilo;
+    }
+
+    /**
+     * Devuelve la fuente con ese nombre, creándola la primera vez con el configurador dado
+     */
+    public Font fuente(String nombre, Consumer<Font> configurador) {
+        Font fuente = fuentes.get(nombre);
+        if (fuente == null) {
+            fuente = libro.createFont();
+            configurador.accept(fuente);
+            fuentes.put(nombre, fuente);
+        }
+        return fuente;
+    }
+
+    public short formato(String patron) {
+        return libro.createDataFormat().getFormat(patron);
+    }
+
+    /**
+     * Escribe el libro en la salida y libera los temporales
+     */
+    public void escribir(OutputStream salida) throws IOException {
+        try {
+            libro.write(salida);
+            salida.flush();
+            escrito = true;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Para los usos que todavía necesitan el archivo completo en memoria (adjuntos, respaldo CSV)
+     */
+    public byte[] aBytes() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        escribir(salida);
+        return salida.toByteArray();
+    }
+
+    /**
+     * Respuesta de descarga: el libro se escribe directo al cuerpo de la respuesta HTTP
+     */
+    public ResponseEntity<StreamingResponseBody> comoDescarga(String nombreArchivo) {
+        StreamingResponseBody cuerpo = this::escribir;
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombreArchivo + "\"")
+            .contentType(TIPO_XLSX)
+            .body(cuerpo);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        try {
+            libro.dispose();
+            libro.close();
+        } finally {
+            if (observador != null) {
+                observador.terminado(escrito);
+            }
+        }
+    }
+
+    /**
+     * Cierra el libro ignorando errores; para usar cuando la generación falla a mitad de camino
+     */
+    public void descartar() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pudieron eliminar los temporales del libro Excel: " + e.getMessage());
+        }
+    }
+}
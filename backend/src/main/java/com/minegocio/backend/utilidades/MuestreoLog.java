@@ -0,0 +1,52 @@
+package com.minegocio.backend.utilidades;
+
+import org.slf4j.Logger;
+
+/**
+ * Muestreo para logs de diagnóstico por fila: deja pasar las primeras N filas y luego una de
+ * cada K, para que un recorrido de miles de productos no escriba miles de líneas.
+ * Si el logger no tiene DEBUG habilitado no cuenta nada y no deja pasar ninguna fila.
+ *
+ * Uso: crear una instancia por recorrido y preguntar {@code if (muestreo.tomar()) log.debug(...)}.
+ * No es thread-safe: cada recorrido usa la suya.
+ */
+public class MuestreoLog {
+
+    private final boolean habilitado;
+    private final int primeras;
+    private final int cadaCuantas;
+    private long vistas;
+    private long omitidas;
+
+    public MuestreoLog(Logger logger, int primeras, int cadaCuantas) {
+        this.habilitado = logger.isDebugEnabled();
+        this.primeras = primeras;
+        this.cadaCuantas = Math.max(1, cadaCuantas);
+    }
+
+    /**
+     * Indica si la fila actual se registra
+     */
+    public boolean tomar() {
+        if (!habilitado) {
+            return false;
+        }
+        long indice = vistas++;
+        if (indice < primeras || (indice - primeras) % cadaCuantas == cadaCuantas - 1) {
+            return true;
+        }
+        omitidas++;
+        return false;
+    }
+
+    /**
+     * Filas recorridas que no se registraron (para un resumen al final del recorrido)
+     */
+    public long getOmitidas() {
+        return omitidas;
+    }
+
+    public long getVistas() {
+        return vistas;
+    }
+}
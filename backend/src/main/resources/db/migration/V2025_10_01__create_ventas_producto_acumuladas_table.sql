@@ -0,0 +1,14 @@
+-- Contadores pre-agregados de unidades vendidas por producto (ranking de más/menos vendidos)
+CREATE TABLE IF NOT EXISTS ventas_producto_acumuladas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    periodo VARCHAR(10) NOT NULL,
+    clave_periodo VARCHAR(10) NOT NULL,
+    unidades_pedidos BIGINT NOT NULL DEFAULT 0,
+    unidades_ventas_rapidas BIGINT NOT NULL DEFAULT 0,
+    fecha_actualizacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_ventas_acum_producto_periodo UNIQUE (empresa_id, producto_id, periodo, clave_periodo)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ventas_acum_empresa_periodo ON ventas_producto_acumuladas(empresa_id, periodo, clave_periodo);
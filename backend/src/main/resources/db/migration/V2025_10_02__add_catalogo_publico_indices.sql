@@ -0,0 +1,8 @@
+-- Búsqueda y paginación del catálogo público
+-- texto_busqueda: nombre + descripción normalizados (se completa desde la aplicación al arrancar)
+-- El índice por marca se declara en la entidad Producto (la columna no existe en el esquema base de migraciones)
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS texto_busqueda VARCHAR(1201);
+
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_nombre ON productos(empresa_id, activo, nombre, id);
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_precio ON productos(empresa_id, activo, precio, id);
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_categoria ON productos(empresa_id, categoria);
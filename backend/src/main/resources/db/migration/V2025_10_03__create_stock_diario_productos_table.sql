@@ -0,0 +1,18 @@
+-- Libro diario de stock por producto (apertura, movimientos del día y cierre) para movimientos del día y por rango
+CREATE TABLE IF NOT EXISTS stock_diario_productos (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    stock_apertura INTEGER NOT NULL DEFAULT 0,
+    ingresos INTEGER NOT NULL DEFAULT 0,
+    devoluciones INTEGER NOT NULL DEFAULT 0,
+    salidas INTEGER NOT NULL DEFAULT 0,
+    roturas INTEGER NOT NULL DEFAULT 0,
+    stock_cierre INTEGER NOT NULL DEFAULT 0,
+    ultimo_movimiento TIMESTAMP,
+    fecha_actualizacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_stock_diario_producto_fecha UNIQUE (empresa_id, producto_id, fecha)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_diario_empresa_fecha ON stock_diario_productos(empresa_id, fecha);
@@ -0,0 +1,11 @@
+-- Eventos de invalidación de cachés en memoria, leídos periódicamente por cada réplica
+CREATE TABLE IF NOT EXISTS invalidaciones_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    region VARCHAR(50) NOT NULL,
+    empresa_id BIGINT,
+    fecha DATE,
+    nodo_origen VARCHAR(36) NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_invalidaciones_cache_fecha_creacion ON invalidaciones_cache(fecha_creacion);
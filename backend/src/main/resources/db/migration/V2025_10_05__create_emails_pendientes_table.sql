@@ -0,0 +1,18 @@
+-- Cola de salida de emails (outbox): se escribe junto con el cambio de negocio y la envía un worker
+CREATE TABLE IF NOT EXISTS emails_pendientes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    destinatario VARCHAR(255) NOT NULL,
+    asunto VARCHAR(300) NOT NULL,
+    contenido TEXT NOT NULL,
+    clave_deduplicacion VARCHAR(255),
+    estado VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE',
+    intentos INT NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_error VARCHAR(1000),
+    fecha_reclamo TIMESTAMP,
+    fecha_envio TIMESTAMP,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_emails_pendientes_estado_proximo ON emails_pendientes(estado, proximo_intento);
+CREATE INDEX IF NOT EXISTS idx_emails_pendientes_clave ON emails_pendientes(clave_deduplicacion);
@@ -0,0 +1,13 @@
+-- Contadores de numeración por empresa y tipo de documento (bloques hi/lo, ver NumeradorDocumentosService)
+CREATE TABLE IF NOT EXISTS secuencias_documentos (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    proximo_valor BIGINT NOT NULL,
+    fecha_actualizacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_secuencias_documentos_empresa_tipo UNIQUE (empresa_id, tipo)
+);
+
+-- Los números generados llevan el id de empresa y no entran en 8 caracteres
+ALTER TABLE planillas_pedidos ALTER COLUMN numero_planilla TYPE VARCHAR(30);
+ALTER TABLE planillas_devoluciones ALTER COLUMN numero_planilla TYPE VARCHAR(30);
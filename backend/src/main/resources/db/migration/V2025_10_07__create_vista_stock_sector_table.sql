@@ -0,0 +1,21 @@
+-- Proyección de stock por ubicación para las pantallas de stock general (la mantiene VistaStockService;
+-- al arrancar se completa para las empresas que todavía no tienen filas)
+CREATE TABLE IF NOT EXISTS vista_stock_sector (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    sector_id BIGINT,
+    sector_nombre VARCHAR(100),
+    stock_por_sector_id BIGINT,
+    producto_nombre VARCHAR(200) NOT NULL,
+    codigo_personalizado VARCHAR(50),
+    unidad_medida VARCHAR(50),
+    imagen_url VARCHAR(500),
+    producto_activo BOOLEAN NOT NULL,
+    cantidad INT NOT NULL,
+    fecha_actualizacion TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_vista_stock_empresa_nombre ON vista_stock_sector(empresa_id, producto_nombre);
+CREATE INDEX IF NOT EXISTS idx_vista_stock_empresa_sector ON vista_stock_sector(empresa_id, sector_id);
+CREATE INDEX IF NOT EXISTS idx_vista_stock_producto ON vista_stock_sector(producto_id);
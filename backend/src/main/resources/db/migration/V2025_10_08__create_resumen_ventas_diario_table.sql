@@ -0,0 +1,17 @@
+-- Resumen diario de ventas por empresa, canal (PEDIDO / VENTA_RAPIDA) y estado para las estadísticas
+-- (lo mantiene ResumenVentasDiarioService; al arrancar se completa para las empresas sin filas)
+CREATE TABLE IF NOT EXISTS resumen_ventas_diario (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    canal VARCHAR(15) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    cantidad BIGINT NOT NULL DEFAULT 0,
+    total DECIMAL(14,2) NOT NULL DEFAULT 0,
+    unidades BIGINT NOT NULL DEFAULT 0,
+    lineas BIGINT NOT NULL DEFAULT 0,
+    fecha_actualizacion TIMESTAMP NOT NULL,
+    CONSTRAINT uk_resumen_ventas_diario UNIQUE (empresa_id, fecha, canal, estado)
+);
+
+CREATE INDEX IF NOT EXISTS idx_resumen_ventas_empresa_canal_fecha ON resumen_ventas_diario(empresa_id, canal, fecha);
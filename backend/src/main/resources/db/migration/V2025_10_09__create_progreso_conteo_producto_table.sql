@@ -0,0 +1,21 @@
+-- Progreso incremental de los conteos por sector (lo mantiene ProgresoConteoService):
+-- una fila por producto contado en el sector y los contadores del sector en conteo_sector.
+-- progreso_en_reconteo en NULL indica que el progreso todavía no se armó para ese conteo.
+ALTER TABLE conteo_sector ADD COLUMN IF NOT EXISTS productos_contados_usuario_1 INT;
+ALTER TABLE conteo_sector ADD COLUMN IF NOT EXISTS productos_contados_usuario_2 INT;
+ALTER TABLE conteo_sector ADD COLUMN IF NOT EXISTS progreso_en_reconteo BOOLEAN;
+
+CREATE TABLE IF NOT EXISTS progreso_conteo_producto (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    conteo_sector_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    filas INT NOT NULL DEFAULT 0,
+    total_usuario_1 INT NOT NULL DEFAULT 0,
+    total_usuario_2 INT NOT NULL DEFAULT 0,
+    contado_usuario_1 BOOLEAN NOT NULL DEFAULT FALSE,
+    contado_usuario_2 BOOLEAN NOT NULL DEFAULT FALSE,
+    reconteo_usuario_1 INT,
+    reconteo_usuario_2 INT,
+    fecha_actualizacion TIMESTAMP NOT NULL,
+    CONSTRAINT uk_progreso_conteo_producto UNIQUE (conteo_sector_id, producto_id)
+);
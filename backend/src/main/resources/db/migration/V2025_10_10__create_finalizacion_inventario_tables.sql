@@ -0,0 +1,36 @@
+-- Finalización de inventarios completos por lotes (la ejecuta FinalizacionInventarioService):
+-- una fila por inventario con los productos editados, el avance y el estado, y el resultado de cada
+-- producto ya aplicado. Si el proceso se corta se reanuda desde productos_procesados.
+CREATE TABLE IF NOT EXISTS finalizacion_inventario (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    inventario_completo_id BIGINT NOT NULL,
+    empresa_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    observaciones TEXT,
+    productos_editados TEXT NOT NULL,
+    total_productos INT NOT NULL DEFAULT 0,
+    productos_procesados INT NOT NULL DEFAULT 0,
+    productos_con_diferencias INT NOT NULL DEFAULT 0,
+    productos_sin_diferencias INT NOT NULL DEFAULT 0,
+    registro_inventario_id BIGINT,
+    mensaje_error TEXT,
+    fecha_inicio TIMESTAMP NOT NULL,
+    fecha_actualizacion TIMESTAMP NOT NULL,
+    fecha_finalizacion TIMESTAMP,
+    CONSTRAINT uk_finalizacion_inventario UNIQUE (inventario_completo_id)
+);
+
+CREATE TABLE IF NOT EXISTS finalizacion_inventario_producto (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    finalizacion_id BIGINT NOT NULL,
+    orden INT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    nombre_producto VARCHAR(255),
+    codigo_producto VARCHAR(255),
+    stock_anterior INT NOT NULL,
+    stock_nuevo INT NOT NULL,
+    diferencia_stock INT NOT NULL,
+    observaciones TEXT,
+    CONSTRAINT uk_finalizacion_inventario_producto UNIQUE (finalizacion_id, orden)
+);
@@ -0,0 +1,23 @@
+-- Uso de almacenamiento por empresa (lo mantiene UsoAlmacenamientoService): los archivos se suman
+-- al subirlos o darlos de baja; el tamaño en base de datos se mide por tabla con el tamaño real de
+-- una muestra de filas y se recalcula por tandas en segundo plano (fecha_base_datos NULL: todavía
+-- sin medir o pendiente de recalcular).
+CREATE TABLE IF NOT EXISTS uso_almacenamiento_empresa (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    archivos_cantidad BIGINT NOT NULL DEFAULT 0,
+    archivos_bytes BIGINT NOT NULL DEFAULT 0,
+    archivos_producto_cantidad BIGINT NOT NULL DEFAULT 0,
+    archivos_producto_bytes BIGINT NOT NULL DEFAULT 0,
+    archivos_logo_cantidad BIGINT NOT NULL DEFAULT 0,
+    archivos_logo_bytes BIGINT NOT NULL DEFAULT 0,
+    archivos_fondo_cantidad BIGINT NOT NULL DEFAULT 0,
+    archivos_fondo_bytes BIGINT NOT NULL DEFAULT 0,
+    base_datos_filas BIGINT NOT NULL DEFAULT 0,
+    base_datos_bytes BIGINT NOT NULL DEFAULT 0,
+    fecha_base_datos TIMESTAMP,
+    fecha_actualizacion TIMESTAMP NOT NULL,
+    CONSTRAINT uk_uso_almacenamiento_empresa UNIQUE (empresa_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_uso_almacenamiento_fecha_base_datos ON uso_almacenamiento_empresa (fecha_base_datos);
@@ -0,0 +1,11 @@
+-- Foto precalculada del dashboard del super admin (la mantiene DashboardSuperAdminSnapshotService):
+-- cada cálculo guarda una versión nueva con el DTO en JSON, cuándo se calculó y cuánto tardó;
+-- se conservan las últimas versiones y la versión única evita que dos réplicas guarden la misma.
+CREATE TABLE IF NOT EXISTS snapshot_dashboard_superadmin (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    version BIGINT NOT NULL,
+    datos TEXT NOT NULL,
+    fecha_calculo TIMESTAMP NOT NULL,
+    duracion_ms BIGINT NOT NULL,
+    CONSTRAINT uk_snapshot_dashboard_superadmin_version UNIQUE (version)
+);
@@ -0,0 +1,9 @@
+-- Marca por empresa de los índices derivados ya construidos desde el historial
+-- (sin la marca, la primera consulta reconstruye el índice completo, ver RankingVentasService)
+CREATE TABLE IF NOT EXISTS indices_empresa (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    fecha_construccion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_indices_empresa_empresa_tipo UNIQUE (empresa_id, tipo)
+);
@@ -0,0 +1,112 @@
+package com.minegocio.backend.benchmark;
+
+import com.minegocio.backend.servicios.CalculadoraService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el evaluador compilado de CalculadoraService con el camino anterior
+ * (ScriptEngine y, si no está disponible, el parser recursivo por substring).
+ *
+ * Ejecutar desde backend/:
+ *   mvn -Pbenchmarks verify -Djmh.incluir=CalculadoraBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculadoraBenchmark {
+
+    @Param({"12*24+6", "112*4+3", "3*(10+2)-4", "100/4+10"})
+    private String formula;
+
+    private CalculadoraService calculadoraService;
+    private RutaAnterior rutaAnterior;
+
+    @Setup
+    public void preparar() {
+        calculadoraService = new CalculadoraService();
+        rutaAnterior = new RutaAnterior();
+    }
+
+    @Benchmark
+    public int evaluadorCompilado() {
+        return calculadoraService.evaluarExpresion(formula).getResultado();
+    }
+
+    @Benchmark
+    public int rutaScriptEngine() {
+        return rutaAnterior.evaluar(formula);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+            .include(CalculadoraBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opciones).run();
+    }
+
+    /**
+     * Copia del evaluarExpresion anterior, solo como referencia para el benchmark
+     */
+    static class RutaAnterior {
+        private final ScriptEngine scriptEngine = new ScriptEngineManager().getEngineByName("JavaScript");
+
+        int evaluar(String expresion) {
+            if (!expresion.matches("^[0-9+\\-*/().\\s]+$")) {
+                return 0;
+            }
+            String limpia = expresion.trim().replaceAll("\\s+", "");
+            try {
+                if (scriptEngine != null) {
+                    return (int) Math.round(((Number) scriptEngine.eval(limpia)).doubleValue());
+                }
+            } catch (Exception e) {
+                // igual que antes: seguir con la evaluación manual
+            }
+            return (int) Math.round(evaluarBasica(limpia.replace("x", "*").replace("X", "*")));
+        }
+
+        private double evaluarBasica(String expresion) {
+            expresion = expresion.replaceAll("\\s+", "");
+            if (expresion.contains("+") || expresion.contains("-")) {
+                int ultimoMas = expresion.lastIndexOf("+");
+                int ultimoMenos = expresion.lastIndexOf("-");
+                if (ultimoMenos == 0) {
+                    ultimoMenos = -1;
+                }
+                int posicion = Math.max(ultimoMas, ultimoMenos);
+                if (posicion > 0) {
+                    double izquierda = evaluarBasica(expresion.substring(0, posicion));
+                    double derecha = evaluarBasica(expresion.substring(posicion + 1));
+                    return expresion.charAt(posicion) == '+' ? izquierda + derecha : izquierda - derecha;
+                }
+            }
+            if (expresion.contains("*") || expresion.contains("/")) {
+                int mult = expresion.indexOf("*");
+                int div = expresion.indexOf("/");
+                int posicion = mult == -1 ? div : (div == -1 ? mult : Math.min(mult, div));
+                if (posicion > 0) {
+                    double izquierda = evaluarBasica(expresion.substring(0, posicion));
+                    double derecha = evaluarBasica(expresion.substring(posicion + 1));
+                    return expresion.charAt(posicion) == '*' ? izquierda * derecha : izquierda / derecha;
+                }
+            }
+            try {
+                return Double.parseDouble(expresion);
+            } catch (NumberFormatException e) {
+                // El parser anterior no soporta paréntesis: mismo resultado que el camino original
+                return 0;
+            }
+        }
+    }
+}
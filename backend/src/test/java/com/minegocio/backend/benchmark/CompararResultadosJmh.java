@@ -0,0 +1,89 @@
+package com.minegocio.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dos archivos de resultados JMH (-rf json) y muestra la variación de cada benchmark.
+ * Un resultado se identifica por el nombre del benchmark y sus @Param; el signo de la
+ * variación es relativo a la unidad (en tiempo por operación, positivo = más lento).
+ *
+ * Uso (desde backend/, con el classpath de test que arma el perfil benchmarks):
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.minegocio.backend.benchmark.CompararResultadosJmh base.json nuevo.json [umbral%]
+ *
+ * Termina con código 1 si alguna variación supera el umbral (10% por defecto) sumado al
+ * error de ambas mediciones, para poder usarlo en un pipeline.
+ */
+public class CompararResultadosJmh {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararResultadosJmh base.json nuevo.json [umbral%]");
+            System.exit(2);
+        }
+        double umbral = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Resultado> base = leer(new File(args[0]));
+        Map<String, Resultado> nuevo = leer(new File(args[1]));
+
+        boolean regresion = false;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Base", "Nuevo", "Var%");
+        for (Map.Entry<String, Resultado> entrada : nuevo.entrySet()) {
+            Resultado actual = entrada.getValue();
+            Resultado anterior = base.get(entrada.getKey());
+            if (anterior == null) {
+                System.out.printf("%-70s %14s %14s %9s%n", entrada.getKey(), "-", actual.formatear(), "nuevo");
+                continue;
+            }
+            double variacion = (actual.puntaje - anterior.puntaje) * 100.0 / anterior.puntaje;
+            double ruido = (actual.error + anterior.error) * 100.0 / anterior.puntaje;
+            boolean fuera = Math.abs(variacion) > umbral + ruido;
+            boolean peor = actual.tiempoPorOperacion ? variacion > 0 : variacion < 0;
+            if (fuera && peor) {
+                regresion = true;
+            }
+            System.out.printf("%-70s %14s %14s %+8.1f%s%n", entrada.getKey(), anterior.formatear(), actual.formatear(),
+                variacion, fuera ? (peor ? " ▲" : " ▼") : "");
+        }
+        for (String clave : base.keySet()) {
+            if (!nuevo.containsKey(clave)) {
+                System.out.printf("%-70s %14s %14s %9s%n", clave, base.get(clave).formatear(), "-", "quitado");
+            }
+        }
+        if (regresion) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Resultado> leer(File archivo) throws IOException {
+        Map<String, Resultado> resultados = new TreeMap<>();
+        for (JsonNode corrida : new ObjectMapper().readTree(archivo)) {
+            String nombre = corrida.path("benchmark").asText().replace("com.minegocio.backend.benchmark.", "");
+            Map<String, String> parametros = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> campos = corrida.path("params").fields();
+            while (campos.hasNext()) {
+                Map.Entry<String, JsonNode> campo = campos.next();
+                parametros.put(campo.getKey(), campo.getValue().asText());
+            }
+            String clave = parametros.isEmpty() ? nombre : nombre + parametros;
+            JsonNode metrica = corrida.path("primaryMetric");
+            double error = metrica.path("scoreError").isNumber() ? metrica.path("scoreError").asDouble() : 0;
+            resultados.put(clave, new Resultado(metrica.path("score").asDouble(), error,
+                metrica.path("scoreUnit").asText(), !corrida.path("mode").asText().equals("thrpt")));
+        }
+        return resultados;
+    }
+
+    private record Resultado(double puntaje, double error, String unidad, boolean tiempoPorOperacion) {
+        String formatear() {
+            return String.format("%.3f %s", puntaje, unidad);
+        }
+    }
+}
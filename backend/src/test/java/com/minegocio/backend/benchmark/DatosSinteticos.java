@@ -0,0 +1,131 @@
+package com.minegocio.backend.benchmark;
+
+import com.minegocio.backend.entidades.ConteoSector;
+import com.minegocio.backend.entidades.DetalleConteo;
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.InventarioCompleto;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.entidades.Sector;
+import com.minegocio.backend.entidades.StockPorSector;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos de prueba deterministas (semilla fija) para que dos corridas del mismo benchmark
+ * midan exactamente el mismo trabajo y los resultados JSON se puedan comparar entre versiones.
+ */
+final class DatosSinteticos {
+
+    static final long EMPRESA_ID = 1L;
+
+    private DatosSinteticos() {
+    }
+
+    static Empresa empresa() {
+        Empresa empresa = new Empresa("Empresa benchmark", "benchmark", "benchmark@test.com");
+        empresa.setId(EMPRESA_ID);
+        return empresa;
+    }
+
+    static List<Producto> productos(Empresa empresa, int cantidad) {
+        Random azar = new Random(42);
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Producto producto = new Producto("Producto " + i, "Descripción del producto " + i,
+                BigDecimal.valueOf(100 + azar.nextInt(10_000), 2), azar.nextInt(500), empresa);
+            producto.setId((long) i);
+            producto.setCodigoPersonalizado("P" + i);
+            producto.setCodigoBarras(String.valueOf(7_790_000_000_000L + i));
+            producto.setCategoria("Categoría " + (i % 40));
+            producto.setMarca("Marca " + (i % 25));
+            producto.setSectorAlmacenamiento("Sector " + (i % 10));
+            producto.setStockMinimo(5);
+            producto.setActivo(true);
+            producto.setImagenes(new ArrayList<>(List.of("https://img.test/" + i + ".jpg")));
+            producto.setFechaCreacion(LocalDateTime.of(2025, 1, 1, 0, 0));
+            producto.setFechaActualizacion(LocalDateTime.of(2025, 1, 1, 0, 0));
+            productos.add(producto);
+        }
+        return productos;
+    }
+
+    static List<Sector> sectores(Empresa empresa, int cantidad) {
+        List<Sector> sectores = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Sector sector = new Sector("Sector " + i, empresa);
+            sector.setId((long) i);
+            sectores.add(sector);
+        }
+        return sectores;
+    }
+
+    /**
+     * Cada producto queda en un sector (reparto circular) con todo su stock
+     */
+    static List<StockPorSector> stockPorSector(List<Producto> productos, List<Sector> sectores) {
+        List<StockPorSector> filas = new ArrayList<>(productos.size());
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            StockPorSector fila = new StockPorSector(producto, sectores.get(i % sectores.size()), producto.getStock());
+            fila.setId((long) i + 1);
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    static InventarioCompleto inventario(Empresa empresa, int sectoresCompletados) {
+        InventarioCompleto inventario = new InventarioCompleto("Inventario benchmark", empresa, null);
+        inventario.setId(1L);
+        inventario.setSectoresCompletados(sectoresCompletados);
+        return inventario;
+    }
+
+    static ConteoSector conteoSector(long id, InventarioCompleto inventario, Sector sector, ConteoSector.EstadoConteo estado) {
+        ConteoSector conteo = new ConteoSector(inventario, sector);
+        conteo.setId(id);
+        conteo.setEstado(estado);
+        return conteo;
+    }
+
+    /**
+     * Detalles de conteo como los que dejan dos usuarios contando un sector: cada producto tiene
+     * de una a tres filas, y en ~10% de los productos los dos conteos no coinciden
+     */
+    static List<DetalleConteo> detallesConteo(ConteoSector conteo, List<Producto> productos, long primerId) {
+        Random azar = new Random(7);
+        List<DetalleConteo> detalles = new ArrayList<>();
+        long id = primerId;
+        for (Producto producto : productos) {
+            int filas = 1 + azar.nextInt(3);
+            for (int f = 0; f < filas; f++) {
+                DetalleConteo detalle = new DetalleConteo(conteo, producto);
+                detalle.setId(id++);
+                int cantidad = 1 + azar.nextInt(50);
+                detalle.setCantidadConteo1(cantidad);
+                detalle.setCantidadConteo2(azar.nextInt(10) == 0 ? cantidad + 1 : cantidad);
+                detalle.setFormulaCalculo1(cantidad + "");
+                detalle.setFormulaCalculo2(detalle.getCantidadConteo2() + "");
+                detalle.setEliminado(false);
+                detalle.setFechaActualizacion(LocalDateTime.of(2025, 1, 1, 8, 0).plusSeconds(id));
+                detalles.add(detalle);
+            }
+        }
+        return detalles;
+    }
+
+    /**
+     * Los servicios escriben diagnósticos con System.out: se descartan para no inundar la consola
+     * del benchmark (el costo de armar cada línea se sigue midiendo)
+     */
+    static PrintStream silenciarSalida() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
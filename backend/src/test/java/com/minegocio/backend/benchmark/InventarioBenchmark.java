@@ -0,0 +1,155 @@
+package com.minegocio.backend.benchmark;
+
+import com.minegocio.backend.entidades.ConteoSector;
+import com.minegocio.backend.entidades.DetalleConteo;
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.InventarioCompleto;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.entidades.ProgresoConteoProducto;
+import com.minegocio.backend.entidades.Sector;
+import com.minegocio.backend.entidades.StockPorSector;
+import com.minegocio.backend.repositorios.ConteoSectorRepository;
+import com.minegocio.backend.repositorios.DetalleConteoRepository;
+import com.minegocio.backend.repositorios.InventarioCompletoRepository;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.repositorios.StockPorSectorRepository;
+import com.minegocio.backend.servicios.InventarioCompletoService;
+import com.minegocio.backend.servicios.ProgresoConteoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Progreso de un sector y consolidación del inventario completo sobre conjuntos sintéticos
+ * de DetalleConteo, con los repositorios respondidos desde memoria:
+ * - recalcularProgresoSector: recálculo completo (lo que hace la conciliación de ProgresoConteoService)
+ * - recalcularProgresoProducto: lo que cuesta cada cambio de detalle con el progreso incremental
+ *
+ * El inventario tiene 10 sectores: 8 contados (COMPLETADO) y 2 cerrados sin conteo. En los
+ * sectores contados ~5% de los productos con stock no tiene ningún detalle (quedan "sin contar").
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventarioBenchmark {
+
+    private static final int SECTORES = 10;
+    private static final int SECTORES_SIN_CONTEO = 2;
+
+    @Param({"1000", "10000"})
+    private int productos;
+
+    private InventarioCompletoService inventarioCompletoService;
+    private ConteoSector sectorContado;
+    private List<DetalleConteo> detallesSectorContado;
+    private List<DetalleConteo> detallesProducto;
+    private Long productoContado;
+    private PrintStream salidaOriginal;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        salidaOriginal = DatosSinteticos.silenciarSalida();
+
+        Empresa empresa = DatosSinteticos.empresa();
+        List<Producto> listaProductos = DatosSinteticos.productos(empresa, productos);
+        List<Sector> sectores = DatosSinteticos.sectores(empresa, SECTORES);
+        List<StockPorSector> stock = DatosSinteticos.stockPorSector(listaProductos, sectores);
+        InventarioCompleto inventario = DatosSinteticos.inventario(empresa, SECTORES);
+
+        List<ConteoSector> conteos = new ArrayList<>();
+        Map<Long, ConteoSector> conteosPorId = new HashMap<>();
+        Map<ConteoSector, List<DetalleConteo>> detallesPorConteo = new HashMap<>();
+        Map<Long, List<StockPorSector>> stockPorSectorId = stock.stream()
+            .collect(Collectors.groupingBy(s -> s.getSector().getId()));
+        long primerDetalle = 1;
+        for (Sector sector : sectores) {
+            boolean sinConteo = sector.getId() > SECTORES - SECTORES_SIN_CONTEO;
+            ConteoSector conteo = DatosSinteticos.conteoSector(sector.getId(), inventario, sector,
+                sinConteo ? ConteoSector.EstadoConteo.COMPLETADO_SIN_CONTEO : ConteoSector.EstadoConteo.COMPLETADO);
+            conteos.add(conteo);
+            conteosPorId.put(conteo.getId(), conteo);
+
+            List<Producto> contados = new ArrayList<>();
+            if (!sinConteo) {
+                for (StockPorSector fila : stockPorSectorId.getOrDefault(sector.getId(), List.of())) {
+                    if (fila.getProducto().getId() % 20 != 0) {
+                        contados.add(fila.getProducto());
+                    }
+                }
+            }
+            List<DetalleConteo> detalles = DatosSinteticos.detallesConteo(conteo, contados, primerDetalle);
+            primerDetalle += detalles.size();
+            detallesPorConteo.put(conteo, detalles);
+        }
+        sectorContado = conteos.get(0);
+        detallesSectorContado = detallesPorConteo.get(sectorContado);
+        productoContado = detallesSectorContado.get(detallesSectorContado.size() / 2).getProducto().getId();
+        detallesProducto = detallesSectorContado.stream()
+            .filter(d -> d.getProducto().getId().equals(productoContado))
+            .collect(Collectors.toList());
+
+        Map<Long, Producto> productosPorId = listaProductos.stream().collect(Collectors.toMap(Producto::getId, p -> p));
+        Map<Long, List<StockPorSector>> stockPorProductoId = stock.stream()
+            .collect(Collectors.groupingBy(s -> s.getProducto().getId()));
+
+        inventarioCompletoService = new InventarioCompletoService();
+        ReflectionTestUtils.setField(inventarioCompletoService, "inventarioCompletoRepository",
+            RepositorioEnMemoria.de(InventarioCompletoRepository.class)
+                .responder("findById", a -> Optional.of(inventario))
+                .crear());
+        ReflectionTestUtils.setField(inventarioCompletoService, "conteoSectorRepository",
+            RepositorioEnMemoria.de(ConteoSectorRepository.class)
+                .responder("findByInventarioCompleto", a -> conteos)
+                .responder("findById", a -> Optional.ofNullable(conteosPorId.get((Long) a[0])))
+                .crear());
+        ReflectionTestUtils.setField(inventarioCompletoService, "detalleConteoRepository",
+            RepositorioEnMemoria.de(DetalleConteoRepository.class)
+                .responder("findByConteoSectorAndEliminadoFalseOrderByProductoNombre", a -> detallesPorConteo.getOrDefault(a[0], List.of()))
+                .crear());
+        ReflectionTestUtils.setField(inventarioCompletoService, "productoRepository",
+            RepositorioEnMemoria.de(ProductoRepository.class)
+                .responder("findById", a -> Optional.ofNullable(productosPorId.get((Long) a[0])))
+                .responder("findByEmpresaId", a -> listaProductos)
+                .crear());
+        ReflectionTestUtils.setField(inventarioCompletoService, "stockPorSectorRepository",
+            RepositorioEnMemoria.de(StockPorSectorRepository.class)
+                .responder("findBySectorId", a -> stockPorSectorId.getOrDefault((Long) a[0], List.of()))
+                .responder("findByProductoId", a -> stockPorProductoId.getOrDefault((Long) a[0], List.of()))
+                .responder("findByProductoIdAndSectorId", a -> stockPorProductoId.getOrDefault((Long) a[0], List.of()).stream()
+                    .filter(s -> s.getSector().getId().equals(a[1]))
+                    .findFirst())
+                .crear());
+    }
+
+    @TearDown(Level.Trial)
+    public void restaurarSalida() {
+        System.setOut(salidaOriginal);
+    }
+
+    @Benchmark
+    public ProgresoConteoService.Contadores recalcularProgresoSector() {
+        return ProgresoConteoService.contar(
+            ProgresoConteoService.calcularSector(sectorContado.getId(), detallesSectorContado).values(), false);
+    }
+
+    @Benchmark
+    public ProgresoConteoProducto recalcularProgresoProducto() {
+        return ProgresoConteoService.calcularProducto(sectorContado.getId(), productoContado, detallesProducto);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> consolidarInventarioCompleto() {
+        return inventarioCompletoService.obtenerProductosConsolidadosInventarioCompleto(1L);
+    }
+}
@@ -0,0 +1,109 @@
+package com.minegocio.backend.benchmark;
+
+import com.minegocio.backend.dto.MovimientoDiaDTO;
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.servicios.MovimientoDiaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo del balance de MovimientoDiaService sobre movimientos sintéticos:
+ * - balanceDia: balance final del día contra el stock actual de los productos (calcularBalanceFinal)
+ * - balanceRango: balance acumulado de un rango, sumando y restando cada tipo de movimiento
+ *   (calcularBalanceFinalAcumulado)
+ *
+ * Los dos métodos son privados; se invocan con MethodHandle para no abrir el servicio solo por el benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovimientoDiaBenchmark {
+
+    @Param({"1000", "10000"})
+    private int productos;
+
+    private MovimientoDiaService movimientoDiaService;
+    private MethodHandle calcularBalanceFinal;
+    private MethodHandle calcularBalanceFinalAcumulado;
+
+    private MovimientoDiaDTO.StockInicialDTO stockInicial;
+    private MovimientoDiaDTO.MovimientosDTO ingresos;
+    private MovimientoDiaDTO.MovimientosDTO devoluciones;
+    private MovimientoDiaDTO.MovimientosDTO salidas;
+    private MovimientoDiaDTO.MovimientosDTO roturas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws ReflectiveOperationException {
+        Empresa empresa = DatosSinteticos.empresa();
+        List<Producto> listaProductos = DatosSinteticos.productos(empresa, productos);
+
+        movimientoDiaService = new MovimientoDiaService();
+        ReflectionTestUtils.setField(movimientoDiaService, "productoRepository",
+            RepositorioEnMemoria.de(ProductoRepository.class)
+                .responder("findByEmpresaId", a -> listaProductos)
+                .crear());
+
+        List<MovimientoDiaDTO.ProductoStockDTO> inicial = new ArrayList<>(listaProductos.size());
+        for (Producto producto : listaProductos) {
+            inicial.add(new MovimientoDiaDTO.ProductoStockDTO(producto.getId(), producto.getNombre(),
+                producto.getCodigoPersonalizado(), producto.getStock(), producto.getPrecio().doubleValue(),
+                producto.getStock(), 0, "SIN_CAMBIOS"));
+        }
+        stockInicial = new MovimientoDiaDTO.StockInicialDTO(inicial.stream().mapToInt(MovimientoDiaDTO.ProductoStockDTO::getCantidad).sum(), inicial);
+
+        // Un día movido: ingresos y salidas para un tercio de los productos, devoluciones y roturas para menos
+        ingresos = movimientos(listaProductos, 3, 11);
+        devoluciones = movimientos(listaProductos, 20, 12);
+        salidas = movimientos(listaProductos, 3, 13);
+        roturas = movimientos(listaProductos, 50, 14);
+
+        MethodHandles.Lookup privado = MethodHandles.privateLookupIn(MovimientoDiaService.class, MethodHandles.lookup());
+        calcularBalanceFinal = privado.findVirtual(MovimientoDiaService.class, "calcularBalanceFinal",
+            MethodType.methodType(MovimientoDiaDTO.StockInicialDTO.class, Long.class, MovimientoDiaDTO.StockInicialDTO.class,
+                MovimientoDiaDTO.MovimientosDTO.class, MovimientoDiaDTO.MovimientosDTO.class,
+                MovimientoDiaDTO.MovimientosDTO.class, MovimientoDiaDTO.MovimientosDTO.class));
+        calcularBalanceFinalAcumulado = privado.findVirtual(MovimientoDiaService.class, "calcularBalanceFinalAcumulado",
+            MethodType.methodType(MovimientoDiaDTO.StockInicialDTO.class, MovimientoDiaDTO.StockInicialDTO.class,
+                MovimientoDiaDTO.MovimientosDTO.class, MovimientoDiaDTO.MovimientosDTO.class,
+                MovimientoDiaDTO.MovimientosDTO.class, MovimientoDiaDTO.MovimientosDTO.class));
+    }
+
+    @Benchmark
+    public MovimientoDiaDTO.StockInicialDTO balanceDia() throws Throwable {
+        return (MovimientoDiaDTO.StockInicialDTO) calcularBalanceFinal.invoke(movimientoDiaService,
+            DatosSinteticos.EMPRESA_ID, stockInicial, ingresos, devoluciones, salidas, roturas);
+    }
+
+    @Benchmark
+    public MovimientoDiaDTO.StockInicialDTO balanceRango() throws Throwable {
+        return (MovimientoDiaDTO.StockInicialDTO) calcularBalanceFinalAcumulado.invoke(movimientoDiaService,
+            stockInicial, ingresos, devoluciones, salidas, roturas);
+    }
+
+    /**
+     * Un movimiento para uno de cada {@code cadaCuantos} productos
+     */
+    private static MovimientoDiaDTO.MovimientosDTO movimientos(List<Producto> productos, int cadaCuantos, long semilla) {
+        Random azar = new Random(semilla);
+        List<MovimientoDiaDTO.ProductoMovimientoDTO> lista = new ArrayList<>();
+        for (int i = 0; i < productos.size(); i += cadaCuantos) {
+            Producto producto = productos.get(i);
+            lista.add(new MovimientoDiaDTO.ProductoMovimientoDTO(producto.getId(), producto.getNombre(),
+                producto.getCodigoPersonalizado(), 1 + azar.nextInt(20), "2025-01-01T10:00:00", null));
+        }
+        return new MovimientoDiaDTO.MovimientosDTO(lista.stream().mapToInt(MovimientoDiaDTO.ProductoMovimientoDTO::getCantidad).sum(), lista);
+    }
+}
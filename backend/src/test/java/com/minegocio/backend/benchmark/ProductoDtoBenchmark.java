@@ -0,0 +1,47 @@
+package com.minegocio.backend.benchmark;
+
+import com.minegocio.backend.dto.ProductoDTO;
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.servicios.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo entidad → DTO de ProductoService (convertirADTO) a través de obtenerTodosLosProductos,
+ * con el repositorio respondido desde memoria: mide solo la conversión y la lista resultante.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductoDtoBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int productos;
+
+    private ProductoService productoService;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Empresa empresa = DatosSinteticos.empresa();
+        List<Producto> listaProductos = DatosSinteticos.productos(empresa, productos);
+
+        productoService = new ProductoService();
+        ReflectionTestUtils.setField(productoService, "productoRepository",
+            RepositorioEnMemoria.de(ProductoRepository.class)
+                .responder("findByEmpresaIdAndActivoTrue", a -> listaProductos)
+                .crear());
+    }
+
+    @Benchmark
+    public List<ProductoDTO> convertirADTO() {
+        return productoService.obtenerTodosLosProductos(DatosSinteticos.EMPRESA_ID);
+    }
+}
@@ -0,0 +1,55 @@
+package com.minegocio.backend.benchmark;
+
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import com.minegocio.backend.servicios.MetricasOperacionesService;
+import com.minegocio.backend.servicios.ReporteStockService;
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporte de stock en Excel de punta a punta: armado del libro SXSSF y escritura completa
+ * del .xlsx (a un stream descartado, sin red ni disco de destino).
+ * El modo SingleShotTime con varias iteraciones refleja lo que ve un usuario por descarga.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReporteStockBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int productos;
+
+    private ReporteStockService reporteStockService;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Empresa empresa = DatosSinteticos.empresa();
+        List<Producto> listaProductos = DatosSinteticos.productos(empresa, productos);
+
+        reporteStockService = new ReporteStockService();
+        // Sin MeterRegistry las mediciones de negocio.operacion no registran nada
+        ReflectionTestUtils.setField(reporteStockService, "metricasOperacionesService", new MetricasOperacionesService());
+        ReflectionTestUtils.setField(reporteStockService, "productoRepository",
+            RepositorioEnMemoria.de(ProductoRepository.class)
+                .responder("findByEmpresaId", a -> listaProductos)
+                .crear());
+    }
+
+    @Benchmark
+    public LibroExcelStreaming generarYEscribir() throws IOException {
+        LibroExcelStreaming libro = reporteStockService.generarReporteStock(DatosSinteticos.EMPRESA_ID);
+        libro.escribir(OutputStream.nullOutputStream());
+        return libro;
+    }
+}
@@ -0,0 +1,61 @@
+package com.minegocio.backend.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repositorio de Spring Data respondido desde memoria para los benchmarks: cada método se
+ * resuelve por nombre con la función registrada. Es un Proxy de java.lang.reflect, mucho más
+ * barato por llamada que un mock, así lo medido es el código del servicio y no el stub.
+ *
+ * Un método sin respuesta registrada lanza UnsupportedOperationException con su nombre, para
+ * que un cambio en las consultas del servicio se note en vez de medir un camino distinto.
+ */
+final class RepositorioEnMemoria<T> {
+
+    private final Class<T> tipo;
+    private final Map<String, Function<Object[], Object>> respuestas = new HashMap<>();
+
+    private RepositorioEnMemoria(Class<T> tipo) {
+        this.tipo = tipo;
+    }
+
+    static <T> RepositorioEnMemoria<T> de(Class<T> tipo) {
+        return new RepositorioEnMemoria<>(tipo);
+    }
+
+    RepositorioEnMemoria<T> responder(String metodo, Function<Object[], Object> respuesta) {
+        respuestas.put(metodo, respuesta);
+        return this;
+    }
+
+    T crear() {
+        Map<String, Function<Object[], Object>> copia = Map.copyOf(respuestas);
+        InvocationHandler manejador = (proxy, metodo, argumentos) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return metodoDeObject(proxy, metodo, argumentos);
+            }
+            Function<Object[], Object> respuesta = copia.get(metodo.getName());
+            if (respuesta == null) {
+                throw new UnsupportedOperationException(tipo.getSimpleName() + "." + metodo.getName() + " no está preparado para el benchmark");
+            }
+            return respuesta.apply(argumentos);
+        };
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, manejador));
+    }
+
+    private Object metodoDeObject(Object proxy, Method metodo, Object[] argumentos) {
+        switch (metodo.getName()) {
+            case "equals":
+                return proxy == argumentos[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return tipo.getSimpleName() + "EnMemoria";
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.EmailPendiente;
+import com.minegocio.backend.repositorios.EmailPendienteRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cola de salida de emails contra un servidor SMTP falso en memoria
+ */
+@SpringBootTest(properties = {
+    "spring.mail.properties.mail.smtp.auth=false",
+    "spring.mail.properties.mail.smtp.starttls.enable=false",
+    "minegocio.email.cola.intervalo-ms=200"
+})
+@ActiveProfiles("dev")
+class ColaEmailServiceTest {
+
+    private static final ServidorSmtpFalso smtp = ServidorSmtpFalso.iniciar();
+
+    @DynamicPropertySource
+    static void configurarSmtp(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::getPuerto);
+    }
+
+    @AfterAll
+    static void detenerSmtp() throws IOException {
+        smtp.detener();
+    }
+
+    @Autowired
+    private ColaEmailService colaEmailService;
+
+    @Autowired
+    private EmailPendienteRepository emailPendienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void limpiar() {
+        smtp.rechazar = false;
+        smtp.recibidos.clear();
+    }
+
+    @Test
+    void encolarEnviaPorSmtpYDescartaDuplicados() {
+        assertTrue(colaEmailService.encolar("empresa@test.com", "Nuevo pedido 1001", "Detalle del pedido", "pedido-nuevo:empresa@test.com:1001"));
+        assertFalse(colaEmailService.encolar("empresa@test.com", "Nuevo pedido 1001", "Detalle del pedido", "pedido-nuevo:empresa@test.com:1001"));
+
+        esperarHasta(() -> smtp.recibidos.size() == 1);
+        assertTrue(smtp.recibidos.get(0).contains("Subject: Nuevo pedido 1001"));
+
+        esperarHasta(() -> buscarPorAsunto("Nuevo pedido 1001").getEstado() == EmailPendiente.EstadoEmail.ENVIADO);
+        assertEquals(1, buscarPorAsunto("Nuevo pedido 1001").getIntentos());
+        assertEquals(1, emailPendienteRepository.findAll().stream()
+            .filter(e -> "pedido-nuevo:empresa@test.com:1001".equals(e.getClaveDeduplicacion())).count());
+    }
+
+    @Test
+    void fallaDelProveedorSeReintentaConEspera() {
+        smtp.rechazar = true;
+        colaEmailService.encolar("cliente@test.com", "Pedido enviado 2002", "Tu pedido va en camino", null);
+
+        esperarHasta(() -> buscarPorAsunto("Pedido enviado 2002").getIntentos() == 1
+            && buscarPorAsunto("Pedido enviado 2002").getEstado() == EmailPendiente.EstadoEmail.PENDIENTE);
+        EmailPendiente email = buscarPorAsunto("Pedido enviado 2002");
+        assertNotNull(email.getUltimoError());
+        assertTrue(email.getProximoIntento().isAfter(LocalDateTime.now().plusSeconds(20)));
+        assertTrue(smtp.recibidos.isEmpty());
+
+        // Vence la espera y el proveedor vuelve a aceptar
+        smtp.rechazar = false;
+        email.setProximoIntento(LocalDateTime.now().minusSeconds(1));
+        emailPendienteRepository.save(email);
+
+        esperarHasta(() -> buscarPorAsunto("Pedido enviado 2002").getEstado() == EmailPendiente.EstadoEmail.ENVIADO);
+        assertEquals(2, buscarPorAsunto("Pedido enviado 2002").getIntentos());
+        assertEquals(1, smtp.recibidos.size());
+    }
+
+    @Test
+    void copiasEncoladasPorDosReplicasSalenUnaSolaVez() {
+        // Dos réplicas encolaron el mismo aviso a la vez: ninguna vio la fila de la otra
+        emailPendienteRepository.saveAll(List.of(
+            new EmailPendiente("empresa@test.com", "Nuevo pedido 4004", "Detalle del pedido", "pedido-nuevo:empresa@test.com:4004"),
+            new EmailPendiente("empresa@test.com", "Nuevo pedido 4004", "Detalle del pedido", "pedido-nuevo:empresa@test.com:4004")));
+        colaEmailService.drenar();
+
+        esperarHasta(() -> emailPendienteRepository.findAll().stream()
+            .filter(e -> "Nuevo pedido 4004".equals(e.getAsunto()))
+            .allMatch(e -> e.getEstado() == EmailPendiente.EstadoEmail.ENVIADO || e.getEstado() == EmailPendiente.EstadoEmail.DESCARTADO));
+        assertEquals(1, smtp.recibidos.stream().filter(m -> m.contains("Subject: Nuevo pedido 4004")).count());
+        assertEquals(1, emailPendienteRepository.findAll().stream()
+            .filter(e -> "Nuevo pedido 4004".equals(e.getAsunto()) && e.getEstado() == EmailPendiente.EstadoEmail.DESCARTADO).count());
+    }
+
+    @Test
+    void transaccionRevertidaNoEncolaElEmail() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> {
+            colaEmailService.encolar("cliente@test.com", "Compra 3003", "Gracias por tu compra", "pedido-compra:cliente@test.com:3003");
+            estado.setRollbackOnly();
+        });
+
+        colaEmailService.drenar();
+        assertTrue(emailPendienteRepository.findAll().stream().noneMatch(e -> "Compra 3003".equals(e.getAsunto())));
+        assertTrue(smtp.recibidos.isEmpty());
+    }
+
+    private EmailPendiente buscarPorAsunto(String asunto) {
+        return emailPendienteRepository.findAll().stream()
+            .filter(e -> asunto.equals(e.getAsunto()))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("La condición no se cumplió a tiempo");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrumpido");
+            }
+        }
+    }
+
+    /**
+     * Servidor SMTP mínimo que guarda los mensajes recibidos (o rechaza el destinatario)
+     */
+    static class ServidorSmtpFalso {
+
+        final List<String> recibidos = new CopyOnWriteArrayList<>();
+        volatile boolean rechazar;
+        private final ServerSocket servidor;
+
+        private ServidorSmtpFalso(ServerSocket servidor) {
+            this.servidor = servidor;
+        }
+
+        static ServidorSmtpFalso iniciar() {
+            try {
+                ServidorSmtpFalso smtp = new ServidorSmtpFalso(new ServerSocket(0));
+                Thread aceptador = new Thread(smtp::aceptar, "smtp-falso");
+                aceptador.setDaemon(true);
+                aceptador.start();
+                return smtp;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        int getPuerto() {
+            return servidor.getLocalPort();
+        }
+
+        void detener() throws IOException {
+            servidor.close();
+        }
+
+        private void aceptar() {
+            while (!servidor.isClosed()) {
+                try {
+                    Socket conexion = servidor.accept();
+                    Thread sesion = new Thread(() -> atender(conexion), "smtp-falso-sesion");
+                    sesion.setDaemon(true);
+                    sesion.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void atender(Socket conexion) {
+            try (conexion;
+                 BufferedReader entrada = new BufferedReader(new InputStreamReader(conexion.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter salida = new PrintWriter(conexion.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                responder(salida, "220 localhost SMTP falso");
+                String linea;
+                while ((linea = entrada.readLine()) != null) {
+                    String comando = linea.toUpperCase();
+                    if (comando.startsWith("EHLO") || comando.startsWith("HELO")) {
+                        responder(salida, "250 localhost");
+                    } else if (comando.startsWith("RCPT") && rechazar) {
+                        responder(salida, "550 Destinatario rechazado");
+                    } else if (comando.startsWith("DATA")) {
+                        responder(salida, "354 Fin con <CRLF>.<CRLF>");
+                        StringBuilder mensaje = new StringBuilder();
+                        while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                            mensaje.append(linea).append("\n");
+                        }
+                        recibidos.add(mensaje.toString());
+                        responder(salida, "250 OK");
+                    } else if (comando.startsWith("QUIT")) {
+                        responder(salida, "221 Chau");
+                        return;
+                    } else {
+                        responder(salida, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Conexión cerrada por el cliente
+            }
+        }
+
+        private static void responder(PrintWriter salida, String respuesta) {
+            salida.print(respuesta + "\r\n");
+            salida.flush();
+        }
+    }
+}
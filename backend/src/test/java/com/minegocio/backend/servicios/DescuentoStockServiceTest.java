@@ -0,0 +1,170 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.Empresa;
+import com.minegocio.backend.entidades.Producto;
+import com.minegocio.backend.repositorios.EmpresaRepository;
+import com.minegocio.backend.repositorios.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Descuentos concurrentes de stock: nunca se vende de más ni se pierde un descuento
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+class DescuentoStockServiceTest {
+
+    private static final int HILOS = 16;
+    private static final int DESCUENTOS_POR_HILO = 25;
+
+    @Autowired
+    private DescuentoStockService descuentoStockService;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Empresa empresa;
+
+    @BeforeEach
+    void crearEmpresa() {
+        String sufijo = String.valueOf(System.nanoTime());
+        empresa = empresaRepository.save(new Empresa("Empresa stock " + sufijo, "stock" + sufijo, "stock" + sufijo + "@test.com"));
+    }
+
+    @Test
+    void descuentosConcurrentesNoVendenDeMas() throws Exception {
+        int stockInicial = 150;
+        Producto producto = crearProducto("Producto concurrente", stockInicial);
+
+        AtomicInteger exitos = new AtomicInteger();
+        ConcurrentLinkedQueue<DescuentoStockService.Faltante> faltantes = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> inesperados = new ConcurrentLinkedQueue<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        for (int h = 0; h < HILOS; h++) {
+            hilos.submit(() -> {
+                largada.await();
+                for (int i = 0; i < DESCUENTOS_POR_HILO; i++) {
+                    try {
+                        transaccion.executeWithoutResult(estado ->
+                            descuentoStockService.descontar(empresa.getId(), Map.of(producto.getId(), 1)));
+                        exitos.incrementAndGet();
+                    } catch (DescuentoStockService.StockInsuficienteException e) {
+                        faltantes.addAll(e.getFaltantes());
+                    } catch (Throwable e) {
+                        inesperados.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(inesperados.isEmpty(), () -> "Errores inesperados: " + inesperados);
+        assertEquals(stockInicial, exitos.get());
+        assertEquals(HILOS * DESCUENTOS_POR_HILO - stockInicial, faltantes.size());
+        assertTrue(faltantes.stream().allMatch(f -> f.getProductoId().equals(producto.getId()) && f.getDisponible() == 0));
+        assertEquals(0, stockActual(producto));
+    }
+
+    @Test
+    void lineasCruzadasEnOrdenInversoNoSeBloqueanNiPierdenDescuentos() throws Exception {
+        Producto a = crearProducto("Producto A", 1000);
+        Producto b = crearProducto("Producto B", 1000);
+
+        ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        for (int h = 0; h < HILOS; h++) {
+            // La mitad de los documentos trae las líneas B, A y la otra mitad A, B
+            boolean invertido = h % 2 == 0;
+            hilos.submit(() -> {
+                largada.await();
+                for (int i = 0; i < DESCUENTOS_POR_HILO; i++) {
+                    Map<Long, Integer> lineas = new LinkedHashMap<>();
+                    if (invertido) {
+                        lineas.put(b.getId(), 2);
+                        lineas.put(a.getId(), 1);
+                    } else {
+                        lineas.put(a.getId(), 1);
+                        lineas.put(b.getId(), 2);
+                    }
+                    try {
+                        transaccion.executeWithoutResult(estado -> descuentoStockService.descontar(empresa.getId(), lineas));
+                    } catch (Throwable e) {
+                        errores.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(errores.isEmpty(), () -> "Errores: " + errores);
+        assertEquals(1000 - HILOS * DESCUENTOS_POR_HILO, stockActual(a));
+        assertEquals(1000 - HILOS * DESCUENTOS_POR_HILO * 2, stockActual(b));
+    }
+
+    @Test
+    void lineaSinStockInformaFaltantesYNoDescuentaNinguna() {
+        Producto conStock = crearProducto("Con stock", 10);
+        Producto sinStock = crearProducto("Sin stock", 2);
+
+        DescuentoStockService.StockInsuficienteException error = assertThrows(
+            DescuentoStockService.StockInsuficienteException.class,
+            () -> new TransactionTemplate(transactionManager).executeWithoutResult(estado ->
+                descuentoStockService.descontar(empresa.getId(), Map.of(conStock.getId(), 5, sinStock.getId(), 3, -1L, 1))));
+
+        List<DescuentoStockService.Faltante> faltantes = error.getFaltantes();
+        assertEquals(2, faltantes.size());
+        assertEquals(-1L, faltantes.get(0).getProductoId());
+        assertNull(faltantes.get(0).getDisponible());
+        assertEquals(sinStock.getId(), faltantes.get(1).getProductoId());
+        assertEquals(2, faltantes.get(1).getDisponible());
+        assertEquals(3, faltantes.get(1).getSolicitado());
+        assertTrue(error.getMessage().contains("Stock insuficiente para el producto: Sin stock"));
+
+        assertEquals(10, stockActual(conStock));
+        assertEquals(2, stockActual(sinStock));
+    }
+
+    private Producto crearProducto(String nombre, int stock) {
+        return productoRepository.save(new Producto(nombre, null, BigDecimal.TEN, stock, empresa));
+    }
+
+    private int stockActual(Producto producto) {
+        return productoRepository.findById(producto.getId()).orElseThrow().getStock();
+    }
+}
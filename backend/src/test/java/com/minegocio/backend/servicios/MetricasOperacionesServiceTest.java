@@ -0,0 +1,108 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.utilidades.LibroExcelStreaming;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Las operaciones medidas aparecen en el formato de texto de Prometheus con sus etiquetas e histograma
+ */
+class MetricasOperacionesServiceTest {
+
+    private PrometheusMeterRegistry registro;
+    private JdbcTemplate jdbcTemplate;
+    private MetricasOperacionesService metricas;
+
+    @BeforeEach
+    void crearServicio() {
+        registro = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(1L))).thenReturn(List.of("Plan Básico"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(2L))).thenReturn(List.of());
+
+        metricas = new MetricasOperacionesService();
+        ReflectionTestUtils.setField(metricas, "meterRegistry", registro);
+        ReflectionTestUtils.setField(metricas, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(metricas, "ttlNivelSegundos", 600L);
+    }
+
+    @Test
+    void operacionExitosaPublicaHistogramaConEtiquetas() {
+        String resultado = metricas.medir("pedido.crear", 1L, () -> "listo");
+
+        assertEquals("listo", resultado);
+        String texto = registro.scrape();
+        assertTrue(texto.contains("# TYPE negocio_operacion_seconds histogram"), texto);
+        assertTrue(lineaCon(texto, "negocio_operacion_seconds_bucket{",
+            "nivel=\"plan_basico\"", "operacion=\"pedido.crear\"", "resultado=\"ok\""), texto);
+        assertTrue(lineaCon(texto, "negocio_operacion_seconds_count{",
+            "operacion=\"pedido.crear\"", "resultado=\"ok\""), texto);
+    }
+
+    @Test
+    void operacionFallidaSeRegistraComoError() {
+        assertThrows(IllegalStateException.class, () -> metricas.medir("movimientos_dia.cerrar", 2L, () -> {
+            throw new IllegalStateException("falla");
+        }));
+
+        String texto = registro.scrape();
+        assertTrue(lineaCon(texto, "negocio_operacion_seconds_count{",
+            "nivel=\"sin_plan\"", "operacion=\"movimientos_dia.cerrar\"", "resultado=\"error\""), texto);
+    }
+
+    @Test
+    void nivelSeConsultaUnaVezPorEmpresa() {
+        for (int i = 0; i < 5; i++) {
+            metricas.medir("inventario.conteo.agregar", 1L, () -> null);
+        }
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(String.class), eq(1L));
+    }
+
+    @Test
+    void exportacionExcelSeMideHastaEscribirOAlDescartar() throws Exception {
+        LibroExcelStreaming escrito = new LibroExcelStreaming(metricas.exportacionExcel("reporte_stock", 1L));
+        escrito.crearHoja("Stock").createRow(0).createCell(0).setCellValue("ok");
+        escrito.escribir(new ByteArrayOutputStream());
+
+        LibroExcelStreaming descartado = new LibroExcelStreaming(metricas.exportacionExcel("reporte_stock", 1L));
+        descartado.descartar();
+
+        String texto = registro.scrape();
+        assertTrue(lineaCon(texto, "negocio_operacion_seconds_count{",
+            "operacion=\"excel.reporte_stock\"", "resultado=\"ok\""), texto);
+        assertTrue(lineaCon(texto, "negocio_operacion_seconds_count{",
+            "operacion=\"excel.reporte_stock\"", "resultado=\"error\""), texto);
+    }
+
+    @Test
+    void nombreDePlanSeNormalizaComoEtiqueta() {
+        assertEquals("plan_basico", MetricasOperacionesService.normalizarNivel(" Plan Básico "));
+        assertEquals("premium_anual", MetricasOperacionesService.normalizarNivel("PREMIUM (anual)"));
+        assertEquals("sin_plan", MetricasOperacionesService.normalizarNivel("  "));
+    }
+
+    private static boolean lineaCon(String texto, String prefijo, String... partes) {
+        return texto.lines()
+            .filter(linea -> linea.startsWith(prefijo))
+            .anyMatch(linea -> {
+                for (String parte : partes) {
+                    if (!linea.contains(parte)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+    }
+}
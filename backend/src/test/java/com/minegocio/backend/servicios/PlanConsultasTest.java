@@ -0,0 +1,268 @@
+package com.minegocio.backend.servicios;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minegocio.backend.entidades.*;
+import com.minegocio.backend.repositorios.*;
+import com.minegocio.backend.seguridad.UsuarioPrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guardia de N+1: cuenta las sentencias SQL de las operaciones de lectura más usadas contra
+ * datos sembrados en H2 y falla si alguna supera su máximo. Cada operación se ejecuta y se
+ * serializa a JSON dentro de una transacción, como la resuelve el controlador. Los máximos
+ * no dependen de FILAS: si una operación vuelve a cargar asociaciones fila por fila, la
+ * cuenta crece con los datos y el test falla.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("dev")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PlanConsultasTest {
+
+    private static final int FILAS = 12;
+
+    @Autowired private ProductoService productoService;
+    @Autowired private PedidoService pedidoService;
+    @Autowired private ClienteService clienteService;
+    @Autowired private VentaRapidaService ventaRapidaService;
+    @Autowired private PlanillaPedidoService planillaPedidoService;
+    @Autowired private PlanillaDevolucionService planillaDevolucionService;
+    @Autowired private RemitoIngresoService remitoIngresoService;
+    @Autowired private RoturaPerdidaService roturaPerdidaService;
+    @Autowired private SectorService sectorService;
+    @Autowired private HistorialMovimientoStockService historialMovimientoStockService;
+    @Autowired private TransportistaService transportistaService;
+    @Autowired private NotificacionService notificacionService;
+    @Autowired private MovimientoDiaService movimientoDiaService;
+    @Autowired private InventarioCompletoService inventarioCompletoService;
+    @Autowired private EmpresaService empresaService;
+    @Autowired private RankingVentasService rankingVentasService;
+    @Autowired private LibroStockDiarioService libroStockDiarioService;
+    @Autowired private ResumenVentasDiarioService resumenVentasDiarioService;
+
+    @Autowired private EmpresaRepository empresaRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private SectorRepository sectorRepository;
+    @Autowired private StockPorSectorRepository stockPorSectorRepository;
+    @Autowired private PedidoRepository pedidoRepository;
+    @Autowired private VentaRapidaRepository ventaRapidaRepository;
+    @Autowired private PlanillaPedidoRepository planillaPedidoRepository;
+    @Autowired private PlanillaDevolucionRepository planillaDevolucionRepository;
+    @Autowired private RemitoIngresoRepository remitoIngresoRepository;
+    @Autowired private RoturaPerdidaRepository roturaPerdidaRepository;
+    @Autowired private HistorialMovimientoStockRepository historialMovimientoStockRepository;
+    @Autowired private TransportistaRepository transportistaRepository;
+    @Autowired private NotificacionRepository notificacionRepository;
+    @Autowired private InventarioCompletoRepository inventarioCompletoRepository;
+    @Autowired private ConteoSectorRepository conteoSectorRepository;
+    @Autowired private DetalleConteoRepository detalleConteoRepository;
+
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+
+    private Empresa empresa;
+    private Usuario usuario;
+    private Cliente cliente;
+    private Sector sector;
+    private InventarioCompleto inventario;
+    private ConteoSector conteoSector;
+
+    @BeforeAll
+    void sembrarDatos() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(estado -> sembrar());
+        // Los datos se insertan directo: se arman las proyecciones que en producción ya existen,
+        // para medir las lecturas y no la reconstrucción inicial
+        transaccion.executeWithoutResult(estado -> {
+            rankingVentasService.reconstruirRanking(empresa.getId());
+            libroStockDiarioService.reconstruirLibro(empresa.getId());
+            resumenVentasDiarioService.reconstruir(empresa.getId());
+        });
+    }
+
+    @AfterAll
+    void limpiarSeguridad() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @TestFactory
+    List<DynamicTest> operacionesDeLecturaNoCrecenConLosDatos() {
+        Long e = empresa.getId();
+        String hoy = LocalDate.now().toString();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        List<DynamicTest> operaciones = new ArrayList<>();
+        operaciones.add(operacion("productos", 4, () -> productoService.obtenerTodosLosProductos(e)));
+        operaciones.add(operacion("productos paginados", 5, () -> productoService.obtenerProductosPaginados(e, PageRequest.of(0, 20))));
+        operaciones.add(operacion("buscar productos", 4, () -> productoService.buscarProductos(e, "Producto")));
+        operaciones.add(operacion("productos stock bajo", 4, () -> productoService.obtenerProductosConStockBajo(e)));
+        operaciones.add(operacion("catálogo público", 5, () -> productoService.buscarCatalogoPublico(e, null, null, null, null, null, 20)));
+        operaciones.add(operacion("pedidos", 8, () -> pedidoService.obtenerPedidosPorEmpresa(e)));
+        operaciones.add(operacion("estadísticas pedidos", 3, () -> pedidoService.obtenerEstadisticasPedidos(e)));
+        operaciones.add(operacion("estadísticas pedidos mensuales", 3, () -> pedidoService.obtenerEstadisticasMensuales(e, ahora.getYear(), ahora.getMonthValue())));
+        operaciones.add(operacion("top productos", 6, () -> pedidoService.obtenerTopProductosMasVendidos(e, 5)));
+        operaciones.add(operacion("clientes", 4, () -> clienteService.obtenerTodosLosClientes(e)));
+        operaciones.add(operacion("historial pedidos cliente", 8, () -> clienteService.obtenerHistorialPedidosCliente(e, cliente.getId())));
+        operaciones.add(operacion("ventas rápidas", 6, () -> ventaRapidaService.obtenerHistorialVentasRapidas(e)));
+        operaciones.add(operacion("estadísticas ventas rápidas", 3, () -> ventaRapidaService.obtenerEstadisticasVentasRapidas(e)));
+        operaciones.add(operacion("estadísticas ventas rápidas anuales", 3, () -> ventaRapidaService.obtenerEstadisticasAnuales(e, ahora.getYear())));
+        operaciones.add(operacion("planillas de pedido", 6, () -> planillaPedidoService.obtenerPlanillasPorEmpresa(e)));
+        operaciones.add(operacion("planillas de devolución", 6, () -> planillaDevolucionService.obtenerPlanillasDevolucionPorEmpresa(e)));
+        operaciones.add(operacion("remitos de ingreso", 6, () -> remitoIngresoService.obtenerRemitosPorEmpresa(e)));
+        operaciones.add(operacion("roturas y pérdidas", 6, () -> roturaPerdidaService.obtenerRoturasPerdidasPorEmpresa(e)));
+        operaciones.add(operacion("sectores", 3, () -> sectorService.obtenerTodosLosSectores(e)));
+        operaciones.add(operacion("estadísticas sectores", 6, () -> sectorService.obtenerEstadisticasSectores(e)));
+        operaciones.add(operacion("stock general", 3, () -> sectorService.obtenerStockGeneral(e)));
+        operaciones.add(operacion("stock detallado", 3, () -> sectorService.obtenerStockDetallado(e)));
+        operaciones.add(operacion("productos en sector", 5, () -> sectorService.obtenerProductosEnSector(sector.getId(), e)));
+        operaciones.add(operacion("historial movimientos de stock", 6, () -> historialMovimientoStockService.obtenerHistorialPorEmpresa(e)));
+        operaciones.add(operacion("transportistas", 4, () -> transportistaService.obtenerTransportistasPorEmpresa(e)));
+        operaciones.add(operacion("notificaciones recientes", 3, () -> notificacionService.obtenerNotificacionesRecientes(e)));
+        operaciones.add(operacion("empresa", 3, () -> empresaService.obtenerPorId(e).orElseThrow()));
+        operaciones.add(operacion("movimientos del día", 7, () -> movimientoDiaService.obtenerMovimientosDia(hoy)));
+        operaciones.add(operacion("movimientos por rango", 6, () -> movimientoDiaService.obtenerMovimientosRango(hoy, hoy)));
+        operaciones.add(operacion("productos perdidos", 8, () -> movimientoDiaService.obtenerProductosPerdidos(hoy)));
+        operaciones.add(operacion("inventarios completados", 6, () -> inventarioCompletoService.obtenerRegistrosInventariosCompletados(e)));
+        operaciones.add(operacion("conteos de sector", 6, () -> inventarioCompletoService.obtenerConteosSector(inventario.getId())));
+        operaciones.add(operacion("detalle final de conteo", 5, () -> inventarioCompletoService.obtenerDetalleFinalSectorCompletado(conteoSector.getId())));
+        return operaciones;
+    }
+
+    private DynamicTest operacion(String nombre, int maximo, Supplier<Object> llamada) {
+        return DynamicTest.dynamicTest(nombre + " (máx. " + maximo + ")", () -> {
+            long sentencias = contarSentencias(llamada);
+            System.out.println("📊 PLAN CONSULTAS - " + nombre + ": " + sentencias + " sentencias");
+            assertTrue(sentencias <= maximo,
+                nombre + " ejecutó " + sentencias + " sentencias (máximo " + maximo + ", " + FILAS + " filas sembradas)");
+        });
+    }
+
+    private long contarSentencias(Supplier<Object> llamada) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            new UsuarioPrincipal(usuario), null, List.of()));
+        estadisticas.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            try {
+                objectMapper.writeValueAsString(llamada.get());
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void sembrar() {
+        String sufijo = String.valueOf(System.nanoTime());
+        empresa = empresaRepository.save(new Empresa("Empresa consultas " + sufijo, "consultas" + sufijo, "consultas" + sufijo + "@test.com"));
+        usuario = usuarioRepository.save(new Usuario("Admin", "Consultas", "admin" + sufijo + "@test.com", "secreto123", empresa));
+        cliente = clienteRepository.save(new Cliente("Cliente", "Consultas", "cliente" + sufijo + "@test.com", empresa));
+
+        List<Sector> sectores = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sectores.add(sectorRepository.save(new Sector("Sector " + i, empresa)));
+        }
+        sector = sectores.get(0);
+
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < FILAS; i++) {
+            Producto producto = new Producto("Producto " + i, "Descripción " + i, BigDecimal.TEN, 20 + i, empresa);
+            producto.setCodigoPersonalizado("C" + i);
+            producto.setCategoria("Categoría " + (i % 3));
+            producto.setStockMinimo(i % 2 == 0 ? 50 : 0);
+            producto.getImagenes().add("http://img/" + i + ".png");
+            productos.add(productoRepository.save(producto));
+            stockPorSectorRepository.save(new StockPorSector(productos.get(i), sectores.get(i % 3), 5));
+        }
+
+        for (int i = 0; i < FILAS; i++) {
+            Producto a = productos.get(i);
+            Producto b = productos.get((i + 1) % FILAS);
+
+            Pedido pedido = new Pedido(i % 2 == 0 ? cliente : null, empresa);
+            pedido.setNumeroPedido("PED-C-" + sufijo + "-" + i);
+            pedido.setClienteEmail("publico" + i + "@test.com");
+            pedido.setTotal(BigDecimal.valueOf(20));
+            pedido.getDetalles().add(new DetallePedido(pedido, a, 1));
+            pedido.getDetalles().add(new DetallePedido(pedido, b, 1));
+            pedidoRepository.save(pedido);
+
+            VentaRapida venta = new VentaRapida(empresa, "Cliente " + i, null, BigDecimal.valueOf(20), BigDecimal.valueOf(20), "EFECTIVO");
+            venta.setNumeroComprobante("VR-C-" + sufijo + "-" + i);
+            venta.getDetalles().add(new DetalleVentaRapida(venta, a, a.getNombre(), 1, BigDecimal.TEN, BigDecimal.TEN));
+            venta.getDetalles().add(new DetalleVentaRapida(venta, b, b.getNombre(), 1, BigDecimal.TEN, BigDecimal.TEN));
+            ventaRapidaRepository.save(venta);
+
+            PlanillaPedido planilla = new PlanillaPedido(empresa, usuario, LocalDateTime.now());
+            planilla.setNumeroPlanilla("PP-C-" + sufijo + "-" + i);
+            planilla.getDetalles().add(new DetallePlanillaPedido(planilla, a, 1));
+            planilla.getDetalles().add(new DetallePlanillaPedido(planilla, b, 1));
+            planilla.setTotalProductos(2);
+            planillaPedidoRepository.save(planilla);
+
+            PlanillaDevolucion devolucion = new PlanillaDevolucion(empresa, usuario, LocalDateTime.now());
+            devolucion.setNumeroPlanilla("DEV-C-" + sufijo + "-" + i);
+            for (Producto producto : List.of(a, b)) {
+                DetallePlanillaDevolucion detalle = new DetallePlanillaDevolucion(devolucion, producto.getNombre(), 1);
+                detalle.setProducto(producto);
+                devolucion.getDetalles().add(detalle);
+            }
+            devolucion.setTotalProductos(2);
+            planillaDevolucionRepository.save(devolucion);
+
+            RemitoIngreso remito = new RemitoIngreso("R-" + sufijo + "-" + i, LocalDateTime.now(), null, 2, empresa);
+            remito.setUsuario(usuario);
+            remito.setDetalles(new ArrayList<>(List.of(new DetalleRemitoIngreso(remito, a, 1), new DetalleRemitoIngreso(remito, b, 1))));
+            remitoIngresoRepository.save(remito);
+
+            RoturaPerdida rotura = new RoturaPerdida(empresa, usuario, LocalDateTime.now(), 1);
+            rotura.setProducto(a);
+            roturaPerdidaRepository.save(rotura);
+
+            historialMovimientoStockRepository.save(new HistorialMovimientoStock(a, sectores.get(0), sectores.get(1), 1,
+                HistorialMovimientoStock.TipoMovimiento.TRANSFERENCIA, usuario, empresa, null));
+            transportistaRepository.save(new Transportista("T" + i, "Transportista " + i, null, empresa));
+            notificacionRepository.save(new Notificacion("PEDIDO_NUEVO", "Pedido " + i, "Nuevo pedido", empresa.getId()));
+        }
+
+        inventario = inventarioCompletoRepository.save(new InventarioCompleto("Inventario consultas", empresa, usuario));
+        for (Sector s : sectores) {
+            ConteoSector conteo = conteoSectorRepository.save(new ConteoSector(inventario, s));
+            if (conteoSector == null) {
+                conteoSector = conteo;
+            }
+        }
+        for (Producto producto : productos) {
+            DetalleConteo detalle = new DetalleConteo(conteoSector, producto);
+            detalle.setCantidadConteo1(producto.getStock());
+            detalle.setCantidadFinal(producto.getStock());
+            detalleConteoRepository.save(detalle);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.minegocio.backend.servicios;
+
+import com.minegocio.backend.entidades.DetalleConteo;
+import com.minegocio.backend.entidades.ProgresoConteoProducto;
+import com.minegocio.backend.entidades.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Los contadores ajustados producto por producto coinciden con el recálculo completo del sector
+ */
+class ProgresoConteoServiceTest {
+
+    private static final Long CONTEO_ID = 1L;
+
+    @Test
+    void conteoInicialSumaLasFilasDeCadaUsuario() {
+        List<DetalleConteo> detalles = List.of(
+            detalle(1, 10L, 5, null, 1),
+            detalle(2, 10L, 3, null, 2),
+            detalle(3, 10L, null, 8, 3),   // producto 10: 8 y 8, sin diferencias
+            detalle(4, 20L, 4, null, 4),
+            detalle(5, 20L, null, 6, 5),   // producto 20: 4 y 6, con diferencias
+            detalle(6, 30L, null, 2, 6),   // producto 30: solo usuario 2
+            detalle(7, 40L, 0, 0, 7));     // producto 40: fila sin cantidades
+
+        ProgresoConteoService.Contadores contadores =
+            ProgresoConteoService.contar(ProgresoConteoService.calcularSector(CONTEO_ID, detalles).values(), false);
+
+        assertEquals(4, contadores.getTotalProductos());
+        assertEquals(3, contadores.getProductosContados());
+        assertEquals(1, contadores.getProductosConDiferencias());
+        assertEquals(2, contadores.getContadosUsuario1());
+        assertEquals(3, contadores.getContadosUsuario2());
+        assertEquals(75.0, contadores.getPorcentaje(), 0.001);
+    }
+
+    @Test
+    void reconteoUsaLaFilaMasRecienteDeAmbosUsuarios() {
+        List<DetalleConteo> detalles = List.of(
+            detalle(1, 10L, 5, 7, 1),
+            detalle(2, 10L, 6, 6, 9),      // la más reciente: sin diferencias
+            detalle(3, 20L, 4, 4, 2),
+            detalle(4, 20L, 4, 5, 8),      // la más reciente: con diferencias
+            detalle(5, 30L, 3, null, 3));  // sin reconteo de ambos usuarios
+
+        Map<Long, ProgresoConteoProducto> progreso = ProgresoConteoService.calcularSector(CONTEO_ID, detalles);
+        ProgresoConteoService.Contadores contadores = ProgresoConteoService.contar(progreso.values(), true);
+
+        assertEquals(3, contadores.getTotalProductos());
+        assertEquals(2, contadores.getProductosContados());
+        assertEquals(1, contadores.getProductosConDiferencias());
+        assertEquals(6, progreso.get(10L).getReconteoUsuario1());
+        assertEquals(5, progreso.get(20L).getReconteoUsuario2());
+    }
+
+    @Test
+    void ajustesIncrementalesCoincidenConElRecalculoCompleto() {
+        for (boolean reconteo : new boolean[]{false, true}) {
+            Random azar = new Random(reconteo ? 7 : 3);
+            List<DetalleConteo> detalles = new ArrayList<>();
+            Map<Long, ProgresoConteoProducto> porProducto = new HashMap<>();
+            ProgresoConteoService.Contadores incrementales = ProgresoConteoService.contar(List.of(), reconteo);
+
+            for (int cambio = 1; cambio <= 2000; cambio++) {
+                Long productoId = (long) (1 + azar.nextInt(60));
+                List<DetalleConteo> delProducto = detalles.stream()
+                    .filter(d -> d.getProducto().getId().equals(productoId) && !d.getEliminado())
+                    .collect(Collectors.toList());
+                int accion = azar.nextInt(3);
+                if (accion == 0 || delProducto.isEmpty()) {
+                    detalles.add(detalle(cambio, productoId, cantidad(azar), cantidad(azar), cambio));
+                } else if (accion == 1) {
+                    DetalleConteo elegido = delProducto.get(azar.nextInt(delProducto.size()));
+                    elegido.setCantidadConteo1(cantidad(azar));
+                    elegido.setCantidadConteo2(cantidad(azar));
+                    elegido.setFechaActualizacion(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(cambio));
+                } else {
+                    delProducto.get(azar.nextInt(delProducto.size())).setEliminado(true);
+                }
+
+                // Lo que hace actualizarProducto: se recalcula solo el producto y se suma la diferencia
+                ProgresoConteoProducto anterior = porProducto.remove(productoId);
+                ProgresoConteoProducto nuevo = ProgresoConteoService.calcularProducto(CONTEO_ID, productoId,
+                    detalles.stream().filter(d -> d.getProducto().getId().equals(productoId)).collect(Collectors.toList()));
+                if (anterior != null) {
+                    incrementales.sumar(anterior, reconteo, -1);
+                }
+                if (nuevo != null) {
+                    incrementales.sumar(nuevo, reconteo, 1);
+                    porProducto.put(productoId, nuevo);
+                }
+
+                ProgresoConteoService.Contadores completos = ProgresoConteoService.contar(
+                    ProgresoConteoService.calcularSector(CONTEO_ID, detalles).values(), reconteo);
+                assertTrue(completos.mismosValores(incrementales), "Diferencia en el cambio " + cambio);
+            }
+        }
+    }
+
+    private static Integer cantidad(Random azar) {
+        int valor = azar.nextInt(6);
+        return valor == 5 ? null : valor;
+    }
+
+    private static DetalleConteo detalle(long id, Long productoId, Integer cantidad1, Integer cantidad2, int segundos) {
+        Producto producto = new Producto();
+        producto.setId(productoId);
+        DetalleConteo detalle = new DetalleConteo();
+        detalle.setId(id);
+        detalle.setProducto(producto);
+        detalle.setCantidadConteo1(cantidad1);
+        detalle.setCantidadConteo2(cantidad2);
+        detalle.setEliminado(false);
+        detalle.setFechaActualizacion(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(segundos));
+        return detalle;
+    }
+}
@@ -0,0 +1,56 @@
+-- Migración para PostgreSQL: optimizaciones de octubre 2025 (migraciones V2025_10_01 a V2025_10_13)
+-- Ejecutar los pasos 1 a 3 en la base de datos PostgreSQL de Railway ANTES de desplegar el backend,
+-- y el paso 4 después del primer arranque de esta versión (cuando ya existen las tablas nuevas).
+-- En Railway Flyway está deshabilitado: las tablas nuevas las crea Hibernate (ddl-auto=update)
+-- desde las entidades, pero Hibernate nunca agranda columnas existentes ni crea índices en tablas
+-- que ya existían. Todas las sentencias son idempotentes.
+
+-- 1. Números de planilla: los números generados llevan el id de empresa (PP-<empresa>-000001)
+--    y no entran en VARCHAR(8)
+ALTER TABLE planillas_pedidos ALTER COLUMN numero_planilla TYPE VARCHAR(30);
+ALTER TABLE planillas_devoluciones ALTER COLUMN numero_planilla TYPE VARCHAR(30);
+
+-- 2. Catálogo público: índices sobre la tabla productos existente
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS texto_busqueda VARCHAR(1201);
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_nombre ON productos(empresa_id, activo, nombre, id);
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_precio ON productos(empresa_id, activo, precio, id);
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_categoria ON productos(empresa_id, categoria);
+CREATE INDEX IF NOT EXISTS idx_productos_catalogo_marca ON productos(empresa_id, marca);
+
+-- 3. Progreso de conteo por sector (columnas nuevas en conteo_sector)
+ALTER TABLE conteo_sector ADD COLUMN IF NOT EXISTS productos_contados_usuario_1 INT;
+ALTER TABLE conteo_sector ADD COLUMN IF NOT EXISTS productos_contados_usuario_2 INT;
+ALTER TABLE conteo_sector ADD COLUMN IF NOT EXISTS progreso_en_reconteo BOOLEAN;
+
+-- 4. (Después del primer arranque) Índices de las tablas nuevas que Hibernate no crea
+CREATE INDEX IF NOT EXISTS idx_invalidaciones_cache_fecha_creacion ON invalidaciones_cache(fecha_creacion);
+CREATE INDEX IF NOT EXISTS idx_emails_pendientes_estado_proximo ON emails_pendientes(estado, proximo_intento);
+CREATE INDEX IF NOT EXISTS idx_emails_pendientes_clave ON emails_pendientes(clave_deduplicacion);
+CREATE INDEX IF NOT EXISTS idx_stock_diario_empresa_fecha ON stock_diario_productos(empresa_id, fecha);
+CREATE INDEX IF NOT EXISTS idx_resumen_ventas_empresa_canal_fecha ON resumen_ventas_diario(empresa_id, canal, fecha);
+CREATE INDEX IF NOT EXISTS idx_vista_stock_empresa_nombre ON vista_stock_sector(empresa_id, producto_nombre);
+CREATE INDEX IF NOT EXISTS idx_vista_stock_empresa_sector ON vista_stock_sector(empresa_id, sector_id);
+CREATE INDEX IF NOT EXISTS idx_vista_stock_producto ON vista_stock_sector(producto_id);
+CREATE INDEX IF NOT EXISTS idx_uso_almacenamiento_fecha_base_datos ON uso_almacenamiento_empresa(fecha_base_datos);
+
+-- 5. Verificar el ancho de numero_planilla (debe ser 30 en ambas tablas)
+SELECT
+    table_name,
+    column_name,
+    character_maximum_length
+FROM information_schema.columns
+WHERE table_name IN ('planillas_pedidos', 'planillas_devoluciones')
+AND column_name = 'numero_planilla';
+
+-- 6. Verificar las claves únicas que usan los contadores (INSERT ... ON CONFLICT las necesita)
+SELECT
+    tc.table_name,
+    tc.constraint_name
+FROM information_schema.table_constraints tc
+WHERE tc.constraint_type = 'UNIQUE'
+AND tc.table_name IN ('ventas_producto_acumuladas', 'stock_diario_productos', 'resumen_ventas_diario',
+                      'secuencias_documentos', 'indices_empresa')
+ORDER BY tc.table_name;
+
+-- 7. Mensaje de confirmación
+SELECT '✅ Migración completada. Desplegar el backend para que Hibernate cree las tablas nuevas.' as resultado;